@@ -629,7 +629,7 @@ TEXT
 // Encoding Type Keywords
 
 ENCODING_VALUE
-    : DICTIONARY | DIFF | GORILLA | PLAIN | REGULAR | RLE | TS_2DIFF | ZIGZAG | FREQ
+    : DICTIONARY | DIFF | GORILLA | PLAIN | REGULAR | RLE | TS_2DIFF | ZIGZAG | FREQ | CHIMP
     ;
 
 DICTIONARY
@@ -668,6 +668,10 @@ FREQ
     : F R E Q
     ;
 
+CHIMP
+    : C H I M P
+    ;
+
 
 // Compressor Type Keywords
 
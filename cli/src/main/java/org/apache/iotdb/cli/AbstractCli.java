@@ -682,7 +682,13 @@ public abstract class AbstractCli {
     List<String> activityList = ((AbstractIoTDBJDBCResultSet) resultSet).getActivityList();
     List<Long> elapsedTimeList = ((AbstractIoTDBJDBCResultSet) resultSet).getElapsedTimeList();
     String[] statisticsInfoList = {
-      "seriesPathNum", "seqFileNum", "unSeqFileNum", "seqChunkInfo", "unSeqChunkInfo", "pageNumInfo"
+      "seriesPathNum",
+      "seqFileNum",
+      "unSeqFileNum",
+      "seqChunkInfo",
+      "unSeqChunkInfo",
+      "pageNumInfo",
+      "chunkCacheInfo"
     };
 
     for (int i = 0; i < activityList.size(); i++) {
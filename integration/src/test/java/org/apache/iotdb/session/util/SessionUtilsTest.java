@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.session.util;
+
+import org.apache.iotdb.db.utils.QueryDataSetUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.BitMap;
+import org.apache.iotdb.tsfile.write.record.Tablet;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/** Reads the buffers that a session serializes a Tablet into the way the server does. */
+public class SessionUtilsTest {
+
+  private static final TSDataType[] TYPES = {
+    TSDataType.BOOLEAN,
+    TSDataType.INT32,
+    TSDataType.INT64,
+    TSDataType.FLOAT,
+    TSDataType.DOUBLE,
+    TSDataType.TEXT
+  };
+
+  // not a multiple of 8, so the last bitmap byte is partly used
+  private static final int ROW_SIZE = 1021;
+
+  @Test
+  public void testRoundTripWithoutNulls() {
+    dirtyPooledBuffers();
+    Tablet tablet = createTablet(false);
+    ByteBuffer timeBuffer = SessionUtils.getTimeBuffer(tablet);
+    ByteBuffer valueBuffer = SessionUtils.getValueBuffer(tablet);
+
+    assertArrayEquals(
+        Arrays.copyOf(tablet.timestamps, ROW_SIZE),
+        QueryDataSetUtils.readTimesFromBuffer(timeBuffer, ROW_SIZE));
+    assertFalse(timeBuffer.hasRemaining());
+
+    Object[] values =
+        QueryDataSetUtils.readValuesFromBuffer(valueBuffer, TYPES, TYPES.length, ROW_SIZE);
+    assertColumns(tablet, values);
+    assertNull(QueryDataSetUtils.readBitMapsFromBuffer(valueBuffer, TYPES.length, ROW_SIZE));
+    assertFalse(valueBuffer.hasRemaining());
+
+    TabletBufferPool.release(timeBuffer);
+    TabletBufferPool.release(valueBuffer);
+  }
+
+  @Test
+  public void testRoundTripWithNulls() {
+    dirtyPooledBuffers();
+    Tablet tablet = createTablet(true);
+    ByteBuffer timeBuffer = SessionUtils.getTimeBuffer(tablet);
+    ByteBuffer valueBuffer = SessionUtils.getValueBuffer(tablet);
+
+    assertArrayEquals(
+        Arrays.copyOf(tablet.timestamps, ROW_SIZE),
+        QueryDataSetUtils.readTimesFromBuffer(timeBuffer, ROW_SIZE));
+
+    Object[] values =
+        QueryDataSetUtils.readValuesFromBuffer(valueBuffer, TYPES, TYPES.length, ROW_SIZE);
+    assertColumns(tablet, values);
+    BitMap[] bitMaps = QueryDataSetUtils.readBitMapsFromBuffer(valueBuffer, TYPES.length, ROW_SIZE);
+    assertFalse(valueBuffer.hasRemaining());
+    for (int column = 0; column < TYPES.length; column++) {
+      if (column % 2 == 0) {
+        // a column without nulls is sent without a bitmap
+        assertNull(bitMaps[column]);
+        continue;
+      }
+      for (int row = 0; row < ROW_SIZE; row++) {
+        assertEquals(isNull(column, row), bitMaps[column].isMarked(row));
+      }
+    }
+
+    TabletBufferPool.release(timeBuffer);
+    TabletBufferPool.release(valueBuffer);
+  }
+
+  /** Pooled buffers are not cleared, so the serialization has to overwrite every byte it sends. */
+  private static void dirtyPooledBuffers() {
+    List<ByteBuffer> buffers = new ArrayList<>();
+    for (int size = 1024; size <= 64 * 1024; size *= 2) {
+      ByteBuffer buffer = TabletBufferPool.allocate(size);
+      Arrays.fill(buffer.array(), (byte) 0x7F);
+      buffers.add(buffer);
+    }
+    buffers.forEach(TabletBufferPool::release);
+  }
+
+  private static boolean isNull(int column, int row) {
+    return column % 2 == 1 && row % (column + 2) == 0;
+  }
+
+  private static Tablet createTablet(boolean withNulls) {
+    List<MeasurementSchema> schemas = new ArrayList<>();
+    for (int i = 0; i < TYPES.length; i++) {
+      schemas.add(new MeasurementSchema("s" + i, TYPES[i]));
+    }
+    // larger than the rows in use, only the first rowSize rows are sent
+    Tablet tablet = new Tablet("root.sg.d1", schemas, ROW_SIZE + 100);
+    for (int row = 0; row < ROW_SIZE; row++) {
+      int rowIndex = tablet.rowSize++;
+      tablet.addTimestamp(rowIndex, row * 3L - 1000);
+      Object[] rowValues = {
+        row % 3 == 0, row - 500, row * 100_000_000L, row / 7f, row / 3d, new Binary("v" + row)
+      };
+      for (int column = 0; column < TYPES.length; column++) {
+        Object value = withNulls && isNull(column, row) ? null : rowValues[column];
+        tablet.addValue("s" + column, rowIndex, value);
+      }
+    }
+    return tablet;
+  }
+
+  private static void assertColumns(Tablet tablet, Object[] values) {
+    assertEquals(TYPES.length, values.length);
+    assertArrayEquals(Arrays.copyOf((boolean[]) tablet.values[0], ROW_SIZE), (boolean[]) values[0]);
+    assertArrayEquals(Arrays.copyOf((int[]) tablet.values[1], ROW_SIZE), (int[]) values[1]);
+    assertArrayEquals(Arrays.copyOf((long[]) tablet.values[2], ROW_SIZE), (long[]) values[2]);
+    assertArrayEquals(Arrays.copyOf((float[]) tablet.values[3], ROW_SIZE), (float[]) values[3], 0f);
+    assertArrayEquals(
+        Arrays.copyOf((double[]) tablet.values[4], ROW_SIZE), (double[]) values[4], 0d);
+    assertArrayEquals(Arrays.copyOf((Binary[]) tablet.values[5], ROW_SIZE), (Binary[]) values[5]);
+  }
+}
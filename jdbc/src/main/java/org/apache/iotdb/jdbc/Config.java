@@ -56,4 +56,13 @@ public class Config {
 
   /** key of thrift max frame size */
   public static final String THRIFT_FRAME_MAX_SIZE = "thrift_max_frame_size";
+
+  /** key of the number of batches a result set fetches ahead in the background */
+  public static final String PREFETCH_BATCH_NUM = "prefetch_batch_num";
+
+  /**
+   * key of the compression type (NONE, SNAPPY, LZ4 or ZSTD) negotiated with a server that enables
+   * rpc_adaptive_compression_enable
+   */
+  public static final String RPC_COMPRESSION_TYPE = "rpc_compression_type";
 }
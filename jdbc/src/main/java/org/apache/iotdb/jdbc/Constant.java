@@ -38,6 +38,8 @@ public class Constant {
       "* Num of unsequence chunks: %d, avg points: %.1f";
   public static final String STATISTICS_PAGEINFO =
       "* Num of Pages: %d, overlapped pages: %d (%.1f%%)";
+  public static final String STATISTICS_CHUNKCACHEINFO =
+      "* Num of chunk cache hits: %d, misses: %d";
   public static final String STATISTICS_RESULT_LINES = "* Lines of result: %d";
   public static final String STATISTICS_PRC_INFO = "* Num of RPC: %d, avg cost: %d ms";
 
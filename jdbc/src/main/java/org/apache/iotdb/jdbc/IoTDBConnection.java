@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.jdbc;
 
+import org.apache.iotdb.rpc.FetchResultsPrefetcher;
 import org.apache.iotdb.rpc.RpcTransportFactory;
 import org.apache.iotdb.rpc.RpcUtils;
 import org.apache.iotdb.rpc.StatementExecutionException;
@@ -57,6 +58,8 @@ import java.sql.Struct;
 import java.time.ZoneId;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 
 public class IoTDBConnection implements Connection {
@@ -72,6 +75,8 @@ public class IoTDBConnection implements Connection {
   private boolean isClosed = true;
   private SQLWarning warningChain = null;
   private TTransport transport;
+  // the result set prefetchers that are not closed yet
+  private final Set<FetchResultsPrefetcher> prefetchers = ConcurrentHashMap.newKeySet();
   /**
    * Timeout of query can be set by users. Unit: s If not set, default value 0 will be used, which
    * will use server configuration.
@@ -116,6 +121,14 @@ public class IoTDBConnection implements Connection {
     return url;
   }
 
+  int getPrefetchBatchNum() {
+    return params.getPrefetchBatchNum();
+  }
+
+  Set<FetchResultsPrefetcher> getPrefetchers() {
+    return prefetchers;
+  }
+
   @Override
   public boolean isWrapperFor(Class<?> arg0) throws SQLException {
     throw new SQLException("Does not support isWrapperFor");
@@ -141,6 +154,7 @@ public class IoTDBConnection implements Connection {
     if (isClosed) {
       return;
     }
+    FetchResultsPrefetcher.closeAll(prefetchers);
     TSCloseSessionReq req = new TSCloseSessionReq(sessionId);
     try {
       getClient().closeSession(req);
@@ -449,9 +463,18 @@ public class IoTDBConnection implements Connection {
   private void openTransport() throws TTransportException {
     RpcTransportFactory.setDefaultBufferCapacity(params.getThriftDefaultBufferSize());
     RpcTransportFactory.setThriftMaxFrameSize(params.getThriftMaxFrameSize());
-    transport =
-        RpcTransportFactory.INSTANCE.getTransport(
-            params.getHost(), params.getPort(), Config.DEFAULT_CONNECTION_TIMEOUT_MS);
+    if (params.getRpcCompressionType() == null) {
+      transport =
+          RpcTransportFactory.INSTANCE.getTransport(
+              params.getHost(), params.getPort(), Config.DEFAULT_CONNECTION_TIMEOUT_MS);
+    } else {
+      transport =
+          RpcTransportFactory.INSTANCE.getAdaptiveCompressionTransport(
+              params.getHost(),
+              params.getPort(),
+              Config.DEFAULT_CONNECTION_TIMEOUT_MS,
+              params.getRpcCompressionType());
+    }
     if (!transport.isOpen()) {
       transport.open();
     }
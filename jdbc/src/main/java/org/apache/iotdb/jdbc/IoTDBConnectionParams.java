@@ -18,6 +18,7 @@
  */
 package org.apache.iotdb.jdbc;
 
+import org.apache.iotdb.rpc.RpcCompressionType;
 import org.apache.iotdb.rpc.RpcUtils;
 
 public class IoTDBConnectionParams {
@@ -35,6 +36,12 @@ public class IoTDBConnectionParams {
   private int thriftDefaultBufferSize = RpcUtils.THRIFT_DEFAULT_BUF_CAPACITY;
   private int thriftMaxFrameSize = RpcUtils.THRIFT_FRAME_MAX_SIZE;
 
+  // 0 means the next batch of a result set is only fetched when the current one is used up
+  private int prefetchBatchNum = 0;
+
+  // null means not negotiating compression with the server
+  private RpcCompressionType rpcCompressionType = null;
+
   public IoTDBConnectionParams(String url) {
     this.jdbcUriString = url;
   }
@@ -103,6 +110,22 @@ public class IoTDBConnectionParams {
     this.thriftMaxFrameSize = thriftMaxFrameSize;
   }
 
+  public int getPrefetchBatchNum() {
+    return prefetchBatchNum;
+  }
+
+  public void setPrefetchBatchNum(int prefetchBatchNum) {
+    this.prefetchBatchNum = prefetchBatchNum;
+  }
+
+  public RpcCompressionType getRpcCompressionType() {
+    return rpcCompressionType;
+  }
+
+  public void setRpcCompressionType(RpcCompressionType rpcCompressionType) {
+    this.rpcCompressionType = rpcCompressionType;
+  }
+
   public Constant.Version getVersion() {
     return version;
   }
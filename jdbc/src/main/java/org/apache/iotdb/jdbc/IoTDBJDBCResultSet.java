@@ -19,6 +19,7 @@
 
 package org.apache.iotdb.jdbc;
 
+import org.apache.iotdb.rpc.FetchResultsPrefetcher;
 import org.apache.iotdb.rpc.IoTDBConnectionException;
 import org.apache.iotdb.rpc.StatementExecutionException;
 import org.apache.iotdb.service.rpc.thrift.TSIService;
@@ -30,6 +31,7 @@ import java.sql.Statement;
 import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class IoTDBJDBCResultSet extends AbstractIoTDBJDBCResultSet {
   private String operationType = "";
@@ -120,6 +122,11 @@ public class IoTDBJDBCResultSet extends AbstractIoTDBJDBCResultSet {
     }
   }
 
+  /** Keeps up to {@code batchNum} following batches fetched in the background. */
+  void enablePrefetch(int batchNum, Set<FetchResultsPrefetcher> connectionPrefetchers) {
+    ioTDBRpcDataSet.enablePrefetch(batchNum, connectionPrefetchers);
+  }
+
   @Override
   protected boolean fetchResults() throws SQLException {
     try {
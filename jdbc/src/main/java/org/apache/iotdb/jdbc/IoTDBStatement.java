@@ -287,7 +287,7 @@ public class IoTDBStatement implements Statement {
                 execResp.getSgColumns(),
                 aliasColumn);
       } else {
-        this.resultSet =
+        IoTDBJDBCResultSet jdbcResultSet =
             new IoTDBJDBCResultSet(
                 this,
                 execResp.getColumns(),
@@ -302,6 +302,8 @@ public class IoTDBStatement implements Statement {
                 execResp.tracingInfo,
                 execReq.timeout,
                 true);
+        jdbcResultSet.enablePrefetch(connection.getPrefetchBatchNum(), connection.getPrefetchers());
+        this.resultSet = jdbcResultSet;
       }
       return true;
     }
@@ -439,7 +441,7 @@ public class IoTDBStatement implements Statement {
               execResp.sgColumns,
               aliasColumn);
     } else {
-      this.resultSet =
+      IoTDBJDBCResultSet jdbcResultSet =
           new IoTDBJDBCResultSet(
               this,
               execResp.getColumns(),
@@ -457,6 +459,8 @@ public class IoTDBStatement implements Statement {
               execResp.columns,
               execResp.sgColumns,
               aliasColumn);
+      jdbcResultSet.enablePrefetch(connection.getPrefetchBatchNum(), connection.getPrefetchers());
+      this.resultSet = jdbcResultSet;
     }
     return resultSet;
   }
@@ -65,6 +65,10 @@ public class IoTDBTracingInfo {
         return tsTracingInfo.getTotalPageNum();
       case "overlappedPageNum":
         return tsTracingInfo.getOverlappedPageNum();
+      case "chunkCacheHitNum":
+        return tsTracingInfo.getChunkCacheHitNum();
+      case "chunkCacheMissNum":
+        return tsTracingInfo.getChunkCacheMissNum();
       default:
         throw new Exception("Invalid statistics name!");
     }
@@ -96,6 +100,11 @@ public class IoTDBTracingInfo {
             tsTracingInfo.getTotalPageNum(),
             tsTracingInfo.getOverlappedPageNum(),
             (double) tsTracingInfo.getOverlappedPageNum() / tsTracingInfo.getTotalPageNum() * 100);
+      case "chunkCacheInfo":
+        return String.format(
+            Constant.STATISTICS_CHUNKCACHEINFO,
+            tsTracingInfo.getChunkCacheHitNum(),
+            tsTracingInfo.getChunkCacheMissNum());
       default:
         throw new Exception("Invalid statistics name!");
     }
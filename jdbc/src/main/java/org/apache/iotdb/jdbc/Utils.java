@@ -18,6 +18,9 @@
  */
 package org.apache.iotdb.jdbc;
 
+import org.apache.iotdb.rpc.RpcCompressionType;
+
+import java.util.Locale;
 import java.util.Properties;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -74,6 +77,14 @@ public class Utils {
     if (info.containsKey(Config.VERSION)) {
       params.setVersion(Constant.Version.valueOf(info.getProperty(Config.VERSION)));
     }
+    if (info.containsKey(Config.PREFETCH_BATCH_NUM)) {
+      params.setPrefetchBatchNum(Integer.parseInt(info.getProperty(Config.PREFETCH_BATCH_NUM)));
+    }
+    if (info.containsKey(Config.RPC_COMPRESSION_TYPE)) {
+      params.setRpcCompressionType(
+          RpcCompressionType.valueOf(
+              info.getProperty(Config.RPC_COMPRESSION_TYPE).toUpperCase(Locale.ROOT)));
+    }
 
     return params;
   }
@@ -110,6 +121,20 @@ public class Utils {
         case Config.VERSION:
           info.put(key, value);
           break;
+        case Config.PREFETCH_BATCH_NUM:
+          if (!value.matches("\\d+")) {
+            return false;
+          }
+          info.put(key, value);
+          break;
+        case Config.RPC_COMPRESSION_TYPE:
+          try {
+            RpcCompressionType.valueOf(value.toUpperCase(Locale.ROOT));
+          } catch (IllegalArgumentException e) {
+            return false;
+          }
+          info.put(key, value);
+          break;
         default:
           return false;
       }
@@ -24,6 +24,7 @@ public enum ThreadName {
   RPC_CLIENT("RPC-Client"),
   INFLUXDB_SERVICE("Influxdb-Service"),
   INFLUXDB_CLIENT("Influxdb-Client"),
+  MQTT_INGESTION("MQTT-Ingestion"),
   MERGE_SERVICE("Merge"),
   CLOSE_MERGE_SERVICE("Close-Merge"),
   CLOSE_MERGE_DAEMON("Close-Merge-Daemon"),
@@ -45,12 +46,15 @@ public enum ThreadName {
   WAL_FLUSH("WAL-Flush"),
   INDEX_SERVICE("Index"),
   SYNC_CLIENT("Sync-Client"),
+  SYNC_TRANSFER("Sync-Transfer"),
   SYNC_SERVER("Sync"),
   SYNC_MONITOR("Sync-Monitor"),
   LOAD_TSFILE("Load-TsFile"),
+  SYNC_LOAD("Sync-Load"),
   TIME_COST_STATISTIC("TIME_COST_STATISTIC"),
   QUERY_SERVICE("Query"),
   SUB_RAW_QUERY_SERVICE("Sub_RawQuery"),
+  CHUNK_PREFETCH_SERVICE("Chunk-Prefetch"),
   INSERTION_SERVICE("MultithreadingInsertionPool"),
   WINDOW_EVALUATION_SERVICE("WindowEvaluationTaskPoolManager"),
   TTL_CHECK_SERVICE("TTL-CHECK"),
@@ -162,6 +162,12 @@ public class IoTDBConstant {
   public static final String MQTT_HANDLER_POOL_SIZE_NAME = "mqtt_handler_pool_size";
   public static final String MQTT_PAYLOAD_FORMATTER_NAME = "mqtt_payload_formatter";
   public static final String MQTT_MAX_MESSAGE_SIZE = "mqtt_max_message_size";
+  public static final String MQTT_INGESTION_WORKER_NUM_NAME = "mqtt_ingestion_worker_num";
+  public static final String MQTT_INGESTION_QUEUE_SIZE_NAME = "mqtt_ingestion_queue_size";
+  public static final String MQTT_INGESTION_SUBMIT_TIMEOUT_NAME =
+      "mqtt_ingestion_submit_timeout_in_ms";
+  public static final String MQTT_BATCH_SIZE_NAME = "mqtt_batch_size";
+  public static final String MQTT_BATCH_MAX_DELAY_NAME = "mqtt_batch_max_delay_in_ms";
 
   // thrift
   public static final int LEFT_SIZE_IN_REQUEST = 4 * 1024 * 1024;
@@ -28,6 +28,7 @@ import org.apache.iotdb.db.exception.LoadConfigurationException;
 import org.apache.iotdb.db.metadata.LocalSchemaProcessor;
 import org.apache.iotdb.db.service.thrift.impl.InfluxDBServiceImpl;
 import org.apache.iotdb.db.service.thrift.impl.TSServiceImpl;
+import org.apache.iotdb.rpc.RpcCompressionType;
 import org.apache.iotdb.rpc.RpcTransportFactory;
 import org.apache.iotdb.rpc.RpcUtils;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
@@ -92,6 +93,24 @@ public class IoTDBConfig {
   /** max mqtt message size. Unit: byte */
   private int mqttMaxMessageSize = 1048576;
 
+  /** the number of workers decoding and inserting the mqtt messages. */
+  private int mqttIngestionWorkerNum = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+
+  /** the max number of mqtt messages waiting for each ingestion worker. */
+  private int mqttIngestionQueueSize = 1024;
+
+  /**
+   * the max time a mqtt message waits for room in the queue of its ingestion worker before it is
+   * dropped. Unit: ms
+   */
+  private long mqttIngestionSubmitTimeoutInMs = 10;
+
+  /** the max number of rows of a device buffered before they are inserted as a tablet. */
+  private int mqttBatchSize = 1000;
+
+  /** the max time the rows of a device are buffered before they are inserted. Unit: ms */
+  private long mqttBatchMaxDelayInMs = 10;
+
   /** Rpc binding address. */
   private String rpcAddress = "0.0.0.0";
 
@@ -101,6 +120,21 @@ public class IoTDBConfig {
   /** whether to use Snappy compression before sending data through the network */
   private boolean rpcAdvancedCompressionEnable = false;
 
+  /**
+   * whether the clients of the rpc service may negotiate a compression type per connection. Clients
+   * not using the adaptive compression transport are still served with plain frames.
+   */
+  private boolean rpcAdaptiveCompressionEnable = false;
+
+  /**
+   * the type the server asks clients to compress requests with, NONE to use whatever each client
+   * asks the server for
+   */
+  private RpcCompressionType rpcAdaptiveCompressionType = RpcCompressionType.NONE;
+
+  /** frames smaller than this are sent uncompressed by the adaptive compression transport */
+  private int rpcCompressionThreshold = RpcUtils.DEFAULT_RPC_COMPRESSION_THRESHOLD;
+
   /** Port which the JDBC server listens to. */
   private int rpcPort = 6667;
 
@@ -139,6 +173,12 @@ public class IoTDBConfig {
   /** Reject proportion for system */
   private double rejectProportion = 0.8;
 
+  /**
+   * Whether the memtables to flush are chosen by a dedicated thread when the memory of write
+   * exceeds the flush or reject proportion, instead of by the writer that reports the memory cost
+   */
+  private boolean enableAsyncFlushSelection = false;
+
   /** If storage group increased more than this threshold, report to system. Unit: byte */
   private long storageGroupSizeReportThreshold = 16 * 1024 * 1024L;
 
@@ -154,6 +194,13 @@ public class IoTDBConfig {
 
   private boolean enableDiscardOutOfOrderData = false;
 
+  /**
+   * Whether insertions into different time partitions (and different sequence/unsequence files) of
+   * one virtual storage group may run concurrently. When disabled, every insertion holds the
+   * storage group exclusively. Ignored when the id table is enabled.
+   */
+  private boolean enableConcurrentInsert = false;
+
   /**
    * When a certain amount of write ahead logs is reached, they will be flushed to the disk. It is
    * possible to lose at most flush_wal_threshold operations.
@@ -286,6 +333,33 @@ public class IoTDBConfig {
   /** Blocking queue size for read task in raw data query. */
   private int rawQueryBlockingQueueCapacity = 5;
 
+  /**
+   * How many chunks of one series a raw data query reads ahead at most. The read-ahead depth grows
+   * up to it while the query waits for chunks. 0 means disabled.
+   */
+  private int chunkPrefetchMaxDepth = 0;
+
+  /** How many threads can concurrently read chunks ahead. When <= 0, use CPU core number. */
+  private int concurrentChunkPrefetchThread = 4;
+
+  /** Memory of the chunks read ahead but not consumed yet by one query, in byte. */
+  private long chunkPrefetchMemoryBudget = 16 * 1024 * 1024L;
+
+  /**
+   * Whether to fill the next batch of an aligned query result while the previous batch is sent to
+   * the client, so that the next fetchResults usually finds it ready.
+   */
+  private boolean enableQueryResultPrefetch = false;
+
+  /**
+   * Whether to cache the windows of GROUP BY time queries from Grafana that only cover sealed
+   * files, so that refreshing a dashboard only computes the windows whose data changed.
+   */
+  private boolean enableQueryResultCache = false;
+
+  /** Max number of windows kept by the query result cache. */
+  private int queryResultCacheSize = 100000;
+
   /** How many threads can concurrently evaluate windows. When <= 0, use CPU core number. */
   private int concurrentWindowEvaluationThread = Runtime.getRuntime().availableProcessors();
 
@@ -460,6 +534,24 @@ public class IoTDBConfig {
   /** Memory allocated for chunk cache in read process */
   private long allocateMemoryForChunkCache = allocateMemoryForRead * 100 / 1001;
 
+  /**
+   * Direct memory (in byte) holding the compressed data of cached chunks, 0 means the chunk cache
+   * keeps chunks on heap within allocateMemoryForChunkCache.
+   */
+  private long offHeapChunkCacheSize = 0;
+
+  /** Size (in byte) of the blocks the off-heap chunk cache allocates memory in. */
+  private int offHeapChunkCacheBlockSize = 4096;
+
+  /**
+   * Directory, preferably on a local SSD, of the secondary cache holding the chunks and timeseries
+   * metadata evicted from memory. Empty means the secondary cache is disabled.
+   */
+  private String secondaryCacheDir = "";
+
+  /** Disk space (in byte) of the secondary cache */
+  private long secondaryCacheSize = 10L * 1024 * 1024 * 1024;
+
   /** Whether to enable Last cache */
   private boolean lastCacheEnable = true;
 
@@ -490,6 +582,9 @@ public class IoTDBConfig {
   /** If this IoTDB instance is a receiver of sync, set the server port. */
   private int syncServerPort = 5555;
 
+  /** If this IoTDB instance is a receiver of sync, the number of threads loading received files. */
+  private int syncLoadThreadNum = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+
   /**
    * Set the language version when loading file including error information, default value is "EN"
    */
@@ -600,6 +695,9 @@ public class IoTDBConfig {
   /** The limit of compaction merge can reach per second */
   private int compactionWriteThroughputMbPerSec = 16;
 
+  /** The limit of compaction read throughput per second, 0 means no limit */
+  private int compactionReadThroughputMbPerSec = 0;
+
   /**
    * How many thread will be set up to perform compaction, 10 by default. Set to 1 when less than or
    * equal to 0.
@@ -764,6 +862,12 @@ public class IoTDBConfig {
 
   private float udfCollectorMemoryBudgetInMB = (float) (1.0 / 3 * udfMemoryBudgetInMB);
 
+  /**
+   * Whether the time-value lists of UDF queries keep numeric and boolean points in fixed-size
+   * off-heap pages, which are spilled to and mapped back from temporary files as they are.
+   */
+  private boolean enableUdfOffHeapTVList = true;
+
   /** The cached record size (in MB) of each series in group by fill query */
   private float groupByFillCacheSizeInMB = (float) 1.0;
 
@@ -910,6 +1014,14 @@ public class IoTDBConfig {
     this.udfCollectorMemoryBudgetInMB = udfCollectorMemoryBudgetInMB;
   }
 
+  public boolean isEnableUdfOffHeapTVList() {
+    return enableUdfOffHeapTVList;
+  }
+
+  public void setEnableUdfOffHeapTVList(boolean enableUdfOffHeapTVList) {
+    this.enableUdfOffHeapTVList = enableUdfOffHeapTVList;
+  }
+
   public int getUdfInitialByteArrayLengthForMemoryControl() {
     return udfInitialByteArrayLengthForMemoryControl;
   }
@@ -975,6 +1087,9 @@ public class IoTDBConfig {
     indexRootFolder = addHomeDir(indexRootFolder);
     extDir = addHomeDir(extDir);
     udfDir = addHomeDir(udfDir);
+    if (!secondaryCacheDir.isEmpty()) {
+      secondaryCacheDir = addHomeDir(secondaryCacheDir);
+    }
     triggerDir = addHomeDir(triggerDir);
     mqttDir = addHomeDir(mqttDir);
 
@@ -1113,6 +1228,14 @@ public class IoTDBConfig {
     this.enableDiscardOutOfOrderData = enableDiscardOutOfOrderData;
   }
 
+  public boolean isEnableConcurrentInsert() {
+    return enableConcurrentInsert;
+  }
+
+  public void setEnableConcurrentInsert(boolean enableConcurrentInsert) {
+    this.enableConcurrentInsert = enableConcurrentInsert;
+  }
+
   public int getFlushWalThreshold() {
     return flushWalThreshold;
   }
@@ -1273,6 +1396,54 @@ public class IoTDBConfig {
     this.rawQueryBlockingQueueCapacity = rawQueryBlockingQueueCapacity;
   }
 
+  public int getChunkPrefetchMaxDepth() {
+    return chunkPrefetchMaxDepth;
+  }
+
+  public void setChunkPrefetchMaxDepth(int chunkPrefetchMaxDepth) {
+    this.chunkPrefetchMaxDepth = chunkPrefetchMaxDepth;
+  }
+
+  public int getConcurrentChunkPrefetchThread() {
+    return concurrentChunkPrefetchThread;
+  }
+
+  void setConcurrentChunkPrefetchThread(int concurrentChunkPrefetchThread) {
+    this.concurrentChunkPrefetchThread = concurrentChunkPrefetchThread;
+  }
+
+  public long getChunkPrefetchMemoryBudget() {
+    return chunkPrefetchMemoryBudget;
+  }
+
+  public void setChunkPrefetchMemoryBudget(long chunkPrefetchMemoryBudget) {
+    this.chunkPrefetchMemoryBudget = chunkPrefetchMemoryBudget;
+  }
+
+  public boolean isEnableQueryResultPrefetch() {
+    return enableQueryResultPrefetch;
+  }
+
+  public void setEnableQueryResultPrefetch(boolean enableQueryResultPrefetch) {
+    this.enableQueryResultPrefetch = enableQueryResultPrefetch;
+  }
+
+  public boolean isEnableQueryResultCache() {
+    return enableQueryResultCache;
+  }
+
+  public void setEnableQueryResultCache(boolean enableQueryResultCache) {
+    this.enableQueryResultCache = enableQueryResultCache;
+  }
+
+  public int getQueryResultCacheSize() {
+    return queryResultCacheSize;
+  }
+
+  public void setQueryResultCacheSize(int queryResultCacheSize) {
+    this.queryResultCacheSize = queryResultCacheSize;
+  }
+
   public int getConcurrentWindowEvaluationThread() {
     return concurrentWindowEvaluationThread;
   }
@@ -1345,6 +1516,14 @@ public class IoTDBConfig {
     this.syncServerPort = syncServerPort;
   }
 
+  public int getSyncLoadThreadNum() {
+    return syncLoadThreadNum;
+  }
+
+  public void setSyncLoadThreadNum(int syncLoadThreadNum) {
+    this.syncLoadThreadNum = syncLoadThreadNum;
+  }
+
   String getLanguageVersion() {
     return languageVersion;
   }
@@ -1515,6 +1694,14 @@ public class IoTDBConfig {
     this.flushProportion = flushProportion;
   }
 
+  public boolean isEnableAsyncFlushSelection() {
+    return enableAsyncFlushSelection;
+  }
+
+  public void setEnableAsyncFlushSelection(boolean enableAsyncFlushSelection) {
+    this.enableAsyncFlushSelection = enableAsyncFlushSelection;
+  }
+
   public double getRejectProportion() {
     return rejectProportion;
   }
@@ -1661,6 +1848,14 @@ public class IoTDBConfig {
     this.compactionWriteThroughputMbPerSec = compactionWriteThroughputMbPerSec;
   }
 
+  public int getCompactionReadThroughputMbPerSec() {
+    return compactionReadThroughputMbPerSec;
+  }
+
+  public void setCompactionReadThroughputMbPerSec(int compactionReadThroughputMbPerSec) {
+    this.compactionReadThroughputMbPerSec = compactionReadThroughputMbPerSec;
+  }
+
   public boolean isEnableMemControl() {
     return enableMemControl;
   }
@@ -1806,6 +2001,38 @@ public class IoTDBConfig {
     this.allocateMemoryForChunkCache = allocateMemoryForChunkCache;
   }
 
+  public long getOffHeapChunkCacheSize() {
+    return offHeapChunkCacheSize;
+  }
+
+  public void setOffHeapChunkCacheSize(long offHeapChunkCacheSize) {
+    this.offHeapChunkCacheSize = offHeapChunkCacheSize;
+  }
+
+  public int getOffHeapChunkCacheBlockSize() {
+    return offHeapChunkCacheBlockSize;
+  }
+
+  public void setOffHeapChunkCacheBlockSize(int offHeapChunkCacheBlockSize) {
+    this.offHeapChunkCacheBlockSize = offHeapChunkCacheBlockSize;
+  }
+
+  public String getSecondaryCacheDir() {
+    return secondaryCacheDir;
+  }
+
+  public void setSecondaryCacheDir(String secondaryCacheDir) {
+    this.secondaryCacheDir = secondaryCacheDir;
+  }
+
+  public long getSecondaryCacheSize() {
+    return secondaryCacheSize;
+  }
+
+  public void setSecondaryCacheSize(long secondaryCacheSize) {
+    this.secondaryCacheSize = secondaryCacheSize;
+  }
+
   public boolean isLastCacheEnabled() {
     return lastCacheEnable;
   }
@@ -2199,6 +2426,46 @@ public class IoTDBConfig {
     this.mqttMaxMessageSize = mqttMaxMessageSize;
   }
 
+  public int getMqttIngestionWorkerNum() {
+    return mqttIngestionWorkerNum;
+  }
+
+  public void setMqttIngestionWorkerNum(int mqttIngestionWorkerNum) {
+    this.mqttIngestionWorkerNum = mqttIngestionWorkerNum;
+  }
+
+  public int getMqttIngestionQueueSize() {
+    return mqttIngestionQueueSize;
+  }
+
+  public void setMqttIngestionQueueSize(int mqttIngestionQueueSize) {
+    this.mqttIngestionQueueSize = mqttIngestionQueueSize;
+  }
+
+  public long getMqttIngestionSubmitTimeoutInMs() {
+    return mqttIngestionSubmitTimeoutInMs;
+  }
+
+  public void setMqttIngestionSubmitTimeoutInMs(long mqttIngestionSubmitTimeoutInMs) {
+    this.mqttIngestionSubmitTimeoutInMs = mqttIngestionSubmitTimeoutInMs;
+  }
+
+  public int getMqttBatchSize() {
+    return mqttBatchSize;
+  }
+
+  public void setMqttBatchSize(int mqttBatchSize) {
+    this.mqttBatchSize = mqttBatchSize;
+  }
+
+  public long getMqttBatchMaxDelayInMs() {
+    return mqttBatchMaxDelayInMs;
+  }
+
+  public void setMqttBatchMaxDelayInMs(long mqttBatchMaxDelayInMs) {
+    this.mqttBatchMaxDelayInMs = mqttBatchMaxDelayInMs;
+  }
+
   public int getTagAttributeTotalSize() {
     return tagAttributeTotalSize;
   }
@@ -2366,6 +2633,35 @@ public class IoTDBConfig {
     RpcTransportFactory.setUseSnappy(this.rpcAdvancedCompressionEnable);
   }
 
+  public boolean isRpcAdaptiveCompressionEnable() {
+    return rpcAdaptiveCompressionEnable;
+  }
+
+  public void setRpcAdaptiveCompressionEnable(boolean rpcAdaptiveCompressionEnable) {
+    this.rpcAdaptiveCompressionEnable = rpcAdaptiveCompressionEnable;
+    RpcTransportFactory.setAdaptiveCompressionType(
+        rpcAdaptiveCompressionEnable ? rpcAdaptiveCompressionType : null);
+  }
+
+  public RpcCompressionType getRpcAdaptiveCompressionType() {
+    return rpcAdaptiveCompressionType;
+  }
+
+  public void setRpcAdaptiveCompressionType(RpcCompressionType rpcAdaptiveCompressionType) {
+    this.rpcAdaptiveCompressionType = rpcAdaptiveCompressionType;
+    RpcTransportFactory.setAdaptiveCompressionType(
+        rpcAdaptiveCompressionEnable ? rpcAdaptiveCompressionType : null);
+  }
+
+  public int getRpcCompressionThreshold() {
+    return rpcCompressionThreshold;
+  }
+
+  public void setRpcCompressionThreshold(int rpcCompressionThreshold) {
+    this.rpcCompressionThreshold = rpcCompressionThreshold;
+    RpcTransportFactory.setCompressionThreshold(rpcCompressionThreshold);
+  }
+
   public int getMlogBufferSize() {
     return mlogBufferSize;
   }
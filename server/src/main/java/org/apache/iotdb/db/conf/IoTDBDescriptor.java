@@ -30,6 +30,7 @@ import org.apache.iotdb.db.qp.utils.DatetimeUtils;
 import org.apache.iotdb.db.service.metrics.MetricsService;
 import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
 import org.apache.iotdb.metrics.config.ReloadLevel;
+import org.apache.iotdb.rpc.RpcCompressionType;
 import org.apache.iotdb.rpc.RpcTransportFactory;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -157,6 +158,26 @@ public class IoTDBDescriptor {
                   "rpc_advanced_compression_enable",
                   Boolean.toString(conf.isRpcAdvancedCompressionEnable()))));
 
+      conf.setRpcAdaptiveCompressionType(
+          RpcCompressionType.valueOf(
+              properties
+                  .getProperty(
+                      "rpc_adaptive_compression_type", conf.getRpcAdaptiveCompressionType().name())
+                  .trim()
+                  .toUpperCase()));
+
+      conf.setRpcAdaptiveCompressionEnable(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "rpc_adaptive_compression_enable",
+                  Boolean.toString(conf.isRpcAdaptiveCompressionEnable()))));
+
+      conf.setRpcCompressionThreshold(
+          Integer.parseInt(
+              properties.getProperty(
+                  "rpc_compression_threshold",
+                  Integer.toString(conf.getRpcCompressionThreshold()))));
+
       conf.setRpcPort(
           Integer.parseInt(
               properties.getProperty("rpc_port", Integer.toString(conf.getRpcPort()))));
@@ -201,6 +222,12 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "reject_proportion", Double.toString(conf.getRejectProportion()))));
 
+      conf.setEnableAsyncFlushSelection(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_async_flush_selection",
+                  Boolean.toString(conf.isEnableAsyncFlushSelection()))));
+
       conf.setStorageGroupSizeReportThreshold(
           Long.parseLong(
               properties.getProperty(
@@ -217,6 +244,31 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "enable_last_cache", Boolean.toString(conf.isLastCacheEnabled()))));
 
+      conf.setOffHeapChunkCacheSize(
+          Long.parseLong(
+                  properties.getProperty(
+                      "off_heap_chunk_cache_size_in_mb",
+                      Long.toString(conf.getOffHeapChunkCacheSize() / 1024 / 1024)))
+              * 1024
+              * 1024);
+
+      conf.setOffHeapChunkCacheBlockSize(
+          Integer.parseInt(
+              properties.getProperty(
+                  "off_heap_chunk_cache_block_size_in_byte",
+                  Integer.toString(conf.getOffHeapChunkCacheBlockSize()))));
+
+      conf.setSecondaryCacheDir(
+          properties.getProperty("secondary_cache_dir", conf.getSecondaryCacheDir()).trim());
+
+      conf.setSecondaryCacheSize(
+          Long.parseLong(
+                  properties.getProperty(
+                      "secondary_cache_size_in_mb",
+                      Long.toString(conf.getSecondaryCacheSize() / 1024 / 1024)))
+              * 1024
+              * 1024);
+
       initMemoryAllocate(properties);
 
       loadWALProps(properties);
@@ -410,6 +462,13 @@ public class IoTDBDescriptor {
 
       conf.setIpWhiteList(properties.getProperty("ip_white_list", conf.getIpWhiteList()));
 
+      conf.setSyncLoadThreadNum(
+          Integer.parseInt(
+              properties
+                  .getProperty(
+                      "sync_load_thread_num", Integer.toString(conf.getSyncLoadThreadNum()))
+                  .trim()));
+
       conf.setConcurrentFlushThread(
           Integer.parseInt(
               properties.getProperty(
@@ -472,6 +531,47 @@ public class IoTDBDescriptor {
                   "raw_query_blocking_queue_capacity",
                   Integer.toString(conf.getRawQueryBlockingQueueCapacity()))));
 
+      conf.setChunkPrefetchMaxDepth(
+          Integer.parseInt(
+              properties.getProperty(
+                  "chunk_prefetch_max_depth", Integer.toString(conf.getChunkPrefetchMaxDepth()))));
+
+      conf.setConcurrentChunkPrefetchThread(
+          Integer.parseInt(
+              properties.getProperty(
+                  "concurrent_chunk_prefetch_thread",
+                  Integer.toString(conf.getConcurrentChunkPrefetchThread()))));
+
+      if (conf.getConcurrentChunkPrefetchThread() <= 0) {
+        conf.setConcurrentChunkPrefetchThread(Runtime.getRuntime().availableProcessors());
+      }
+
+      conf.setChunkPrefetchMemoryBudget(
+          Long.parseLong(
+                  properties.getProperty(
+                      "chunk_prefetch_memory_budget_in_mb",
+                      Long.toString(conf.getChunkPrefetchMemoryBudget() / 1024 / 1024)))
+              * 1024
+              * 1024);
+
+      conf.setEnableQueryResultPrefetch(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_query_result_prefetch",
+                  Boolean.toString(conf.isEnableQueryResultPrefetch()))));
+
+      conf.setEnableQueryResultCache(
+          Boolean.parseBoolean(
+              properties.getProperty(
+                  "enable_query_result_cache", Boolean.toString(conf.isEnableQueryResultCache()))));
+
+      conf.setQueryResultCacheSize(
+          Integer.parseInt(
+              properties
+                  .getProperty(
+                      "query_result_cache_size", Integer.toString(conf.getQueryResultCacheSize()))
+                  .trim()));
+
       conf.setSchemaRegionCacheSize(
           Integer.parseInt(
               properties
@@ -566,6 +666,12 @@ public class IoTDBDescriptor {
                   "compaction_write_throughput_mb_per_sec",
                   Integer.toString(conf.getCompactionWriteThroughputMbPerSec()))));
 
+      conf.setCompactionReadThroughputMbPerSec(
+          Integer.parseInt(
+              properties.getProperty(
+                  "compaction_read_throughput_mb_per_sec",
+                  Integer.toString(conf.getCompactionReadThroughputMbPerSec()))));
+
       conf.setEnablePartialInsert(
           Boolean.parseBoolean(
               properties.getProperty(
@@ -917,6 +1023,11 @@ public class IoTDBDescriptor {
                 "enable_discard_out_of_order_data",
                 Boolean.toString(conf.isEnableDiscardOutOfOrderData()))));
 
+    conf.setEnableConcurrentInsert(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_concurrent_insert", Boolean.toString(conf.isEnableConcurrentInsert()))));
+
     int walBufferSize =
         Integer.parseInt(
             properties.getProperty("wal_buffer_size", Integer.toString(conf.getWalBufferSize())));
@@ -1123,6 +1234,31 @@ public class IoTDBDescriptor {
       conf.setMqttMaxMessageSize(
           Integer.parseInt(properties.getProperty(IoTDBConstant.MQTT_MAX_MESSAGE_SIZE)));
     }
+
+    if (properties.getProperty(IoTDBConstant.MQTT_INGESTION_WORKER_NUM_NAME) != null) {
+      conf.setMqttIngestionWorkerNum(
+          Integer.parseInt(properties.getProperty(IoTDBConstant.MQTT_INGESTION_WORKER_NUM_NAME)));
+    }
+
+    if (properties.getProperty(IoTDBConstant.MQTT_INGESTION_QUEUE_SIZE_NAME) != null) {
+      conf.setMqttIngestionQueueSize(
+          Integer.parseInt(properties.getProperty(IoTDBConstant.MQTT_INGESTION_QUEUE_SIZE_NAME)));
+    }
+
+    if (properties.getProperty(IoTDBConstant.MQTT_INGESTION_SUBMIT_TIMEOUT_NAME) != null) {
+      conf.setMqttIngestionSubmitTimeoutInMs(
+          Long.parseLong(properties.getProperty(IoTDBConstant.MQTT_INGESTION_SUBMIT_TIMEOUT_NAME)));
+    }
+
+    if (properties.getProperty(IoTDBConstant.MQTT_BATCH_SIZE_NAME) != null) {
+      conf.setMqttBatchSize(
+          Integer.parseInt(properties.getProperty(IoTDBConstant.MQTT_BATCH_SIZE_NAME)));
+    }
+
+    if (properties.getProperty(IoTDBConstant.MQTT_BATCH_MAX_DELAY_NAME) != null) {
+      conf.setMqttBatchMaxDelayInMs(
+          Long.parseLong(properties.getProperty(IoTDBConstant.MQTT_BATCH_MAX_DELAY_NAME)));
+    }
   }
 
   // timed flush memtable, timed close tsfile
@@ -1291,6 +1427,12 @@ public class IoTDBDescriptor {
               properties.getProperty(
                   "merge_write_throughput_mb_per_sec",
                   Integer.toString(conf.getCompactionWriteThroughputMbPerSec()))));
+      // update compaction_read_throughput_mb_per_sec
+      conf.setCompactionReadThroughputMbPerSec(
+          Integer.parseInt(
+              properties.getProperty(
+                  "compaction_read_throughput_mb_per_sec",
+                  Integer.toString(conf.getCompactionReadThroughputMbPerSec()))));
 
       // update insert-tablet-plan's row limit for select-into
       conf.setSelectIntoInsertTabletPlanRowLimit(
@@ -1405,6 +1547,11 @@ public class IoTDBDescriptor {
               Math.min(Float.parseFloat(memoryBudgetInMb), 0.2 * conf.getAllocateMemoryForRead()));
     }
 
+    conf.setEnableUdfOffHeapTVList(
+        Boolean.parseBoolean(
+            properties.getProperty(
+                "enable_udf_off_heap_tv_list", String.valueOf(conf.isEnableUdfOffHeapTVList()))));
+
     String groupByFillCacheSizeInMB = properties.getProperty("group_by_fill_cache_size_in_mb");
     if (groupByFillCacheSizeInMB != null) {
       conf.setGroupByFillCacheSizeInMB(Float.parseFloat(groupByFillCacheSizeInMB));
@@ -207,18 +207,27 @@ public class StorageEngine implements IService {
   public static void blockInsertionIfReject(TsFileProcessor tsFileProcessor)
       throws WriteProcessRejectException {
     long startTime = System.currentTimeMillis();
-    while (SystemInfo.getInstance().isRejected()) {
-      if (tsFileProcessor != null && tsFileProcessor.shouldFlush()) {
-        break;
-      }
-      try {
-        TimeUnit.MILLISECONDS.sleep(config.getCheckPeriodWhenInsertBlocked());
-        if (System.currentTimeMillis() - startTime > config.getMaxWaitingTimeWhenInsertBlocked()) {
-          throw new WriteProcessRejectException(
-              "System rejected over " + (System.currentTimeMillis() - startTime) + "ms");
+    boolean blocked = false;
+    try {
+      while (SystemInfo.getInstance().isRejected()) {
+        if (tsFileProcessor != null && tsFileProcessor.shouldFlush()) {
+          break;
         }
-      } catch (InterruptedException e) {
-        Thread.currentThread().interrupt();
+        blocked = true;
+        try {
+          TimeUnit.MILLISECONDS.sleep(config.getCheckPeriodWhenInsertBlocked());
+          if (System.currentTimeMillis() - startTime
+              > config.getMaxWaitingTimeWhenInsertBlocked()) {
+            throw new WriteProcessRejectException(
+                "System rejected over " + (System.currentTimeMillis() - startTime) + "ms");
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    } finally {
+      if (blocked) {
+        SystemInfo.getInstance().recordInsertionBlockedTime(System.currentTimeMillis() - startTime);
       }
     }
   }
@@ -19,15 +19,18 @@
 
 package org.apache.iotdb.db.engine.cache;
 
+import org.apache.iotdb.commons.conf.IoTDBConstant;
 import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.FileReaderManager;
 import org.apache.iotdb.db.service.metrics.Metric;
 import org.apache.iotdb.db.service.metrics.MetricsService;
 import org.apache.iotdb.db.service.metrics.Tag;
 import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
 import org.apache.iotdb.metrics.utils.MetricLevel;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Chunk;
@@ -35,16 +38,25 @@ import org.apache.iotdb.tsfile.utils.RamUsageEstimator;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.github.benmanes.caffeine.cache.Weigher;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class is used to cache <code>Chunk</code> of <code>ChunkMetaData</code> in IoTDB. The
- * caching strategy is LRU.
+ * caching strategy is W-TinyLFU. The chunks are kept on heap, or by an {@link OffHeapChunkCache} if
+ * off_heap_chunk_cache_size_in_mb is set.
+ *
+ * <p>If the {@link SecondaryCache} is enabled, chunks of closed files evicted from the heap are put
+ * into it, and missed chunks are looked up in it before their files are read.
  */
 public class ChunkCache {
 
@@ -54,15 +66,29 @@ public class ChunkCache {
   private static final long MEMORY_THRESHOLD_IN_CHUNK_CACHE =
       config.getAllocateMemoryForChunkCache();
   private static final boolean CACHE_ENABLE = config.isMetaDataCacheEnable();
+  private static final long OFF_HEAP_CACHE_SIZE = config.getOffHeapChunkCacheSize();
 
   private final LoadingCache<ChunkMetadata, Chunk> lruCache;
 
+  private final OffHeapChunkCache offHeapCache;
+
+  private final SecondaryCache secondaryCache = SecondaryCache.getInstance();
+  private static final String SECONDARY_CACHE_KEY_PREFIX = "chunk:";
+
   private final AtomicLong entryAverageSize = new AtomicLong(0);
 
   private ChunkCache() {
     if (CACHE_ENABLE) {
-      logger.info("ChunkCache size = " + MEMORY_THRESHOLD_IN_CHUNK_CACHE);
+      if (OFF_HEAP_CACHE_SIZE > 0) {
+        logger.info("ChunkCache off-heap size = " + OFF_HEAP_CACHE_SIZE);
+      } else {
+        logger.info("ChunkCache size = " + MEMORY_THRESHOLD_IN_CHUNK_CACHE);
+      }
     }
+    offHeapCache =
+        OFF_HEAP_CACHE_SIZE > 0
+            ? new OffHeapChunkCache(OFF_HEAP_CACHE_SIZE, config.getOffHeapChunkCacheBlockSize())
+            : null;
     lruCache =
         Caffeine.newBuilder()
             .maximumWeight(MEMORY_THRESHOLD_IN_CHUNK_CACHE)
@@ -72,19 +98,16 @@ public class ChunkCache {
                         (int)
                             (RamUsageEstimator.NUM_BYTES_OBJECT_REF
                                 + RamUsageEstimator.sizeOf(chunk)))
-            .recordStats()
-            .build(
-                chunkMetadata -> {
-                  try {
-                    TsFileSequenceReader reader =
-                        FileReaderManager.getInstance()
-                            .get(chunkMetadata.getFilePath(), chunkMetadata.isClosed());
-                    return reader.readMemChunk(chunkMetadata);
-                  } catch (IOException e) {
-                    logger.error("Something wrong happened in reading {}", chunkMetadata, e);
-                    throw e;
+            .removalListener(
+                (ChunkMetadata chunkMetadata, Chunk chunk, RemovalCause cause) -> {
+                  if (cause.wasEvicted()
+                      && secondaryCache.isEnabled()
+                      && chunkMetadata.isClosed()) {
+                    secondaryCache.put(getSecondaryCacheKey(chunkMetadata), serializeChunk(chunk));
                   }
-                });
+                })
+            .recordStats()
+            .build(this::loadChunk);
 
     // add metrics
     if (MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
@@ -93,27 +116,91 @@ public class ChunkCache {
           .getOrCreateAutoGauge(
               Metric.CACHE_HIT.toString(),
               MetricLevel.IMPORTANT,
-              lruCache,
-              l -> (long) (l.stats().hitRate() * 100),
+              this,
+              c -> (long) (c.calculateChunkHitRatio() * 100),
               Tag.NAME.toString(),
               "chunk");
+      if (offHeapCache != null) {
+        MetricsService.getInstance()
+            .getMetricManager()
+            .getOrCreateAutoGauge(
+                Metric.MEM.toString(),
+                MetricLevel.IMPORTANT,
+                offHeapCache,
+                OffHeapChunkCache::getAllocatedSize,
+                Tag.NAME.toString(),
+                "chunkCacheOffHeap");
+      }
+    }
+  }
+
+  private Chunk loadChunk(ChunkMetadata chunkMetadata) throws IOException {
+    if (secondaryCache.isEnabled() && chunkMetadata.isClosed()) {
+      ByteBuffer buffer = secondaryCache.get(getSecondaryCacheKey(chunkMetadata));
+      if (buffer != null) {
+        return deserializeChunk(buffer, chunkMetadata);
+      }
+    }
+    try {
+      TsFileSequenceReader reader =
+          FileReaderManager.getInstance()
+              .get(chunkMetadata.getFilePath(), chunkMetadata.isClosed());
+      return reader.readMemChunk(chunkMetadata);
+    } catch (IOException e) {
+      logger.error("Something wrong happened in reading {}", chunkMetadata, e);
+      throw e;
     }
   }
 
+  private static String getSecondaryCacheKey(ChunkMetadata chunkMetadata) {
+    return SECONDARY_CACHE_KEY_PREFIX
+        + chunkMetadata.getFilePath()
+        + IoTDBConstant.PATH_SEPARATOR
+        + chunkMetadata.getOffsetOfChunkHeader();
+  }
+
+  /** @return the chunk header followed by the chunk data, as they are in the file */
+  private static ByteBuffer serializeChunk(Chunk chunk) {
+    ByteBuffer data = chunk.getData().duplicate();
+    ByteBuffer buffer =
+        ByteBuffer.allocate(chunk.getHeader().getSerializedSize() + data.remaining());
+    chunk.getHeader().serializeTo(buffer);
+    buffer.put(data);
+    buffer.flip();
+    return buffer;
+  }
+
+  private static Chunk deserializeChunk(ByteBuffer buffer, ChunkMetadata chunkMetadata)
+      throws IOException {
+    ByteArrayInputStream inputStream =
+        new ByteArrayInputStream(buffer.array(), buffer.position(), buffer.remaining());
+    ChunkHeader header = ChunkHeader.deserializeFrom(inputStream, (byte) inputStream.read());
+    buffer.position(buffer.limit() - inputStream.available());
+    return new Chunk(
+        header,
+        buffer.slice(),
+        chunkMetadata.getDeleteIntervalList(),
+        chunkMetadata.getStatistics());
+  }
+
   public static ChunkCache getInstance() {
     return ChunkCacheHolder.INSTANCE;
   }
 
   public Chunk get(ChunkMetadata chunkMetaData) throws IOException {
-    return get(chunkMetaData, false);
+    return get(chunkMetaData, null);
   }
 
-  public Chunk get(ChunkMetadata chunkMetaData, boolean debug) throws IOException {
+  /** @param context the query to account the cache hit or miss to, or null */
+  public Chunk get(ChunkMetadata chunkMetaData, QueryContext context) throws IOException {
     if (!CACHE_ENABLE) {
       TsFileSequenceReader reader =
           FileReaderManager.getInstance()
               .get(chunkMetaData.getFilePath(), chunkMetaData.isClosed());
       Chunk chunk = reader.readMemChunk(chunkMetaData);
+      if (context != null) {
+        context.recordChunkRead(chunk.getHeader());
+      }
       return new Chunk(
           chunk.getHeader(),
           chunk.getData().duplicate(),
@@ -121,10 +208,33 @@ public class ChunkCache {
           chunkMetaData.getStatistics());
     }
 
-    Chunk chunk = lruCache.get(chunkMetaData);
+    Chunk chunk;
+    if (offHeapCache != null) {
+      chunk = offHeapCache.get(chunkMetaData, context);
+    } else {
+      boolean[] loaded = new boolean[1];
+      chunk =
+          lruCache.get(
+              chunkMetaData,
+              k -> {
+                loaded[0] = true;
+                try {
+                  return loadChunk(k);
+                } catch (IOException e) {
+                  // the same as a LoadingCache does
+                  throw new CompletionException(e);
+                }
+              });
+      if (context != null) {
+        context.recordChunkCacheAccess(!loaded[0]);
+      }
+    }
 
-    if (debug) {
-      DEBUG_LOGGER.info("get chunk from cache whose meta data is: " + chunkMetaData);
+    if (context != null) {
+      context.recordChunkRead(chunk.getHeader());
+      if (context.isDebug()) {
+        DEBUG_LOGGER.info("get chunk from cache whose meta data is: " + chunkMetaData);
+      }
     }
 
     return new Chunk(
@@ -134,39 +244,51 @@ public class ChunkCache {
         chunkMetaData.getStatistics());
   }
 
+  private CacheStats stats() {
+    return offHeapCache != null ? offHeapCache.stats() : lruCache.stats();
+  }
+
   public double calculateChunkHitRatio() {
-    return lruCache.stats().hitRate();
+    return stats().hitRate();
   }
 
   public long getEvictionCount() {
-    return lruCache.stats().evictionCount();
+    return stats().evictionCount();
   }
 
   public long getMaxMemory() {
-    return MEMORY_THRESHOLD_IN_CHUNK_CACHE;
+    return offHeapCache != null ? OFF_HEAP_CACHE_SIZE : MEMORY_THRESHOLD_IN_CHUNK_CACHE;
   }
 
   public double getAverageLoadPenalty() {
-    return lruCache.stats().averageLoadPenalty();
+    return stats().averageLoadPenalty();
   }
 
   public long getAverageSize() {
     return entryAverageSize.get();
   }
 
-  /** clear LRUCache. */
+  /** clear LRUCache and the secondary cache. */
   public void clear() {
+    secondaryCache.clear();
+    if (offHeapCache != null) {
+      offHeapCache.clear();
+    }
     lruCache.invalidateAll();
     lruCache.cleanUp();
   }
 
   public void remove(ChunkMetadata chunkMetaData) {
+    secondaryCache.remove(getSecondaryCacheKey(chunkMetaData));
+    if (offHeapCache != null) {
+      offHeapCache.remove(chunkMetaData);
+    }
     lruCache.invalidate(chunkMetaData);
   }
 
   @TestOnly
   public boolean isEmpty() {
-    return lruCache.asMap().isEmpty();
+    return offHeapCache != null ? offHeapCache.isEmpty() : lruCache.asMap().isEmpty();
   }
 
   /** singleton pattern. */
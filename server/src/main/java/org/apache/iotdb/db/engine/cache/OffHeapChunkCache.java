@@ -0,0 +1,301 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class caches the data of chunks, whose pages are still compressed, in direct memory
+ * allocated by a {@link SlabAllocator}, so that a large cache does not burden the GC. Only the
+ * chunk headers and the indexes of the blocks are kept on heap.
+ *
+ * <p>Chunks are keyed by the id of their file and their offset in it. A file keeps its id as long
+ * as any of its chunks is in direct memory, so the ids of deleted or compacted files do not pile
+ * up. The index is a Caffeine cache weighed by blocks, whose W-TinyLFU policy only admits a new
+ * chunk if it is accessed more frequently than the chunk to be evicted, so a large scan does not
+ * flush the hot chunks.
+ *
+ * <p>A cached chunk is copied to heap when it is read, which holds a reference to it so that its
+ * blocks are not freed and reused during the copy.
+ */
+public class OffHeapChunkCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(OffHeapChunkCache.class);
+
+  /** part of the blocks not used by the index, for chunks being loaded or evicted chunks in use */
+  private static final int RESERVED_BLOCK_PROPORTION = 16;
+
+  private final SlabAllocator allocator;
+
+  private final Cache<ChunkKey, OffHeapChunk> cache;
+
+  private final Map<String, FileId> fileIds = new ConcurrentHashMap<>();
+  private final AtomicInteger nextFileId = new AtomicInteger(0);
+
+  public OffHeapChunkCache(long capacity, int blockSize) {
+    allocator = new SlabAllocator(capacity, blockSize);
+    int blockNum = allocator.getCapacityInBlocks();
+    cache =
+        Caffeine.newBuilder()
+            .maximumWeight(blockNum - blockNum / RESERVED_BLOCK_PROPORTION)
+            .weigher((ChunkKey key, OffHeapChunk chunk) -> chunk.blocks.length)
+            // release the blocks as soon as the chunk is removed
+            .executor(Runnable::run)
+            .removalListener(
+                (ChunkKey key, OffHeapChunk chunk, RemovalCause cause) -> chunk.release())
+            .recordStats()
+            .build();
+  }
+
+  /**
+   * @param context the query to account the hit or miss to, or null
+   * @return the chunk in the cache, or the chunk read from its file, which is cached if admitted
+   */
+  public Chunk get(ChunkMetadata chunkMetadata, QueryContext context) throws IOException {
+    FileId fileId = fileIds.get(chunkMetadata.getFilePath());
+    OffHeapChunk offHeapChunk =
+        fileId == null
+            ? null
+            : cache.getIfPresent(new ChunkKey(fileId.id, chunkMetadata.getOffsetOfChunkHeader()));
+    if (offHeapChunk != null && offHeapChunk.retain()) {
+      try {
+        ByteBuffer data = ByteBuffer.allocate(offHeapChunk.size);
+        allocator.read(offHeapChunk.blocks, offHeapChunk.size, data);
+        data.flip();
+        if (context != null) {
+          context.recordChunkCacheAccess(true);
+        }
+        return new Chunk(
+            offHeapChunk.header,
+            data,
+            chunkMetadata.getDeleteIntervalList(),
+            chunkMetadata.getStatistics());
+      } finally {
+        offHeapChunk.release();
+      }
+    }
+
+    // the chunk is not cached, or evicted before it is copied
+    if (context != null) {
+      context.recordChunkCacheAccess(false);
+    }
+    Chunk chunk = readChunk(chunkMetadata);
+    offHeapChunk = store(chunk, chunkMetadata.getFilePath());
+    if (offHeapChunk != null
+        && cache
+                .asMap()
+                .putIfAbsent(
+                    new ChunkKey(offHeapChunk.fileId, chunkMetadata.getOffsetOfChunkHeader()),
+                    offHeapChunk)
+            != null) {
+      // cached by another thread meanwhile
+      offHeapChunk.release();
+    }
+    return chunk;
+  }
+
+  private Chunk readChunk(ChunkMetadata chunkMetadata) throws IOException {
+    try {
+      TsFileSequenceReader reader =
+          FileReaderManager.getInstance()
+              .get(chunkMetadata.getFilePath(), chunkMetadata.isClosed());
+      return reader.readMemChunk(chunkMetadata);
+    } catch (IOException e) {
+      logger.error("Something wrong happened in reading {}", chunkMetadata, e);
+      throw e;
+    }
+  }
+
+  /** @return the chunk copied to direct memory, or null if there is no free memory for it */
+  private OffHeapChunk store(Chunk chunk, String filePath) {
+    ByteBuffer data = chunk.getData();
+    int size = data.remaining();
+    int[] blocks = allocator.allocate(size);
+    while (blocks == null && evictColdest()) {
+      blocks = allocator.allocate(size);
+    }
+    if (blocks == null) {
+      return null;
+    }
+    allocator.write(blocks, data);
+    return new OffHeapChunk(chunk.getHeader(), blocks, size, filePath, retainFileId(filePath));
+  }
+
+  /**
+   * Evicts the chunk least likely to be used, when the reserved blocks are not enough for a new
+   * chunk.
+   *
+   * @return false if there is no chunk to evict
+   */
+  private boolean evictColdest() {
+    Map<ChunkKey, OffHeapChunk> coldest =
+        cache.policy().eviction().map(eviction -> eviction.coldest(1)).orElse(null);
+    if (coldest == null || coldest.isEmpty()) {
+      return false;
+    }
+    coldest.keySet().forEach(cache::invalidate);
+    return true;
+  }
+
+  /** @return the id of the file, which is kept until the chunk stored with it is freed */
+  private int retainFileId(String filePath) {
+    // ids are not reused, as there are far fewer files than ids
+    return fileIds.compute(
+            filePath,
+            (p, fileId) -> {
+              if (fileId == null) {
+                fileId = new FileId(nextFileId.getAndIncrement());
+              }
+              fileId.chunkNum++;
+              return fileId;
+            })
+        .id;
+  }
+
+  private void releaseFileId(String filePath) {
+    fileIds.computeIfPresent(filePath, (p, fileId) -> --fileId.chunkNum == 0 ? null : fileId);
+  }
+
+  public void remove(ChunkMetadata chunkMetadata) {
+    FileId fileId = fileIds.get(chunkMetadata.getFilePath());
+    if (fileId != null) {
+      cache.invalidate(new ChunkKey(fileId.id, chunkMetadata.getOffsetOfChunkHeader()));
+    }
+  }
+
+  public void clear() {
+    cache.invalidateAll();
+    cache.cleanUp();
+  }
+
+  public boolean isEmpty() {
+    return cache.asMap().isEmpty();
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  /** @return the size of direct memory allocated for chunks, in use or not */
+  public long getAllocatedSize() {
+    return allocator.getAllocatedSize();
+  }
+
+  /** @return the number of files that have chunks in direct memory */
+  public int getFileNum() {
+    return fileIds.size();
+  }
+
+  /** The id of a file and the number of its chunks in direct memory, guarded by fileIds. */
+  private static class FileId {
+
+    private final int id;
+    private int chunkNum;
+
+    private FileId(int id) {
+      this.id = id;
+    }
+  }
+
+  private static class ChunkKey {
+
+    private final int fileId;
+    private final long offset;
+
+    private ChunkKey(int fileId, long offset) {
+      this.fileId = fileId;
+      this.offset = offset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ChunkKey)) {
+        return false;
+      }
+      ChunkKey that = (ChunkKey) o;
+      return fileId == that.fileId && offset == that.offset;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * fileId + Long.hashCode(offset);
+    }
+  }
+
+  /** A chunk in direct memory, whose blocks are freed when it is neither cached nor read. */
+  private class OffHeapChunk {
+
+    private final ChunkHeader header;
+    private final int[] blocks;
+    private final int size;
+    private final String filePath;
+    private final int fileId;
+    /** one reference is held by the cache, and one by each copy in progress */
+    private final AtomicInteger referenceCount = new AtomicInteger(1);
+
+    private OffHeapChunk(ChunkHeader header, int[] blocks, int size, String filePath, int fileId) {
+      this.header = header;
+      this.blocks = blocks;
+      this.size = size;
+      this.filePath = filePath;
+      this.fileId = fileId;
+    }
+
+    /** @return false if the blocks have been freed */
+    private boolean retain() {
+      int count;
+      do {
+        count = referenceCount.get();
+        if (count == 0) {
+          return false;
+        }
+      } while (!referenceCount.compareAndSet(count, count + 1));
+      return true;
+    }
+
+    private void release() {
+      if (referenceCount.decrementAndGet() == 0) {
+        allocator.free(blocks);
+        releaseFileId(filePath);
+      }
+    }
+  }
+}
@@ -0,0 +1,352 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.VirtualStorageGroupProcessor;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.metadata.idtable.IDTable;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.qp.physical.crud.GroupByTimeFillPlan;
+import org.apache.iotdb.db.qp.physical.crud.GroupByTimePlan;
+import org.apache.iotdb.db.service.metrics.Metric;
+import org.apache.iotdb.db.service.metrics.MetricsService;
+import org.apache.iotdb.db.service.metrics.Tag;
+import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
+import org.apache.iotdb.metrics.utils.MetricLevel;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * This class caches the rows of GROUP BY time queries window by window, so that dashboards
+ * refreshing the same aggregation every few seconds only compute the windows whose data changed.
+ *
+ * <p>Each cached row carries the version of its window, which is derived from the sealed
+ * TsFileResources overlapping the window: their files, their time ranges and their modification
+ * versions. Flushing, compaction, loading and deleting files or data all change it, so a stale row
+ * is never returned. Windows overlapping an unsealed file may still change without any sealed file
+ * changing, so they are {@link #OPEN_WINDOW} and always recomputed, as are all windows of storage
+ * groups with a TTL, whose results change as time passes.
+ */
+public class QueryResultCache {
+
+  public static final long OPEN_WINDOW = Long.MIN_VALUE;
+
+  /** queries with more windows than this are not split, as checking them would cost too much */
+  public static final int MAX_WINDOW_NUM = 100_000;
+
+  /** more runs of missed windows than this are computed by one query */
+  static final int MAX_MISSED_RUN_NUM = 8;
+
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  private final Cache<WindowKey, CachedRow> cache;
+
+  private QueryResultCache() {
+    cache =
+        Caffeine.newBuilder().maximumSize(config.getQueryResultCacheSize()).recordStats().build();
+
+    if (config.isEnableQueryResultCache()
+        && MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
+      MetricsService.getInstance()
+          .getMetricManager()
+          .getOrCreateAutoGauge(
+              Metric.CACHE_HIT.toString(),
+              MetricLevel.IMPORTANT,
+              cache,
+              c -> (long) (c.stats().hitRate() * 100),
+              Tag.NAME.toString(),
+              "queryResult");
+    }
+  }
+
+  public static QueryResultCache getInstance() {
+    return QueryResultCacheHolder.INSTANCE;
+  }
+
+  /**
+   * Whether every window of the plan is computed independently of the others, so that the plan can
+   * be split into windows that are cached separately.
+   */
+  public static boolean isCacheable(GroupByTimePlan plan) {
+    return !(plan instanceof GroupByTimeFillPlan)
+        && !plan.isGroupByLevel()
+        && !plan.isIntervalByMonth()
+        && !plan.isSlidingStepByMonth()
+        && plan.isAscending()
+        && plan.getInterval() > 0
+        && plan.getSlidingStep() > 0
+        && plan.getRowLimit() == 0
+        && plan.getRowOffset() == 0
+        && !plan.isWithoutAnyNull()
+        && !plan.isWithoutAllNull();
+  }
+
+  /**
+   * @param filterKey the value filter of the query without its time range, which is not part of the
+   *     plan key because each window is cached on its own
+   * @return the key shared by all windows of the plan, no matter which time range is queried
+   */
+  public static String getPlanKey(GroupByTimePlan plan, String filterKey) {
+    return plan.getDeduplicatedPaths()
+        + "|"
+        + plan.getDeduplicatedAggregations()
+        + "|"
+        + plan.getInterval()
+        + "|"
+        + plan.getSlidingStep()
+        + "|"
+        + plan.isLeftCRightO()
+        + "|"
+        + filterKey;
+  }
+
+  /**
+   * @return the row of the window starting at windowStart, or null if it is not cached or was
+   *     cached with another version
+   */
+  public RowRecord get(String planKey, long windowStart, long version) {
+    CachedRow cachedRow = cache.getIfPresent(new WindowKey(planKey, windowStart));
+    return cachedRow != null && cachedRow.version == version ? cachedRow.row : null;
+  }
+
+  public void put(String planKey, long windowStart, long version, RowRecord row) {
+    if (version != OPEN_WINDOW) {
+      cache.put(new WindowKey(planKey, windowStart), new CachedRow(version, row));
+    }
+  }
+
+  /**
+   * Compute the version of the windowNum windows [firstWindowStart + i * slidingStep,
+   * firstWindowStart + i * slidingStep + interval). It must be computed before the windows are
+   * queried, so that data changed by a concurrent write is either seen by the query or changes the
+   * version.
+   *
+   * @param paths the series queried
+   * @return the version of each window, or OPEN_WINDOW if the window can not be cached
+   */
+  public long[] getWindowVersions(
+      List<PartialPath> paths,
+      long firstWindowStart,
+      long interval,
+      long slidingStep,
+      int windowNum)
+      throws StorageEngineException {
+    long[] versions = new long[windowNum];
+    Map<VirtualStorageGroupProcessor, Set<String>> processorToDevices = new HashMap<>();
+    for (PartialPath path : paths) {
+      VirtualStorageGroupProcessor processor =
+          StorageEngine.getInstance().getProcessor(path.getDevicePath());
+      processorToDevices
+          .computeIfAbsent(processor, k -> new HashSet<>())
+          .add(IDTable.translateQueryPath(path).getDevice());
+    }
+
+    WindowLocator locator = new WindowLocator(firstWindowStart, interval, slidingStep, windowNum);
+    int firstOpenWindow = windowNum;
+    for (Map.Entry<VirtualStorageGroupProcessor, Set<String>> entry :
+        processorToDevices.entrySet()) {
+      VirtualStorageGroupProcessor processor = entry.getKey();
+      if (processor.getDataTTL() != Long.MAX_VALUE) {
+        Arrays.fill(versions, OPEN_WINDOW);
+        return versions;
+      }
+      List<TsFileResource> resources = new ArrayList<>(processor.getSequenceFileList());
+      resources.addAll(processor.getUnSequenceFileList());
+      for (TsFileResource resource : resources) {
+        for (String device : entry.getValue()) {
+          if (!resource.mayContainsDevice(device)) {
+            continue;
+          }
+          long startTime = resource.getStartTime(device);
+          if (!resource.isClosed()) {
+            // points may still be written anywhere after the first one of an unsealed file
+            firstOpenWindow = Math.min(firstOpenWindow, locator.firstOverlapping(startTime));
+            continue;
+          }
+          long endTime = resource.getEndTime(device);
+          long resourceVersion = getResourceVersion(resource, startTime, endTime);
+          int last = locator.lastOverlapping(endTime);
+          for (int i = locator.firstOverlapping(startTime); i <= last; i++) {
+            versions[i] += resourceVersion;
+          }
+        }
+      }
+    }
+
+    for (int i = 0; i < windowNum; i++) {
+      if (i >= firstOpenWindow) {
+        versions[i] = OPEN_WINDOW;
+      } else if (versions[i] == OPEN_WINDOW) {
+        versions[i]++;
+      }
+    }
+    return versions;
+  }
+
+  /**
+   * @param cachedRows the cached row of each window, null if the window is missed
+   * @return the first and last index of each run of missed windows, or a single run from the first
+   *     to the last missed window if there are more than {@link #MAX_MISSED_RUN_NUM} runs, so that
+   *     a few windows scattered in a long time range do not cost a query each
+   */
+  public static List<int[]> getMissedRuns(RowRecord[] cachedRows) {
+    List<int[]> missedRuns = new ArrayList<>();
+    for (int i = 0; i < cachedRows.length; i++) {
+      if (cachedRows[i] != null) {
+        continue;
+      }
+      if (!missedRuns.isEmpty() && missedRuns.get(missedRuns.size() - 1)[1] == i - 1) {
+        missedRuns.get(missedRuns.size() - 1)[1] = i;
+      } else {
+        missedRuns.add(new int[] {i, i});
+      }
+    }
+    if (missedRuns.size() > MAX_MISSED_RUN_NUM) {
+      int[] mergedRun = {missedRuns.get(0)[0], missedRuns.get(missedRuns.size() - 1)[1]};
+      missedRuns.clear();
+      missedRuns.add(mergedRun);
+    }
+    return missedRuns;
+  }
+
+  /** @return the timestamp of the row of the window, see GroupByEngineDataSet */
+  public static long getRowTimestamp(GroupByTimePlan plan, int window) {
+    long windowStart = plan.getStartTime() + window * plan.getSlidingStep();
+    return plan.isLeftCRightO()
+        ? windowStart
+        : Math.min(windowStart + plan.getInterval(), plan.getEndTime()) - 1;
+  }
+
+  private static long getResourceVersion(TsFileResource resource, long startTime, long endTime) {
+    long version = resource.getTsFilePath().hashCode();
+    version = version * 31 + resource.getModificationVersion();
+    version = version * 31 + startTime;
+    version = version * 31 + endTime;
+    // spread the bits, as versions of the resources in a window are summed up
+    version = (version ^ (version >>> 33)) * 0xff51afd7ed558ccdL;
+    version = (version ^ (version >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return version ^ (version >>> 33);
+  }
+
+  public void clear() {
+    cache.invalidateAll();
+  }
+
+  /** Maps time points to the indexes of the windows that contain them. */
+  static class WindowLocator {
+
+    private final long firstWindowStart;
+    private final long interval;
+    private final long slidingStep;
+    private final int windowNum;
+    private final long lastWindowEnd;
+
+    WindowLocator(long firstWindowStart, long interval, long slidingStep, int windowNum) {
+      this.firstWindowStart = firstWindowStart;
+      this.interval = interval;
+      this.slidingStep = slidingStep;
+      this.windowNum = windowNum;
+      this.lastWindowEnd = firstWindowStart + (windowNum - 1) * slidingStep + interval;
+    }
+
+    /** @return the first window whose end is after time, windowNum if there is none */
+    int firstOverlapping(long time) {
+      if (time < firstWindowStart) {
+        return 0;
+      }
+      if (time >= lastWindowEnd) {
+        return windowNum;
+      }
+      long index = Math.floorDiv(time - firstWindowStart - interval, slidingStep) + 1;
+      return (int) Math.max(0, index);
+    }
+
+    /** @return the last window whose start is not after time, -1 if there is none */
+    int lastOverlapping(long time) {
+      if (time < firstWindowStart) {
+        return -1;
+      }
+      if (time >= lastWindowEnd) {
+        return windowNum - 1;
+      }
+      return (int) Math.min(windowNum - 1, (time - firstWindowStart) / slidingStep);
+    }
+  }
+
+  private static class WindowKey {
+
+    private final String planKey;
+    private final long windowStart;
+
+    private WindowKey(String planKey, long windowStart) {
+      this.planKey = planKey;
+      this.windowStart = windowStart;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      WindowKey windowKey = (WindowKey) o;
+      return windowStart == windowKey.windowStart && planKey.equals(windowKey.planKey);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(planKey, windowStart);
+    }
+  }
+
+  private static class CachedRow {
+
+    private final long version;
+    private final RowRecord row;
+
+    private CachedRow(long version, RowRecord row) {
+      this.version = version;
+      this.row = row;
+    }
+  }
+
+  private static class QueryResultCacheHolder {
+
+    private static final QueryResultCache INSTANCE = new QueryResultCache();
+
+    private QueryResultCacheHolder() {}
+  }
+}
@@ -0,0 +1,442 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.service.metrics.Metric;
+import org.apache.iotdb.db.service.metrics.MetricsService;
+import org.apache.iotdb.db.service.metrics.Tag;
+import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
+import org.apache.iotdb.metrics.utils.MetricLevel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * A cache on a local disk, preferably an SSD, which is the second tier under {@link ChunkCache} and
+ * {@link TimeSeriesMetadataCache}: entries evicted from them are put here, and entries missed by
+ * them are looked up here before the TsFiles are read.
+ *
+ * <p>Entries are appended to segment files, and only their locations are indexed in memory. When
+ * the cache is full, the oldest segment is deleted with all its entries. Each record is:
+ *
+ * <pre>
+ * header crc (int), key length (int), value length (int, -1 for a removal), value crc (int), key,
+ * value
+ * </pre>
+ *
+ * The index is rebuilt by scanning the records when the cache is opened, and a segment is truncated
+ * at its first broken record, so the cache survives a restart or a crash. Values are checked
+ * against their crc when they are read, in case their pages are lost in a crash.
+ */
+public class SecondaryCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(SecondaryCache.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  private static final String SEGMENT_SUFFIX = ".cache";
+  private static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+  private static final int RECORD_HEADER_SIZE = 4 * Integer.BYTES;
+  private static final int REMOVED = -1;
+
+  private final File dir;
+  private final long segmentSize;
+  private final int maxSegmentNum;
+
+  private final Map<String, Location> index = new ConcurrentHashMap<>();
+  private final Map<Integer, FileChannel> segments = new ConcurrentHashMap<>();
+  /** ids of the segments from the oldest to the one being appended, guarded by this */
+  private final Deque<Integer> segmentIds = new ArrayDeque<>();
+
+  private FileChannel writingChannel;
+  private long writingPosition;
+
+  private final AtomicLong requestCount = new AtomicLong(0);
+  private final AtomicLong hitCount = new AtomicLong(0);
+
+  private SecondaryCache() {
+    this(
+        config.getSecondaryCacheDir().isEmpty() ? null : new File(config.getSecondaryCacheDir()),
+        config.getSecondaryCacheSize(),
+        DEFAULT_SEGMENT_SIZE);
+    if (isEnabled() && MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
+      MetricsService.getInstance()
+          .getMetricManager()
+          .getOrCreateAutoGauge(
+              Metric.CACHE_HIT.toString(),
+              MetricLevel.IMPORTANT,
+              this,
+              c -> (long) (c.calculateHitRatio() * 100),
+              Tag.NAME.toString(),
+              "secondary");
+    }
+  }
+
+  /** @param dir the directory of the segments, or null to disable the cache */
+  SecondaryCache(File dir, long capacity, long segmentSize) {
+    this.segmentSize = Math.min(segmentSize, Math.max(capacity / 2, 1));
+    this.maxSegmentNum = (int) Math.max(capacity / this.segmentSize, 2);
+    File cacheDir = dir;
+    if (cacheDir != null) {
+      try {
+        recover(cacheDir);
+        logger.info(
+            "SecondaryCache in {}, size = {}, {} entries recovered",
+            cacheDir,
+            capacity,
+            index.size());
+      } catch (IOException e) {
+        logger.error("Failed to open the secondary cache in {}, it is disabled", cacheDir, e);
+        close();
+        cacheDir = null;
+      }
+    }
+    this.dir = cacheDir;
+  }
+
+  public static SecondaryCache getInstance() {
+    return SecondaryCacheHolder.INSTANCE;
+  }
+
+  public boolean isEnabled() {
+    return dir != null;
+  }
+
+  private synchronized void recover(File cacheDir) throws IOException {
+    if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+      throw new IOException("Cannot create directory " + cacheDir);
+    }
+    File[] files = cacheDir.listFiles((d, name) -> name.endsWith(SEGMENT_SUFFIX));
+    int[] ids =
+        files == null
+            ? new int[0]
+            : Arrays.stream(files)
+                .map(f -> f.getName().substring(0, f.getName().length() - SEGMENT_SUFFIX.length()))
+                .filter(name -> name.matches("\\d+"))
+                .mapToInt(Integer::parseInt)
+                .sorted()
+                .toArray();
+    for (int id : ids) {
+      FileChannel channel = openSegment(cacheDir, id);
+      segments.put(id, channel);
+      segmentIds.addLast(id);
+      writingChannel = channel;
+      writingPosition = recoverSegment(id, channel);
+    }
+    if (writingChannel == null) {
+      rollSegment(cacheDir);
+    }
+    while (segmentIds.size() > maxSegmentNum) {
+      dropOldestSegment(cacheDir);
+    }
+  }
+
+  /** @return the end of the valid records, where the segment is truncated */
+  private long recoverSegment(int segmentId, FileChannel channel) throws IOException {
+    long size = channel.size();
+    long position = 0;
+    ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+    CRC32 crc = new CRC32();
+    while (position + RECORD_HEADER_SIZE <= size) {
+      header.clear();
+      if (!readFully(channel, header, position)) {
+        break;
+      }
+      header.flip();
+      int headerCrc = header.getInt();
+      int keyLength = header.getInt();
+      int valueLength = header.getInt();
+      int valueCrc = header.getInt();
+      long valuePosition = position + RECORD_HEADER_SIZE + keyLength;
+      if (keyLength <= 0
+          || valueLength < REMOVED
+          || valuePosition + Math.max(valueLength, 0) > size) {
+        break;
+      }
+      ByteBuffer key = ByteBuffer.allocate(keyLength);
+      if (!readFully(channel, key, position + RECORD_HEADER_SIZE)) {
+        break;
+      }
+      header.position(Integer.BYTES);
+      key.flip();
+      crc.reset();
+      crc.update(header);
+      crc.update(key.duplicate());
+      if ((int) crc.getValue() != headerCrc) {
+        break;
+      }
+      String keyString = StandardCharsets.UTF_8.decode(key).toString();
+      if (valueLength == REMOVED) {
+        index.remove(keyString);
+      } else {
+        index.put(keyString, new Location(segmentId, valuePosition, valueLength, valueCrc));
+      }
+      position = valuePosition + Math.max(valueLength, 0);
+    }
+    if (position < size) {
+      logger.warn(
+          "Truncate segment {} of the secondary cache from {} to {}", segmentId, size, position);
+      channel.truncate(position);
+    }
+    return position;
+  }
+
+  /** @return the value of the key, or null if it is not cached */
+  public ByteBuffer get(String key) {
+    if (!isEnabled()) {
+      return null;
+    }
+    requestCount.incrementAndGet();
+    Location location = index.get(key);
+    if (location == null) {
+      return null;
+    }
+    FileChannel channel = segments.get(location.segmentId);
+    if (channel == null) {
+      return null;
+    }
+    ByteBuffer value = ByteBuffer.allocate(location.length);
+    try {
+      if (!readFully(channel, value, location.position)) {
+        return null;
+      }
+    } catch (ClosedChannelException e) {
+      // the segment is deleted meanwhile, or closed as a reading thread is interrupted
+      reopenIfClosed(location.segmentId, channel);
+      return null;
+    } catch (IOException e) {
+      logger.warn("Failed to read {} from the secondary cache", key, e);
+      return null;
+    }
+    value.flip();
+    CRC32 crc = new CRC32();
+    crc.update(value.duplicate());
+    if ((int) crc.getValue() != location.crc) {
+      logger.warn("Broken value of {} in the secondary cache is removed", key);
+      index.remove(key, location);
+      return null;
+    }
+    hitCount.incrementAndGet();
+    return value;
+  }
+
+  public boolean contains(String key) {
+    return index.containsKey(key);
+  }
+
+  /** Cache the value of the key, if it is not cached yet. */
+  public void put(String key, ByteBuffer value) {
+    if (!isEnabled()
+        || index.containsKey(key)
+        || RECORD_HEADER_SIZE + key.length() * 3L + value.remaining() > segmentSize) {
+      return;
+    }
+    synchronized (this) {
+      if (index.containsKey(key)) {
+        return;
+      }
+      try {
+        append(key, value.duplicate(), false);
+      } catch (ClosedChannelException e) {
+        reopenIfClosed(segmentIds.getLast(), writingChannel);
+      } catch (IOException e) {
+        logger.warn("Failed to put {} into the secondary cache", key, e);
+      }
+    }
+  }
+
+  /** Remove the value of the key, which is persisted so that it is not recovered later. */
+  public synchronized void remove(String key) {
+    if (!isEnabled() || index.remove(key) == null) {
+      return;
+    }
+    try {
+      append(key, ByteBuffer.allocate(0), true);
+    } catch (IOException e) {
+      logger.warn("Failed to remove {} from the secondary cache", key, e);
+    }
+  }
+
+  private void append(String key, ByteBuffer value, boolean removal) throws IOException {
+    byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+    int valueLength = removal ? REMOVED : value.remaining();
+    if (writingPosition + RECORD_HEADER_SIZE + keyBytes.length + value.remaining() > segmentSize) {
+      rollSegment(dir);
+      while (segmentIds.size() > maxSegmentNum) {
+        dropOldestSegment(dir);
+      }
+    }
+
+    CRC32 crc = new CRC32();
+    crc.update(value.duplicate());
+    ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE + keyBytes.length);
+    header.putInt(0).putInt(keyBytes.length).putInt(valueLength).putInt((int) crc.getValue());
+    header.put(keyBytes);
+    crc.reset();
+    crc.update(header.array(), Integer.BYTES, header.position() - Integer.BYTES);
+    header.putInt(0, (int) crc.getValue());
+    header.flip();
+
+    long recordPosition = writingPosition;
+    ByteBuffer[] record = new ByteBuffer[] {header, value};
+    writingChannel.position(recordPosition);
+    while (header.hasRemaining() || value.hasRemaining()) {
+      writingChannel.write(record);
+    }
+    writingPosition = writingChannel.position();
+    if (!removal) {
+      index.put(
+          key,
+          new Location(
+              segmentIds.getLast(),
+              recordPosition + RECORD_HEADER_SIZE + keyBytes.length,
+              valueLength,
+              header.getInt(3 * Integer.BYTES)));
+    }
+  }
+
+  private void rollSegment(File cacheDir) throws IOException {
+    int id = segmentIds.isEmpty() ? 0 : segmentIds.getLast() + 1;
+    writingChannel = openSegment(cacheDir, id);
+    writingPosition = 0;
+    segments.put(id, writingChannel);
+    segmentIds.addLast(id);
+  }
+
+  private void dropOldestSegment(File cacheDir) throws IOException {
+    int id = segmentIds.removeFirst();
+    index.values().removeIf(location -> location.segmentId == id);
+    FileChannel channel = segments.remove(id);
+    channel.close();
+    Files.deleteIfExists(new File(cacheDir, id + SEGMENT_SUFFIX).toPath());
+  }
+
+  private synchronized void reopenIfClosed(int segmentId, FileChannel channel) {
+    if (channel.isOpen() || segments.get(segmentId) != channel) {
+      return;
+    }
+    try {
+      FileChannel reopened = openSegment(dir, segmentId);
+      segments.put(segmentId, reopened);
+      if (writingChannel == channel) {
+        writingChannel = reopened;
+      }
+    } catch (IOException e) {
+      logger.warn("Failed to reopen segment {} of the secondary cache", segmentId, e);
+    }
+  }
+
+  private static FileChannel openSegment(File cacheDir, int id) throws IOException {
+    return FileChannel.open(
+        new File(cacheDir, id + SEGMENT_SUFFIX).toPath(),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+  }
+
+  /** @return false if the end of the file is reached before the buffer is filled */
+  private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        return false;
+      }
+      position += read;
+    }
+    return true;
+  }
+
+  /** Remove all entries and delete their segments. */
+  public synchronized void clear() {
+    if (!isEnabled()) {
+      return;
+    }
+    try {
+      while (!segmentIds.isEmpty()) {
+        dropOldestSegment(dir);
+      }
+      index.clear();
+      rollSegment(dir);
+    } catch (IOException e) {
+      logger.warn("Failed to clear the secondary cache in {}", dir, e);
+    }
+  }
+
+  public double calculateHitRatio() {
+    long requests = requestCount.get();
+    return requests == 0 ? 0 : (double) hitCount.get() / requests;
+  }
+
+  public int size() {
+    return index.size();
+  }
+
+  synchronized void close() {
+    for (FileChannel channel : segments.values()) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        logger.warn("Failed to close a segment of the secondary cache", e);
+      }
+    }
+    segments.clear();
+    segmentIds.clear();
+    index.clear();
+  }
+
+  private static class Location {
+
+    private final int segmentId;
+    private final long position;
+    private final int length;
+    private final int crc;
+
+    private Location(int segmentId, long position, int length, int crc) {
+      this.segmentId = segmentId;
+      this.position = position;
+      this.length = length;
+      this.crc = crc;
+    }
+  }
+
+  /** singleton pattern. */
+  private static class SecondaryCacheHolder {
+
+    private static final SecondaryCache INSTANCE = new SecondaryCache();
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.engine.cache;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Allocates direct memory in fixed-size blocks. The memory is reserved lazily in slabs, each of
+ * which is split into blocks, so that data of any size is held by a list of blocks which are not
+ * necessarily contiguous. The blocks are not zeroed when they are freed or allocated again.
+ *
+ * <p>Allocating and freeing blocks is synchronized, while reading and writing blocks is not, so a
+ * caller must not free blocks which are still being read or written.
+ */
+public class SlabAllocator {
+
+  private static final int MAX_SLAB_SIZE = 64 * 1024 * 1024;
+
+  private final int blockSize;
+  private final int blockNumPerSlab;
+  private final int blockNum;
+
+  private final ByteBuffer[] slabs;
+  /** the blocks freed, which are allocated before the blocks never allocated */
+  private final int[] freeBlocks;
+
+  private int freeBlockNum = 0;
+  /** blocks whose ids are not less than this have never been allocated */
+  private int nextNewBlock = 0;
+
+  public SlabAllocator(long capacity, int blockSize) {
+    if (blockSize <= 0 || blockSize > MAX_SLAB_SIZE) {
+      throw new IllegalArgumentException("Illegal block size of slab allocator: " + blockSize);
+    }
+    this.blockSize = blockSize;
+    this.blockNumPerSlab = MAX_SLAB_SIZE / blockSize;
+    this.blockNum = (int) Math.min(capacity / blockSize, Integer.MAX_VALUE);
+    this.slabs = new ByteBuffer[(blockNum + blockNumPerSlab - 1) / blockNumPerSlab];
+    this.freeBlocks = new int[blockNum];
+  }
+
+  /**
+   * Allocate the blocks to hold data of the given size.
+   *
+   * @return ids of the blocks, or null if there are not enough free blocks
+   */
+  public synchronized int[] allocate(int size) {
+    int num = getBlockNum(size);
+    if (num > freeBlockNum + blockNum - nextNewBlock) {
+      return null;
+    }
+    int[] blocks = new int[num];
+    int i = 0;
+    for (; i < num && freeBlockNum > 0; i++) {
+      blocks[i] = freeBlocks[--freeBlockNum];
+    }
+    for (; i < num; i++) {
+      int slabIndex = nextNewBlock / blockNumPerSlab;
+      if (slabs[slabIndex] == null) {
+        int slabBlockNum = Math.min(blockNumPerSlab, blockNum - slabIndex * blockNumPerSlab);
+        slabs[slabIndex] = ByteBuffer.allocateDirect(slabBlockNum * blockSize);
+      }
+      blocks[i] = nextNewBlock++;
+    }
+    return blocks;
+  }
+
+  public synchronized void free(int[] blocks) {
+    for (int block : blocks) {
+      freeBlocks[freeBlockNum++] = block;
+    }
+  }
+
+  /** Write the remaining bytes of the source into the blocks, from the start of the first one. */
+  public void write(int[] blocks, ByteBuffer source) {
+    ByteBuffer src = source.duplicate();
+    for (int i = 0; src.hasRemaining(); i++) {
+      int length = Math.min(blockSize, src.remaining());
+      src.limit(src.position() + length);
+      getBlock(blocks[i], length).put(src);
+      src.limit(source.limit());
+    }
+  }
+
+  /** Read the given number of bytes from the blocks into the destination. */
+  public void read(int[] blocks, int size, ByteBuffer destination) {
+    for (int i = 0; size > 0; i++) {
+      int length = Math.min(blockSize, size);
+      destination.put(getBlock(blocks[i], length));
+      size -= length;
+    }
+  }
+
+  private ByteBuffer getBlock(int block, int length) {
+    ByteBuffer slab = slabs[block / blockNumPerSlab].duplicate();
+    int offset = block % blockNumPerSlab * blockSize;
+    slab.limit(offset + length).position(offset);
+    return slab;
+  }
+
+  public int getBlockNum(int size) {
+    return (size + blockSize - 1) / blockSize;
+  }
+
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  /** @return the number of blocks, including the ones not reserved yet */
+  public int getCapacityInBlocks() {
+    return blockNum;
+  }
+
+  public synchronized long getAllocatedSize() {
+    return (long) (nextNewBlock - freeBlockNum) * blockSize;
+  }
+}
@@ -30,33 +30,44 @@ import org.apache.iotdb.db.service.metrics.Tag;
 import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
 import org.apache.iotdb.metrics.utils.MetricLevel;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.IChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.TimeseriesMetadata;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.utils.BloomFilter;
 import org.apache.iotdb.tsfile.utils.FilePathUtils;
 import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
 import org.apache.iotdb.tsfile.utils.RamUsageEstimator;
+import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.github.benmanes.caffeine.cache.Weigher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
 import java.util.Collections;
-import java.util.List;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class is used to cache <code>TimeSeriesMetadata</code> in IoTDB. The caching strategy is
  * LRU.
+ *
+ * <p>If the {@link SecondaryCache} is enabled, evicted <code>TimeSeriesMetadata</code> are put into
+ * it, and missed ones are looked up in it before their files are read.
  */
 public class TimeSeriesMetadataCache {
 
@@ -69,13 +80,18 @@ public class TimeSeriesMetadataCache {
 
   private final Cache<TimeSeriesMetadataCacheKey, TimeseriesMetadata> lruCache;
 
+  private final SecondaryCache secondaryCache = SecondaryCache.getInstance();
+  private static final String SECONDARY_CACHE_KEY_PREFIX = "timeseries:";
+
   private final AtomicLong entryAverageSize = new AtomicLong(0);
 
   private final AtomicLong bloomFilterRequestCount = new AtomicLong(0L);
   private final AtomicLong bloomFilterPreventCount = new AtomicLong(0L);
 
-  private final Map<String, WeakReference<String>> devices =
-      Collections.synchronizedMap(new WeakHashMap<>());
+  /** loads in progress, by device and file */
+  private final Map<String, CompletableFuture<DeviceLoad>> loadingDevices =
+      new ConcurrentHashMap<>();
+
   private static final String SEPARATOR = "$";
 
   private TimeSeriesMetadataCache() {
@@ -105,6 +121,14 @@ public class TimeSeriesMetadataCache {
                                             + RamUsageEstimator.NUM_BYTES_OBJECT_REF)
                                     * value.getChunkMetadataList().size()
                                 + RamUsageEstimator.shallowSizeOf(value.getChunkMetadataList())))
+            .removalListener(
+                (TimeSeriesMetadataCacheKey key,
+                    TimeseriesMetadata timeseriesMetadata,
+                    RemovalCause cause) -> {
+                  if (cause.wasEvicted() && secondaryCache.isEnabled()) {
+                    putIntoSecondaryCache(key, timeseriesMetadata);
+                  }
+                })
             .recordStats()
             .build();
 
@@ -142,7 +166,6 @@ public class TimeSeriesMetadataCache {
     return TimeSeriesMetadataCache.TimeSeriesMetadataCacheHolder.INSTANCE;
   }
 
-  @SuppressWarnings("squid:S1860") // Suppress synchronize warning
   public TimeseriesMetadata get(
       TimeSeriesMetadataCacheKey key,
       Set<String> allSensors,
@@ -172,44 +195,7 @@ public class TimeSeriesMetadataCache {
             "Cache miss: {}.{} in file: {}", key.device, key.measurement, key.filePath);
         DEBUG_LOGGER.info("Device: {}, all sensors: {}", key.device, allSensors);
       }
-      // allow for the parallelism of different devices
-      synchronized (
-          devices.computeIfAbsent(key.device + SEPARATOR + key.filePath, WeakReference::new)) {
-        // double check
-        timeseriesMetadata = lruCache.getIfPresent(key);
-        if (timeseriesMetadata == null) {
-          Path path = new Path(key.device, key.measurement);
-          // bloom filter part
-          BloomFilter bloomFilter =
-              BloomFilterCache.getInstance()
-                  .get(new BloomFilterCache.BloomFilterCacheKey(key.filePath), debug);
-          if (bloomFilter != null) {
-            bloomFilterRequestCount.incrementAndGet();
-            if (!bloomFilter.contains(path.getFullPath())) {
-              bloomFilterPreventCount.incrementAndGet();
-              if (debug) {
-                DEBUG_LOGGER.info("TimeSeries meta data {} is filter by bloomFilter!", key);
-              }
-              return null;
-            }
-          }
-          TsFileSequenceReader reader = FileReaderManager.getInstance().get(key.filePath, true);
-          List<TimeseriesMetadata> timeSeriesMetadataList =
-              reader.readTimeseriesMetadata(path, allSensors);
-          // put TimeSeriesMetadata of all sensors used in this query into cache
-          for (TimeseriesMetadata metadata : timeSeriesMetadataList) {
-            TimeSeriesMetadataCacheKey k =
-                new TimeSeriesMetadataCacheKey(
-                    key.filePath, key.device, metadata.getMeasurementId());
-            if (metadata.getStatistics().getCount() != 0) {
-              lruCache.put(k, metadata);
-            }
-            if (metadata.getMeasurementId().equals(key.measurement)) {
-              timeseriesMetadata = metadata.getStatistics().getCount() == 0 ? null : metadata;
-            }
-          }
-        }
-      }
+      timeseriesMetadata = load(key, allSensors, debug);
     }
     if (timeseriesMetadata == null) {
       if (debug) {
@@ -229,6 +215,154 @@ public class TimeSeriesMetadataCache {
     }
   }
 
+  /**
+   * Load the TimeseriesMetadata of the key. Concurrent misses of the same device in the same file
+   * share one load, which reads all the missed sensors of the device in one pass.
+   */
+  private TimeseriesMetadata load(
+      TimeSeriesMetadataCacheKey key, Set<String> allSensors, boolean debug) throws IOException {
+    String loadingKey = key.device + SEPARATOR + key.filePath;
+    while (true) {
+      CompletableFuture<DeviceLoad> loading = new CompletableFuture<>();
+      CompletableFuture<DeviceLoad> existingLoading =
+          loadingDevices.putIfAbsent(loadingKey, loading);
+      if (existingLoading == null) {
+        try {
+          DeviceLoad deviceLoad = loadDevice(key, allSensors, debug);
+          loading.complete(deviceLoad);
+          return deviceLoad.timeseriesMetadataMap.get(key.measurement);
+        } catch (IOException | RuntimeException e) {
+          loading.completeExceptionally(e);
+          throw e;
+        } finally {
+          loadingDevices.remove(loadingKey, loading);
+        }
+      }
+
+      DeviceLoad deviceLoad = waitFor(existingLoading);
+      if (deviceLoad.measurements.contains(key.measurement)) {
+        return deviceLoad.timeseriesMetadataMap.get(key.measurement);
+      }
+      // the sensor is not loaded by the other query, which may have loaded it before
+      TimeseriesMetadata timeseriesMetadata = lruCache.getIfPresent(key);
+      if (timeseriesMetadata != null) {
+        return timeseriesMetadata;
+      }
+    }
+  }
+
+  private DeviceLoad loadDevice(
+      TimeSeriesMetadataCacheKey key, Set<String> allSensors, boolean debug) throws IOException {
+    // double check, as it may be loaded since the last check
+    TimeseriesMetadata timeseriesMetadata = lruCache.getIfPresent(key);
+    if (timeseriesMetadata != null) {
+      return new DeviceLoad(key.measurement, timeseriesMetadata);
+    }
+
+    if (secondaryCache.isEnabled()) {
+      ByteBuffer buffer = secondaryCache.get(getSecondaryCacheKey(key));
+      if (buffer != null) {
+        timeseriesMetadata = TimeseriesMetadata.deserializeFrom(buffer, true);
+        lruCache.put(key, timeseriesMetadata);
+        if (debug) {
+          DEBUG_LOGGER.info("Get TimeSeries meta data {} from the secondary cache", key);
+        }
+        return new DeviceLoad(key.measurement, timeseriesMetadata);
+      }
+    }
+
+    Path path = new Path(key.device, key.measurement);
+    // bloom filter part
+    BloomFilter bloomFilter =
+        BloomFilterCache.getInstance()
+            .get(new BloomFilterCache.BloomFilterCacheKey(key.filePath), debug);
+    if (bloomFilter != null) {
+      bloomFilterRequestCount.incrementAndGet();
+      if (!bloomFilter.contains(path.getFullPath())) {
+        bloomFilterPreventCount.incrementAndGet();
+        if (debug) {
+          DEBUG_LOGGER.info("TimeSeries meta data {} is filter by bloomFilter!", key);
+        }
+        return new DeviceLoad(key.measurement, null);
+      }
+    }
+
+    // load the sensors used in this query which are not cached
+    Set<String> measurements = new HashSet<>();
+    measurements.add(key.measurement);
+    for (String sensor : allSensors) {
+      if (!lruCache
+          .asMap()
+          .containsKey(new TimeSeriesMetadataCacheKey(key.filePath, key.device, sensor))) {
+        measurements.add(sensor);
+      }
+    }
+    TsFileSequenceReader reader = FileReaderManager.getInstance().get(key.filePath, true);
+    DeviceLoad deviceLoad = new DeviceLoad(measurements);
+    for (TimeseriesMetadata metadata : reader.readTimeseriesMetadata(key.device, measurements)) {
+      if (metadata.getStatistics().getCount() != 0) {
+        lruCache.put(
+            new TimeSeriesMetadataCacheKey(key.filePath, key.device, metadata.getMeasurementId()),
+            metadata);
+        deviceLoad.timeseriesMetadataMap.put(metadata.getMeasurementId(), metadata);
+      }
+    }
+    return deviceLoad;
+  }
+
+  private static DeviceLoad waitFor(CompletableFuture<DeviceLoad> loading) throws IOException {
+    try {
+      return loading.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for TimeSeries meta data", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw new IOException(e.getCause().getMessage(), e.getCause());
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private static String getSecondaryCacheKey(TimeSeriesMetadataCacheKey key) {
+    return SECONDARY_CACHE_KEY_PREFIX
+        + key.filePath
+        + IoTDBConstant.PATH_SEPARATOR
+        + key.device
+        + IoTDBConstant.PATH_SEPARATOR
+        + key.measurement;
+  }
+
+  /** Serialize the TimeseriesMetadata in the format of TsFile, with its ChunkMetadata list. */
+  private void putIntoSecondaryCache(
+      TimeSeriesMetadataCacheKey key, TimeseriesMetadata timeseriesMetadata) {
+    try {
+      // ChunkMetadata have their own statistics only if there are more than one of them
+      boolean serializeStatistic = (timeseriesMetadata.getTimeSeriesMetadataType() & 0x3F) != 0;
+      PublicBAOS chunkMetadataBuffer = new PublicBAOS();
+      for (IChunkMetadata chunkMetadata : timeseriesMetadata.getChunkMetadataList()) {
+        if (!(chunkMetadata instanceof ChunkMetadata)) {
+          return;
+        }
+        ((ChunkMetadata) chunkMetadata).serializeTo(chunkMetadataBuffer, serializeStatistic);
+      }
+      PublicBAOS buffer = new PublicBAOS();
+      ReadWriteIOUtils.write(timeseriesMetadata.getTimeSeriesMetadataType(), buffer);
+      ReadWriteIOUtils.writeVar(timeseriesMetadata.getMeasurementId(), buffer);
+      ReadWriteIOUtils.write(timeseriesMetadata.getTSDataType(), buffer);
+      ReadWriteForEncodingUtils.writeUnsignedVarInt(chunkMetadataBuffer.size(), buffer);
+      timeseriesMetadata.getStatistics().serialize(buffer);
+      chunkMetadataBuffer.writeTo(buffer);
+      secondaryCache.put(
+          getSecondaryCacheKey(key), ByteBuffer.wrap(buffer.getBuf(), 0, buffer.size()));
+    } catch (IOException e) {
+      logger.warn("Failed to serialize TimeSeries meta data {}", key, e);
+    }
+  }
+
   public double calculateTimeSeriesMetadataHitRatio() {
     return lruCache.stats().hitRate();
   }
@@ -249,13 +383,15 @@ public class TimeSeriesMetadataCache {
     return entryAverageSize.get();
   }
 
-  /** clear LRUCache. */
+  /** clear LRUCache and the secondary cache. */
   public void clear() {
+    secondaryCache.clear();
     lruCache.invalidateAll();
     lruCache.cleanUp();
   }
 
   public void remove(TimeSeriesMetadataCacheKey key) {
+    secondaryCache.remove(getSecondaryCacheKey(key));
     lruCache.invalidate(key);
   }
 
@@ -307,6 +443,26 @@ public class TimeSeriesMetadataCache {
     }
   }
 
+  /** The result of loading TimeseriesMetadata of a device, shared by the queries waiting for it. */
+  private static class DeviceLoad {
+
+    /** the sensors loaded, including those not in the file */
+    private final Set<String> measurements;
+    /** TimeseriesMetadata of the loaded sensors in the file */
+    private final Map<String, TimeseriesMetadata> timeseriesMetadataMap = new HashMap<>();
+
+    private DeviceLoad(Set<String> measurements) {
+      this.measurements = measurements;
+    }
+
+    private DeviceLoad(String measurement, TimeseriesMetadata timeseriesMetadata) {
+      this.measurements = Collections.singleton(measurement);
+      if (timeseriesMetadata != null) {
+        timeseriesMetadataMap.put(measurement, timeseriesMetadata);
+      }
+    }
+  }
+
   /** singleton pattern. */
   private static class TimeSeriesMetadataCacheHolder {
 
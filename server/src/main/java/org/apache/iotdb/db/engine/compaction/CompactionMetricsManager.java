@@ -30,6 +30,7 @@ import org.apache.iotdb.db.service.metrics.Tag;
 import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
 import org.apache.iotdb.metrics.utils.MetricLevel;
 
+import java.util.Collection;
 import java.util.concurrent.TimeUnit;
 
 public class CompactionMetricsManager {
@@ -82,6 +83,41 @@ public class CompactionMetricsManager {
             "compaction");
   }
 
+  /**
+   * Record the compaction debt of a storage group, i.e. the number and the total source file size
+   * of the compaction tasks that are waiting or running.
+   */
+  public static void recordCompactionDebt(
+      String storageGroupName, Collection<AbstractCompactionTask> pendingTasks) {
+    if (!MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
+      return;
+    }
+    long pendingFileSize = 0L;
+    for (AbstractCompactionTask task : pendingTasks) {
+      pendingFileSize += task.getSelectedFileSize();
+    }
+    MetricsService.getInstance()
+        .getMetricManager()
+        .getOrCreateGauge(
+            Metric.QUEUE.toString(),
+            MetricLevel.IMPORTANT,
+            Tag.NAME.toString(),
+            "compaction_debt_task",
+            Tag.TYPE.toString(),
+            storageGroupName)
+        .set(pendingTasks.size());
+    MetricsService.getInstance()
+        .getMetricManager()
+        .getOrCreateGauge(
+            Metric.FILE_SIZE.toString(),
+            MetricLevel.IMPORTANT,
+            Tag.NAME.toString(),
+            "compaction_debt",
+            Tag.TYPE.toString(),
+            storageGroupName)
+        .set(pendingFileSize);
+  }
+
   public static void recordTaskInfo(
       AbstractCompactionTask task, CompactionTaskStatus status, int size) {
     if (!MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
@@ -35,11 +35,19 @@ public class CompactionTaskComparator implements Comparator<AbstractCompactionTa
 
   @Override
   public int compare(AbstractCompactionTask o1, AbstractCompactionTask o2) {
+    if (config.getCompactionPriority() == CompactionPriority.COST_BASED) {
+      // we prefer the task that reduces more overlapping files per MB of I/O
+      int cmp = Double.compare(o2.getBenefitCostRatio(), o1.getBenefitCostRatio());
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
     if ((((o1 instanceof AbstractInnerSpaceCompactionTask)
             && (o2 instanceof AbstractCrossSpaceCompactionTask))
         || ((o2 instanceof AbstractInnerSpaceCompactionTask)
             && (o1 instanceof AbstractCrossSpaceCompactionTask)))) {
-      if (config.getCompactionPriority() == CompactionPriority.BALANCE) {
+      if (config.getCompactionPriority() == CompactionPriority.BALANCE
+          || config.getCompactionPriority() == CompactionPriority.COST_BASED) {
         return 0;
       } else if (config.getCompactionPriority() == CompactionPriority.INNER_CROSS) {
         return o1 instanceof AbstractInnerSpaceCompactionTask ? -1 : 1;
@@ -39,7 +39,9 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
@@ -78,6 +80,13 @@ public class CompactionTaskManager implements IService {
 
   private final RateLimiter mergeWriteRateLimiter = RateLimiter.create(Double.MAX_VALUE);
 
+  private final RateLimiter mergeReadRateLimiter = RateLimiter.create(Double.MAX_VALUE);
+
+  // <fullStorageGroupName,taskSet>, the tasks that are waiting in the queue or running under each
+  // virtualStorageGroup, which are regarded as the compaction debt of the virtualStorageGroup
+  private final Map<String, Set<AbstractCompactionTask>> storageGroupPendingTasks =
+      new ConcurrentHashMap<>();
+
   public static CompactionTaskManager getInstance() {
     return INSTANCE;
   }
@@ -105,6 +114,7 @@ public class CompactionTaskManager implements IService {
           x ->
               CompactionMetricsManager.recordTaskInfo(
                   x, CompactionTaskStatus.POLL_FROM_QUEUE, candidateCompactionTaskQueue.size()));
+      candidateCompactionTaskQueue.regsitPollLastHook(this::removePendingTask);
 
       // Periodically do the following: fetch the highest priority thread from the
       // candidateCompactionTaskQueue, check that all tsfiles in the compaction task are valid, and
@@ -218,6 +228,7 @@ public class CompactionTaskManager implements IService {
       throws InterruptedException {
     if (!candidateCompactionTaskQueue.contains(compactionTask) && !isTaskRunning(compactionTask)) {
       compactionTask.setSourceFilesToCompactionCandidate();
+      addPendingTask(compactionTask);
       candidateCompactionTaskQueue.put(compactionTask);
 
       // add metrics
@@ -255,6 +266,8 @@ public class CompactionTaskManager implements IService {
           submitTask(task);
           CompactionMetricsManager.recordTaskInfo(
               task, CompactionTaskStatus.READY_TO_EXECUTE, currentTaskNum.get());
+        } else if (task != null) {
+          removePendingTask(task);
         }
       }
     } catch (InterruptedException e) {
@@ -263,19 +276,27 @@ public class CompactionTaskManager implements IService {
   }
 
   public RateLimiter getMergeWriteRateLimiter() {
-    setWriteMergeRate(
+    setMergeRate(
+        mergeWriteRateLimiter,
         IoTDBDescriptor.getInstance().getConfig().getCompactionWriteThroughputMbPerSec());
     return mergeWriteRateLimiter;
   }
 
-  private void setWriteMergeRate(final double throughoutMbPerSec) {
+  public RateLimiter getMergeReadRateLimiter() {
+    setMergeRate(
+        mergeReadRateLimiter,
+        IoTDBDescriptor.getInstance().getConfig().getCompactionReadThroughputMbPerSec());
+    return mergeReadRateLimiter;
+  }
+
+  private void setMergeRate(RateLimiter limiter, final double throughoutMbPerSec) {
     double throughout = throughoutMbPerSec * 1024.0 * 1024.0;
     // if throughout = 0, disable rate limiting
     if (throughout == 0) {
       throughout = Double.MAX_VALUE;
     }
-    if (mergeWriteRateLimiter.getRate() != throughout) {
-      mergeWriteRateLimiter.setRate(throughout);
+    if (limiter.getRate() != throughout) {
+      limiter.setRate(throughout);
     }
   }
   /** wait by throughoutMbPerSec limit to avoid continuous Write Or Read */
@@ -294,6 +315,7 @@ public class CompactionTaskManager implements IService {
     if (storageGroupTasks.containsKey(storageGroupName)) {
       storageGroupTasks.get(storageGroupName).remove(task);
     }
+    removePendingTask(task);
     // add metrics
     CompactionMetricsManager.recordTaskInfo(
         task, CompactionTaskStatus.FINISHED, currentTaskNum.get());
@@ -347,9 +369,30 @@ public class CompactionTaskManager implements IService {
     storageGroupTasks.remove(storageGroupName);
 
     candidateCompactionTaskQueue.clear();
+    // the waiting tasks of all the storage groups are dropped, only the running ones remain
+    storageGroupPendingTasks.clear();
+    for (Map<AbstractCompactionTask, Future<Void>> taskFutureMap : storageGroupTasks.values()) {
+      taskFutureMap.keySet().forEach(this::addPendingTask);
+    }
     return compactionTaskOfCurSG;
   }
 
+  private void addPendingTask(AbstractCompactionTask task) {
+    Set<AbstractCompactionTask> pendingTasks =
+        storageGroupPendingTasks.computeIfAbsent(
+            task.getFullStorageGroupName(), x -> ConcurrentHashMap.newKeySet());
+    pendingTasks.add(task);
+    CompactionMetricsManager.recordCompactionDebt(task.getFullStorageGroupName(), pendingTasks);
+  }
+
+  private void removePendingTask(AbstractCompactionTask task) {
+    Set<AbstractCompactionTask> pendingTasks =
+        storageGroupPendingTasks.get(task.getFullStorageGroupName());
+    if (pendingTasks != null && pendingTasks.remove(task)) {
+      CompactionMetricsManager.recordCompactionDebt(task.getFullStorageGroupName(), pendingTasks);
+    }
+  }
+
   public boolean isAnyTaskInListStillRunning(List<AbstractCompactionTask> compactionTasks) {
     boolean anyTaskRunning = false;
     for (AbstractCompactionTask task : compactionTasks) {
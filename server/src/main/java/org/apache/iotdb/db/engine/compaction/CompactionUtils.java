@@ -87,7 +87,7 @@ public class CompactionUtils {
       List<TsFileResource> targetFileResources)
       throws IOException, MetadataException, StorageEngineException, InterruptedException {
     long queryId = QueryResourceManager.getInstance().assignCompactionQueryId();
-    QueryContext queryContext = new QueryContext(queryId);
+    QueryContext queryContext = createQueryContext(queryId);
     QueryDataSource queryDataSource = new QueryDataSource(seqFileResources, unseqFileResources);
     QueryResourceManager.getInstance()
         .getQueryFileManager()
@@ -122,7 +122,16 @@ public class CompactionUtils {
     }
   }
 
-  private static void compactAlignedSeries(
+  /**
+   * The chunks read by the series readers of a compaction are throttled by the read rate limiter,
+   * like those read by the series compaction executors.
+   */
+  public static QueryContext createQueryContext(long queryId) {
+    return new QueryContext(queryId)
+        .setChunkReadRateLimiter(CompactionTaskManager.getInstance().getMergeReadRateLimiter());
+  }
+
+  public static void compactAlignedSeries(
       String device,
       MultiTsFileDeviceIterator deviceIterator,
       AbstractCompactionWriter compactionWriter,
@@ -275,7 +284,7 @@ public class CompactionUtils {
     }
   }
 
-  private static void updateDeviceStartTimeAndEndTime(
+  public static void updateDeviceStartTimeAndEndTime(
       List<TsFileResource> targetResources, AbstractCompactionWriter compactionWriter) {
     List<TsFileIOWriter> targetFileWriters = compactionWriter.getFileIOWriter();
     for (int i = 0; i < targetFileWriters.size(); i++) {
@@ -298,7 +307,7 @@ public class CompactionUtils {
     }
   }
 
-  private static void updatePlanIndexes(
+  public static void updatePlanIndexes(
       List<TsFileResource> targetResources,
       List<TsFileResource> seqResources,
       List<TsFileResource> unseqResources) {
@@ -429,7 +438,7 @@ public class CompactionUtils {
     }
   }
 
-  private static void checkThreadInterrupted(List<TsFileResource> tsFileResource)
+  public static void checkThreadInterrupted(List<TsFileResource> tsFileResource)
       throws InterruptedException {
     if (Thread.currentThread().isInterrupted()) {
       throw new InterruptedException(
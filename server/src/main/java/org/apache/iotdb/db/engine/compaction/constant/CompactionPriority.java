@@ -22,5 +22,6 @@ package org.apache.iotdb.db.engine.compaction.constant;
 public enum CompactionPriority {
   INNER_CROSS,
   CROSS_INNER,
-  BALANCE
+  BALANCE,
+  COST_BASED
 }
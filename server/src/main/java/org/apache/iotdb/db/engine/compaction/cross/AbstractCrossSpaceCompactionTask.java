@@ -25,6 +25,7 @@ import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
 
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class AbstractCrossSpaceCompactionTask extends AbstractCompactionTask {
@@ -50,6 +51,66 @@ public abstract class AbstractCrossSpaceCompactionTask extends AbstractCompactio
         x -> x.setStatus(TsFileResourceStatus.COMPACTION_CANDIDATE));
   }
 
+  @Override
+  public long getSelectedFileSize() {
+    long selectedFileSize = 0L;
+    for (TsFileResource resource : selectedSequenceFiles) {
+      selectedFileSize += resource.getTsFileSize();
+    }
+    for (TsFileResource resource : selectedUnsequenceFiles) {
+      selectedFileSize += resource.getTsFileSize();
+    }
+    return selectedFileSize;
+  }
+
+  /**
+   * Every selected unsequence file saves one file for the queries on each of its devices, and each
+   * selected sequence file overlapping it on the device saves a merge between the two files. If any
+   * time index has been degraded, the overlap is estimated with the file level time range.
+   */
+  @Override
+  protected long estimateBenefit() {
+    long benefit = 0;
+    for (TsFileResource unseqResource : selectedUnsequenceFiles) {
+      Set<String> devices = getDevicesInTimeIndex(unseqResource);
+      if (devices == null) {
+        benefit +=
+            1
+                + countOverlappedSeqFiles(
+                    unseqResource.getFileStartTime(), unseqResource.getFileEndTime(), null);
+        continue;
+      }
+      for (String device : devices) {
+        benefit +=
+            1
+                + countOverlappedSeqFiles(
+                    unseqResource.getStartTime(device), unseqResource.getEndTime(device), device);
+      }
+    }
+    return benefit;
+  }
+
+  private int countOverlappedSeqFiles(long startTime, long endTime, String device) {
+    int overlappedNum = 0;
+    for (TsFileResource seqResource : selectedSequenceFiles) {
+      long seqStartTime;
+      long seqEndTime;
+      if (device == null || getDevicesInTimeIndex(seqResource) == null) {
+        seqStartTime = seqResource.getFileStartTime();
+        seqEndTime = seqResource.getFileEndTime();
+      } else if (seqResource.isDeviceIdExist(device)) {
+        seqStartTime = seqResource.getStartTime(device);
+        seqEndTime = seqResource.getEndTime(device);
+      } else {
+        continue;
+      }
+      if (seqStartTime <= endTime && startTime <= seqEndTime) {
+        overlappedNum++;
+      }
+    }
+    return overlappedNum;
+  }
+
   public List<TsFileResource> getSelectedSequenceFiles() {
     return selectedSequenceFiles;
   }
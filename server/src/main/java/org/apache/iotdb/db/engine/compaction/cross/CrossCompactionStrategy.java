@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.engine.compaction.cross;
 
 import org.apache.iotdb.db.engine.compaction.CompactionTaskManager;
+import org.apache.iotdb.db.engine.compaction.cross.fast.FastCrossSpaceCompactionTask;
 import org.apache.iotdb.db.engine.compaction.cross.rewrite.RewriteCrossSpaceCompactionSelector;
 import org.apache.iotdb.db.engine.compaction.cross.rewrite.task.RewriteCrossSpaceCompactionTask;
 import org.apache.iotdb.db.engine.storagegroup.TsFileManager;
@@ -27,11 +28,14 @@ import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import java.util.List;
 
 public enum CrossCompactionStrategy {
-  REWRITE_COMPACTION;
+  REWRITE_COMPACTION,
+  FAST_COMPACTION;
 
   public static CrossCompactionStrategy getCrossCompactionStrategy(String name) {
     if ("REWRITE_COMPACTION".equalsIgnoreCase(name)) {
       return REWRITE_COMPACTION;
+    } else if ("FAST_COMPACTION".equalsIgnoreCase(name)) {
+      return FAST_COMPACTION;
     }
     throw new RuntimeException("Illegal Cross Compaction Strategy " + name);
   }
@@ -44,6 +48,15 @@ public enum CrossCompactionStrategy {
       List<TsFileResource> selectedSeqTsFileResourceList,
       List<TsFileResource> selectedUnSeqTsFileResourceList) {
     switch (this) {
+      case FAST_COMPACTION:
+        return new FastCrossSpaceCompactionTask(
+            logicalStorageGroupName,
+            virtualStorageGroupName,
+            timePartitionId,
+            tsFileManager,
+            selectedSeqTsFileResourceList,
+            selectedUnSeqTsFileResourceList,
+            CompactionTaskManager.currentTaskNum);
       case REWRITE_COMPACTION:
       default:
         return new RewriteCrossSpaceCompactionTask(
@@ -66,6 +79,7 @@ public enum CrossCompactionStrategy {
       CrossSpaceCompactionTaskFactory taskFactory) {
     switch (this) {
       case REWRITE_COMPACTION:
+      case FAST_COMPACTION:
       default:
         return new RewriteCrossSpaceCompactionSelector(
             logicalStorageGroupName,
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.cross.fast;
+
+import org.apache.iotdb.db.engine.compaction.cross.rewrite.task.RewriteCrossSpaceCompactionTask;
+import org.apache.iotdb.db.engine.storagegroup.TsFileManager;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cross space compaction task which only rewrites the pages of sequence files overlapped by
+ * unsequence data, see {@link FastCrossSpaceCompactionUtils}. The files are selected, logged,
+ * replaced and recovered in the same way as {@link RewriteCrossSpaceCompactionTask}.
+ */
+public class FastCrossSpaceCompactionTask extends RewriteCrossSpaceCompactionTask {
+
+  public FastCrossSpaceCompactionTask(
+      String logicalStorageGroupName,
+      String virtualStorageGroupName,
+      long timePartitionId,
+      TsFileManager tsFileManager,
+      List<TsFileResource> selectedSeqTsFileResourceList,
+      List<TsFileResource> selectedUnSeqTsFileResourceList,
+      AtomicInteger currentTaskNum) {
+    super(
+        logicalStorageGroupName,
+        virtualStorageGroupName,
+        timePartitionId,
+        tsFileManager,
+        selectedSeqTsFileResourceList,
+        selectedUnSeqTsFileResourceList,
+        currentTaskNum);
+  }
+
+  @Override
+  protected void compact(
+      List<TsFileResource> seqFileResources,
+      List<TsFileResource> unseqFileResources,
+      List<TsFileResource> targetFileResources)
+      throws IOException, MetadataException, StorageEngineException, InterruptedException {
+    FastCrossSpaceCompactionUtils.compact(
+        seqFileResources, unseqFileResources, targetFileResources);
+  }
+}
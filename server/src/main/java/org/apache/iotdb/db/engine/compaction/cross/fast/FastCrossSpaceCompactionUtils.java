@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.cross.fast;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.CompactionTaskManager;
+import org.apache.iotdb.db.engine.compaction.CompactionUtils;
+import org.apache.iotdb.db.engine.compaction.inner.utils.MultiTsFileDeviceIterator;
+import org.apache.iotdb.db.engine.compaction.writer.FastCrossSpaceCompactionWriter;
+import org.apache.iotdb.db.engine.modification.Modification;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.utils.QueryUtils;
+import org.apache.iotdb.tsfile.utils.Pair;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * This tool is used to perform fast cross space compaction. Different from {@link
+ * CompactionUtils#compact(List, List, List)}, which deserializes and rewrites all the points of the
+ * selected files, it uses the chunk and page metadata to find the pages of sequence files which
+ * overlap with unsequence data, only rewrites these pages and copies the other chunks and pages
+ * into the target files directly. Aligned series are still compacted by deserializing points.
+ */
+public class FastCrossSpaceCompactionUtils {
+  private static final Logger logger =
+      LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
+  private static final int subTaskNum =
+      IoTDBDescriptor.getInstance().getConfig().getSubCompactionTaskNum();
+
+  private FastCrossSpaceCompactionUtils() {}
+
+  public static void compact(
+      List<TsFileResource> seqFileResources,
+      List<TsFileResource> unseqFileResources,
+      List<TsFileResource> targetFileResources)
+      throws IOException, MetadataException, StorageEngineException, InterruptedException {
+    long queryId = QueryResourceManager.getInstance().assignCompactionQueryId();
+    QueryContext queryContext = CompactionUtils.createQueryContext(queryId);
+    QueryDataSource queryDataSource = new QueryDataSource(seqFileResources, unseqFileResources);
+    // the unsequence data of each series is read and merged by the series reader
+    QueryDataSource unseqDataSource =
+        new QueryDataSource(Collections.emptyList(), unseqFileResources);
+    QueryResourceManager.getInstance()
+        .getQueryFileManager()
+        .addUsedFilesForQuery(queryId, queryDataSource);
+    Map<TsFileResource, List<Modification>> modificationCache = new ConcurrentHashMap<>();
+
+    try (FastCrossSpaceCompactionWriter compactionWriter =
+        new FastCrossSpaceCompactionWriter(targetFileResources, seqFileResources)) {
+      // Do not close device iterator, because tsfile reader is managed by FileReaderManager.
+      MultiTsFileDeviceIterator deviceIterator =
+          new MultiTsFileDeviceIterator(seqFileResources, unseqFileResources);
+      while (deviceIterator.hasNextDevice()) {
+        CompactionUtils.checkThreadInterrupted(targetFileResources);
+        Pair<String, Boolean> deviceInfo = deviceIterator.nextDevice();
+        String device = deviceInfo.left;
+        boolean isAligned = deviceInfo.right;
+        QueryUtils.fillOrderIndexes(queryDataSource, device, true);
+        QueryUtils.fillOrderIndexes(unseqDataSource, device, true);
+
+        if (isAligned) {
+          CompactionUtils.compactAlignedSeries(
+              device, deviceIterator, compactionWriter, queryContext, queryDataSource);
+        } else {
+          compactNonAlignedSeries(
+              device,
+              deviceIterator,
+              compactionWriter,
+              seqFileResources,
+              modificationCache,
+              queryContext,
+              unseqDataSource);
+        }
+      }
+
+      compactionWriter.endFile();
+      CompactionUtils.updateDeviceStartTimeAndEndTime(targetFileResources, compactionWriter);
+      CompactionUtils.updatePlanIndexes(targetFileResources, seqFileResources, unseqFileResources);
+    } finally {
+      QueryResourceManager.getInstance().endQuery(queryId);
+    }
+  }
+
+  private static void compactNonAlignedSeries(
+      String device,
+      MultiTsFileDeviceIterator deviceIterator,
+      FastCrossSpaceCompactionWriter compactionWriter,
+      List<TsFileResource> seqFileResources,
+      Map<TsFileResource, List<Modification>> modificationCache,
+      QueryContext queryContext,
+      QueryDataSource unseqDataSource)
+      throws IOException, InterruptedException {
+    MultiTsFileDeviceIterator.MeasurementIterator measurementIterator =
+        deviceIterator.iterateNotAlignedSeries(device, false);
+    Set<String> allMeasurements = measurementIterator.getAllMeasurements();
+    int subTaskNums = Math.min(allMeasurements.size(), subTaskNum);
+
+    // assign all measurements to different sub tasks
+    Set<String>[] measurementsForEachSubTask = new HashSet[subTaskNums];
+    int idx = 0;
+    for (String measurement : allMeasurements) {
+      if (measurementsForEachSubTask[idx % subTaskNums] == null) {
+        measurementsForEachSubTask[idx % subTaskNums] = new HashSet<>();
+      }
+      measurementsForEachSubTask[idx++ % subTaskNums].add(measurement);
+    }
+
+    // construct sub tasks and start compacting measurements in parallel
+    List<Future<Void>> futures = new ArrayList<>();
+    compactionWriter.startChunkGroup(device, false);
+    for (int i = 0; i < subTaskNums; i++) {
+      futures.add(
+          CompactionTaskManager.getInstance()
+              .submitSubTask(
+                  new FastCrossSubCompactionTask(
+                      device,
+                      measurementsForEachSubTask[i],
+                      seqFileResources,
+                      modificationCache,
+                      queryContext,
+                      unseqDataSource,
+                      compactionWriter,
+                      i)));
+    }
+
+    // wait for all sub tasks finish
+    for (int i = 0; i < subTaskNums; i++) {
+      try {
+        futures.get(i).get();
+      } catch (InterruptedException | ExecutionException e) {
+        logger.error("FastCrossSubCompactionTask meet errors ", e);
+        Thread.interrupted();
+        throw new InterruptedException();
+      }
+    }
+
+    compactionWriter.endChunkGroup();
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.cross.fast;
+
+import org.apache.iotdb.commons.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.CompactionUtils;
+import org.apache.iotdb.db.engine.compaction.writer.FastCrossSpaceCompactionWriter;
+import org.apache.iotdb.db.engine.modification.Modification;
+import org.apache.iotdb.db.engine.modification.ModificationFile;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.metadata.PathNotExistException;
+import org.apache.iotdb.db.metadata.idtable.IDTableManager;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.service.IoTDB;
+import org.apache.iotdb.db.utils.QueryUtils;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.reader.IBatchReader;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * This class is used to compact the non-aligned measurements of one device in parallel in fast
+ * cross space compaction. The chunk metadata of each measurement in the sequence files is read
+ * directly, while the unsequence data is read through a series reader.
+ */
+public class FastCrossSubCompactionTask implements Callable<Void> {
+  private static final Logger logger =
+      LoggerFactory.getLogger(IoTDBConstant.COMPACTION_LOGGER_NAME);
+  private final String device;
+  private final Set<String> measurementList;
+  private final List<TsFileResource> seqFileResources;
+  private final Map<TsFileResource, List<Modification>> modificationCache;
+  private final QueryContext queryContext;
+  private final QueryDataSource unseqDataSource;
+  private final FastCrossSpaceCompactionWriter compactionWriter;
+  private final int taskId;
+
+  public FastCrossSubCompactionTask(
+      String device,
+      Set<String> measurementList,
+      List<TsFileResource> seqFileResources,
+      Map<TsFileResource, List<Modification>> modificationCache,
+      QueryContext queryContext,
+      QueryDataSource unseqDataSource,
+      FastCrossSpaceCompactionWriter compactionWriter,
+      int taskId) {
+    this.device = device;
+    this.measurementList = measurementList;
+    this.seqFileResources = seqFileResources;
+    this.modificationCache = modificationCache;
+    this.queryContext = queryContext;
+    this.unseqDataSource = unseqDataSource;
+    this.compactionWriter = compactionWriter;
+    this.taskId = taskId;
+  }
+
+  @Override
+  public Void call() throws Exception {
+    for (String measurement : measurementList) {
+      IMeasurementSchema measurementSchema;
+      try {
+        if (IoTDBDescriptor.getInstance().getConfig().isEnableIDTable()) {
+          measurementSchema = IDTableManager.getInstance().getSeriesSchema(device, measurement);
+        } else {
+          measurementSchema =
+              IoTDB.schemaProcessor.getSeriesSchema(new PartialPath(device, measurement));
+        }
+      } catch (PathNotExistException e) {
+        logger.info("A deleted path is skipped: {}", e.getMessage());
+        continue;
+      }
+
+      IBatchReader unseqReader =
+          CompactionUtils.constructReader(
+              device,
+              Collections.singletonList(measurement),
+              Collections.singletonList(measurementSchema),
+              measurementList,
+              queryContext,
+              unseqDataSource,
+              false);
+      new FastSeriesCompactionExecutor(
+              measurementSchema,
+              getSeqChunkMetadata(new PartialPath(device, measurement)),
+              unseqReader,
+              compactionWriter,
+              taskId)
+          .execute();
+    }
+    return null;
+  }
+
+  /**
+   * Collect the chunk metadata of the series in each sequence file, with the modifications of the
+   * series applied. Use `ChunkMetadata.getDeleteIntervalList() == null` to judge if the chunk is
+   * modified.
+   */
+  private List<Pair<TsFileSequenceReader, List<ChunkMetadata>>> getSeqChunkMetadata(
+      PartialPath seriesPath) throws Exception {
+    List<Pair<TsFileSequenceReader, List<ChunkMetadata>>> readerAndChunkMetadataList =
+        new ArrayList<>();
+    for (TsFileResource resource : seqFileResources) {
+      TsFileSequenceReader reader =
+          FileReaderManager.getInstance().get(resource.getTsFilePath(), true);
+      List<ChunkMetadata> chunkMetadataList =
+          new ArrayList<>(
+              reader.getChunkMetadataList(
+                  new Path(seriesPath.getDevice(), seriesPath.getMeasurement()), true));
+      if (!chunkMetadataList.isEmpty()) {
+        List<Modification> modificationForCurrentSeries = new ArrayList<>();
+        for (Modification modification :
+            modificationCache.computeIfAbsent(
+                resource,
+                r -> new ArrayList<>(ModificationFile.getNormalMods(r).getModifications()))) {
+          if (modification.getPath().matchFullPath(seriesPath)) {
+            modificationForCurrentSeries.add(modification);
+          }
+        }
+        if (!modificationForCurrentSeries.isEmpty()) {
+          QueryUtils.modifyChunkMetaData(chunkMetadataList, modificationForCurrentSeries);
+        }
+      }
+      readerAndChunkMetadataList.add(new Pair<>(reader, chunkMetadataList));
+    }
+    return readerAndChunkMetadataList;
+  }
+}
@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.cross.fast;
+
+import org.apache.iotdb.db.engine.compaction.CompactionMetricsManager;
+import org.apache.iotdb.db.engine.compaction.CompactionTaskManager;
+import org.apache.iotdb.db.engine.compaction.writer.FastCrossSpaceCompactionWriter;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.compress.IUnCompressor;
+import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
+import org.apache.iotdb.tsfile.file.MetaMarker;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.reader.IBatchReader;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
+import org.apache.iotdb.tsfile.read.reader.page.PageReader;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class is used to compact one non-aligned series in fast cross space compaction. The chunks
+ * of the sequence files are visited in time order together with the merged unsequence data of the
+ * series. A chunk which does not overlap with any unsequence point and is not modified is written
+ * into the target file directly, otherwise its pages are checked one by one and only the overlapped
+ * or modified pages are deserialized and rewritten.
+ */
+public class FastSeriesCompactionExecutor {
+  private final IMeasurementSchema schema;
+  // sequence readers and the chunk metadata of this series in them, in the order of seq files
+  private final List<Pair<TsFileSequenceReader, List<ChunkMetadata>>> seqReaderAndChunkMetadata;
+  // the merged unsequence data of this series
+  private final IBatchReader unseqReader;
+  private final FastCrossSpaceCompactionWriter compactionWriter;
+  private final int subTaskId;
+
+  private final Decoder timeDecoder =
+      Decoder.getDecoderByType(
+          TSEncoding.valueOf(TSFileDescriptor.getInstance().getConfig().getTimeEncoder()),
+          TSDataType.INT64);
+
+  private BatchData unseqBatchData;
+
+  public FastSeriesCompactionExecutor(
+      IMeasurementSchema schema,
+      List<Pair<TsFileSequenceReader, List<ChunkMetadata>>> seqReaderAndChunkMetadata,
+      IBatchReader unseqReader,
+      FastCrossSpaceCompactionWriter compactionWriter,
+      int subTaskId) {
+    this.schema = schema;
+    this.seqReaderAndChunkMetadata = seqReaderAndChunkMetadata;
+    this.unseqReader = unseqReader;
+    this.compactionWriter = compactionWriter;
+    this.subTaskId = subTaskId;
+  }
+
+  public void execute() throws IOException {
+    boolean hasSeqData = false;
+    for (Pair<TsFileSequenceReader, List<ChunkMetadata>> readerAndChunkMetadata :
+        seqReaderAndChunkMetadata) {
+      hasSeqData = hasSeqData || !readerAndChunkMetadata.right.isEmpty();
+    }
+    if (!hasSeqData && !hasNextUnseqPoint()) {
+      return;
+    }
+
+    compactionWriter.startMeasurement(Collections.singletonList(schema), subTaskId);
+    for (Pair<TsFileSequenceReader, List<ChunkMetadata>> readerAndChunkMetadata :
+        seqReaderAndChunkMetadata) {
+      TsFileSequenceReader reader = readerAndChunkMetadata.left;
+      for (ChunkMetadata chunkMetadata : readerAndChunkMetadata.right) {
+        Chunk chunk = reader.readMemChunk(chunkMetadata);
+        long readBytes = chunk.getHeader().getSerializedSize() + chunk.getHeader().getDataSize();
+        CompactionTaskManager.mergeRateLimiterAcquire(
+            CompactionTaskManager.getInstance().getMergeReadRateLimiter(), readBytes);
+        CompactionMetricsManager.recordReadInfo(readBytes);
+        compactChunk(chunk, chunkMetadata);
+      }
+    }
+    // the remaining unsequence points are later than all the sequence data
+    writeUnseqPointsBefore(Long.MAX_VALUE, true);
+    compactionWriter.endMeasurement(subTaskId);
+  }
+
+  private void compactChunk(Chunk chunk, ChunkMetadata chunkMetadata) throws IOException {
+    writeUnseqPointsBefore(chunkMetadata.getStartTime(), false);
+    if (!isCompatible(chunk.getHeader())) {
+      // the pages cannot be reused by the chunk writer, deserialize the whole chunk
+      compactChunkByPoint(chunk);
+      return;
+    }
+    if (chunkMetadata.getDeleteIntervalList() == null
+        && !isOverlappedWithUnseq(chunkMetadata.getEndTime())) {
+      compactionWriter.writeChunk(chunk, chunkMetadata, subTaskId);
+      return;
+    }
+
+    ChunkHeader chunkHeader = chunk.getHeader();
+    ByteBuffer chunkData = chunk.getData();
+    boolean isOnlyOnePageChunk =
+        ((byte) (chunkHeader.getChunkType() & 0x3F)) == MetaMarker.ONLY_ONE_PAGE_CHUNK_HEADER;
+    while (chunkData.remaining() > 0) {
+      PageHeader pageHeader =
+          isOnlyOnePageChunk
+              ? PageHeader.deserializeFrom(chunkData, chunk.getChunkStatistic())
+              : PageHeader.deserializeFrom(chunkData, chunkHeader.getDataType());
+      ByteBuffer compressedPageData = chunkData.slice();
+      compressedPageData.limit(pageHeader.getCompressedSize());
+      chunkData.position(chunkData.position() + pageHeader.getCompressedSize());
+
+      writeUnseqPointsBefore(pageHeader.getStartTime(), false);
+      if (!isModified(pageHeader, chunk.getDeleteIntervalList())
+          && !isOverlappedWithUnseq(pageHeader.getEndTime())) {
+        compactionWriter.writePage(pageHeader, compressedPageData, subTaskId);
+      } else {
+        BatchData pageData =
+            readPageData(
+                pageHeader, compressedPageData, chunkHeader, chunk.getDeleteIntervalList());
+        mergeWithUnseq(pageData);
+      }
+    }
+  }
+
+  private void compactChunkByPoint(Chunk chunk) throws IOException {
+    ChunkReader chunkReader = new ChunkReader(chunk, null);
+    while (chunkReader.hasNextSatisfiedPage()) {
+      mergeWithUnseq(chunkReader.nextPageData());
+    }
+  }
+
+  /**
+   * Merge the deserialized sequence points with the unsequence points. If a sequence point and an
+   * unsequence point have the same timestamp, the unsequence one is kept. The unsequence points
+   * later than the last sequence point are left to the next chunk or page.
+   */
+  private void mergeWithUnseq(BatchData seqData) throws IOException {
+    while (seqData.hasCurrent()) {
+      long time = seqData.currentTime();
+      writeUnseqPointsBefore(time, false);
+      if (hasNextUnseqPoint() && unseqBatchData.currentTime() == time) {
+        compactionWriter.write(time, unseqBatchData.currentValue(), subTaskId);
+        unseqBatchData.next();
+      } else {
+        compactionWriter.write(time, seqData.currentValue(), subTaskId);
+      }
+      seqData.next();
+    }
+  }
+
+  private void writeUnseqPointsBefore(long time, boolean inclusive) throws IOException {
+    while (hasNextUnseqPoint()
+        && (unseqBatchData.currentTime() < time
+            || (inclusive && unseqBatchData.currentTime() == time))) {
+      compactionWriter.write(
+          unseqBatchData.currentTime(), unseqBatchData.currentValue(), subTaskId);
+      unseqBatchData.next();
+    }
+  }
+
+  private boolean hasNextUnseqPoint() throws IOException {
+    while (unseqBatchData == null || !unseqBatchData.hasCurrent()) {
+      if (!unseqReader.hasNextBatch()) {
+        return false;
+      }
+      unseqBatchData = unseqReader.nextBatch();
+    }
+    return true;
+  }
+
+  /** all the unsequence points before the start time of chunk or page have been written */
+  private boolean isOverlappedWithUnseq(long endTime) throws IOException {
+    return hasNextUnseqPoint() && unseqBatchData.currentTime() <= endTime;
+  }
+
+  private boolean isModified(PageHeader pageHeader, List<TimeRange> deleteIntervalList) {
+    if (deleteIntervalList == null) {
+      return false;
+    }
+    for (TimeRange range : deleteIntervalList) {
+      if (range.overlaps(new TimeRange(pageHeader.getStartTime(), pageHeader.getEndTime()))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean isCompatible(ChunkHeader chunkHeader) {
+    return chunkHeader.getDataType() == schema.getType()
+        && chunkHeader.getEncodingType() == schema.getEncodingType()
+        && chunkHeader.getCompressionType() == schema.getCompressor();
+  }
+
+  private BatchData readPageData(
+      PageHeader pageHeader,
+      ByteBuffer compressedPageData,
+      ChunkHeader chunkHeader,
+      List<TimeRange> deleteIntervalList)
+      throws IOException {
+    IUnCompressor unCompressor = IUnCompressor.getUnCompressor(chunkHeader.getCompressionType());
+    byte[] compressedPageBody = new byte[pageHeader.getCompressedSize()];
+    compressedPageData.duplicate().get(compressedPageBody);
+    byte[] uncompressedPageData = new byte[pageHeader.getUncompressedSize()];
+    unCompressor.uncompress(
+        compressedPageBody, 0, compressedPageBody.length, uncompressedPageData, 0);
+
+    Decoder valueDecoder =
+        Decoder.getDecoderByType(chunkHeader.getEncodingType(), chunkHeader.getDataType());
+    timeDecoder.reset();
+    PageReader pageReader =
+        new PageReader(
+            pageHeader,
+            ByteBuffer.wrap(uncompressedPageData),
+            chunkHeader.getDataType(),
+            valueDecoder,
+            timeDecoder,
+            null);
+    pageReader.setDeleteIntervalList(deleteIntervalList);
+    return pageReader.getAllSatisfiedPageData();
+  }
+}
@@ -144,7 +144,7 @@ public class RewriteCrossSpaceCompactionTask extends AbstractCrossSpaceCompactio
       // restart recovery
       compactionLogger.close();
 
-      CompactionUtils.compact(
+      compact(
           selectedSeqTsFileResourceList, selectedUnSeqTsFileResourceList, targetTsfileResourceList);
 
       checkInterrupted();
@@ -181,6 +181,15 @@ public class RewriteCrossSpaceCompactionTask extends AbstractCrossSpaceCompactio
     }
   }
 
+  /** Compact the selected source files into the target files. */
+  protected void compact(
+      List<TsFileResource> seqFileResources,
+      List<TsFileResource> unseqFileResources,
+      List<TsFileResource> targetFileResources)
+      throws IOException, MetadataException, StorageEngineException, InterruptedException {
+    CompactionUtils.compact(seqFileResources, unseqFileResources, targetFileResources);
+  }
+
   private boolean addReadLock(List<TsFileResource> tsFileResourceList) {
     for (TsFileResource tsFileResource : tsFileResourceList) {
       tsFileResource.readLock();
@@ -30,7 +30,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class AbstractInnerSpaceCompactionTask extends AbstractCompactionTask {
@@ -103,10 +106,38 @@ public abstract class AbstractInnerSpaceCompactionTask extends AbstractCompactio
     return sequence;
   }
 
+  @Override
   public long getSelectedFileSize() {
     return selectedFileSize;
   }
 
+  /**
+   * A query on a device has to read every selected file containing the device before this task, and
+   * only the target file after it. If any time index has been degraded, every query is assumed to
+   * touch all the selected files.
+   */
+  @Override
+  protected long estimateBenefit() {
+    if (selectedTsFileResourceList == null || selectedTsFileResourceList.isEmpty()) {
+      return 0;
+    }
+    Map<String, Integer> deviceFileNum = new HashMap<>();
+    for (TsFileResource resource : selectedTsFileResourceList) {
+      Set<String> devices = getDevicesInTimeIndex(resource);
+      if (devices == null) {
+        return selectedTsFileResourceList.size() - 1L;
+      }
+      for (String device : devices) {
+        deviceFileNum.merge(device, 1, Integer::sum);
+      }
+    }
+    long benefit = 0;
+    for (int fileNum : deviceFileNum.values()) {
+      benefit += fileNum - 1;
+    }
+    return benefit;
+  }
+
   public int getSumOfCompactionCount() {
     return sumOfCompactionCount;
   }
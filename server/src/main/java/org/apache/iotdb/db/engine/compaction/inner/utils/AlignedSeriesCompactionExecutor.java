@@ -120,6 +120,9 @@ public class AlignedSeriesCompactionExecutor {
           new TsFileAlignedSeriesReaderIterator(reader, alignedChunkMetadataList, schemaList);
       while (readerIterator.hasNext()) {
         Pair<AlignedChunkReader, Long> chunkReaderAndChunkSize = readerIterator.nextReader();
+        CompactionTaskManager.mergeRateLimiterAcquire(
+            CompactionTaskManager.getInstance().getMergeReadRateLimiter(),
+            chunkReaderAndChunkSize.right);
         CompactionMetricsManager.recordReadInfo(chunkReaderAndChunkSize.right);
         compactOneAlignedChunk(chunkReaderAndChunkSize.left);
       }
@@ -256,6 +256,7 @@ public class InnerSpaceCompactionUtils {
         IoTDBDescriptor.getInstance().getConfig().getCrossCompactionStrategy();
     switch (strategy) {
       case REWRITE_COMPACTION:
+      case FAST_COMPACTION:
         return new RewriteCompactionFileSelector(resource, budget);
       default:
         throw new UnsupportedOperationException("Unknown CrossSpaceFileStrategy " + strategy);
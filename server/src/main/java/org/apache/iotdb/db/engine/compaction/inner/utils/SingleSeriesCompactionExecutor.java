@@ -101,8 +101,11 @@ public class SingleSeriesCompactionExecutor {
       List<ChunkMetadata> chunkMetadataList = readerListPair.right;
       for (ChunkMetadata chunkMetadata : chunkMetadataList) {
         Chunk currentChunk = reader.readMemChunk(chunkMetadata);
-        CompactionMetricsManager.recordReadInfo(
-            currentChunk.getHeader().getSerializedSize() + currentChunk.getHeader().getDataSize());
+        long readBytes =
+            currentChunk.getHeader().getSerializedSize() + currentChunk.getHeader().getDataSize();
+        CompactionTaskManager.mergeRateLimiterAcquire(
+            CompactionTaskManager.getInstance().getMergeReadRateLimiter(), readBytes);
+        CompactionMetricsManager.recordReadInfo(readBytes);
 
         // if this chunk is modified, deserialize it into points
         if (chunkMetadata.getDeleteIntervalList() != null) {
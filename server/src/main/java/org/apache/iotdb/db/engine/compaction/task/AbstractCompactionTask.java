@@ -22,10 +22,13 @@ package org.apache.iotdb.db.engine.compaction.task;
 import org.apache.iotdb.commons.conf.IoTDBConstant;
 import org.apache.iotdb.db.engine.compaction.CompactionTaskManager;
 import org.apache.iotdb.db.engine.storagegroup.TsFileManager;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.timeindex.TimeIndexLevel;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -45,6 +48,8 @@ public abstract class AbstractCompactionTask implements Callable<Void> {
   protected long timeCost = 0L;
   protected volatile boolean ran = false;
   protected volatile boolean finished = false;
+  // lazily computed by getBenefitCostRatio, a negative value means not computed yet
+  private double benefitCostRatio = -1;
 
   public AbstractCompactionTask(
       String fullStorageGroupName,
@@ -59,6 +64,48 @@ public abstract class AbstractCompactionTask implements Callable<Void> {
 
   public abstract void setSourceFilesToCompactionCandidate();
 
+  /** @return the total size of the selected source files */
+  public abstract long getSelectedFileSize();
+
+  /**
+   * Estimate how many overlapping files the queries will no longer need to read after this task
+   * finishes. The estimation is based on the time indexes of the selected files and does not read
+   * any file.
+   */
+  protected abstract long estimateBenefit();
+
+  /**
+   * Estimate the I/O cost of this task in bytes. Every selected file is read once, and the target
+   * files are about as large as the source files.
+   */
+  protected long estimateCost() {
+    long selectedFileSize = getSelectedFileSize();
+    return selectedFileSize + selectedFileSize;
+  }
+
+  /**
+   * The benefit per MB of I/O of this task, used to order tasks when the compaction priority is
+   * COST_BASED. Every task costs at least 1 MB so that tiny tasks do not dominate the queue.
+   */
+  public double getBenefitCostRatio() {
+    if (benefitCostRatio < 0) {
+      double costInMB = Math.max(1.0, estimateCost() / 1024.0 / 1024.0);
+      benefitCostRatio = estimateBenefit() / costInMB;
+    }
+    return benefitCostRatio;
+  }
+
+  /**
+   * Get the devices of a file from its time index. Returns null if the time index has been degraded
+   * to a file time index, because getting the devices then requires reading the file.
+   */
+  protected static Set<String> getDevicesInTimeIndex(TsFileResource resource) {
+    if (TimeIndexLevel.valueOf(resource.getTimeIndexType()) != TimeIndexLevel.DEVICE_TIME_INDEX) {
+      return null;
+    }
+    return resource.getDevices();
+  }
+
   protected abstract void doCompaction() throws Exception;
 
   @Override
@@ -30,23 +30,23 @@ import java.util.Map;
 
 public class CrossSpaceCompactionWriter extends AbstractCompactionWriter {
   // target fileIOWriters
-  private List<TsFileIOWriter> fileWriterList = new ArrayList<>();
+  protected List<TsFileIOWriter> fileWriterList = new ArrayList<>();
 
   // source tsfiles
   private List<TsFileResource> seqTsFileResources;
 
   // Each sub task has its corresponding seq file index.
   // The index of the array corresponds to subTaskId.
-  private int[] seqFileIndexArray = new int[subTaskNum];
+  protected int[] seqFileIndexArray = new int[subTaskNum];
 
   // device end time in each source seq file
   private final long[] currentDeviceEndTime;
 
   // whether each target file is empty or not
-  private final boolean[] isEmptyFile;
+  protected final boolean[] isEmptyFile;
 
   // whether each target file has device data or not
-  private final boolean[] isDeviceExistedInTargetFiles;
+  protected final boolean[] isDeviceExistedInTargetFiles;
 
   // current chunk group header size
   private int chunkGroupHeaderSize;
@@ -134,7 +134,7 @@ public class CrossSpaceCompactionWriter extends AbstractCompactionWriter {
     return fileWriterList;
   }
 
-  private void checkTimeAndMayFlushChunkToCurrentFile(long timestamp, int subTaskId)
+  protected void checkTimeAndMayFlushChunkToCurrentFile(long timestamp, int subTaskId)
       throws IOException {
     int fileIndex = seqFileIndexArray[subTaskId];
     // if timestamp is later than the current source seq tsfile, than flush chunk writer
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.writer;
+
+import org.apache.iotdb.db.engine.compaction.CompactionMetricsManager;
+import org.apache.iotdb.db.engine.compaction.constant.CompactionType;
+import org.apache.iotdb.db.engine.compaction.constant.ProcessChunkType;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.tsfile.exception.write.PageException;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.write.chunk.ChunkWriterImpl;
+import org.apache.iotdb.tsfile.write.writer.TsFileIOWriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Cross space compaction writer which, besides writing points, can append a whole chunk or a
+ * compressed page of a source sequence file to the target file without decoding it. It is only used
+ * for non-aligned series.
+ */
+public class FastCrossSpaceCompactionWriter extends CrossSpaceCompactionWriter {
+
+  public FastCrossSpaceCompactionWriter(
+      List<TsFileResource> targetResources, List<TsFileResource> seqFileResources)
+      throws IOException {
+    super(targetResources, seqFileResources);
+  }
+
+  /**
+   * Flush the points remaining in the chunk writer of this sub task, then write the chunk into the
+   * target file directly.
+   */
+  public void writeChunk(Chunk chunk, ChunkMetadata chunkMetadata, int subTaskId)
+      throws IOException {
+    checkTimeAndMayFlushChunkToCurrentFile(chunkMetadata.getStartTime(), subTaskId);
+    int fileIndex = seqFileIndexArray[subTaskId];
+    TsFileIOWriter targetWriter = fileWriterList.get(fileIndex);
+    flushChunkToFileWriter(targetWriter, subTaskId);
+    measurementPointCountArray[subTaskId] = 0;
+
+    long chunkSize = chunk.getHeader().getSerializedSize() + chunk.getHeader().getDataSize();
+    writeRateLimit(chunkSize);
+    synchronized (targetWriter) {
+      targetWriter.writeChunk(chunk, chunkMetadata);
+    }
+    CompactionMetricsManager.recordWriteInfo(
+        CompactionType.CROSS_COMPACTION, ProcessChunkType.FLUSH_CHUNK, false, chunkSize);
+    isDeviceExistedInTargetFiles[fileIndex] = true;
+    isEmptyFile[fileIndex] = false;
+  }
+
+  /**
+   * Seal the current page of the chunk writer of this sub task, then append the compressed page to
+   * the chunk writer directly. The encoding and compression of the page must be the same as the
+   * chunk writer.
+   */
+  public void writePage(PageHeader pageHeader, ByteBuffer compressedPageData, int subTaskId)
+      throws IOException {
+    checkTimeAndMayFlushChunkToCurrentFile(pageHeader.getStartTime(), subTaskId);
+    int fileIndex = seqFileIndexArray[subTaskId];
+    ChunkWriterImpl chunkWriter = (ChunkWriterImpl) chunkWriters[subTaskId];
+    chunkWriter.sealCurrentPage();
+    try {
+      chunkWriter.writePageHeaderAndDataIntoBuff(compressedPageData, pageHeader);
+    } catch (PageException e) {
+      throw new IOException(e);
+    }
+    measurementPointCountArray[subTaskId] += pageHeader.getNumOfValues();
+    isDeviceExistedInTargetFiles[fileIndex] = true;
+    isEmptyFile[fileIndex] = false;
+
+    if (checkChunkSize(subTaskId)) {
+      long chunkSize = chunkWriter.estimateMaxSeriesMemSize();
+      flushChunkToFileWriter(fileWriterList.get(fileIndex), subTaskId);
+      measurementPointCountArray[subTaskId] = 0;
+      CompactionMetricsManager.recordWriteInfo(
+          CompactionType.CROSS_COMPACTION, ProcessChunkType.MERGE_CHUNK, false, chunkSize);
+    }
+  }
+}
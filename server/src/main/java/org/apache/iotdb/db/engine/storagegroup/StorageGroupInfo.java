@@ -28,6 +28,7 @@ import java.nio.MappedByteBuffer;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -38,9 +39,10 @@ public class StorageGroupInfo {
 
   /**
    * The total Storage group memory cost, including unsealed TsFileResource, ChunkMetadata, WAL,
-   * primitive arrays and TEXT values
+   * primitive arrays and TEXT values. It is striped so that concurrent writers do not contend on
+   * one counter.
    */
-  private AtomicLong memoryCost;
+  private LongAdder memoryCost;
 
   /** The threshold of reporting it's size to SystemInfo */
   private long storageGroupSizeReportThreshold =
@@ -53,7 +55,7 @@ public class StorageGroupInfo {
 
   public StorageGroupInfo(VirtualStorageGroupProcessor virtualStorageGroupProcessor) {
     this.virtualStorageGroupProcessor = virtualStorageGroupProcessor;
-    memoryCost = new AtomicLong();
+    memoryCost = new LongAdder();
   }
 
   public VirtualStorageGroupProcessor getVirtualStorageGroupProcessor() {
@@ -66,15 +68,15 @@ public class StorageGroupInfo {
   }
 
   public void addStorageGroupMemCost(long cost) {
-    memoryCost.getAndAdd(cost);
+    memoryCost.add(cost);
   }
 
   public void releaseStorageGroupMemCost(long cost) {
-    memoryCost.getAndAdd(-cost);
+    memoryCost.add(-cost);
   }
 
   public long getMemCost() {
-    return memoryCost.get();
+    return memoryCost.sum();
   }
 
   public List<TsFileProcessor> getAllReportedTsp() {
@@ -82,13 +84,17 @@ public class StorageGroupInfo {
   }
 
   public boolean needToReportToSystem() {
-    return memoryCost.get() - lastReportedSize.get() > storageGroupSizeReportThreshold;
+    return memoryCost.sum() - lastReportedSize.get() > storageGroupSizeReportThreshold;
   }
 
   public void setLastReportedSize(long size) {
     lastReportedSize.set(size);
   }
 
+  public long getAndSetLastReportedSize(long size) {
+    return lastReportedSize.getAndSet(size);
+  }
+
   /**
    * When a TsFileProcessor is closing, remove it from reportedTsps, and report to systemInfo to
    * update SG cost.
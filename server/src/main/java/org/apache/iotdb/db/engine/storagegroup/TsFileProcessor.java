@@ -84,6 +84,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 @SuppressWarnings("java:S1135") // ignore todos
@@ -127,6 +128,8 @@ public class TsFileProcessor {
 
   /** a lock to mutual exclude query and query */
   private final ReadWriteLock flushQueryLock = new ReentrantReadWriteLock();
+  /** serializes the insertions into this processor under concurrent insertion */
+  private final ReentrantLock insertMutex = new ReentrantLock();
   /**
    * It is set by the StorageGroupProcessor and checked by flush threads. (If shouldClose == true
    * and its flushingMemTables are all flushed, then the flush thread will close this file.)
@@ -201,6 +204,20 @@ public class TsFileProcessor {
     closeFileListeners.add(closeUnsealedTsFileProcessor);
   }
 
+  /**
+   * Exclude other insertions into this processor. It is only needed when the storage group lets
+   * insertions into different TsFileProcessors run concurrently, otherwise the insert lock of the
+   * storage group already does this. Flushes and queries do not take this lock, they are only
+   * excluded by flushQueryLock while the working memtable is actually written.
+   */
+  public void insertLock() {
+    insertMutex.lock();
+  }
+
+  public void insertUnlock() {
+    insertMutex.unlock();
+  }
+
   /**
    * insert data in an InsertRowPlan into the workingMemtable.
    *
@@ -241,10 +258,15 @@ public class TsFileProcessor {
       }
     }
 
-    if (insertRowPlan.isAligned()) {
-      workMemTable.insertAlignedRow(insertRowPlan);
-    } else {
-      workMemTable.insert(insertRowPlan);
+    flushQueryLock.writeLock().lock();
+    try {
+      if (insertRowPlan.isAligned()) {
+        workMemTable.insertAlignedRow(insertRowPlan);
+      } else {
+        workMemTable.insert(insertRowPlan);
+      }
+    } finally {
+      flushQueryLock.writeLock().unlock();
     }
 
     // update start time of this memtable
@@ -299,10 +321,15 @@ public class TsFileProcessor {
       }
     }
 
-    if (insertRowNode.isAligned()) {
-      workMemTable.insertAlignedRow(insertRowNode);
-    } else {
-      workMemTable.insert(insertRowNode);
+    flushQueryLock.writeLock().lock();
+    try {
+      if (insertRowNode.isAligned()) {
+        workMemTable.insertAlignedRow(insertRowNode);
+      } else {
+        workMemTable.insert(insertRowNode);
+      }
+    } finally {
+      flushQueryLock.writeLock().unlock();
     }
 
     // update start time of this memtable
@@ -372,6 +399,7 @@ public class TsFileProcessor {
       throw new WriteProcessException(e);
     }
 
+    flushQueryLock.writeLock().lock();
     try {
       if (insertTabletPlan.isAligned()) {
         workMemTable.insertAlignedTablet(insertTabletPlan, start, end);
@@ -383,6 +411,8 @@ public class TsFileProcessor {
         results[i] = RpcUtils.getStatus(TSStatusCode.INTERNAL_SERVER_ERROR, e.getMessage());
       }
       throw new WriteProcessException(e);
+    } finally {
+      flushQueryLock.writeLock().unlock();
     }
 
     for (int i = start; i < end; i++) {
@@ -457,6 +487,7 @@ public class TsFileProcessor {
       throw new WriteProcessException(e);
     }
 
+    flushQueryLock.writeLock().lock();
     try {
       if (insertTabletNode.isAligned()) {
         workMemTable.insertAlignedTablet(insertTabletNode, start, end);
@@ -468,6 +499,8 @@ public class TsFileProcessor {
         results[i] = RpcUtils.getStatus(TSStatusCode.INTERNAL_SERVER_ERROR, e.getMessage());
       }
       throw new WriteProcessException(e);
+    } finally {
+      flushQueryLock.writeLock().unlock();
     }
 
     for (int i = start; i < end; i++) {
@@ -814,7 +847,11 @@ public class TsFileProcessor {
     tsFileProcessorInfo.addTSPMemCost(chunkMetadataIncrement);
     if (storageGroupInfo.needToReportToSystem()) {
       try {
-        if (!SystemInfo.getInstance().reportStorageGroupStatus(storageGroupInfo, this)) {
+        // a concurrent insertion holds the read lock of the storage group, which the flushes
+        // selected to release memory wait for, so it must not wait here. It has already waited
+        // in the StorageEngine before taking any lock.
+        if (!SystemInfo.getInstance().reportStorageGroupStatus(storageGroupInfo, this)
+            && !insertMutex.isHeldByCurrentThread()) {
           StorageEngine.blockInsertionIfReject(this);
         }
       } catch (WriteProcessRejectException e) {
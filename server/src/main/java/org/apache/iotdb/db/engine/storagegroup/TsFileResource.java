@@ -61,6 +61,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.apache.iotdb.commons.conf.IoTDBConstant.FILE_NAME_SEPARATOR;
 import static org.apache.iotdb.db.engine.storagegroup.TsFileNameGenerator.getTsFileName;
@@ -99,6 +100,9 @@ public class TsFileResource {
 
   private ModificationFile compactionModFile;
 
+  /** increased whenever a deletion is written into the mods of this file */
+  private final AtomicLong modificationVersion = new AtomicLong();
+
   protected volatile TsFileResourceStatus status = TsFileResourceStatus.UNCLOSED;
 
   private TsFileLock tsFileLock = new TsFileLock();
@@ -346,6 +350,14 @@ public class TsFileResource {
     return modFile;
   }
 
+  public long getModificationVersion() {
+    return modificationVersion.get();
+  }
+
+  public void increaseModificationVersion() {
+    modificationVersion.incrementAndGet();
+  }
+
   public ModificationFile getCompactionModFile() {
     if (compactionModFile == null) {
       synchronized (this) {
@@ -116,6 +116,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -173,6 +174,19 @@ public class VirtualStorageGroupProcessor {
    * partitionLatestFlushedTimeForEachDevice)
    */
   private final ReadWriteLock insertLock = new ReentrantReadWriteLock();
+  /**
+   * whether insertions only share the read lock of insertLock and are serialized per
+   * TsFileProcessor instead. The id table is not safe for concurrent updates, so it is exclusive.
+   */
+  private final boolean concurrentInsert =
+      config.isEnableConcurrentInsert() && !config.isEnableIDTable();
+  /** guards creating working TsFileProcessors when insertions share the insert lock */
+  private final Object tsFileProcessorCreationLock = new Object();
+  /**
+   * working TsFileProcessors that reached their flush threshold during concurrent insertions, they
+   * are flushed once the inserting thread has released the read lock
+   */
+  private final Set<TsFileProcessor> tsFileProcessorsToFlush = ConcurrentHashMap.newKeySet();
   /** closeStorageGroupCondition is used to wait for all currently closing TsFiles to be done. */
   private final Object closeStorageGroupCondition = new Object();
   /**
@@ -891,7 +905,7 @@ public class VirtualStorageGroupProcessor {
     if (!isAlive(insertRowPlan.getTime())) {
       throw new OutOfTTLException(insertRowPlan.getTime(), (System.currentTimeMillis() - dataTTL));
     }
-    writeLock("InsertRow");
+    lockForInsert("InsertRow");
     try {
       // init map
       long timePartitionId = StorageEngine.getTimePartition(insertRowPlan.getTime());
@@ -918,7 +932,7 @@ public class VirtualStorageGroupProcessor {
       // fire trigger after insertion
       TriggerEngine.fire(TriggerEvent.AFTER_INSERT, insertRowPlan);
     } finally {
-      writeUnlock();
+      unlockForInsert();
     }
   }
 
@@ -929,7 +943,7 @@ public class VirtualStorageGroupProcessor {
     if (!isAlive(insertRowNode.getTime())) {
       throw new OutOfTTLException(insertRowNode.getTime(), (System.currentTimeMillis() - dataTTL));
     }
-    writeLock("InsertRow");
+    lockForInsert("InsertRow");
     try {
       // init map
       long timePartitionId = StorageEngine.getTimePartition(insertRowNode.getTime());
@@ -956,7 +970,7 @@ public class VirtualStorageGroupProcessor {
       // fire trigger after insertion
       // TriggerEngine.fire(TriggerEvent.AFTER_INSERT, insertRowNode);
     } finally {
-      writeUnlock();
+      unlockForInsert();
     }
   }
 
@@ -969,7 +983,7 @@ public class VirtualStorageGroupProcessor {
   public void insertTablet(InsertTabletPlan insertTabletPlan)
       throws BatchProcessException, TriggerExecutionException {
 
-    writeLock("insertTablet");
+    lockForInsert("insertTablet");
     try {
       TSStatus[] results = new TSStatus[insertTabletPlan.getRowCount()];
       Arrays.fill(results, RpcUtils.SUCCESS_STATUS);
@@ -1075,7 +1089,7 @@ public class VirtualStorageGroupProcessor {
       // fire trigger after insertion
       TriggerEngine.fire(TriggerEvent.AFTER_INSERT, insertTabletPlan, firePosition);
     } finally {
-      writeUnlock();
+      unlockForInsert();
     }
   }
 
@@ -1088,7 +1102,7 @@ public class VirtualStorageGroupProcessor {
   public void insertTablet(InsertTabletNode insertTabletNode)
       throws BatchProcessException, TriggerExecutionException {
 
-    writeLock("insertTablet");
+    lockForInsert("insertTablet");
     try {
       TSStatus[] results = new TSStatus[insertTabletNode.getRowCount()];
       Arrays.fill(results, RpcUtils.SUCCESS_STATUS);
@@ -1171,7 +1185,7 @@ public class VirtualStorageGroupProcessor {
       //      TODO: trigger // fire trigger after insertion
       //      TriggerEngine.fire(TriggerEvent.AFTER_INSERT, insertTabletPlan, firePosition);
     } finally {
-      writeUnlock();
+      unlockForInsert();
     }
   }
 
@@ -1216,6 +1230,9 @@ public class VirtualStorageGroupProcessor {
       return false;
     }
 
+    if (concurrentInsert) {
+      tsFileProcessor.insertLock();
+    }
     try {
       tsFileProcessor.insertTablet(insertTabletPlan, start, end, results);
     } catch (WriteProcessRejectException e) {
@@ -1224,6 +1241,10 @@ public class VirtualStorageGroupProcessor {
     } catch (WriteProcessException e) {
       logger.error("insert to TsFileProcessor error ", e);
       return false;
+    } finally {
+      if (concurrentInsert) {
+        tsFileProcessor.insertUnlock();
+      }
     }
 
     lastFlushTimeManager.ensureLastTimePartition(timePartitionId);
@@ -1236,9 +1257,7 @@ public class VirtualStorageGroupProcessor {
     }
 
     // check memtable size and may async try to flush the work memtable
-    if (tsFileProcessor.shouldFlush()) {
-      fileFlushPolicy.apply(this, tsFileProcessor, sequence);
-    }
+    checkFlushAfterInsert(tsFileProcessor, sequence);
     return true;
   }
 
@@ -1278,6 +1297,9 @@ public class VirtualStorageGroupProcessor {
       return false;
     }
 
+    if (concurrentInsert) {
+      tsFileProcessor.insertLock();
+    }
     try {
       tsFileProcessor.insertTablet(insertTabletNode, start, end, results);
     } catch (WriteProcessRejectException e) {
@@ -1286,6 +1308,10 @@ public class VirtualStorageGroupProcessor {
     } catch (WriteProcessException e) {
       logger.error("insert to TsFileProcessor error ", e);
       return false;
+    } finally {
+      if (concurrentInsert) {
+        tsFileProcessor.insertUnlock();
+      }
     }
 
     lastFlushTimeManager.ensureLastTimePartition(timePartitionId);
@@ -1298,9 +1324,7 @@ public class VirtualStorageGroupProcessor {
     }
 
     // check memtable size and may async try to flush the work memtable
-    if (tsFileProcessor.shouldFlush()) {
-      fileFlushPolicy.apply(this, tsFileProcessor, sequence);
-    }
+    checkFlushAfterInsert(tsFileProcessor, sequence);
     return true;
   }
 
@@ -1337,7 +1361,16 @@ public class VirtualStorageGroupProcessor {
       return;
     }
 
-    tsFileProcessor.insert(insertRowPlan);
+    if (concurrentInsert) {
+      tsFileProcessor.insertLock();
+    }
+    try {
+      tsFileProcessor.insert(insertRowPlan);
+    } finally {
+      if (concurrentInsert) {
+        tsFileProcessor.insertUnlock();
+      }
+    }
 
     // try to update the latest time of the device of this tsRecord
     lastFlushTimeManager.updateLastTime(
@@ -1349,9 +1382,7 @@ public class VirtualStorageGroupProcessor {
     tryToUpdateInsertLastCache(insertRowPlan, globalLatestFlushTime);
 
     // check memtable size and may asyncTryToFlush the work memtable
-    if (tsFileProcessor.shouldFlush()) {
-      fileFlushPolicy.apply(this, tsFileProcessor, sequence);
-    }
+    checkFlushAfterInsert(tsFileProcessor, sequence);
   }
 
   private void insertToTsFileProcessor(
@@ -1362,7 +1393,16 @@ public class VirtualStorageGroupProcessor {
       return;
     }
 
-    tsFileProcessor.insert(insertRowNode);
+    if (concurrentInsert) {
+      tsFileProcessor.insertLock();
+    }
+    try {
+      tsFileProcessor.insert(insertRowNode);
+    } finally {
+      if (concurrentInsert) {
+        tsFileProcessor.insertUnlock();
+      }
+    }
 
     // try to update the latest time of the device of this tsRecord
     lastFlushTimeManager.updateLastTime(
@@ -1374,9 +1414,7 @@ public class VirtualStorageGroupProcessor {
     // tryToUpdateInsertLastCache(insertRowNode, globalLatestFlushTime);
 
     // check memtable size and may asyncTryToFlush the work memtable
-    if (tsFileProcessor.shouldFlush()) {
-      fileFlushPolicy.apply(this, tsFileProcessor, sequence);
-    }
+    checkFlushAfterInsert(tsFileProcessor, sequence);
   }
 
   private void tryToUpdateInsertLastCache(InsertRowPlan plan, Long latestFlushedTime) {
@@ -1404,6 +1442,21 @@ public class VirtualStorageGroupProcessor {
     }
   }
 
+  /**
+   * Apply the flush policy to a TsFileProcessor that has just been written. Under concurrent
+   * insertion the caller only holds the read lock, which must not be upgraded, so the processor is
+   * remembered and flushed in {@link #unlockForInsert()} after the read lock is released.
+   */
+  private void checkFlushAfterInsert(TsFileProcessor tsFileProcessor, boolean sequence) {
+    if (tsFileProcessor.shouldFlush()) {
+      if (concurrentInsert) {
+        tsFileProcessorsToFlush.add(tsFileProcessor);
+      } else {
+        fileFlushPolicy.apply(this, tsFileProcessor, sequence);
+      }
+    }
+  }
+
   /**
    * mem control module use this method to flush memtable
    *
@@ -1424,12 +1477,16 @@ public class VirtualStorageGroupProcessor {
   private TsFileProcessor getOrCreateTsFileProcessor(long timeRangeId, boolean sequence) {
     TsFileProcessor tsFileProcessor = null;
     try {
-      if (sequence) {
-        tsFileProcessor =
-            getOrCreateTsFileProcessorIntern(timeRangeId, workSequenceTsFileProcessors, true);
-      } else {
-        tsFileProcessor =
-            getOrCreateTsFileProcessorIntern(timeRangeId, workUnsequenceTsFileProcessors, false);
+      // the working processor maps are only modified by threads holding the write lock or, under
+      // concurrent insertion, by the threads holding the creation lock
+      synchronized (tsFileProcessorCreationLock) {
+        if (sequence) {
+          tsFileProcessor =
+              getOrCreateTsFileProcessorIntern(timeRangeId, workSequenceTsFileProcessors, true);
+        } else {
+          tsFileProcessor =
+              getOrCreateTsFileProcessorIntern(timeRangeId, workUnsequenceTsFileProcessors, false);
+        }
       }
     } catch (DiskSpaceInsufficientException e) {
       logger.error(
@@ -2019,6 +2076,40 @@ public class VirtualStorageGroupProcessor {
     insertLock.writeLock().unlock();
   }
 
+  /**
+   * lock the insert lock for an insertion. With concurrent insertion enabled, insertions only share
+   * the read lock and exclude each other per TsFileProcessor, so that writes to different time
+   * partitions (or to the sequence and unsequence files) proceed in parallel, while closing,
+   * flushing and deletion still hold the write lock exclusively.
+   */
+  private void lockForInsert(String holder) {
+    if (concurrentInsert) {
+      insertLock.readLock().lock();
+    } else {
+      writeLock(holder);
+    }
+  }
+
+  /** unlock the insert lock and flush the memtables that became full during the insertion */
+  private void unlockForInsert() {
+    if (!concurrentInsert) {
+      writeUnlock();
+      return;
+    }
+    insertLock.readLock().unlock();
+    if (tsFileProcessorsToFlush.isEmpty()) {
+      return;
+    }
+    Iterator<TsFileProcessor> iterator = tsFileProcessorsToFlush.iterator();
+    while (iterator.hasNext()) {
+      TsFileProcessor tsFileProcessor = iterator.next();
+      iterator.remove();
+      // the processor is checked again under the write lock, so it does not matter if another
+      // inserting thread has already handled it
+      submitAFlushTaskWhenShouldFlush(tsFileProcessor);
+    }
+  }
+
   /**
    * @param tsFileResources includes sealed and unsealed tsfile resources
    * @return fill unsealed tsfile resources with memory data and ChunkMetadataList of data in disk
@@ -2245,6 +2336,7 @@ public class VirtualStorageGroupProcessor {
         // remember to close mod file
         tsFileResource.getModFile().close();
       }
+      tsFileResource.increaseModificationVersion();
       logger.info(
           "[Deletion] Deletion with path:{}, time:{}-{} written into mods file:{}.",
           deletion.getPath(),
@@ -3149,6 +3241,10 @@ public class VirtualStorageGroupProcessor {
     return workUnsequenceTsFileProcessors.values();
   }
 
+  public long getDataTTL() {
+    return dataTTL;
+  }
+
   public void setDataTTL(long dataTTL) {
     this.dataTTL = dataTTL;
   }
@@ -3323,7 +3419,7 @@ public class VirtualStorageGroupProcessor {
    */
   public void insert(InsertRowsOfOneDevicePlan insertRowsOfOneDevicePlan)
       throws WriteProcessException, TriggerExecutionException {
-    writeLock("InsertRowsOfOneDevice");
+    lockForInsert("InsertRowsOfOneDevice");
     try {
       boolean isSequence = false;
       InsertRowPlan[] rowPlans = insertRowsOfOneDevicePlan.getRowPlans();
@@ -3364,7 +3460,7 @@ public class VirtualStorageGroupProcessor {
         TriggerEngine.fire(TriggerEvent.AFTER_INSERT, plan);
       }
     } finally {
-      writeUnlock();
+      unlockForInsert();
     }
   }
 
@@ -0,0 +1,521 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.protocol.influxdb.input;
+
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.protocol.influxdb.meta.InfluxDBMetaManager;
+import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
+import org.apache.iotdb.db.qp.utils.DatetimeUtils;
+import org.apache.iotdb.db.utils.ParameterUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import org.influxdb.InfluxDBException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * InfluxLineBatchParser parses InfluxDB line protocol directly from the bytes of a request and
+ * groups the points by device into InsertTabletPlans. Unlike {@link InfluxLineParser}, it creates
+ * no object per line: series and fields are looked up by their raw bytes, so their names are only
+ * decoded the first time they appear in a batch, and the numbers are parsed from the bytes into
+ * primitive column arrays.
+ *
+ * <p>Boolean fields are stored as TEXT, the same as {@link InfluxLineParser}, to keep the schema of
+ * existing data. Timestamps are converted to milliseconds, and a line without timestamp takes the
+ * current time.
+ */
+public class InfluxLineBatchParser {
+
+  /** Generates the IoTDB device path of a series from its measurement and tags. */
+  @FunctionalInterface
+  public interface DevicePathGenerator {
+    String generatePath(String measurement, Map<String, String> tags);
+  }
+
+  private static final Binary TRUE = new Binary("true");
+  private static final Binary FALSE = new Binary("false");
+
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+    1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+  // doubles with a mantissa below 2^53 and an exponent within [-22, 22] are computed exactly
+  private static final long MAX_EXACT_MANTISSA = 1L << 53;
+  private static final int MAX_MANTISSA_DIGITS = 18;
+
+  private final TimeUnit precision;
+  private final DevicePathGenerator pathGenerator;
+
+  // open addressing table from the raw series keys (measurement and tags) to the tablets
+  private byte[][] seriesKeys = new byte[16][];
+  private int[] seriesKeyHashes = new int[16];
+  private InfluxTablet[] seriesTablets = new InfluxTablet[16];
+  private int seriesNum = 0;
+  // different series keys, e.g. with tags in different orders, may map to the same device
+  private final Map<String, InfluxTablet> deviceTablets = new LinkedHashMap<>();
+
+  private ByteBuffer buffer;
+  private int position;
+  private int limit;
+  private int lineCount = 0;
+
+  public InfluxLineBatchParser(String database, String precision, InfluxDBMetaManager metaManager) {
+    this(
+        precision == null ? TimeUnit.NANOSECONDS : DatetimeUtils.toTimeUnit(precision),
+        (measurement, tags) -> metaManager.generatePath(database, measurement, tags));
+    ParameterUtils.checkNonEmptyString(database, "database");
+  }
+
+  public InfluxLineBatchParser(TimeUnit precision, DevicePathGenerator pathGenerator) {
+    this.precision = precision;
+    this.pathGenerator = pathGenerator;
+  }
+
+  /** Parse all the lines between the position and the limit of the buffer. */
+  public void parse(ByteBuffer buffer) {
+    this.buffer = buffer;
+    this.position = buffer.position();
+    this.limit = buffer.limit();
+    while (position < limit) {
+      parseLine();
+    }
+    buffer.position(limit);
+  }
+
+  public int getLineCount() {
+    return lineCount;
+  }
+
+  /** @return one InsertTabletPlan for each device, whose rows are sorted by time */
+  public List<InsertTabletPlan> getInsertTabletPlans() throws IllegalPathException {
+    List<InsertTabletPlan> plans = new ArrayList<>(deviceTablets.size());
+    for (InfluxTablet tablet : deviceTablets.values()) {
+      if (tablet.getRowCount() > 0) {
+        plans.add(tablet.toInsertTabletPlan());
+      }
+    }
+    return plans;
+  }
+
+  private void parseLine() {
+    byte b = buffer.get(position);
+    if (b == '\n' || b == '\r' || b == ' ' || b == '\t') {
+      position++;
+      return;
+    }
+    if (b == '#') {
+      // comment line
+      while (position < limit && buffer.get(position) != '\n') {
+        position++;
+      }
+      return;
+    }
+
+    // the series key ends at the first unescaped space
+    int keyStart = position;
+    int hash = 0;
+    while (position < limit) {
+      b = buffer.get(position);
+      if (b == '\\' && position + 1 < limit) {
+        hash = 31 * hash + b;
+        b = buffer.get(++position);
+      } else if (b == ' ') {
+        break;
+      } else if (b == '\n') {
+        throw parseError("missing fields");
+      }
+      hash = 31 * hash + b;
+      position++;
+    }
+    if (position >= limit) {
+      throw parseError("missing fields");
+    }
+    InfluxTablet tablet = getOrCreateTablet(keyStart, position, hash);
+    position++;
+
+    tablet.startRow();
+    parseFields(tablet);
+    tablet.endRow(parseTimestamp());
+    lineCount++;
+  }
+
+  private void parseFields(InfluxTablet tablet) {
+    while (true) {
+      int keyStart = position;
+      int hash = 0;
+      while (position < limit) {
+        byte b = buffer.get(position);
+        if (b == '\\' && position + 1 < limit) {
+          hash = 31 * hash + b;
+          b = buffer.get(++position);
+        } else if (b == '=') {
+          break;
+        } else if (b == ' ' || b == ',' || b == '\n') {
+          throw parseError("invalid field");
+        }
+        hash = 31 * hash + b;
+        position++;
+      }
+      int keyEnd = position;
+      if (keyEnd == keyStart || ++position >= limit) {
+        throw parseError("invalid field");
+      }
+
+      byte b = buffer.get(position);
+      if (b == '"') {
+        Binary value = parseQuotedString();
+        tablet.putBinary(
+            tablet.getOrCreateColumn(buffer, keyStart, keyEnd, hash, TSDataType.TEXT), value);
+      } else {
+        int valueStart = position;
+        while (position < limit && !isFieldValueEnd(buffer.get(position))) {
+          position++;
+        }
+        int valueEnd = position;
+        if (valueEnd == valueStart) {
+          throw parseError("missing field value");
+        }
+        if (b == 't' || b == 'T' || b == 'f' || b == 'F') {
+          Binary value = parseBoolean(valueStart, valueEnd);
+          tablet.putBinary(
+              tablet.getOrCreateColumn(buffer, keyStart, keyEnd, hash, TSDataType.TEXT), value);
+        } else {
+          byte last = buffer.get(valueEnd - 1);
+          if (last == 'i' || last == 'u') {
+            long value = parseLong(valueStart, valueEnd - 1);
+            tablet.putLong(
+                tablet.getOrCreateColumn(buffer, keyStart, keyEnd, hash, TSDataType.INT64), value);
+          } else {
+            double value = parseDouble(valueStart, valueEnd);
+            tablet.putDouble(
+                tablet.getOrCreateColumn(buffer, keyStart, keyEnd, hash, TSDataType.DOUBLE), value);
+          }
+        }
+      }
+
+      if (position < limit && buffer.get(position) == ',') {
+        position++;
+      } else {
+        return;
+      }
+    }
+  }
+
+  private long parseTimestamp() {
+    while (position < limit && buffer.get(position) == ' ') {
+      position++;
+    }
+    long time;
+    if (position >= limit || buffer.get(position) == '\n' || buffer.get(position) == '\r') {
+      time = System.currentTimeMillis();
+    } else {
+      int start = position;
+      while (position < limit && !isLineEnd(buffer.get(position))) {
+        position++;
+      }
+      time = TimeUnit.MILLISECONDS.convert(parseLong(start, position), precision);
+    }
+    while (position < limit && buffer.get(position) != '\n') {
+      if (!isLineEnd(buffer.get(position))) {
+        throw parseError("unexpected content after timestamp");
+      }
+      position++;
+    }
+    return time;
+  }
+
+  private InfluxTablet getOrCreateTablet(int start, int end, int hash) {
+    int mask = seriesKeys.length - 1;
+    int slot = hash & mask;
+    while (seriesKeys[slot] != null) {
+      if (seriesKeyHashes[slot] == hash && bytesEqual(seriesKeys[slot], start, end)) {
+        return seriesTablets[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    InfluxTablet tablet =
+        deviceTablets.computeIfAbsent(generateDevicePath(start, end), InfluxTablet::new);
+    seriesKeys[slot] = InfluxTablet.copyBytes(buffer, start, end);
+    seriesKeyHashes[slot] = hash;
+    seriesTablets[slot] = tablet;
+    if (++seriesNum * 2 > seriesKeys.length) {
+      rehash();
+    }
+    return tablet;
+  }
+
+  private void rehash() {
+    byte[][] oldKeys = seriesKeys;
+    int[] oldHashes = seriesKeyHashes;
+    InfluxTablet[] oldTablets = seriesTablets;
+    seriesKeys = new byte[oldKeys.length << 1][];
+    seriesKeyHashes = new int[oldKeys.length << 1];
+    seriesTablets = new InfluxTablet[oldKeys.length << 1];
+    int mask = seriesKeys.length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != null) {
+        int slot = oldHashes[i] & mask;
+        while (seriesKeys[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        seriesKeys[slot] = oldKeys[i];
+        seriesKeyHashes[slot] = oldHashes[i];
+        seriesTablets[slot] = oldTablets[i];
+      }
+    }
+  }
+
+  /** Split the series key into the measurement and the tags, which only happens once a series. */
+  private String generateDevicePath(int start, int end) {
+    String measurement = null;
+    Map<String, String> tags = new HashMap<>();
+    String tagKey = null;
+    int tokenStart = start;
+    for (int i = start; i <= end; i++) {
+      byte b = i < end ? buffer.get(i) : (byte) ',';
+      if (b == '\\' && i + 1 < end) {
+        i++;
+      } else if (b == ',') {
+        String token = decodeIdentifier(buffer, tokenStart, i);
+        if (measurement == null) {
+          measurement = token;
+        } else if (tagKey == null) {
+          throw parseError("invalid tag");
+        } else {
+          tags.put(tagKey, token);
+          tagKey = null;
+        }
+        tokenStart = i + 1;
+      } else if (b == '=' && measurement != null && tagKey == null) {
+        tagKey = decodeIdentifier(buffer, tokenStart, i);
+        tokenStart = i + 1;
+      }
+    }
+    if (measurement == null || measurement.isEmpty()) {
+      throw parseError("missing measurement");
+    }
+    return pathGenerator.generatePath(measurement, tags);
+  }
+
+  private Binary parseQuotedString() {
+    // skip the opening quote
+    int start = ++position;
+    boolean escaped = false;
+    while (position < limit) {
+      byte b = buffer.get(position);
+      if (b == '\\' && position + 1 < limit) {
+        escaped = true;
+        position += 2;
+        continue;
+      }
+      if (b == '"') {
+        break;
+      }
+      position++;
+    }
+    if (position >= limit) {
+      throw parseError("unterminated string");
+    }
+    int end = position++;
+    byte[] bytes = InfluxTablet.copyBytes(buffer, start, end);
+    if (escaped) {
+      // only \" and \\ are escaped in string field values
+      int length = 0;
+      for (int i = 0; i < bytes.length; i++) {
+        if (bytes[i] == '\\'
+            && i + 1 < bytes.length
+            && (bytes[i + 1] == '"' || bytes[i + 1] == '\\')) {
+          i++;
+        }
+        bytes[length++] = bytes[i];
+      }
+      bytes = Arrays.copyOf(bytes, length);
+    }
+    return new Binary(bytes);
+  }
+
+  private Binary parseBoolean(int start, int end) {
+    // t, T, true, True, TRUE, f, F, false, False, FALSE
+    int length = end - start;
+    byte first = buffer.get(start);
+    boolean value = first == 't' || first == 'T';
+    if (length == 1 || (length == 4 && value) || (length == 5 && !value)) {
+      return value ? TRUE : FALSE;
+    }
+    throw parseError("invalid boolean");
+  }
+
+  private long parseLong(int start, int end) {
+    int i = start;
+    boolean negative = false;
+    if (i < end && buffer.get(i) == '-') {
+      negative = true;
+      i++;
+    }
+    if (i == end) {
+      throw parseError("invalid integer");
+    }
+    // accumulate negatively to reach Long.MIN_VALUE
+    long limitValue = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    long multiplyMin = limitValue / 10;
+    long result = 0;
+    for (; i < end; i++) {
+      int digit = buffer.get(i) - '0';
+      if (digit < 0 || digit > 9 || result < multiplyMin) {
+        throw parseError("invalid integer");
+      }
+      result *= 10;
+      if (result < limitValue + digit) {
+        throw parseError("invalid integer");
+      }
+      result -= digit;
+    }
+    return negative ? result : -result;
+  }
+
+  private double parseDouble(int start, int end) {
+    int i = start;
+    boolean negative = false;
+    if (buffer.get(i) == '-' || buffer.get(i) == '+') {
+      negative = buffer.get(i) == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int mantissaDigits = 0;
+    int exponent = 0;
+    boolean hasDigit = false;
+    boolean hasDot = false;
+    boolean exact = true;
+    for (; i < end; i++) {
+      byte b = buffer.get(i);
+      if (b >= '0' && b <= '9') {
+        hasDigit = true;
+        if (mantissaDigits < MAX_MANTISSA_DIGITS) {
+          mantissa = mantissa * 10 + (b - '0');
+          if (mantissa != 0) {
+            mantissaDigits++;
+          }
+          if (hasDot) {
+            exponent--;
+          }
+        } else {
+          exact = false;
+        }
+      } else if (b == '.' && !hasDot) {
+        hasDot = true;
+      } else if ((b == 'e' || b == 'E') && hasDigit) {
+        break;
+      } else {
+        return parseDoubleSlowly(start, end);
+      }
+    }
+    if (!hasDigit) {
+      throw parseError("invalid float");
+    }
+    if (i < end) {
+      // the exponent part
+      i++;
+      boolean negativeExponent = false;
+      if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+        negativeExponent = buffer.get(i) == '-';
+        i++;
+      }
+      if (i == end || end - i > 3) {
+        return parseDoubleSlowly(start, end);
+      }
+      int explicitExponent = 0;
+      for (; i < end; i++) {
+        int digit = buffer.get(i) - '0';
+        if (digit < 0 || digit > 9) {
+          throw parseError("invalid float");
+        }
+        explicitExponent = explicitExponent * 10 + digit;
+      }
+      exponent += negativeExponent ? -explicitExponent : explicitExponent;
+    }
+    if (!exact || mantissa >= MAX_EXACT_MANTISSA || exponent < -22 || exponent > 22) {
+      return parseDoubleSlowly(start, end);
+    }
+    double value =
+        exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+    return negative ? -value : value;
+  }
+
+  private double parseDoubleSlowly(int start, int end) {
+    try {
+      return Double.parseDouble(
+          new String(InfluxTablet.copyBytes(buffer, start, end), StandardCharsets.UTF_8));
+    } catch (NumberFormatException e) {
+      throw parseError("invalid float");
+    }
+  }
+
+  private boolean bytesEqual(byte[] key, int start, int end) {
+    if (key.length != end - start) {
+      return false;
+    }
+    for (int i = 0; i < key.length; i++) {
+      if (key[i] != buffer.get(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private InfluxDBException parseError(String reason) {
+    return new InfluxDBException(
+        String.format("Unable to parse line %d: %s.", lineCount + 1, reason));
+  }
+
+  private static boolean isFieldValueEnd(byte b) {
+    return b == ',' || b == ' ' || b == '\n' || b == '\r';
+  }
+
+  private static boolean isLineEnd(byte b) {
+    return b == ' ' || b == '\n' || b == '\r';
+  }
+
+  /** Decode an identifier (measurement, tag key, tag value or field key) and remove escapes. */
+  static String decodeIdentifier(ByteBuffer buffer, int start, int end) {
+    byte[] bytes = new byte[end - start];
+    int length = 0;
+    for (int i = start; i < end; i++) {
+      byte b = buffer.get(i);
+      if (b == '\\' && i + 1 < end) {
+        byte next = buffer.get(i + 1);
+        if (next == ',' || next == '=' || next == ' ') {
+          b = next;
+          i++;
+        }
+      }
+      bytes[length++] = b;
+    }
+    return new String(bytes, 0, length, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.protocol.influxdb.input;
+
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.BitMap;
+
+import org.influxdb.InfluxDBException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * InfluxTablet collects the points of one device parsed by {@link InfluxLineBatchParser} into
+ * column arrays. Fields are looked up by the raw bytes of their keys, so the field names are only
+ * decoded when a field appears for the first time.
+ */
+class InfluxTablet {
+
+  private static final int INITIAL_ROW_CAPACITY = 16;
+  private static final int INITIAL_COLUMN_CAPACITY = 8;
+
+  private final String devicePath;
+
+  private long[] times = new long[INITIAL_ROW_CAPACITY];
+  private int rowCount = 0;
+  private boolean sorted = true;
+
+  private int columnNum = 0;
+  private String[] measurements = new String[INITIAL_COLUMN_CAPACITY];
+  private byte[][] fieldKeys = new byte[INITIAL_COLUMN_CAPACITY][];
+  private int[] fieldKeyHashes = new int[INITIAL_COLUMN_CAPACITY];
+  private TSDataType[] dataTypes = new TSDataType[INITIAL_COLUMN_CAPACITY];
+  private Object[] columns = new Object[INITIAL_COLUMN_CAPACITY];
+  // null bits of each column, allocated when the column has the first null value
+  private byte[][] nullBits = new byte[INITIAL_COLUMN_CAPACITY][];
+  // the last row each column has a value in, used to find out the missing fields of a row
+  private int[] lastWrittenRows = new int[INITIAL_COLUMN_CAPACITY];
+  // the fields of a series usually come in the same order in every line
+  private int nextColumnHint = 0;
+
+  InfluxTablet(String devicePath) {
+    this.devicePath = devicePath;
+  }
+
+  String getDevicePath() {
+    return devicePath;
+  }
+
+  int getRowCount() {
+    return rowCount;
+  }
+
+  /** Make room for a new row, the values of the row are put by the column index. */
+  void startRow() {
+    if (rowCount == times.length) {
+      int newCapacity = times.length << 1;
+      times = Arrays.copyOf(times, newCapacity);
+      for (int i = 0; i < columnNum; i++) {
+        columns[i] = growColumn(columns[i], dataTypes[i], newCapacity);
+        if (nullBits[i] != null) {
+          nullBits[i] = Arrays.copyOf(nullBits[i], bitsLength(newCapacity));
+        }
+      }
+    }
+  }
+
+  /** Finish the current row, the columns without a value in the row are marked as null. */
+  void endRow(long time) {
+    times[rowCount] = time;
+    if (rowCount > 0 && time < times[rowCount - 1]) {
+      sorted = false;
+    }
+    for (int i = 0; i < columnNum; i++) {
+      if (lastWrittenRows[i] != rowCount) {
+        markNull(i, rowCount);
+      }
+    }
+    rowCount++;
+    nextColumnHint = 0;
+  }
+
+  /**
+   * Get the index of the column whose field key equals to the bytes in [start, end) of the buffer,
+   * the column is created with the given type if it does not exist.
+   */
+  int getOrCreateColumn(ByteBuffer buffer, int start, int end, int hash, TSDataType dataType) {
+    int index = findColumn(buffer, start, end, hash);
+    if (index < 0) {
+      index =
+          createColumn(
+              InfluxLineBatchParser.decodeIdentifier(buffer, start, end),
+              copyBytes(buffer, start, end),
+              hash,
+              dataType);
+    } else if (dataTypes[index] != dataType) {
+      throw new InfluxDBException(
+          String.format(
+              "Field type conflict: %s.%s is %s but %s is given",
+              devicePath, measurements[index], dataTypes[index], dataType));
+    }
+    nextColumnHint = index + 1;
+    lastWrittenRows[index] = rowCount;
+    return index;
+  }
+
+  void putLong(int column, long value) {
+    ((long[]) columns[column])[rowCount] = value;
+  }
+
+  void putDouble(int column, double value) {
+    ((double[]) columns[column])[rowCount] = value;
+  }
+
+  void putBinary(int column, Binary value) {
+    ((Binary[]) columns[column])[rowCount] = value;
+  }
+
+  InsertTabletPlan toInsertTabletPlan() throws IllegalPathException {
+    int[] rowOrder = sorted ? null : getSortedRowOrder();
+    long[] planTimes = new long[rowCount];
+    for (int i = 0; i < rowCount; i++) {
+      planTimes[i] = times[rowOrder == null ? i : rowOrder[i]];
+    }
+    Object[] planColumns = new Object[columnNum];
+    BitMap[] bitMaps = null;
+    for (int i = 0; i < columnNum; i++) {
+      planColumns[i] = copyColumn(columns[i], dataTypes[i], rowOrder);
+      if (nullBits[i] != null) {
+        if (bitMaps == null) {
+          bitMaps = new BitMap[columnNum];
+        }
+        bitMaps[i] = new BitMap(rowCount);
+        for (int j = 0; j < rowCount; j++) {
+          if (isNull(i, rowOrder == null ? j : rowOrder[j])) {
+            bitMaps[i].mark(j);
+          }
+        }
+      }
+    }
+
+    InsertTabletPlan plan =
+        new InsertTabletPlan(new PartialPath(devicePath), Arrays.copyOf(measurements, columnNum));
+    plan.setDataTypes(Arrays.copyOf(dataTypes, columnNum));
+    plan.setTimes(planTimes);
+    plan.setColumns(planColumns);
+    plan.setBitMaps(bitMaps);
+    plan.setRowCount(rowCount);
+    return plan;
+  }
+
+  private int findColumn(ByteBuffer buffer, int start, int end, int hash) {
+    if (nextColumnHint < columnNum && keyEquals(nextColumnHint, buffer, start, end, hash)) {
+      return nextColumnHint;
+    }
+    for (int i = 0; i < columnNum; i++) {
+      if (keyEquals(i, buffer, start, end, hash)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private boolean keyEquals(int column, ByteBuffer buffer, int start, int end, int hash) {
+    byte[] key = fieldKeys[column];
+    if (fieldKeyHashes[column] != hash || key.length != end - start) {
+      return false;
+    }
+    for (int i = 0; i < key.length; i++) {
+      if (key[i] != buffer.get(start + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int createColumn(String measurement, byte[] key, int hash, TSDataType dataType) {
+    if (columnNum == measurements.length) {
+      int newCapacity = columnNum << 1;
+      measurements = Arrays.copyOf(measurements, newCapacity);
+      fieldKeys = Arrays.copyOf(fieldKeys, newCapacity);
+      fieldKeyHashes = Arrays.copyOf(fieldKeyHashes, newCapacity);
+      dataTypes = Arrays.copyOf(dataTypes, newCapacity);
+      columns = Arrays.copyOf(columns, newCapacity);
+      nullBits = Arrays.copyOf(nullBits, newCapacity);
+      lastWrittenRows = Arrays.copyOf(lastWrittenRows, newCapacity);
+    }
+    int index = columnNum++;
+    measurements[index] = measurement;
+    fieldKeys[index] = key;
+    fieldKeyHashes[index] = hash;
+    dataTypes[index] = dataType;
+    columns[index] = growColumn(null, dataType, times.length);
+    // the field does not exist in the previous rows
+    for (int i = 0; i < rowCount; i++) {
+      markNull(index, i);
+    }
+    return index;
+  }
+
+  private void markNull(int column, int row) {
+    if (nullBits[column] == null) {
+      nullBits[column] = new byte[bitsLength(times.length)];
+    }
+    nullBits[column][row / Byte.SIZE] |= (byte) (1 << (row % Byte.SIZE));
+  }
+
+  private boolean isNull(int column, int row) {
+    return (nullBits[column][row / Byte.SIZE] & (1 << (row % Byte.SIZE))) != 0;
+  }
+
+  private int[] getSortedRowOrder() {
+    Integer[] order = new Integer[rowCount];
+    for (int i = 0; i < rowCount; i++) {
+      order[i] = i;
+    }
+    // the sort is stable, so the later one of the rows with the same time is written later
+    Arrays.sort(order, Comparator.comparingLong(row -> times[row]));
+    int[] result = new int[rowCount];
+    for (int i = 0; i < rowCount; i++) {
+      result[i] = order[i];
+    }
+    return result;
+  }
+
+  private Object copyColumn(Object column, TSDataType dataType, int[] rowOrder) {
+    switch (dataType) {
+      case INT64:
+        long[] longValues = (long[]) column;
+        long[] longResult = new long[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+          longResult[i] = longValues[rowOrder == null ? i : rowOrder[i]];
+        }
+        return longResult;
+      case DOUBLE:
+        double[] doubleValues = (double[]) column;
+        double[] doubleResult = new double[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+          doubleResult[i] = doubleValues[rowOrder == null ? i : rowOrder[i]];
+        }
+        return doubleResult;
+      case TEXT:
+        Binary[] binaryValues = (Binary[]) column;
+        Binary[] binaryResult = new Binary[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+          binaryResult[i] = binaryValues[rowOrder == null ? i : rowOrder[i]];
+        }
+        return binaryResult;
+      default:
+        throw new InfluxDBException("Data type not valid: " + dataType);
+    }
+  }
+
+  private static Object growColumn(Object column, TSDataType dataType, int capacity) {
+    switch (dataType) {
+      case INT64:
+        return column == null ? new long[capacity] : Arrays.copyOf((long[]) column, capacity);
+      case DOUBLE:
+        return column == null ? new double[capacity] : Arrays.copyOf((double[]) column, capacity);
+      case TEXT:
+        return column == null ? new Binary[capacity] : Arrays.copyOf((Binary[]) column, capacity);
+      default:
+        throw new InfluxDBException("Data type not valid: " + dataType);
+    }
+  }
+
+  private static int bitsLength(int capacity) {
+    return capacity / Byte.SIZE + 1;
+  }
+
+  static byte[] copyBytes(ByteBuffer buffer, int start, int end) {
+    byte[] bytes = new byte[end - start];
+    for (int i = start; i < end; i++) {
+      bytes[i - start] = buffer.get(i);
+    }
+    return bytes;
+  }
+}
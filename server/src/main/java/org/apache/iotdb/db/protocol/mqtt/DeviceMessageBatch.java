@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.iotdb.db.protocol.mqtt;
+
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
+import org.apache.iotdb.db.service.IoTDB;
+import org.apache.iotdb.db.utils.CommonUtils;
+import org.apache.iotdb.db.utils.TypeInferenceUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.BitMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rows of a device buffered by an ingestion worker of {@link MqttIngestionPipeline}, which are
+ * inserted together as one {@link InsertTabletPlan}. The values are kept as strings until the plan
+ * is built, so the data types are decided once per column instead of once per row.
+ */
+class DeviceMessageBatch {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DeviceMessageBatch.class);
+
+  private final String device;
+  private final long sessionId;
+  private final long createTime;
+
+  private final Map<String, Integer> measurementIndex = new HashMap<>();
+  private final List<String> measurements = new ArrayList<>();
+  private final List<List<String>> columns = new ArrayList<>();
+
+  private long[] times = new long[16];
+  private int rowCount = 0;
+  private boolean sorted = true;
+
+  DeviceMessageBatch(String device, long sessionId, long createTime) {
+    this.device = device;
+    this.sessionId = sessionId;
+    this.createTime = createTime;
+  }
+
+  void add(Message message) {
+    List<String> messageMeasurements = message.getMeasurements();
+    List<String> messageValues = message.getValues();
+    if (messageMeasurements == null
+        || messageValues == null
+        || messageMeasurements.size() != messageValues.size()) {
+      LOG.warn(
+          "the size of measurements and values of device {} at time {} are not equal",
+          device,
+          message.getTimestamp());
+      return;
+    }
+
+    if (rowCount == times.length) {
+      times = Arrays.copyOf(times, times.length * 2);
+    }
+    long time = message.getTimestamp();
+    if (rowCount > 0 && time < times[rowCount - 1]) {
+      sorted = false;
+    }
+    times[rowCount] = time;
+
+    for (int i = 0; i < messageMeasurements.size(); i++) {
+      List<String> column = getOrCreateColumn(messageMeasurements.get(i));
+      if (column.size() == rowCount) {
+        column.add(messageValues.get(i));
+      } else {
+        // the measurement appears more than once in the message, the last one wins
+        column.set(rowCount, messageValues.get(i));
+      }
+    }
+    rowCount++;
+    for (List<String> column : columns) {
+      if (column.size() < rowCount) {
+        column.add(null);
+      }
+    }
+  }
+
+  private List<String> getOrCreateColumn(String measurement) {
+    Integer index = measurementIndex.get(measurement);
+    if (index != null) {
+      return columns.get(index);
+    }
+    List<String> column = new ArrayList<>(Math.max(rowCount + 1, 16));
+    for (int i = 0; i < rowCount; i++) {
+      column.add(null);
+    }
+    measurementIndex.put(measurement, columns.size());
+    measurements.add(measurement);
+    columns.add(column);
+    return column;
+  }
+
+  String getDevice() {
+    return device;
+  }
+
+  long getSessionId() {
+    return sessionId;
+  }
+
+  long getCreateTime() {
+    return createTime;
+  }
+
+  int getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Build the plan of the buffered rows, the rows are sorted by time. The data type of a column is
+   * the one of the registered series, or inferred from its first non-null value. Values that can
+   * not be parsed into the type are inserted as nulls.
+   *
+   * @return null if there is no non-null value to insert
+   */
+  InsertTabletPlan toInsertTabletPlan() throws MetadataException {
+    PartialPath devicePath = new PartialPath(device);
+
+    int[] rowIndex = sortedRowIndex();
+    long[] planTimes = new long[rowCount];
+    for (int i = 0; i < rowCount; i++) {
+      planTimes[i] = times[rowIndex[i]];
+    }
+
+    List<String> planMeasurements = new ArrayList<>(measurements.size());
+    List<TSDataType> planDataTypes = new ArrayList<>(measurements.size());
+    List<Object> planColumns = new ArrayList<>(measurements.size());
+    List<BitMap> planBitMaps = new ArrayList<>(measurements.size());
+    boolean hasNull = false;
+    for (int i = 0; i < measurements.size(); i++) {
+      String measurement = measurements.get(i);
+      List<String> column = columns.get(i);
+      TSDataType dataType = getDataType(devicePath.concatNode(measurement), column);
+      if (dataType == null) {
+        // all values of the column are null
+        continue;
+      }
+      BitMap bitMap = new BitMap(rowCount);
+      planMeasurements.add(measurement);
+      planDataTypes.add(dataType);
+      planColumns.add(parseColumn(measurement, dataType, column, rowIndex, planTimes, bitMap));
+      planBitMaps.add(bitMap);
+      hasNull |= !bitMap.isAllUnmarked();
+    }
+    if (planMeasurements.isEmpty()) {
+      return null;
+    }
+
+    InsertTabletPlan plan =
+        new InsertTabletPlan(devicePath, planMeasurements.toArray(new String[0]));
+    plan.setDataTypes(planDataTypes.toArray(new TSDataType[0]));
+    plan.setTimes(planTimes);
+    plan.setColumns(planColumns.toArray());
+    if (hasNull) {
+      plan.setBitMaps(planBitMaps.toArray(new BitMap[0]));
+    }
+    plan.setRowCount(rowCount);
+    return plan;
+  }
+
+  private int[] sortedRowIndex() {
+    Integer[] index = new Integer[rowCount];
+    for (int i = 0; i < rowCount; i++) {
+      index[i] = i;
+    }
+    if (!sorted) {
+      // stable, so the later row of the same timestamp still overwrites the former one
+      Arrays.sort(index, Comparator.comparingLong(i -> times[i]));
+    }
+    int[] ret = new int[rowCount];
+    for (int i = 0; i < rowCount; i++) {
+      ret[i] = index[i];
+    }
+    return ret;
+  }
+
+  private TSDataType getDataType(PartialPath fullPath, List<String> column)
+      throws MetadataException {
+    if (IoTDB.schemaProcessor.isPathExist(fullPath)) {
+      return IoTDB.schemaProcessor.getSeriesType(fullPath);
+    }
+    for (String value : column) {
+      if (value != null) {
+        TSDataType dataType = TypeInferenceUtils.getPredictedDataType(value, true);
+        if (dataType != null) {
+          return dataType;
+        }
+      }
+    }
+    return null;
+  }
+
+  private Object parseColumn(
+      String measurement,
+      TSDataType dataType,
+      List<String> column,
+      int[] rowIndex,
+      long[] planTimes,
+      BitMap bitMap) {
+    Object values;
+    switch (dataType) {
+      case BOOLEAN:
+        values = new boolean[rowCount];
+        break;
+      case INT32:
+        values = new int[rowCount];
+        break;
+      case INT64:
+        values = new long[rowCount];
+        break;
+      case FLOAT:
+        values = new float[rowCount];
+        break;
+      case DOUBLE:
+        values = new double[rowCount];
+        break;
+      case TEXT:
+        values = new Binary[rowCount];
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported data type: " + dataType);
+    }
+
+    for (int i = 0; i < rowCount; i++) {
+      String value = column.get(rowIndex[i]);
+      Object parsed = null;
+      if (value != null) {
+        try {
+          parsed = CommonUtils.parseValue(dataType, value);
+        } catch (QueryProcessException e) {
+          LOG.warn(
+              "meet error when parsing value {} of {}.{} at time {} into {}, because {}",
+              value,
+              device,
+              measurement,
+              planTimes[i],
+              dataType,
+              e.getMessage());
+        }
+      }
+      if (parsed == null) {
+        bitMap.mark(i);
+        if (dataType == TSDataType.TEXT) {
+          ((Binary[]) values)[i] = Binary.EMPTY_VALUE;
+        }
+        continue;
+      }
+      switch (dataType) {
+        case BOOLEAN:
+          ((boolean[]) values)[i] = (Boolean) parsed;
+          break;
+        case INT32:
+          ((int[]) values)[i] = (Integer) parsed;
+          break;
+        case INT64:
+          ((long[]) values)[i] = (Long) parsed;
+          break;
+        case FLOAT:
+          ((float[]) values)[i] = (Float) parsed;
+          break;
+        case DOUBLE:
+          ((double[]) values)[i] = (Double) parsed;
+          break;
+        default:
+          ((Binary[]) values)[i] = (Binary) parsed;
+      }
+    }
+    return values;
+  }
+}
@@ -17,24 +17,39 @@
  */
 package org.apache.iotdb.db.protocol.mqtt;
 
-import com.google.common.collect.Lists;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * The JSON payload formatter. two json format supported: { "device":"root.sg.d1",
- * "timestamp":1586076045524, "measurements":["s1","s2"], "values":[0.530635,0.530635] }
+ * The JSON payload formatter. Two JSON formats are supported, and a payload could also be a JSON
+ * array of them:
  *
- * <p>{ "device":"root.sg.d1", "timestamps":[1586076045524,1586076065526],
- * "measurements":["s1","s2"], "values":[[0.530635,0.530635], [0.530655,0.530695]] }
+ * <pre>
+ *  {
+ *      "device":"root.sg.d1",
+ *      "timestamp":1586076045524,
+ *      "measurements":["s1","s2"],
+ *      "values":[0.530635,0.530635]
+ *  }
+ *
+ *  {
+ *      "device":"root.sg.d1",
+ *      "timestamps":[1586076045524,1586076065526],
+ *      "measurements":["s1","s2"],
+ *      "values":[[0.530635,0.530635], [0.530655,0.530695]]
+ *  }
+ * </pre>
+ *
+ * The payload is decoded with a streaming reader, so no intermediate JSON tree is built.
  */
 public class JSONPayloadFormatter implements PayloadFormatter {
   private static final String JSON_KEY_DEVICE = "device";
@@ -42,62 +57,141 @@ public class JSONPayloadFormatter implements PayloadFormatter {
   private static final String JSON_KEY_TIMESTAMPS = "timestamps";
   private static final String JSON_KEY_MEASUREMENTS = "measurements";
   private static final String JSON_KEY_VALUES = "values";
-  private static final Gson GSON = new GsonBuilder().create();
 
   @Override
   public List<Message> format(ByteBuf payload) {
     if (payload == null) {
       return null;
     }
-    String txt = payload.toString(StandardCharsets.UTF_8);
-    JsonObject jsonObject = GSON.fromJson(txt, JsonObject.class);
-
-    if (jsonObject.get(JSON_KEY_TIMESTAMP) != null) {
-      return formatJson(jsonObject);
+    List<Message> ret = new ArrayList<>();
+    try (JsonReader reader =
+        new JsonReader(
+            new InputStreamReader(
+                new ByteBufInputStream(payload.duplicate()), StandardCharsets.UTF_8))) {
+      if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+        reader.beginArray();
+        while (reader.hasNext()) {
+          readObject(reader, ret);
+        }
+        reader.endArray();
+      } else {
+        readObject(reader, ret);
+      }
+    } catch (IOException | IllegalStateException | NumberFormatException e) {
+      throw new JsonParseException("payload is invalidate", e);
     }
-    if (jsonObject.get(JSON_KEY_TIMESTAMPS) != null) {
-      return formatBatchJson(jsonObject);
-    }
-    throw new JsonParseException("payload is invalidate");
+    return ret;
   }
 
-  private List<Message> formatJson(JsonObject jsonObject) {
-    Message message = new Message();
-    message.setDevice(jsonObject.get(JSON_KEY_DEVICE).getAsString());
-    message.setTimestamp(jsonObject.get(JSON_KEY_TIMESTAMP).getAsLong());
-    message.setMeasurements(
-        GSON.fromJson(
-            jsonObject.get(JSON_KEY_MEASUREMENTS), new TypeToken<List<String>>() {}.getType()));
-    message.setValues(
-        GSON.fromJson(jsonObject.get(JSON_KEY_VALUES), new TypeToken<List<String>>() {}.getType()));
-    return Lists.newArrayList(message);
-  }
+  private void readObject(JsonReader reader, List<Message> ret) throws IOException {
+    String device = null;
+    Long timestamp = null;
+    List<Long> timestamps = null;
+    List<String> measurements = null;
+    // a list of values for a single row, or a list of lists for batch rows
+    List<Object> values = null;
 
-  private List<Message> formatBatchJson(JsonObject jsonObject) {
-    String device = jsonObject.get(JSON_KEY_DEVICE).getAsString();
-    List<String> measurements =
-        GSON.fromJson(
-            jsonObject.getAsJsonArray(JSON_KEY_MEASUREMENTS),
-            new TypeToken<List<String>>() {}.getType());
-    List<Long> timestamps =
-        GSON.fromJson(
-            jsonObject.get(JSON_KEY_TIMESTAMPS), new TypeToken<List<Long>>() {}.getType());
-    List<List<String>> values =
-        GSON.fromJson(
-            jsonObject.get(JSON_KEY_VALUES), new TypeToken<List<List<String>>>() {}.getType());
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case JSON_KEY_DEVICE:
+          device = reader.nextString();
+          break;
+        case JSON_KEY_TIMESTAMP:
+          timestamp = reader.nextLong();
+          break;
+        case JSON_KEY_TIMESTAMPS:
+          timestamps = new ArrayList<>();
+          reader.beginArray();
+          while (reader.hasNext()) {
+            timestamps.add(reader.nextLong());
+          }
+          reader.endArray();
+          break;
+        case JSON_KEY_MEASUREMENTS:
+          measurements = readStringArray(reader);
+          break;
+        case JSON_KEY_VALUES:
+          values = new ArrayList<>();
+          reader.beginArray();
+          while (reader.hasNext()) {
+            if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+              values.add(readStringArray(reader));
+            } else {
+              values.add(readString(reader));
+            }
+          }
+          reader.endArray();
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
 
-    List<Message> ret = new ArrayList<>(timestamps.size());
-    for (int i = 0; i < timestamps.size(); i++) {
+    if (device == null || measurements == null || values == null) {
+      throw new JsonParseException("payload is invalidate");
+    }
+    if (timestamp != null) {
       Message message = new Message();
       message.setDevice(device);
-      message.setTimestamp(timestamps.get(i));
+      message.setTimestamp(timestamp);
       message.setMeasurements(measurements);
-      message.setValues(values.get(i));
+      message.setValues(toStringList(values));
       ret.add(message);
+    } else if (timestamps != null) {
+      if (timestamps.size() != values.size()) {
+        throw new JsonParseException("the size of timestamps and values are not equal");
+      }
+      for (int i = 0; i < timestamps.size(); i++) {
+        Message message = new Message();
+        message.setDevice(device);
+        message.setTimestamp(timestamps.get(i));
+        message.setMeasurements(measurements);
+        message.setValues(toStringList(values.get(i)));
+        ret.add(message);
+      }
+    } else {
+      throw new JsonParseException("payload is invalidate");
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<String> toStringList(Object values) {
+    if (!(values instanceof List)) {
+      throw new JsonParseException("payload is invalidate");
+    }
+    for (Object value : (List<Object>) values) {
+      if (value != null && !(value instanceof String)) {
+        throw new JsonParseException("payload is invalidate");
+      }
     }
+    return (List<String>) values;
+  }
+
+  private List<String> readStringArray(JsonReader reader) throws IOException {
+    List<String> ret = new ArrayList<>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      ret.add(readString(reader));
+    }
+    reader.endArray();
     return ret;
   }
 
+  /** Numbers are kept in their literal form, so no precision is lost before type inference. */
+  private String readString(JsonReader reader) throws IOException {
+    switch (reader.peek()) {
+      case NULL:
+        reader.nextNull();
+        return null;
+      case BOOLEAN:
+        return String.valueOf(reader.nextBoolean());
+      default:
+        return reader.nextString();
+    }
+  }
+
   @Override
   public String getName() {
     return "json";
@@ -0,0 +1,393 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.iotdb.db.protocol.mqtt;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.concurrent.ThreadName;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.exception.BatchProcessException;
+import org.apache.iotdb.db.exception.WriteProcessRejectException;
+import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
+import org.apache.iotdb.db.query.control.SessionManager;
+import org.apache.iotdb.db.service.IoTDB;
+import org.apache.iotdb.rpc.RpcUtils;
+import org.apache.iotdb.rpc.TSStatusCode;
+import org.apache.iotdb.service.rpc.thrift.TSStatus;
+
+import io.netty.buffer.ByteBuf;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ingestion stage of the MQTT service. The payloads are handed over from the broker threads to
+ * a fixed number of workers, each of which decodes the payloads and buffers the rows per device.
+ * The rows of a device are inserted as one {@link InsertTabletPlan} when there are enough of them,
+ * or when the oldest one has waited for the max delay.
+ *
+ * <p>The messages of a client are always processed by the same worker, so they are inserted in the
+ * order they are published. The queue of each worker is bounded. The broker threads serve many
+ * clients on each event loop, so they only wait a short time for room in a full queue, the payloads
+ * that still can not be queued are dropped and counted in {@link #getDroppedMessageCount()}.
+ *
+ * <p>A batch rejected by the memory control is retried after the rejection is over, the rows that
+ * still can not be inserted are counted in {@link #getDroppedRowCount()}.
+ */
+public class MqttIngestionPipeline {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MqttIngestionPipeline.class);
+
+  private static final SessionManager SESSION_MANAGER = SessionManager.getInstance();
+
+  private static final int MAX_INSERT_RETRY_NUM = 3;
+
+  private final PayloadFormatter payloadFormat;
+  private final int batchSize;
+  private final long maxDelayInMs;
+  private final long submitTimeoutInMs;
+
+  private final Worker[] workers;
+  private final ExecutorService pool;
+
+  private final AtomicLong droppedRowCount = new AtomicLong();
+  private final AtomicLong droppedMessageCount = new AtomicLong();
+
+  public MqttIngestionPipeline(
+      PayloadFormatter payloadFormat,
+      int workerNum,
+      int queueSize,
+      long submitTimeoutInMs,
+      int batchSize,
+      long maxDelayInMs) {
+    this.payloadFormat = payloadFormat;
+    this.batchSize = Math.max(1, batchSize);
+    this.maxDelayInMs = Math.max(0, maxDelayInMs);
+    this.submitTimeoutInMs = Math.max(0, submitTimeoutInMs);
+    workerNum = Math.max(1, workerNum);
+    this.workers = new Worker[workerNum];
+    this.pool =
+        IoTDBThreadPoolFactory.newFixedThreadPool(workerNum, ThreadName.MQTT_INGESTION.getName());
+    for (int i = 0; i < workerNum; i++) {
+      workers[i] = new Worker(Math.max(1, queueSize));
+      pool.submit(workers[i]);
+    }
+  }
+
+  /**
+   * Hand the payload over to the worker of the client, waiting at most the submit timeout while the
+   * queue of the worker is full. The payload is retained until it is decoded.
+   *
+   * @return false if the payload is dropped because the queue is still full
+   */
+  public boolean submit(String clientId, ByteBuf payload, long sessionId)
+      throws InterruptedException {
+    Worker worker = workers[Math.floorMod(Objects.hashCode(clientId), workers.length)];
+    payload.retain();
+    boolean submitted = false;
+    try {
+      submitted =
+          worker.queue.offer(
+              new Task(payload, sessionId, false, null), submitTimeoutInMs, TimeUnit.MILLISECONDS);
+    } finally {
+      if (!submitted) {
+        payload.release();
+      }
+    }
+    if (!submitted) {
+      droppedMessageCount.incrementAndGet();
+    }
+    return submitted;
+  }
+
+  /** Insert all the buffered rows, and wait until the payloads submitted before are inserted. */
+  public void flush() throws InterruptedException {
+    if (pool.isShutdown()) {
+      return;
+    }
+    CountDownLatch latch = new CountDownLatch(workers.length);
+    for (Worker worker : workers) {
+      worker.queue.put(new Task(null, 0, true, latch::countDown));
+    }
+    latch.await();
+  }
+
+  /**
+   * Insert the buffered rows of the session on the worker of the client without waiting for them,
+   * and then run the callback on the worker. The rows buffered by the other workers are left as
+   * they are, so a disconnecting client does not hold up the others.
+   */
+  public void flush(String clientId, long sessionId, Runnable callback)
+      throws InterruptedException {
+    if (pool.isShutdown()) {
+      callback.run();
+      return;
+    }
+    Worker worker = workers[Math.floorMod(Objects.hashCode(clientId), workers.length)];
+    worker.queue.put(new Task(null, sessionId, false, callback));
+  }
+
+  /** the number of the rows dropped because they could not be inserted */
+  public long getDroppedRowCount() {
+    return droppedRowCount.get();
+  }
+
+  /** the number of the messages dropped because the queue of their worker was full */
+  public long getDroppedMessageCount() {
+    return droppedMessageCount.get();
+  }
+
+  /** Insert all the buffered rows and stop the workers. */
+  public void close() throws InterruptedException {
+    if (pool.isShutdown()) {
+      return;
+    }
+    flush();
+    pool.shutdownNow();
+    if (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+      LOG.warn("MQTT ingestion workers are not terminated in 1 minute");
+    }
+  }
+
+  /**
+   * Insert the plan with the authority of the session.
+   *
+   * @return null if the plan is inserted, otherwise the status of the failure
+   */
+  protected TSStatus executeInsert(InsertTabletPlan plan, long sessionId) throws Exception {
+    TSStatus status = SESSION_MANAGER.checkAuthority(plan, sessionId);
+    if (status != null) {
+      return status;
+    }
+    try {
+      return IoTDB.serviceProvider.executeNonQuery(plan)
+          ? null
+          : RpcUtils.getStatus(TSStatusCode.EXECUTE_STATEMENT_ERROR);
+    } catch (BatchProcessException e) {
+      for (TSStatus failingStatus : e.getFailingStatus()) {
+        if (failingStatus != null
+            && failingStatus.getCode() == TSStatusCode.WRITE_PROCESS_REJECT.getStatusCode()) {
+          return failingStatus;
+        }
+      }
+      throw e;
+    }
+  }
+
+  private static class Task {
+
+    private final ByteBuf payload;
+    private final long sessionId;
+    /** whether the rows of all sessions are flushed by this flush task */
+    private final boolean allSessions;
+    /** not null if this is a flush task, run after the rows are inserted */
+    private final Runnable callback;
+
+    private Task(ByteBuf payload, long sessionId, boolean allSessions, Runnable callback) {
+      this.payload = payload;
+      this.sessionId = sessionId;
+      this.allSessions = allSessions;
+      this.callback = callback;
+    }
+  }
+
+  private class Worker implements Runnable {
+
+    private final BlockingQueue<Task> queue;
+    /** in the order of creation, so the first one is always the oldest */
+    private final Map<String, DeviceMessageBatch> batches = new LinkedHashMap<>();
+
+    private Worker(int queueSize) {
+      this.queue = new ArrayBlockingQueue<>(queueSize);
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (!Thread.currentThread().isInterrupted()) {
+          Task task;
+          if (batches.isEmpty()) {
+            task = queue.take();
+          } else {
+            long wait =
+                batches.values().iterator().next().getCreateTime()
+                    + maxDelayInMs
+                    - System.currentTimeMillis();
+            task = queue.poll(Math.max(0, wait), TimeUnit.MILLISECONDS);
+          }
+
+          if (task != null) {
+            if (task.callback != null) {
+              if (task.allSessions) {
+                insertAll();
+              } else {
+                insertSession(task.sessionId);
+              }
+              task.callback.run();
+              continue;
+            }
+            process(task);
+          }
+          insertExpired();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        insertAll();
+        Task task;
+        while ((task = queue.poll()) != null) {
+          if (task.payload != null) {
+            task.payload.release();
+          } else {
+            task.callback.run();
+          }
+        }
+      }
+    }
+
+    private void process(Task task) {
+      List<Message> events;
+      try {
+        events = payloadFormat.format(task.payload);
+      } catch (Exception e) {
+        LOG.warn("meet error when decoding the mqtt payload, because ", e);
+        return;
+      } finally {
+        task.payload.release();
+      }
+      if (events == null) {
+        return;
+      }
+
+      for (Message event : events) {
+        if (event == null || event.getDevice() == null || event.getTimestamp() == null) {
+          continue;
+        }
+        DeviceMessageBatch batch = batches.get(event.getDevice());
+        if (batch != null && batch.getSessionId() != task.sessionId) {
+          // the rows are checked against the authority of the session they come from
+          insert(batches.remove(event.getDevice()));
+          batch = null;
+        }
+        if (batch == null) {
+          batch =
+              new DeviceMessageBatch(event.getDevice(), task.sessionId, System.currentTimeMillis());
+          batches.put(event.getDevice(), batch);
+        }
+        batch.add(event);
+        if (batch.getRowCount() >= batchSize) {
+          insert(batches.remove(event.getDevice()));
+        }
+      }
+    }
+
+    private void insertExpired() {
+      long now = System.currentTimeMillis();
+      Iterator<DeviceMessageBatch> iterator = batches.values().iterator();
+      while (iterator.hasNext()) {
+        DeviceMessageBatch batch = iterator.next();
+        if (batch.getCreateTime() + maxDelayInMs > now) {
+          break;
+        }
+        iterator.remove();
+        insert(batch);
+      }
+    }
+
+    private void insertSession(long sessionId) {
+      Iterator<DeviceMessageBatch> iterator = batches.values().iterator();
+      while (iterator.hasNext()) {
+        DeviceMessageBatch batch = iterator.next();
+        if (batch.getSessionId() == sessionId) {
+          iterator.remove();
+          insert(batch);
+        }
+      }
+    }
+
+    private void insertAll() {
+      for (DeviceMessageBatch batch : batches.values()) {
+        insert(batch);
+      }
+      batches.clear();
+    }
+
+    private void insert(DeviceMessageBatch batch) {
+      InsertTabletPlan plan;
+      try {
+        plan = batch.toInsertTabletPlan();
+      } catch (Exception e) {
+        drop(batch, e.getMessage());
+        return;
+      }
+      if (plan == null) {
+        return;
+      }
+
+      for (int retryNum = 0; ; retryNum++) {
+        TSStatus status;
+        try {
+          status = executeInsert(plan, batch.getSessionId());
+        } catch (Exception e) {
+          LOG.warn(
+              "meet error when inserting the rows of device {}, because ", batch.getDevice(), e);
+          drop(batch, e.getMessage());
+          return;
+        }
+        if (status == null) {
+          LOG.debug("insert {} rows of device {}", batch.getRowCount(), batch.getDevice());
+          return;
+        }
+        if (status.getCode() != TSStatusCode.WRITE_PROCESS_REJECT.getStatusCode()
+            || retryNum >= MAX_INSERT_RETRY_NUM) {
+          drop(batch, status.getMessage());
+          return;
+        }
+        try {
+          // wait until the memory is released by the flushes, or for the max waiting time
+          StorageEngine.blockInsertionIfReject(null);
+        } catch (WriteProcessRejectException e) {
+          LOG.debug(
+              "retry inserting the rows of device {}, though {}",
+              batch.getDevice(),
+              e.getMessage());
+        }
+      }
+    }
+
+    private void drop(DeviceMessageBatch batch, String reason) {
+      long dropped = droppedRowCount.addAndGet(batch.getRowCount());
+      LOG.error(
+          "drop {} rows of device {}, {} rows are dropped in total, because {}",
+          batch.getRowCount(),
+          batch.getDevice(),
+          dropped,
+          reason);
+    }
+  }
+}
@@ -18,13 +18,10 @@
 package org.apache.iotdb.db.protocol.mqtt;
 
 import org.apache.iotdb.db.conf.IoTDBConfig;
-import org.apache.iotdb.db.metadata.path.PartialPath;
-import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.query.control.SessionManager;
-import org.apache.iotdb.db.service.IoTDB;
 import org.apache.iotdb.db.service.basic.BasicOpenSessionResp;
 import org.apache.iotdb.service.rpc.thrift.TSProtocolVersion;
-import org.apache.iotdb.service.rpc.thrift.TSStatus;
 
 import io.moquette.interception.AbstractInterceptHandler;
 import io.moquette.interception.messages.InterceptConnectMessage;
@@ -37,7 +34,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.ZoneId;
-import java.util.List;
 
 /** PublishHandler handle the messages from MQTT clients. */
 public class PublishHandler extends AbstractInterceptHandler {
@@ -47,14 +43,25 @@ public class PublishHandler extends AbstractInterceptHandler {
 
   private static final Logger LOG = LoggerFactory.getLogger(PublishHandler.class);
 
-  private final PayloadFormatter payloadFormat;
+  private final MqttIngestionPipeline pipeline;
 
   public PublishHandler(IoTDBConfig config) {
-    this.payloadFormat = PayloadFormatManager.getPayloadFormat(config.getMqttPayloadFormatter());
+    this(config, PayloadFormatManager.getPayloadFormat(config.getMqttPayloadFormatter()));
   }
 
   protected PublishHandler(PayloadFormatter payloadFormat) {
-    this.payloadFormat = payloadFormat;
+    this(IoTDBDescriptor.getInstance().getConfig(), payloadFormat);
+  }
+
+  private PublishHandler(IoTDBConfig config, PayloadFormatter payloadFormat) {
+    this.pipeline =
+        new MqttIngestionPipeline(
+            payloadFormat,
+            config.getMqttIngestionWorkerNum(),
+            config.getMqttIngestionQueueSize(),
+            config.getMqttIngestionSubmitTimeoutInMs(),
+            config.getMqttBatchSize(),
+            config.getMqttBatchMaxDelayInMs());
   }
 
   @Override
@@ -79,7 +86,27 @@ public class PublishHandler extends AbstractInterceptHandler {
 
   @Override
   public void onDisconnect(InterceptDisconnectMessage msg) {
-    SESSION_MANAGER.closeSession(sessionId);
+    long disconnectedSessionId = sessionId;
+    try {
+      // the buffered rows are inserted before the session is closed, which is done by the worker of
+      // the client, so the broker thread does not wait for the insertion
+      pipeline.flush(
+          msg.getClientID(),
+          disconnectedSessionId,
+          () -> SESSION_MANAGER.closeSession(disconnectedSessionId));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      SESSION_MANAGER.closeSession(disconnectedSessionId);
+    }
+  }
+
+  /** Insert the buffered rows and stop the ingestion workers. */
+  public void close() {
+    try {
+      pipeline.close();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
   }
 
   @Override
@@ -98,43 +125,19 @@ public class PublishHandler extends AbstractInterceptHandler {
         topic,
         payload);
 
-    List<Message> events = payloadFormat.format(payload);
-    if (events == null) {
-      return;
-    }
-
-    // since device ids from messages maybe different, so we use the InsertPlan not
-    // InsertTabletPlan.
-    for (Message event : events) {
-      if (event == null) {
-        continue;
-      }
-
-      boolean status = false;
-      try {
-        PartialPath path = new PartialPath(event.getDevice());
-        InsertRowPlan plan =
-            new InsertRowPlan(
-                path,
-                event.getTimestamp(),
-                event.getMeasurements().toArray(new String[0]),
-                event.getValues().toArray(new String[0]));
-        TSStatus tsStatus = SESSION_MANAGER.checkAuthority(plan, sessionId);
-        if (tsStatus != null) {
-          LOG.warn(tsStatus.message);
-        } else {
-          status = IoTDB.serviceProvider.executeNonQuery(plan);
-        }
-      } catch (Exception e) {
+    // the broker thread serves all the clients of its event loop, so it never waits for the memory
+    // control, which the ingestion workers wait for, and only waits a short time for a full queue
+    try {
+      if (!pipeline.submit(clientId, payload, sessionId)) {
         LOG.warn(
-            "meet error when inserting device {}, measurements {}, at time {}, because ",
-            event.getDevice(),
-            event.getMeasurements(),
-            event.getTimestamp(),
-            e);
+            "drop the message of client {} on topic {} because the ingestion queue is full, "
+                + "{} messages are dropped in total",
+            clientId,
+            topic,
+            pipeline.getDroppedMessageCount());
       }
-
-      LOG.debug("event process result: {}", status);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
   }
 }
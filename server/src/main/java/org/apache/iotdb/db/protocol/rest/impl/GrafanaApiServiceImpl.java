@@ -19,6 +19,7 @@ package org.apache.iotdb.db.protocol.rest.impl;
 
 import org.apache.iotdb.commons.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.cache.QueryResultCache;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.protocol.rest.GrafanaApiService;
 import org.apache.iotdb.db.protocol.rest.NotFoundException;
@@ -30,13 +31,16 @@ import org.apache.iotdb.db.protocol.rest.model.ExecutionStatus;
 import org.apache.iotdb.db.protocol.rest.model.ExpressionRequest;
 import org.apache.iotdb.db.protocol.rest.model.SQL;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.GroupByTimePlan;
 import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
 import org.apache.iotdb.db.qp.physical.sys.ShowPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.dataset.ListDataSet;
 import org.apache.iotdb.db.query.dataset.groupby.GroupByLevelDataSet;
 import org.apache.iotdb.db.service.IoTDB;
 import org.apache.iotdb.db.service.basic.ServiceProvider;
 import org.apache.iotdb.rpc.TSStatusCode;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 
 import com.google.common.base.Joiner;
@@ -46,6 +50,8 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
 
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
 
 public class GrafanaApiServiceImpl extends GrafanaApiService {
 
@@ -116,26 +122,10 @@ public class GrafanaApiServiceImpl extends GrafanaApiService {
     try {
       RequestValidationHandler.validateExpressionRequest(expressionRequest);
 
-      final String expression = Joiner.on(",").join(expressionRequest.getExpression());
-      final String prefixPaths = Joiner.on(",").join(expressionRequest.getPrefixPath());
       final long startTime =
           (long) (expressionRequest.getStartTime().doubleValue() * timePrecision);
       final long endTime = (long) (expressionRequest.getEndTime().doubleValue() * timePrecision);
-      String sql =
-          "select "
-              + expression
-              + " from "
-              + prefixPaths
-              + " where timestamp>="
-              + startTime
-              + " and timestamp<= "
-              + endTime;
-      if (StringUtils.isNotEmpty(expressionRequest.getCondition())) {
-        sql += " and " + expressionRequest.getCondition();
-      }
-      if (StringUtils.isNotEmpty(expressionRequest.getControl())) {
-        sql += " " + expressionRequest.getControl();
-      }
+      String sql = generateSql(expressionRequest, startTime, endTime);
 
       PhysicalPlan physicalPlan =
           serviceProvider.getPlanner().parseSQLToGrafanaQueryPlan(sql, ZoneId.systemDefault());
@@ -145,6 +135,18 @@ public class GrafanaApiServiceImpl extends GrafanaApiService {
         return response;
       }
 
+      if (IoTDBDescriptor.getInstance().getConfig().isEnableQueryResultCache()
+          && physicalPlan instanceof GroupByTimePlan
+          && QueryResultCache.isCacheable((GroupByTimePlan) physicalPlan)
+          && !StringUtils.containsIgnoreCase(expressionRequest.getCondition(), "now(")) {
+        response =
+            executeWithQueryResultCache(
+                expressionRequest, (GroupByTimePlan) physicalPlan, sql, startTime, endTime);
+        if (response != null) {
+          return response;
+        }
+      }
+
       final long queryId = ServiceProvider.SESSION_MANAGER.requestQueryId(true);
       try {
         QueryContext queryContext =
@@ -172,6 +174,147 @@ public class GrafanaApiServiceImpl extends GrafanaApiService {
     }
   }
 
+  private String generateSql(ExpressionRequest expressionRequest, long startTime, long endTime) {
+    String sql =
+        "select "
+            + Joiner.on(",").join(expressionRequest.getExpression())
+            + " from "
+            + Joiner.on(",").join(expressionRequest.getPrefixPath())
+            + " where timestamp>="
+            + startTime
+            + " and timestamp<= "
+            + endTime;
+    if (StringUtils.isNotEmpty(expressionRequest.getCondition())) {
+      sql += " and " + expressionRequest.getCondition();
+    }
+    if (StringUtils.isNotEmpty(expressionRequest.getControl())) {
+      sql += " " + expressionRequest.getControl();
+    }
+    return sql;
+  }
+
+  /**
+   * Dashboards refresh the same GROUP BY time query again and again, while only the latest windows
+   * change. The windows that only cover sealed files are taken from the {@link QueryResultCache},
+   * and each run of the other windows is computed by one query narrowed to the run.
+   *
+   * @return null if the plan has too many windows to be split
+   */
+  private Response executeWithQueryResultCache(
+      ExpressionRequest expressionRequest,
+      GroupByTimePlan plan,
+      String sql,
+      long startTime,
+      long endTime)
+      throws Exception {
+    long firstWindowStart = plan.getStartTime();
+    long interval = plan.getInterval();
+    long slidingStep = plan.getSlidingStep();
+    long windowNum =
+        plan.getEndTime() > firstWindowStart
+            ? (plan.getEndTime() - 1 - firstWindowStart) / slidingStep + 1
+            : 0;
+    if (windowNum == 0 || windowNum > QueryResultCache.MAX_WINDOW_NUM) {
+      return null;
+    }
+
+    QueryResultCache queryResultCache = QueryResultCache.getInstance();
+    // the versions must be got before querying, see QueryResultCache.getWindowVersions
+    long[] versions =
+        queryResultCache.getWindowVersions(
+            plan.getDeduplicatedPaths(), firstWindowStart, interval, slidingStep, (int) windowNum);
+    String planKey =
+        QueryResultCache.getPlanKey(
+            plan, StringUtils.defaultString(expressionRequest.getCondition()));
+
+    // windows cut by the time range of the request or by the end time of the plan are not cached,
+    // as another request may cut them differently
+    RowRecord[] cachedRows = new RowRecord[versions.length];
+    boolean[] cacheable = new boolean[versions.length];
+    for (int i = 0; i < versions.length; i++) {
+      long windowStart = firstWindowStart + i * slidingStep;
+      cacheable[i] =
+          versions[i] != QueryResultCache.OPEN_WINDOW
+              && windowStart >= startTime
+              && windowStart + interval - 1 <= endTime
+              && windowStart + interval <= plan.getEndTime();
+      if (cacheable[i]) {
+        cachedRows[i] = queryResultCache.get(planKey, windowStart, versions[i]);
+      }
+    }
+    List<int[]> missedRuns = QueryResultCache.getMissedRuns(cachedRows);
+
+    ListDataSet dataSet =
+        new ListDataSet(plan.getDeduplicatedPaths(), plan.getDeduplicatedDataTypes());
+    final long queryId = ServiceProvider.SESSION_MANAGER.requestQueryId(true);
+    try {
+      QueryContext queryContext =
+          serviceProvider.genQueryContext(
+              queryId,
+              plan.isDebug(),
+              System.currentTimeMillis(),
+              sql,
+              IoTDBConstant.DEFAULT_CONNECTION_TIMEOUT_MS);
+      int nextWindow = 0;
+      for (int[] missedRun : missedRuns) {
+        for (; nextWindow < missedRun[0]; nextWindow++) {
+          dataSet.putRecord(cachedRows[nextWindow]);
+        }
+        long runStartTime = firstWindowStart + missedRun[0] * slidingStep;
+        long runEndTime =
+            Math.min(firstWindowStart + missedRun[1] * slidingStep + interval, plan.getEndTime());
+        long queryStartTime = Math.max(startTime, runStartTime);
+        long queryEndTime = Math.min(endTime, runEndTime - 1);
+        GroupByTimePlan runPlan =
+            (GroupByTimePlan)
+                serviceProvider
+                    .getPlanner()
+                    .parseSQLToGrafanaQueryPlan(
+                        queryStartTime <= queryEndTime
+                            ? generateSql(expressionRequest, queryStartTime, queryEndTime)
+                            : sql,
+                        ZoneId.systemDefault());
+        runPlan.setStartTime(runStartTime);
+        runPlan.setEndTime(runEndTime);
+        QueryDataSet runDataSet =
+            serviceProvider.createQueryDataSet(
+                queryContext, runPlan, IoTDBConstant.DEFAULT_FETCH_SIZE);
+
+        List<RowRecord> runRows = new ArrayList<>();
+        boolean aligned = true;
+        while (runDataSet.hasNext()) {
+          RowRecord row = runDataSet.next();
+          int window = missedRun[0] + runRows.size();
+          aligned &=
+              window <= missedRun[1]
+                  && row.getTimestamp() == QueryResultCache.getRowTimestamp(plan, window);
+          runRows.add(row);
+          dataSet.putRecord(row);
+        }
+        // only cache the rows that can be matched with their windows for sure
+        if (aligned && runRows.size() == missedRun[1] - missedRun[0] + 1) {
+          for (int i = missedRun[0]; i <= missedRun[1]; i++) {
+            if (cacheable[i]) {
+              queryResultCache.put(
+                  planKey,
+                  firstWindowStart + i * slidingStep,
+                  versions[i],
+                  runRows.get(i - missedRun[0]));
+            }
+          }
+        }
+        nextWindow = missedRun[1] + 1;
+      }
+      for (; nextWindow < cachedRows.length; nextWindow++) {
+        dataSet.putRecord(cachedRows[nextWindow]);
+      }
+    } finally {
+      ServiceProvider.SESSION_MANAGER.releaseQueryResourceNoExceptions(queryId);
+    }
+
+    return QueryDataSetHandler.fillDataSetWithTimestamps(dataSet, plan, 0, timePrecision);
+  }
+
   @Override
   public Response login(SecurityContext securityContext) throws NotFoundException {
     return Response.ok()
@@ -24,13 +24,17 @@ import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.metadata.path.AlignedPath;
 import org.apache.iotdb.db.metadata.path.PartialPath;
 import org.apache.iotdb.db.query.control.QueryTimeManager;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.metadata.IChunkMetadata;
 
+import com.google.common.util.concurrent.RateLimiter;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /** QueryContext contains the shared information with in a query. */
 public class QueryContext {
@@ -69,6 +73,19 @@ public class QueryContext {
 
   private volatile boolean isInterrupted = false;
 
+  /** chunks of this query read from the chunk cache or loaded into it, by concurrent readers */
+  private final AtomicLong chunkCacheHitNum = new AtomicLong(0);
+
+  private final AtomicLong chunkCacheMissNum = new AtomicLong(0);
+
+  /** bytes of the chunks read by this query, throttled by chunkReadRateLimiter if it is set */
+  private final AtomicLong chunkReadBytes = new AtomicLong(0);
+
+  private RateLimiter chunkReadRateLimiter;
+
+  /** memory of the chunks read ahead for this query but not consumed yet */
+  private final AtomicLong prefetchMemoryCost = new AtomicLong(0);
+
   public QueryContext() {}
 
   public QueryContext(long queryId) {
@@ -192,6 +209,67 @@ public class QueryContext {
     return this;
   }
 
+  public void recordChunkCacheAccess(boolean hit) {
+    if (hit) {
+      chunkCacheHitNum.incrementAndGet();
+    } else {
+      chunkCacheMissNum.incrementAndGet();
+    }
+  }
+
+  public long getChunkCacheHitNum() {
+    return chunkCacheHitNum.get();
+  }
+
+  public long getChunkCacheMissNum() {
+    return chunkCacheMissNum.get();
+  }
+
+  /**
+   * Account a chunk read by this query, which waits for the chunkReadRateLimiter if the query has
+   * one, e.g. a compaction.
+   */
+  public void recordChunkRead(ChunkHeader chunkHeader) {
+    int bytes = chunkHeader.getSerializedSize() + chunkHeader.getDataSize();
+    chunkReadBytes.addAndGet(bytes);
+    if (chunkReadRateLimiter != null && bytes > 0) {
+      chunkReadRateLimiter.acquire(bytes);
+    }
+  }
+
+  public long getChunkReadBytes() {
+    return chunkReadBytes.get();
+  }
+
+  public RateLimiter getChunkReadRateLimiter() {
+    return chunkReadRateLimiter;
+  }
+
+  public QueryContext setChunkReadRateLimiter(RateLimiter chunkReadRateLimiter) {
+    this.chunkReadRateLimiter = chunkReadRateLimiter;
+    return this;
+  }
+
+  /** @return false if reserving size more bytes for read-ahead would exceed budget */
+  public boolean tryReservePrefetchMemory(long size, long budget) {
+    long cost;
+    do {
+      cost = prefetchMemoryCost.get();
+      if (cost + size > budget) {
+        return false;
+      }
+    } while (!prefetchMemoryCost.compareAndSet(cost, cost + size));
+    return true;
+  }
+
+  public void releasePrefetchMemory(long size) {
+    prefetchMemoryCost.addAndGet(-size);
+  }
+
+  public long getPrefetchMemoryCost() {
+    return prefetchMemoryCost.get();
+  }
+
   public void setInterrupted(boolean interrupted) {
     isInterrupted = interrupted;
   }
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.control;
+
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The next batch of an aligned query result, filled in the query thread pool while the previous
+ * batch is sent to the client. Either the fill or a release of the query claims it first: a release
+ * that wins keeps the fill from touching the released data set, and one that loses waits for the
+ * running fill to finish. A release never waits for a fill that has not started, so it can't block
+ * a pool thread on a task queued behind it.
+ */
+public class PrefetchedQueryBatch {
+
+  private final AtomicBoolean claimed = new AtomicBoolean(false);
+  private final FutureTask<TSQueryDataSet> task;
+
+  public PrefetchedQueryBatch(Callable<TSQueryDataSet> fill) {
+    this.task = new FutureTask<>(() -> claimed.compareAndSet(false, true) ? fill.call() : null);
+  }
+
+  /** @return the task to submit to the query thread pool */
+  public Runnable getTask() {
+    return task;
+  }
+
+  /** @return the filled batch, or null if the query was released before the fill started */
+  public TSQueryDataSet get() throws InterruptedException, ExecutionException {
+    return task.get();
+  }
+
+  /** Keeps the fill from starting, or waits for it if it is already running. */
+  public void cancel() {
+    if (claimed.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      task.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      // the batch is dropped with the query anyway
+    }
+  }
+}
@@ -27,6 +27,7 @@ import org.apache.iotdb.db.metadata.idtable.IDTable;
 import org.apache.iotdb.db.metadata.path.PartialPath;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.externalsort.serialize.IExternalSortFileDeserializer;
+import org.apache.iotdb.db.query.reader.chunk.ChunkPrefetcher;
 import org.apache.iotdb.db.query.udf.service.TemporaryQueryDataFileService;
 import org.apache.iotdb.db.utils.QueryUtils;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
@@ -71,10 +72,19 @@ public class QueryResourceManager {
    */
   private final Map<Long, Map<String, QueryDataSource>> cachedQueryDataSourcesMap;
 
+  /**
+   * Record the chunk prefetchers of the series readers, which are closed when the query ends even
+   * if the readers are not exhausted.
+   *
+   * <p>Key: query job id. Value: chunk prefetchers of the query.
+   */
+  private final Map<Long, List<ChunkPrefetcher>> chunkPrefetcherMap;
+
   private QueryResourceManager() {
     filePathsManager = new QueryFileManager();
     externalSortFileMap = new ConcurrentHashMap<>();
     cachedQueryDataSourcesMap = new ConcurrentHashMap<>();
+    chunkPrefetcherMap = new ConcurrentHashMap<>();
   }
 
   public static QueryResourceManager getInstance() {
@@ -114,6 +124,19 @@ public class QueryResourceManager {
     externalSortFileMap.computeIfAbsent(queryId, x -> new ArrayList<>()).add(deserializer);
   }
 
+  /**
+   * register the chunk prefetcher of a series reader, so that it stops reading ahead when the query
+   * ends.
+   *
+   * @param queryId query job id
+   * @param chunkPrefetcher chunk prefetcher of a series reader of the query
+   */
+  public void registerChunkPrefetcher(long queryId, ChunkPrefetcher chunkPrefetcher) {
+    chunkPrefetcherMap
+        .computeIfAbsent(queryId, x -> Collections.synchronizedList(new ArrayList<>()))
+        .add(chunkPrefetcher);
+  }
+
   /**
    * The method is called in mergeLock() when executing query. This method will get all the
    * QueryDataSource needed for this query and put them in the cachedQueryDataSourcesMap.
@@ -215,6 +238,14 @@ public class QueryResourceManager {
       externalSortFileMap.remove(queryId);
     }
 
+    // stop reading chunks ahead for the readers which are not exhausted
+    List<ChunkPrefetcher> chunkPrefetchers = chunkPrefetcherMap.remove(queryId);
+    if (chunkPrefetchers != null) {
+      synchronized (chunkPrefetchers) {
+        chunkPrefetchers.forEach(ChunkPrefetcher::close);
+      }
+    }
+
     // remove usage of opened file paths of current thread
     filePathsManager.removeUsedFilesForQuery(queryId);
 
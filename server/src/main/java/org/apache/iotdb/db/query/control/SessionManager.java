@@ -71,6 +71,9 @@ public class SessionManager {
   private final Map<Long, Set<Long>> statementIdToQueryId = new ConcurrentHashMap<>();
   // (queryId -> QueryDataSet)
   private final Map<Long, QueryDataSet> queryIdToDataSet = new ConcurrentHashMap<>();
+  // (queryId -> next batch filled ahead of the fetch request)
+  private final Map<Long, PrefetchedQueryBatch> queryIdToPrefetchedBatch =
+      new ConcurrentHashMap<>();
 
   // (sessionId -> client version number)
   private final Map<Long, IoTDBConstant.ClientVersion> sessionIdToClientVersion =
@@ -289,6 +292,10 @@ public class SessionManager {
   }
 
   public void releaseQueryResource(long queryId) throws StorageEngineException {
+    PrefetchedQueryBatch prefetchedBatch = queryIdToPrefetchedBatch.remove(queryId);
+    if (prefetchedBatch != null) {
+      prefetchedBatch.cancel();
+    }
     QueryDataSet dataSet = queryIdToDataSet.remove(queryId);
     if (dataSet instanceof UDTFDataSet) {
       ((UDTFDataSet) dataSet).finalizeUDFs(queryId);
@@ -379,6 +386,14 @@ public class SessionManager {
     queryIdToDataSet.remove(queryId);
   }
 
+  public void setPrefetchedBatch(Long queryId, PrefetchedQueryBatch prefetchedBatch) {
+    queryIdToPrefetchedBatch.put(queryId, prefetchedBatch);
+  }
+
+  public PrefetchedQueryBatch removePrefetchedBatch(Long queryId) {
+    return queryIdToPrefetchedBatch.remove(queryId);
+  }
+
   public void closeDataset(Long statementId, Long queryId) {
     releaseQueryResourceNoExceptions(queryId);
     if (statementIdToQueryId.containsKey(statementId)) {
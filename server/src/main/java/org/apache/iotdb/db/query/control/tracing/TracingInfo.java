@@ -50,6 +50,9 @@ public class TracingInfo {
   private int totalPageNum = 0;
   private int overlappedPageNum = 0;
 
+  private long chunkCacheHitNum = 0;
+  private long chunkCacheMissNum = 0;
+
   private final List<Pair<String, Long>> activityList = new ArrayList<>();
 
   public TracingInfo() {}
@@ -129,6 +132,11 @@ public class TracingInfo {
     this.overlappedPageNum++;
   }
 
+  public void setChunkCacheAccessNum(long chunkCacheHitNum, long chunkCacheMissNum) {
+    this.chunkCacheHitNum = chunkCacheHitNum;
+    this.chunkCacheMissNum = chunkCacheMissNum;
+  }
+
   public void addActivity(String activity, long time) {
     activityList.add(new Pair<>(activity, time - startTime));
   }
@@ -159,6 +167,8 @@ public class TracingInfo {
     tsTracingInfo.setUnsequenceChunkPointNum(unsequenceChunkPointNum);
     tsTracingInfo.setTotalPageNum(totalPageNum);
     tsTracingInfo.setOverlappedPageNum(overlappedPageNum);
+    tsTracingInfo.setChunkCacheHitNum(chunkCacheHitNum);
+    tsTracingInfo.setChunkCacheMissNum(chunkCacheMissNum);
     return tsTracingInfo;
   }
 }
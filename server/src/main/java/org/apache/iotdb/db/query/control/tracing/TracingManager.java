@@ -65,6 +65,10 @@ public class TracingManager {
     getTracingInfo(queryId).addOverlappedPageNum();
   }
 
+  public void setChunkCacheAccessNum(long queryId, long hitNum, long missNum) {
+    getTracingInfo(queryId).setChunkCacheAccessNum(hitNum, missNum);
+  }
+
   public void setStartTime(long queryId, long startTime, String statement) {
     getTracingInfo(queryId).setStartTime(startTime);
     registerActivity(
@@ -32,6 +32,7 @@ import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.query.dataset.NonAlignEngineDataSet;
 import org.apache.iotdb.db.query.dataset.RawQueryDataSetWithValueFilter;
 import org.apache.iotdb.db.query.dataset.RawQueryDataSetWithoutValueFilter;
+import org.apache.iotdb.db.query.reader.chunk.ChunkPrefetcher;
 import org.apache.iotdb.db.query.reader.series.IReaderByTimestamp;
 import org.apache.iotdb.db.query.reader.series.ManagedSeriesReader;
 import org.apache.iotdb.db.query.reader.series.SeriesRawDataBatchReader;
@@ -134,7 +135,7 @@ public class RawDataQueryExecutor {
                 .getQueryDataSource(path, context, timeFilter, queryPlan.isAscending());
         timeFilter = queryDataSource.updateFilterUsingTTL(timeFilter);
 
-        ManagedSeriesReader reader =
+        SeriesRawDataBatchReader reader =
             new SeriesRawDataBatchReader(
                 path,
                 queryPlan.getAllMeasurementsInDevice(path.getDevice()),
@@ -145,6 +146,9 @@ public class RawDataQueryExecutor {
                 null,
                 null,
                 queryPlan.isAscending());
+        if (ChunkPrefetcher.isEnabled()) {
+          reader.enableChunkPrefetch();
+        }
         readersOfSelectedSeries.add(reader);
       }
     } catch (Exception e) {
@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.reader.chunk;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.cache.ChunkCache;
+import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache;
+import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache.TimeSeriesMetadataCacheKey;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.pool.ChunkPrefetchPoolManager;
+import org.apache.iotdb.db.utils.FileLoaderUtils;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.IChunkMetadata;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.reader.IPageReader;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Reads the chunks of one series ahead of a sequential scan on {@link ChunkPrefetchPoolManager}, so
+ * that the disk latency of the next chunks overlaps with the decoding of the current one.
+ *
+ * <p>The reader offers the chunks it has located in the order it will consume them. At most {@code
+ * depth} of them are read ahead at a time. The depth starts from 1, doubles up to {@link
+ * IoTDBConfig#getChunkPrefetchMaxDepth()} whenever the reader has to wait for a chunk, and shrinks
+ * by one whenever all chunks read ahead are already done, so it follows the consumption rate. The
+ * chunks read ahead but not consumed are accounted to the query, and reading ahead stops while they
+ * exceed {@link IoTDBConfig#getChunkPrefetchMemoryBudget()}.
+ *
+ * <p>Chunks are read through {@link ChunkCache}, so a chunk read ahead is shared with the other
+ * queries and is never read twice. The reader uses the prefetcher from its own thread, while {@link
+ * #close()} may also be called by the thread that ends the query, so the state is guarded by the
+ * monitor of the prefetcher. Waiting for a chunk does not hold the monitor.
+ */
+public class ChunkPrefetcher {
+
+  private static final Logger logger = LoggerFactory.getLogger(ChunkPrefetcher.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  /** the estimated size of one TEXT value, other types have a fixed size */
+  private static final int ESTIMATED_TEXT_SIZE = 32;
+
+  private final QueryContext context;
+  private final int maxDepth;
+  private final long memoryBudget;
+
+  /** chunks offered but not read ahead yet, in the order the reader consumes them */
+  private final Deque<ChunkMetadata> pending = new ArrayDeque<>();
+
+  /** chunk metadata may be shared by queries, so they are compared by identity */
+  private final Map<ChunkMetadata, PrefetchTask> prefetched = new IdentityHashMap<>();
+
+  private int depth = 1;
+
+  private boolean closed = false;
+
+  public ChunkPrefetcher(QueryContext context) {
+    this(context, config.getChunkPrefetchMaxDepth(), config.getChunkPrefetchMemoryBudget());
+  }
+
+  public ChunkPrefetcher(QueryContext context, int maxDepth, long memoryBudget) {
+    this.context = context;
+    this.maxDepth = maxDepth;
+    this.memoryBudget = memoryBudget;
+  }
+
+  public static boolean isEnabled() {
+    return config.getChunkPrefetchMaxDepth() > 0;
+  }
+
+  /** Offer the chunks in the order they will be consumed, only disk chunks are read ahead. */
+  public synchronized void offer(List<IChunkMetadata> chunkMetadataList) {
+    if (closed) {
+      return;
+    }
+    for (IChunkMetadata chunkMetadata : chunkMetadataList) {
+      if (chunkMetadata instanceof ChunkMetadata
+          && chunkMetadata.getChunkLoader() instanceof DiskChunkLoader) {
+        pending.add((ChunkMetadata) chunkMetadata);
+      }
+    }
+    schedule();
+  }
+
+  /**
+   * Load the TimeseriesMetadata of the series in the next file into {@link TimeSeriesMetadataCache}
+   * in the background, so that its chunks can be offered as soon as the reader reaches the file.
+   */
+  public void prefetchTimeSeriesMetadata(
+      TsFileResource resource, PartialPath seriesPath, Set<String> allSensors) {
+    if (!resource.isClosed() || !config.isMetaDataCacheEnable()) {
+      return;
+    }
+    TimeSeriesMetadataCacheKey key =
+        new TimeSeriesMetadataCacheKey(
+            resource.getTsFilePath(), seriesPath.getDevice(), seriesPath.getMeasurement());
+    boolean ignoreNotExists = resource.getTimeIndexType() != 1;
+    try {
+      ChunkPrefetchPoolManager.getInstance()
+          .submit(
+              () -> {
+                try {
+                  TimeSeriesMetadataCache.getInstance()
+                      .get(key, allSensors, ignoreNotExists, false);
+                } catch (IOException e) {
+                  // the reader will meet it again when it reaches the file
+                  logger.debug("Failed to read ahead the TimeseriesMetadata of {}", key, e);
+                }
+              });
+    } catch (RejectedExecutionException e) {
+      logger.debug("Chunk prefetch pool is shut down", e);
+    }
+  }
+
+  /** @return the pages of the chunk, waiting for it if it is being read ahead */
+  public List<IPageReader> loadPageReaderList(IChunkMetadata chunkMetadata, Filter timeFilter)
+      throws IOException {
+    PrefetchTask task;
+    synchronized (this) {
+      task = prefetched.remove(chunkMetadata);
+      if (task == null && removePending(chunkMetadata)) {
+        // the reader catches up with the read-ahead
+        depth = Math.min(depth * 2, maxDepth);
+      }
+    }
+    if (task == null) {
+      List<IPageReader> pageReaderList =
+          FileLoaderUtils.loadPageReaderList(chunkMetadata, timeFilter);
+      schedule();
+      return pageReaderList;
+    }
+
+    boolean waited = !task.future.isDone();
+    Chunk chunk;
+    try {
+      chunk = task.future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while reading " + chunkMetadata, e);
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to read " + chunkMetadata, e.getCause());
+    } finally {
+      context.releasePrefetchMemory(task.reservedSize);
+    }
+    synchronized (this) {
+      if (waited) {
+        depth = Math.min(depth * 2, maxDepth);
+      } else if (depth > 1 && allPrefetchedDone()) {
+        depth--;
+      }
+      schedule();
+    }
+
+    chunk.setFromOldFile(chunkMetadata.isFromOldTsFile());
+    return new ChunkReader(chunk, timeFilter).loadPageReaderList();
+  }
+
+  /** The reader skips the chunk by its statistics, so stop reading it ahead. */
+  public synchronized void skip(IChunkMetadata chunkMetadata) {
+    PrefetchTask task = prefetched.remove(chunkMetadata);
+    if (task != null) {
+      task.future.cancel(false);
+      context.releasePrefetchMemory(task.reservedSize);
+      schedule();
+    } else {
+      removePending(chunkMetadata);
+    }
+  }
+
+  /** Stop reading ahead and release the memory of the chunks read ahead. */
+  public synchronized void close() {
+    closed = true;
+    pending.clear();
+    for (PrefetchTask task : prefetched.values()) {
+      task.future.cancel(false);
+      context.releasePrefetchMemory(task.reservedSize);
+    }
+    prefetched.clear();
+  }
+
+  int getDepth() {
+    return depth;
+  }
+
+  private synchronized void schedule() {
+    while (!closed && prefetched.size() < depth && !pending.isEmpty()) {
+      ChunkMetadata chunkMetadata = pending.peekFirst();
+      long size = estimateSize(chunkMetadata);
+      if (!context.tryReservePrefetchMemory(size, memoryBudget)) {
+        return;
+      }
+      Future<Chunk> future;
+      try {
+        future =
+            ChunkPrefetchPoolManager.getInstance()
+                .submit(() -> ChunkCache.getInstance().get(chunkMetadata, context));
+      } catch (RejectedExecutionException e) {
+        context.releasePrefetchMemory(size);
+        logger.debug("Chunk prefetch pool is shut down", e);
+        return;
+      }
+      pending.pollFirst();
+      prefetched.put(chunkMetadata, new PrefetchTask(future, size));
+    }
+  }
+
+  private boolean removePending(IChunkMetadata chunkMetadata) {
+    // the reader usually consumes the head
+    Iterator<ChunkMetadata> iterator = pending.iterator();
+    while (iterator.hasNext()) {
+      if (iterator.next() == chunkMetadata) {
+        iterator.remove();
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean allPrefetchedDone() {
+    for (PrefetchTask task : prefetched.values()) {
+      if (!task.future.isDone()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** the size of the chunk if it is PLAIN encoded and uncompressed, which is an upper bound */
+  private static long estimateSize(ChunkMetadata chunkMetadata) {
+    int valueSize;
+    switch (chunkMetadata.getDataType()) {
+      case BOOLEAN:
+        valueSize = 1;
+        break;
+      case INT32:
+      case FLOAT:
+        valueSize = 4;
+        break;
+      case INT64:
+      case DOUBLE:
+        valueSize = 8;
+        break;
+      default:
+        valueSize = ESTIMATED_TEXT_SIZE;
+    }
+    return chunkMetadata.getStatistics().getCount() * (Long.BYTES + valueSize);
+  }
+
+  private static class PrefetchTask {
+
+    private final Future<Chunk> future;
+    private final long reservedSize;
+
+    private PrefetchTask(Future<Chunk> future, long reservedSize) {
+      this.future = future;
+      this.reservedSize = reservedSize;
+    }
+  }
+}
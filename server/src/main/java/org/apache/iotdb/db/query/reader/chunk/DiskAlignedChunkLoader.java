@@ -19,6 +19,7 @@
 package org.apache.iotdb.db.query.reader.chunk;
 
 import org.apache.iotdb.db.engine.cache.ChunkCache;
+import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.tsfile.file.metadata.AlignedChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.IChunkMetadata;
@@ -34,10 +35,10 @@ import java.util.List;
 
 public class DiskAlignedChunkLoader implements IChunkLoader {
 
-  private final boolean debug;
+  private final QueryContext context;
 
-  public DiskAlignedChunkLoader(boolean debug) {
-    this.debug = debug;
+  public DiskAlignedChunkLoader(QueryContext context) {
+    this.context = context;
   }
 
   @Override
@@ -54,13 +55,13 @@ public class DiskAlignedChunkLoader implements IChunkLoader {
     AlignedChunkMetadata alignedChunkMetadata = (AlignedChunkMetadata) chunkMetaData;
     Chunk timeChunk =
         ChunkCache.getInstance()
-            .get((ChunkMetadata) alignedChunkMetadata.getTimeChunkMetadata(), debug);
+            .get((ChunkMetadata) alignedChunkMetadata.getTimeChunkMetadata(), context);
     List<Chunk> valueChunkList = new ArrayList<>();
     for (IChunkMetadata valueChunkMetadata : alignedChunkMetadata.getValueChunkMetadataList()) {
       valueChunkList.add(
           valueChunkMetadata == null
               ? null
-              : ChunkCache.getInstance().get((ChunkMetadata) valueChunkMetadata, debug));
+              : ChunkCache.getInstance().get((ChunkMetadata) valueChunkMetadata, context));
     }
     return new AlignedChunkReader(timeChunk, valueChunkList, timeFilter);
   }
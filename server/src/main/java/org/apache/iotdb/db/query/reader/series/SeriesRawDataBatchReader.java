@@ -129,7 +129,10 @@ public class SeriesRawDataBatchReader implements ManagedSeriesReader {
         return true;
       }
     }
-    return hasCachedBatchData;
+
+    // all data is consumed, nothing is left to read ahead
+    seriesReader.stopChunkPrefetch();
+    return false;
   }
 
   @Override
@@ -141,9 +144,14 @@ public class SeriesRawDataBatchReader implements ManagedSeriesReader {
     throw new IOException("no next batch");
   }
 
+  /** Read chunks ahead, for the readers of raw data queries which consume all chunks. */
+  public void enableChunkPrefetch() {
+    seriesReader.enableChunkPrefetch();
+  }
+
   @Override
   public void close() throws IOException {
-    // no resources need to close
+    seriesReader.stopChunkPrefetch();
   }
 
   @Override
@@ -22,11 +22,14 @@ import org.apache.iotdb.commons.utils.TestOnly;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.metadata.idtable.IDTable;
+import org.apache.iotdb.db.metadata.path.AlignedPath;
 import org.apache.iotdb.db.metadata.path.PartialPath;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.query.control.QueryTimeManager;
 import org.apache.iotdb.db.query.control.tracing.TracingManager;
 import org.apache.iotdb.db.query.filter.TsFileFilter;
+import org.apache.iotdb.db.query.reader.chunk.ChunkPrefetcher;
 import org.apache.iotdb.db.query.reader.universal.DescPriorityMergeReader;
 import org.apache.iotdb.db.query.reader.universal.PriorityMergeReader;
 import org.apache.iotdb.db.query.reader.universal.PriorityMergeReader.MergeReaderPriority;
@@ -89,6 +92,11 @@ public class SeriesReader {
   protected int curSeqFileIndex;
   protected int curUnseqFileIndex;
 
+  /*
+   * satisfied unseq files, built on first use; curUnseqFileIndex points into it
+   */
+  private UnseqResourceIndex unseqResourceIndex;
+
   /*
    * TimeSeriesMetadata cache
    */
@@ -120,6 +128,11 @@ public class SeriesReader {
   protected boolean hasCachedNextOverlappedPage;
   protected BatchData cachedBatchData;
 
+  /*
+   * reads chunks ahead of this reader, null if disabled
+   */
+  private ChunkPrefetcher chunkPrefetcher;
+
   /**
    * @param seriesPath For querying aligned series, the seriesPath should be AlignedPath. All
    *     selected series belonging to one aligned device should be all in this one AlignedPath's
@@ -417,6 +430,14 @@ public class SeriesReader {
     }
 
     cachedChunkMetadata.addAll(chunkMetadataList);
+
+    if (chunkPrefetcher != null) {
+      chunkPrefetcher.offer(chunkMetadataList);
+      if (timeSeriesMetadata.isSeq() && orderUtils.hasNextSeqResource()) {
+        chunkPrefetcher.prefetchTimeSeriesMetadata(
+            orderUtils.getNextSeqFileResource(false), seriesPath, allSensors);
+      }
+    }
   }
 
   boolean isChunkOverlapped() throws IOException {
@@ -455,6 +476,9 @@ public class SeriesReader {
   }
 
   void skipCurrentChunk() {
+    if (chunkPrefetcher != null) {
+      chunkPrefetcher.skip(firstChunkMetadata);
+    }
     firstChunkMetadata = null;
   }
 
@@ -587,7 +611,9 @@ public class SeriesReader {
 
   private void unpackOneChunkMetaData(IChunkMetadata chunkMetaData) throws IOException {
     List<IPageReader> pageReaderList =
-        FileLoaderUtils.loadPageReaderList(chunkMetaData, timeFilter);
+        chunkPrefetcher != null
+            ? chunkPrefetcher.loadPageReaderList(chunkMetaData, timeFilter)
+            : FileLoaderUtils.loadPageReaderList(chunkMetaData, timeFilter);
 
     // for tracing: try to calculate the number of pages
     if (context.isEnableTracing()) {
@@ -748,6 +774,8 @@ public class SeriesReader {
         cachedBatchData =
             BatchDataFactory.createBatchData(dataType, orderUtils.getAscending(), true);
         long currentPageEndPointTime = mergeReader.getCurrentReadStopTime();
+        // nothing is unpacked by a point that is before this boundary in query order
+        long unpackBoundary = orderUtils.getAscending() ? Long.MIN_VALUE : Long.MAX_VALUE;
         while (mergeReader.hasNextTimeValuePair()) {
 
           /*
@@ -774,14 +802,17 @@ public class SeriesReader {
           }
 
           // unpack all overlapped data for the first timeValuePair
-          unpackAllOverlappedTsFilesToTimeSeriesMetadata(timeValuePair.getTimestamp());
-          unpackAllOverlappedTimeSeriesMetadataToCachedChunkMetadata(
-              timeValuePair.getTimestamp(), false);
-          unpackAllOverlappedChunkMetadataToPageReaders(timeValuePair.getTimestamp(), false);
-          unpackAllOverlappedUnseqPageReadersToMergeReader(timeValuePair.getTimestamp());
-
-          // update if there are unpacked unSeqPageReaders
-          timeValuePair = mergeReader.currentTimeValuePair();
+          if (!isBeforeUnpackBoundary(timeValuePair.getTimestamp(), unpackBoundary)) {
+            unpackAllOverlappedTsFilesToTimeSeriesMetadata(timeValuePair.getTimestamp());
+            unpackAllOverlappedTimeSeriesMetadataToCachedChunkMetadata(
+                timeValuePair.getTimestamp(), false);
+            unpackAllOverlappedChunkMetadataToPageReaders(timeValuePair.getTimestamp(), false);
+            unpackAllOverlappedUnseqPageReadersToMergeReader(timeValuePair.getTimestamp());
+            unpackBoundary = getUnpackBoundary();
+
+            // update if there are unpacked unSeqPageReaders
+            timeValuePair = mergeReader.currentTimeValuePair();
+          }
 
           // from now, the unsequence reader is all unpacked, so we don't need to consider it
           // we has first page reader now
@@ -879,6 +910,59 @@ public class SeriesReader {
     }
   }
 
+  /**
+   * The earliest order time, in query order, of all files, TimeSeriesMetadata, ChunkMetadata and
+   * unseq pages which are not in the merge reader yet. Unpacking with an endpoint before it is a
+   * no-op, so the merge loop only needs to unpack again when a point reaches it.
+   */
+  private long getUnpackBoundary() throws IOException {
+    long boundary = orderUtils.getAscending() ? Long.MAX_VALUE : Long.MIN_VALUE;
+    if (getUnseqResourceIndex().hasNext(curUnseqFileIndex)) {
+      boundary = earlierInOrder(boundary, getUnseqResourceIndex().getOrderTime(curUnseqFileIndex));
+    }
+    if (orderUtils.hasNextSeqResource()) {
+      boundary =
+          earlierInOrder(
+              boundary, orderUtils.getOrderTime(orderUtils.getNextSeqFileResource(false)));
+    }
+    if (!seqTimeSeriesMetadata.isEmpty()) {
+      boundary = earlierInOrder(boundary, seqTimeSeriesMetadata.get(0).getStatistics());
+    }
+    if (!unSeqTimeSeriesMetadata.isEmpty()) {
+      boundary = earlierInOrder(boundary, unSeqTimeSeriesMetadata.peek().getStatistics());
+    }
+    if (firstTimeSeriesMetadata != null) {
+      boundary = earlierInOrder(boundary, firstTimeSeriesMetadata.getStatistics());
+    }
+    if (firstChunkMetadata != null) {
+      boundary = earlierInOrder(boundary, firstChunkMetadata.getStatistics());
+    }
+    if (!cachedChunkMetadata.isEmpty()) {
+      boundary = earlierInOrder(boundary, cachedChunkMetadata.peek().getStatistics());
+    }
+    if (!unSeqPageReaders.isEmpty()) {
+      boundary = earlierInOrder(boundary, unSeqPageReaders.peek().getStatistics());
+    }
+    if (firstPageReader != null && !firstPageReader.isSeq()) {
+      boundary = earlierInOrder(boundary, firstPageReader.getStatistics());
+    }
+    return boundary;
+  }
+
+  private long earlierInOrder(long boundary, Statistics<? extends Object> statistics) {
+    return earlierInOrder(boundary, orderUtils.getOrderTime(statistics));
+  }
+
+  private long earlierInOrder(long boundary, long orderTime) {
+    return orderUtils.getAscending()
+        ? Math.min(boundary, orderTime)
+        : Math.max(boundary, orderTime);
+  }
+
+  private boolean isBeforeUnpackBoundary(long time, long unpackBoundary) {
+    return orderUtils.getAscending() ? time < unpackBoundary : time > unpackBoundary;
+  }
+
   private long updateEndPointTime(long currentPageEndPointTime, VersionPageReader pageReader) {
     if (orderUtils.getAscending()) {
       return Math.min(currentPageEndPointTime, pageReader.getStatistics().getEndTime());
@@ -1077,8 +1161,7 @@ public class SeriesReader {
 
   protected void unpackAllOverlappedTsFilesToTimeSeriesMetadata(long endpointTime)
       throws IOException {
-    while (orderUtils.hasNextUnseqResource()
-        && orderUtils.isOverlapped(endpointTime, orderUtils.getNextUnseqFileResource(false))) {
+    while (getUnseqResourceIndex().isOverlapped(curUnseqFileIndex, endpointTime)) {
       unpackUnseqTsFileResource();
     }
     while (orderUtils.hasNextSeqResource()
@@ -1311,16 +1394,7 @@ public class SeriesReader {
 
     @Override
     public boolean hasNextUnseqResource() {
-      while (dataSource.hasNextUnseqResource(curUnseqFileIndex)) {
-        TsFileResource tsFileResource = dataSource.getUnseqResourceByIndex(curUnseqFileIndex);
-        if (tsFileResource != null
-            && tsFileResource.isSatisfied(
-                seriesPath.getDevice(), timeFilter, fileFilter, false, context.isDebug())) {
-          break;
-        }
-        curUnseqFileIndex++;
-      }
-      return dataSource.hasNextUnseqResource(curUnseqFileIndex);
+      return getUnseqResourceIndex().hasNext(curUnseqFileIndex);
     }
 
     @Override
@@ -1337,7 +1411,7 @@ public class SeriesReader {
 
     @Override
     public TsFileResource getNextUnseqFileResource(boolean isDelete) {
-      TsFileResource tsFileResource = dataSource.getUnseqResourceByIndex(curUnseqFileIndex);
+      TsFileResource tsFileResource = getUnseqResourceIndex().get(curUnseqFileIndex);
       if (isDelete) {
         curUnseqFileIndex++;
         if (context.isEnableTracing()) {
@@ -1430,16 +1504,7 @@ public class SeriesReader {
 
     @Override
     public boolean hasNextUnseqResource() {
-      while (dataSource.hasNextUnseqResource(curUnseqFileIndex)) {
-        TsFileResource tsFileResource = dataSource.getUnseqResourceByIndex(curUnseqFileIndex);
-        if (tsFileResource != null
-            && tsFileResource.isSatisfied(
-                seriesPath.getDevice(), timeFilter, fileFilter, false, context.isDebug())) {
-          break;
-        }
-        curUnseqFileIndex++;
-      }
-      return dataSource.hasNextUnseqResource(curUnseqFileIndex);
+      return getUnseqResourceIndex().hasNext(curUnseqFileIndex);
     }
 
     @Override
@@ -1456,7 +1521,7 @@ public class SeriesReader {
 
     @Override
     public TsFileResource getNextUnseqFileResource(boolean isDelete) {
-      TsFileResource tsFileResource = dataSource.getUnseqResourceByIndex(curUnseqFileIndex);
+      TsFileResource tsFileResource = getUnseqResourceIndex().get(curUnseqFileIndex);
       if (isDelete) {
         curUnseqFileIndex++;
         if (context.isEnableTracing()) {
@@ -1467,6 +1532,40 @@ public class SeriesReader {
     }
   }
 
+  private UnseqResourceIndex getUnseqResourceIndex() {
+    if (unseqResourceIndex == null) {
+      unseqResourceIndex =
+          new UnseqResourceIndex(
+              dataSource,
+              seriesPath.getDevice(),
+              timeFilter,
+              fileFilter,
+              orderUtils.getAscending(),
+              context.isDebug());
+    }
+    return unseqResourceIndex;
+  }
+
+  /**
+   * Read the chunks of non-aligned series ahead on a separate thread pool, which is meant for
+   * sequential scans that consume all chunks. The prefetcher is stopped when the reader is
+   * exhausted, or at the latest when the query ends.
+   */
+  public void enableChunkPrefetch() {
+    if (!(seriesPath instanceof AlignedPath)) {
+      chunkPrefetcher = new ChunkPrefetcher(context);
+      QueryResourceManager.getInstance()
+          .registerChunkPrefetcher(context.getQueryId(), chunkPrefetcher);
+    }
+  }
+
+  public void stopChunkPrefetch() {
+    if (chunkPrefetcher != null) {
+      chunkPrefetcher.close();
+      chunkPrefetcher = null;
+    }
+  }
+
   public TimeOrderUtils getOrderUtils() {
     return orderUtils;
   }
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.reader.series;
+
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.query.filter.TsFileFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The unsequence files of one series which satisfy the query filters, in traversal order, together
+ * with their order times (start time of the device in ascending queries, end time in descending
+ * ones).
+ *
+ * <p>The index is built once per query, so that checking whether the next unsequence file overlaps
+ * a time point is an array lookup instead of re-evaluating {@link
+ * TsFileResource#isSatisfied(String, Filter, TsFileFilter, boolean, boolean)} and the device time
+ * index on every merged point.
+ */
+class UnseqResourceIndex {
+
+  private final TsFileResource[] resources;
+  private final long[] orderTimes;
+  private final boolean ascending;
+
+  UnseqResourceIndex(
+      QueryDataSource dataSource,
+      String device,
+      Filter timeFilter,
+      TsFileFilter fileFilter,
+      boolean ascending,
+      boolean debug) {
+    this.ascending = ascending;
+    List<TsFileResource> satisfied = new ArrayList<>();
+    for (int i = 0; dataSource.hasNextUnseqResource(i); i++) {
+      TsFileResource resource = dataSource.getUnseqResourceByIndex(i);
+      if (resource != null && resource.isSatisfied(device, timeFilter, fileFilter, false, debug)) {
+        satisfied.add(resource);
+      }
+    }
+    resources = satisfied.toArray(new TsFileResource[0]);
+    orderTimes = new long[resources.length];
+    for (int i = 0; i < resources.length; i++) {
+      orderTimes[i] =
+          ascending ? resources[i].getStartTime(device) : resources[i].getEndTime(device);
+    }
+  }
+
+  int size() {
+    return resources.length;
+  }
+
+  boolean hasNext(int index) {
+    return index < resources.length;
+  }
+
+  TsFileResource get(int index) {
+    return resources[index];
+  }
+
+  long getOrderTime(int index) {
+    return orderTimes[index];
+  }
+
+  /** @return true if the file at index exists and does not start after time in query order */
+  boolean isOverlapped(int index, long time) {
+    return index < resources.length
+        && (ascending ? time >= orderTimes[index] : time <= orderTimes[index]);
+  }
+}
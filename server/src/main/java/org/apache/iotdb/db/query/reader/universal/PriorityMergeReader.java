@@ -103,6 +103,17 @@ public class PriorityMergeReader implements IPointReader {
 
   @Override
   public TimeValuePair nextTimeValuePair() throws IOException {
+    if (heap.size() == 1) {
+      // the only source can't overlap with anything, so advance it in place
+      Element top = heap.peek();
+      TimeValuePair ret = top.getTimeValuePair();
+      if (top.hasNext()) {
+        top.next();
+      } else {
+        heap.poll();
+      }
+      return ret;
+    }
     Element top = heap.poll();
     TimeValuePair ret = top.getTimeValuePair();
     TimeValuePair topNext = null;
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.udf.api;
+
+import org.apache.iotdb.db.query.udf.api.access.Row;
+import org.apache.iotdb.db.query.udf.api.collector.PointCollector;
+import org.apache.iotdb.db.query.udf.api.customizer.config.UDTFConfigurations;
+import org.apache.iotdb.db.query.udf.api.customizer.strategy.RowByRowAccessStrategy;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
+
+/**
+ * A UDTF that can also transform a batch of rows at once.
+ *
+ * <p>When a UDTF implementing this interface specifies {@link RowByRowAccessStrategy} in {@link
+ * UDTFConfigurations}, {@link #transform(TimeColumn, Column[], PointCollector)} is called instead
+ * of {@link UDTF#transform(Row, PointCollector)}, so the UDTF can read the input series as columns
+ * in plain loops, without a Row access and boxing per point. The two methods are expected to
+ * produce the same result for the same rows.
+ */
+public interface BatchUDTF extends UDTF {
+
+  /**
+   * Transforms a batch of rows (aligned by time). The rows whose fields are all null are not passed
+   * to this method, just as they are not passed to {@link UDTF#transform(Row, PointCollector)}, but
+   * a single field of a row may still be null, see {@link Column#isNull(int)}. In a single UDF
+   * query, this method may be called multiple times.
+   *
+   * @param timeColumn timestamps of the rows, in ascending order
+   * @param valueColumns one column for each input series, with the same positions as timeColumn
+   * @param collector used to collect output data points
+   * @throws Exception the user can throw errors if necessary
+   */
+  @SuppressWarnings("squid:S112")
+  void transform(TimeColumn timeColumn, Column[] valueColumns, PointCollector collector)
+      throws Exception;
+}
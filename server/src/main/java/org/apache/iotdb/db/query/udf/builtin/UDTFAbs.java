@@ -27,6 +27,8 @@ import org.apache.iotdb.db.query.udf.api.customizer.parameter.UDFParameters;
 import org.apache.iotdb.db.query.udf.api.customizer.strategy.RowByRowAccessStrategy;
 import org.apache.iotdb.db.query.udf.api.exception.UDFInputSeriesDataTypeNotValidException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
 
 import java.io.IOException;
 
@@ -63,6 +65,39 @@ public class UDTFAbs extends UDTFMath {
     }
   }
 
+  @Override
+  public void transform(TimeColumn timeColumn, Column[] valueColumns, PointCollector collector)
+      throws UDFInputSeriesDataTypeNotValidException, IOException {
+    Column valueColumn = valueColumns[0];
+    int count = timeColumn.getPositionCount();
+    switch (dataType) {
+      case INT32:
+        for (int i = 0; i < count; ++i) {
+          collector.putInt(timeColumn.getLong(i), Math.abs(valueColumn.getInt(i)));
+        }
+        break;
+      case INT64:
+        for (int i = 0; i < count; ++i) {
+          collector.putLong(timeColumn.getLong(i), Math.abs(valueColumn.getLong(i)));
+        }
+        break;
+      case FLOAT:
+        for (int i = 0; i < count; ++i) {
+          collector.putFloat(timeColumn.getLong(i), Math.abs(valueColumn.getFloat(i)));
+        }
+        break;
+      case DOUBLE:
+        for (int i = 0; i < count; ++i) {
+          collector.putDouble(timeColumn.getLong(i), Math.abs(valueColumn.getDouble(i)));
+        }
+        break;
+      default:
+        // This will not happen.
+        throw new UDFInputSeriesDataTypeNotValidException(
+            0, dataType, TSDataType.INT32, TSDataType.INT64, TSDataType.FLOAT, TSDataType.DOUBLE);
+    }
+  }
+
   @Override
   protected void setTransformer() {
     throw new UnsupportedOperationException("UDTFAbs#setTransformer()");
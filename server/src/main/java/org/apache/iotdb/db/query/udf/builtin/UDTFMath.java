@@ -20,7 +20,7 @@
 package org.apache.iotdb.db.query.udf.builtin;
 
 import org.apache.iotdb.db.exception.metadata.MetadataException;
-import org.apache.iotdb.db.query.udf.api.UDTF;
+import org.apache.iotdb.db.query.udf.api.BatchUDTF;
 import org.apache.iotdb.db.query.udf.api.access.Row;
 import org.apache.iotdb.db.query.udf.api.collector.PointCollector;
 import org.apache.iotdb.db.query.udf.api.customizer.config.UDTFConfigurations;
@@ -30,10 +30,12 @@ import org.apache.iotdb.db.query.udf.api.customizer.strategy.RowByRowAccessStrat
 import org.apache.iotdb.db.query.udf.api.exception.UDFException;
 import org.apache.iotdb.db.query.udf.api.exception.UDFInputSeriesDataTypeNotValidException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
 
 import java.io.IOException;
 
-public abstract class UDTFMath implements UDTF {
+public abstract class UDTFMath implements BatchUDTF {
 
   protected interface Transformer {
 
@@ -87,4 +89,39 @@ public abstract class UDTFMath implements UDTF {
             0, dataType, TSDataType.INT32, TSDataType.INT64, TSDataType.FLOAT, TSDataType.DOUBLE);
     }
   }
+
+  @Override
+  public void transform(TimeColumn timeColumn, Column[] valueColumns, PointCollector collector)
+      throws UDFInputSeriesDataTypeNotValidException, IOException {
+    Column valueColumn = valueColumns[0];
+    int count = timeColumn.getPositionCount();
+    switch (dataType) {
+      case INT32:
+        for (int i = 0; i < count; ++i) {
+          collector.putDouble(timeColumn.getLong(i), transformer.transform(valueColumn.getInt(i)));
+        }
+        break;
+      case INT64:
+        for (int i = 0; i < count; ++i) {
+          collector.putDouble(timeColumn.getLong(i), transformer.transform(valueColumn.getLong(i)));
+        }
+        break;
+      case FLOAT:
+        for (int i = 0; i < count; ++i) {
+          collector.putDouble(
+              timeColumn.getLong(i), transformer.transform(valueColumn.getFloat(i)));
+        }
+        break;
+      case DOUBLE:
+        for (int i = 0; i < count; ++i) {
+          collector.putDouble(
+              timeColumn.getLong(i), transformer.transform(valueColumn.getDouble(i)));
+        }
+        break;
+      default:
+        // This will not happen.
+        throw new UDFInputSeriesDataTypeNotValidException(
+            0, dataType, TSDataType.INT32, TSDataType.INT64, TSDataType.FLOAT, TSDataType.DOUBLE);
+    }
+  }
 }
@@ -29,6 +29,8 @@ import org.apache.iotdb.db.query.udf.api.customizer.strategy.RowByRowAccessStrat
 import org.apache.iotdb.db.query.udf.api.exception.UDFException;
 import org.apache.iotdb.db.query.udf.api.exception.UDFInputSeriesDataTypeNotValidException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
 
 import java.io.IOException;
 
@@ -79,6 +81,39 @@ public class UDTFOnOff extends UDTFMath {
     }
   }
 
+  @Override
+  public void transform(TimeColumn timeColumn, Column[] valueColumns, PointCollector collector)
+      throws UDFInputSeriesDataTypeNotValidException, IOException {
+    Column valueColumn = valueColumns[0];
+    int count = timeColumn.getPositionCount();
+    switch (dataType) {
+      case INT32:
+        for (int i = 0; i < count; ++i) {
+          collector.putBoolean(timeColumn.getLong(i), valueColumn.getInt(i) >= threshold);
+        }
+        break;
+      case INT64:
+        for (int i = 0; i < count; ++i) {
+          collector.putBoolean(timeColumn.getLong(i), valueColumn.getLong(i) >= threshold);
+        }
+        break;
+      case FLOAT:
+        for (int i = 0; i < count; ++i) {
+          collector.putBoolean(timeColumn.getLong(i), valueColumn.getFloat(i) >= threshold);
+        }
+        break;
+      case DOUBLE:
+        for (int i = 0; i < count; ++i) {
+          collector.putBoolean(timeColumn.getLong(i), valueColumn.getDouble(i) >= threshold);
+        }
+        break;
+      default:
+        // This will not happen.
+        throw new UDFInputSeriesDataTypeNotValidException(
+            0, dataType, TSDataType.INT32, TSDataType.INT64, TSDataType.FLOAT, TSDataType.DOUBLE);
+    }
+  }
+
   @Override
   protected void setTransformer() {
     throw new UnsupportedOperationException("UDTFOnOff#setTransformer()");
@@ -22,15 +22,19 @@ package org.apache.iotdb.db.query.udf.core.executor;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.query.expression.Expression;
 import org.apache.iotdb.db.query.expression.unary.FunctionExpression;
+import org.apache.iotdb.db.query.udf.api.BatchUDTF;
 import org.apache.iotdb.db.query.udf.api.UDTF;
 import org.apache.iotdb.db.query.udf.api.access.Row;
 import org.apache.iotdb.db.query.udf.api.access.RowWindow;
 import org.apache.iotdb.db.query.udf.api.customizer.config.UDTFConfigurations;
 import org.apache.iotdb.db.query.udf.api.customizer.parameter.UDFParameterValidator;
 import org.apache.iotdb.db.query.udf.api.customizer.parameter.UDFParameters;
+import org.apache.iotdb.db.query.udf.api.customizer.strategy.AccessStrategy.AccessStrategyType;
 import org.apache.iotdb.db.query.udf.datastructure.tv.ElasticSerializableTVList;
 import org.apache.iotdb.db.query.udf.service.UDFRegistrationService;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -93,6 +97,59 @@ public class UDTFExecutor {
     }
   }
 
+  /**
+   * Whether the rows of this UDTF can be fed by {@link #execute(TsBlock)} instead of {@link
+   * #execute(Row, boolean)}.
+   */
+  public boolean isBatchTransformable() {
+    return udtf instanceof BatchUDTF
+        && configurations.getAccessStrategy().getAccessStrategyType()
+            == AccessStrategyType.ROW_BY_ROW;
+  }
+
+  public void execute(TsBlock batch) throws QueryProcessException {
+    int positionCount = batch.getPositionCount();
+    Column[] valueColumns = getValueColumns(batch);
+    try {
+      int start = 0;
+      while (start < positionCount) {
+        if (isAllNull(valueColumns, start)) {
+          // A null row will never trigger any UDF computing
+          collector.putNull(batch.getTimeByIndex(start));
+          ++start;
+          continue;
+        }
+        int end = start + 1;
+        while (end < positionCount && !isAllNull(valueColumns, end)) {
+          ++end;
+        }
+        TsBlock region =
+            start == 0 && end == positionCount ? batch : batch.getRegion(start, end - start);
+        ((BatchUDTF) udtf).transform(region.getTimeColumn(), getValueColumns(region), collector);
+        start = end;
+      }
+    } catch (Exception e) {
+      onError("transform(TimeColumn, Column[], PointCollector)", e);
+    }
+  }
+
+  private static Column[] getValueColumns(TsBlock batch) {
+    Column[] valueColumns = new Column[batch.getValueColumnCount()];
+    for (int i = 0; i < valueColumns.length; ++i) {
+      valueColumns[i] = batch.getColumn(i);
+    }
+    return valueColumns;
+  }
+
+  private static boolean isAllNull(Column[] valueColumns, int position) {
+    for (Column valueColumn : valueColumns) {
+      if (!valueColumn.isNull(position)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   public void execute(RowWindow rowWindow) throws QueryProcessException {
     try {
       udtf.transform(rowWindow, collector);
@@ -32,6 +32,7 @@ import org.apache.iotdb.db.query.udf.core.reader.LayerRowReader;
 import org.apache.iotdb.db.query.udf.core.reader.LayerRowWindowReader;
 import org.apache.iotdb.db.query.udf.datastructure.tv.ElasticSerializableTVList;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
 
 import java.io.IOException;
 
@@ -98,6 +99,13 @@ public class SingleInputColumnSingleReferenceIntermediateLayer extends Intermedi
         return row;
       }
 
+      @Override
+      public TsBlock nextBatch(int batchSize) throws QueryProcessException, IOException {
+        hasCached = false;
+        isCurrentNull = false;
+        return parentLayerPointReader.nextBatch(batchSize);
+      }
+
       @Override
       public boolean isCurrentNull() {
         return isCurrentNull;
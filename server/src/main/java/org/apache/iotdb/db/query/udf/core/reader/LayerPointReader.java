@@ -21,6 +21,7 @@ package org.apache.iotdb.db.query.udf.core.reader;
 
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
 import org.apache.iotdb.tsfile.utils.Binary;
 
 import java.io.IOException;
@@ -50,4 +51,18 @@ public interface LayerPointReader {
   boolean isCurrentNull() throws IOException;
 
   Binary currentBinary() throws IOException;
+
+  /**
+   * Read at most {@code batchSize} points as a TsBlock with the time column and one value column of
+   * {@link #getDataType()}, in which null points are marked as null. The returned points are
+   * consumed, so a reader should be iterated either point by point or batch by batch. Constant
+   * readers have no time column and do not support batch reading.
+   *
+   * <p>The default implementation collects the points one by one.
+   *
+   * @return null if there are no more points
+   */
+  default TsBlock nextBatch(int batchSize) throws QueryProcessException, IOException {
+    return LayerPointReaderUtils.readBatchPointByPoint(this, batchSize);
+  }
 }
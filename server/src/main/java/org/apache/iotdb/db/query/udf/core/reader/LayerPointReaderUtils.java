@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.query.udf.core.reader;
+
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+
+import java.io.IOException;
+import java.util.Collections;
+
+public class LayerPointReaderUtils {
+
+  private LayerPointReaderUtils() {}
+
+  /**
+   * the fallback of {@link LayerPointReader#nextBatch(int)} for readers that work point by point
+   */
+  public static TsBlock readBatchPointByPoint(LayerPointReader reader, int batchSize)
+      throws QueryProcessException, IOException {
+    TsBlockBuilder builder =
+        new TsBlockBuilder(batchSize, Collections.singletonList(reader.getDataType()));
+    while (builder.getPositionCount() < batchSize && reader.next()) {
+      appendCurrentPoint(reader, builder);
+      reader.readyForNext();
+    }
+    return builder.isEmpty() ? null : builder.build();
+  }
+
+  /** Append the current point of the reader to a builder of TsBlocks with one value column. */
+  public static void appendCurrentPoint(LayerPointReader reader, TsBlockBuilder builder)
+      throws QueryProcessException, IOException {
+    builder.getTimeColumnBuilder().writeLong(reader.currentTime());
+    ColumnBuilder columnBuilder = builder.getColumnBuilder(0);
+    if (reader.isCurrentNull()) {
+      columnBuilder.appendNull();
+    } else {
+      switch (reader.getDataType()) {
+        case INT32:
+          columnBuilder.writeInt(reader.currentInt());
+          break;
+        case INT64:
+          columnBuilder.writeLong(reader.currentLong());
+          break;
+        case FLOAT:
+          columnBuilder.writeFloat(reader.currentFloat());
+          break;
+        case DOUBLE:
+          columnBuilder.writeDouble(reader.currentDouble());
+          break;
+        case BOOLEAN:
+          columnBuilder.writeBoolean(reader.currentBoolean());
+          break;
+        case TEXT:
+          columnBuilder.writeBinary(reader.currentBinary());
+          break;
+        default:
+          throw new QueryProcessException("Unsupported data type: " + reader.getDataType());
+      }
+    }
+    builder.declarePosition();
+  }
+}
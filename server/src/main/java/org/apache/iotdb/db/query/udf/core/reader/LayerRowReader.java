@@ -22,6 +22,7 @@ package org.apache.iotdb.db.query.udf.core.reader;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.query.udf.api.access.Row;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
 
 import java.io.IOException;
 
@@ -39,4 +40,17 @@ public interface LayerRowReader {
 
   /** whether current row fields are all null */
   boolean isCurrentNull() throws IOException;
+
+  /**
+   * Read at most {@code batchSize} rows as a TsBlock with the time column and one value column for
+   * each of {@link #getDataTypes()}. The returned rows are consumed, so a reader should be iterated
+   * either row by row or batch by batch.
+   *
+   * <p>The default implementation collects the rows one by one.
+   *
+   * @return null if there are no more rows
+   */
+  default TsBlock nextBatch(int batchSize) throws QueryProcessException, IOException {
+    return LayerRowReaderUtils.readBatchRowByRow(this, batchSize);
+  }
 }
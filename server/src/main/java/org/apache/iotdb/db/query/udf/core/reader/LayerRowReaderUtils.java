@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.query.udf.core.reader;
+
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.query.udf.api.access.Row;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+public class LayerRowReaderUtils {
+
+  private LayerRowReaderUtils() {}
+
+  /** the fallback of {@link LayerRowReader#nextBatch(int)} for readers that work row by row */
+  public static TsBlock readBatchRowByRow(LayerRowReader reader, int batchSize)
+      throws QueryProcessException, IOException {
+    TSDataType[] dataTypes = reader.getDataTypes();
+    TsBlockBuilder builder = new TsBlockBuilder(batchSize, Arrays.asList(dataTypes));
+
+    while (builder.getPositionCount() < batchSize && reader.next()) {
+      Row row = reader.currentRow();
+      builder.getTimeColumnBuilder().writeLong(reader.currentTime());
+      for (int i = 0; i < dataTypes.length; ++i) {
+        ColumnBuilder columnBuilder = builder.getColumnBuilder(i);
+        if (row.isNull(i)) {
+          columnBuilder.appendNull();
+          continue;
+        }
+        switch (dataTypes[i]) {
+          case INT32:
+            columnBuilder.writeInt(row.getInt(i));
+            break;
+          case INT64:
+            columnBuilder.writeLong(row.getLong(i));
+            break;
+          case FLOAT:
+            columnBuilder.writeFloat(row.getFloat(i));
+            break;
+          case DOUBLE:
+            columnBuilder.writeDouble(row.getDouble(i));
+            break;
+          case BOOLEAN:
+            columnBuilder.writeBoolean(row.getBoolean(i));
+            break;
+          case TEXT:
+            columnBuilder.writeBinary(row.getBinary(i));
+            break;
+          default:
+            throw new UnsupportedOperationException(dataTypes[i].name());
+        }
+      }
+      builder.declarePosition();
+      reader.readyForNext();
+    }
+
+    return builder.isEmpty() ? null : builder.build();
+  }
+}
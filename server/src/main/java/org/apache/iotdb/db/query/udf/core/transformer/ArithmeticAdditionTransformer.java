@@ -32,4 +32,11 @@ public class ArithmeticAdditionTransformer extends ArithmeticBinaryTransformer {
   protected double evaluateDouble(double leftOperand, double rightOperand) {
     return leftOperand + rightOperand;
   }
+
+  @Override
+  protected void evaluateDoubles(double[] left, double[] right, double[] result, int count) {
+    for (int i = 0; i < count; ++i) {
+      result[i] = left[i] + right[i];
+    }
+  }
 }
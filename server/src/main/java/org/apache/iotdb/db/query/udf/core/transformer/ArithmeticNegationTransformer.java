@@ -22,8 +22,15 @@ package org.apache.iotdb.db.query.udf.core.transformer;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.query.udf.core.reader.LayerPointReader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.DoubleColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.FloatColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.IntColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.LongColumn;
 
 import java.io.IOException;
+import java.util.Optional;
 
 public class ArithmeticNegationTransformer extends Transformer {
 
@@ -69,6 +76,59 @@ public class ArithmeticNegationTransformer extends Transformer {
     return true;
   }
 
+  @Override
+  protected boolean canTransformBatch() {
+    return !isConstantPointReader();
+  }
+
+  @Override
+  protected TsBlock transformBatch(int batchSize) throws QueryProcessException, IOException {
+    TsBlock batch = layerPointReader.nextBatch(batchSize);
+    if (batch == null) {
+      return null;
+    }
+
+    int count = batch.getPositionCount();
+    Column column = batch.getColumn(0);
+    boolean[] isNull = getValueIsNull(column, count);
+    Optional<boolean[]> valueIsNull = Optional.ofNullable(isNull);
+    Column result;
+    switch (layerPointReader.getDataType()) {
+      case INT32:
+        int[] intValues = new int[count];
+        for (int i = 0; i < count; ++i) {
+          intValues[i] = isNull != null && isNull[i] ? 0 : -column.getInt(i);
+        }
+        result = new IntColumn(count, valueIsNull, intValues);
+        break;
+      case INT64:
+        long[] longValues = new long[count];
+        for (int i = 0; i < count; ++i) {
+          longValues[i] = isNull != null && isNull[i] ? 0 : -column.getLong(i);
+        }
+        result = new LongColumn(count, valueIsNull, longValues);
+        break;
+      case FLOAT:
+        float[] floatValues = new float[count];
+        for (int i = 0; i < count; ++i) {
+          floatValues[i] = isNull != null && isNull[i] ? 0 : -column.getFloat(i);
+        }
+        result = new FloatColumn(count, valueIsNull, floatValues);
+        break;
+      case DOUBLE:
+        double[] doubleValues = new double[count];
+        for (int i = 0; i < count; ++i) {
+          doubleValues[i] = isNull != null && isNull[i] ? 0 : -column.getDouble(i);
+        }
+        result = new DoubleColumn(count, valueIsNull, doubleValues);
+        break;
+      default:
+        throw new QueryProcessException(
+            "Unsupported data type: " + layerPointReader.getDataType().toString());
+    }
+    return new TsBlock(count, batch.getTimeColumn(), result);
+  }
+
   @Override
   public TSDataType getDataType() {
     return layerPointReader.getDataType();
@@ -22,14 +22,24 @@ package org.apache.iotdb.db.query.udf.core.transformer;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.query.udf.core.reader.LayerPointReader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.BooleanColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.DoubleColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Optional;
 
 public abstract class BinaryTransformer extends Transformer {
 
   private final LayerPointReader leftPointReader;
   private final LayerPointReader rightPointReader;
 
+  private final BatchOperand leftOperand;
+  private final BatchOperand rightOperand;
+
   protected enum TransformerType {
     Arithmetic,
     Comparative,
@@ -42,6 +52,8 @@ public abstract class BinaryTransformer extends Transformer {
   protected BinaryTransformer(LayerPointReader leftPointReader, LayerPointReader rightPointReader) {
     this.leftPointReader = leftPointReader;
     this.rightPointReader = rightPointReader;
+    leftOperand = new BatchOperand(leftPointReader);
+    rightOperand = new BatchOperand(rightPointReader);
   }
 
   @Override
@@ -49,14 +61,17 @@ public abstract class BinaryTransformer extends Transformer {
     return leftPointReader.isConstantPointReader() && rightPointReader.isConstantPointReader();
   }
 
+  @Override
+  protected boolean canTransformBatch() {
+    return !isConstantPointReader();
+  }
+
+  /** only used when both operands are constants, other cases are evaluated batch by batch */
   @Override
   protected boolean cacheValue() throws QueryProcessException, IOException {
     if (!leftPointReader.next() || !rightPointReader.next()) {
       return false;
     }
-    if (!cacheTime()) {
-      return false;
-    }
     if (leftPointReader.isCurrentNull() || rightPointReader.isCurrentNull()) {
       currentNull = true;
     } else {
@@ -89,15 +104,8 @@ public abstract class BinaryTransformer extends Transformer {
                   castCurrentValueToDoubleOperand(rightPointReader));
           break;
         case Logic:
-          // Check TSDataType
-          if (leftPointReader.getDataType() != TSDataType.BOOLEAN) {
-            throw new QueryProcessException(
-                "Unsupported data type: " + leftPointReader.getDataType().toString());
-          }
-          if (rightPointReader.getDataType() != TSDataType.BOOLEAN) {
-            throw new QueryProcessException(
-                "Unsupported data type: " + rightPointReader.getDataType().toString());
-          }
+          checkBooleanOperand(leftPointReader);
+          checkBooleanOperand(rightPointReader);
           cachedBoolean =
               evaluateBoolean(leftPointReader.currentBoolean(), rightPointReader.currentBoolean());
           break;
@@ -108,47 +116,115 @@ public abstract class BinaryTransformer extends Transformer {
     return true;
   }
 
-  /**
-   * finds the smallest, unconsumed timestamp that exists in both {@code leftPointReader} and {@code
-   * rightPointReader} and then caches the timestamp in {@code cachedTime}.
-   *
-   * @return true if there has a timestamp that meets the requirements
-   */
-  private boolean cacheTime() throws IOException, QueryProcessException {
-    if (leftPointReader.isConstantPointReader() && rightPointReader.isConstantPointReader()) {
-      return true;
+  @Override
+  protected TsBlock transformBatch(int batchSize) throws QueryProcessException, IOException {
+    boolean booleanOperands = isBooleanOperands();
+    long[] times = new long[batchSize];
+    boolean[] isNull = new boolean[batchSize];
+    double[] leftDoubles = booleanOperands ? null : new double[batchSize];
+    double[] rightDoubles = booleanOperands ? null : new double[batchSize];
+    boolean[] leftBooleans = booleanOperands ? new boolean[batchSize] : null;
+    boolean[] rightBooleans = booleanOperands ? new boolean[batchSize] : null;
+
+    int count = 0;
+    while (count < batchSize
+        && leftOperand.prepare(booleanOperands)
+        && rightOperand.prepare(booleanOperands)) {
+      int start = count;
+      count = alignTime(times, isNull, start, batchSize);
+      leftOperand.gather(start, count, leftDoubles, leftBooleans);
+      rightOperand.gather(start, count, rightDoubles, rightBooleans);
     }
-    if (leftPointReader.isConstantPointReader()) {
-      cachedTime = rightPointReader.currentTime();
-      return true;
+    if (count == 0) {
+      return null;
     }
-    if (rightPointReader.isConstantPointReader()) {
-      cachedTime = leftPointReader.currentTime();
-      return true;
+
+    boolean hasNull = false;
+    for (int i = 0; i < count; ++i) {
+      hasNull |= isNull[i];
     }
+    Optional<boolean[]> valueIsNull = hasNull ? Optional.of(isNull) : Optional.empty();
+    Column valueColumn;
+    if (getTransformerType() == TransformerType.Arithmetic) {
+      double[] values = new double[count];
+      evaluateDoubles(leftDoubles, rightDoubles, values, count);
+      valueColumn = new DoubleColumn(count, valueIsNull, values);
+    } else {
+      boolean[] values = new boolean[count];
+      if (booleanOperands) {
+        evaluateBooleans(leftBooleans, rightBooleans, values, count);
+      } else {
+        evaluateBooleans(leftDoubles, rightDoubles, values, count);
+      }
+      valueColumn = new BooleanColumn(count, valueIsNull, values);
+    }
+    return new TsBlock(count, new TimeColumn(count, times), valueColumn);
+  }
 
-    long leftTime = leftPointReader.currentTime();
-    long rightTime = rightPointReader.currentTime();
+  private boolean isBooleanOperands() {
+    switch (getTransformerType()) {
+      case Logic:
+        return true;
+      case EqNeq:
+        // Although == and != belongs to compare operations,
+        // they can take two boolean as parameters
+        return leftPointReader.getDataType() == TSDataType.BOOLEAN
+            && rightPointReader.getDataType() == TSDataType.BOOLEAN;
+      default:
+        return false;
+    }
+  }
 
-    while (leftTime != rightTime) {
+  /**
+   * Merges the loaded timestamps of both operands and records the positions of the timestamps that
+   * exist in both of them (or all timestamps of the non-constant operand), until the output is full
+   * or one of the loaded batches is exhausted.
+   *
+   * @return the output position after the last aligned timestamp
+   */
+  private int alignTime(long[] times, boolean[] isNull, int start, int end) {
+    int count = start;
+    if (leftOperand.isConstant || rightOperand.isConstant) {
+      BatchOperand operand = leftOperand.isConstant ? rightOperand : leftOperand;
+      int length = Math.min(end - start, operand.count - operand.index);
+      System.arraycopy(operand.times, operand.index, times, start, length);
+      for (int i = 0; i < length; ++i) {
+        operand.positions[i] = operand.index + i;
+        isNull[start + i] = operand.isNull[operand.index + i];
+      }
+      operand.positionCount = length;
+      operand.index += length;
+      return start + length;
+    }
+
+    long[] leftTimes = leftOperand.times;
+    long[] rightTimes = rightOperand.times;
+    int leftIndex = leftOperand.index;
+    int rightIndex = rightOperand.index;
+    int leftCount = leftOperand.count;
+    int rightCount = rightOperand.count;
+    int positionCount = 0;
+    while (count < end && leftIndex < leftCount && rightIndex < rightCount) {
+      long leftTime = leftTimes[leftIndex];
+      long rightTime = rightTimes[rightIndex];
       if (leftTime < rightTime) {
-        leftPointReader.readyForNext();
-        if (!leftPointReader.next()) {
-          return false;
-        }
-        leftTime = leftPointReader.currentTime();
+        ++leftIndex;
+      } else if (rightTime < leftTime) {
+        ++rightIndex;
       } else {
-        rightPointReader.readyForNext();
-        if (!rightPointReader.next()) {
-          return false;
-        }
-        rightTime = rightPointReader.currentTime();
+        times[count] = leftTime;
+        isNull[count] = leftOperand.isNull[leftIndex] || rightOperand.isNull[rightIndex];
+        leftOperand.positions[positionCount] = leftIndex++;
+        rightOperand.positions[positionCount] = rightIndex++;
+        ++positionCount;
+        ++count;
       }
     }
-
-    // leftTime == rightTime
-    cachedTime = leftTime;
-    return true;
+    leftOperand.index = leftIndex;
+    rightOperand.index = rightIndex;
+    leftOperand.positionCount = positionCount;
+    rightOperand.positionCount = positionCount;
+    return count;
   }
 
   protected double evaluateDouble(double leftOperand, double rightOperand) {
@@ -163,6 +239,29 @@ public abstract class BinaryTransformer extends Transformer {
     return false;
   }
 
+  /**
+   * Evaluates {@code count} aligned operands at a time. Values at null positions are undefined.
+   * Subclasses override the batch variants with plain loops so that the evaluation does not make a
+   * virtual call per point.
+   */
+  protected void evaluateDoubles(double[] left, double[] right, double[] result, int count) {
+    for (int i = 0; i < count; ++i) {
+      result[i] = evaluateDouble(left[i], right[i]);
+    }
+  }
+
+  protected void evaluateBooleans(double[] left, double[] right, boolean[] result, int count) {
+    for (int i = 0; i < count; ++i) {
+      result[i] = evaluateBoolean(left[i], right[i]);
+    }
+  }
+
+  protected void evaluateBooleans(boolean[] left, boolean[] right, boolean[] result, int count) {
+    for (int i = 0; i < count; ++i) {
+      result[i] = evaluateBoolean(left[i], right[i]);
+    }
+  }
+
   private static double castCurrentValueToDoubleOperand(LayerPointReader layerPointReader)
       throws IOException, QueryProcessException {
     switch (layerPointReader.getDataType()) {
@@ -179,4 +278,155 @@ public abstract class BinaryTransformer extends Transformer {
             "Unsupported data type: " + layerPointReader.getDataType().toString());
     }
   }
+
+  private static void checkBooleanOperand(LayerPointReader layerPointReader)
+      throws QueryProcessException {
+    if (layerPointReader.getDataType() != TSDataType.BOOLEAN) {
+      throw new QueryProcessException(
+          "Unsupported data type: " + layerPointReader.getDataType().toString());
+    }
+  }
+
+  /**
+   * One side of the binary operation in batch evaluation. The last batch read from the operand is
+   * decoded into primitive arrays once, then the aligned positions are gathered from them.
+   */
+  private static class BatchOperand {
+
+    private final LayerPointReader reader;
+    private final boolean isConstant;
+
+    private double constantDouble;
+    private boolean constantBoolean;
+    private boolean constantLoaded;
+
+    private long[] times;
+    private boolean[] isNull;
+    private double[] doubles;
+    private boolean[] booleans;
+    /** number of points in the loaded batch */
+    private int count;
+    /** index of the next point to be aligned in the loaded batch */
+    private int index;
+
+    /** positions of the points aligned by the last alignTime() call */
+    private int[] positions;
+
+    private int positionCount;
+
+    private BatchOperand(LayerPointReader reader) {
+      this.reader = reader;
+      this.isConstant = reader.isConstantPointReader();
+    }
+
+    /** @return false if the operand has no more points */
+    private boolean prepare(boolean asBoolean) throws QueryProcessException, IOException {
+      if (isConstant) {
+        if (!constantLoaded) {
+          if (asBoolean) {
+            checkBooleanOperand(reader);
+            constantBoolean = reader.currentBoolean();
+          } else {
+            constantDouble = castCurrentValueToDoubleOperand(reader);
+          }
+          constantLoaded = true;
+        }
+        return true;
+      }
+
+      while (index == count) {
+        TsBlock batch = reader.nextBatch(BATCH_SIZE);
+        if (batch == null) {
+          return false;
+        }
+        load(batch, asBoolean);
+      }
+      return true;
+    }
+
+    private void load(TsBlock batch, boolean asBoolean) throws QueryProcessException {
+      count = batch.getPositionCount();
+      index = 0;
+      if (times == null || times.length < count) {
+        times = new long[count];
+        isNull = new boolean[count];
+        positions = new int[count];
+        doubles = asBoolean ? null : new double[count];
+        booleans = asBoolean ? new boolean[count] : null;
+      }
+
+      Column timeColumn = batch.getTimeColumn();
+      Column valueColumn = batch.getColumn(0);
+      boolean hasValue = false;
+      for (int i = 0; i < count; ++i) {
+        times[i] = timeColumn.getLong(i);
+        isNull[i] = valueColumn.isNull(i);
+        hasValue |= !isNull[i];
+      }
+
+      TSDataType dataType = reader.getDataType();
+      if (asBoolean) {
+        if (dataType != TSDataType.BOOLEAN) {
+          if (hasValue) {
+            checkBooleanOperand(reader);
+          }
+          Arrays.fill(isNull, 0, count, true);
+          return;
+        }
+        for (int i = 0; i < count; ++i) {
+          booleans[i] = !isNull[i] && valueColumn.getBoolean(i);
+        }
+        return;
+      }
+
+      switch (dataType) {
+        case INT32:
+          for (int i = 0; i < count; ++i) {
+            doubles[i] = isNull[i] ? 0 : valueColumn.getInt(i);
+          }
+          break;
+        case INT64:
+          for (int i = 0; i < count; ++i) {
+            doubles[i] = isNull[i] ? 0 : valueColumn.getLong(i);
+          }
+          break;
+        case FLOAT:
+          for (int i = 0; i < count; ++i) {
+            doubles[i] = isNull[i] ? 0 : valueColumn.getFloat(i);
+          }
+          break;
+        case DOUBLE:
+          for (int i = 0; i < count; ++i) {
+            doubles[i] = isNull[i] ? 0 : valueColumn.getDouble(i);
+          }
+          break;
+        default:
+          if (hasValue) {
+            throw new QueryProcessException("Unsupported data type: " + dataType.toString());
+          }
+          Arrays.fill(isNull, 0, count, true);
+      }
+    }
+
+    /** copies the values of the aligned positions into [start, end) of the operand arrays */
+    private void gather(int start, int end, double[] doubleOperands, boolean[] booleanOperands) {
+      if (doubleOperands != null) {
+        if (isConstant) {
+          Arrays.fill(doubleOperands, start, end, constantDouble);
+        } else {
+          for (int i = 0; i < positionCount; ++i) {
+            doubleOperands[start + i] = doubles[positions[i]];
+          }
+        }
+      } else {
+        if (isConstant) {
+          Arrays.fill(booleanOperands, start, end, constantBoolean);
+        } else {
+          for (int i = 0; i < positionCount; ++i) {
+            booleanOperands[start + i] = booleans[positions[i]];
+          }
+        }
+      }
+    }
+  }
 }
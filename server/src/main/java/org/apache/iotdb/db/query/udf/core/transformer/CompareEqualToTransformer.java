@@ -37,4 +37,11 @@ public class CompareEqualToTransformer extends CompareBinaryTransformer {
   protected boolean evaluateBoolean(double leftOperand, double rightOperand) {
     return Double.compare(leftOperand, rightOperand) == 0;
   }
+
+  @Override
+  protected void evaluateBooleans(double[] left, double[] right, boolean[] result, int count) {
+    for (int i = 0; i < count; ++i) {
+      result[i] = Double.compare(left[i], right[i]) == 0;
+    }
+  }
 }
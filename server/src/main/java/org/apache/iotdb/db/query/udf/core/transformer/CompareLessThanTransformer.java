@@ -32,4 +32,11 @@ public class CompareLessThanTransformer extends CompareBinaryTransformer {
   protected boolean evaluateBoolean(double leftOperand, double rightOperand) {
     return Double.compare(leftOperand, rightOperand) < 0;
   }
+
+  @Override
+  protected void evaluateBooleans(double[] left, double[] right, boolean[] result, int count) {
+    for (int i = 0; i < count; ++i) {
+      result[i] = Double.compare(left[i], right[i]) < 0;
+    }
+  }
 }
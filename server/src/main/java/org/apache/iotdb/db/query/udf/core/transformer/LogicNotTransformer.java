@@ -22,8 +22,12 @@ package org.apache.iotdb.db.query.udf.core.transformer;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.query.udf.core.reader.LayerPointReader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.column.BooleanColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
 
 import java.io.IOException;
+import java.util.Optional;
 
 public class LogicNotTransformer extends Transformer {
   private final LayerPointReader layerPointReader;
@@ -59,6 +63,35 @@ public class LogicNotTransformer extends Transformer {
     return true;
   }
 
+  @Override
+  protected boolean canTransformBatch() {
+    return !isConstantPointReader();
+  }
+
+  @Override
+  protected TsBlock transformBatch(int batchSize) throws QueryProcessException, IOException {
+    TsBlock batch = layerPointReader.nextBatch(batchSize);
+    if (batch == null) {
+      return null;
+    }
+    if (layerPointReader.getDataType() != TSDataType.BOOLEAN) {
+      throw new QueryProcessException(
+          "Unsupported data type: " + layerPointReader.getDataType().toString());
+    }
+
+    int count = batch.getPositionCount();
+    Column column = batch.getColumn(0);
+    boolean[] isNull = getValueIsNull(column, count);
+    boolean[] values = new boolean[count];
+    for (int i = 0; i < count; ++i) {
+      values[i] = (isNull == null || !isNull[i]) && !column.getBoolean(i);
+    }
+    return new TsBlock(
+        count,
+        batch.getTimeColumn(),
+        new BooleanColumn(count, Optional.ofNullable(isNull), values));
+  }
+
   @Override
   public TSDataType getDataType() {
     return TSDataType.BOOLEAN;
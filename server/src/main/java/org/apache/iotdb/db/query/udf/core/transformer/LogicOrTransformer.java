@@ -31,4 +31,11 @@ public class LogicOrTransformer extends LogicBinaryTransformer {
   protected boolean evaluateBoolean(boolean leftOperand, boolean rightOperand) {
     return leftOperand || rightOperand;
   }
+
+  @Override
+  protected void evaluateBooleans(boolean[] left, boolean[] right, boolean[] result, int count) {
+    for (int i = 0; i < count; ++i) {
+      result[i] = left[i] | right[i];
+    }
+  }
 }
@@ -21,12 +21,20 @@ package org.apache.iotdb.db.query.udf.core.transformer;
 
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.query.udf.core.reader.LayerPointReader;
+import org.apache.iotdb.db.query.udf.core.reader.LayerPointReaderUtils;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
 import org.apache.iotdb.tsfile.utils.Binary;
 
 import java.io.IOException;
+import java.util.Collections;
 
 public abstract class Transformer implements LayerPointReader {
 
+  /** number of points evaluated at a time by transformers that support batch evaluation */
+  protected static final int BATCH_SIZE = 1024;
+
   protected boolean hasCachedValue;
 
   protected long cachedTime;
@@ -39,6 +47,11 @@ public abstract class Transformer implements LayerPointReader {
   protected Binary cachedBinary;
   protected boolean currentNull;
 
+  /** batch evaluated by {@link #transformBatch(int)} and served to point reads */
+  private TsBlock cachedBatch;
+  /** index of the next point in cachedBatch */
+  private int cachedBatchIndex;
+
   protected Transformer() {
     hasCachedValue = false;
   }
@@ -46,7 +59,7 @@ public abstract class Transformer implements LayerPointReader {
   @Override
   public final boolean next() throws QueryProcessException, IOException {
     if (!hasCachedValue) {
-      hasCachedValue = cacheValue();
+      hasCachedValue = canTransformBatch() ? cacheValueFromBatch() : cacheValue();
     }
     return hasCachedValue;
   }
@@ -54,6 +67,111 @@ public abstract class Transformer implements LayerPointReader {
   /** if this method returns true, at least one of the cached field should be set */
   protected abstract boolean cacheValue() throws QueryProcessException, IOException;
 
+  /**
+   * Whether this transformer evaluates its input batch by batch. If so, {@link
+   * #transformBatch(int)} is used for both point reads and batch reads, and {@link #cacheValue()}
+   * is not called.
+   */
+  protected boolean canTransformBatch() {
+    return false;
+  }
+
+  /**
+   * Evaluate at most {@code batchSize} points. Only called when {@link #canTransformBatch()}. By
+   * default the points are evaluated one by one with {@link #cacheValue()}, transformers that
+   * support batch evaluation override it.
+   *
+   * @return null if there are no more points, otherwise a non-empty TsBlock
+   */
+  protected TsBlock transformBatch(int batchSize) throws QueryProcessException, IOException {
+    TsBlockBuilder builder =
+        new TsBlockBuilder(batchSize, Collections.singletonList(getDataType()));
+    while (builder.getPositionCount() < batchSize && cacheValue()) {
+      LayerPointReaderUtils.appendCurrentPoint(this, builder);
+      currentNull = false;
+    }
+    return builder.isEmpty() ? null : builder.build();
+  }
+
+  @Override
+  public final TsBlock nextBatch(int batchSize) throws QueryProcessException, IOException {
+    if (!canTransformBatch()) {
+      return LayerPointReaderUtils.readBatchPointByPoint(this, batchSize);
+    }
+
+    // hand out the points that have not been consumed by point reads first
+    int start = hasCachedValue ? cachedBatchIndex - 1 : cachedBatchIndex;
+    if (cachedBatch == null || start == cachedBatch.getPositionCount()) {
+      cachedBatch = null;
+      return transformBatch(batchSize);
+    }
+    int length = Math.min(cachedBatch.getPositionCount() - start, batchSize);
+    TsBlock batch = cachedBatch.getRegion(start, length);
+    readyForNext();
+    cachedBatchIndex = start + length;
+    if (cachedBatchIndex == cachedBatch.getPositionCount()) {
+      cachedBatch = null;
+    }
+    return batch;
+  }
+
+  /**
+   * @return the null flags of the first {@code count} positions, or null if none of them is null
+   */
+  protected static boolean[] getValueIsNull(Column column, int count) {
+    boolean[] isNull = null;
+    for (int i = 0; i < count; ++i) {
+      if (column.isNull(i)) {
+        if (isNull == null) {
+          isNull = new boolean[count];
+        }
+        isNull[i] = true;
+      }
+    }
+    return isNull;
+  }
+
+  private boolean cacheValueFromBatch() throws QueryProcessException, IOException {
+    if (cachedBatch == null || cachedBatchIndex == cachedBatch.getPositionCount()) {
+      cachedBatch = transformBatch(BATCH_SIZE);
+      cachedBatchIndex = 0;
+      if (cachedBatch == null) {
+        return false;
+      }
+    }
+
+    cachedTime = cachedBatch.getTimeByIndex(cachedBatchIndex);
+    Column valueColumn = cachedBatch.getColumn(0);
+    if (valueColumn.isNull(cachedBatchIndex)) {
+      currentNull = true;
+    } else {
+      switch (getDataType()) {
+        case INT32:
+          cachedInt = valueColumn.getInt(cachedBatchIndex);
+          break;
+        case INT64:
+          cachedLong = valueColumn.getLong(cachedBatchIndex);
+          break;
+        case FLOAT:
+          cachedFloat = valueColumn.getFloat(cachedBatchIndex);
+          break;
+        case DOUBLE:
+          cachedDouble = valueColumn.getDouble(cachedBatchIndex);
+          break;
+        case BOOLEAN:
+          cachedBoolean = valueColumn.getBoolean(cachedBatchIndex);
+          break;
+        case TEXT:
+          cachedBinary = valueColumn.getBinary(cachedBatchIndex);
+          break;
+        default:
+          throw new QueryProcessException("Unsupported data type: " + getDataType());
+      }
+    }
+    ++cachedBatchIndex;
+    return true;
+  }
+
   @Override
   public void readyForNext() {
     hasCachedValue = false;
@@ -22,6 +22,7 @@ package org.apache.iotdb.db.query.udf.core.transformer;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.query.udf.core.executor.UDTFExecutor;
 import org.apache.iotdb.db.query.udf.core.reader.LayerRowReader;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
 
 import java.io.IOException;
 
@@ -36,6 +37,15 @@ public class UDFQueryRowTransformer extends UDFQueryTransformer {
 
   @Override
   protected boolean executeUDFOnce() throws IOException, QueryProcessException {
+    if (executor.isBatchTransformable()) {
+      TsBlock batch = layerRowReader.nextBatch(BATCH_SIZE);
+      if (batch == null) {
+        return false;
+      }
+      executor.execute(batch);
+      return true;
+    }
+
     if (!layerRowReader.next()) {
       return false;
     }
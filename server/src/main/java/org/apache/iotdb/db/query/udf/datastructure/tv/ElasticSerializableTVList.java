@@ -19,6 +19,7 @@
 
 package org.apache.iotdb.db.query.udf.datastructure.tv;
 
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.query.udf.api.collector.PointCollector;
 import org.apache.iotdb.db.query.udf.core.reader.LayerPointReader;
@@ -41,6 +42,9 @@ public class ElasticSerializableTVList implements PointCollector {
     if (dataType.equals(TSDataType.TEXT)) {
       return new ElasticSerializableBinaryTVList(queryId, memoryLimitInMB, cacheSize);
     }
+    if (IoTDBDescriptor.getInstance().getConfig().isEnableUdfOffHeapTVList()) {
+      return new OffHeapElasticSerializableTVList(dataType, queryId, memoryLimitInMB, cacheSize);
+    }
     return new ElasticSerializableTVList(dataType, queryId, memoryLimitInMB, cacheSize);
   }
 
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.query.udf.datastructure.tv;
+
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.query.udf.datastructure.Cache;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.BitMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * An {@link ElasticSerializableTVList} for fixed-length data types whose points are kept in {@link
+ * OffHeapTVPage}s instead of on-heap {@link SerializableTVList}s.
+ *
+ * <p>Pages are sized from the same memory budget as the on-heap lists, i.e. at most {@code
+ * cacheSize} pages of {@code memoryLimitInMB / cacheSize} are resident at the same time. Every
+ * resident page is backed by a direct buffer of this list and the buffers of evicted pages are
+ * reused by the pages loaded later, so no more than {@code cacheSize} direct buffers, which fit in
+ * {@code memoryLimitInMB}, are allocated by a list.
+ */
+public class OffHeapElasticSerializableTVList extends ElasticSerializableTVList {
+
+  protected final int pageByteLength;
+
+  protected PageCache pageCache;
+  protected List<OffHeapTVPage> pages;
+  protected final Deque<ByteBuffer> freeBuffers;
+  protected long allocatedDirectMemoryInBytes;
+
+  protected OffHeapElasticSerializableTVList(
+      TSDataType dataType, long queryId, float memoryLimitInMB, int cacheSize)
+      throws QueryProcessException {
+    super(dataType, queryId, memoryLimitInMB, cacheSize);
+    pageByteLength = OffHeapTVPage.calculatePageByteLength(dataType, internalTVListCapacity);
+
+    pageCache = new PageCache(this.cacheSize);
+    pages = new ArrayList<>();
+    freeBuffers = new ArrayDeque<>();
+  }
+
+  @Override
+  public long getTime(int index) throws IOException {
+    return pageCache
+        .get(index / internalTVListCapacity)
+        .getTimeByIndex(index % internalTVListCapacity);
+  }
+
+  @Override
+  public int getInt(int index) throws IOException {
+    return pageCache
+        .get(index / internalTVListCapacity)
+        .getIntByIndex(index % internalTVListCapacity);
+  }
+
+  @Override
+  public long getLong(int index) throws IOException {
+    return pageCache
+        .get(index / internalTVListCapacity)
+        .getLongByIndex(index % internalTVListCapacity);
+  }
+
+  @Override
+  public float getFloat(int index) throws IOException {
+    return pageCache
+        .get(index / internalTVListCapacity)
+        .getFloatByIndex(index % internalTVListCapacity);
+  }
+
+  @Override
+  public double getDouble(int index) throws IOException {
+    return pageCache
+        .get(index / internalTVListCapacity)
+        .getDoubleByIndex(index % internalTVListCapacity);
+  }
+
+  @Override
+  public boolean getBoolean(int index) throws IOException {
+    return pageCache
+        .get(index / internalTVListCapacity)
+        .getBooleanByIndex(index % internalTVListCapacity);
+  }
+
+  @Override
+  public Binary getBinary(int index) {
+    throw new UnSupportedDataTypeException(dataType.toString());
+  }
+
+  @Override
+  public String getString(int index) {
+    throw new UnSupportedDataTypeException(dataType.toString());
+  }
+
+  @Override
+  public void putInt(long timestamp, int value) throws IOException {
+    checkPageExpansion();
+    pageCache.get(size / internalTVListCapacity).putInt(timestamp, value);
+    ++size;
+  }
+
+  @Override
+  public void putLong(long timestamp, long value) throws IOException {
+    checkPageExpansion();
+    pageCache.get(size / internalTVListCapacity).putLong(timestamp, value);
+    ++size;
+  }
+
+  @Override
+  public void putFloat(long timestamp, float value) throws IOException {
+    checkPageExpansion();
+    pageCache.get(size / internalTVListCapacity).putFloat(timestamp, value);
+    ++size;
+  }
+
+  @Override
+  public void putDouble(long timestamp, double value) throws IOException {
+    checkPageExpansion();
+    pageCache.get(size / internalTVListCapacity).putDouble(timestamp, value);
+    ++size;
+  }
+
+  @Override
+  public void putBoolean(long timestamp, boolean value) throws IOException {
+    checkPageExpansion();
+    pageCache.get(size / internalTVListCapacity).putBoolean(timestamp, value);
+    ++size;
+  }
+
+  @Override
+  public void putBinary(long timestamp, Binary value) {
+    throw new UnSupportedDataTypeException(dataType.toString());
+  }
+
+  @Override
+  public void putString(long timestamp, String value) {
+    throw new UnSupportedDataTypeException(dataType.toString());
+  }
+
+  public long getAllocatedDirectMemoryInBytes() {
+    return allocatedDirectMemoryInBytes;
+  }
+
+  private void checkPageExpansion() {
+    if (size % internalTVListCapacity == 0) {
+      pages.add(new OffHeapTVPage(internalTVListCapacity, queryId));
+      bitMaps.add(new BitMap(internalTVListCapacity));
+    }
+  }
+
+  private ByteBuffer allocateBuffer() {
+    ByteBuffer buffer = freeBuffers.poll();
+    if (buffer == null) {
+      buffer = ByteBuffer.allocateDirect(pageByteLength);
+      allocatedDirectMemoryInBytes += pageByteLength;
+    }
+    return buffer;
+  }
+
+  private void recycleBuffer(ByteBuffer buffer) {
+    if (buffer != null) {
+      freeBuffers.push(buffer);
+    }
+  }
+
+  protected class PageCache extends Cache {
+
+    PageCache(int capacity) {
+      super(capacity);
+    }
+
+    OffHeapTVPage get(int targetIndex) throws IOException {
+      if (!removeFirstOccurrence(targetIndex)) {
+        if (cacheCapacity <= cacheSize) {
+          int lastIndex = removeLast();
+          if (lastIndex < evictionUpperBound / internalTVListCapacity) {
+            recycleBuffer(pages.get(lastIndex).discard());
+            pages.set(lastIndex, null);
+            bitMaps.set(lastIndex, null);
+          } else {
+            recycleBuffer(pages.get(lastIndex).spill());
+          }
+        }
+        pages.get(targetIndex).load(OffHeapElasticSerializableTVList.this::allocateBuffer);
+      }
+      addFirst(targetIndex);
+      return pages.get(targetIndex);
+    }
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.query.udf.datastructure.tv;
+
+import org.apache.iotdb.db.query.udf.datastructure.SerializableList.SerializationRecorder;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.Supplier;
+
+/**
+ * A fixed-size page of time-value pairs stored outside the Java heap. Times are stored in the first
+ * {@code capacity * 8} bytes of the page and values right after them, so a page can be written to a
+ * file and read back as it is.
+ *
+ * <p>A page is always read back into a direct buffer taken from the allocator, rather than
+ * memory-mapped, so that every resident page is backed by one of the buffers its list accounts for,
+ * and the memory of a page is reused as soon as it is spilled.
+ *
+ * <p><b>Note: It's not thread safe.</b>
+ */
+public class OffHeapTVPage {
+
+  private final int valueOffset;
+  private final SerializationRecorder serializationRecorder;
+
+  /** null if the page is not resident */
+  private ByteBuffer buffer;
+
+  private int size;
+
+  /** the number of points in the page file, or -1 if the page has never been spilled */
+  private int spilledSize;
+
+  public OffHeapTVPage(int capacity, long queryId) {
+    valueOffset = capacity * ReadWriteIOUtils.LONG_LEN;
+    serializationRecorder = new SerializationRecorder(queryId);
+    size = 0;
+    spilledSize = -1;
+  }
+
+  public static int calculatePageByteLength(TSDataType dataType, int capacity) {
+    return capacity * (ReadWriteIOUtils.LONG_LEN + getValueLength(dataType));
+  }
+
+  private static int getValueLength(TSDataType dataType) {
+    switch (dataType) {
+      case INT32:
+        return ReadWriteIOUtils.INT_LEN;
+      case INT64:
+        return ReadWriteIOUtils.LONG_LEN;
+      case FLOAT:
+        return ReadWriteIOUtils.FLOAT_LEN;
+      case DOUBLE:
+        return ReadWriteIOUtils.DOUBLE_LEN;
+      case BOOLEAN:
+        return ReadWriteIOUtils.BOOLEAN_LEN;
+      default:
+        throw new UnSupportedDataTypeException(dataType.toString());
+    }
+  }
+
+  public boolean isResident() {
+    return buffer != null;
+  }
+
+  /**
+   * Make the page resident. A page that has never been spilled takes an empty buffer from the
+   * allocator.
+   */
+  public void load(Supplier<ByteBuffer> allocator) throws IOException {
+    if (buffer != null) {
+      return;
+    }
+
+    buffer = allocator.get();
+    if (spilledSize == -1) {
+      return;
+    }
+
+    FileChannel fileChannel = serializationRecorder.getFileChannel();
+    buffer.clear();
+    long position = 0;
+    while (buffer.hasRemaining()) {
+      int read = fileChannel.read(buffer, position);
+      if (read < 0) {
+        break;
+      }
+      position += read;
+    }
+    serializationRecorder.closeFile();
+  }
+
+  /**
+   * Write the page to its file unless the file is up to date, and make the page non-resident.
+   *
+   * @return the released direct buffer that can be reused by other pages, or null if the page is
+   *     not resident
+   */
+  public ByteBuffer spill() throws IOException {
+    if (buffer == null) {
+      return null;
+    }
+
+    if (spilledSize != size) {
+      ByteBuffer duplicate = buffer.duplicate();
+      duplicate.clear();
+      FileChannel fileChannel = serializationRecorder.getFileChannel();
+      long position = 0;
+      while (duplicate.hasRemaining()) {
+        position += fileChannel.write(duplicate, position);
+      }
+      serializationRecorder.closeFile();
+      spilledSize = size;
+    }
+    return release();
+  }
+
+  /**
+   * Drop the page content without spilling it. The page can not be loaded again.
+   *
+   * @return the released direct buffer that can be reused by other pages, or null
+   */
+  public ByteBuffer discard() {
+    return release();
+  }
+
+  private ByteBuffer release() {
+    ByteBuffer released = buffer;
+    buffer = null;
+    return released;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public long getTimeByIndex(int index) {
+    return buffer.getLong(index * ReadWriteIOUtils.LONG_LEN);
+  }
+
+  public int getIntByIndex(int index) {
+    return buffer.getInt(valueOffset + index * ReadWriteIOUtils.INT_LEN);
+  }
+
+  public long getLongByIndex(int index) {
+    return buffer.getLong(valueOffset + index * ReadWriteIOUtils.LONG_LEN);
+  }
+
+  public float getFloatByIndex(int index) {
+    return buffer.getFloat(valueOffset + index * ReadWriteIOUtils.FLOAT_LEN);
+  }
+
+  public double getDoubleByIndex(int index) {
+    return buffer.getDouble(valueOffset + index * ReadWriteIOUtils.DOUBLE_LEN);
+  }
+
+  public boolean getBooleanByIndex(int index) {
+    return buffer.get(valueOffset + index * ReadWriteIOUtils.BOOLEAN_LEN) != 0;
+  }
+
+  public void putInt(long time, int value) {
+    buffer.putInt(valueOffset + size * ReadWriteIOUtils.INT_LEN, value);
+    putTime(time);
+  }
+
+  public void putLong(long time, long value) {
+    buffer.putLong(valueOffset + size * ReadWriteIOUtils.LONG_LEN, value);
+    putTime(time);
+  }
+
+  public void putFloat(long time, float value) {
+    buffer.putFloat(valueOffset + size * ReadWriteIOUtils.FLOAT_LEN, value);
+    putTime(time);
+  }
+
+  public void putDouble(long time, double value) {
+    buffer.putDouble(valueOffset + size * ReadWriteIOUtils.DOUBLE_LEN, value);
+    putTime(time);
+  }
+
+  public void putBoolean(long time, boolean value) {
+    buffer.put(valueOffset + size * ReadWriteIOUtils.BOOLEAN_LEN, (byte) (value ? 1 : 0));
+    putTime(time);
+  }
+
+  private void putTime(long time) {
+    buffer.putLong(size * ReadWriteIOUtils.LONG_LEN, time);
+    ++size;
+  }
+}
@@ -20,6 +20,11 @@ package org.apache.iotdb.db.rescon;
 
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.service.metrics.Metric;
+import org.apache.iotdb.db.service.metrics.MetricsService;
+import org.apache.iotdb.db.service.metrics.Tag;
+import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
+import org.apache.iotdb.metrics.utils.MetricLevel;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Binary;
@@ -29,9 +34,18 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
-/** Manage all primitive data lists in memory, including get and release operations. */
+/**
+ * Manage all primitive data lists in memory, including get and release operations.
+ *
+ * <p>Released arrays are cached in magazines, i.e. small stacks of arrays of the same data type.
+ * Each thread keeps one magazine per data type, so most allocations and releases do not synchronize
+ * with other threads. A thread exchanges whole magazines with a global depot when its magazine runs
+ * empty or full, so arrays released by the flush threads flow back to the writers in bulk.
+ */
 public class PrimitiveArrayManager {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(PrimitiveArrayManager.class);
@@ -52,16 +66,25 @@ public class PrimitiveArrayManager {
           * CONFIG.getBufferedArraysMemoryProportion()
           / AMPLIFICATION_FACTOR;
 
-  /** TSDataType#serialize() -> ArrayDeque<Array>, VECTOR is ignored */
-  private static final ArrayDeque[] POOLED_ARRAYS = new ArrayDeque[TSDataType.values().length - 1];
+  /** the number of arrays in a magazine */
+  private static final int MAGAZINE_CAPACITY = 32;
+
+  /** TSDataType#serialize() -> ArrayDeque<Magazine> of full magazines, VECTOR is ignored */
+  private static final ArrayDeque[] DEPOTS = new ArrayDeque[TSDataType.values().length - 1];
 
-  /** TSDataType#serialize() -> max size of ArrayDeque<Array>, VECTOR is ignored */
+  /**
+   * TSDataType#serialize() -> max number of arrays in the depot, VECTOR is ignored. The arrays
+   * cached by threads are not limited by it.
+   */
   private static final int[] LIMITS = new int[TSDataType.values().length - 1];
 
   /** LIMITS should be updated if (TOTAL_ALLOCATION_REQUEST_COUNT.get() > limitUpdateThreshold) */
   private static long limitUpdateThreshold;
 
-  /** TSDataType#serialize() -> count of allocation requests, VECTOR is ignored */
+  /**
+   * TSDataType#serialize() -> count of allocation requests, VECTOR is ignored. Requests are counted
+   * by each thread and added here every MAGAZINE_CAPACITY requests.
+   */
   private static final AtomicLong[] ALLOCATION_REQUEST_COUNTS =
       new AtomicLong[] {
         new AtomicLong(0),
@@ -74,8 +97,31 @@ public class PrimitiveArrayManager {
 
   private static final AtomicLong TOTAL_ALLOCATION_REQUEST_COUNT = new AtomicLong(0);
 
+  /** TSDataType#serialize() -> count of allocations served by cached arrays, VECTOR is ignored */
+  private static final LongAdder[] REUSED_ARRAY_COUNTS = newLongAdders();
+
+  /** TSDataType#serialize() -> count of newly created arrays, VECTOR is ignored */
+  private static final LongAdder[] CREATED_ARRAY_COUNTS = newLongAdders();
+
+  /** TSDataType#serialize() -> count of released arrays, VECTOR is ignored */
+  private static final LongAdder[] RELEASED_ARRAY_COUNTS = newLongAdders();
+
+  /** the magazines of each thread, invalidated when the generation changes */
+  private static final ThreadLocal<LocalCache> LOCAL_CACHES = new ThreadLocal<>();
+
+  private static volatile long generation = 0;
+
   static {
     init();
+    registerMetrics();
+  }
+
+  private static LongAdder[] newLongAdders() {
+    LongAdder[] longAdders = new LongAdder[TSDataType.values().length - 1];
+    for (int i = 0; i < longAdders.length; ++i) {
+      longAdders[i] = new LongAdder();
+    }
+    return longAdders;
   }
 
   private static void init() {
@@ -99,8 +145,8 @@ public class PrimitiveArrayManager {
     // limitUpdateThreshold = ∑(LIMITS[i])
     limitUpdateThreshold = (long) ((TSDataType.values().length - 1) * limit);
 
-    for (int i = 0; i < POOLED_ARRAYS.length; ++i) {
-      POOLED_ARRAYS[i] = new ArrayDeque<>((int) limit);
+    for (int i = 0; i < DEPOTS.length; ++i) {
+      DEPOTS[i] = new ArrayDeque<>();
     }
 
     for (AtomicLong allocationRequestCount : ALLOCATION_REQUEST_COUNTS) {
@@ -108,6 +154,49 @@ public class PrimitiveArrayManager {
     }
 
     TOTAL_ALLOCATION_REQUEST_COUNT.set(0);
+
+    for (int i = 0; i < TSDataType.values().length - 1; ++i) {
+      REUSED_ARRAY_COUNTS[i].reset();
+      CREATED_ARRAY_COUNTS[i].reset();
+      RELEASED_ARRAY_COUNTS[i].reset();
+    }
+
+    // drop the magazines cached by threads
+    ++generation;
+  }
+
+  private static void registerMetrics() {
+    if (!MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
+      return;
+    }
+    for (TSDataType dataType : TSDataType.values()) {
+      // VECTOR is ignored
+      if (dataType.equals(TSDataType.VECTOR)) {
+        continue;
+      }
+      MetricsService.getInstance()
+          .getMetricManager()
+          .getOrCreateAutoGauge(
+              Metric.MEM.toString(),
+              MetricLevel.IMPORTANT,
+              dataType,
+              PrimitiveArrayManager::getOutstandingArrayBytes,
+              Tag.NAME.toString(),
+              "primitiveArray",
+              Tag.TYPE.toString(),
+              dataType.name());
+      MetricsService.getInstance()
+          .getMetricManager()
+          .getOrCreateAutoGauge(
+              Metric.CACHE_HIT.toString(),
+              MetricLevel.IMPORTANT,
+              dataType,
+              type -> (long) (getArrayReuseRatio(type) * 100),
+              Tag.NAME.toString(),
+              "primitiveArray",
+              Tag.TYPE.toString(),
+              dataType.name());
+    }
   }
 
   private PrimitiveArrayManager() {}
@@ -122,29 +211,52 @@ public class PrimitiveArrayManager {
       throw new UnSupportedDataTypeException(TSDataType.VECTOR.name());
     }
 
-    if (TOTAL_ALLOCATION_REQUEST_COUNT.get() > limitUpdateThreshold) {
-      synchronized (TOTAL_ALLOCATION_REQUEST_COUNT) {
-        if (TOTAL_ALLOCATION_REQUEST_COUNT.get() > limitUpdateThreshold) {
-          updateLimits();
-        }
+    int order = dataType.serialize();
+    LocalCache localCache = getLocalCache();
+    localCache.countAllocationRequest(order);
+
+    Magazine magazine = localCache.magazines[order];
+    if (magazine.isEmpty()) {
+      Magazine fullMagazine;
+      synchronized (DEPOTS[order]) {
+        fullMagazine = (Magazine) DEPOTS[order].poll();
+      }
+      if (fullMagazine != null) {
+        magazine = fullMagazine;
+        localCache.magazines[order] = magazine;
       }
     }
 
-    int order = dataType.serialize();
-
-    ALLOCATION_REQUEST_COUNTS[order].incrementAndGet();
-    TOTAL_ALLOCATION_REQUEST_COUNT.incrementAndGet();
-
-    Object array;
-    synchronized (POOLED_ARRAYS[order]) {
-      array = POOLED_ARRAYS[order].poll();
-    }
+    Object array = magazine.pop();
     if (array == null) {
       array = createPrimitiveArray(dataType);
+      CREATED_ARRAY_COUNTS[order].increment();
+    } else {
+      REUSED_ARRAY_COUNTS[order].increment();
     }
     return array;
   }
 
+  private static LocalCache getLocalCache() {
+    LocalCache localCache = LOCAL_CACHES.get();
+    if (localCache == null || localCache.generation != generation) {
+      localCache = new LocalCache(generation);
+      LOCAL_CACHES.set(localCache);
+    }
+    return localCache;
+  }
+
+  private static void flushAllocationRequestCount(int order, int count) {
+    ALLOCATION_REQUEST_COUNTS[order].addAndGet(count);
+    if (TOTAL_ALLOCATION_REQUEST_COUNT.addAndGet(count) > limitUpdateThreshold) {
+      synchronized (TOTAL_ALLOCATION_REQUEST_COUNT) {
+        if (TOTAL_ALLOCATION_REQUEST_COUNT.get() > limitUpdateThreshold) {
+          updateLimits();
+        }
+      }
+    }
+  }
+
   private static void updateLimits() {
     // we want to update LIMITS[i] according to ratios[i]
     double[] ratios = new double[ALLOCATION_REQUEST_COUNTS.length];
@@ -240,6 +352,22 @@ public class PrimitiveArrayManager {
    * @param array data array to be released
    */
   public static void release(Object array) {
+    release(getLocalCache(), array);
+  }
+
+  /**
+   * Bring back data arrays in bulk, e.g. when the TVLists of a flushed memtable are cleared.
+   *
+   * @param arrays data arrays to be released
+   */
+  public static void releaseAll(List<?> arrays) {
+    LocalCache localCache = getLocalCache();
+    for (Object array : arrays) {
+      release(localCache, array);
+    }
+  }
+
+  private static void release(LocalCache localCache, Object array) {
     int order;
     if (array instanceof boolean[]) {
       order = TSDataType.BOOLEAN.serialize();
@@ -257,13 +385,38 @@ public class PrimitiveArrayManager {
     } else {
       throw new UnSupportedDataTypeException(array.getClass().toString());
     }
-
-    synchronized (POOLED_ARRAYS[order]) {
-      ArrayDeque<Object> arrays = POOLED_ARRAYS[order];
-      if (arrays.size() < LIMITS[order]) {
-        arrays.add(array);
+    RELEASED_ARRAY_COUNTS[order].increment();
+
+    Magazine magazine = localCache.magazines[order];
+    if (magazine.isFull()) {
+      synchronized (DEPOTS[order]) {
+        ArrayDeque<Magazine> depot = DEPOTS[order];
+        if ((depot.size() + 1) * MAGAZINE_CAPACITY <= LIMITS[order]) {
+          depot.add(magazine);
+        }
       }
+      magazine = new Magazine();
+      localCache.magazines[order] = magazine;
     }
+    magazine.push(array);
+  }
+
+  /** @return the bytes of the arrays that have been allocated but not released */
+  public static long getOutstandingArrayBytes(TSDataType dataType) {
+    int order = dataType.serialize();
+    long outstandingArrays =
+        REUSED_ARRAY_COUNTS[order].sum()
+            + CREATED_ARRAY_COUNTS[order].sum()
+            - RELEASED_ARRAY_COUNTS[order].sum();
+    return outstandingArrays * ARRAY_SIZE * dataType.getDataTypeSize();
+  }
+
+  /** @return the ratio of allocations served by released arrays */
+  public static double getArrayReuseRatio(TSDataType dataType) {
+    int order = dataType.serialize();
+    long reused = REUSED_ARRAY_COUNTS[order].sum();
+    long total = reused + CREATED_ARRAY_COUNTS[order].sum();
+    return total == 0 ? 0 : (double) reused / total;
   }
 
   public static void close() {
@@ -320,4 +473,59 @@ public class PrimitiveArrayManager {
         throw new UnSupportedDataTypeException(dataType.name());
     }
   }
+
+  /** A bounded stack of arrays of the same data type. */
+  private static class Magazine {
+
+    private final Object[] arrays = new Object[MAGAZINE_CAPACITY];
+    private int size = 0;
+
+    private boolean isEmpty() {
+      return size == 0;
+    }
+
+    private boolean isFull() {
+      return size == MAGAZINE_CAPACITY;
+    }
+
+    private void push(Object array) {
+      arrays[size++] = array;
+    }
+
+    /** @return null if the magazine is empty */
+    private Object pop() {
+      if (size == 0) {
+        return null;
+      }
+      Object array = arrays[--size];
+      arrays[size] = null;
+      return array;
+    }
+  }
+
+  /** The magazines and the uncounted allocation requests of a thread. */
+  private static class LocalCache {
+
+    private final long generation;
+
+    /** TSDataType#serialize() -> magazine, VECTOR is ignored */
+    private final Magazine[] magazines = new Magazine[TSDataType.values().length - 1];
+
+    /** TSDataType#serialize() -> allocation requests not added to ALLOCATION_REQUEST_COUNTS */
+    private final int[] allocationRequestCounts = new int[TSDataType.values().length - 1];
+
+    private LocalCache(long generation) {
+      this.generation = generation;
+      for (int i = 0; i < magazines.length; ++i) {
+        magazines[i] = new Magazine();
+      }
+    }
+
+    private void countAllocationRequest(int order) {
+      if (++allocationRequestCounts[order] == MAGAZINE_CAPACITY) {
+        allocationRequestCounts[order] = 0;
+        flushAllocationRequestCount(order, MAGAZINE_CAPACITY);
+      }
+    }
+  }
 }
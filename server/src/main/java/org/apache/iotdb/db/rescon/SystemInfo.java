@@ -26,32 +26,53 @@ import org.apache.iotdb.db.engine.flush.FlushManager;
 import org.apache.iotdb.db.engine.storagegroup.StorageGroupInfo;
 import org.apache.iotdb.db.engine.storagegroup.TsFileProcessor;
 import org.apache.iotdb.db.exception.WriteProcessRejectException;
+import org.apache.iotdb.db.service.metrics.Metric;
+import org.apache.iotdb.db.service.metrics.MetricsService;
+import org.apache.iotdb.db.service.metrics.Tag;
+import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
+import org.apache.iotdb.metrics.utils.MetricLevel;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class SystemInfo {
 
   private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
   private static final Logger logger = LoggerFactory.getLogger(SystemInfo.class);
 
-  private long totalStorageGroupMemCost = 0L;
+  /**
+   * The sum of the mem costs last reported by all storage groups. It is updated without locking;
+   * the global lock of this instance is only taken when the sum crosses the flush threshold.
+   */
+  private final AtomicLong totalStorageGroupMemCost = new AtomicLong();
+
   private volatile boolean rejected = false;
 
-  private static long memorySizeForWrite = config.getAllocateMemoryForWrite();
-  private Map<StorageGroupInfo, Long> reportedStorageGroupMemCostMap = new HashMap<>();
+  private static volatile long memorySizeForWrite = config.getAllocateMemoryForWrite();
+  private final Set<StorageGroupInfo> reportedStorageGroups = ConcurrentHashMap.newKeySet();
 
-  private long flushingMemTablesCost = 0L;
+  private final AtomicLong flushingMemTablesCost = new AtomicLong();
 
   private ExecutorService flushTaskSubmitThreadPool =
       IoTDBThreadPoolFactory.newSingleThreadExecutor("FlushTask-Submit-Pool");
-  private static double FLUSH_THERSHOLD = memorySizeForWrite * config.getFlushProportion();
-  private static double REJECT_THERSHOLD = memorySizeForWrite * config.getRejectProportion();
+  private static volatile double FLUSH_THERSHOLD = memorySizeForWrite * config.getFlushProportion();
+  private static volatile double REJECT_THERSHOLD =
+      memorySizeForWrite * config.getRejectProportion();
+
+  /** created on the first selection, as memtables are chosen by the writer by default */
+  private ExecutorService flushSelectionThreadPool;
+  /** guards flushSelectionThreadPool, apart from the lock of this instance held by selections */
+  private final Object flushSelectionThreadPoolLock = new Object();
+
+  private final AtomicBoolean isFlushSelectionScheduled = new AtomicBoolean(false);
 
   private volatile boolean isEncodingFasterThanIo = true;
 
@@ -60,48 +81,63 @@ public class SystemInfo {
    * newly accumulates to IoTDBConfig.getStorageGroupSizeReportThreshold()
    *
    * @param storageGroupInfo storage group
+   * @return false if the insertion should be blocked until the system is not rejected
    * @throws WriteProcessRejectException
    */
-  public synchronized boolean reportStorageGroupStatus(
+  public boolean reportStorageGroupStatus(
       StorageGroupInfo storageGroupInfo, TsFileProcessor tsFileProcessor)
       throws WriteProcessRejectException {
-    long delta =
-        storageGroupInfo.getMemCost()
-            - reportedStorageGroupMemCostMap.getOrDefault(storageGroupInfo, 0L);
-    totalStorageGroupMemCost += delta;
+    reportedStorageGroups.add(storageGroupInfo);
+    long memCost = storageGroupInfo.getMemCost();
+    long delta = memCost - storageGroupInfo.getAndSetLastReportedSize(memCost);
+    long totalMemCost = totalStorageGroupMemCost.addAndGet(delta);
     if (logger.isDebugEnabled()) {
       logger.debug(
           "Report Storage Group Status to the system. "
               + "After adding {}, current sg mem cost is {}.",
           delta,
-          totalStorageGroupMemCost);
+          totalMemCost);
     }
-    reportedStorageGroupMemCostMap.put(storageGroupInfo, storageGroupInfo.getMemCost());
-    storageGroupInfo.setLastReportedSize(storageGroupInfo.getMemCost());
-    if (totalStorageGroupMemCost < FLUSH_THERSHOLD) {
+    if (totalMemCost < FLUSH_THERSHOLD) {
       return true;
-    } else if (totalStorageGroupMemCost >= FLUSH_THERSHOLD
-        && totalStorageGroupMemCost < REJECT_THERSHOLD) {
+    } else if (totalMemCost < REJECT_THERSHOLD) {
       logger.debug(
           "The total storage group mem costs are too large, call for flushing. "
               + "Current sg cost is {}",
-          totalStorageGroupMemCost);
-      chooseMemTablesToMarkFlush(tsFileProcessor);
+          totalMemCost);
+      if (config.isEnableAsyncFlushSelection()) {
+        scheduleFlushSelection();
+      } else {
+        synchronized (this) {
+          chooseMemTablesToMarkFlush(tsFileProcessor);
+        }
+      }
       return true;
-    } else {
+    }
+
+    synchronized (this) {
+      totalMemCost = totalStorageGroupMemCost.get();
+      if (totalMemCost < REJECT_THERSHOLD) {
+        // memory has been released by others in the meantime
+        return true;
+      }
       logger.info(
           "Change system to reject status. Triggered by: logical SG ({}), mem cost delta ({}), totalSgMemCost ({}).",
           storageGroupInfo.getVirtualStorageGroupProcessor().getLogicalStorageGroupName(),
           delta,
-          totalStorageGroupMemCost);
+          totalMemCost);
       rejected = true;
+      if (config.isEnableAsyncFlushSelection()) {
+        scheduleFlushSelection();
+        return false;
+      }
       if (chooseMemTablesToMarkFlush(tsFileProcessor)) {
-        if (totalStorageGroupMemCost < memorySizeForWrite) {
+        if (totalMemCost < memorySizeForWrite) {
           return true;
         } else {
           throw new WriteProcessRejectException(
               "Total Storage Group MemCost "
-                  + totalStorageGroupMemCost
+                  + totalMemCost
                   + " is over than memorySizeForWriting "
                   + memorySizeForWrite);
         }
@@ -117,82 +153,117 @@ public class SystemInfo {
    *
    * @param storageGroupInfo storage group
    */
-  public synchronized void resetStorageGroupStatus(StorageGroupInfo storageGroupInfo) {
+  public void resetStorageGroupStatus(StorageGroupInfo storageGroupInfo) {
     long delta = 0;
 
-    if (reportedStorageGroupMemCostMap.containsKey(storageGroupInfo)) {
-      delta = reportedStorageGroupMemCostMap.get(storageGroupInfo) - storageGroupInfo.getMemCost();
-      this.totalStorageGroupMemCost -= delta;
-      storageGroupInfo.setLastReportedSize(storageGroupInfo.getMemCost());
-      reportedStorageGroupMemCostMap.put(storageGroupInfo, storageGroupInfo.getMemCost());
+    if (reportedStorageGroups.contains(storageGroupInfo)) {
+      long memCost = storageGroupInfo.getMemCost();
+      delta = storageGroupInfo.getAndSetLastReportedSize(memCost) - memCost;
+      totalStorageGroupMemCost.addAndGet(-delta);
     }
 
-    if (totalStorageGroupMemCost >= FLUSH_THERSHOLD
-        && totalStorageGroupMemCost < REJECT_THERSHOLD) {
+    if (totalStorageGroupMemCost.get() < FLUSH_THERSHOLD && !rejected) {
       logger.debug(
-          "SG ({}) released memory (delta: {}) but still exceeding flush proportion (totalSgMemCost: {}), call flush.",
+          "SG ({}) released memory (delta: {}), system is in normal status (totalSgMemCost: {}).",
           storageGroupInfo.getVirtualStorageGroupProcessor().getLogicalStorageGroupName(),
           delta,
           totalStorageGroupMemCost);
-      if (rejected) {
-        logger.info(
-            "SG ({}) released memory (delta: {}), set system to normal status (totalSgMemCost: {}).",
+      return;
+    }
+
+    synchronized (this) {
+      long totalMemCost = totalStorageGroupMemCost.get();
+      if (totalMemCost >= FLUSH_THERSHOLD && totalMemCost < REJECT_THERSHOLD) {
+        logger.debug(
+            "SG ({}) released memory (delta: {}) but still exceeding flush proportion (totalSgMemCost: {}), call flush.",
+            storageGroupInfo.getVirtualStorageGroupProcessor().getLogicalStorageGroupName(),
+            delta,
+            totalMemCost);
+        if (rejected) {
+          logger.info(
+              "SG ({}) released memory (delta: {}), set system to normal status (totalSgMemCost: {}).",
+              storageGroupInfo.getVirtualStorageGroupProcessor().getLogicalStorageGroupName(),
+              delta,
+              totalMemCost);
+        }
+        logCurrentTotalSGMemory();
+        rejected = false;
+      } else if (totalMemCost >= REJECT_THERSHOLD) {
+        logger.warn(
+            "SG ({}) released memory (delta: {}), but system is still in reject status (totalSgMemCost: {}).",
+            storageGroupInfo.getVirtualStorageGroupProcessor().getLogicalStorageGroupName(),
+            delta,
+            totalMemCost);
+        logCurrentTotalSGMemory();
+        rejected = true;
+      } else {
+        logger.debug(
+            "SG ({}) released memory (delta: {}), system is in normal status (totalSgMemCost: {}).",
             storageGroupInfo.getVirtualStorageGroupProcessor().getLogicalStorageGroupName(),
             delta,
-            totalStorageGroupMemCost);
+            totalMemCost);
+        logCurrentTotalSGMemory();
+        rejected = false;
       }
-      logCurrentTotalSGMemory();
-      rejected = false;
-    } else if (totalStorageGroupMemCost >= REJECT_THERSHOLD) {
-      logger.warn(
-          "SG ({}) released memory (delta: {}), but system is still in reject status (totalSgMemCost: {}).",
-          storageGroupInfo.getVirtualStorageGroupProcessor().getLogicalStorageGroupName(),
-          delta,
-          totalStorageGroupMemCost);
-      logCurrentTotalSGMemory();
-      rejected = true;
-    } else {
-      logger.debug(
-          "SG ({}) released memory (delta: {}), system is in normal status (totalSgMemCost: {}).",
-          storageGroupInfo.getVirtualStorageGroupProcessor().getLogicalStorageGroupName(),
-          delta,
-          totalStorageGroupMemCost);
-      logCurrentTotalSGMemory();
-      rejected = false;
     }
   }
 
-  public synchronized void addFlushingMemTableCost(long flushingMemTableCost) {
-    this.flushingMemTablesCost += flushingMemTableCost;
+  public void addFlushingMemTableCost(long flushingMemTableCost) {
+    flushingMemTablesCost.addAndGet(flushingMemTableCost);
   }
 
-  public synchronized void resetFlushingMemTableCost(long flushingMemTableCost) {
-    this.flushingMemTablesCost -= flushingMemTableCost;
+  public void resetFlushingMemTableCost(long flushingMemTableCost) {
+    flushingMemTablesCost.addAndGet(-flushingMemTableCost);
   }
 
   private void logCurrentTotalSGMemory() {
     logger.debug("Current Sg cost is {}", totalStorageGroupMemCost);
   }
 
+  /**
+   * Choose memtables to flush on the flush selection thread. Requests arriving while a selection is
+   * waiting to run are merged into it.
+   */
+  private void scheduleFlushSelection() {
+    if (!isFlushSelectionScheduled.compareAndSet(false, true)) {
+      return;
+    }
+    synchronized (flushSelectionThreadPoolLock) {
+      if (flushSelectionThreadPool == null) {
+        flushSelectionThreadPool =
+            IoTDBThreadPoolFactory.newSingleThreadExecutor("FlushTask-Selection-Pool");
+      }
+      flushSelectionThreadPool.submit(
+          () -> {
+            isFlushSelectionScheduled.set(false);
+            synchronized (this) {
+              if (totalStorageGroupMemCost.get() >= FLUSH_THERSHOLD) {
+                chooseMemTablesToMarkFlush(null);
+              }
+            }
+          });
+    }
+  }
+
   /**
    * Order all working memtables in system by memory cost of actual data points in memtable. Mark
    * the top K TSPs as to be flushed, so that after flushing the K TSPs, the memory cost should be
-   * less than FLUSH_THRESHOLD
+   * less than FLUSH_THRESHOLD. Must be called with the lock of this instance held.
    */
   private boolean chooseMemTablesToMarkFlush(TsFileProcessor currentTsFileProcessor) {
     // If invoke flush by replaying logs, do not flush now!
-    if (reportedStorageGroupMemCostMap.size() == 0) {
+    if (reportedStorageGroups.isEmpty()) {
       return false;
     }
     PriorityQueue<TsFileProcessor> allTsFileProcessors =
         new PriorityQueue<>(
             (o1, o2) -> Long.compare(o2.getWorkMemTableRamCost(), o1.getWorkMemTableRamCost()));
-    for (StorageGroupInfo storageGroupInfo : reportedStorageGroupMemCostMap.keySet()) {
+    for (StorageGroupInfo storageGroupInfo : reportedStorageGroups) {
       allTsFileProcessors.addAll(storageGroupInfo.getAllReportedTsp());
     }
     boolean isCurrentTsFileProcessorSelected = false;
     long memCost = 0;
-    long activeMemSize = totalStorageGroupMemCost - flushingMemTablesCost;
+    long activeMemSize = totalStorageGroupMemCost.get() - flushingMemTablesCost.get();
     while (activeMemSize - memCost > FLUSH_THERSHOLD) {
       if (allTsFileProcessors.isEmpty()
           || allTsFileProcessors.peek().getWorkMemTableRamCost() == 0) {
@@ -213,6 +284,21 @@ public class SystemInfo {
     return isCurrentTsFileProcessorSelected;
   }
 
+  /** Record how long an insertion has been blocked because the system is rejected. */
+  public void recordInsertionBlockedTime(long blockedTimeInMs) {
+    if (MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
+      MetricsService.getInstance()
+          .getMetricManager()
+          .timer(
+              blockedTimeInMs,
+              TimeUnit.MILLISECONDS,
+              Metric.COST_TASK.toString(),
+              MetricLevel.IMPORTANT,
+              Tag.NAME.toString(),
+              "insertion_blocked_by_reject");
+    }
+  }
+
   public boolean isRejected() {
     return rejected;
   }
@@ -226,9 +312,20 @@ public class SystemInfo {
   }
 
   public void close() {
-    reportedStorageGroupMemCostMap.clear();
-    totalStorageGroupMemCost = 0;
+    // a storage group reported again after closing is accounted from scratch
+    for (StorageGroupInfo storageGroupInfo : reportedStorageGroups) {
+      storageGroupInfo.setLastReportedSize(0);
+    }
+    reportedStorageGroups.clear();
+    totalStorageGroupMemCost.set(0);
     rejected = false;
+    synchronized (flushSelectionThreadPoolLock) {
+      if (flushSelectionThreadPool != null) {
+        flushSelectionThreadPool.shutdownNow();
+        flushSelectionThreadPool = null;
+      }
+      isFlushSelectionScheduled.set(false);
+    }
   }
 
   public static SystemInfo getInstance() {
@@ -255,7 +352,7 @@ public class SystemInfo {
   }
 
   public long getTotalMemTableSize() {
-    return totalStorageGroupMemCost;
+    return totalStorageGroupMemCost.get();
   }
 
   public double getFlushThershold() {
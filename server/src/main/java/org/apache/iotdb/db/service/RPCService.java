@@ -25,12 +25,21 @@ import org.apache.iotdb.commons.service.ThriftService;
 import org.apache.iotdb.commons.service.ThriftServiceThread;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.service.metrics.Metric;
+import org.apache.iotdb.db.service.metrics.MetricsService;
+import org.apache.iotdb.db.service.metrics.Tag;
 import org.apache.iotdb.db.service.thrift.ProcessorWithMetrics;
 import org.apache.iotdb.db.service.thrift.handler.RPCServiceThriftHandler;
 import org.apache.iotdb.db.service.thrift.impl.TSServiceImpl;
+import org.apache.iotdb.metrics.MetricManager;
 import org.apache.iotdb.metrics.config.MetricConfigDescriptor;
+import org.apache.iotdb.metrics.utils.MetricLevel;
+import org.apache.iotdb.rpc.RpcStat;
+import org.apache.iotdb.rpc.RpcTransportFactory;
 import org.apache.iotdb.service.rpc.thrift.TSIService.Processor;
 
+import org.apache.thrift.transport.TTransportFactory;
+
 /** A service to handle jdbc request from client. */
 public class RPCService extends ThriftService implements RPCServiceMBean {
 
@@ -55,6 +64,7 @@ public class RPCService extends ThriftService implements RPCServiceMBean {
     initSyncedServiceImpl(null);
     if (MetricConfigDescriptor.getInstance().getMetricConfig().getEnableMetric()) {
       processor = new ProcessorWithMetrics(impl);
+      addCompressionMetrics();
     } else {
       processor = new Processor<>(impl);
     }
@@ -74,13 +84,56 @@ public class RPCService extends ThriftService implements RPCServiceMBean {
               config.getRpcMaxConcurrentClientNum(),
               config.getThriftServerAwaitTimeForStopService(),
               new RPCServiceThriftHandler(impl),
-              IoTDBDescriptor.getInstance().getConfig().isRpcThriftCompressionEnable());
+              IoTDBDescriptor.getInstance().getConfig().isRpcThriftCompressionEnable()) {
+            @Override
+            public TTransportFactory getTTransportFactory() {
+              // only the clients of this service may negotiate the compression
+              return RpcTransportFactory.getAdaptiveCompressionInstance();
+            }
+          };
     } catch (RPCServiceException e) {
       throw new IllegalAccessException(e.getMessage());
     }
     thriftServiceThread.setName(ThreadName.RPC_SERVICE.getName());
   }
 
+  /** compression ratios are reported as percentages, compression cpu times in milliseconds */
+  private void addCompressionMetrics() {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    if (!config.isRpcAdaptiveCompressionEnable() && !config.isRpcAdvancedCompressionEnable()) {
+      return;
+    }
+    MetricManager metricManager = MetricsService.getInstance().getMetricManager();
+    metricManager.getOrCreateAutoGauge(
+        Metric.RPC_COMPRESSION.toString(),
+        MetricLevel.IMPORTANT,
+        this,
+        s -> (long) (RpcStat.getReadCompressionRatio() * 100),
+        Tag.NAME.toString(),
+        "read_ratio");
+    metricManager.getOrCreateAutoGauge(
+        Metric.RPC_COMPRESSION.toString(),
+        MetricLevel.IMPORTANT,
+        this,
+        s -> (long) (RpcStat.getWriteCompressionRatio() * 100),
+        Tag.NAME.toString(),
+        "write_ratio");
+    metricManager.getOrCreateAutoGauge(
+        Metric.RPC_COMPRESSION.toString(),
+        MetricLevel.IMPORTANT,
+        this,
+        s -> RpcStat.getCompressTimeNanos() / 1_000_000,
+        Tag.NAME.toString(),
+        "compress_time");
+    metricManager.getOrCreateAutoGauge(
+        Metric.RPC_COMPRESSION.toString(),
+        MetricLevel.IMPORTANT,
+        this,
+        s -> RpcStat.getUncompressTimeNanos() / 1_000_000,
+        Tag.NAME.toString(),
+        "uncompress_time");
+  }
+
   @Override
   public String getBindIP() {
     return IoTDBDescriptor.getInstance().getConfig().getRpcAddress();
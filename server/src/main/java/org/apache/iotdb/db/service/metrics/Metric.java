@@ -35,7 +35,8 @@ public enum Metric {
   CLUSTER_NODE_STATUS,
   CLUSTER_NODE_LEADER_COUNT,
   CLUSTER_ELECT,
-  CLUSTER_UNCOMMITTED_LOG;
+  CLUSTER_UNCOMMITTED_LOG,
+  RPC_COMPRESSION;
 
   @Override
   public String toString() {
@@ -24,15 +24,15 @@ import org.apache.iotdb.db.exception.metadata.IllegalPathException;
 import org.apache.iotdb.db.exception.metadata.StorageGroupNotSetException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.metadata.path.PartialPath;
-import org.apache.iotdb.db.protocol.influxdb.dto.IoTDBPoint;
 import org.apache.iotdb.db.protocol.influxdb.handler.QueryHandler;
-import org.apache.iotdb.db.protocol.influxdb.input.InfluxLineParser;
+import org.apache.iotdb.db.protocol.influxdb.input.InfluxLineBatchParser;
 import org.apache.iotdb.db.protocol.influxdb.meta.InfluxDBMetaManager;
 import org.apache.iotdb.db.protocol.influxdb.operator.InfluxQueryOperator;
 import org.apache.iotdb.db.protocol.influxdb.sql.InfluxDBLogicalGenerator;
 import org.apache.iotdb.db.qp.logical.Operator;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
-import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertMultiTabletsPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
 import org.apache.iotdb.db.qp.physical.sys.SetStorageGroupPlan;
 import org.apache.iotdb.db.query.control.SessionManager;
 import org.apache.iotdb.db.service.IoTDB;
@@ -48,16 +48,15 @@ import org.apache.iotdb.protocol.influxdb.rpc.thrift.TSQueryReq;
 import org.apache.iotdb.protocol.influxdb.rpc.thrift.TSQueryResultRsp;
 import org.apache.iotdb.protocol.influxdb.rpc.thrift.TSStatus;
 import org.apache.iotdb.protocol.influxdb.rpc.thrift.TSWritePointsReq;
-import org.apache.iotdb.rpc.IoTDBConnectionException;
 import org.apache.iotdb.rpc.RpcUtils;
 import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.service.rpc.thrift.TSProtocolVersion;
 
 import org.apache.thrift.TException;
 import org.influxdb.InfluxDBException;
-import org.influxdb.dto.Point;
 
-import java.util.ArrayList;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 public class InfluxDBServiceImpl implements InfluxDBService.Iface {
@@ -96,28 +95,21 @@ public class InfluxDBServiceImpl implements InfluxDBService.Iface {
       return getNotLoggedInStatus();
     }
 
-    List<TSStatus> tsStatusList = new ArrayList<>();
-    int executeCode = TSStatusCode.SUCCESS_STATUS.getStatusCode();
-    for (Point point :
-        InfluxLineParser.parserRecordsToPointsWithPrecision(req.lineProtocol, req.precision)) {
-      IoTDBPoint iotdbPoint = new IoTDBPoint(req.database, point, metaManager);
-      try {
-        InsertRowPlan plan = iotdbPoint.convertToInsertRowPlan();
-        TSStatus tsStatus = executeNonQueryPlan(plan, req.sessionId);
-        if (executeCode == TSStatusCode.SUCCESS_STATUS.getStatusCode()
-            && tsStatus.getCode() == TSStatusCode.EXECUTE_STATEMENT_ERROR.getStatusCode()) {
-          executeCode = tsStatus.getCode();
-        }
-        tsStatusList.add(tsStatus);
-      } catch (StorageGroupNotSetException
-          | StorageEngineException
-          | IllegalPathException
-          | IoTDBConnectionException
-          | QueryProcessException e) {
-        throw new InfluxDBException(e.getMessage());
+    InfluxLineBatchParser parser =
+        new InfluxLineBatchParser(req.database, req.precision, metaManager);
+    parser.parse(ByteBuffer.wrap(req.lineProtocol.getBytes(StandardCharsets.UTF_8)));
+    try {
+      List<InsertTabletPlan> insertTabletPlans = parser.getInsertTabletPlans();
+      if (insertTabletPlans.isEmpty()) {
+        return RpcUtils.getInfluxDBStatus(TSStatusCode.SUCCESS_STATUS);
       }
+      return executeNonQueryPlan(new InsertMultiTabletsPlan(insertTabletPlans), req.sessionId);
+    } catch (StorageGroupNotSetException
+        | StorageEngineException
+        | IllegalPathException
+        | QueryProcessException e) {
+      throw new InfluxDBException(e.getMessage());
     }
-    return new TSStatus().setCode(executeCode).setSubStatus(tsStatusList);
   }
 
   @Override
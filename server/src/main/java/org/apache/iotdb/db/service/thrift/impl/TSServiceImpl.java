@@ -59,6 +59,7 @@ import org.apache.iotdb.db.qp.physical.sys.SetTemplatePlan;
 import org.apache.iotdb.db.qp.physical.sys.ShowQueryProcesslistPlan;
 import org.apache.iotdb.db.qp.physical.sys.UnsetTemplatePlan;
 import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.PrefetchedQueryBatch;
 import org.apache.iotdb.db.query.control.SessionManager;
 import org.apache.iotdb.db.query.control.tracing.TracingConstant;
 import org.apache.iotdb.db.query.dataset.DirectAlignByTimeDataSet;
@@ -143,6 +144,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
@@ -247,12 +249,24 @@ public class TSServiceImpl implements TSIService.Iface {
     private final long queryId;
     private final int fetchSize;
     private final boolean isAlign;
+    // the aligned batch filled ahead of this fetch, null if it has to be filled now
+    private final TSQueryDataSet prefetchedResult;
 
     public FetchResultsTask(long sessionId, long queryId, int fetchSize, boolean isAlign) {
+      this(sessionId, queryId, fetchSize, isAlign, null);
+    }
+
+    public FetchResultsTask(
+        long sessionId,
+        long queryId,
+        int fetchSize,
+        boolean isAlign,
+        TSQueryDataSet prefetchedResult) {
       this.sessionId = sessionId;
       this.queryId = queryId;
       this.fetchSize = fetchSize;
       this.isAlign = isAlign;
+      this.prefetchedResult = prefetchedResult;
     }
 
     @Override
@@ -262,10 +276,15 @@ public class TSServiceImpl implements TSIService.Iface {
       try {
         if (isAlign) {
           TSQueryDataSet result =
-              fillRpcReturnData(fetchSize, queryDataSet, SESSION_MANAGER.getUsername(sessionId));
+              prefetchedResult != null
+                  ? prefetchedResult
+                  : fillRpcReturnData(
+                      fetchSize, queryDataSet, SESSION_MANAGER.getUsername(sessionId));
           boolean hasResultSet = result.bufferForTime().limit() != 0;
           if (!hasResultSet) {
             SESSION_MANAGER.releaseQueryResourceNoExceptions(queryId);
+          } else if (CONFIG.isEnableQueryResultPrefetch()) {
+            prefetchNextBatch(queryDataSet);
           }
           resp.setHasResultSet(hasResultSet);
           resp.setQueryDataSet(result);
@@ -295,6 +314,20 @@ public class TSServiceImpl implements TSIService.Iface {
         throw e;
       }
     }
+
+    /** Fills the next batch in the query thread pool while this one is sent to the client. */
+    private void prefetchNextBatch(QueryDataSet queryDataSet) {
+      String username = SESSION_MANAGER.getUsername(sessionId);
+      PrefetchedQueryBatch prefetchedBatch =
+          new PrefetchedQueryBatch(() -> fillRpcReturnData(fetchSize, queryDataSet, username));
+      SESSION_MANAGER.setPrefetchedBatch(queryId, prefetchedBatch);
+      if (!SESSION_MANAGER.hasDataset(queryId)) {
+        // released concurrently, e.g. by closing the session
+        SESSION_MANAGER.removePrefetchedBatch(queryId);
+        return;
+      }
+      QueryTaskManager.getInstance().submit(prefetchedBatch.getTask());
+    }
   }
 
   // main logger
@@ -860,6 +893,8 @@ public class TSServiceImpl implements TSIService.Iface {
     if (plan.isEnableTracing()) {
       TRACING_MANAGER.registerActivity(
           queryId, TracingConstant.ACTIVITY_REQUEST_COMPLETE, System.currentTimeMillis());
+      TRACING_MANAGER.setChunkCacheAccessNum(
+          queryId, context.getChunkCacheHitNum(), context.getChunkCacheMissNum());
       TSTracingInfo tsTracingInfo = fillRpcReturnTracingInfo(queryId);
       resp.setTracingInfo(tsTracingInfo);
     }
@@ -1002,6 +1037,23 @@ public class TSServiceImpl implements TSIService.Iface {
             RpcUtils.getStatus(TSStatusCode.EXECUTE_STATEMENT_ERROR, "Has not executed query"));
       }
 
+      PrefetchedQueryBatch prefetchedBatch = SESSION_MANAGER.removePrefetchedBatch(req.queryId);
+      if (prefetchedBatch != null) {
+        TSQueryDataSet prefetchedResult;
+        try {
+          prefetchedResult = prefetchedBatch.get();
+        } catch (ExecutionException e) {
+          SESSION_MANAGER.releaseQueryResourceNoExceptions(req.queryId);
+          throw e;
+        }
+        if (prefetchedResult != null) {
+          // the batch is ready, only the bookkeeping is left, which needs no pool thread
+          return new FetchResultsTask(
+                  req.sessionId, req.queryId, req.fetchSize, true, prefetchedResult)
+              .call();
+        }
+      }
+
       Future<TSFetchResultsResp> resp =
           QueryTaskManager.getInstance()
               .submit(new FetchResultsTask(req.sessionId, req.queryId, req.fetchSize, req.isAlign));
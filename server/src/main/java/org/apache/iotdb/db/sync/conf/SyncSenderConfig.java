@@ -39,6 +39,12 @@ public class SyncSenderConfig {
   /** The maximum number of retry when syncing a file to receiver fails. */
   private int maxNumOfSyncFileRetry = 5;
 
+  /**
+   * The number of tsfiles transferred concurrently, each over its own connection. If it is 1, the
+   * tsfiles are transferred one by one over the main connection.
+   */
+  private int parallelTransferNum = 1;
+
   /** Storage groups which participate in sync process */
   private List<String> storageGroupList = new ArrayList<>();
 
@@ -124,4 +130,12 @@ public class SyncSenderConfig {
   public void setMaxNumOfSyncFileRetry(int maxNumOfSyncFileRetry) {
     this.maxNumOfSyncFileRetry = maxNumOfSyncFileRetry;
   }
+
+  public int getParallelTransferNum() {
+    return parallelTransferNum;
+  }
+
+  public void setParallelTransferNum(int parallelTransferNum) {
+    this.parallelTransferNum = parallelTransferNum;
+  }
 }
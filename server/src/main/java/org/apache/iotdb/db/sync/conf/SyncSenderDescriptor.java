@@ -104,6 +104,10 @@ public class SyncSenderDescriptor {
               properties.getProperty(
                   "max_number_of_sync_file_retry",
                   Integer.toString(conf.getMaxNumOfSyncFileRetry()))));
+      conf.setParallelTransferNum(
+          Integer.parseInt(
+              properties.getProperty(
+                  "parallel_transfer_num", Integer.toString(conf.getParallelTransferNum()))));
     } catch (IOException e) {
       logger.warn("Cannot load sync config file, use default sync configuration.", e);
     } catch (Exception e) {
@@ -33,7 +33,12 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
@@ -51,7 +56,7 @@ public class FileLoader implements IFileLoader {
 
   private ILoadLogger loadLog;
 
-  private LoadType curType = LoadType.NONE;
+  private volatile LoadType curType = LoadType.NONE;
 
   private volatile boolean endSync = false;
 
@@ -83,10 +88,14 @@ public class FileLoader implements IFileLoader {
             }
             LoadTask loadTask = queue.poll(WAIT_TIME, TimeUnit.MILLISECONDS);
             if (loadTask != null) {
-              try {
-                handleLoadTask(loadTask);
-              } catch (Exception e) {
-                LOGGER.error("Can not load task {}", loadTask, e);
+              if (loadTask.type == LoadType.ADD) {
+                handleAddTasks(loadTask);
+              } else {
+                try {
+                  handleLoadTask(loadTask);
+                } catch (Exception e) {
+                  LOGGER.error("Can not load task {}", loadTask, e);
+                }
               }
             }
           }
@@ -96,6 +105,48 @@ public class FileLoader implements IFileLoader {
         }
       };
 
+  /**
+   * Load the new tsfiles queued consecutively with the given one concurrently. A deletion task
+   * stops the batch, so that the deletions and additions are still applied in order.
+   */
+  private void handleAddTasks(LoadTask firstTask) throws InterruptedException {
+    List<LoadTask> tasks = new ArrayList<>();
+    tasks.add(firstTask);
+    LoadTask next;
+    while ((next = queue.peek()) != null && next.type == LoadType.ADD) {
+      tasks.add(queue.poll());
+    }
+
+    ExecutorService loadFilePool = FileLoaderManager.getInstance().getLoadFilePool();
+    if (loadFilePool == null || tasks.size() == 1) {
+      for (LoadTask task : tasks) {
+        try {
+          handleLoadTask(task);
+        } catch (Exception e) {
+          LOGGER.error("Can not load task {}", task, e);
+        }
+      }
+      return;
+    }
+
+    List<Future<?>> futures = new ArrayList<>(tasks.size());
+    for (LoadTask task : tasks) {
+      futures.add(
+          loadFilePool.submit(
+              () -> {
+                handleLoadTask(task);
+                return null;
+              }));
+    }
+    for (int i = 0; i < futures.size(); i++) {
+      try {
+        futures.get(i).get();
+      } catch (ExecutionException e) {
+        LOGGER.error("Can not load task {}", tasks.get(i), e.getCause());
+      }
+    }
+  }
+
   @Override
   public void addDeletedFileName(File deletedFile) {
     queue.add(new LoadTask(deletedFile, LoadType.DELETE));
@@ -128,10 +179,7 @@ public class FileLoader implements IFileLoader {
   }
 
   private void loadNewTsfile(File newTsFile) throws IOException {
-    if (curType != LoadType.ADD) {
-      loadLog.startLoadTsFiles();
-      curType = LoadType.ADD;
-    }
+    switchLoadType(LoadType.ADD);
     if (!newTsFile.exists()) {
       LOGGER.info("Tsfile {} doesn't exist.", newTsFile.getAbsolutePath());
       return;
@@ -147,14 +195,13 @@ public class FileLoader implements IFileLoader {
       throw new IOException(
           String.format("Can not load new tsfile %s", newTsFile.getAbsolutePath()), e);
     }
-    loadLog.finishLoadTsfile(newTsFile);
+    synchronized (loadLog) {
+      loadLog.finishLoadTsfile(newTsFile);
+    }
   }
 
   private void loadDeletedFile(File deletedTsFile) throws IOException {
-    if (curType != LoadType.DELETE) {
-      loadLog.startLoadDeletedFiles();
-      curType = LoadType.DELETE;
-    }
+    switchLoadType(LoadType.DELETE);
     try {
       if (!StorageEngine.getInstance().deleteTsfileForSync(deletedTsFile)) {
         LOGGER.info("The file {} to be deleted doesn't exist.", deletedTsFile.getAbsolutePath());
@@ -163,7 +210,23 @@ public class FileLoader implements IFileLoader {
       throw new IOException(
           String.format("Can not load deleted tsfile %s", deletedTsFile.getAbsolutePath()), e);
     }
-    loadLog.finishLoadDeletedFile(deletedTsFile);
+    synchronized (loadLog) {
+      loadLog.finishLoadDeletedFile(deletedTsFile);
+    }
+  }
+
+  /** The new tsfiles may be loaded concurrently, so the load log is switched exclusively. */
+  private void switchLoadType(LoadType type) throws IOException {
+    synchronized (loadLog) {
+      if (curType != type) {
+        if (type == LoadType.ADD) {
+          loadLog.startLoadTsFiles();
+        } else {
+          loadLog.startLoadDeletedFiles();
+        }
+        curType = type;
+      }
+    }
   }
 
   @Override
@@ -182,7 +245,9 @@ public class FileLoader implements IFileLoader {
 
   @Override
   public void setCurType(LoadType curType) {
-    this.curType = curType;
+    synchronized (loadLog) {
+      this.curType = curType;
+    }
   }
 
   class LoadTask {
@@ -53,6 +53,9 @@ public class FileLoaderManager {
 
   private ExecutorService loadTaskRunnerPool;
 
+  /** the pool loading the received tsfiles of all senders concurrently */
+  private ExecutorService loadFilePool;
+
   private Map<String, String> deviceOwnerMap = new HashMap<>();
 
   private File deviceOwnerFile;
@@ -178,6 +181,10 @@ public class FileLoaderManager {
     loadTaskRunnerPool.submit(taskRunner);
   }
 
+  public ExecutorService getLoadFilePool() {
+    return loadFilePool;
+  }
+
   public void start() {
     if (fileLoaderMap == null) {
       fileLoaderMap = new ConcurrentHashMap<>();
@@ -186,6 +193,12 @@ public class FileLoaderManager {
       loadTaskRunnerPool =
           IoTDBThreadPoolFactory.newCachedThreadPool(ThreadName.LOAD_TSFILE.getName());
     }
+    if (loadFilePool == null) {
+      loadFilePool =
+          IoTDBThreadPoolFactory.newFixedThreadPool(
+              IoTDBDescriptor.getInstance().getConfig().getSyncLoadThreadNum(),
+              ThreadName.SYNC_LOAD.getName());
+    }
   }
 
   public void stop() {
@@ -204,6 +217,8 @@ public class FileLoaderManager {
       }
     }
     loadTaskRunnerPool = null;
+    loadFilePool.shutdownNow();
+    loadFilePool = null;
   }
 
   private static class FileLoaderManagerHolder {
@@ -50,8 +50,12 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SyncServiceImpl implements SyncService.Iface {
 
@@ -73,11 +77,33 @@ public class SyncServiceImpl implements SyncService.Iface {
 
   private ThreadLocal<MessageDigest> messageDigest = new ThreadLocal<>();
 
+  /** sender name -> the sync task started by the main connection of the sender */
+  private final Map<String, SyncTask> syncTasks = new ConcurrentHashMap<>();
+
+  /** the sync task started by the connection, which is discarded when the connection breaks */
+  private ThreadLocal<SyncTask> startedSyncTask = new ThreadLocal<>();
+
+  /** the files being received by the parallel transfer, they are kept until the digest matches */
+  private final Map<File, ReceivingFile> receivingFiles = new ConcurrentHashMap<>();
+
   /** Verify IP address of sender */
   @Override
   public SyncStatus check(ConfirmInfo info) {
-    String ipAddress = info.address, uuid = info.uuid;
     Thread.currentThread().setName(ThreadName.SYNC_SERVER.getName());
+    SyncStatus status = verifyIdentity(info);
+    if (status.code != SyncConstant.SUCCESS_CODE) {
+      return status;
+    }
+    if (checkRecovery()) {
+      logger.info("Start to sync with sender {}", senderName.get());
+      return getSuccessResult();
+    } else {
+      return getErrorResult("Receiver is processing data from previous sync tasks");
+    }
+  }
+
+  private SyncStatus verifyIdentity(ConfirmInfo info) {
+    String ipAddress = info.address, uuid = info.uuid;
     if (!config.getIoTDBMajorVersion(info.version).equals(config.getIoTDBMajorVersion())) {
       return getErrorResult(
           String.format(
@@ -94,12 +120,7 @@ public class SyncServiceImpl implements SyncService.Iface {
     }
     if (SyncUtils.verifyIPSegment(config.getIpWhiteList(), ipAddress)) {
       senderName.set(ipAddress + SyncConstant.SYNC_DIR_NAME_SEPARATOR + uuid);
-      if (checkRecovery()) {
-        logger.info("Start to sync with sender {}", senderName.get());
-        return getSuccessResult();
-      } else {
-        return getErrorResult("Receiver is processing data from previous sync tasks");
-      }
+      return getSuccessResult();
     } else {
       return getErrorResult(
           "Sender IP is not in the white list of receiver IP and synchronization tasks are not allowed.");
@@ -129,6 +150,9 @@ public class SyncServiceImpl implements SyncService.Iface {
       FileLoader.createFileLoader(senderName.get(), syncFolderPath.get());
       syncLog.set(
           new SyncReceiverLogger(new File(syncFolderPath.get(), SyncConstant.SYNC_LOG_NAME)));
+      SyncTask task = new SyncTask(syncFolderPath.get(), syncLog.get());
+      startedSyncTask.set(task);
+      syncTasks.put(senderName.get(), task);
       return getSuccessResult();
     } catch (DiskSpaceInsufficientException | IOException e) {
       logger.error("Can not receiver data from sender", e);
@@ -317,9 +341,178 @@ public class SyncServiceImpl implements SyncService.Iface {
     }
   }
 
+  /**
+   * Attach the connection to the sync task started by the main connection of the sender, which is
+   * used by the parallel transfer. The sync log is shared with the main connection.
+   */
+  @Override
+  public SyncStatus joinSync(ConfirmInfo info) {
+    Thread.currentThread().setName(ThreadName.SYNC_SERVER.getName());
+    SyncStatus status = verifyIdentity(info);
+    if (status.code != SyncConstant.SUCCESS_CODE) {
+      return status;
+    }
+    SyncTask task = syncTasks.get(senderName.get());
+    if (task == null) {
+      return getErrorResult(
+          String.format("The sync task of sender %s has not started", senderName.get()));
+    }
+    syncFolderPath.set(task.syncFolderPath);
+    syncLog.set(task.syncLog);
+    logger.info("A new connection joins the sync task of sender {}", senderName.get());
+    return getSuccessResult();
+  }
+
+  /**
+   * Init the transfer of a file. If the file has been partly received by the former attempts, the
+   * received bytes are kept and their length is returned, so the sender resumes from there.
+   */
+  @Override
+  public SyncStatus initSyncFile(String storageGroup, String fileInfo) {
+    if (!isInSyncTask()) {
+      return getErrorResult("The connection has not started or joined a sync task");
+    }
+    File file =
+        new File(
+            getSyncDataPath(), storageGroup + File.separator + getFilePathByFileInfo(fileInfo));
+    ReceivingFile receivingFile = receivingFiles.get(file);
+    if (receivingFile != null) {
+      synchronized (receivingFile) {
+        logger.info("Resume receiving file {} from offset {}", file, receivingFile.receivedLength);
+        return new SyncStatus(
+            SyncConstant.SUCCESS_CODE, Long.toString(receivingFile.receivedLength));
+      }
+    }
+
+    try {
+      file.delete();
+      if (!file.getParentFile().exists()) {
+        file.getParentFile().mkdirs();
+      }
+      receivingFiles.put(file, new ReceivingFile(file));
+      synchronized (syncLog.get()) {
+        syncLog.get().startSyncTsFiles();
+      }
+    } catch (IOException | NoSuchAlgorithmException e) {
+      logger.error("Can not init sync resource for file {}", file, e);
+      return getErrorResult(
+          String.format("Can not init sync resource for file %s because %s", file, e.getMessage()));
+    }
+    return new SyncStatus(SyncConstant.SUCCESS_CODE, "0");
+  }
+
+  /** Write a piece of the file at the given offset, which must follow the received bytes. */
+  @Override
+  public SyncStatus syncFileData(
+      String storageGroup, String fileInfo, long offset, ByteBuffer buff) {
+    if (!isInSyncTask()) {
+      return getErrorResult("The connection has not started or joined a sync task");
+    }
+    File file =
+        new File(
+            getSyncDataPath(), storageGroup + File.separator + getFilePathByFileInfo(fileInfo));
+    ReceivingFile receivingFile = receivingFiles.get(file);
+    if (receivingFile == null) {
+      return getErrorResult(String.format("The file %s has not been initialized", file));
+    }
+    synchronized (receivingFile) {
+      if (offset != receivingFile.receivedLength) {
+        return getErrorResult(
+            String.format(
+                "The offset %d of file %s is not equal to the received length %d",
+                offset, file, receivingFile.receivedLength));
+      }
+      try {
+        int pos = buff.position();
+        long writePos = offset;
+        while (buff.hasRemaining()) {
+          writePos += receivingFile.channel.write(buff, writePos);
+        }
+        buff.position(pos);
+        receivingFile.digest.update(buff);
+        receivingFile.receivedLength = writePos;
+      } catch (IOException e) {
+        logger.error("Can not sync data for file {}", file, e);
+        return getErrorResult(
+            String.format("Can not sync data for file %s because %s", file, e.getMessage()));
+      }
+    }
+    return getSuccessResult();
+  }
+
+  /**
+   * Check the digest of the received file. If they are equal, the tsfile is handed over to the file
+   * loader, otherwise the received bytes are discarded and the sender has to start over.
+   */
+  @Override
+  public SyncStatus checkFileDigest(String storageGroup, String fileInfo, String digestOfSender) {
+    if (!isInSyncTask()) {
+      return getErrorResult("The connection has not started or joined a sync task");
+    }
+    File file =
+        new File(
+            getSyncDataPath(), storageGroup + File.separator + getFilePathByFileInfo(fileInfo));
+    ReceivingFile receivingFile = receivingFiles.remove(file);
+    if (receivingFile == null) {
+      return getErrorResult(String.format("The file %s has not been initialized", file));
+    }
+    String digestOfReceiver;
+    synchronized (receivingFile) {
+      digestOfReceiver = new BigInteger(1, receivingFile.digest.digest()).toString(16);
+      try {
+        receivingFile.channel.force(false);
+        receivingFile.channel.close();
+      } catch (IOException e) {
+        logger.error("Can not close file {}", file, e);
+        file.delete();
+        return getErrorResult(
+            String.format("Can not close file %s because %s", file, e.getMessage()));
+      }
+    }
+
+    if (!digestOfSender.equals(digestOfReceiver)) {
+      file.delete();
+      return getErrorResult(
+          String.format(
+              "Digest of the sender is differ from digest of the receiver of the file %s.",
+              file.getAbsolutePath()));
+    }
+    if (file.getName().endsWith(TsFileResource.RESOURCE_SUFFIX)) {
+      return new SyncStatus(SyncConstant.SUCCESS_CODE, digestOfReceiver);
+    }
+
+    try {
+      logger.info("Receiver has received {} successfully.", file);
+      FileLoaderManager.getInstance()
+          .checkAndUpdateDeviceOwner(
+              new TsFileResource(new File(file + TsFileResource.RESOURCE_SUFFIX)));
+      synchronized (syncLog.get()) {
+        syncLog.get().finishSyncTsfile(file);
+      }
+      FileLoaderManager.getInstance().getFileLoader(senderName.get()).addTsfile(file);
+    } catch (IOException e) {
+      logger.error("Can not check data digest for file {}", file, e);
+      return getErrorResult(
+          String.format("Can not check data digest for file %s because %s", file, e.getMessage()));
+    } catch (SyncDeviceOwnerConflictException e) {
+      logger.error(
+          "Device owner has conflicts, skip all other tsfiles in the sg {}.", storageGroup);
+      return new SyncStatus(
+          SyncConstant.CONFLICT_CODE,
+          String.format(
+              "Device owner has conflicts, skip all other tsfiles in the same sg %s because %s",
+              storageGroup, e.getMessage()));
+    }
+    return new SyncStatus(SyncConstant.SUCCESS_CODE, digestOfReceiver);
+  }
+
   @Override
   public SyncStatus endSync() {
     try {
+      if (senderName.get() != null) {
+        syncTasks.remove(senderName.get());
+      }
+      closeReceivingFiles();
       if (syncLog.get() != null) {
         syncLog.get().close();
       }
@@ -338,17 +531,50 @@ public class SyncServiceImpl implements SyncService.Iface {
       logger.error("Can not end sync", e);
       return getErrorResult(String.format("Can not end sync because %s", e.getMessage()));
     } finally {
-      syncFolderPath.remove();
-      currentSG.remove();
-      syncLog.remove();
-      senderName.remove();
-      currentFile.remove();
-      currentFileWriter.remove();
-      messageDigest.remove();
+      removeThreadLocals();
     }
     return getSuccessResult();
   }
 
+  private void removeThreadLocals() {
+    syncFolderPath.remove();
+    currentSG.remove();
+    syncLog.remove();
+    senderName.remove();
+    currentFile.remove();
+    currentFileWriter.remove();
+    messageDigest.remove();
+    startedSyncTask.remove();
+  }
+
+  /** The files which are not completely received are discarded when the sync task ends. */
+  private void closeReceivingFiles() {
+    String dataPath = getSyncDataPath();
+    receivingFiles
+        .entrySet()
+        .removeIf(
+            entry -> {
+              if (!entry.getKey().getAbsolutePath().startsWith(dataPath)) {
+                return false;
+              }
+              try {
+                entry.getValue().channel.close();
+              } catch (IOException e) {
+                logger.warn("Can not close file {}", entry.getKey(), e);
+              }
+              return true;
+            });
+  }
+
+  /** Whether the connection belongs to a sync task which has neither ended nor been discarded. */
+  private boolean isInSyncTask() {
+    if (senderName.get() == null || syncLog.get() == null) {
+      return false;
+    }
+    SyncTask task = syncTasks.get(senderName.get());
+    return task != null && task.syncLog == syncLog.get();
+  }
+
   private String getSyncDataPath() {
     return syncFolderPath.get() + File.separatorChar + SyncConstant.RECEIVER_DATA_FOLDER_NAME;
   }
@@ -361,10 +587,54 @@ public class SyncServiceImpl implements SyncService.Iface {
     return new SyncStatus(SyncConstant.ERROR_CODE, errorMsg);
   }
 
+  /** The sync folder and sync log of a sender, shared by all the connections of the sender. */
+  private static class SyncTask {
+
+    private final String syncFolderPath;
+    private final SyncReceiverLogger syncLog;
+
+    private SyncTask(String syncFolderPath, SyncReceiverLogger syncLog) {
+      this.syncFolderPath = syncFolderPath;
+      this.syncLog = syncLog;
+    }
+  }
+
+  /** A file being received by positional writes. */
+  private static class ReceivingFile {
+
+    private final FileChannel channel;
+    private final MessageDigest digest;
+    private long receivedLength = 0;
+
+    private ReceivingFile(File file) throws IOException, NoSuchAlgorithmException {
+      this.digest = MessageDigest.getInstance(SyncConstant.MESSAGE_DIGIT_NAME);
+      this.channel =
+          FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+  }
+
   /**
    * release resources or cleanup when a client (a sender) is disconnected (normally or abnormally).
    */
   public void handleClientExit() {
-    // do nothing now
+    try {
+      SyncTask task = startedSyncTask.get();
+      if (task != null && syncTasks.remove(senderName.get(), task)) {
+        // the main connection broke before endSync, so the sender will start over with a new task
+        logger.info("The sync task of sender {} is discarded as it disconnects", senderName.get());
+        closeReceivingFiles();
+        synchronized (task.syncLog) {
+          task.syncLog.close();
+        }
+      }
+      if (currentFileWriter.get() != null) {
+        currentFileWriter.get().close();
+      }
+    } catch (IOException e) {
+      logger.warn("Can not release the resources of sender {}", senderName.get(), e);
+    } finally {
+      // the thread serves other connections afterwards
+      removeThreadLocals();
+    }
   }
 }
@@ -0,0 +1,314 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.sync.sender.transfer;
+
+import org.apache.iotdb.commons.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.commons.concurrent.ThreadName;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.SyncConnectionException;
+import org.apache.iotdb.db.exception.SyncDeviceOwnerConflictException;
+import org.apache.iotdb.db.sync.conf.SyncConstant;
+import org.apache.iotdb.db.sync.conf.SyncSenderConfig;
+import org.apache.iotdb.rpc.RpcTransportFactory;
+import org.apache.iotdb.service.sync.thrift.ConfirmInfo;
+import org.apache.iotdb.service.sync.thrift.SyncService;
+import org.apache.iotdb.service.sync.thrift.SyncStatus;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TTransport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static org.apache.iotdb.db.sync.conf.SyncConstant.CONFLICT_CODE;
+import static org.apache.iotdb.db.sync.conf.SyncConstant.SUCCESS_CODE;
+
+/**
+ * Transfer tsfiles to the receiver concurrently, each over one of a pool of connections which join
+ * the sync task started by the main connection of {@link SyncClient}.
+ *
+ * <p>A file is read once through its {@link FileChannel}, and each piece is digested as it is sent.
+ * The receiver writes the pieces at their offsets and keeps the received bytes when a connection
+ * breaks, so a retry resumes from the received length instead of the beginning of the file, and
+ * only the already received part is read again locally to restore the digest.
+ */
+public class ParallelFileTransfer {
+
+  private static final Logger logger = LoggerFactory.getLogger(ParallelFileTransfer.class);
+
+  private static final IoTDBConfig ioTDBConfig = IoTDBDescriptor.getInstance().getConfig();
+
+  private static final int TIMEOUT_MS = 2000;
+
+  private final SyncSenderConfig config;
+
+  private final ConfirmInfo confirmInfo;
+
+  private final BlockingQueue<Connection> idleConnections;
+
+  private final ExecutorService transferPool;
+
+  private volatile boolean closed = false;
+
+  /** Open the connections and join the sync task started by the main connection. */
+  public ParallelFileTransfer(SyncSenderConfig config, ConfirmInfo confirmInfo)
+      throws SyncConnectionException {
+    this.config = config;
+    this.confirmInfo = confirmInfo;
+    int parallelNum = config.getParallelTransferNum();
+    this.idleConnections = new ArrayBlockingQueue<>(parallelNum);
+    for (int i = 0; i < parallelNum; i++) {
+      Connection connection = new Connection();
+      try {
+        connection.open();
+      } catch (SyncConnectionException e) {
+        closeIdleConnections();
+        throw e;
+      }
+      idleConnections.add(connection);
+    }
+    this.transferPool =
+        IoTDBThreadPoolFactory.newFixedThreadPool(parallelNum, ThreadName.SYNC_TRANSFER.getName());
+  }
+
+  /**
+   * Transfer the .resource file and then the snapshot of a tsfile with an idle connection.
+   *
+   * @return the future completed when the receiver has checked the digest of the tsfile
+   */
+  public Future<Void> submit(String storageGroup, File snapshotFile) {
+    return transferPool.submit(
+        () -> {
+          Connection connection = idleConnections.take();
+          try {
+            transferFile(
+                connection,
+                storageGroup,
+                new File(snapshotFile.getAbsolutePath() + TsFileResource.RESOURCE_SUFFIX));
+            transferFile(connection, storageGroup, snapshotFile);
+          } finally {
+            // the connection may have been reopened, it is returned so that close() releases it
+            idleConnections.add(connection);
+            if (closed) {
+              closeIdleConnections();
+            }
+          }
+          return null;
+        });
+  }
+
+  /** The connection is reopened in place if it breaks. */
+  @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
+  private void transferFile(Connection connection, String storageGroup, File file)
+      throws SyncConnectionException, SyncDeviceOwnerConflictException, IOException,
+          NoSuchAlgorithmException {
+    String fileInfo = SyncClient.getFileInfoWithVgAndTimePartition(file);
+    MessageDigest md = MessageDigest.getInstance(SyncConstant.MESSAGE_DIGIT_NAME);
+    int retryCount = 0;
+    while (true) {
+      retryCount++;
+      if (retryCount > config.getMaxNumOfSyncFileRetry()) {
+        throw new SyncConnectionException(
+            String.format(
+                "Can not sync file %s after %s tries.",
+                file.getAbsoluteFile(), config.getMaxNumOfSyncFileRetry()));
+      }
+      if (connection.isBroken()) {
+        connection.close();
+        try {
+          connection.open();
+        } catch (SyncConnectionException e) {
+          logger.warn("Can not reconnect to receiver {}.", config.getSyncReceiverName(), e);
+          continue;
+        }
+      }
+
+      try {
+        SyncStatus status = connection.client.initSyncFile(storageGroup, fileInfo);
+        if (status.code != SUCCESS_CODE) {
+          logger.info(
+              "Receiver failed to init file {} because {}, retry.",
+              file.getAbsoluteFile(),
+              status.msg);
+          continue;
+        }
+        long offset = Long.parseLong(status.msg);
+
+        md.reset();
+        if (!sendFile(connection, storageGroup, fileInfo, file, offset, md)) {
+          continue;
+        }
+
+        String digestOfSender = new BigInteger(1, md.digest()).toString(16);
+        status = connection.client.checkFileDigest(storageGroup, fileInfo, digestOfSender);
+        if (status.code == CONFLICT_CODE) {
+          throw new SyncDeviceOwnerConflictException(status.msg);
+        }
+        if (status.code == SUCCESS_CODE && digestOfSender.equals(status.msg)) {
+          logger.info("Receiver has received {} successfully.", file.getAbsoluteFile());
+          return;
+        }
+        logger.error("Digest check of tsfile {} failed, retry", file.getAbsoluteFile());
+      } catch (TException e) {
+        logger.warn(
+            "Can not transfer file {} to receiver, thrift error happens, try to reconnect",
+            file.getAbsoluteFile(),
+            e);
+        connection.broken = true;
+      }
+    }
+  }
+
+  /**
+   * Send the file from the offset in pieces. The bytes before the offset have been received, so
+   * they are only digested.
+   *
+   * @return false if the receiver failed to receive a piece
+   */
+  private boolean sendFile(
+      Connection connection,
+      String storageGroup,
+      String fileInfo,
+      File file,
+      long offset,
+      MessageDigest md)
+      throws IOException, TException, SyncDeviceOwnerConflictException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (offset > size) {
+        throw new IOException(
+            String.format(
+                "The receiver has received %d bytes of file %s, more than its size %d",
+                offset, file.getAbsoluteFile(), size));
+      }
+      ByteBuffer buffer =
+          ByteBuffer.allocate((int) Math.max(1, Math.min(SyncConstant.DATA_CHUNK_SIZE, size)));
+      long position = 0;
+      while (position < size) {
+        buffer.clear();
+        if (position < offset) {
+          buffer.limit((int) Math.min(buffer.capacity(), offset - position));
+        }
+        while (buffer.hasRemaining() && position + buffer.position() < size) {
+          if (channel.read(buffer, position + buffer.position()) < 0) {
+            break;
+          }
+        }
+        buffer.flip();
+        int length = buffer.remaining();
+        md.update(buffer);
+        buffer.rewind();
+        if (position >= offset) {
+          SyncStatus status =
+              connection.client.syncFileData(storageGroup, fileInfo, position, buffer);
+          if (status.code == CONFLICT_CODE) {
+            throw new SyncDeviceOwnerConflictException(status.msg);
+          }
+          if (status.code != SUCCESS_CODE) {
+            logger.info(
+                "Receiver failed to receive data from {} because {}, retry.",
+                file.getAbsoluteFile(),
+                status.msg);
+            return false;
+          }
+        }
+        position += length;
+      }
+    }
+    return true;
+  }
+
+  public void close() {
+    closed = true;
+    if (transferPool != null) {
+      transferPool.shutdownNow();
+    }
+    closeIdleConnections();
+  }
+
+  private void closeIdleConnections() {
+    Connection connection;
+    while ((connection = idleConnections.poll()) != null) {
+      connection.close();
+    }
+  }
+
+  private class Connection {
+
+    private TTransport transport;
+    private SyncService.Client client;
+    private boolean broken = false;
+
+    /** Open the transport and join the sync task started by the main connection. */
+    private void open() throws SyncConnectionException {
+      broken = false;
+      try {
+        transport =
+            RpcTransportFactory.INSTANCE.getTransport(
+                config.getServerIp(), config.getServerPort(), TIMEOUT_MS);
+        TProtocol protocol;
+        if (ioTDBConfig.isRpcThriftCompressionEnable()) {
+          protocol = new TCompactProtocol(transport);
+        } else {
+          protocol = new TBinaryProtocol(transport);
+        }
+        client = new SyncService.Client(protocol);
+        if (!transport.isOpen()) {
+          transport.open();
+        }
+        SyncStatus status = client.joinSync(confirmInfo);
+        if (status.code != SUCCESS_CODE) {
+          close();
+          throw new SyncConnectionException(
+              "The receiver rejected the connection to join the sync task because " + status.msg);
+        }
+      } catch (TException e) {
+        close();
+        throw new SyncConnectionException("Cannot connect to the receiver.", e);
+      }
+    }
+
+    private boolean isBroken() {
+      return broken || transport == null || !transport.isOpen();
+    }
+
+    private void close() {
+      if (transport != null && transport.isOpen()) {
+        transport.close();
+      }
+    }
+  }
+}
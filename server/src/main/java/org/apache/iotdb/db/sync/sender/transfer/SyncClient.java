@@ -70,6 +70,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -78,6 +79,9 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -130,6 +134,9 @@ public class SyncClient implements ISyncClient {
 
   private ScheduledExecutorService executorService;
 
+  /** Created when the first group of tsfiles is transferred in parallel in a sync task. */
+  private ParallelFileTransfer parallelFileTransfer;
+
   private SyncClient() {
     init();
   }
@@ -232,6 +239,7 @@ public class SyncClient implements ISyncClient {
           } catch (Exception e) {
             logger.error("Sync failed", e);
           } finally {
+            closeParallelFileTransfer();
             if (transport != null && transport.isOpen()) {
               transport.close();
             }
@@ -293,6 +301,7 @@ public class SyncClient implements ISyncClient {
 
     // 4. notify receiver that synchronization finish
     // At this point the synchronization has finished even if connection fails
+    closeParallelFileTransfer();
     try {
       serviceClient.endSync();
       transport.close();
@@ -349,14 +358,8 @@ public class SyncClient implements ISyncClient {
 
   @Override
   public void confirmIdentity() throws SyncConnectionException {
-    try (Socket socket = new Socket(config.getServerIp(), config.getServerPort())) {
-      ConfirmInfo info =
-          new ConfirmInfo(
-              socket.getLocalAddress().getHostAddress(),
-              getOrCreateUUID(getUuidFile()),
-              ioTDBConfig.getPartitionInterval(),
-              ioTDBConfig.getIoTDBMajorVersion());
-      SyncStatus status = serviceClient.check(info);
+    try {
+      SyncStatus status = serviceClient.check(createConfirmInfo());
       if (status.code != SUCCESS_CODE) {
         throw new SyncConnectionException(
             "The receiver rejected the synchronization task because " + status.msg);
@@ -367,6 +370,16 @@ public class SyncClient implements ISyncClient {
     }
   }
 
+  private ConfirmInfo createConfirmInfo() throws IOException {
+    try (Socket socket = new Socket(config.getServerIp(), config.getServerPort())) {
+      return new ConfirmInfo(
+          socket.getLocalAddress().getHostAddress(),
+          getOrCreateUUID(getUuidFile()),
+          ioTDBConfig.getPartitionInterval(),
+          ioTDBConfig.getIoTDBMajorVersion());
+    }
+  }
+
   /** UUID marks the identity of sender for receiver. */
   private String getOrCreateUUID(File uuidFile) throws IOException {
     if (!uuidFile.getParentFile().exists()) {
@@ -628,6 +641,10 @@ public class SyncClient implements ISyncClient {
     }
     syncLog.startSyncTsFiles();
     logger.info("Sync process starts to transfer data of storage group {}", sgName);
+    if (config.getParallelTransferNum() > 1) {
+      syncDataFilesInParallel(sgName, vgId, timeRangeId, toBeSyncFiles);
+      return;
+    }
     int cnt = 0;
     for (File tsfile : toBeSyncFiles) {
       cnt++;
@@ -649,6 +666,82 @@ public class SyncClient implements ISyncClient {
     logger.info("Sync process has finished storage group {}.", sgName);
   }
 
+  /**
+   * Transfer the tsfiles concurrently by {@link ParallelFileTransfer}. The progress is recorded
+   * only by the current thread after the transfers complete, in the order the files are submitted.
+   */
+  private void syncDataFilesInParallel(
+      String sgName, Long vgId, Long timeRangeId, Set<File> toBeSyncFiles)
+      throws SyncConnectionException, IOException, SyncDeviceOwnerConflictException {
+    if (parallelFileTransfer == null) {
+      parallelFileTransfer = new ParallelFileTransfer(config, createConfirmInfo());
+    }
+
+    List<File> submittedFiles = new ArrayList<>(toBeSyncFiles.size());
+    List<Future<Void>> futures = new ArrayList<>(toBeSyncFiles.size());
+    for (File tsfile : toBeSyncFiles) {
+      try {
+        File snapshotFile = makeFileSnapshot(tsfile);
+        futures.add(parallelFileTransfer.submit(sgName, snapshotFile));
+        submittedFiles.add(tsfile);
+      } catch (IOException e) {
+        logger.info(
+            "Tsfile {} can not make snapshot, so skip the tsfile and continue to sync other tsfiles",
+            tsfile,
+            e);
+      }
+    }
+
+    SyncDeviceOwnerConflictException conflictException = null;
+    SyncConnectionException connectionException = null;
+    for (int i = 0; i < futures.size(); i++) {
+      File tsfile = submittedFiles.get(i);
+      try {
+        futures.get(i).get();
+        lastLocalFilesMap.get(sgName).get(vgId).get(timeRangeId).add(tsfile);
+        syncLog.finishSyncTsfile(tsfile);
+        logger.info("Task of synchronization has completed {}/{}.", i + 1, toBeSyncFiles.size());
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof SyncDeviceOwnerConflictException) {
+          conflictException = (SyncDeviceOwnerConflictException) e.getCause();
+          cancelAll(futures);
+        } else {
+          logger.error("Can not sync tsfile {}", tsfile, e.getCause());
+          if (connectionException == null) {
+            connectionException =
+                new SyncConnectionException("Cannot sync data with receiver.", e.getCause());
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        cancelAll(futures);
+        throw new SyncConnectionException("Interrupted while syncing data with receiver.", e);
+      } catch (CancellationException e) {
+        // cancelled because of the device owner conflict
+      }
+    }
+    if (conflictException != null) {
+      throw conflictException;
+    }
+    if (connectionException != null) {
+      throw connectionException;
+    }
+    logger.info("Sync process has finished storage group {}.", sgName);
+  }
+
+  private void cancelAll(List<Future<Void>> futures) {
+    for (Future<Void> future : futures) {
+      future.cancel(true);
+    }
+  }
+
+  private void closeParallelFileTransfer() {
+    if (parallelFileTransfer != null) {
+      parallelFileTransfer.close();
+      parallelFileTransfer = null;
+    }
+  }
+
   /**
    * Make snapshot hard link for new tsfile and its .restore file.
    *
@@ -800,7 +893,7 @@ public class SyncClient implements ISyncClient {
     SyncClient.config = config;
   }
 
-  private String getFileInfoWithVgAndTimePartition(File file) {
+  static String getFileInfoWithVgAndTimePartition(File file) {
     return file.getParentFile().getParentFile().getName()
         + SyncConstant.SYNC_DIR_NAME_SEPARATOR
         + file.getParentFile().getName()
@@ -573,7 +573,7 @@ public class AlignedTVList extends TVList {
       sortedIndices =
           (int[][]) PrimitiveArrayManager.createDataListsByType(TSDataType.INT32, rowCount);
     }
-    sort(0, rowCount);
+    sortAppendedRows();
     clearSortedValue();
     clearSortedTime();
     sorted = true;
@@ -582,17 +582,13 @@ public class AlignedTVList extends TVList {
   @Override
   void clearValue() {
     if (indices != null) {
-      for (int[] dataArray : indices) {
-        PrimitiveArrayManager.release(dataArray);
-      }
+      PrimitiveArrayManager.releaseAll(indices);
       indices.clear();
     }
     for (int i = 0; i < dataTypes.size(); i++) {
       List<Object> columnValues = values.get(i);
       if (columnValues != null) {
-        for (Object dataArray : columnValues) {
-          PrimitiveArrayManager.release(dataArray);
-        }
+        PrimitiveArrayManager.releaseAll(columnValues);
         columnValues.clear();
       }
       if (bitMaps != null) {
@@ -889,6 +885,7 @@ public class AlignedTVList extends TVList {
   public void clear() {
     rowCount = 0;
     sorted = true;
+    sortedRowCount = 0;
     minTime = Long.MAX_VALUE;
     clearTime();
     clearSortedTime();
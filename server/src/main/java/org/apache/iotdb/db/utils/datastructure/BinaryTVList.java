@@ -106,7 +106,7 @@ public class BinaryTVList extends TVList {
       sortedValues =
           (Binary[][]) PrimitiveArrayManager.createDataListsByType(TSDataType.TEXT, rowCount);
     }
-    sort(0, rowCount);
+    sortAppendedRows();
     clearSortedValue();
     clearSortedTime();
     sorted = true;
@@ -115,9 +115,7 @@ public class BinaryTVList extends TVList {
   @Override
   void clearValue() {
     if (values != null) {
-      for (Binary[] dataArray : values) {
-        PrimitiveArrayManager.release(dataArray);
-      }
+      PrimitiveArrayManager.releaseAll(values);
       values.clear();
     }
   }
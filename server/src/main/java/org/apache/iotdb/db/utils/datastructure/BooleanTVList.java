@@ -105,7 +105,7 @@ public class BooleanTVList extends TVList {
       sortedValues =
           (boolean[][]) PrimitiveArrayManager.createDataListsByType(TSDataType.BOOLEAN, rowCount);
     }
-    sort(0, rowCount);
+    sortAppendedRows();
     clearSortedValue();
     clearSortedTime();
     sorted = true;
@@ -114,9 +114,7 @@ public class BooleanTVList extends TVList {
   @Override
   void clearValue() {
     if (values != null) {
-      for (boolean[] dataArray : values) {
-        PrimitiveArrayManager.release(dataArray);
-      }
+      PrimitiveArrayManager.releaseAll(values);
       values.clear();
     }
   }
@@ -106,7 +106,7 @@ public class DoubleTVList extends TVList {
       sortedValues =
           (double[][]) PrimitiveArrayManager.createDataListsByType(TSDataType.DOUBLE, rowCount);
     }
-    sort(0, rowCount);
+    sortAppendedRows();
     clearSortedValue();
     clearSortedTime();
     sorted = true;
@@ -115,9 +115,7 @@ public class DoubleTVList extends TVList {
   @Override
   void clearValue() {
     if (values != null) {
-      for (double[] dataArray : values) {
-        PrimitiveArrayManager.release(dataArray);
-      }
+      PrimitiveArrayManager.releaseAll(values);
       values.clear();
     }
   }
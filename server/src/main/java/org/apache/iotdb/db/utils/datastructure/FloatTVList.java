@@ -106,7 +106,7 @@ public class FloatTVList extends TVList {
       sortedValues =
           (float[][]) PrimitiveArrayManager.createDataListsByType(TSDataType.FLOAT, rowCount);
     }
-    sort(0, rowCount);
+    sortAppendedRows();
     clearSortedValue();
     clearSortedTime();
     sorted = true;
@@ -115,9 +115,7 @@ public class FloatTVList extends TVList {
   @Override
   void clearValue() {
     if (values != null) {
-      for (float[] dataArray : values) {
-        PrimitiveArrayManager.release(dataArray);
-      }
+      PrimitiveArrayManager.releaseAll(values);
       values.clear();
     }
   }
@@ -31,6 +31,7 @@ import org.apache.iotdb.tsfile.utils.BitMap;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -41,6 +42,17 @@ import static org.apache.iotdb.tsfile.utils.RamUsageEstimator.NUM_BYTES_OBJECT_R
 public abstract class TVList {
 
   protected static final int SMALL_ARRAY_LENGTH = 32;
+
+  /** small ranges with shorter ascending runs on average are sorted by merge sort */
+  private static final int MIN_AVERAGE_RUN_LENGTH = 32;
+
+  /** ranges of at least so many rows are sorted by radix sort, unless they have few runs */
+  private static final int RADIX_SORT_THRESHOLD = 1024;
+
+  /** merging more runs of a large range is slower than radix sort */
+  private static final int MAX_RUN_NUM_TO_MERGE = 16;
+
+  private static final int RADIX = 256;
   protected static final String ERR_DATATYPE_NOT_CONSISTENT = "DataType not consistent";
   // list of timestamp array, add 1 when expanded -> data point timestamp array
   // index relation: arrayIndex -> elementIndex
@@ -49,6 +61,8 @@ public abstract class TVList {
 
   protected long[][] sortedTimestamps;
   protected boolean sorted = true;
+  // rows in [0, sortedRowCount) are known to be sorted, the rest are appended after the last sort
+  protected int sortedRowCount;
   // record reference count of this tv list
   // currently this reference will only be increase because we can't know when to decrease it
   protected AtomicInteger referenceCount;
@@ -265,6 +279,7 @@ public abstract class TVList {
     }
     int deletedNumber = rowCount - newSize;
     rowCount = newSize;
+    sortedRowCount = 0;
     // release primitive arrays that are empty
     int newArrayNum = newSize / ARRAY_SIZE;
     if (newSize % ARRAY_SIZE != 0) {
@@ -284,12 +299,14 @@ public abstract class TVList {
     }
     cloneList.rowCount = rowCount;
     cloneList.sorted = sorted;
+    cloneList.sortedRowCount = sortedRowCount;
     cloneList.minTime = minTime;
   }
 
   public void clear() {
     rowCount = 0;
     sorted = true;
+    sortedRowCount = 0;
     minTime = Long.MAX_VALUE;
     clearTime();
     clearSortedTime();
@@ -300,9 +317,7 @@ public abstract class TVList {
 
   protected void clearTime() {
     if (timestamps != null) {
-      for (long[] dataArray : timestamps) {
-        PrimitiveArrayManager.release(dataArray);
-      }
+      PrimitiveArrayManager.releaseAll(timestamps);
       timestamps.clear();
     }
   }
@@ -338,11 +353,58 @@ public abstract class TVList {
     return cloneArray;
   }
 
+  /**
+   * Sort the whole list using the sorting buffers prepared by {@link #sort()}. Only the rows
+   * appended since the last sort are sorted, and then merged into the sorted rows before them, so
+   * that repeated sorts of a growing list do not start from scratch.
+   */
+  protected void sortAppendedRows() {
+    int sortedEnd = Math.min(sortedRowCount, rowCount);
+    if (sortedEnd == 0 && rowCount > 0) {
+      sortedEnd = 1;
+    }
+    // appended rows that are still in order need no sorting
+    while (sortedEnd < rowCount && getTime(sortedEnd - 1) <= getTime(sortedEnd)) {
+      sortedEnd++;
+    }
+    if (sortedEnd < rowCount) {
+      sort(sortedEnd, rowCount);
+      mergeAdjacentRuns(0, sortedEnd, rowCount);
+    }
+    sortedRowCount = rowCount;
+  }
+
+  /**
+   * Sort [lo, hi) by time stably, using the sorting buffers prepared by {@link #sort()}.
+   *
+   * <p>The rows are first split into ascending runs. If there are only a few runs, which is the
+   * case of in-order writes with a few out-of-order bursts, adjacent runs are merged and only the
+   * overlapping parts of two runs are moved. Otherwise, large ranges are sorted by an LSD radix
+   * sort on the timestamps and small ranges by merge sort.
+   */
   protected void sort(int lo, int hi) {
     if (sorted) {
       return;
     }
+    if (hi - lo < 2) {
+      return;
+    }
 
+    int maxRunNum =
+        hi - lo >= RADIX_SORT_THRESHOLD
+            ? MAX_RUN_NUM_TO_MERGE
+            : (hi - lo) / MIN_AVERAGE_RUN_LENGTH + 1;
+    int[] runStarts = findRuns(lo, hi, maxRunNum);
+    if (runStarts != null) {
+      mergeRuns(runStarts, hi);
+    } else if (hi - lo >= RADIX_SORT_THRESHOLD) {
+      radixSort(lo, hi);
+    } else {
+      mergeSort(lo, hi);
+    }
+  }
+
+  protected void mergeSort(int lo, int hi) {
     if (lo == hi) {
       return;
     }
@@ -352,11 +414,153 @@ public abstract class TVList {
       return;
     }
     int mid = (lo + hi) >>> 1;
-    sort(lo, mid);
-    sort(mid, hi);
+    mergeSort(lo, mid);
+    mergeSort(mid, hi);
     merge(lo, mid, hi);
   }
 
+  /**
+   * Find the ascending runs of [lo, hi).
+   *
+   * @return the start indexes of the runs, or null if there are more than maxRunNum runs
+   */
+  private int[] findRuns(int lo, int hi, int maxRunNum) {
+    int[] runStarts = new int[maxRunNum];
+    int runNum = 0;
+    runStarts[runNum++] = lo;
+    long previousTime = getTime(lo);
+    for (int i = lo + 1; i < hi; i++) {
+      long time = getTime(i);
+      if (time < previousTime) {
+        if (runNum == maxRunNum) {
+          return null;
+        }
+        runStarts[runNum++] = i;
+      }
+      previousTime = time;
+    }
+    return Arrays.copyOf(runStarts, runNum);
+  }
+
+  /** Merge adjacent ascending runs pairwise until one run is left. */
+  private void mergeRuns(int[] runStarts, int hi) {
+    int runNum = runStarts.length;
+    while (runNum > 1) {
+      int mergedRunNum = 0;
+      for (int i = 0; i < runNum; i += 2) {
+        if (i + 1 < runNum) {
+          int end = i + 2 < runNum ? runStarts[i + 2] : hi;
+          mergeAdjacentRuns(runStarts[i], runStarts[i + 1], end);
+        }
+        runStarts[mergedRunNum++] = runStarts[i];
+      }
+      runNum = mergedRunNum;
+    }
+  }
+
+  /**
+   * Merge the ascending runs [lo, mid) and [mid, hi). The rows of the left run that are not after
+   * the first row of the right run, and the rows of the right run that are not before the last row
+   * of the left run, are already in place and are not moved.
+   */
+  private void mergeAdjacentRuns(int lo, int mid, int hi) {
+    long leftLastTime = getTime(mid - 1);
+    long rightFirstTime = getTime(mid);
+    if (leftLastTime <= rightFirstTime) {
+      return;
+    }
+
+    // the first row in [lo, mid) whose time > rightFirstTime
+    int left = lo;
+    int right = mid - 1;
+    while (left < right) {
+      int middle = (left + right) >>> 1;
+      if (getTime(middle) > rightFirstTime) {
+        right = middle;
+      } else {
+        left = middle + 1;
+      }
+    }
+    int mergeLo = left;
+
+    // the first row in [mid, hi) whose time >= leftLastTime
+    left = mid + 1;
+    right = hi;
+    while (left < right) {
+      int middle = (left + right) >>> 1;
+      if (getTime(middle) >= leftLastTime) {
+        right = middle;
+      } else {
+        left = middle + 1;
+      }
+    }
+    int mergeHi = left;
+
+    merge(mergeLo, mid, mergeHi);
+  }
+
+  /**
+   * Stable LSD radix sort on the timestamps of [lo, hi), one byte per pass. Only the bytes that
+   * differ between the minimum and the maximum time are sorted. The rows are then moved to their
+   * positions in bulk through the sorting buffers.
+   */
+  protected void radixSort(int lo, int hi) {
+    int length = hi - lo;
+    long[] keys = new long[length];
+    long minKey = Long.MAX_VALUE;
+    long maxKey = Long.MIN_VALUE;
+    for (int i = 0; i < length; i++) {
+      long time = getTime(lo + i);
+      keys[i] = time;
+      minKey = Math.min(minKey, time);
+      maxKey = Math.max(maxKey, time);
+    }
+    // the keys are made non-negative, so the unsigned byte order is the time order
+    long keyRange = maxKey - minKey;
+    for (int i = 0; i < length; i++) {
+      keys[i] -= minKey;
+    }
+
+    int[] indexes = new int[length];
+    for (int i = 0; i < length; i++) {
+      indexes[i] = i;
+    }
+    long[] keyBuffer = new long[length];
+    int[] indexBuffer = new int[length];
+    int[] counts = new int[RADIX + 1];
+    // keyRange < 0 if the time range overflows, then all bytes have to be sorted
+    int passNum =
+        keyRange < 0 ? Long.BYTES : (Long.SIZE - Long.numberOfLeadingZeros(keyRange) + 7) / 8;
+    for (int pass = 0; pass < passNum; pass++) {
+      int shift = pass * 8;
+      Arrays.fill(counts, 0);
+      for (int i = 0; i < length; i++) {
+        counts[(int) ((keys[i] >>> shift) & (RADIX - 1)) + 1]++;
+      }
+      for (int i = 0; i < RADIX; i++) {
+        counts[i + 1] += counts[i];
+      }
+      for (int i = 0; i < length; i++) {
+        int position = counts[(int) ((keys[i] >>> shift) & (RADIX - 1))]++;
+        keyBuffer[position] = keys[i];
+        indexBuffer[position] = indexes[i];
+      }
+      long[] swappedKeys = keys;
+      keys = keyBuffer;
+      keyBuffer = swappedKeys;
+      int[] swappedIndexes = indexes;
+      indexes = indexBuffer;
+      indexBuffer = swappedIndexes;
+    }
+
+    for (int i = 0; i < length; i++) {
+      setToSorted(lo + indexes[i], lo + i);
+    }
+    for (int i = lo; i < hi; i++) {
+      setFromSorted(i, i);
+    }
+  }
+
   protected int countRunAndMakeAscending(int lo, int hi) {
     assert lo < hi;
     int runHi = lo + 1;
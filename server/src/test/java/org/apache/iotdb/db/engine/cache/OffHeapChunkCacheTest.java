@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+public class OffHeapChunkCacheTest {
+
+  private static final String DEVICE = "root.sg1.d1";
+  private static final int MEASUREMENT_NUM = 4;
+  private static final int BLOCK_SIZE = 64;
+
+  private File file;
+  private final List<ChunkMetadata> chunkMetadataList = new ArrayList<>();
+  /** data of the chunks read from the file without cache */
+  private final List<ByteBuffer> chunkDataList = new ArrayList<>();
+
+  @Before
+  public void setUp() throws IOException, WriteProcessException {
+    file = new File(TestConstant.getTestTsFilePath("root.sg1", 0, 0, 0));
+    if (!file.getParentFile().exists()) {
+      Assert.assertTrue(file.getParentFile().mkdirs());
+    }
+    try (TsFileWriter writer = new TsFileWriter(file)) {
+      for (int i = 0; i < MEASUREMENT_NUM; i++) {
+        writer.registerTimeseries(
+            new Path(DEVICE),
+            new MeasurementSchema(
+                "s" + i, TSDataType.INT64, TSEncoding.PLAIN, CompressionType.SNAPPY));
+      }
+      for (long time = 0; time < 1000; time++) {
+        TSRecord record = new TSRecord(time, DEVICE);
+        for (int i = 0; i < MEASUREMENT_NUM; i++) {
+          record.addTuple(
+              DataPoint.getDataPoint(TSDataType.INT64, "s" + i, String.valueOf(time * i)));
+        }
+        writer.write(record);
+        if ((time + 1) % 100 == 0) {
+          writer.flushAllChunkGroups();
+        }
+      }
+    }
+
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getPath())) {
+      for (Path path : reader.getAllPaths()) {
+        for (ChunkMetadata chunkMetadata : reader.getChunkMetadataList(path)) {
+          chunkMetadata.setFilePath(file.getPath());
+          chunkMetadataList.add(chunkMetadata);
+          chunkDataList.add(reader.readMemChunk(chunkMetadata).getData());
+        }
+      }
+    }
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileReaderManager.getInstance().closeAndRemoveAllOpenedReaders();
+    Assert.assertTrue(file.delete());
+  }
+
+  @Test
+  public void testGet() throws IOException {
+    OffHeapChunkCache cache = new OffHeapChunkCache(1024 * 1024, BLOCK_SIZE);
+    QueryContext context = new QueryContext();
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < chunkMetadataList.size(); i++) {
+        Chunk chunk = cache.get(chunkMetadataList.get(i), context);
+        Assert.assertEquals(chunkDataList.get(i), chunk.getData());
+        Assert.assertEquals(
+            chunkMetadataList.get(i).getMeasurementUid(), chunk.getHeader().getMeasurementID());
+      }
+    }
+    Assert.assertEquals(chunkMetadataList.size(), context.getChunkCacheMissNum());
+    Assert.assertEquals(chunkMetadataList.size() * 2L, context.getChunkCacheHitNum());
+
+    long allocatedSize = 0;
+    for (ByteBuffer data : chunkDataList) {
+      allocatedSize += (data.remaining() + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+    }
+    Assert.assertEquals(allocatedSize, cache.getAllocatedSize());
+  }
+
+  @Test
+  public void testEviction() throws IOException {
+    // only a few chunks fit in the cache
+    long capacity = chunkDataList.get(0).remaining() * 4L;
+    OffHeapChunkCache cache = new OffHeapChunkCache(capacity, BLOCK_SIZE);
+    QueryContext context = new QueryContext();
+    for (int round = 0; round < 3; round++) {
+      for (int i = 0; i < chunkMetadataList.size(); i++) {
+        Assert.assertEquals(
+            chunkDataList.get(i), cache.get(chunkMetadataList.get(i), context).getData());
+        Assert.assertTrue(cache.getAllocatedSize() <= capacity);
+      }
+    }
+    Assert.assertTrue(cache.stats().evictionCount() > 0);
+
+    // the hot chunk is kept when the other chunks are scanned
+    ChunkMetadata hotChunk = chunkMetadataList.get(0);
+    for (int i = 0; i < 10; i++) {
+      cache.get(hotChunk, null);
+    }
+    for (int i = 1; i < chunkMetadataList.size(); i++) {
+      cache.get(chunkMetadataList.get(i), null);
+    }
+    QueryContext hotContext = new QueryContext();
+    cache.get(hotChunk, hotContext);
+    Assert.assertEquals(1, hotContext.getChunkCacheHitNum());
+  }
+
+  @Test
+  public void testRemoveAndClear() throws IOException {
+    OffHeapChunkCache cache = new OffHeapChunkCache(1024 * 1024, BLOCK_SIZE);
+    for (ChunkMetadata chunkMetadata : chunkMetadataList) {
+      cache.get(chunkMetadata, null);
+    }
+
+    QueryContext context = new QueryContext();
+    cache.remove(chunkMetadataList.get(0));
+    cache.get(chunkMetadataList.get(0), context);
+    cache.get(chunkMetadataList.get(1), context);
+    Assert.assertEquals(1, context.getChunkCacheMissNum());
+    Assert.assertEquals(1, context.getChunkCacheHitNum());
+
+    cache.clear();
+    Assert.assertTrue(cache.isEmpty());
+    Assert.assertEquals(0, cache.getAllocatedSize());
+    Assert.assertEquals(0, cache.getFileNum());
+  }
+
+  @Test
+  public void testFileIdRelease() throws IOException {
+    OffHeapChunkCache cache = new OffHeapChunkCache(1024 * 1024, BLOCK_SIZE);
+    for (ChunkMetadata chunkMetadata : chunkMetadataList) {
+      cache.get(chunkMetadata, null);
+    }
+    Assert.assertEquals(1, cache.getFileNum());
+
+    // the id of the file is dropped with its last chunk, as a compacted file is never read again
+    for (int i = 0; i < chunkMetadataList.size() - 1; i++) {
+      cache.remove(chunkMetadataList.get(i));
+      Assert.assertEquals(1, cache.getFileNum());
+    }
+    cache.remove(chunkMetadataList.get(chunkMetadataList.size() - 1));
+    Assert.assertEquals(0, cache.getFileNum());
+    Assert.assertEquals(0, cache.getAllocatedSize());
+
+    // the file gets a new id when it is cached again
+    QueryContext context = new QueryContext();
+    for (int round = 0; round < 2; round++) {
+      for (int i = 0; i < chunkMetadataList.size(); i++) {
+        Assert.assertEquals(
+            chunkDataList.get(i), cache.get(chunkMetadataList.get(i), context).getData());
+      }
+    }
+    Assert.assertEquals(chunkMetadataList.size(), context.getChunkCacheHitNum());
+    Assert.assertEquals(1, cache.getFileNum());
+  }
+
+  @Test
+  public void testChunkLargerThanCache() throws IOException {
+    OffHeapChunkCache cache = new OffHeapChunkCache(BLOCK_SIZE, BLOCK_SIZE);
+    QueryContext context = new QueryContext();
+    for (int i = 0; i < 2; i++) {
+      Assert.assertEquals(
+          chunkDataList.get(0), cache.get(chunkMetadataList.get(0), context).getData());
+    }
+    Assert.assertEquals(2, context.getChunkCacheMissNum());
+    Assert.assertTrue(cache.isEmpty());
+  }
+}
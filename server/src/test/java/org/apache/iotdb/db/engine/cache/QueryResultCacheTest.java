@@ -0,0 +1,341 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.cache.QueryResultCache.WindowLocator;
+import org.apache.iotdb.db.engine.storagegroup.TsFileManager;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
+import org.apache.iotdb.db.engine.storagegroup.VirtualStorageGroupProcessor;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.qp.Planner;
+import org.apache.iotdb.db.qp.executor.PlanExecutor;
+import org.apache.iotdb.db.qp.physical.crud.GroupByTimePlan;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import static org.apache.iotdb.db.engine.cache.QueryResultCache.OPEN_WINDOW;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class QueryResultCacheTest {
+
+  private static final String STORAGE_GROUP = "root.cachetest";
+  private static final String DEVICE = STORAGE_GROUP + ".d1";
+
+  private final Planner planner = new Planner();
+  private final PlanExecutor executor = new PlanExecutor();
+
+  private List<PartialPath> paths;
+
+  public QueryResultCacheTest() throws QueryProcessException {}
+
+  @Before
+  public void setUp() throws IllegalPathException {
+    EnvironmentUtils.envSetUp();
+    paths = Collections.singletonList(new PartialPath(DEVICE + ".s1"));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    QueryResultCache.getInstance().clear();
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testOverlappingWindows() {
+    // [0, 10), [5, 15), [10, 20), [15, 25)
+    WindowLocator locator = new WindowLocator(0, 10, 5, 4);
+    assertEquals(0, locator.firstOverlapping(-3));
+    assertEquals(-1, locator.lastOverlapping(-3));
+    assertEquals(0, locator.firstOverlapping(0));
+    assertEquals(0, locator.lastOverlapping(0));
+    assertEquals(0, locator.firstOverlapping(9));
+    assertEquals(1, locator.lastOverlapping(9));
+    assertEquals(1, locator.firstOverlapping(10));
+    assertEquals(2, locator.lastOverlapping(10));
+    assertEquals(1, locator.firstOverlapping(14));
+    assertEquals(2, locator.firstOverlapping(15));
+    assertEquals(3, locator.lastOverlapping(24));
+    assertEquals(4, locator.firstOverlapping(25));
+    assertEquals(3, locator.lastOverlapping(25));
+  }
+
+  @Test
+  public void testWindowsWithGaps() {
+    // [100, 105), [110, 115), [120, 125)
+    WindowLocator locator = new WindowLocator(100, 5, 10, 3);
+    assertEquals(0, locator.firstOverlapping(95));
+    assertEquals(-1, locator.lastOverlapping(95));
+    assertEquals(0, locator.firstOverlapping(104));
+    // a point in a gap belongs to no window
+    assertEquals(1, locator.firstOverlapping(107));
+    assertEquals(0, locator.lastOverlapping(107));
+    assertEquals(1, locator.firstOverlapping(112));
+    assertEquals(1, locator.lastOverlapping(112));
+    assertEquals(2, locator.firstOverlapping(124));
+    assertEquals(3, locator.firstOverlapping(125));
+    assertEquals(2, locator.lastOverlapping(130));
+  }
+
+  @Test
+  public void testRowTimestamp() {
+    GroupByTimePlan plan = new GroupByTimePlan();
+    // the last window [20, 30) is cut to [20, 25)
+    plan.setStartTime(0);
+    plan.setEndTime(25);
+    plan.setInterval(10);
+    plan.setSlidingStep(10);
+    plan.setLeftCRightO(true);
+    assertEquals(0, QueryResultCache.getRowTimestamp(plan, 0));
+    assertEquals(20, QueryResultCache.getRowTimestamp(plan, 2));
+
+    // (0, 10], (10, 20], (20, 25] are shifted to [1, 11), [11, 21), [21, 26) by the planner
+    plan.setStartTime(1);
+    plan.setEndTime(26);
+    plan.setLeftCRightO(false);
+    assertEquals(10, QueryResultCache.getRowTimestamp(plan, 0));
+    assertEquals(20, QueryResultCache.getRowTimestamp(plan, 1));
+    assertEquals(25, QueryResultCache.getRowTimestamp(plan, 2));
+
+    // (0, 10], (15, 25] leave a gap if the sliding step is greater than the interval
+    plan.setSlidingStep(15);
+    assertEquals(10, QueryResultCache.getRowTimestamp(plan, 0));
+    assertEquals(25, QueryResultCache.getRowTimestamp(plan, 1));
+  }
+
+  @Test
+  public void testMissedRuns() {
+    RowRecord row = new RowRecord(0);
+    RowRecord[] cachedRows = {null, null, row, null, row, row, null};
+    List<int[]> missedRuns = QueryResultCache.getMissedRuns(cachedRows);
+    assertEquals(3, missedRuns.size());
+    assertArrayEquals(new int[] {0, 1}, missedRuns.get(0));
+    assertArrayEquals(new int[] {3, 3}, missedRuns.get(1));
+    assertArrayEquals(new int[] {6, 6}, missedRuns.get(2));
+
+    assertTrue(QueryResultCache.getMissedRuns(new RowRecord[] {row, row}).isEmpty());
+
+    // too many runs are merged into one
+    cachedRows = new RowRecord[QueryResultCache.MAX_MISSED_RUN_NUM * 2 + 3];
+    for (int i = 0; i < cachedRows.length; i += 2) {
+      cachedRows[i] = row;
+    }
+    missedRuns = QueryResultCache.getMissedRuns(cachedRows);
+    assertEquals(1, missedRuns.size());
+    assertArrayEquals(new int[] {1, cachedRows.length - 2}, missedRuns.get(0));
+  }
+
+  @Test
+  public void testGetAndPut() {
+    QueryResultCache cache = QueryResultCache.getInstance();
+    RowRecord row = new RowRecord(10);
+    cache.put("plan", 10, 1, row);
+    assertEquals(row, cache.get("plan", 10, 1));
+    assertNull(cache.get("plan", 10, 2));
+    assertNull(cache.get("plan", 20, 1));
+    assertNull(cache.get("otherPlan", 10, 1));
+
+    // open windows are never cached
+    cache.put("plan", 20, OPEN_WINDOW, row);
+    assertNull(cache.get("plan", 20, OPEN_WINDOW));
+  }
+
+  @Test
+  public void testUnsealedFilesAndFlush() throws Exception {
+    QueryResultCache cache = QueryResultCache.getInstance();
+    insert(1);
+    insert(5);
+    insert(12);
+    // [0, 10), [10, 20), ..., [50, 60)
+    long[] versions = cache.getWindowVersions(paths, 0, 10, 10, 6);
+    for (long version : versions) {
+      assertEquals(OPEN_WINDOW, version);
+    }
+
+    flush();
+    long[] flushedVersions = cache.getWindowVersions(paths, 0, 10, 10, 6);
+    assertArrayEquals(flushedVersions, cache.getWindowVersions(paths, 0, 10, 10, 6));
+    // windows without any file have the version 0
+    assertNotEquals(0, flushedVersions[0]);
+    assertEquals(flushedVersions[0], flushedVersions[1]);
+    for (int i = 0; i < 6; i++) {
+      assertNotEquals(OPEN_WINDOW, flushedVersions[i]);
+      if (i >= 2) {
+        assertEquals(0, flushedVersions[i]);
+      }
+    }
+
+    // an unsealed sequence file opens the windows from its first point
+    insert(35);
+    versions = cache.getWindowVersions(paths, 0, 10, 10, 6);
+    for (int i = 0; i < 6; i++) {
+      assertEquals(i < 3 ? flushedVersions[i] : OPEN_WINDOW, versions[i]);
+    }
+
+    // an unsealed unsequence file does as well
+    insert(7);
+    versions = cache.getWindowVersions(paths, 0, 10, 10, 6);
+    for (long version : versions) {
+      assertEquals(OPEN_WINDOW, version);
+    }
+
+    flush();
+    versions = cache.getWindowVersions(paths, 0, 10, 10, 6);
+    assertNotEquals(flushedVersions[0], versions[0]);
+    assertEquals(flushedVersions[1], versions[1]);
+    assertEquals(flushedVersions[2], versions[2]);
+    assertNotEquals(flushedVersions[3], versions[3]);
+    assertNotEquals(OPEN_WINDOW, versions[5]);
+  }
+
+  @Test
+  public void testSlidingWindows() throws Exception {
+    insert(7);
+    insert(13);
+    flush();
+    // [0, 5), [10, 15), [20, 25), [30, 35), the file starts in the gap after the first window
+    long[] versions = QueryResultCache.getInstance().getWindowVersions(paths, 0, 5, 10, 4);
+    assertEquals(0, versions[0]);
+    assertNotEquals(0, versions[1]);
+    assertEquals(0, versions[2]);
+    assertEquals(0, versions[3]);
+  }
+
+  @Test
+  public void testDeletion() throws Exception {
+    QueryResultCache cache = QueryResultCache.getInstance();
+    insert(1);
+    insert(15);
+    insert(25);
+    flush();
+    long[] flushedVersions = cache.getWindowVersions(paths, 0, 10, 10, 4);
+
+    executor.processNonQuery(
+        planner.parseSQLToPhysicalPlan("delete from " + DEVICE + ".s1 where time <= 5"));
+    TsFileResource resource = getProcessor().getSequenceFileList().get(0);
+    assertEquals(1, resource.getModificationVersion());
+    long[] versions = cache.getWindowVersions(paths, 0, 10, 10, 4);
+    // the deletion is written into the mods of the file overlapping the first three windows
+    for (int i = 0; i < 3; i++) {
+      assertNotEquals(flushedVersions[i], versions[i]);
+    }
+    assertEquals(flushedVersions[3], versions[3]);
+  }
+
+  @Test
+  public void testCompaction() throws Exception {
+    QueryResultCache cache = QueryResultCache.getInstance();
+    insert(1);
+    insert(5);
+    flush();
+    insert(15);
+    flush();
+    insert(25);
+    flush();
+    long[] flushedVersions = cache.getWindowVersions(paths, 0, 10, 10, 4);
+
+    // replace the first two files by the file compacted from them
+    TsFileManager tsFileManager = getProcessor().getTsFileManager();
+    List<TsFileResource> sourceFiles = getProcessor().getSequenceFileList().subList(0, 2);
+    TsFileResource targetFile =
+        createClosedResource(
+            sourceFiles.get(0).getTsFile().getParentFile(), "1-1-1-0.tsfile", 1, 15);
+    for (TsFileResource sourceFile : sourceFiles.toArray(new TsFileResource[0])) {
+      tsFileManager.remove(sourceFile, true);
+    }
+    tsFileManager.add(targetFile, true);
+
+    long[] versions = cache.getWindowVersions(paths, 0, 10, 10, 4);
+    assertNotEquals(flushedVersions[0], versions[0]);
+    assertNotEquals(flushedVersions[1], versions[1]);
+    assertEquals(flushedVersions[2], versions[2]);
+    assertEquals(flushedVersions[3], versions[3]);
+  }
+
+  @Test
+  public void testLoad() throws Exception {
+    QueryResultCache cache = QueryResultCache.getInstance();
+    insert(1);
+    insert(15);
+    flush();
+    long[] flushedVersions = cache.getWindowVersions(paths, 0, 10, 10, 4);
+
+    File directory = getProcessor().getSequenceFileList().get(0).getTsFile().getParentFile();
+    getProcessor()
+        .getTsFileManager()
+        .add(createClosedResource(directory, "100-100-0-0.tsfile", 22, 24), false);
+
+    long[] versions = cache.getWindowVersions(paths, 0, 10, 10, 4);
+    assertEquals(flushedVersions[0], versions[0]);
+    assertEquals(flushedVersions[1], versions[1]);
+    assertNotEquals(flushedVersions[2], versions[2]);
+    assertEquals(flushedVersions[3], versions[3]);
+  }
+
+  @Test
+  public void testTTL() throws Exception {
+    insert(1);
+    flush();
+    executor.processNonQuery(
+        planner.parseSQLToPhysicalPlan("SET TTL TO " + STORAGE_GROUP + " 100000000000"));
+    for (long version : QueryResultCache.getInstance().getWindowVersions(paths, 0, 10, 10, 4)) {
+      assertEquals(OPEN_WINDOW, version);
+    }
+  }
+
+  private void insert(long time) throws Exception {
+    executor.processNonQuery(
+        planner.parseSQLToPhysicalPlan(
+            "insert into " + DEVICE + "(timestamp,s1) values(" + time + "," + time + ")"));
+  }
+
+  private void flush() throws Exception {
+    executor.processNonQuery(planner.parseSQLToPhysicalPlan("flush"));
+  }
+
+  private VirtualStorageGroupProcessor getProcessor()
+      throws StorageEngineException, IllegalPathException {
+    return StorageEngine.getInstance().getProcessor(new PartialPath(DEVICE));
+  }
+
+  private TsFileResource createClosedResource(
+      File directory, String name, long startTime, long endTime) {
+    TsFileResource resource = new TsFileResource(new File(directory, name));
+    resource.updateStartTime(DEVICE, startTime);
+    resource.updateEndTime(DEVICE, endTime);
+    resource.setStatus(TsFileResourceStatus.CLOSED);
+    return resource;
+  }
+}
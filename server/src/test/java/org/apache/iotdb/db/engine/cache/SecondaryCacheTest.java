@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.db.constant.TestConstant;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+public class SecondaryCacheTest {
+
+  private final File dir = new File(TestConstant.BASE_OUTPUT_PATH, "secondary_cache");
+
+  @Before
+  public void setUp() throws IOException {
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(dir);
+  }
+
+  private static ByteBuffer value(int seed, int size) {
+    byte[] bytes = new byte[size];
+    new Random(seed).nextBytes(bytes);
+    return ByteBuffer.wrap(bytes);
+  }
+
+  @Test
+  public void testPutAndRecover() {
+    SecondaryCache cache = new SecondaryCache(dir, 1024 * 1024, 64 * 1024);
+    Assert.assertTrue(cache.isEnabled());
+    for (int i = 0; i < 100; i++) {
+      cache.put("key" + i, value(i, 1000 + i));
+    }
+    cache.remove("key0");
+    Assert.assertNull(cache.get("key0"));
+    Assert.assertEquals(value(1, 1001), cache.get("key1"));
+    cache.close();
+
+    cache = new SecondaryCache(dir, 1024 * 1024, 64 * 1024);
+    Assert.assertEquals(99, cache.size());
+    Assert.assertNull(cache.get("key0"));
+    for (int i = 1; i < 100; i++) {
+      Assert.assertEquals(value(i, 1000 + i), cache.get("key" + i));
+    }
+    // recovered entries are appended to
+    cache.put("key0", value(0, 10));
+    cache.close();
+
+    cache = new SecondaryCache(dir, 1024 * 1024, 64 * 1024);
+    Assert.assertEquals(value(0, 10), cache.get("key0"));
+    cache.close();
+  }
+
+  @Test
+  public void testRecoverBrokenTail() throws IOException {
+    SecondaryCache cache = new SecondaryCache(dir, 1024 * 1024, 1024 * 1024);
+    for (int i = 0; i < 10; i++) {
+      cache.put("key" + i, value(i, 100));
+    }
+    cache.close();
+
+    // a record is partially written
+    File segment = new File(dir, "0.cache");
+    long length = segment.length();
+    try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+      file.setLength(length - 50);
+    }
+    cache = new SecondaryCache(dir, 1024 * 1024, 1024 * 1024);
+    Assert.assertEquals(9, cache.size());
+    Assert.assertNull(cache.get("key9"));
+    cache.put("key10", value(10, 100));
+    cache.close();
+
+    // the value of a record is lost
+    try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+      file.seek(segment.length() - 10);
+      file.write(new byte[10]);
+    }
+    cache = new SecondaryCache(dir, 1024 * 1024, 1024 * 1024);
+    Assert.assertEquals(10, cache.size());
+    Assert.assertNull(cache.get("key10"));
+    Assert.assertEquals(9, cache.size());
+    Assert.assertEquals(value(8, 100), cache.get("key8"));
+    cache.close();
+  }
+
+  @Test
+  public void testEviction() {
+    SecondaryCache cache = new SecondaryCache(dir, 40 * 1024, 10 * 1024);
+    for (int i = 0; i < 100; i++) {
+      cache.put("key" + i, value(i, 1000));
+    }
+    // only the latest 4 segments are kept
+    Assert.assertNull(cache.get("key0"));
+    Assert.assertEquals(value(99, 1000), cache.get("key99"));
+    Assert.assertTrue(cache.size() <= 40);
+    File[] segments = dir.listFiles();
+    Assert.assertNotNull(segments);
+    Assert.assertEquals(4, segments.length);
+
+    // a value larger than a segment is not cached
+    cache.put("large", value(0, 20 * 1024));
+    Assert.assertFalse(cache.contains("large"));
+
+    cache.clear();
+    Assert.assertEquals(0, cache.size());
+    Assert.assertNull(cache.get("key99"));
+    cache.close();
+  }
+
+  @Test
+  public void testDisabled() {
+    SecondaryCache cache = new SecondaryCache(null, 1024, 1024);
+    Assert.assertFalse(cache.isEnabled());
+    cache.put("key", value(0, 10));
+    Assert.assertNull(cache.get("key"));
+  }
+}
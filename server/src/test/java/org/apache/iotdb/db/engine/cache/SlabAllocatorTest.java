@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+public class SlabAllocatorTest {
+
+  @Test
+  public void testWriteAndRead() {
+    SlabAllocator allocator = new SlabAllocator(1024 * 1024, 100);
+    Random random = new Random(0);
+    for (int size : new int[] {0, 1, 99, 100, 101, 1000, 12345}) {
+      byte[] bytes = new byte[size];
+      random.nextBytes(bytes);
+      int[] blocks = allocator.allocate(size);
+      Assert.assertEquals((size + 99) / 100, blocks.length);
+      allocator.write(blocks, ByteBuffer.wrap(bytes));
+
+      ByteBuffer result = ByteBuffer.allocate(size);
+      allocator.read(blocks, size, result);
+      Assert.assertArrayEquals(bytes, result.array());
+    }
+  }
+
+  @Test
+  public void testAllocateAndFree() {
+    SlabAllocator allocator = new SlabAllocator(1000, 100);
+    Assert.assertEquals(10, allocator.getCapacityInBlocks());
+    int[] first = allocator.allocate(450);
+    int[] second = allocator.allocate(500);
+    Assert.assertNull(allocator.allocate(1));
+    Assert.assertEquals(1000, allocator.getAllocatedSize());
+
+    Set<Integer> blockSet = new HashSet<>();
+    for (int block : first) {
+      blockSet.add(block);
+    }
+    for (int block : second) {
+      blockSet.add(block);
+    }
+    Assert.assertEquals(10, blockSet.size());
+
+    allocator.free(first);
+    Assert.assertEquals(500, allocator.getAllocatedSize());
+    Assert.assertNull(allocator.allocate(501));
+    int[] third = allocator.allocate(500);
+    Assert.assertEquals(5, third.length);
+    for (int block : third) {
+      Assert.assertTrue(blockSet.contains(block));
+    }
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache.TimeSeriesMetadataCacheKey;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.TimeseriesMetadata;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class TimeSeriesMetadataCacheTest {
+
+  private static final int DEVICE_NUM = 4;
+  private static final int MEASUREMENT_NUM = 20;
+
+  private File file;
+
+  @Before
+  public void setUp() throws IOException, WriteProcessException {
+    file = new File(TestConstant.getTestTsFilePath("root.sg1", 0, 0, 1));
+    if (!file.getParentFile().exists()) {
+      Assert.assertTrue(file.getParentFile().mkdirs());
+    }
+    try (TsFileWriter writer = new TsFileWriter(file)) {
+      for (int d = 0; d < DEVICE_NUM; d++) {
+        for (int i = 0; i < MEASUREMENT_NUM; i++) {
+          writer.registerTimeseries(
+              new Path("root.sg1.d" + d),
+              new MeasurementSchema("s" + i, TSDataType.INT64, TSEncoding.PLAIN));
+        }
+      }
+      for (long time = 0; time < 100; time++) {
+        for (int d = 0; d < DEVICE_NUM; d++) {
+          TSRecord record = new TSRecord(time, "root.sg1.d" + d);
+          for (int i = 0; i < MEASUREMENT_NUM; i++) {
+            record.addTuple(
+                DataPoint.getDataPoint(TSDataType.INT64, "s" + i, String.valueOf(time + i)));
+          }
+          writer.write(record);
+        }
+      }
+    }
+    TimeSeriesMetadataCache.getInstance().clear();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    TimeSeriesMetadataCache.getInstance().clear();
+    FileReaderManager.getInstance().closeAndRemoveAllOpenedReaders();
+    Assert.assertTrue(file.delete());
+  }
+
+  @Test
+  public void testConcurrentGet() throws Exception {
+    TimeSeriesMetadataCache cache = TimeSeriesMetadataCache.getInstance();
+    Set<String> allSensors = new HashSet<>();
+    for (int i = 0; i < MEASUREMENT_NUM; i++) {
+      allSensors.add("s" + i);
+    }
+    // a sensor not in the file
+    allSensors.add("s100");
+
+    int threadNum = 8;
+    ExecutorService pool = Executors.newFixedThreadPool(threadNum);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<List<TimeseriesMetadata>>> futures = new ArrayList<>();
+    for (int t = 0; t < threadNum; t++) {
+      int thread = t;
+      futures.add(
+          pool.submit(
+              () -> {
+                start.await();
+                List<TimeseriesMetadata> result = new ArrayList<>();
+                for (int d = 0; d < DEVICE_NUM; d++) {
+                  // threads miss different sensors of the same device at the same time
+                  for (int i = 0; i <= MEASUREMENT_NUM; i++) {
+                    String measurement =
+                        i == MEASUREMENT_NUM ? "s100" : "s" + (i + thread) % MEASUREMENT_NUM;
+                    result.add(
+                        cache.get(
+                            new TimeSeriesMetadataCacheKey(
+                                file.getPath(), "root.sg1.d" + d, measurement),
+                            allSensors,
+                            true,
+                            false));
+                  }
+                }
+                return result;
+              }));
+    }
+    start.countDown();
+
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(file.getPath())) {
+      for (int t = 0; t < threadNum; t++) {
+        List<TimeseriesMetadata> result = futures.get(t).get();
+        int index = 0;
+        for (int d = 0; d < DEVICE_NUM; d++) {
+          for (int i = 0; i <= MEASUREMENT_NUM; i++) {
+            TimeseriesMetadata timeseriesMetadata = result.get(index++);
+            if (i == MEASUREMENT_NUM) {
+              Assert.assertNull(timeseriesMetadata);
+              continue;
+            }
+            String measurement = "s" + (i + t) % MEASUREMENT_NUM;
+            TimeseriesMetadata expected =
+                reader.readTimeseriesMetadata(new Path("root.sg1.d" + d, measurement), false);
+            Assert.assertEquals(measurement, timeseriesMetadata.getMeasurementId());
+            Assert.assertEquals(expected.getStatistics(), timeseriesMetadata.getStatistics());
+          }
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -37,6 +37,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -261,6 +262,58 @@ public class CompactionTaskComparatorTest {
     }
   }
 
+  /** Test comparation of tasks by the overlapping files they reduce per MB of I/O */
+  @Test
+  public void testCostBasedCompare() throws InterruptedException {
+    IoTDBDescriptor.getInstance().getConfig().setCompactionPriority(CompactionPriority.COST_BASED);
+    long fileSize = 1024L * 1024L;
+    // the two files of this task share all the devices, so the benefit is 10
+    List<TsFileResource> overlappedResources = new ArrayList<>();
+    for (int i = 0; i < 2; ++i) {
+      overlappedResources.add(createResource(i, fileSize, 0, 10, i * 100L));
+    }
+    AbstractCompactionTask overlappedInnerTask =
+        new FakedInnerSpaceCompactionTask(
+            "fakeSg", 0, tsFileManager, taskNum, true, overlappedResources);
+    // the two files of this task have no device in common, so there is no benefit
+    List<TsFileResource> disjointResources = new ArrayList<>();
+    for (int i = 0; i < 2; ++i) {
+      disjointResources.add(createResource(i + 2, fileSize, i * 10, 10, i * 100L));
+    }
+    AbstractCompactionTask disjointInnerTask =
+        new FakedInnerSpaceCompactionTask(
+            "fakeSg", 0, tsFileManager, taskNum, true, disjointResources);
+    // the unsequence file overlaps the sequence file on all the devices, so the benefit is 20
+    AbstractCompactionTask crossTask =
+        new FakeCrossSpaceCompactionTask(
+            "fakeSg",
+            0,
+            tsFileManager,
+            taskNum,
+            Collections.singletonList(createResource(4, fileSize, 0, 10, 0)),
+            Collections.singletonList(createResource(5, fileSize, 0, 10, 50)));
+
+    compactionTaskQueue.put(disjointInnerTask);
+    compactionTaskQueue.put(overlappedInnerTask);
+    compactionTaskQueue.put(crossTask);
+
+    assertTrue(compactionTaskQueue.take() == crossTask);
+    assertTrue(compactionTaskQueue.take() == overlappedInnerTask);
+    assertTrue(compactionTaskQueue.take() == disjointInnerTask);
+  }
+
+  private TsFileResource createResource(
+      int version, long fileSize, int firstDevice, int deviceNum, long startTime) {
+    TsFileResource resource =
+        new FakedTsFileResource(
+            new File(String.format("%d-%d-0-0.tsfile", version, version)), fileSize);
+    for (int i = firstDevice; i < firstDevice + deviceNum; ++i) {
+      resource.updateStartTime("root.fakeSg.d" + i, startTime);
+      resource.updateEndTime("root.fakeSg.d" + i, startTime + 99);
+    }
+    return resource;
+  }
+
   private static class FakedInnerSpaceCompactionTask extends AbstractInnerSpaceCompactionTask {
 
     public FakedInnerSpaceCompactionTask(
@@ -20,6 +20,7 @@ package org.apache.iotdb.db.engine.compaction;
 
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.compaction.utils.CompactionFileGeneratorUtils;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.metadata.IllegalPathException;
@@ -27,18 +28,23 @@ import org.apache.iotdb.db.exception.metadata.MetadataException;
 import org.apache.iotdb.db.metadata.path.AlignedPath;
 import org.apache.iotdb.db.metadata.path.MeasurementPath;
 import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.query.reader.series.SeriesRawDataBatchReader;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.db.utils.QueryUtils;
 import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
 import org.apache.iotdb.tsfile.file.MetaMarker;
 import org.apache.iotdb.tsfile.file.header.ChunkGroupHeader;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.reader.IBatchReader;
 import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.utils.TsFileGeneratorUtils;
@@ -46,6 +52,7 @@ import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
 import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 
+import com.google.common.util.concurrent.RateLimiter;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -3768,6 +3775,57 @@ public class CompactionUtilsTest extends AbstractCompactionTest {
     }
   }
 
+  /** The chunks read by the series readers of a compaction are throttled. */
+  @Test
+  public void testReadRateLimiter() throws Exception {
+    registerTimeseriesInMManger(2, 3, false);
+    createFiles(5, 2, 3, 100, 0, 0, 50, 50, false, true);
+    String device = COMPACTION_TEST_SG + PATH_SEPARATOR + "d0";
+    long expectedReadBytes = 0;
+    for (TsFileResource resource : seqResources) {
+      try (TsFileSequenceReader reader = new TsFileSequenceReader(resource.getTsFilePath())) {
+        for (ChunkMetadata chunkMetadata : reader.getChunkMetadataList(new Path(device, "s0"))) {
+          ChunkHeader header = reader.readMemChunk(chunkMetadata).getHeader();
+          expectedReadBytes += header.getSerializedSize() + header.getDataSize();
+        }
+      }
+    }
+
+    int oldThroughput =
+        IoTDBDescriptor.getInstance().getConfig().getCompactionReadThroughputMbPerSec();
+    IoTDBDescriptor.getInstance().getConfig().setCompactionReadThroughputMbPerSec(1);
+    long queryId = QueryResourceManager.getInstance().assignCompactionQueryId();
+    try {
+      QueryContext queryContext = CompactionUtils.createQueryContext(queryId);
+      RateLimiter rateLimiter = queryContext.getChunkReadRateLimiter();
+      Assert.assertSame(CompactionTaskManager.getInstance().getMergeReadRateLimiter(), rateLimiter);
+      assertEquals(1024 * 1024, rateLimiter.getRate(), 0);
+
+      QueryDataSource queryDataSource = new QueryDataSource(seqResources, unseqResources);
+      QueryUtils.fillOrderIndexes(queryDataSource, device, true);
+      IBatchReader reader =
+          CompactionUtils.constructReader(
+              device,
+              Collections.singletonList("s0"),
+              Collections.singletonList(new MeasurementSchema("s0", TSDataType.INT64)),
+              Collections.singleton("s0"),
+              queryContext,
+              queryDataSource,
+              false);
+      int count = 0;
+      while (reader.hasNextBatch()) {
+        count += reader.nextBatch().length();
+      }
+      reader.close();
+      assertEquals(500, count);
+      // every chunk has gone through the limiter
+      assertEquals(expectedReadBytes, queryContext.getChunkReadBytes());
+    } finally {
+      QueryResourceManager.getInstance().endQuery(queryId);
+      IoTDBDescriptor.getInstance().getConfig().setCompactionReadThroughputMbPerSec(oldThroughput);
+    }
+  }
+
   private void generateModsFile(
       List<String> seriesPaths, List<TsFileResource> resources, long startValue, long endValue)
       throws IllegalPathException, IOException {
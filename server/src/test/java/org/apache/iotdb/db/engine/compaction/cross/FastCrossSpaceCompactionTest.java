@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.compaction.cross;
+
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.compaction.AbstractCompactionTest;
+import org.apache.iotdb.db.engine.compaction.cross.fast.FastCrossSpaceCompactionTask;
+import org.apache.iotdb.db.engine.compaction.utils.CompactionCheckerUtils;
+import org.apache.iotdb.db.engine.compaction.utils.CompactionFileGeneratorUtils;
+import org.apache.iotdb.db.engine.storagegroup.TsFileManager;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.metadata.MetadataException;
+import org.apache.iotdb.db.metadata.path.MeasurementPath;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.service.IoTDB;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
+import org.apache.iotdb.tsfile.common.constant.TsFileConstant;
+import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.TimeValuePair;
+import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.write.schema.IMeasurementSchema;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apache.iotdb.commons.conf.IoTDBConstant.CROSS_COMPACTION_TMP_FILE_SUFFIX;
+import static org.apache.iotdb.commons.conf.IoTDBConstant.PATH_SEPARATOR;
+
+public class FastCrossSpaceCompactionTest extends AbstractCompactionTest {
+
+  private final String oldThreadName = Thread.currentThread().getName();
+
+  @Before
+  public void setUp() throws IOException, WriteProcessException, MetadataException {
+    super.setUp();
+    IoTDBDescriptor.getInstance().getConfig().setTargetChunkSize(1024);
+    TSFileDescriptor.getInstance().getConfig().setMaxNumberOfPointsInPage(30);
+    Thread.currentThread().setName("pool-1-IoTDB-Compaction-1");
+  }
+
+  @After
+  public void tearDown() throws IOException, StorageEngineException {
+    super.tearDown();
+    Thread.currentThread().setName(oldThreadName);
+    FileReaderManager.getInstance().closeAndRemoveAllOpenedReaders();
+  }
+
+  /**
+   * Total 3 seq files and 2 unseq files. Each seq file has d0 ~ d2 and s0 ~ s3 with 300 points.
+   * Unseq files only overlap with a few pages of the seq files, and the second one contains data
+   * later than all seq files.
+   */
+  @Test
+  public void testNonAlignedSeriesWithFewOverlappedPages() throws Exception {
+    registerTimeseries(3, 4);
+    createFiles(3, 3, 4, 300, 0, 0, 50, 50, false, true);
+    createFiles(2, 2, 3, 20, 100, 10100, 1000, 1000, false, false);
+
+    compactAndCheck(3, 4);
+  }
+
+  /** Seq files are modified, so the modified pages must be rewritten even if not overlapped. */
+  @Test
+  public void testNonAlignedSeriesWithModification() throws Exception {
+    registerTimeseries(3, 4);
+    createFiles(3, 3, 4, 300, 0, 0, 50, 50, false, true);
+    createFiles(2, 2, 3, 20, 100, 10100, 1000, 1000, false, false);
+
+    Map<String, Pair<Long, Long>> deletionMap = new HashMap<>();
+    deletionMap.put(
+        COMPACTION_TEST_SG + PATH_SEPARATOR + "d0" + PATH_SEPARATOR + "s0", new Pair<>(400L, 420L));
+    deletionMap.put(
+        COMPACTION_TEST_SG + PATH_SEPARATOR + "d1" + PATH_SEPARATOR + "s1", new Pair<>(0L, 1000L));
+    deletionMap.put(
+        COMPACTION_TEST_SG + PATH_SEPARATOR + "d2" + PATH_SEPARATOR + "s2", new Pair<>(90L, 130L));
+    for (TsFileResource resource : seqResources) {
+      CompactionFileGeneratorUtils.generateMods(deletionMap, resource, false);
+    }
+
+    compactAndCheck(3, 4);
+  }
+
+  /** Every page of the seq files overlaps with unseq data. */
+  @Test
+  public void testNonAlignedSeriesWithAllPagesOverlapped() throws Exception {
+    registerTimeseries(3, 4);
+    createFiles(2, 3, 4, 300, 0, 0, 0, 0, false, true);
+    createFiles(1, 3, 4, 600, 0, 20000, 0, 0, false, false);
+
+    compactAndCheck(3, 4);
+  }
+
+  private void registerTimeseries(int deviceNum, int measurementNum) throws MetadataException {
+    for (int i = 0; i < deviceNum; i++) {
+      for (int j = 0; j < measurementNum; j++) {
+        IoTDB.schemaProcessor.createTimeseries(
+            new PartialPath(COMPACTION_TEST_SG + PATH_SEPARATOR + "d" + i, "s" + j),
+            TSDataType.INT64,
+            TSEncoding.PLAIN,
+            TSFileDescriptor.getInstance().getConfig().getCompressor(),
+            Collections.emptyMap());
+      }
+    }
+  }
+
+  private void compactAndCheck(int deviceNum, int measurementNum) throws Exception {
+    List<PartialPath> fullPaths = new ArrayList<>();
+    List<IMeasurementSchema> schemas = new ArrayList<>();
+    for (int i = 0; i < deviceNum; i++) {
+      for (int j = 0; j < measurementNum; j++) {
+        IMeasurementSchema schema = new MeasurementSchema("s" + j, TSDataType.INT64);
+        fullPaths.add(
+            new MeasurementPath(COMPACTION_TEST_SG + PATH_SEPARATOR + "d" + i, "s" + j, schema));
+        schemas.add(schema);
+      }
+    }
+    Map<PartialPath, List<TimeValuePair>> sourceData =
+        CompactionCheckerUtils.getDataByQuery(fullPaths, schemas, seqResources, unseqResources);
+
+    List<TsFileResource> targetResources =
+        CompactionFileGeneratorUtils.getCrossCompactionTargetTsFileResources(seqResources);
+    TsFileManager tsFileManager =
+        new TsFileManager(COMPACTION_TEST_SG, "0", STORAGE_GROUP_DIR.getPath());
+    tsFileManager.addAll(seqResources, true);
+    tsFileManager.addAll(unseqResources, false);
+    new FastCrossSpaceCompactionTask(
+            COMPACTION_TEST_SG,
+            "0",
+            0,
+            tsFileManager,
+            seqResources,
+            unseqResources,
+            new AtomicInteger(0))
+        .call();
+
+    for (TsFileResource resource : targetResources) {
+      resource.setFile(
+          new File(
+              resource
+                  .getTsFilePath()
+                  .replace(CROSS_COMPACTION_TMP_FILE_SUFFIX, TsFileConstant.TSFILE_SUFFIX)));
+      Assert.assertTrue(resource.getTsFile().exists());
+    }
+    Assert.assertEquals(targetResources.size(), tsFileManager.getTsFileList(true).size());
+    Assert.assertTrue(tsFileManager.getTsFileList(false).isEmpty());
+
+    Map<PartialPath, List<TimeValuePair>> compactedData =
+        CompactionCheckerUtils.getDataByQuery(
+            fullPaths, schemas, targetResources, Collections.emptyList());
+    CompactionCheckerUtils.validDataByValueList(sourceData, compactedData);
+  }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy;
+import org.apache.iotdb.db.exception.StorageEngineException;
+import org.apache.iotdb.db.exception.StorageGroupProcessorException;
+import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Bench the insertion throughput of one virtual storage group with 1, 8 and 64 writer threads, with
+ * and without concurrent insertion. Each writer writes its own device into one of a few time
+ * partitions, so that writers of different partitions only contend on the storage group lock.
+ */
+public class ConcurrentInsertBenchmark {
+
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  private static int[] numOfWorkers = {1, 8, 64};
+  private static int numOfPartition = 8;
+  private static long partitionInterval = 1_000_000_000L;
+  private static int numOfMeasurement = 10;
+  private static int numOfRowPerWorker = 100000;
+
+  private static String storageGroup = "root.bench";
+  private static String systemDir = TestConstant.OUTPUT_DATA_DIR.concat("info");
+  private static String[] measurements = new String[numOfMeasurement];
+
+  static {
+    for (int i = 0; i < numOfMeasurement; i++) {
+      measurements[i] = "s" + i;
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    boolean defaultConcurrentInsert = config.isEnableConcurrentInsert();
+    long defaultPartitionInterval = StorageEngine.getTimePartitionInterval();
+    StorageEngine.setEnablePartition(true);
+    StorageEngine.setTimePartitionInterval(partitionInterval);
+    try {
+      for (int numOfWorker : numOfWorkers) {
+        for (boolean concurrentInsert : new boolean[] {false, true}) {
+          config.setEnableConcurrentInsert(concurrentInsert);
+          long elapsedTime = bench(numOfWorker);
+          long points = (long) numOfWorker * numOfRowPerWorker * numOfMeasurement;
+          System.out.println(
+              String.format(
+                  "Writers: %d, concurrent insert: %s, points: %d, elapsed time: %d ms, "
+                      + "throughput: %.2f points/s",
+                  numOfWorker,
+                  concurrentInsert,
+                  points,
+                  elapsedTime,
+                  points * 1000.0 / Math.max(1, elapsedTime)));
+        }
+      }
+    } finally {
+      config.setEnableConcurrentInsert(defaultConcurrentInsert);
+      StorageEngine.setEnablePartition(config.isEnablePartition());
+      StorageEngine.setTimePartitionInterval(defaultPartitionInterval);
+    }
+  }
+
+  private static long bench(int numOfWorker)
+      throws IOException, InterruptedException, StorageEngineException,
+          StorageGroupProcessorException {
+    EnvironmentUtils.envSetUp();
+    VirtualStorageGroupProcessor processor =
+        new VirtualStorageGroupProcessor(
+            systemDir, "0", new TsFileFlushPolicy.DirectFlushPolicy(), storageGroup);
+    CountDownLatch latch = new CountDownLatch(numOfWorker);
+    long startTime = System.currentTimeMillis();
+    for (int i = 0; i < numOfWorker; i++) {
+      new Worker(processor, i, latch).start();
+    }
+    latch.await();
+    long endTime = System.currentTimeMillis();
+    processor.syncCloseAllWorkingTsFileProcessors();
+    EnvironmentUtils.cleanEnv();
+    EnvironmentUtils.cleanDir(TestConstant.OUTPUT_DATA_DIR);
+    return endTime - startTime;
+  }
+
+  private static class Worker extends Thread {
+
+    private final VirtualStorageGroupProcessor processor;
+    private final String device;
+    private final long partitionStartTime;
+    private final CountDownLatch latch;
+
+    private Worker(VirtualStorageGroupProcessor processor, int index, CountDownLatch latch) {
+      this.processor = processor;
+      this.device = storageGroup + ".d" + index;
+      this.partitionStartTime = (index % numOfPartition) * partitionInterval;
+      this.latch = latch;
+    }
+
+    @Override
+    public void run() {
+      try {
+        for (int i = 0; i < numOfRowPerWorker; i++) {
+          long time = partitionStartTime + i;
+          TSRecord record = new TSRecord(time, device);
+          for (String measurement : measurements) {
+            record.addTuple(new LongDataPoint(measurement, time));
+          }
+          processor.insert(new InsertRowPlan(record));
+        }
+      } catch (Exception e) {
+        e.printStackTrace();
+      } finally {
+        latch.countDown();
+      }
+    }
+  }
+}
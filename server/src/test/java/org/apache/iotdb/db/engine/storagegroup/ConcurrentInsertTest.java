@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy;
+import org.apache.iotdb.db.engine.memtable.IMemTable;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.qp.physical.crud.InsertRowPlan;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetadata;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert into one virtual storage group from many threads with concurrent insertion enabled, while
+ * the memtables keep reaching the flush threshold, and check that no row is lost and that every
+ * full memtable is handed to the flush policy only once.
+ */
+public class ConcurrentInsertTest {
+
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  private static final int numOfWorker = 8;
+  private static final int numOfPartition = 4;
+  private static final long partitionInterval = 1_000_000L;
+  private static final int numOfRowPerWorker = 5000;
+  private static final int avgSeriesPointNumberThreshold = 500;
+  private static final String[] measurements = {"s0", "s1"};
+
+  private final String storageGroup = "root.concurrent";
+  private final String systemDir = TestConstant.OUTPUT_DATA_DIR.concat("info");
+
+  private boolean defaultConcurrentInsert;
+  private boolean defaultEnableIDTable;
+  private boolean defaultEnablePartition;
+  private long defaultPartitionInterval;
+  private int defaultAvgSeriesPointNumberThreshold;
+
+  private VirtualStorageGroupProcessor processor;
+  private CountingFlushPolicy flushPolicy;
+
+  @Before
+  public void setUp() throws Exception {
+    defaultConcurrentInsert = config.isEnableConcurrentInsert();
+    defaultEnableIDTable = config.isEnableIDTable();
+    defaultEnablePartition = config.isEnablePartition();
+    defaultPartitionInterval = StorageEngine.getTimePartitionInterval();
+    defaultAvgSeriesPointNumberThreshold = config.getAvgSeriesPointNumberThreshold();
+
+    config.setEnableConcurrentInsert(true);
+    config.setEnableIDTable(false);
+    config.setAvgSeriesPointNumberThreshold(avgSeriesPointNumberThreshold);
+    EnvironmentUtils.envSetUp();
+    StorageEngine.setEnablePartition(true);
+    StorageEngine.setTimePartitionInterval(partitionInterval);
+
+    flushPolicy = new CountingFlushPolicy();
+    processor = new VirtualStorageGroupProcessor(systemDir, "0", flushPolicy, storageGroup);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    processor.syncDeleteDataFiles();
+    EnvironmentUtils.cleanEnv();
+    EnvironmentUtils.cleanDir(TestConstant.OUTPUT_DATA_DIR);
+
+    config.setEnableConcurrentInsert(defaultConcurrentInsert);
+    config.setEnableIDTable(defaultEnableIDTable);
+    config.setAvgSeriesPointNumberThreshold(defaultAvgSeriesPointNumberThreshold);
+    StorageEngine.setEnablePartition(defaultEnablePartition);
+    StorageEngine.setTimePartitionInterval(defaultPartitionInterval);
+  }
+
+  @Test
+  public void testConcurrentInsertAndFlush() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(numOfWorker);
+    CountDownLatch startLatch = new CountDownLatch(1);
+    List<Future<Void>> futures = new ArrayList<>();
+    try {
+      for (int i = 0; i < numOfWorker; i++) {
+        futures.add(pool.submit(new Worker(i, startLatch)));
+      }
+      startLatch.countDown();
+      // rethrow any failure of the writers
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    processor.syncCloseAllWorkingTsFileProcessors();
+
+    // each worker alone fills several memtables of the partition it shares with another worker
+    Assert.assertTrue(
+        "flush count: " + flushPolicy.getFlushCount(),
+        flushPolicy.getFlushCount() >= numOfPartition);
+    Assert.assertTrue(flushPolicy.getDuplicatedFlushes().toString(), flushPolicy.isFlushedOnce());
+
+    for (int i = 0; i < numOfWorker; i++) {
+      for (String measurement : measurements) {
+        Assert.assertEquals(
+            getDevice(i) + "." + measurement,
+            numOfRowPerWorker,
+            countPoints(new Path(getDevice(i), measurement)));
+      }
+    }
+  }
+
+  @Test
+  public void testQueryNotBlockedByInsertLock() throws Exception {
+    TSRecord record = new TSRecord(1, getDevice(0));
+    record.addTuple(new LongDataPoint(measurements[0], 1));
+    processor.insert(new InsertRowPlan(record));
+    TsFileProcessor tsFileProcessor = processor.getWorkSequenceTsFileProcessors().iterator().next();
+
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    CountDownLatch lockedLatch = new CountDownLatch(1);
+    CountDownLatch releaseLatch = new CountDownLatch(1);
+    try {
+      pool.submit(
+          () -> {
+            tsFileProcessor.insertLock();
+            try {
+              lockedLatch.countDown();
+              releaseLatch.await();
+            } finally {
+              tsFileProcessor.insertUnlock();
+            }
+            return null;
+          });
+      Assert.assertTrue(lockedLatch.await(10, TimeUnit.SECONDS));
+
+      // an insertion in progress must neither block queries nor flushes of the processor
+      QueryDataSource queryDataSource =
+          processor.query(
+              Collections.singletonList(new PartialPath(getDevice(0), measurements[0])),
+              getDevice(0),
+              EnvironmentUtils.TEST_QUERY_CONTEXT,
+              null,
+              null);
+      Assert.assertEquals(1, queryDataSource.getSeqResources().size());
+      tsFileProcessor.syncFlush();
+      Assert.assertNull(tsFileProcessor.getWorkMemTable());
+    } finally {
+      releaseLatch.countDown();
+      pool.shutdown();
+    }
+  }
+
+  private long countPoints(Path path) throws Exception {
+    long count = 0;
+    List<TsFileResource> resources = new ArrayList<>(processor.getSequenceFileList());
+    resources.addAll(processor.getUnSequenceFileList());
+    for (TsFileResource resource : resources) {
+      Assert.assertTrue(resource.isClosed());
+      TsFileSequenceReader reader =
+          FileReaderManager.getInstance().get(resource.getTsFilePath(), true);
+      for (ChunkMetadata chunkMetadata : reader.getChunkMetadataList(path, true)) {
+        count += chunkMetadata.getStatistics().getCount();
+      }
+    }
+    return count;
+  }
+
+  private String getDevice(int index) {
+    return storageGroup + ".d" + index;
+  }
+
+  private class Worker implements Callable<Void> {
+
+    private final String device;
+    private final long partitionStartTime;
+    private final CountDownLatch startLatch;
+
+    private Worker(int index, CountDownLatch startLatch) {
+      this.device = getDevice(index);
+      this.partitionStartTime = (index % numOfPartition) * partitionInterval;
+      this.startLatch = startLatch;
+    }
+
+    @Override
+    public Void call() throws Exception {
+      startLatch.await();
+      for (int i = 0; i < numOfRowPerWorker; i++) {
+        long time = partitionStartTime + i;
+        TSRecord record = new TSRecord(time, device);
+        for (String measurement : measurements) {
+          record.addTuple(new LongDataPoint(measurement, time));
+        }
+        processor.insert(new InsertRowPlan(record));
+      }
+      return null;
+    }
+  }
+
+  /** Flush directly, remembering which memtables the policy was applied to. */
+  private static class CountingFlushPolicy extends TsFileFlushPolicy.DirectFlushPolicy {
+
+    private final Set<IMemTable> flushedMemTables =
+        Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<IMemTable> duplicatedFlushes = new ArrayList<>();
+    private int flushCount = 0;
+
+    @Override
+    public void apply(
+        VirtualStorageGroupProcessor virtualStorageGroupProcessor,
+        TsFileProcessor tsFileProcessor,
+        boolean isSeq) {
+      synchronized (this) {
+        flushCount++;
+        IMemTable memTable = tsFileProcessor.getWorkMemTable();
+        if (!flushedMemTables.add(memTable)) {
+          duplicatedFlushes.add(memTable);
+        }
+      }
+      super.apply(virtualStorageGroupProcessor, tsFileProcessor, isSeq);
+    }
+
+    private synchronized int getFlushCount() {
+      return flushCount;
+    }
+
+    private synchronized boolean isFlushedOnce() {
+      return duplicatedFlushes.isEmpty();
+    }
+
+    private synchronized List<IMemTable> getDuplicatedFlushes() {
+      return new ArrayList<>(duplicatedFlushes);
+    }
+  }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.protocol.influxdb.input;
+
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import org.influxdb.InfluxDBException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+public class InfluxLineBatchParserTest {
+
+  private final List<String> measurements = new ArrayList<>();
+  private final List<Map<String, String>> tagsList = new ArrayList<>();
+
+  private List<InsertTabletPlan> parse(String records) throws IllegalPathException {
+    InfluxLineBatchParser parser =
+        new InfluxLineBatchParser(
+            TimeUnit.NANOSECONDS,
+            (measurement, tags) -> {
+              measurements.add(measurement);
+              tagsList.add(tags);
+              StringBuilder path = new StringBuilder("root.influx.").append(measurement);
+              for (Map.Entry<String, String> tag : new TreeMap<>(tags).entrySet()) {
+                path.append('.').append(tag.getValue());
+              }
+              return path.toString().replaceAll("[^\\w.]", "_");
+            });
+    parser.parse(ByteBuffer.wrap(records.getBytes(StandardCharsets.UTF_8)));
+    return parser.getInsertTabletPlans();
+  }
+
+  @Test
+  public void parseToTabletsTest() throws IllegalPathException {
+    String records =
+        "student,name=xie,sex=m country=\"china\",score=87.0,tel=\"110\" 1635177018815000000\n"
+            + "cpu,name=xie country=\"china\",score=100.0 1635187018815000000\n"
+            + "student,sex=m,name=xie country=\"china\",score=87i,tel=990i 1635187018815000000";
+    // the type of score and tel conflicts in the same batch
+    try {
+      parse(records);
+      Assert.fail();
+    } catch (InfluxDBException e) {
+      Assert.assertTrue(e.getMessage().contains("conflict"));
+    }
+
+    records =
+        "student,name=xie,sex=m country=\"china\",score=87.0,tel=\"110\" 1635177018815000000\n"
+            + "cpu,name=xie country=\"china\",score=100.0 1635187018815000000\n"
+            + "student,sex=m,name=xie score=-1.5e2,online=true 1635167018815000000\n";
+    List<InsertTabletPlan> plans = parse(records);
+    Assert.assertEquals(2, plans.size());
+
+    InsertTabletPlan student = plans.get(0);
+    Assert.assertEquals("root.influx.student.xie.m", student.getDevicePath().getFullPath());
+    Assert.assertEquals(2, student.getRowCount());
+    Assert.assertArrayEquals(
+        new String[] {"country", "score", "tel", "online"}, student.getMeasurements());
+    Assert.assertArrayEquals(
+        new TSDataType[] {TSDataType.TEXT, TSDataType.DOUBLE, TSDataType.TEXT, TSDataType.TEXT},
+        student.getDataTypes());
+    // the rows are sorted by time
+    Assert.assertArrayEquals(new long[] {1635167018815L, 1635177018815L}, student.getTimes());
+    double[] scores = (double[]) student.getColumns()[1];
+    Assert.assertEquals(-150.0, scores[0], 0);
+    Assert.assertEquals(87.0, scores[1], 0);
+    Assert.assertEquals(new Binary("true"), ((Binary[]) student.getColumns()[3])[0]);
+    Assert.assertTrue(student.getBitMaps()[0].isMarked(0));
+    Assert.assertFalse(student.getBitMaps()[0].isMarked(1));
+    Assert.assertFalse(student.getBitMaps()[3].isMarked(0));
+    Assert.assertTrue(student.getBitMaps()[3].isMarked(1));
+
+    InsertTabletPlan cpu = plans.get(1);
+    Assert.assertEquals("root.influx.cpu.xie", cpu.getDevicePath().getFullPath());
+    Assert.assertEquals(1, cpu.getRowCount());
+    Assert.assertNull(cpu.getBitMaps());
+    Assert.assertEquals(new Binary("china"), ((Binary[]) cpu.getColumns()[0])[0]);
+  }
+
+  @Test
+  public void parseEscapeTest() throws IllegalPathException {
+    String records =
+        "# comment\n"
+            + "disk\\ io,path=/a\\,b\\ c read\\=bytes=12i,note=\"say \\\"hi\\\"\" 1000000\r\n"
+            + "\n"
+            + "disk\\ io,path=/a\\,b\\ c read\\=bytes=-9223372036854775808i 2000000\n";
+    List<InsertTabletPlan> plans = parse(records);
+    Assert.assertEquals(1, plans.size());
+    Assert.assertEquals(Collections.singletonList("disk io"), measurements);
+    Assert.assertEquals(Collections.singletonMap("path", "/a,b c"), tagsList.get(0));
+    InsertTabletPlan plan = plans.get(0);
+    Assert.assertEquals("root.influx.disk_io._a_b_c", plan.getDevicePath().getFullPath());
+    Assert.assertArrayEquals(new String[] {"read=bytes", "note"}, plan.getMeasurements());
+    Assert.assertArrayEquals(new long[] {1L, 2L}, plan.getTimes());
+    Assert.assertArrayEquals(new long[] {12L, Long.MIN_VALUE}, (long[]) plan.getColumns()[0]);
+    Assert.assertEquals(new Binary("say \"hi\""), ((Binary[]) plan.getColumns()[1])[0]);
+  }
+
+  @Test
+  public void parseNumberTest() throws IllegalPathException {
+    String[] values = {
+      "0",
+      "1",
+      "-0.5",
+      "3.141592653589793",
+      "1e10",
+      "6.02214076E23",
+      "1.7976931348623157e308",
+      "4.9e-324",
+      "123456789012345678901234567890",
+      ".5",
+      "+2.5"
+    };
+    StringBuilder records = new StringBuilder();
+    for (int i = 0; i < values.length; i++) {
+      records.append("m v=").append(values[i]).append(' ').append(i).append("000000\n");
+    }
+    double[] parsed = (double[]) parse(records.toString()).get(0).getColumns()[0];
+    for (int i = 0; i < values.length; i++) {
+      Assert.assertEquals(Double.parseDouble(values[i]), parsed[i], 0);
+    }
+
+    String[] invalidRecords = {"m v=1.2.3", "m v=abc", "m v=9223372036854775808i", "m", "m v="};
+    for (String invalidRecord : invalidRecords) {
+      try {
+        parse(invalidRecord);
+        Assert.fail(invalidRecord);
+      } catch (InfluxDBException e) {
+        Assert.assertTrue(e.getMessage().startsWith("Unable to parse line 1"));
+      }
+    }
+  }
+}
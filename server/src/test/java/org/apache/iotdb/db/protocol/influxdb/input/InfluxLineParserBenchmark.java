@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.protocol.influxdb.input;
+
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Line protocol parse benchmark. It compares the lines/s of {@link InfluxLineParser} and {@link
+ * InfluxLineBatchParser} on payloads like the ones the cpu, mem, disk and net input plugins of
+ * Telegraf send.
+ */
+public class InfluxLineParserBenchmark {
+
+  private static int numOfHost = 10;
+  private static int numOfInterval = 100;
+  private static int numOfWarmUpRound = 10;
+  private static int numOfRound = 20;
+
+  public static void main(String[] args) throws IllegalPathException {
+    String payload = generateTelegrafPayload();
+    byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+    int numOfLine = payload.split("\n").length;
+
+    // warm up
+    for (int i = 0; i < numOfWarmUpRound; i++) {
+      InfluxLineParser.parserRecordsToPoints(payload);
+      parseInBatch(bytes);
+    }
+
+    long startTime = System.nanoTime();
+    for (int i = 0; i < numOfRound; i++) {
+      InfluxLineParser.parserRecordsToPoints(payload);
+    }
+    long pointParserTime = System.nanoTime() - startTime;
+
+    startTime = System.nanoTime();
+    for (int i = 0; i < numOfRound; i++) {
+      parseInBatch(bytes);
+    }
+    long batchParserTime = System.nanoTime() - startTime;
+
+    System.out.println(
+        String.format(
+            "Num of lines: %d, payload size: %d bytes, rounds: %d",
+            numOfLine, bytes.length, numOfRound));
+    System.out.println(
+        String.format(
+            "InfluxLineParser: %.0f lines/s",
+            (double) numOfLine * numOfRound / pointParserTime * 1e9));
+    System.out.println(
+        String.format(
+            "InfluxLineBatchParser: %.0f lines/s",
+            (double) numOfLine * numOfRound / batchParserTime * 1e9));
+  }
+
+  private static void parseInBatch(byte[] bytes) throws IllegalPathException {
+    InfluxLineBatchParser parser =
+        new InfluxLineBatchParser(
+            TimeUnit.NANOSECONDS,
+            (measurement, tags) ->
+                "root.telegraf." + measurement + "." + tags.get("host").replace('-', '_'));
+    parser.parse(ByteBuffer.wrap(bytes));
+    parser.getInsertTabletPlans();
+  }
+
+  private static String generateTelegrafPayload() {
+    Random random = new Random(0);
+    StringBuilder builder = new StringBuilder();
+    long time = 1650000000000000000L;
+    for (int i = 0; i < numOfInterval; i++, time += 10_000_000_000L) {
+      for (int h = 0; h < numOfHost; h++) {
+        String host = "host-" + h;
+        for (int c = 0; c < 4; c++) {
+          builder
+              .append("cpu,cpu=cpu")
+              .append(c)
+              .append(",host=")
+              .append(host)
+              .append(" usage_guest=0,usage_guest_nice=0,usage_idle=")
+              .append(80 + random.nextDouble() * 20)
+              .append(",usage_iowait=")
+              .append(random.nextDouble())
+              .append(",usage_irq=0,usage_nice=0,usage_softirq=")
+              .append(random.nextDouble() / 10)
+              .append(",usage_steal=0,usage_system=")
+              .append(random.nextDouble() * 5)
+              .append(",usage_user=")
+              .append(random.nextDouble() * 15)
+              .append(' ')
+              .append(time)
+              .append('\n');
+        }
+        builder
+            .append("mem,host=")
+            .append(host)
+            .append(" active=")
+            .append(4_000_000_000L + random.nextInt(100_000_000))
+            .append("i,available=")
+            .append(8_000_000_000L + random.nextInt(100_000_000))
+            .append("i,available_percent=")
+            .append(40 + random.nextDouble() * 10)
+            .append(",buffered=")
+            .append(random.nextInt(500_000_000))
+            .append("i,cached=")
+            .append(random.nextInt(2_000_000_000))
+            .append("i,free=")
+            .append(random.nextInt(1_000_000_000))
+            .append("i,total=17179869184i,used=")
+            .append(8_000_000_000L + random.nextInt(100_000_000))
+            .append("i,used_percent=")
+            .append(50 + random.nextDouble() * 10)
+            .append(' ')
+            .append(time)
+            .append('\n');
+        builder
+            .append("disk,device=sda1,fstype=ext4,host=")
+            .append(host)
+            .append(",mode=rw,path=/ free=")
+            .append(100_000_000_000L + random.nextInt(1_000_000_000))
+            .append("i,inodes_free=")
+            .append(6_000_000 + random.nextInt(100_000))
+            .append("i,inodes_total=6553600i,inodes_used=")
+            .append(random.nextInt(500_000))
+            .append("i,total=105089261568i,used=")
+            .append(random.nextInt(1_000_000_000))
+            .append("i,used_percent=")
+            .append(random.nextDouble() * 5)
+            .append(' ')
+            .append(time)
+            .append('\n');
+        builder
+            .append("net,host=")
+            .append(host)
+            .append(",interface=eth0 bytes_recv=")
+            .append(i * 1_000_000L + random.nextInt(1_000_000))
+            .append("i,bytes_sent=")
+            .append(i * 500_000L + random.nextInt(500_000))
+            .append("i,drop_in=0i,drop_out=0i,err_in=0i,err_out=0i,packets_recv=")
+            .append(i * 1_000L + random.nextInt(1_000))
+            .append("i,packets_sent=")
+            .append(i * 800L + random.nextInt(800))
+            .append("i ")
+            .append(time)
+            .append('\n');
+      }
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.iotdb.db.protocol.mqtt;
+
+import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DeviceMessageBatchTest {
+
+  private static final String DEVICE = "root.sg.d1";
+
+  @Before
+  public void setUp() {
+    EnvironmentUtils.envSetUp();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testSortRows() throws Exception {
+    DeviceMessageBatch batch = new DeviceMessageBatch(DEVICE, 1, 0);
+    batch.add(message(3, new String[] {"s1"}, new String[] {"c"}));
+    batch.add(message(1, new String[] {"s1"}, new String[] {"a"}));
+    batch.add(message(2, new String[] {"s1"}, new String[] {"b"}));
+    batch.add(message(1, new String[] {"s1"}, new String[] {"d"}));
+    assertEquals(4, batch.getRowCount());
+
+    InsertTabletPlan plan = batch.toInsertTabletPlan();
+    assertEquals(DEVICE, plan.getDevicePath().getFullPath());
+    assertEquals(4, plan.getRowCount());
+    assertArrayEquals(new long[] {1, 1, 2, 3}, plan.getTimes());
+    assertArrayEquals(new TSDataType[] {TSDataType.TEXT}, plan.getDataTypes());
+    // the sort is stable, so the later row of the same timestamp stays behind
+    assertArrayEquals(
+        new Binary[] {new Binary("a"), new Binary("d"), new Binary("b"), new Binary("c")},
+        (Binary[]) plan.getColumns()[0]);
+    assertNull(plan.getBitMaps());
+  }
+
+  @Test
+  public void testMissingValues() throws Exception {
+    DeviceMessageBatch batch = new DeviceMessageBatch(DEVICE, 1, 0);
+    batch.add(message(1, new String[] {"s1"}, new String[] {"true"}));
+    batch.add(message(2, new String[] {"s2"}, new String[] {"x"}));
+    batch.add(message(3, new String[] {"s1", "s2"}, new String[] {"false", "y"}));
+    // the values of a row with unequal measurements and values are ignored
+    batch.add(message(4, new String[] {"s1", "s2"}, new String[] {"true"}));
+    assertEquals(3, batch.getRowCount());
+
+    InsertTabletPlan plan = batch.toInsertTabletPlan();
+    assertArrayEquals(new String[] {"s1", "s2"}, plan.getMeasurements());
+    assertArrayEquals(new TSDataType[] {TSDataType.BOOLEAN, TSDataType.TEXT}, plan.getDataTypes());
+    assertArrayEquals(new long[] {1, 2, 3}, plan.getTimes());
+
+    boolean[] s1 = (boolean[]) plan.getColumns()[0];
+    assertTrue(s1[0]);
+    assertFalse(s1[2]);
+    assertFalse(plan.getBitMaps()[0].isMarked(0));
+    assertTrue(plan.getBitMaps()[0].isMarked(1));
+    assertFalse(plan.getBitMaps()[0].isMarked(2));
+
+    Binary[] s2 = (Binary[]) plan.getColumns()[1];
+    assertEquals(new Binary("x"), s2[1]);
+    assertEquals(new Binary("y"), s2[2]);
+    assertTrue(plan.getBitMaps()[1].isMarked(0));
+    assertFalse(plan.getBitMaps()[1].isMarked(1));
+    assertFalse(plan.getBitMaps()[1].isMarked(2));
+  }
+
+  @Test
+  public void testUnparseableValues() throws Exception {
+    DeviceMessageBatch batch = new DeviceMessageBatch(DEVICE, 1, 0);
+    // the type is inferred from the first value, the values of other types become nulls
+    batch.add(message(1, new String[] {"s1"}, new String[] {"true"}));
+    batch.add(message(2, new String[] {"s1"}, new String[] {"abc"}));
+    batch.add(message(3, new String[] {"s1", "s1"}, new String[] {"abc", "false"}));
+
+    InsertTabletPlan plan = batch.toInsertTabletPlan();
+    assertArrayEquals(new TSDataType[] {TSDataType.BOOLEAN}, plan.getDataTypes());
+    assertFalse(plan.getBitMaps()[0].isMarked(0));
+    assertTrue(plan.getBitMaps()[0].isMarked(1));
+    // the last value of a duplicated measurement wins
+    assertFalse(plan.getBitMaps()[0].isMarked(2));
+    assertFalse(((boolean[]) plan.getColumns()[0])[2]);
+  }
+
+  @Test
+  public void testAllNull() throws Exception {
+    DeviceMessageBatch batch = new DeviceMessageBatch(DEVICE, 1, 0);
+    batch.add(message(1, new String[] {"s1"}, new String[] {null}));
+    batch.add(message(2, new String[] {"s1"}, new String[] {null}));
+    assertEquals(2, batch.getRowCount());
+    assertNull(batch.toInsertTabletPlan());
+  }
+
+  static Message message(long time, String[] measurements, String[] values) {
+    Message message = new Message();
+    message.setDevice(DEVICE);
+    message.setTimestamp(time);
+    message.setMeasurements(Arrays.asList(measurements));
+    message.setValues(Arrays.asList(values));
+    return message;
+  }
+}
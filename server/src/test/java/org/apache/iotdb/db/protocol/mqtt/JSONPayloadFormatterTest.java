@@ -22,8 +22,10 @@ import io.netty.buffer.Unpooled;
 import org.junit.Test;
 
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 public class JSONPayloadFormatterTest {
 
@@ -68,4 +70,39 @@ public class JSONPayloadFormatterTest {
     assertEquals("s2", message.getMeasurements().get(1));
     assertEquals(0.530695D, Double.parseDouble(message.getValues().get(1)), 0);
   }
+
+  @Test
+  public void formatJsonArray() {
+    String payload =
+        "[\n"
+            + "  {\n"
+            + "      \"device\":\"root.sg.d1\",\n"
+            + "      \"timestamp\":1586076045524,\n"
+            + "      \"measurements\":[\"s1\",\"s2\",\"s3\"],\n"
+            + "      \"values\":[0.530635,true,null]\n"
+            + "  },\n"
+            + "  {\n"
+            + "      \"values\":[[\"a\"], [\"b\"]],\n"
+            + "      \"measurements\":[\"s4\"],\n"
+            + "      \"timestamps\":[1586076045525,1586076065526],\n"
+            + "      \"device\":\"root.sg.d2\"\n"
+            + "  }\n"
+            + "]";
+
+    ByteBuf buf = Unpooled.copiedBuffer(payload, StandardCharsets.UTF_8);
+
+    JSONPayloadFormatter formatter = new JSONPayloadFormatter();
+    List<Message> messages = formatter.format(buf);
+
+    assertEquals(3, messages.size());
+    assertEquals("0.530635", messages.get(0).getValues().get(0));
+    assertEquals("true", messages.get(0).getValues().get(1));
+    assertNull(messages.get(0).getValues().get(2));
+    assertEquals("root.sg.d2", messages.get(2).getDevice());
+    assertEquals(Long.valueOf(1586076065526L), messages.get(2).getTimestamp());
+    assertEquals("s4", messages.get(2).getMeasurements().get(0));
+    assertEquals("b", messages.get(2).getValues().get(0));
+    // the payload is not consumed
+    assertEquals(payload.length(), buf.readableBytes());
+  }
 }
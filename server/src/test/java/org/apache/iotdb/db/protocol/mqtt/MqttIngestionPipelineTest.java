@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.iotdb.db.protocol.mqtt;
+
+import org.apache.iotdb.db.qp.physical.crud.InsertTabletPlan;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.rpc.RpcUtils;
+import org.apache.iotdb.rpc.TSStatusCode;
+import org.apache.iotdb.service.rpc.thrift.TSStatus;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MqttIngestionPipelineTest {
+
+  private final PayloadFormatter payloadFormat = PayloadFormatManager.getPayloadFormat("json");
+
+  /** the inserted plans and the sessions they are inserted with */
+  private final List<InsertTabletPlan> plans = Collections.synchronizedList(new ArrayList<>());
+
+  private final List<Long> sessionIds = Collections.synchronizedList(new ArrayList<>());
+
+  @Before
+  public void setUp() {
+    EnvironmentUtils.envSetUp();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testBatchSize() throws Exception {
+    MqttIngestionPipeline pipeline = new RecordingPipeline(2, 3, Long.MAX_VALUE / 2);
+    try {
+      for (int i = 0; i < 7; i++) {
+        pipeline.submit("c1", payload("root.sg.d1", i), 1);
+      }
+      pipeline.flush();
+      assertEquals(3, plans.size());
+      assertEquals(3, plans.get(0).getRowCount());
+      assertEquals(3, plans.get(1).getRowCount());
+      assertEquals(1, plans.get(2).getRowCount());
+      // the messages of a client are inserted in order
+      assertEquals(0, plans.get(0).getTimes()[0]);
+      assertEquals(3, plans.get(1).getTimes()[0]);
+      assertEquals(6, plans.get(2).getTimes()[0]);
+    } finally {
+      pipeline.close();
+    }
+  }
+
+  @Test
+  public void testMaxDelay() throws Exception {
+    CountDownLatch inserted = new CountDownLatch(1);
+    MqttIngestionPipeline pipeline =
+        new RecordingPipeline(1, 1000, 50) {
+          @Override
+          protected TSStatus executeInsert(InsertTabletPlan plan, long sessionId) {
+            TSStatus status = super.executeInsert(plan, sessionId);
+            inserted.countDown();
+            return status;
+          }
+        };
+    try {
+      pipeline.submit("c1", payload("root.sg.d1", 1), 1);
+      pipeline.submit("c1", payload("root.sg.d1", 2), 1);
+      // inserted without being flushed
+      assertTrue(inserted.await(10, TimeUnit.SECONDS));
+      assertEquals(1, plans.size());
+      assertEquals(2, plans.get(0).getRowCount());
+    } finally {
+      pipeline.close();
+    }
+  }
+
+  @Test
+  public void testSessionChange() throws Exception {
+    MqttIngestionPipeline pipeline = new RecordingPipeline(1, 1000, Long.MAX_VALUE / 2);
+    try {
+      pipeline.submit("c1", payload("root.sg.d1", 1), 1);
+      pipeline.submit("c2", payload("root.sg.d1", 2), 2);
+      pipeline.flush();
+      // the rows of different sessions are never inserted together
+      assertEquals(2, plans.size());
+      assertEquals(1L, (long) sessionIds.get(0));
+      assertEquals(1, plans.get(0).getTimes()[0]);
+      assertEquals(2L, (long) sessionIds.get(1));
+      assertEquals(2, plans.get(1).getTimes()[0]);
+    } finally {
+      pipeline.close();
+    }
+  }
+
+  @Test
+  public void testClientFlush() throws Exception {
+    MqttIngestionPipeline pipeline = new RecordingPipeline(1, 1000, Long.MAX_VALUE / 2);
+    try {
+      pipeline.submit("c1", payload("root.sg.d1", 1), 1);
+      pipeline.submit("c2", payload("root.sg.d2", 2), 2);
+
+      CountDownLatch flushed = new CountDownLatch(1);
+      List<Long> flushedSessionIds = new ArrayList<>();
+      pipeline.flush(
+          "c1",
+          1,
+          () -> {
+            flushedSessionIds.addAll(sessionIds);
+            flushed.countDown();
+          });
+      assertTrue(flushed.await(10, TimeUnit.SECONDS));
+      // only the rows of the disconnected client are inserted
+      assertEquals(Collections.singletonList(1L), flushedSessionIds);
+
+      pipeline.flush();
+      assertEquals(2, plans.size());
+      assertEquals(2L, (long) sessionIds.get(1));
+    } finally {
+      pipeline.close();
+    }
+  }
+
+  @Test
+  public void testFlushAfterClose() throws Exception {
+    MqttIngestionPipeline pipeline = new RecordingPipeline(1, 1000, Long.MAX_VALUE / 2);
+    pipeline.submit("c1", payload("root.sg.d1", 1), 1);
+    pipeline.close();
+    assertEquals(1, plans.size());
+
+    AtomicInteger callbackNum = new AtomicInteger();
+    pipeline.flush("c1", 1, callbackNum::incrementAndGet);
+    assertEquals(1, callbackNum.get());
+  }
+
+  @Test
+  public void testRetryRejected() throws Exception {
+    AtomicInteger attemptNum = new AtomicInteger();
+    MqttIngestionPipeline pipeline =
+        new RecordingPipeline(1, 1000, Long.MAX_VALUE / 2) {
+          @Override
+          protected TSStatus executeInsert(InsertTabletPlan plan, long sessionId) {
+            if (attemptNum.incrementAndGet() <= 2) {
+              return RpcUtils.getStatus(TSStatusCode.WRITE_PROCESS_REJECT);
+            }
+            return super.executeInsert(plan, sessionId);
+          }
+        };
+    try {
+      pipeline.submit("c1", payload("root.sg.d1", 1), 1);
+      pipeline.flush();
+      assertEquals(3, attemptNum.get());
+      assertEquals(1, plans.size());
+      assertEquals(0, pipeline.getDroppedRowCount());
+    } finally {
+      pipeline.close();
+    }
+  }
+
+  @Test
+  public void testDropWhenQueueFull() throws Exception {
+    CountDownLatch inserting = new CountDownLatch(1);
+    CountDownLatch blocked = new CountDownLatch(1);
+    MqttIngestionPipeline pipeline =
+        new RecordingPipeline(1, 1, 1, Long.MAX_VALUE / 2) {
+          @Override
+          protected TSStatus executeInsert(InsertTabletPlan plan, long sessionId) {
+            inserting.countDown();
+            try {
+              blocked.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+            return super.executeInsert(plan, sessionId);
+          }
+        };
+    try {
+      assertTrue(pipeline.submit("c1", payload("root.sg.d1", 1), 1));
+      assertTrue(inserting.await(10, TimeUnit.SECONDS));
+      // the worker is busy, so the second message fills the queue and the third one is dropped
+      assertTrue(pipeline.submit("c1", payload("root.sg.d1", 2), 1));
+      assertFalse(pipeline.submit("c1", payload("root.sg.d1", 3), 1));
+      assertEquals(1, pipeline.getDroppedMessageCount());
+
+      blocked.countDown();
+      pipeline.flush();
+      assertEquals(2, plans.size());
+    } finally {
+      blocked.countDown();
+      pipeline.close();
+    }
+  }
+
+  @Test
+  public void testDropRejected() throws Exception {
+    AtomicInteger attemptNum = new AtomicInteger();
+    MqttIngestionPipeline pipeline =
+        new RecordingPipeline(1, 1000, Long.MAX_VALUE / 2) {
+          @Override
+          protected TSStatus executeInsert(InsertTabletPlan plan, long sessionId) {
+            attemptNum.incrementAndGet();
+            return RpcUtils.getStatus(TSStatusCode.WRITE_PROCESS_REJECT);
+          }
+        };
+    try {
+      pipeline.submit("c1", payload("root.sg.d1", 1), 1);
+      pipeline.submit("c1", payload("root.sg.d1", 2), 1);
+      pipeline.flush();
+      assertEquals(4, attemptNum.get());
+      assertEquals(2, pipeline.getDroppedRowCount());
+
+      // the retries are counted per batch
+      pipeline.submit("c1", payload("root.sg.d2", 3), 1);
+      pipeline.flush();
+      assertEquals(8, attemptNum.get());
+      assertEquals(3, pipeline.getDroppedRowCount());
+    } finally {
+      pipeline.close();
+    }
+  }
+
+  @Test
+  public void testDropFailed() throws Exception {
+    AtomicInteger attemptNum = new AtomicInteger();
+    MqttIngestionPipeline pipeline =
+        new RecordingPipeline(1, 1000, Long.MAX_VALUE / 2) {
+          @Override
+          protected TSStatus executeInsert(InsertTabletPlan plan, long sessionId) {
+            attemptNum.incrementAndGet();
+            return RpcUtils.getStatus(TSStatusCode.NO_PERMISSION_ERROR);
+          }
+        };
+    try {
+      pipeline.submit("c1", payload("root.sg.d1", 1), 1);
+      pipeline.flush();
+      // the failures other than the rejection are not retried
+      assertEquals(1, attemptNum.get());
+      assertEquals(1, pipeline.getDroppedRowCount());
+    } finally {
+      pipeline.close();
+    }
+  }
+
+  private ByteBuf payload(String device, long time) {
+    String payload =
+        "{\"device\":\""
+            + device
+            + "\",\"timestamp\":"
+            + time
+            + ",\"measurements\":[\"s1\"],\"values\":[\""
+            + time
+            + "\"]}";
+    return Unpooled.copiedBuffer(payload, StandardCharsets.UTF_8);
+  }
+
+  private class RecordingPipeline extends MqttIngestionPipeline {
+
+    private RecordingPipeline(int workerNum, int batchSize, long maxDelayInMs) {
+      this(workerNum, 100, batchSize, maxDelayInMs);
+    }
+
+    private RecordingPipeline(int workerNum, int queueSize, int batchSize, long maxDelayInMs) {
+      super(payloadFormat, workerNum, queueSize, 10, batchSize, maxDelayInMs);
+    }
+
+    @Override
+    protected TSStatus executeInsert(InsertTabletPlan plan, long sessionId) {
+      plans.add(plan);
+      sessionIds.add(sessionId);
+      return null;
+    }
+  }
+}
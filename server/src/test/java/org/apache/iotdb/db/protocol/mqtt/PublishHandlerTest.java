@@ -84,6 +84,7 @@ public class PublishHandlerTest {
     InterceptDisconnectMessage interceptDisconnectMessage =
         new InterceptDisconnectMessage(null, null);
     handler.onDisconnect(interceptDisconnectMessage);
+    handler.close();
 
     String[] retArray = new String[] {"1586076045524,0.530635,"};
 
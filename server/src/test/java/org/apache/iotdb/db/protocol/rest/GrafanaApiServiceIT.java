@@ -18,6 +18,8 @@
  */
 package org.apache.iotdb.db.protocol.rest;
 
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -344,6 +346,119 @@ public class GrafanaApiServiceIT {
     }
   }
 
+  public void nonQuery(CloseableHttpClient httpClient, String sql) {
+    CloseableHttpResponse response = null;
+    try {
+      HttpPost httpPost = getHttpPost("http://127.0.0.1:18080/rest/v1/nonQuery");
+      httpPost.setEntity(new StringEntity("{\"sql\":\"" + sql + "\"}", Charset.defaultCharset()));
+      response = httpClient.execute(httpPost);
+      HttpEntity responseEntity = response.getEntity();
+      String message = EntityUtils.toString(responseEntity, "utf-8");
+      JsonObject result = JsonParser.parseString(message).getAsJsonObject();
+      assertEquals(200, Integer.parseInt(result.get("code").toString()));
+    } catch (IOException e) {
+      e.printStackTrace();
+      fail(e.getMessage());
+    } finally {
+      try {
+        if (response != null) {
+          response.close();
+        }
+      } catch (IOException e) {
+        e.printStackTrace();
+        fail(e.getMessage());
+      }
+    }
+  }
+
+  public String expressionMessage(CloseableHttpClient httpClient, String request) {
+    CloseableHttpResponse response = null;
+    try {
+      HttpPost httpPost = getHttpPost("http://127.0.0.1:18080/grafana/v1/query/expression");
+      httpPost.setEntity(new StringEntity(request, Charset.defaultCharset()));
+      response = httpClient.execute(httpPost);
+      HttpEntity responseEntity = response.getEntity();
+      return EntityUtils.toString(responseEntity, "utf-8");
+    } catch (IOException e) {
+      e.printStackTrace();
+      fail(e.getMessage());
+      return null;
+    } finally {
+      try {
+        if (response != null) {
+          response.close();
+        }
+      } catch (IOException e) {
+        e.printStackTrace();
+        fail(e.getMessage());
+      }
+    }
+  }
+
+  /** The rows computed with the query result cache must be the same as the rows without it. */
+  public void expressionWithQueryResultCache(CloseableHttpClient httpClient) {
+    String[] controls = {
+      "group by([1000,1100),10ms)",
+      "group by([1000,1095),10ms,20ms)",
+      "group by([1000,1100),5ms,15ms)",
+      "group by((1000,1100],10ms)",
+      "group by((1000,1095],5ms,15ms)"
+    };
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    boolean enableQueryResultCache = config.isEnableQueryResultCache();
+    try {
+      for (String control : controls) {
+        // the range of the request cuts the first and the last windows
+        String request =
+            "{\"expression\":[\"count(s4)\",\"sum(s5)\"],\"prefixPath\":[\"root.sg26\"],\"startTime\":1003,\"endTime\":1092,\"control\":\""
+                + control
+                + "\"}";
+        config.setEnableQueryResultCache(false);
+        String expected = expressionMessage(httpClient, request);
+        config.setEnableQueryResultCache(true);
+        // computed, then taken from the cache
+        assertEquals(control, expected, expressionMessage(httpClient, request));
+        assertEquals(control, expected, expressionMessage(httpClient, request));
+      }
+    } finally {
+      config.setEnableQueryResultCache(enableQueryResultCache);
+    }
+  }
+
+  @Test
+  public void expressionWithQueryResultCacheTest() {
+    CloseableHttpClient httpClient = HttpClientBuilder.create().build();
+    nonQuery(httpClient, "insert into root.sg26(timestamp,s4,s5) values(1001,1,1.5)");
+    for (long time = 1010; time < 1060; time += 3) {
+      nonQuery(
+          httpClient,
+          "insert into root.sg26(timestamp,s4,s5) values(" + time + "," + time % 7 + ",2.5)");
+    }
+    nonQuery(httpClient, "flush");
+    for (long time = 1060; time < 1080; time += 3) {
+      nonQuery(
+          httpClient,
+          "insert into root.sg26(timestamp,s4,s5) values(" + time + "," + time % 7 + ",3.5)");
+    }
+    nonQuery(httpClient, "flush");
+    // an unsealed sequence file and an unsealed unsequence file starting inside the sealed ones
+    nonQuery(httpClient, "insert into root.sg26(timestamp,s4,s5) values(1085,5,4.5)");
+    nonQuery(httpClient, "insert into root.sg26(timestamp,s4,s5) values(1066,6,5.5)");
+    expressionWithQueryResultCache(httpClient);
+
+    // the cached windows are invalidated by flushing and deleting
+    nonQuery(httpClient, "flush");
+    expressionWithQueryResultCache(httpClient);
+    nonQuery(httpClient, "delete from root.sg26.s4 where time >= 1020 and time <= 1030");
+    expressionWithQueryResultCache(httpClient);
+    try {
+      httpClient.close();
+    } catch (IOException e) {
+      e.printStackTrace();
+      fail(e.getMessage());
+    }
+  }
+
   @Test
   public void variableTest() {
     CloseableHttpClient httpClient = HttpClientBuilder.create().build();
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.control;
+
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PrefetchedQueryBatchTest {
+
+  private final TSQueryDataSet dataSet =
+      new TSQueryDataSet(
+          ByteBuffer.allocate(Long.BYTES), Collections.emptyList(), Collections.emptyList());
+
+  @Test
+  public void testFill() throws Exception {
+    PrefetchedQueryBatch batch = new PrefetchedQueryBatch(() -> dataSet);
+    batch.getTask().run();
+    assertSame(dataSet, batch.get());
+    // cancelling a finished fill returns at once
+    batch.cancel();
+  }
+
+  @Test
+  public void testCancelBeforeFill() throws Exception {
+    AtomicInteger fillNum = new AtomicInteger();
+    PrefetchedQueryBatch batch =
+        new PrefetchedQueryBatch(
+            () -> {
+              fillNum.incrementAndGet();
+              return dataSet;
+            });
+    // does not wait for the task, which has not run yet
+    batch.cancel();
+    batch.getTask().run();
+    assertEquals(0, fillNum.get());
+    assertNull(batch.get());
+  }
+
+  @Test
+  public void testCancelDuringFill() throws Exception {
+    CountDownLatch fillStarted = new CountDownLatch(1);
+    CountDownLatch fillAllowed = new CountDownLatch(1);
+    AtomicBoolean filled = new AtomicBoolean(false);
+    PrefetchedQueryBatch batch =
+        new PrefetchedQueryBatch(
+            () -> {
+              fillStarted.countDown();
+              fillAllowed.await();
+              filled.set(true);
+              return dataSet;
+            });
+    Thread fillThread = new Thread(batch.getTask());
+    fillThread.start();
+    assertTrue(fillStarted.await(10, TimeUnit.SECONDS));
+
+    CountDownLatch cancelled = new CountDownLatch(1);
+    Thread cancelThread =
+        new Thread(
+            () -> {
+              batch.cancel();
+              cancelled.countDown();
+            });
+    cancelThread.start();
+    // the release waits for the running fill
+    assertFalse(cancelled.await(200, TimeUnit.MILLISECONDS));
+
+    fillAllowed.countDown();
+    assertTrue(cancelled.await(10, TimeUnit.SECONDS));
+    assertTrue(filled.get());
+    assertSame(dataSet, batch.get());
+    fillThread.join();
+    cancelThread.join();
+  }
+
+  @Test
+  public void testFailedFill() throws Exception {
+    PrefetchedQueryBatch batch =
+        new PrefetchedQueryBatch(
+            () -> {
+              throw new IllegalStateException("fill failed");
+            });
+    batch.getTask().run();
+    // the failure is dropped with the released query
+    batch.cancel();
+    try {
+      batch.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertEquals("fill failed", e.getCause().getMessage());
+    }
+  }
+
+  @Test
+  public void testClaimRace() throws Exception {
+    for (int i = 0; i < 1000; i++) {
+      AtomicBoolean filling = new AtomicBoolean(false);
+      AtomicBoolean filled = new AtomicBoolean(false);
+      PrefetchedQueryBatch batch =
+          new PrefetchedQueryBatch(
+              () -> {
+                filling.set(true);
+                Thread.yield();
+                filled.set(true);
+                filling.set(false);
+                return dataSet;
+              });
+      CyclicBarrier barrier = new CyclicBarrier(2);
+      Thread fillThread =
+          new Thread(
+              () -> {
+                try {
+                  barrier.await();
+                } catch (Exception e) {
+                  Thread.currentThread().interrupt();
+                }
+                batch.getTask().run();
+              });
+      fillThread.start();
+      barrier.await();
+      batch.cancel();
+      // either the fill never touches the data set, or it has finished when the release goes on
+      assertFalse(filling.get());
+      fillThread.join();
+      TSQueryDataSet result = batch.get();
+      assertEquals(filled.get(), result != null);
+    }
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.reader.series;
+
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.cache.ChunkCache;
+import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.service.IoTDB;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads a series from interleaved and overlapping sequence and unsequence files in both orders,
+ * where the value of each point is the version of the file it comes from, so that the point of the
+ * latest file must win wherever files overlap.
+ */
+public class SeriesReaderOverlapTest {
+
+  private static final String STORAGE_GROUP = "root.seriesReaderOverlap";
+  private static final String DEVICE = STORAGE_GROUP + ".d0";
+  private static final String MEASUREMENT = "s0";
+
+  /** points per chunk, so that files have several chunks to unpack */
+  private static final long CHUNK_POINT_NUM = 100;
+
+  private final MeasurementSchema schema =
+      new MeasurementSchema(
+          MEASUREMENT, TSDataType.INT64, TSEncoding.PLAIN, CompressionType.UNCOMPRESSED);
+
+  private final List<TsFileResource> seqResources = new ArrayList<>();
+  private final List<TsFileResource> unseqResources = new ArrayList<>();
+
+  /** expected value of each time */
+  private final Map<Long, Long> expected = new TreeMap<>();
+
+  @Before
+  public void setUp() throws Exception {
+    IoTDB.configManager.init();
+    // sequence files with a gap between the last two
+    seqResources.add(prepareFile(0, 0, 1000, 1));
+    seqResources.add(prepareFile(1, 1000, 1000, 1));
+    seqResources.add(prepareFile(2, 3000, 1000, 1));
+
+    // inside the chunks of the first file
+    unseqResources.add(prepareFile(3, 50, 100, 1));
+    // across the boundary of the first two files
+    unseqResources.add(prepareFile(4, 900, 201, 1));
+    // a later file starting inside the run of the unsequence file above
+    unseqResources.add(prepareFile(5, 120, 11, 1));
+    // filling the gap between sequence files exactly
+    unseqResources.add(prepareFile(6, 2000, 1000, 1));
+    // across the gap filler and the last sequence file
+    unseqResources.add(prepareFile(7, 2500, 551, 1));
+    // after the end of all sequence files
+    unseqResources.add(prepareFile(8, 3990, 111, 1));
+    // sparse points over almost everything
+    unseqResources.add(prepareFile(9, 10, 105, 37));
+    // a single point
+    unseqResources.add(prepareFile(10, 1500, 1, 1));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    FileReaderManager.getInstance().closeAndRemoveAllOpenedReaders();
+    for (TsFileResource resource : seqResources) {
+      resource.remove();
+    }
+    for (TsFileResource resource : unseqResources) {
+      resource.remove();
+    }
+    ChunkCache.getInstance().clear();
+    TimeSeriesMetadataCache.getInstance().clear();
+    IoTDB.configManager.clear();
+    EnvironmentUtils.cleanAllDir();
+  }
+
+  @Test
+  public void testReadInBothOrders() throws Exception {
+    List<long[]> ascending = read(null, true);
+    assertExpected(ascending, null);
+
+    List<long[]> descending = read(null, false);
+    Collections.reverse(descending);
+    assertSame(ascending, descending);
+  }
+
+  @Test
+  public void testReadWithTimeFilter() throws Exception {
+    // starts inside the runs of the files 3 and 5, ends inside the file 7
+    Filter timeFilter = FilterFactory.and(TimeFilter.gtEq(125), TimeFilter.lt(3020));
+    List<long[]> ascending = read(timeFilter, true);
+    assertExpected(ascending, timeFilter);
+
+    List<long[]> descending = read(timeFilter, false);
+    Collections.reverse(descending);
+    assertSame(ascending, descending);
+  }
+
+  private List<long[]> read(Filter timeFilter, boolean ascending) throws Exception {
+    SeriesReader seriesReader =
+        new SeriesReader(
+            new PartialPath(DEVICE + "." + MEASUREMENT),
+            Collections.singleton(MEASUREMENT),
+            TSDataType.INT64,
+            EnvironmentUtils.TEST_QUERY_CONTEXT,
+            seqResources,
+            unseqResources,
+            timeFilter,
+            null,
+            ascending);
+    SeriesRawDataBatchReader batchReader = new SeriesRawDataBatchReader(seriesReader);
+    List<long[]> points = new ArrayList<>();
+    while (batchReader.hasNextBatch()) {
+      BatchData batchData = batchReader.nextBatch();
+      while (batchData.hasCurrent()) {
+        points.add(new long[] {batchData.currentTime(), batchData.getLong()});
+        batchData.next();
+      }
+    }
+    return points;
+  }
+
+  private void assertExpected(List<long[]> points, Filter timeFilter) {
+    List<long[]> expectedPoints = new ArrayList<>();
+    for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+      if (timeFilter == null || timeFilter.satisfy(entry.getKey(), null)) {
+        expectedPoints.add(new long[] {entry.getKey(), entry.getValue()});
+      }
+    }
+    assertSame(expectedPoints, points);
+  }
+
+  private static void assertSame(List<long[]> expectedPoints, List<long[]> points) {
+    Assert.assertEquals(expectedPoints.size(), points.size());
+    for (int i = 0; i < points.size(); i++) {
+      Assert.assertArrayEquals(
+          "point " + expectedPoints.get(i)[0], expectedPoints.get(i), points.get(i));
+    }
+  }
+
+  /** write pointNum points from startTime every step, whose values are the version */
+  private TsFileResource prepareFile(int version, long startTime, long pointNum, long step)
+      throws Exception {
+    File file = new File(TestConstant.getTestTsFilePath(STORAGE_GROUP, 0, 0, version));
+    if (!file.getParentFile().exists()) {
+      Assert.assertTrue(file.getParentFile().mkdirs());
+    }
+    TsFileResource resource = new TsFileResource(file);
+    resource.setStatus(TsFileResourceStatus.CLOSED);
+    resource.setMinPlanIndex(version);
+    resource.setMaxPlanIndex(version);
+    resource.setVersion(version);
+    long endTime = startTime + (pointNum - 1) * step;
+    try (TsFileWriter writer = new TsFileWriter(file)) {
+      writer.registerTimeseries(new Path(DEVICE), schema);
+      for (long i = 0; i < pointNum; i++) {
+        long time = startTime + i * step;
+        TSRecord record = new TSRecord(time, DEVICE);
+        record.addTuple(new LongDataPoint(MEASUREMENT, version));
+        writer.write(record);
+        // versions increase, so a later file always overwrites
+        expected.put(time, (long) version);
+        if ((i + 1) % CHUNK_POINT_NUM == 0) {
+          writer.flushAllChunkGroups();
+        }
+      }
+    }
+    resource.updateStartTime(DEVICE, startTime);
+    resource.updateEndTime(DEVICE, endTime);
+    return resource;
+  }
+}
@@ -19,10 +19,15 @@
 
 package org.apache.iotdb.db.query.reader.series;
 
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.metadata.IllegalPathException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
 import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.tsfile.exception.write.WriteProcessException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -43,6 +48,7 @@ import java.util.List;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 public class SeriesReaderTest {
@@ -148,6 +154,139 @@ public class SeriesReaderTest {
     }
   }
 
+  @Test
+  public void chunkPrefetchTest() {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    int prevMaxDepth = config.getChunkPrefetchMaxDepth();
+    config.setChunkPrefetchMaxDepth(4);
+    try {
+      Set<String> allSensors = new HashSet<>();
+      allSensors.add("sensor0");
+      SeriesReader seriesReader =
+          new SeriesReader(
+              new PartialPath(SERIES_READER_TEST_SG + ".device0.sensor0"),
+              allSensors,
+              TSDataType.INT32,
+              EnvironmentUtils.TEST_QUERY_CONTEXT,
+              seqResources,
+              unseqResources,
+              null,
+              null,
+              true);
+      SeriesRawDataBatchReader batchReader = new SeriesRawDataBatchReader(seriesReader);
+      batchReader.enableChunkPrefetch();
+      long expectedTime = 0;
+      while (batchReader.hasNextBatch()) {
+        BatchData batchData = batchReader.nextBatch();
+        while (batchData.hasCurrent()) {
+          assertEquals(expectedTime, batchData.currentTime());
+          if (expectedTime < 200) {
+            assertEquals(20000 + expectedTime, batchData.getInt());
+          } else if (expectedTime < 260
+              || (expectedTime >= 300 && expectedTime < 380)
+              || expectedTime >= 400) {
+            assertEquals(10000 + expectedTime, batchData.getInt());
+          } else {
+            assertEquals(expectedTime, batchData.getInt());
+          }
+          batchData.next();
+          expectedTime++;
+        }
+      }
+      assertEquals(500, expectedTime);
+      batchReader.close();
+    } catch (IOException | IllegalPathException e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      config.setChunkPrefetchMaxDepth(prevMaxDepth);
+    }
+  }
+
+  @Test
+  public void chunkPrefetchStoppedWhenExhaustedTest() {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    int prevMaxDepth = config.getChunkPrefetchMaxDepth();
+    config.setChunkPrefetchMaxDepth(4);
+    long queryId = QueryResourceManager.getInstance().assignQueryId(true);
+    QueryContext context = new QueryContext(queryId);
+    try {
+      SeriesRawDataBatchReader batchReader = createPrefetchingReader(context);
+      long count = 0;
+      while (batchReader.hasNextBatch()) {
+        count += batchReader.nextBatch().length();
+      }
+      assertEquals(500, count);
+      // the reader is not closed, but nothing is read ahead after the last batch
+      assertEquals(0, context.getPrefetchMemoryCost());
+    } catch (IOException | IllegalPathException e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      config.setChunkPrefetchMaxDepth(prevMaxDepth);
+      endQuery(queryId);
+    }
+  }
+
+  @Test
+  public void chunkPrefetchStoppedWhenQueryEndsTest() {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    int prevMaxDepth = config.getChunkPrefetchMaxDepth();
+    config.setChunkPrefetchMaxDepth(4);
+    long queryId = QueryResourceManager.getInstance().assignQueryId(true);
+    QueryContext context = new QueryContext(queryId);
+    try {
+      SeriesRawDataBatchReader batchReader = createPrefetchingReader(context);
+      assertTrue(batchReader.hasNextBatch());
+      long count = batchReader.nextBatch().length();
+
+      // the query is released before the reader is exhausted, e.g. a client stops fetching
+      QueryResourceManager.getInstance().endQuery(queryId);
+      assertEquals(0, context.getPrefetchMemoryCost());
+
+      // the reader still works, but reads chunks only when it reaches them
+      while (batchReader.hasNextBatch()) {
+        count += batchReader.nextBatch().length();
+        assertEquals(0, context.getPrefetchMemoryCost());
+      }
+      assertEquals(500, count);
+    } catch (IOException | IllegalPathException | StorageEngineException e) {
+      e.printStackTrace();
+      fail();
+    } finally {
+      config.setChunkPrefetchMaxDepth(prevMaxDepth);
+    }
+  }
+
+  private SeriesRawDataBatchReader createPrefetchingReader(QueryContext context)
+      throws IllegalPathException {
+    Set<String> allSensors = new HashSet<>();
+    allSensors.add("sensor0");
+    SeriesReader seriesReader =
+        new SeriesReader(
+            new PartialPath(SERIES_READER_TEST_SG + ".device0.sensor0"),
+            allSensors,
+            TSDataType.INT32,
+            context,
+            seqResources,
+            unseqResources,
+            null,
+            null,
+            true);
+    SeriesRawDataBatchReader batchReader = new SeriesRawDataBatchReader(seriesReader);
+    batchReader.enableChunkPrefetch();
+    return batchReader;
+  }
+
+  private void endQuery(long queryId) {
+    try {
+      QueryResourceManager.getInstance().endQuery(queryId);
+    } catch (StorageEngineException e) {
+      e.printStackTrace();
+      fail();
+    }
+  }
+
   @Test
   public void descOrderTest() {
     try {
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.reader.series;
+
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.cache.ChunkCache;
+import org.apache.iotdb.db.engine.cache.TimeSeriesMetadataCache;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResourceStatus;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Bench reading one series from a sequence file of {@link #seqPointNum} points overwritten by 1,
+ * 100 and 10000 small unsequence files at random positions, in ascending and descending order.
+ */
+public class SeriesReaderUnseqBenchmark {
+
+  private static final String DEVICE = "root.unseqBenchmark.d0";
+  private static final String MEASUREMENT = "s0";
+
+  private static int[] unseqFileNums = {1, 100, 10000};
+  private static long seqPointNum = 1_000_000;
+  private static int unseqPointNum = 100_000;
+  private static long flushInterval = 10_000;
+  private static int numOfWarmUp = 2;
+  private static int numOfRound = 5;
+
+  public static void main(String[] args) throws Exception {
+    MeasurementSchema schema =
+        new MeasurementSchema(
+            MEASUREMENT, TSDataType.INT64, TSEncoding.PLAIN, CompressionType.UNCOMPRESSED);
+    int version = 0;
+    List<TsFileResource> seqResources = new ArrayList<>();
+    seqResources.add(prepareFile(version++, 0, seqPointNum, schema));
+    try {
+      for (int unseqFileNum : unseqFileNums) {
+        List<TsFileResource> unseqResources = new ArrayList<>();
+        Random random = new Random(0);
+        int pointsPerFile = Math.max(unseqPointNum / unseqFileNum, 1);
+        for (int i = 0; i < unseqFileNum; i++) {
+          long startTime = (long) (random.nextDouble() * (seqPointNum - pointsPerFile));
+          unseqResources.add(prepareFile(version++, startTime, pointsPerFile, schema));
+        }
+        for (int i = 0; i < numOfWarmUp; i++) {
+          read(seqResources, unseqResources, true);
+          read(seqResources, unseqResources, false);
+        }
+        long ascTime = 0;
+        long descTime = 0;
+        long pointNum = 0;
+        for (int i = 0; i < numOfRound; i++) {
+          long startTime = System.nanoTime();
+          pointNum = read(seqResources, unseqResources, true);
+          ascTime += System.nanoTime() - startTime;
+          startTime = System.nanoTime();
+          read(seqResources, unseqResources, false);
+          descTime += System.nanoTime() - startTime;
+        }
+        System.out.println(
+            String.format(
+                "Unseq files: %d, points: %d, ascending: %.2f ms, descending: %.2f ms",
+                unseqFileNum,
+                pointNum,
+                ascTime / 1_000_000.0 / numOfRound,
+                descTime / 1_000_000.0 / numOfRound));
+        removeFiles(unseqResources);
+      }
+    } finally {
+      removeFiles(seqResources);
+      EnvironmentUtils.cleanAllDir();
+    }
+  }
+
+  private static long read(
+      List<TsFileResource> seqResources, List<TsFileResource> unseqResources, boolean ascending)
+      throws Exception {
+    SeriesReader seriesReader =
+        new SeriesReader(
+            new PartialPath(DEVICE + "." + MEASUREMENT),
+            Collections.singleton(MEASUREMENT),
+            TSDataType.INT64,
+            EnvironmentUtils.TEST_QUERY_CONTEXT,
+            seqResources,
+            unseqResources,
+            null,
+            null,
+            ascending);
+    SeriesRawDataBatchReader batchReader = new SeriesRawDataBatchReader(seriesReader);
+    long pointNum = 0;
+    while (batchReader.hasNextBatch()) {
+      BatchData batchData = batchReader.nextBatch();
+      pointNum += batchData.length();
+    }
+    return pointNum;
+  }
+
+  private static TsFileResource prepareFile(
+      int version, long startTime, long pointNum, MeasurementSchema schema) throws Exception {
+    File file = new File(TestConstant.getTestTsFilePath("root.unseqBenchmark", 0, 0, version));
+    if (!file.getParentFile().exists() && !file.getParentFile().mkdirs()) {
+      throw new IllegalStateException("Cannot create " + file.getParentFile());
+    }
+    TsFileResource resource = new TsFileResource(file);
+    resource.setStatus(TsFileResourceStatus.CLOSED);
+    resource.setMinPlanIndex(version);
+    resource.setMaxPlanIndex(version);
+    resource.setVersion(version);
+    try (TsFileWriter writer = new TsFileWriter(file)) {
+      writer.registerTimeseries(new Path(DEVICE), schema);
+      for (long time = startTime; time < startTime + pointNum; time++) {
+        TSRecord record = new TSRecord(time, DEVICE);
+        record.addTuple(new LongDataPoint(MEASUREMENT, version));
+        writer.write(record);
+        if ((time + 1) % flushInterval == 0) {
+          writer.flushAllChunkGroups();
+        }
+      }
+    }
+    resource.updateStartTime(DEVICE, startTime);
+    resource.updateEndTime(DEVICE, startTime + pointNum - 1);
+    return resource;
+  }
+
+  private static void removeFiles(List<TsFileResource> resources) throws Exception {
+    FileReaderManager.getInstance().closeAndRemoveAllOpenedReaders();
+    ChunkCache.getInstance().clear();
+    TimeSeriesMetadataCache.getInstance().clear();
+    for (TsFileResource resource : resources) {
+      resource.remove();
+    }
+  }
+}
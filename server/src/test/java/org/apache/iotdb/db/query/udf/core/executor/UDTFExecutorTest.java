@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.udf.core.executor;
+
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.query.expression.Expression;
+import org.apache.iotdb.db.query.expression.unary.FunctionExpression;
+import org.apache.iotdb.db.query.expression.unary.TimeSeriesOperand;
+import org.apache.iotdb.db.query.udf.core.reader.ArrayRowReader;
+import org.apache.iotdb.db.query.udf.core.reader.LayerRowReader;
+import org.apache.iotdb.db.query.udf.core.reader.LayerRowReaderUtils;
+import org.apache.iotdb.db.query.udf.datastructure.tv.ElasticSerializableTVList;
+import org.apache.iotdb.db.query.udf.example.Adder;
+import org.apache.iotdb.db.query.udf.example.BatchAdder;
+import org.apache.iotdb.db.query.udf.service.UDFRegistrationService;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class UDTFExecutorTest {
+
+  private static final int ROW_NUMBER = 1000;
+  private static final int BATCH_SIZE = 97;
+
+  private static final String ADDER = "adder";
+  private static final String BATCH_ADDER = "batch_adder";
+
+  private static final TSDataType[] NUMERIC_TYPES = {
+    TSDataType.INT32, TSDataType.INT64, TSDataType.FLOAT, TSDataType.DOUBLE
+  };
+
+  private final List<UDTFExecutor> executors = new ArrayList<>();
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    UDFRegistrationService.getInstance().register(ADDER, Adder.class.getName(), false);
+    UDFRegistrationService.getInstance().register(BATCH_ADDER, BatchAdder.class.getName(), false);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    for (UDTFExecutor executor : executors) {
+      executor.beforeDestroy();
+    }
+    UDFRegistrationService.getInstance().deregister(ADDER);
+    UDFRegistrationService.getInstance().deregister(BATCH_ADDER);
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testIsBatchTransformable() throws Exception {
+    Assert.assertTrue(createExecutor("sin", TSDataType.DOUBLE).isBatchTransformable());
+    Assert.assertTrue(createExecutor("abs", TSDataType.INT32).isBatchTransformable());
+    Assert.assertTrue(
+        createExecutor("on_off", Collections.singletonMap("threshold", "0"), TSDataType.FLOAT)
+            .isBatchTransformable());
+    Assert.assertTrue(
+        createExecutor(BATCH_ADDER, TSDataType.INT32, TSDataType.INT64).isBatchTransformable());
+
+    // a UDTF that only transforms rows
+    Assert.assertFalse(
+        createExecutor(ADDER, TSDataType.INT32, TSDataType.INT64).isBatchTransformable());
+    // a BatchUDTF that accesses windows
+    Assert.assertFalse(
+        createExecutor(
+                BATCH_ADDER,
+                Collections.singletonMap("windowSize", "10"),
+                TSDataType.INT32,
+                TSDataType.INT64)
+            .isBatchTransformable());
+  }
+
+  @Test
+  public void testNullRowsSplitBatch() throws Exception {
+    long[] times = new long[10];
+    for (int i = 0; i < times.length; ++i) {
+      times[i] = i;
+    }
+    Object[][] rows = {
+      {1, 2L}, {3, null}, {null, null}, {5, 6L}, {null, null},
+      {null, null}, {7, 8L}, {null, 4L}, {9, 10L}, {null, null}
+    };
+    TSDataType[] dataTypes = {TSDataType.INT32, TSDataType.INT64};
+
+    UDTFExecutor batchExecutor = createExecutor(BATCH_ADDER, dataTypes);
+    TsBlock batch =
+        LayerRowReaderUtils.readBatchRowByRow(
+            new ArrayRowReader(dataTypes, times, rows), times.length);
+    batchExecutor.execute(batch);
+
+    // all-null rows become null outputs, while rows with a null field are given to the UDTF
+    ElasticSerializableTVList collector = batchExecutor.getCollector();
+    long[] expectedTimes = {0, 2, 3, 4, 5, 6, 8, 9};
+    Long[] expectedValues = {3L, null, 11L, null, null, 15L, 19L, null};
+    Assert.assertEquals(expectedTimes.length, collector.size());
+    for (int i = 0; i < expectedTimes.length; ++i) {
+      Assert.assertEquals(expectedTimes[i], collector.getTime(i));
+      Assert.assertEquals(expectedValues[i] == null, collector.isNull(i));
+      if (expectedValues[i] != null) {
+        Assert.assertEquals(expectedValues[i].longValue(), collector.getLong(i));
+      }
+    }
+
+    UDTFExecutor rowExecutor = createExecutor(BATCH_ADDER, dataTypes);
+    executeRowByRow(rowExecutor, new ArrayRowReader(dataTypes, times, rows));
+    assertSameOutput(rowExecutor.getCollector(), collector);
+  }
+
+  @Test
+  public void testBatchTransformOfMathFunctions() throws Exception {
+    for (TSDataType dataType : NUMERIC_TYPES) {
+      assertBatchSameAsRowByRow("sin", Collections.emptyMap(), dataType);
+      assertBatchSameAsRowByRow("sqrt", Collections.emptyMap(), dataType);
+    }
+  }
+
+  @Test
+  public void testBatchTransformOfAbs() throws Exception {
+    for (TSDataType dataType : NUMERIC_TYPES) {
+      assertBatchSameAsRowByRow("abs", Collections.emptyMap(), dataType);
+    }
+  }
+
+  @Test
+  public void testBatchTransformOfOnOff() throws Exception {
+    for (TSDataType dataType : NUMERIC_TYPES) {
+      assertBatchSameAsRowByRow("on_off", Collections.singletonMap("threshold", "0"), dataType);
+      assertBatchSameAsRowByRow(
+          "on_off", Collections.singletonMap("threshold", "-100.5"), dataType);
+    }
+  }
+
+  @Test
+  public void testBatchTransformOfBatchUDTF() throws Exception {
+    for (TSDataType dataType : NUMERIC_TYPES) {
+      assertBatchSameAsRowByRow(
+          BATCH_ADDER, Collections.singletonMap("addend", "2"), dataType, TSDataType.INT32);
+    }
+  }
+
+  private void assertBatchSameAsRowByRow(
+      String functionName, Map<String, String> attributes, TSDataType... dataTypes)
+      throws Exception {
+    UDTFExecutor rowExecutor = createExecutor(functionName, attributes, dataTypes);
+    executeRowByRow(rowExecutor, buildReader(dataTypes));
+
+    UDTFExecutor batchExecutor = createExecutor(functionName, attributes, dataTypes);
+    Assert.assertTrue(batchExecutor.isBatchTransformable());
+    LayerRowReader reader = buildReader(dataTypes);
+    TsBlock batch;
+    while ((batch = reader.nextBatch(BATCH_SIZE)) != null) {
+      batchExecutor.execute(batch);
+    }
+
+    assertSameOutput(rowExecutor.getCollector(), batchExecutor.getCollector());
+  }
+
+  private UDTFExecutor createExecutor(String functionName, TSDataType... dataTypes)
+      throws Exception {
+    return createExecutor(functionName, Collections.emptyMap(), dataTypes);
+  }
+
+  private UDTFExecutor createExecutor(
+      String functionName, Map<String, String> attributes, TSDataType... dataTypes)
+      throws Exception {
+    List<Expression> inputs = new ArrayList<>();
+    Map<Expression, TSDataType> expressionDataTypeMap = new HashMap<>();
+    for (int i = 0; i < dataTypes.length; ++i) {
+      Expression input = new TimeSeriesOperand(new PartialPath("root.sg.d1.s" + i));
+      inputs.add(input);
+      expressionDataTypeMap.put(input, dataTypes[i]);
+    }
+    UDTFExecutor executor =
+        new UDTFExecutor(
+            new FunctionExpression(functionName, new HashMap<>(attributes), inputs),
+            ZoneId.systemDefault());
+    executors.add(executor);
+    executor.beforeStart(0, 1, expressionDataTypeMap);
+    return executor;
+  }
+
+  private static void executeRowByRow(UDTFExecutor executor, LayerRowReader reader)
+      throws Exception {
+    while (reader.next()) {
+      executor.execute(reader.currentRow(), reader.isCurrentNull());
+      reader.readyForNext();
+    }
+  }
+
+  /** series j has the value i - 500 at time i, scaled by its type, and is null every 7 + j rows */
+  private static LayerRowReader buildReader(TSDataType... dataTypes) {
+    long[] times = new long[ROW_NUMBER];
+    Object[][] rows = new Object[ROW_NUMBER][dataTypes.length];
+    for (int i = 0; i < ROW_NUMBER; ++i) {
+      times[i] = i;
+      for (int j = 0; j < dataTypes.length; ++j) {
+        if (i % (7 + j) == 0) {
+          continue;
+        }
+        switch (dataTypes[j]) {
+          case INT32:
+            rows[i][j] = i - 500;
+            break;
+          case INT64:
+            rows[i][j] = (i - 500) * 1_000_000_000L;
+            break;
+          case FLOAT:
+            rows[i][j] = (i - 500) / 3f;
+            break;
+          case DOUBLE:
+            rows[i][j] = (i - 500) / 3d;
+            break;
+          default:
+            throw new UnsupportedOperationException(dataTypes[j].name());
+        }
+      }
+    }
+    return new ArrayRowReader(dataTypes, times, rows);
+  }
+
+  private static void assertSameOutput(
+      ElasticSerializableTVList expected, ElasticSerializableTVList actual) throws IOException {
+    Assert.assertEquals(expected.getDataType(), actual.getDataType());
+    Assert.assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); ++i) {
+      Assert.assertEquals(expected.getTime(i), actual.getTime(i));
+      Assert.assertEquals(expected.isNull(i), actual.isNull(i));
+      if (expected.isNull(i)) {
+        continue;
+      }
+      switch (expected.getDataType()) {
+        case INT32:
+          Assert.assertEquals(expected.getInt(i), actual.getInt(i));
+          break;
+        case INT64:
+          Assert.assertEquals(expected.getLong(i), actual.getLong(i));
+          break;
+        case FLOAT:
+          Assert.assertEquals(expected.getFloat(i), actual.getFloat(i), 0);
+          break;
+        case DOUBLE:
+          Assert.assertEquals(expected.getDouble(i), actual.getDouble(i), 0);
+          break;
+        case BOOLEAN:
+          Assert.assertEquals(expected.getBoolean(i), actual.getBoolean(i));
+          break;
+        default:
+          Assert.fail(expected.getDataType().name());
+      }
+    }
+  }
+}
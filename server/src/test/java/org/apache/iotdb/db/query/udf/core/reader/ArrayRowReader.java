@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.udf.core.reader;
+
+import org.apache.iotdb.db.query.udf.api.access.Row;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+/** A {@link LayerRowReader} over rows in memory, in which a null value is a null field. */
+public class ArrayRowReader implements LayerRowReader {
+
+  private final TSDataType[] dataTypes;
+  private final long[] times;
+  private final Object[][] rows;
+  private final Row row = new ArrayRow();
+
+  private int index = 0;
+
+  public ArrayRowReader(TSDataType[] dataTypes, long[] times, Object[][] rows) {
+    this.dataTypes = dataTypes;
+    this.times = times;
+    this.rows = rows;
+  }
+
+  @Override
+  public boolean next() {
+    return index < times.length;
+  }
+
+  @Override
+  public void readyForNext() {
+    ++index;
+  }
+
+  @Override
+  public TSDataType[] getDataTypes() {
+    return dataTypes;
+  }
+
+  @Override
+  public long currentTime() {
+    return times[index];
+  }
+
+  @Override
+  public Row currentRow() {
+    return row;
+  }
+
+  @Override
+  public boolean isCurrentNull() {
+    for (Object value : rows[index]) {
+      if (value != null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private class ArrayRow implements Row {
+
+    @Override
+    public long getTime() {
+      return times[index];
+    }
+
+    @Override
+    public int getInt(int columnIndex) {
+      return (int) rows[index][columnIndex];
+    }
+
+    @Override
+    public long getLong(int columnIndex) {
+      return (long) rows[index][columnIndex];
+    }
+
+    @Override
+    public float getFloat(int columnIndex) {
+      return (float) rows[index][columnIndex];
+    }
+
+    @Override
+    public double getDouble(int columnIndex) {
+      return (double) rows[index][columnIndex];
+    }
+
+    @Override
+    public boolean getBoolean(int columnIndex) {
+      return (boolean) rows[index][columnIndex];
+    }
+
+    @Override
+    public Binary getBinary(int columnIndex) {
+      return (Binary) rows[index][columnIndex];
+    }
+
+    @Override
+    public String getString(int columnIndex) {
+      return getBinary(columnIndex).getStringValue();
+    }
+
+    @Override
+    public TSDataType getDataType(int columnIndex) {
+      return dataTypes[columnIndex];
+    }
+
+    @Override
+    public boolean isNull(int columnIndex) {
+      return rows[index][columnIndex] == null;
+    }
+
+    @Override
+    public int size() {
+      return dataTypes.length;
+    }
+  }
+}
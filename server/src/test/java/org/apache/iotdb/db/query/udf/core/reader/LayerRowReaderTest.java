@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.udf.core.reader;
+
+import org.apache.iotdb.db.exception.metadata.IllegalPathException;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.path.PartialPath;
+import org.apache.iotdb.db.query.expression.unary.TimeSeriesOperand;
+import org.apache.iotdb.db.query.udf.core.layer.SingleInputColumnSingleReferenceIntermediateLayer;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class LayerRowReaderTest {
+
+  private static final int ROW_NUMBER = 50;
+
+  private static final TSDataType[] DATA_TYPES = {
+    TSDataType.INT32, TSDataType.DOUBLE, TSDataType.BOOLEAN, TSDataType.TEXT
+  };
+
+  @Test
+  public void testReadBatchRowByRow() throws QueryProcessException, IOException {
+    LayerRowReader reader = buildReader();
+
+    int count = 0;
+    TsBlock batch;
+    while ((batch = reader.nextBatch(7)) != null) {
+      Assert.assertEquals(Math.min(7, ROW_NUMBER - count), batch.getPositionCount());
+      Assert.assertEquals(DATA_TYPES.length, batch.getValueColumnCount());
+      for (int i = 0; i < batch.getPositionCount(); ++i) {
+        assertRow(batch, i, count++);
+      }
+    }
+    Assert.assertEquals(ROW_NUMBER, count);
+    Assert.assertFalse(reader.next());
+    Assert.assertNull(reader.nextBatch(7));
+  }
+
+  @Test
+  public void testBatchReadsMixedWithRowReads() throws QueryProcessException, IOException {
+    LayerRowReader reader = buildReader();
+
+    for (int i = 0; i < 3; ++i) {
+      Assert.assertTrue(reader.next());
+      Assert.assertEquals(i, reader.currentTime());
+      reader.readyForNext();
+    }
+    // leave the current row unconsumed before switching to batch reads
+    Assert.assertTrue(reader.next());
+    Assert.assertEquals(3, reader.currentTime());
+
+    TsBlock batch = reader.nextBatch(10);
+    Assert.assertEquals(10, batch.getPositionCount());
+    for (int i = 0; i < 10; ++i) {
+      assertRow(batch, i, 3 + i);
+    }
+
+    Assert.assertTrue(reader.next());
+    Assert.assertEquals(13, reader.currentTime());
+    Assert.assertEquals(13, reader.currentRow().getInt(0));
+    reader.readyForNext();
+
+    batch = reader.nextBatch(1000);
+    Assert.assertEquals(ROW_NUMBER - 14, batch.getPositionCount());
+    for (int i = 0; i < batch.getPositionCount(); ++i) {
+      assertRow(batch, i, 14 + i);
+    }
+    Assert.assertNull(reader.nextBatch(1000));
+  }
+
+  @Test
+  public void testSingleColumnLayerNextBatch()
+      throws QueryProcessException, IOException, IllegalPathException {
+    LayerRowReader reader =
+        new SingleInputColumnSingleReferenceIntermediateLayer(
+                new TimeSeriesOperand(new PartialPath("root.sg.d1.s1")),
+                0,
+                1,
+                new IntPointReader(100))
+            .constructRowReader();
+
+    // point 0 is null, and left unconsumed before switching to batch reads
+    Assert.assertTrue(reader.next());
+    Assert.assertTrue(reader.isCurrentNull());
+    TsBlock batch = reader.nextBatch(10);
+    Assert.assertEquals(10, batch.getPositionCount());
+    for (int i = 0; i < 10; ++i) {
+      Assert.assertEquals(i, batch.getTimeByIndex(i));
+      Assert.assertEquals(i % 5 == 0, batch.getColumn(0).isNull(i));
+      if (i % 5 != 0) {
+        Assert.assertEquals(i * 2, batch.getColumn(0).getInt(i));
+      }
+    }
+
+    Assert.assertTrue(reader.next());
+    Assert.assertEquals(10, reader.currentTime());
+    Assert.assertTrue(reader.isCurrentNull());
+    reader.readyForNext();
+    Assert.assertTrue(reader.next());
+    Assert.assertEquals(11, reader.currentTime());
+    Assert.assertFalse(reader.isCurrentNull());
+    Assert.assertEquals(22, reader.currentRow().getInt(0));
+    reader.readyForNext();
+
+    batch = reader.nextBatch(1000);
+    Assert.assertEquals(88, batch.getPositionCount());
+    Assert.assertEquals(12, batch.getTimeByIndex(0));
+    Assert.assertEquals(99, batch.getTimeByIndex(87));
+    Assert.assertNull(reader.nextBatch(1000));
+    Assert.assertFalse(reader.next());
+  }
+
+  private static LayerRowReader buildReader() {
+    long[] times = new long[ROW_NUMBER];
+    Object[][] rows = new Object[ROW_NUMBER][];
+    for (int i = 0; i < ROW_NUMBER; ++i) {
+      times[i] = i;
+      rows[i] =
+          new Object[] {
+            i % 3 == 0 ? null : i,
+            i % 5 == 0 ? null : i / 2.0,
+            i % 4 == 0 ? null : i % 2 == 1,
+            i % 6 == 0 ? null : Binary.valueOf("v" + i)
+          };
+    }
+    return new ArrayRowReader(DATA_TYPES, times, rows);
+  }
+
+  private static void assertRow(TsBlock batch, int position, int row) {
+    Assert.assertEquals(row, batch.getTimeByIndex(position));
+    Assert.assertEquals(row % 3 == 0, batch.getColumn(0).isNull(position));
+    if (row % 3 != 0) {
+      Assert.assertEquals(row, batch.getColumn(0).getInt(position));
+    }
+    Assert.assertEquals(row % 5 == 0, batch.getColumn(1).isNull(position));
+    if (row % 5 != 0) {
+      Assert.assertEquals(row / 2.0, batch.getColumn(1).getDouble(position), 0);
+    }
+    Assert.assertEquals(row % 4 == 0, batch.getColumn(2).isNull(position));
+    if (row % 4 != 0) {
+      Assert.assertEquals(row % 2 == 1, batch.getColumn(2).getBoolean(position));
+    }
+    Assert.assertEquals(row % 6 == 0, batch.getColumn(3).isNull(position));
+    if (row % 6 != 0) {
+      Assert.assertEquals("v" + row, batch.getColumn(3).getBinary(position).getStringValue());
+    }
+  }
+
+  /** time = 0, 1, ..., value = 2 * time, null at multiples of 5 */
+  private static class IntPointReader implements LayerPointReader {
+
+    private final long end;
+
+    private long currentTime = 0;
+
+    private IntPointReader(long end) {
+      this.end = end;
+    }
+
+    @Override
+    public boolean isConstantPointReader() {
+      return false;
+    }
+
+    @Override
+    public boolean next() {
+      return currentTime < end;
+    }
+
+    @Override
+    public void readyForNext() {
+      ++currentTime;
+    }
+
+    @Override
+    public TSDataType getDataType() {
+      return TSDataType.INT32;
+    }
+
+    @Override
+    public long currentTime() {
+      return currentTime;
+    }
+
+    @Override
+    public int currentInt() {
+      return (int) (currentTime * 2);
+    }
+
+    @Override
+    public long currentLong() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public float currentFloat() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public double currentDouble() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean currentBoolean() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean isCurrentNull() {
+      return currentTime % 5 == 0;
+    }
+
+    @Override
+    public Binary currentBinary() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
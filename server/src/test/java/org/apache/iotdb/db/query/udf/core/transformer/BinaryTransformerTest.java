@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.query.udf.core.transformer;
+
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.query.expression.unary.ConstantOperand;
+import org.apache.iotdb.db.query.udf.core.reader.ConstantLayerPointReader;
+import org.apache.iotdb.db.query.udf.core.reader.LayerPointReader;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.TsBlock;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BinaryTransformerTest {
+
+  private static final int POINT_NUMBER = 10000;
+
+  /** s1 * 2 + s2 > 10, where s1 has every point and s2 has every third point */
+  @Test
+  public void testPointReadsOfExpressionTree() throws QueryProcessException, IOException {
+    LayerPointReader reader = buildExpression();
+
+    int count = 0;
+    while (reader.next()) {
+      long time = reader.currentTime();
+      Assert.assertEquals(0, time % 3);
+      Boolean expected = expected(time);
+      if (expected == null) {
+        Assert.assertTrue(reader.isCurrentNull());
+      } else {
+        Assert.assertFalse(reader.isCurrentNull());
+        Assert.assertEquals(expected, reader.currentBoolean());
+      }
+      reader.readyForNext();
+      ++count;
+    }
+    Assert.assertEquals((POINT_NUMBER + 2) / 3, count);
+  }
+
+  @Test
+  public void testBatchReadsMixedWithPointReads() throws QueryProcessException, IOException {
+    LayerPointReader reader = buildExpression();
+
+    List<Long> times = new ArrayList<>();
+    // leave the current point unconsumed before switching to batch reads
+    Assert.assertTrue(reader.next());
+    times.add(reader.currentTime());
+    // s1 is null at time 0
+    Assert.assertTrue(reader.isCurrentNull());
+
+    TsBlock batch = reader.nextBatch(100);
+    Assert.assertEquals(times.get(0).longValue(), batch.getTimeByIndex(0));
+    for (int i = 1; i < batch.getPositionCount(); ++i) {
+      times.add(batch.getTimeByIndex(i));
+    }
+    while ((batch = reader.nextBatch(777)) != null) {
+      Assert.assertTrue(batch.getPositionCount() > 0);
+      for (int i = 0; i < batch.getPositionCount(); ++i) {
+        long time = batch.getTimeByIndex(i);
+        times.add(time);
+        Boolean expected = expected(time);
+        if (expected == null) {
+          Assert.assertTrue(batch.getColumn(0).isNull(i));
+        } else {
+          Assert.assertEquals(expected, batch.getColumn(0).getBoolean(i));
+        }
+      }
+    }
+    Assert.assertFalse(reader.next());
+
+    Assert.assertEquals((POINT_NUMBER + 2) / 3, times.size());
+    for (int i = 0; i < times.size(); ++i) {
+      Assert.assertEquals(i * 3L, times.get(i).longValue());
+    }
+  }
+
+  @Test
+  public void testNegationAndNot() throws QueryProcessException, IOException {
+    LayerPointReader reader =
+        new LogicNotTransformer(
+            new CompareLessThanTransformer(
+                new ArithmeticNegationTransformer(buildS1()), constant(TSDataType.INT32, "-5")));
+
+    int count = 0;
+    while (reader.next()) {
+      long time = reader.currentTime();
+      // not (-s1 < -5) <=> s1 <= 5
+      if (time % 7 == 0) {
+        Assert.assertTrue(reader.isCurrentNull());
+      } else {
+        Assert.assertEquals(time % 50 <= 5, reader.currentBoolean());
+      }
+      reader.readyForNext();
+      ++count;
+    }
+    Assert.assertEquals(POINT_NUMBER, count);
+  }
+
+  /** a transformer evaluating point by point is still read correctly when batches are used */
+  @Test
+  public void testDefaultTransformBatch() throws QueryProcessException, IOException {
+    LayerPointReader reader =
+        new TransparentTransformer(buildS1()) {
+          @Override
+          protected boolean canTransformBatch() {
+            return true;
+          }
+        };
+
+    long time = 0;
+    TsBlock batch;
+    while ((batch = reader.nextBatch(333)) != null) {
+      for (int i = 0; i < batch.getPositionCount(); ++i, ++time) {
+        Assert.assertEquals(time, batch.getTimeByIndex(i));
+        Integer expected = s1(time);
+        if (expected == null) {
+          Assert.assertTrue(batch.getColumn(0).isNull(i));
+        } else {
+          Assert.assertEquals(expected.intValue(), batch.getColumn(0).getInt(i));
+        }
+      }
+      // interleave a point read
+      if (reader.next()) {
+        Assert.assertEquals(time, reader.currentTime());
+        Assert.assertEquals(s1(time) == null, reader.isCurrentNull());
+        reader.readyForNext();
+        ++time;
+      }
+    }
+    Assert.assertEquals(POINT_NUMBER, time);
+  }
+
+  @Test(expected = QueryProcessException.class)
+  public void testUnsupportedLogicOperand() throws QueryProcessException, IOException {
+    new LogicAndTransformer(buildS1(), buildS1()).next();
+  }
+
+  private static LayerPointReader buildExpression() throws QueryProcessException {
+    return new CompareGreaterThanTransformer(
+        new ArithmeticAdditionTransformer(
+            new ArithmeticMultiplicationTransformer(buildS1(), constant(TSDataType.INT32, "2")),
+            buildS2()),
+        constant(TSDataType.DOUBLE, "10"));
+  }
+
+  private static Boolean expected(long time) {
+    Integer s1 = s1(time);
+    Long s2 = s2(time);
+    return s1 == null || s2 == null ? null : s1 * 2 + s2 > 10;
+  }
+
+  /** s1 = time % 50, null at multiples of 7 */
+  private static Integer s1(long time) {
+    return time % 7 == 0 ? null : (int) (time % 50);
+  }
+
+  /** s2 = -(time % 13), null at multiples of 11 */
+  private static Long s2(long time) {
+    return time % 11 == 0 ? null : -(time % 13);
+  }
+
+  private static LayerPointReader buildS1() {
+    Map<Long, Object> points = new HashMap<>();
+    for (long time = 0; time < POINT_NUMBER; ++time) {
+      points.put(time, s1(time));
+    }
+    return new ArrayPointReader(TSDataType.INT32, points, POINT_NUMBER, 1);
+  }
+
+  private static LayerPointReader buildS2() {
+    Map<Long, Object> points = new HashMap<>();
+    for (long time = 0; time < POINT_NUMBER; time += 3) {
+      points.put(time, s2(time));
+    }
+    return new ArrayPointReader(TSDataType.INT64, points, POINT_NUMBER, 3);
+  }
+
+  private static LayerPointReader constant(TSDataType dataType, String value)
+      throws QueryProcessException {
+    return new ConstantLayerPointReader(new ConstantOperand(dataType, value));
+  }
+
+  private static class ArrayPointReader implements LayerPointReader {
+
+    private final TSDataType dataType;
+    private final Map<Long, Object> points;
+    private final long end;
+    private final long step;
+
+    private long currentTime = 0;
+
+    private ArrayPointReader(TSDataType dataType, Map<Long, Object> points, long end, long step) {
+      this.dataType = dataType;
+      this.points = points;
+      this.end = end;
+      this.step = step;
+    }
+
+    @Override
+    public boolean isConstantPointReader() {
+      return false;
+    }
+
+    @Override
+    public boolean next() {
+      return currentTime < end;
+    }
+
+    @Override
+    public void readyForNext() {
+      currentTime += step;
+    }
+
+    @Override
+    public TSDataType getDataType() {
+      return dataType;
+    }
+
+    @Override
+    public long currentTime() {
+      return currentTime;
+    }
+
+    @Override
+    public int currentInt() {
+      return (int) points.get(currentTime);
+    }
+
+    @Override
+    public long currentLong() {
+      return (long) points.get(currentTime);
+    }
+
+    @Override
+    public float currentFloat() {
+      return (float) points.get(currentTime);
+    }
+
+    @Override
+    public double currentDouble() {
+      return (double) points.get(currentTime);
+    }
+
+    @Override
+    public boolean currentBoolean() {
+      return (boolean) points.get(currentTime);
+    }
+
+    @Override
+    public boolean isCurrentNull() {
+      return points.get(currentTime) == null;
+    }
+
+    @Override
+    public Binary currentBinary() {
+      return (Binary) points.get(currentTime);
+    }
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.query.udf.datastructure;
+
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.query.udf.datastructure.tv.ElasticSerializableTVList;
+import org.apache.iotdb.db.query.udf.datastructure.tv.OffHeapElasticSerializableTVList;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OffHeapElasticSerializableTVListTest extends SerializableListTest {
+
+  /** small enough to make pages spilled and reloaded */
+  private static final float SMALL_MEMORY_USAGE_LIMIT_IN_MB = 0.05f;
+
+  @Override
+  @Before
+  public void setUp() throws Exception {
+    super.setUp();
+  }
+
+  @Override
+  @After
+  public void tearDown() {
+    super.tearDown();
+  }
+
+  @Test
+  public void testSpillAndReload() throws QueryProcessException, IOException {
+    ElasticSerializableTVList tvList =
+        ElasticSerializableTVList.newElasticSerializableTVList(
+            TSDataType.DOUBLE, QUERY_ID, SMALL_MEMORY_USAGE_LIMIT_IN_MB, CACHE_SIZE);
+    assertTrue(tvList instanceof OffHeapElasticSerializableTVList);
+
+    for (int i = 0; i < ITERATION_TIMES; ++i) {
+      if (i % 7 == 0) {
+        tvList.putNull(i);
+      } else {
+        tvList.putDouble(i, i * 0.5);
+      }
+    }
+    assertEquals(ITERATION_TIMES, tvList.size());
+
+    Random random = new Random(0);
+    for (int i = 0; i < ITERATION_TIMES; ++i) {
+      int index = random.nextInt(ITERATION_TIMES);
+      assertEquals(index, tvList.getTime(index));
+      if (index % 7 == 0) {
+        assertTrue(tvList.isNull(index));
+      } else {
+        assertFalse(tvList.isNull(index));
+        assertEquals(index * 0.5, tvList.getDouble(index), 0);
+      }
+    }
+
+    // the last page may have been spilled while it is not full
+    tvList.getDouble(0);
+    for (int i = ITERATION_TIMES; i < 2 * ITERATION_TIMES; ++i) {
+      tvList.putDouble(i, i * 0.5);
+      assertEquals(0, tvList.getTime(0));
+    }
+    for (int i = 0; i < 2 * ITERATION_TIMES; ++i) {
+      assertEquals(i, tvList.getTime(i));
+      if (i < ITERATION_TIMES && i % 7 == 0) {
+        assertTrue(tvList.isNull(i));
+      } else {
+        assertEquals(i * 0.5, tvList.getDouble(i), 0);
+      }
+    }
+  }
+
+  @Test
+  public void testDirectMemoryWithinBudget() throws QueryProcessException, IOException {
+    OffHeapElasticSerializableTVList tvList =
+        (OffHeapElasticSerializableTVList)
+            ElasticSerializableTVList.newElasticSerializableTVList(
+                TSDataType.INT64, QUERY_ID, SMALL_MEMORY_USAGE_LIMIT_IN_MB, CACHE_SIZE);
+    for (int i = 0; i < ITERATION_TIMES; ++i) {
+      tvList.putLong(i, i);
+    }
+    long allocatedAfterPut = tvList.getAllocatedDirectMemoryInBytes();
+    assertTrue(allocatedAfterPut > 0);
+    assertTrue(allocatedAfterPut <= SMALL_MEMORY_USAGE_LIMIT_IN_MB * 1024 * 1024);
+
+    // reloading spilled pages reuses the buffers of evicted pages
+    Random random = new Random(0);
+    for (int i = 0; i < ITERATION_TIMES; ++i) {
+      int index = random.nextInt(ITERATION_TIMES);
+      assertEquals(index, tvList.getLong(index));
+    }
+    assertEquals(allocatedAfterPut, tvList.getAllocatedDirectMemoryInBytes());
+  }
+
+  @Test
+  public void testBooleanAndLong() throws QueryProcessException, IOException {
+    ElasticSerializableTVList booleanList =
+        ElasticSerializableTVList.newElasticSerializableTVList(
+            TSDataType.BOOLEAN, QUERY_ID, SMALL_MEMORY_USAGE_LIMIT_IN_MB, CACHE_SIZE);
+    ElasticSerializableTVList longList =
+        ElasticSerializableTVList.newElasticSerializableTVList(
+            TSDataType.INT64, QUERY_ID, SMALL_MEMORY_USAGE_LIMIT_IN_MB, CACHE_SIZE);
+    for (int i = 0; i < ITERATION_TIMES; ++i) {
+      booleanList.putBoolean(i, i % 3 == 0);
+      longList.putLong(i, -i);
+    }
+    for (int i = ITERATION_TIMES - 1; 0 <= i; --i) {
+      assertEquals(i % 3 == 0, booleanList.getBoolean(i));
+      assertEquals(-i, longList.getLong(i));
+    }
+  }
+}
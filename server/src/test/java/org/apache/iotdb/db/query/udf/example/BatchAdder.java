@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.db.query.udf.example;
+
+import org.apache.iotdb.db.query.udf.api.BatchUDTF;
+import org.apache.iotdb.db.query.udf.api.access.Row;
+import org.apache.iotdb.db.query.udf.api.access.RowWindow;
+import org.apache.iotdb.db.query.udf.api.collector.PointCollector;
+import org.apache.iotdb.db.query.udf.api.customizer.config.UDTFConfigurations;
+import org.apache.iotdb.db.query.udf.api.customizer.parameter.UDFParameterValidator;
+import org.apache.iotdb.db.query.udf.api.customizer.parameter.UDFParameters;
+import org.apache.iotdb.db.query.udf.api.customizer.strategy.RowByRowAccessStrategy;
+import org.apache.iotdb.db.query.udf.api.customizer.strategy.SlidingSizeWindowAccessStrategy;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.block.column.Column;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
+
+import java.io.IOException;
+
+/** {@link Adder} that also transforms batches of rows, or windows if "windowSize" is given. */
+public class BatchAdder implements BatchUDTF {
+
+  private double addend;
+  private TSDataType[] dataTypes;
+
+  @Override
+  public void validate(UDFParameterValidator validator) throws Exception {
+    validator
+        .validateInputSeriesNumber(2)
+        .validateInputSeriesDataType(
+            0, TSDataType.INT32, TSDataType.INT64, TSDataType.FLOAT, TSDataType.DOUBLE)
+        .validateInputSeriesDataType(
+            1, TSDataType.INT32, TSDataType.INT64, TSDataType.FLOAT, TSDataType.DOUBLE);
+  }
+
+  @Override
+  public void beforeStart(UDFParameters parameters, UDTFConfigurations configurations)
+      throws Exception {
+    addend = parameters.getFloatOrDefault("addend", 0);
+    dataTypes = new TSDataType[] {parameters.getDataType(0), parameters.getDataType(1)};
+    configurations
+        .setOutputDataType(TSDataType.INT64)
+        .setAccessStrategy(
+            parameters.hasAttribute("windowSize")
+                ? new SlidingSizeWindowAccessStrategy(parameters.getInt("windowSize"))
+                : new RowByRowAccessStrategy());
+  }
+
+  @Override
+  public void transform(Row row, PointCollector collector) throws Exception {
+    if (row.isNull(0) || row.isNull(1)) {
+      return;
+    }
+    collector.putLong(
+        row.getTime(), (long) (extractDoubleValue(row, 0) + extractDoubleValue(row, 1) + addend));
+  }
+
+  @Override
+  public void transform(RowWindow rowWindow, PointCollector collector) throws Exception {
+    for (int i = 0; i < rowWindow.windowSize(); ++i) {
+      transform(rowWindow.getRow(i), collector);
+    }
+  }
+
+  @Override
+  public void transform(TimeColumn timeColumn, Column[] valueColumns, PointCollector collector)
+      throws Exception {
+    for (int i = 0; i < timeColumn.getPositionCount(); ++i) {
+      if (valueColumns[0].isNull(i) || valueColumns[1].isNull(i)) {
+        continue;
+      }
+      collector.putLong(
+          timeColumn.getLong(i),
+          (long)
+              (extractDoubleValue(valueColumns[0], dataTypes[0], i)
+                  + extractDoubleValue(valueColumns[1], dataTypes[1], i)
+                  + addend));
+    }
+  }
+
+  private double extractDoubleValue(Row row, int index) throws IOException {
+    switch (row.getDataType(index)) {
+      case INT32:
+        return row.getInt(index);
+      case INT64:
+        return (double) row.getLong(index);
+      case FLOAT:
+        return row.getFloat(index);
+      case DOUBLE:
+        return row.getDouble(index);
+      default:
+        throw new UnSupportedDataTypeException(row.getDataType(index).toString());
+    }
+  }
+
+  private double extractDoubleValue(Column column, TSDataType dataType, int position) {
+    switch (dataType) {
+      case INT32:
+        return column.getInt(position);
+      case INT64:
+        return (double) column.getLong(position);
+      case FLOAT:
+        return column.getFloat(position);
+      case DOUBLE:
+        return column.getDouble(position);
+      default:
+        throw new UnSupportedDataTypeException(dataType.toString());
+    }
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.rescon;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PrimitiveArrayManagerTest {
+
+  @Before
+  public void setUp() {
+    PrimitiveArrayManager.close();
+  }
+
+  @After
+  public void tearDown() {
+    PrimitiveArrayManager.close();
+  }
+
+  @Test
+  public void testReuseInSameThread() {
+    long[] array = (long[]) PrimitiveArrayManager.allocate(TSDataType.INT64);
+    assertEquals(PrimitiveArrayManager.ARRAY_SIZE, array.length);
+    PrimitiveArrayManager.release(array);
+    assertSame(array, PrimitiveArrayManager.allocate(TSDataType.INT64));
+    assertEquals(0.5, PrimitiveArrayManager.getArrayReuseRatio(TSDataType.INT64), 0);
+  }
+
+  @Test
+  public void testReleaseAllClearsBinaries() {
+    Binary[] array = (Binary[]) PrimitiveArrayManager.allocate(TSDataType.TEXT);
+    array[0] = Binary.valueOf("a");
+    PrimitiveArrayManager.releaseAll(Collections.singletonList(array));
+    Binary[] reused = (Binary[]) PrimitiveArrayManager.allocate(TSDataType.TEXT);
+    assertSame(array, reused);
+    assertNull(reused[0]);
+  }
+
+  @Test
+  public void testReuseAcrossThreads() throws InterruptedException {
+    int arrayNum = 256;
+    List<Object> arrays = new ArrayList<>();
+    for (int i = 0; i < arrayNum; ++i) {
+      arrays.add(PrimitiveArrayManager.allocate(TSDataType.DOUBLE));
+    }
+    assertEquals(
+        (long) arrayNum * PrimitiveArrayManager.ARRAY_SIZE * 8,
+        PrimitiveArrayManager.getOutstandingArrayBytes(TSDataType.DOUBLE));
+
+    // arrays released by another thread, e.g. a flush thread, come back through the depot
+    Thread releaser = new Thread(() -> PrimitiveArrayManager.releaseAll(arrays));
+    releaser.start();
+    releaser.join();
+    assertEquals(0, PrimitiveArrayManager.getOutstandingArrayBytes(TSDataType.DOUBLE));
+
+    Map<Object, Boolean> released = new IdentityHashMap<>();
+    for (Object array : arrays) {
+      released.put(array, true);
+    }
+    int reusedNum = 0;
+    for (int i = 0; i < arrayNum; ++i) {
+      if (released.containsKey(PrimitiveArrayManager.allocate(TSDataType.DOUBLE))) {
+        ++reusedNum;
+      }
+    }
+    assertTrue(reusedNum > 0);
+  }
+}
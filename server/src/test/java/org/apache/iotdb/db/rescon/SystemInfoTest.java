@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.rescon;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.storagegroup.StorageGroupInfo;
+import org.apache.iotdb.db.engine.storagegroup.TsFileProcessor;
+import org.apache.iotdb.db.engine.storagegroup.VirtualStorageGroupProcessor;
+import org.apache.iotdb.db.exception.WriteProcessRejectException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SystemInfoTest {
+
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  /** the memory for write during the tests, so that the thresholds are easy to cross */
+  private static final long MEMORY_SIZE_FOR_WRITE = 1024 * 1024;
+
+  private final SystemInfo systemInfo = SystemInfo.getInstance();
+  private boolean enableAsyncFlushSelection;
+  private long shrunkMemorySize;
+
+  @Before
+  public void setUp() {
+    systemInfo.close();
+    enableAsyncFlushSelection = config.isEnableAsyncFlushSelection();
+    long memorySizeForWrite =
+        Math.round(systemInfo.getFlushThershold() / config.getFlushProportion());
+    shrunkMemorySize = memorySizeForWrite - MEMORY_SIZE_FOR_WRITE;
+    systemInfo.applyTemporaryMemoryForFlushing(shrunkMemorySize);
+  }
+
+  @After
+  public void tearDown() {
+    systemInfo.releaseTemporaryMemoryForFlushing(shrunkMemorySize);
+    config.setEnableAsyncFlushSelection(enableAsyncFlushSelection);
+    systemInfo.close();
+  }
+
+  private StorageGroupInfo newStorageGroupInfo() {
+    return new StorageGroupInfo(Mockito.mock(VirtualStorageGroupProcessor.class));
+  }
+
+  private TsFileProcessor newTsFileProcessor(StorageGroupInfo storageGroupInfo, long memCost) {
+    TsFileProcessor tsFileProcessor = Mockito.mock(TsFileProcessor.class);
+    Mockito.when(tsFileProcessor.getWorkMemTableRamCost()).thenReturn(memCost);
+    storageGroupInfo.initTsFileProcessorInfo(tsFileProcessor);
+    return tsFileProcessor;
+  }
+
+  @Test
+  public void testConcurrentReportAndReset() throws Exception {
+    int threadNum = 8;
+    int storageGroupNum = 4;
+    List<StorageGroupInfo> storageGroupInfos = new ArrayList<>();
+    for (int i = 0; i < storageGroupNum; i++) {
+      storageGroupInfos.add(newStorageGroupInfo());
+    }
+    // each memory cost added is small enough for the total to stay under the flush threshold
+    long maxCost = (long) systemInfo.getFlushThershold() / threadNum / 100;
+
+    ExecutorService pool = Executors.newFixedThreadPool(threadNum);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int t = 0; t < threadNum; t++) {
+      StorageGroupInfo storageGroupInfo = storageGroupInfos.get(t % storageGroupNum);
+      futures.add(
+          pool.submit(
+              () -> {
+                start.await();
+                for (int i = 0; i < 10000; i++) {
+                  long cost = ThreadLocalRandom.current().nextLong(1, maxCost);
+                  storageGroupInfo.addStorageGroupMemCost(cost);
+                  assertTrue(systemInfo.reportStorageGroupStatus(storageGroupInfo, null));
+                  storageGroupInfo.releaseStorageGroupMemCost(cost);
+                  systemInfo.resetStorageGroupStatus(storageGroupInfo);
+                }
+                return null;
+              }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get(60, TimeUnit.SECONDS);
+    }
+    pool.shutdown();
+
+    // the total is the sum of the last reported sizes, whatever the order of the reports
+    for (StorageGroupInfo storageGroupInfo : storageGroupInfos) {
+      systemInfo.resetStorageGroupStatus(storageGroupInfo);
+    }
+    assertEquals(0, systemInfo.getTotalMemTableSize());
+    assertFalse(systemInfo.isRejected());
+  }
+
+  @Test
+  public void testThresholdCrossing() throws WriteProcessRejectException {
+    config.setEnableAsyncFlushSelection(false);
+    StorageGroupInfo storageGroupInfo = newStorageGroupInfo();
+
+    long belowFlush = (long) systemInfo.getFlushThershold() - 1;
+    storageGroupInfo.addStorageGroupMemCost(belowFlush);
+    assertTrue(systemInfo.reportStorageGroupStatus(storageGroupInfo, null));
+    assertEquals(belowFlush, systemInfo.getTotalMemTableSize());
+    assertFalse(systemInfo.isRejected());
+
+    // over the flush threshold, the memtable of the writer is chosen to flush
+    TsFileProcessor tsFileProcessor =
+        newTsFileProcessor(storageGroupInfo, (long) systemInfo.getFlushThershold());
+    storageGroupInfo.addStorageGroupMemCost(2);
+    assertTrue(systemInfo.reportStorageGroupStatus(storageGroupInfo, tsFileProcessor));
+    Mockito.verify(tsFileProcessor).setWorkMemTableShouldFlush();
+    assertFalse(systemInfo.isRejected());
+
+    // over the reject threshold, with nothing left to flush
+    storageGroupInfo.getAllReportedTsp().remove(tsFileProcessor);
+    long overReject =
+        (long) Math.ceil(systemInfo.getRejectThershold()) - systemInfo.getTotalMemTableSize();
+    storageGroupInfo.addStorageGroupMemCost(overReject);
+    assertFalse(systemInfo.reportStorageGroupStatus(storageGroupInfo, null));
+    assertTrue(systemInfo.isRejected());
+
+    // released under the reject threshold but still over the flush threshold
+    storageGroupInfo.releaseStorageGroupMemCost(overReject);
+    systemInfo.resetStorageGroupStatus(storageGroupInfo);
+    assertFalse(systemInfo.isRejected());
+
+    storageGroupInfo.releaseStorageGroupMemCost(storageGroupInfo.getMemCost());
+    systemInfo.resetStorageGroupStatus(storageGroupInfo);
+    assertEquals(0, systemInfo.getTotalMemTableSize());
+    assertFalse(systemInfo.isRejected());
+  }
+
+  @Test
+  public void testAsyncFlushSelection() throws WriteProcessRejectException {
+    config.setEnableAsyncFlushSelection(true);
+    StorageGroupInfo storageGroupInfo = newStorageGroupInfo();
+    long overFlush = (long) systemInfo.getFlushThershold() + 1;
+    TsFileProcessor tsFileProcessor = newTsFileProcessor(storageGroupInfo, overFlush);
+
+    // the writer is not blocked by the selection, which happens on another thread
+    storageGroupInfo.addStorageGroupMemCost(overFlush);
+    assertTrue(systemInfo.reportStorageGroupStatus(storageGroupInfo, tsFileProcessor));
+    Mockito.verify(tsFileProcessor, Mockito.timeout(10000)).setWorkMemTableShouldFlush();
+    assertFalse(systemInfo.isRejected());
+
+    // over the reject threshold, the writer waits for the memory to be released
+    storageGroupInfo.addStorageGroupMemCost((long) systemInfo.getRejectThershold());
+    assertFalse(systemInfo.reportStorageGroupStatus(storageGroupInfo, tsFileProcessor));
+    assertTrue(systemInfo.isRejected());
+    Mockito.verify(tsFileProcessor, Mockito.timeout(10000).atLeast(2)).setWorkMemTableShouldFlush();
+
+    storageGroupInfo.releaseStorageGroupMemCost(storageGroupInfo.getMemCost());
+    systemInfo.resetStorageGroupStatus(storageGroupInfo);
+    assertFalse(systemInfo.isRejected());
+  }
+
+  @Test
+  public void testReportAfterClose() throws WriteProcessRejectException {
+    StorageGroupInfo storageGroupInfo = newStorageGroupInfo();
+    storageGroupInfo.addStorageGroupMemCost(100);
+    systemInfo.reportStorageGroupStatus(storageGroupInfo, null);
+    assertEquals(100, systemInfo.getTotalMemTableSize());
+
+    // the memory reported before closing is not taken as reported any more
+    systemInfo.close();
+    assertEquals(0, systemInfo.getTotalMemTableSize());
+    systemInfo.reportStorageGroupStatus(storageGroupInfo, null);
+    assertEquals(100, systemInfo.getTotalMemTableSize());
+  }
+}
@@ -62,12 +62,16 @@ public class FileLoaderTest {
   private IFileLoader fileLoader;
 
   private int prevVirtualPartitionNum;
+  private int prevSyncLoadThreadNum;
 
   @Before
   public void setUp() throws Exception {
     prevVirtualPartitionNum = IoTDBDescriptor.getInstance().getConfig().getVirtualStorageGroupNum();
     IoTDBDescriptor.getInstance().getConfig().setVirtualStorageGroupNum(1);
     IoTDBDescriptor.getInstance().getConfig().setSyncEnable(true);
+    // load the new tsfiles concurrently
+    prevSyncLoadThreadNum = IoTDBDescriptor.getInstance().getConfig().getSyncLoadThreadNum();
+    IoTDBDescriptor.getInstance().getConfig().setSyncLoadThreadNum(4);
     EnvironmentUtils.envSetUp();
     dataDir =
         new File(DirectoryManager.getInstance().getNextFolderForSequenceFile())
@@ -88,6 +92,7 @@ public class FileLoaderTest {
     EnvironmentUtils.cleanEnv();
     IoTDBDescriptor.getInstance().getConfig().setSyncEnable(false);
     IoTDBDescriptor.getInstance().getConfig().setVirtualStorageGroupNum(prevVirtualPartitionNum);
+    IoTDBDescriptor.getInstance().getConfig().setSyncLoadThreadNum(prevSyncLoadThreadNum);
   }
 
   @Test
@@ -391,6 +396,96 @@ public class FileLoaderTest {
     }
   }
 
+  @Test
+  public void loadNewTsfilesConcurrentlyAroundDeletions()
+      throws IOException, StorageEngineException, IllegalPathException, InterruptedException {
+    fileLoader = FileLoader.createFileLoader(getReceiverFolderFile());
+    long time = System.currentTimeMillis();
+    Map<String, List<File>> firstFiles = new HashMap<>();
+    Map<String, List<File>> secondFiles = new HashMap<>();
+    for (int i = 0; i < 3; i++) {
+      for (int j = 0; j < 20; j++) {
+        File syncFile = createSyncFile(SG_NAME + i, time + i * 100 + j, i, j);
+        (j < 10 ? firstFiles : secondFiles)
+            .computeIfAbsent(SG_NAME + i, k -> new ArrayList<>())
+            .add(syncFile);
+      }
+    }
+
+    // the deletions are queued between two batches of new tsfiles, so they have to wait for the
+    // first batch to be loaded and the second batch has to wait for them
+    Set<String> deletedFileNames = new HashSet<>();
+    firstFiles.values().forEach(files -> files.forEach(fileLoader::addTsfile));
+    for (List<File> files : firstFiles.values()) {
+      for (File syncFile : files.subList(0, 5)) {
+        deletedFileNames.add(syncFile.getName());
+        fileLoader.addDeletedFileName(syncFile);
+      }
+    }
+    secondFiles.values().forEach(files -> files.forEach(fileLoader::addTsfile));
+    fileLoader.endSync();
+
+    long waitTime = 0;
+    while (FileLoaderManager.getInstance().containsFileLoader(getReceiverFolderFile().getName())) {
+      Thread.sleep(100);
+      waitTime += 100;
+      LOGGER.info("Has waited for loading new tsfiles {}ms", waitTime);
+    }
+
+    for (int i = 0; i < 3; i++) {
+      VirtualStorageGroupProcessor processor =
+          StorageEngine.getInstance().getProcessor(new PartialPath(SG_NAME + i));
+      Set<String> loadedFileNames = new HashSet<>();
+      for (TsFileResource tsFileResource : processor.getSequenceFileList()) {
+        loadedFileNames.add(tsFileResource.getTsFile().getName());
+      }
+      assertEquals(15, loadedFileNames.size());
+      for (File syncFile : firstFiles.get(SG_NAME + i).subList(5, 10)) {
+        assertTrue(loadedFileNames.contains(syncFile.getName()));
+      }
+      for (File syncFile : secondFiles.get(SG_NAME + i)) {
+        assertTrue(loadedFileNames.contains(syncFile.getName()));
+      }
+      for (String loadedFileName : loadedFileNames) {
+        assertFalse(deletedFileNames.contains(loadedFileName));
+      }
+      assertTrue(processor.getUnSequenceFileList().isEmpty());
+    }
+  }
+
+  /** Create an empty tsfile with its resource in the folder of the received files. */
+  private File createSyncFile(String sg, long fileTime, int deviceIndex, int fileIndex)
+      throws IOException {
+    File syncFile =
+        new File(
+            getSnapshotFolder()
+                + File.separator
+                + sg
+                + File.separator
+                + "0"
+                + File.separator
+                + "0"
+                + File.separator
+                + fileTime
+                + IoTDBConstant.FILE_NAME_SEPARATOR
+                + fileIndex
+                + IoTDBConstant.FILE_NAME_SEPARATOR
+                + "0.tsfile");
+    if (!syncFile.getParentFile().exists()) {
+      syncFile.getParentFile().mkdirs();
+    }
+    if (!syncFile.exists() && !syncFile.createNewFile()) {
+      LOGGER.error("Can not create new file {}", syncFile.getPath());
+    }
+    TsFileResource tsFileResource = new TsFileResource(syncFile);
+    tsFileResource.updateStartTime(String.valueOf(deviceIndex), (long) fileIndex * 10);
+    tsFileResource.updateEndTime(String.valueOf(deviceIndex), (long) fileIndex * 10 + 5);
+    tsFileResource.setMinPlanIndex(fileIndex);
+    tsFileResource.setMaxPlanIndex(fileIndex);
+    tsFileResource.serialize();
+    return syncFile;
+  }
+
   private File getReceiverFolderFile() {
     return new File(
         dataDir
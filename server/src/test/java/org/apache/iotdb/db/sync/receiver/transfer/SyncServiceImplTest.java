@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.sync.receiver.transfer;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.conf.directories.DirectoryManager;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.sync.conf.SyncConstant;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.service.sync.thrift.ConfirmInfo;
+import org.apache.iotdb.service.sync.thrift.SyncStatus;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SyncServiceImplTest {
+
+  private static final String SG_NAME = "root.sg0";
+  private static final String SENDER_ADDRESS = "127.0.0.1";
+  private static final String SENDER_UUID = "sender";
+  private static final String FILE_NAME = "1-1-0-0.tsfile" + TsFileResource.RESOURCE_SUFFIX;
+  private static final String FILE_INFO =
+      "0"
+          + SyncConstant.SYNC_DIR_NAME_SEPARATOR
+          + "0"
+          + SyncConstant.SYNC_DIR_NAME_SEPARATOR
+          + FILE_NAME;
+
+  private final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  private SyncServiceImpl service;
+  // the calls of a connection run on its own thread, like the thrift server does
+  private ExecutorService mainConnection;
+  private ExecutorService joinedConnection;
+  // whether the main connection has a sync task to end
+  private boolean started = false;
+
+  @Before
+  public void setUp() throws Exception {
+    config.setSyncEnable(true);
+    EnvironmentUtils.envSetUp();
+    service = new SyncServiceImpl();
+    mainConnection = Executors.newSingleThreadExecutor();
+    joinedConnection = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (started) {
+      on(mainConnection, service::endSync);
+    }
+    mainConnection.shutdownNow();
+    joinedConnection.shutdownNow();
+    EnvironmentUtils.cleanEnv();
+    config.setSyncEnable(false);
+  }
+
+  @Test
+  public void testPositionalWrites() throws Exception {
+    startSync();
+    byte[] content = randomBytes(1000);
+
+    assertEquals("0", on(mainConnection, () -> service.initSyncFile(SG_NAME, FILE_INFO)).msg);
+    assertSuccess(sendPiece(mainConnection, content, 0, 300));
+    // a piece has to follow the received bytes
+    assertError(sendPiece(mainConnection, content, 500, 700));
+    assertError(sendPiece(mainConnection, content, 0, 300));
+    assertSuccess(sendPiece(mainConnection, content, 300, 700));
+    assertSuccess(sendPiece(mainConnection, content, 700, 1000));
+
+    SyncStatus status =
+        on(mainConnection, () -> service.checkFileDigest(SG_NAME, FILE_INFO, digest(content)));
+    assertSuccess(status);
+    assertEquals(digest(content), status.msg);
+    assertArrayEquals(content, Files.readAllBytes(getReceivedFile().toPath()));
+  }
+
+  @Test
+  public void testResumeOnJoinedConnection() throws Exception {
+    startSync();
+    byte[] content = randomBytes(1000);
+    on(mainConnection, () -> service.initSyncFile(SG_NAME, FILE_INFO));
+    assertSuccess(sendPiece(mainConnection, content, 0, 400));
+
+    // the main connection breaks off, another connection of the sender takes the file over
+    assertSuccess(on(joinedConnection, () -> service.joinSync(confirmInfo())));
+    assertEquals("400", on(joinedConnection, () -> service.initSyncFile(SG_NAME, FILE_INFO)).msg);
+    assertSuccess(sendPiece(joinedConnection, content, 400, 1000));
+    assertSuccess(
+        on(joinedConnection, () -> service.checkFileDigest(SG_NAME, FILE_INFO, digest(content))));
+    assertArrayEquals(content, Files.readAllBytes(getReceivedFile().toPath()));
+  }
+
+  @Test
+  public void testDigestMismatch() throws Exception {
+    startSync();
+    byte[] content = randomBytes(1000);
+    on(mainConnection, () -> service.initSyncFile(SG_NAME, FILE_INFO));
+    assertSuccess(sendPiece(mainConnection, content, 0, 1000));
+
+    byte[] other = Arrays.copyOf(content, content.length);
+    other[10]++;
+    assertError(
+        on(mainConnection, () -> service.checkFileDigest(SG_NAME, FILE_INFO, digest(other))));
+    // the received bytes are discarded and the sender starts over
+    assertFalse(getReceivedFile().exists());
+    assertEquals("0", on(mainConnection, () -> service.initSyncFile(SG_NAME, FILE_INFO)).msg);
+  }
+
+  @Test
+  public void testJoinBeforeStart() throws Exception {
+    assertError(on(joinedConnection, () -> service.joinSync(confirmInfo())));
+    assertError(on(joinedConnection, () -> service.initSyncFile(SG_NAME, FILE_INFO)));
+  }
+
+  @Test
+  public void testDataFromConnectionOutsideTask() throws Exception {
+    startSync();
+    byte[] content = randomBytes(1000);
+    on(mainConnection, () -> service.initSyncFile(SG_NAME, FILE_INFO));
+    assertSuccess(sendPiece(mainConnection, content, 0, 300));
+
+    // a connection that has neither started nor joined the task can not write into its files
+    ExecutorService outsideConnection = Executors.newSingleThreadExecutor();
+    try {
+      assertError(sendPiece(outsideConnection, randomBytes(1000), 300, 700));
+    } finally {
+      outsideConnection.shutdownNow();
+    }
+
+    assertSuccess(sendPiece(mainConnection, content, 300, 1000));
+    assertSuccess(
+        on(mainConnection, () -> service.checkFileDigest(SG_NAME, FILE_INFO, digest(content))));
+    assertArrayEquals(content, Files.readAllBytes(getReceivedFile().toPath()));
+  }
+
+  @Test
+  public void testTaskDiscardedWhenMainConnectionExits() throws Exception {
+    startSync();
+    assertSuccess(on(joinedConnection, () -> service.joinSync(confirmInfo())));
+    on(mainConnection, () -> service.initSyncFile(SG_NAME, FILE_INFO));
+
+    on(
+        mainConnection,
+        () -> {
+          service.handleClientExit();
+          return null;
+        });
+    started = false;
+
+    // the connections that joined the task can not go on with it, and no one can join it anymore
+    assertError(on(joinedConnection, () -> service.initSyncFile(SG_NAME, FILE_INFO)));
+    assertError(on(joinedConnection, () -> service.joinSync(confirmInfo())));
+  }
+
+  @Test
+  public void testTaskKeptWhenJoinedConnectionExits() throws Exception {
+    startSync();
+    assertSuccess(on(joinedConnection, () -> service.joinSync(confirmInfo())));
+    on(
+        joinedConnection,
+        () -> {
+          service.handleClientExit();
+          return null;
+        });
+
+    assertSuccess(on(joinedConnection, () -> service.joinSync(confirmInfo())));
+    assertEquals("0", on(joinedConnection, () -> service.initSyncFile(SG_NAME, FILE_INFO)).msg);
+  }
+
+  private void startSync() throws Exception {
+    assertSuccess(on(mainConnection, () -> service.check(confirmInfo())));
+    assertSuccess(on(mainConnection, service::startSync));
+    started = true;
+  }
+
+  private SyncStatus sendPiece(ExecutorService connection, byte[] content, int from, int to)
+      throws Exception {
+    return on(
+        connection,
+        () ->
+            service.syncFileData(
+                SG_NAME, FILE_INFO, from, ByteBuffer.wrap(content, from, to - from)));
+  }
+
+  private ConfirmInfo confirmInfo() {
+    return new ConfirmInfo(
+        SENDER_ADDRESS, SENDER_UUID, config.getPartitionInterval(), config.getIoTDBMajorVersion());
+  }
+
+  private File getReceivedFile() throws Exception {
+    String dataDir =
+        new File(DirectoryManager.getInstance().getNextFolderForSequenceFile())
+            .getParentFile()
+            .getAbsolutePath();
+    return new File(
+        dataDir
+            + File.separator
+            + SyncConstant.SYNC_RECEIVER
+            + File.separator
+            + SENDER_ADDRESS
+            + SyncConstant.SYNC_DIR_NAME_SEPARATOR
+            + SENDER_UUID
+            + File.separator
+            + SyncConstant.RECEIVER_DATA_FOLDER_NAME
+            + File.separator
+            + SG_NAME
+            + File.separator
+            + "0"
+            + File.separator
+            + "0"
+            + File.separator
+            + FILE_NAME);
+  }
+
+  private static <T> T on(ExecutorService connection, Callable<T> call) throws Exception {
+    return connection.submit(call).get();
+  }
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    new Random(0).nextBytes(bytes);
+    return bytes;
+  }
+
+  private static String digest(byte[] content) throws Exception {
+    MessageDigest md = MessageDigest.getInstance(SyncConstant.MESSAGE_DIGIT_NAME);
+    return new BigInteger(1, md.digest(content)).toString(16);
+  }
+
+  private static void assertSuccess(SyncStatus status) {
+    assertEquals(status.msg, SyncConstant.SUCCESS_CODE, status.code);
+  }
+
+  private static void assertError(SyncStatus status) {
+    assertEquals(SyncConstant.ERROR_CODE, status.code);
+  }
+}
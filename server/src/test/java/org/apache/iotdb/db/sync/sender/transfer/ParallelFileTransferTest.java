@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.sync.sender.transfer;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.conf.directories.DirectoryManager;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.SyncConnectionException;
+import org.apache.iotdb.db.sync.conf.SyncConstant;
+import org.apache.iotdb.db.sync.conf.SyncSenderConfig;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.rpc.RpcTransportFactory;
+import org.apache.iotdb.service.sync.thrift.ConfirmInfo;
+import org.apache.iotdb.service.sync.thrift.SyncService;
+
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TTransport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class ParallelFileTransferTest {
+
+  private static final String SG_NAME = "root.sg0";
+
+  private final IoTDBConfig ioTDBConfig = IoTDBDescriptor.getInstance().getConfig();
+  private final SyncSenderConfig config = new SyncSenderConfig();
+  private String snapshotDir;
+  private ConfirmInfo confirmInfo;
+
+  @Before
+  public void setUp() throws Exception {
+    ioTDBConfig.setSyncEnable(true);
+    EnvironmentUtils.envSetUp();
+    snapshotDir =
+        new File(DirectoryManager.getInstance().getNextFolderForSequenceFile())
+                .getParentFile()
+                .getAbsolutePath()
+            + File.separator
+            + "sync-snapshot";
+    config.setServerIp("127.0.0.1");
+    config.setServerPort(ioTDBConfig.getSyncServerPort());
+    config.setParallelTransferNum(3);
+    confirmInfo =
+        new ConfirmInfo(
+            "127.0.0.1",
+            "parallel",
+            ioTDBConfig.getPartitionInterval(),
+            ioTDBConfig.getIoTDBMajorVersion());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+    ioTDBConfig.setSyncEnable(false);
+  }
+
+  @Test
+  public void testTransfer() throws Exception {
+    TTransport transport =
+        RpcTransportFactory.INSTANCE.getTransport(
+            config.getServerIp(), config.getServerPort(), 2000);
+    try {
+      SyncService.Client mainClient = new SyncService.Client(getProtocol(transport));
+      if (!transport.isOpen()) {
+        transport.open();
+      }
+      assertEquals(SyncConstant.SUCCESS_CODE, mainClient.check(confirmInfo).code);
+      assertEquals(SyncConstant.SUCCESS_CODE, mainClient.startSync().code);
+
+      ParallelFileTransfer transfer = new ParallelFileTransfer(config, confirmInfo);
+      try {
+        List<Future<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+          futures.add(transfer.submit(SG_NAME, createSnapshotFile(i)));
+        }
+        // a future completes only after the receiver has checked the digest of both files
+        for (Future<Void> future : futures) {
+          future.get(1, TimeUnit.MINUTES);
+        }
+      } finally {
+        transfer.close();
+      }
+      assertEquals(SyncConstant.SUCCESS_CODE, mainClient.endSync().code);
+    } finally {
+      transport.close();
+    }
+  }
+
+  @Test
+  public void testJoinWithoutSyncTask() {
+    try {
+      new ParallelFileTransfer(config, confirmInfo).close();
+      fail("The receiver should reject connections of a sender without a sync task");
+    } catch (SyncConnectionException e) {
+      // expected
+    }
+  }
+
+  private TProtocol getProtocol(TTransport transport) {
+    if (ioTDBConfig.isRpcThriftCompressionEnable()) {
+      return new TCompactProtocol(transport);
+    }
+    return new TBinaryProtocol(transport);
+  }
+
+  private File createSnapshotFile(int index) throws IOException {
+    File file =
+        new File(
+            snapshotDir
+                + File.separator
+                + SG_NAME
+                + File.separator
+                + "0"
+                + File.separator
+                + "0"
+                + File.separator
+                + (System.currentTimeMillis() + index)
+                + "-"
+                + index
+                + "-0.tsfile");
+    file.getParentFile().mkdirs();
+    byte[] content = new byte[1024 * (index + 1)];
+    new Random(index).nextBytes(content);
+    Files.write(file.toPath(), content);
+
+    TsFileResource resource = new TsFileResource(file);
+    resource.updateStartTime(SG_NAME + ".d0", index * 10L);
+    resource.updateEndTime(SG_NAME + ".d0", index * 10L + 5);
+    resource.serialize();
+    return file;
+  }
+}
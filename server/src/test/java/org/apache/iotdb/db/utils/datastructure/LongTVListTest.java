@@ -77,6 +77,68 @@ public class LongTVListTest {
     }
   }
 
+  @Test
+  public void testSortMostlyOrdered() {
+    Random random = new Random();
+    LongTVList tvList = new LongTVList();
+    List<TimeValuePair> inputs = new ArrayList<>();
+    for (long i = 0; i < 10000; i++) {
+      // every 500 points, a burst of delayed points arrives
+      long time = i % 500 < 20 ? i - random.nextInt(1000) : i;
+      long value = random.nextInt(10000);
+      tvList.putLong(time, value);
+      inputs.add(new TimeValuePair(time, new TsLong(value)));
+    }
+    tvList.sort();
+    inputs.sort(TimeValuePair::compareTo);
+    for (long i = 0; i < tvList.rowCount; i++) {
+      Assert.assertEquals(inputs.get((int) i).getTimestamp(), tvList.getTime((int) i));
+      Assert.assertEquals(inputs.get((int) i).getValue().getLong(), tvList.getLong((int) i));
+    }
+  }
+
+  @Test
+  public void testSortWideTimeRange() {
+    Random random = new Random();
+    LongTVList tvList = new LongTVList();
+    List<TimeValuePair> inputs = new ArrayList<>();
+    for (long i = 0; i < 10000; i++) {
+      long time = i % 3 == 0 ? random.nextLong() : random.nextInt(100) - 50;
+      long value = random.nextInt(10000);
+      tvList.putLong(time, value);
+      inputs.add(new TimeValuePair(time, new TsLong(value)));
+    }
+    tvList.sort();
+    inputs.sort(TimeValuePair::compareTo);
+    for (long i = 0; i < tvList.rowCount; i++) {
+      Assert.assertEquals(inputs.get((int) i).getTimestamp(), tvList.getTime((int) i));
+      Assert.assertEquals(inputs.get((int) i).getValue().getLong(), tvList.getLong((int) i));
+    }
+  }
+
+  @Test
+  public void testSortAppendedRows() {
+    Random random = new Random();
+    LongTVList tvList = new LongTVList();
+    List<TimeValuePair> inputs = new ArrayList<>();
+    for (int round = 0; round < 20; round++) {
+      for (long i = 0; i < 500; i++) {
+        long time = round * 500 + (random.nextInt(10) == 0 ? -random.nextInt(2000) : i);
+        long value = random.nextInt(10000);
+        tvList.putLong(time, value);
+        inputs.add(new TimeValuePair(time, new TsLong(value)));
+      }
+      tvList.sort();
+      // the rows put before the sort keep their order among equal times
+      inputs.sort(TimeValuePair::compareTo);
+      Assert.assertEquals(inputs.size(), tvList.rowCount);
+      for (int i = 0; i < tvList.rowCount; i++) {
+        Assert.assertEquals(inputs.get(i).getTimestamp(), tvList.getTime(i));
+        Assert.assertEquals(inputs.get(i).getValue().getLong(), tvList.getLong(i));
+      }
+    }
+  }
+
   @Test
   public void testPutLongsWithoutBitMap() {
     LongTVList tvList = new LongTVList();
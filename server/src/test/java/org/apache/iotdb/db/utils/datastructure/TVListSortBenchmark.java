@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.utils.datastructure;
+
+import java.util.Random;
+
+/**
+ * Bench the sorting time of a LongTVList with 0%, 0.001%, 0.01%, 1%, 10%, 50% and 100% out-of-order
+ * points, using the adaptive sort of TVList and the plain merge sort.
+ */
+public class TVListSortBenchmark {
+
+  private static double[] disorderRatios = {0, 0.00001, 0.0001, 0.01, 0.1, 0.5, 1};
+  private static int numOfRow = 1_000_000;
+  private static int numOfWarmUp = 3;
+  private static int numOfRound = 10;
+
+  public static void main(String[] args) {
+    for (double disorderRatio : disorderRatios) {
+      long[] times = generateTimes(disorderRatio);
+      for (int i = 0; i < numOfWarmUp; i++) {
+        bench(new LongTVList(), times);
+        bench(new MergeSortLongTVList(), times);
+      }
+      long adaptiveTime = 0;
+      long mergeSortTime = 0;
+      for (int i = 0; i < numOfRound; i++) {
+        adaptiveTime += bench(new LongTVList(), times);
+        mergeSortTime += bench(new MergeSortLongTVList(), times);
+      }
+      System.out.println(
+          String.format(
+              "Disorder ratio: %.5f, rows: %d, adaptive sort: %.2f ms, merge sort: %.2f ms",
+              disorderRatio,
+              numOfRow,
+              adaptiveTime / 1_000_000.0 / numOfRound,
+              mergeSortTime / 1_000_000.0 / numOfRound));
+    }
+  }
+
+  /** Each point is delayed by a random distance with the probability of disorderRatio. */
+  private static long[] generateTimes(double disorderRatio) {
+    Random random = new Random(0);
+    long[] times = new long[numOfRow];
+    for (int i = 0; i < numOfRow; i++) {
+      times[i] = random.nextDouble() < disorderRatio ? i - random.nextInt(numOfRow) : i;
+    }
+    return times;
+  }
+
+  private static long bench(LongTVList tvList, long[] times) {
+    for (long time : times) {
+      tvList.putLong(time, time);
+    }
+    long startTime = System.nanoTime();
+    tvList.sort();
+    long elapsedTime = System.nanoTime() - startTime;
+    tvList.clear();
+    return elapsedTime;
+  }
+
+  private static class MergeSortLongTVList extends LongTVList {
+
+    @Override
+    protected void sort(int lo, int hi) {
+      if (!sorted) {
+        mergeSort(lo, hi);
+      }
+    }
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.rpc;
+
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented view over the rows of one fetched TSQueryDataSet, read straight from its time,
+ * value and bitmap buffers without building a RowRecord or Field per row. Columns are addressed by
+ * their index in the deduplicated result, see {@link #getColumnIndex(String)}, and are decoded into
+ * primitive arrays the first time they are asked for. Null cells hold the default value of the
+ * array type and can be told apart by {@link #isNull(int, int)}.
+ */
+public class ColumnarBatch {
+
+  private final List<TSDataType> dataTypes;
+  private final Map<String, Integer> columnOrdinalMap;
+  private final int rowCount;
+  // row of the TSQueryDataSet the first row of this batch comes from
+  private final int firstRow;
+
+  private final ByteBuffer timeBuffer;
+  private final ByteBuffer[] valueBuffers;
+  // bitmap buffers positioned at the byte of row 0 of the TSQueryDataSet
+  private final ByteBuffer[] bitmapBuffers;
+
+  private long[] times;
+  private final Object[] columns;
+
+  /**
+   * @param firstRow the number of rows of the data set already read through its buffers, whose
+   *     positions must sit right after those rows
+   */
+  ColumnarBatch(
+      TSQueryDataSet dataSet,
+      List<TSDataType> dataTypes,
+      Map<String, Integer> columnOrdinalMap,
+      int firstRow) {
+    this.dataTypes = dataTypes;
+    this.columnOrdinalMap = columnOrdinalMap;
+    this.firstRow = firstRow;
+    this.timeBuffer = dataSet.time.duplicate();
+    this.rowCount = timeBuffer.remaining() / Long.BYTES;
+    int columnCount = dataSet.valueList.size();
+    this.valueBuffers = new ByteBuffer[columnCount];
+    this.bitmapBuffers = new ByteBuffer[columnCount];
+    // the bitmap byte of the last read row has already been consumed
+    int readBitmapBytes = (firstRow + 7) / 8;
+    for (int i = 0; i < columnCount; i++) {
+      valueBuffers[i] = dataSet.valueList.get(i).duplicate();
+      ByteBuffer bitmap = dataSet.bitmapList.get(i).duplicate();
+      bitmap.position(bitmap.position() - readBitmapBytes);
+      bitmapBuffers[i] = bitmap.slice();
+    }
+    this.columns = new Object[columnCount];
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  public int getColumnCount() {
+    return valueBuffers.length;
+  }
+
+  /** @return the index of the column in this batch, or -1 for the time column */
+  public int getColumnIndex(String columnName) {
+    return columnOrdinalMap.get(columnName) - IoTDBRpcDataSet.START_INDEX;
+  }
+
+  public TSDataType getDataType(int column) {
+    return dataTypes.get(column);
+  }
+
+  public long[] getTimes() {
+    if (times == null) {
+      times = new long[rowCount];
+      ByteBuffer buffer = timeBuffer.duplicate();
+      for (int i = 0; i < rowCount; i++) {
+        times[i] = buffer.getLong();
+      }
+    }
+    return times;
+  }
+
+  public boolean isNull(int column, int row) {
+    int bitmapRow = firstRow + row;
+    byte bitmap = bitmapBuffers[column].get(bitmapRow / 8);
+    return ((IoTDBRpcDataSet.FLAG >>> (bitmapRow % 8)) & (bitmap & 0xff)) == 0;
+  }
+
+  public boolean[] getBooleans(int column) {
+    return (boolean[]) getColumn(column, TSDataType.BOOLEAN);
+  }
+
+  public int[] getInts(int column) {
+    return (int[]) getColumn(column, TSDataType.INT32);
+  }
+
+  public long[] getLongs(int column) {
+    return (long[]) getColumn(column, TSDataType.INT64);
+  }
+
+  public float[] getFloats(int column) {
+    return (float[]) getColumn(column, TSDataType.FLOAT);
+  }
+
+  public double[] getDoubles(int column) {
+    return (double[]) getColumn(column, TSDataType.DOUBLE);
+  }
+
+  public Binary[] getBinaries(int column) {
+    return (Binary[]) getColumn(column, TSDataType.TEXT);
+  }
+
+  private Object getColumn(int column, TSDataType expectedType) {
+    TSDataType dataType = dataTypes.get(column);
+    if (dataType != expectedType) {
+      throw new UnSupportedDataTypeException(
+          String.format("Column %d is of type %s, not %s", column, dataType, expectedType));
+    }
+    if (columns[column] == null) {
+      columns[column] = decodeColumn(column, dataType);
+    }
+    return columns[column];
+  }
+
+  private Object decodeColumn(int column, TSDataType dataType) {
+    // values are only serialized for the rows that are not null
+    ByteBuffer buffer = valueBuffers[column].duplicate();
+    switch (dataType) {
+      case BOOLEAN:
+        boolean[] booleans = new boolean[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+          if (!isNull(column, i)) {
+            booleans[i] = buffer.get() != 0;
+          }
+        }
+        return booleans;
+      case INT32:
+        int[] ints = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+          if (!isNull(column, i)) {
+            ints[i] = buffer.getInt();
+          }
+        }
+        return ints;
+      case INT64:
+        long[] longs = new long[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+          if (!isNull(column, i)) {
+            longs[i] = buffer.getLong();
+          }
+        }
+        return longs;
+      case FLOAT:
+        float[] floats = new float[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+          if (!isNull(column, i)) {
+            floats[i] = buffer.getFloat();
+          }
+        }
+        return floats;
+      case DOUBLE:
+        double[] doubles = new double[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+          if (!isNull(column, i)) {
+            doubles[i] = buffer.getDouble();
+          }
+        }
+        return doubles;
+      case TEXT:
+        Binary[] binaries = new Binary[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+          if (!isNull(column, i)) {
+            int length = buffer.getInt();
+            binaries[i] = new Binary(ReadWriteIOUtils.readBytes(buffer, length));
+          }
+        }
+        return binaries;
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Data type %s is not supported.", dataType));
+    }
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.rpc;
+
+import org.apache.iotdb.service.rpc.thrift.TSFetchResultsReq;
+import org.apache.iotdb.service.rpc.thrift.TSFetchResultsResp;
+import org.apache.iotdb.service.rpc.thrift.TSIService;
+
+import org.apache.thrift.TException;
+
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fetches the following batches of a query in the background, so that the next TSQueryDataSet is
+ * usually on the client before the current one is used up. The fetch requests are issued one after
+ * another by a single task, which keeps the batches in order, and at most {@code batchNum} fetched
+ * batches wait for the reader. The client must be safe to share with the reader thread, which holds
+ * for the synchronized clients created by {@link RpcUtils#newSynchronizedClient}.
+ *
+ * <p>A prefetcher is registered with the connection of its client until it is closed, and the
+ * connection closes the ones left when it is closed itself, so a result set that is never closed
+ * does not keep a fetching thread forever.
+ */
+public class FetchResultsPrefetcher {
+
+  private static final long POLL_INTERVAL_MS = 100;
+
+  private static final ExecutorService FETCH_POOL =
+      Executors.newCachedThreadPool(
+          r -> {
+            Thread thread = new Thread(r, "FetchResults-Prefetch");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final TSIService.Iface client;
+  private final TSFetchResultsReq req;
+  // fetched responses, or the exception that ended the fetching
+  private final BlockingQueue<Object> fetched;
+  private final Future<?> fetching;
+  private volatile boolean stopped = false;
+  // the open prefetchers of the connection, which this one is removed from when closed
+  private final Set<FetchResultsPrefetcher> connectionPrefetchers;
+
+  public FetchResultsPrefetcher(
+      TSIService.Iface client,
+      TSFetchResultsReq req,
+      int batchNum,
+      Set<FetchResultsPrefetcher> connectionPrefetchers) {
+    this.client = client;
+    this.req = req;
+    this.fetched = new ArrayBlockingQueue<>(batchNum);
+    this.connectionPrefetchers = connectionPrefetchers;
+    connectionPrefetchers.add(this);
+    this.fetching = FETCH_POOL.submit(this::fetchAll);
+  }
+
+  /** Closes the prefetchers left open on a connection that is being closed. */
+  public static void closeAll(Set<FetchResultsPrefetcher> connectionPrefetchers) {
+    for (FetchResultsPrefetcher prefetcher : new ArrayList<>(connectionPrefetchers)) {
+      prefetcher.close();
+    }
+  }
+
+  private void fetchAll() {
+    while (!stopped) {
+      TSFetchResultsResp resp;
+      try {
+        resp = client.fetchResults(req);
+      } catch (TException | RuntimeException e) {
+        offer(e);
+        return;
+      }
+      if (!offer(resp)
+          || !resp.hasResultSet
+          || resp.getStatus().getCode() != TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * The queue is polled instead of interrupting the task, as an interrupt may close the channel of
+   * an interruptible transport in the middle of a request.
+   */
+  private boolean offer(Object result) {
+    try {
+      while (!fetched.offer(result, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+        if (stopped) {
+          return false;
+        }
+      }
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /** Returns the next batch in order, waiting for it if it has not arrived yet. */
+  public TSFetchResultsResp take() throws TException {
+    try {
+      Object result;
+      while ((result = fetched.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) == null) {
+        if (fetching.isDone() && fetched.isEmpty()) {
+          throw new TException("No more results are being fetched for the query");
+        }
+      }
+      if (result instanceof TException) {
+        throw (TException) result;
+      } else if (result instanceof RuntimeException) {
+        throw (RuntimeException) result;
+      }
+      return (TSFetchResultsResp) result;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TException("Interrupted while waiting for the next batch", e);
+    }
+  }
+
+  /**
+   * Stops issuing new requests and drops the buffered batches. A request that is on the wire still
+   * completes, and the client serializes it with whatever the reader sends next.
+   */
+  public void close() {
+    stopped = true;
+    fetched.clear();
+    connectionPrefetchers.remove(this);
+  }
+}
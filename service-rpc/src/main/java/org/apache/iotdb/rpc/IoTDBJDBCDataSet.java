@@ -41,6 +41,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 public class IoTDBJDBCDataSet {
 
@@ -78,6 +79,9 @@ public class IoTDBJDBCDataSet {
   public static final int FLAG =
       0x80; // used to do `and` operation with bitmap to judge whether the value is null
 
+  // fetches the following batches in the background, null if fetching synchronously
+  private FetchResultsPrefetcher prefetcher;
+
   @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
   public IoTDBJDBCDataSet(
       String sql,
@@ -289,6 +293,10 @@ public class IoTDBJDBCDataSet {
     if (isClosed) {
       return;
     }
+    if (prefetcher != null) {
+      prefetcher.close();
+      prefetcher = null;
+    }
     if (client != null) {
       try {
         TSCloseOperationReq closeReq = new TSCloseOperationReq(sessionId);
@@ -335,12 +343,30 @@ public class IoTDBJDBCDataSet {
     }
   }
 
-  public boolean fetchResults() throws StatementExecutionException, IoTDBConnectionException {
-    rowsIndex = 0;
+  /**
+   * Keeps up to {@code batchNum} following batches fetched in the background, see {@link
+   * IoTDBRpcDataSet#enablePrefetch(int, Set)}.
+   */
+  public void enablePrefetch(int batchNum, Set<FetchResultsPrefetcher> connectionPrefetchers) {
+    if (batchNum <= 0 || prefetcher != null || client == null || emptyResultSet) {
+      return;
+    }
+    prefetcher =
+        new FetchResultsPrefetcher(
+            client, createFetchResultsReq(), batchNum, connectionPrefetchers);
+  }
+
+  private TSFetchResultsReq createFetchResultsReq() {
     TSFetchResultsReq req = new TSFetchResultsReq(sessionId, sql, fetchSize, queryId, true);
     req.setTimeout(timeout);
+    return req;
+  }
+
+  public boolean fetchResults() throws StatementExecutionException, IoTDBConnectionException {
+    rowsIndex = 0;
     try {
-      TSFetchResultsResp resp = client.fetchResults(req);
+      TSFetchResultsResp resp =
+          prefetcher != null ? prefetcher.take() : client.fetchResults(createFetchResultsReq());
 
       RpcUtils.verifySuccess(resp.getStatus());
       if (!resp.hasResultSet) {
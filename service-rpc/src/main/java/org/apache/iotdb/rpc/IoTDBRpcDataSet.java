@@ -40,6 +40,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 
 public class IoTDBRpcDataSet {
 
@@ -77,6 +78,9 @@ public class IoTDBRpcDataSet {
   public static final int FLAG =
       0x80; // used to do `and` operation with bitmap to judge whether the value is null
 
+  // fetches the following batches in the background, null if fetching synchronously
+  private FetchResultsPrefetcher prefetcher;
+
   @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
   public IoTDBRpcDataSet(
       String sql,
@@ -180,6 +184,10 @@ public class IoTDBRpcDataSet {
     if (isClosed) {
       return;
     }
+    if (prefetcher != null) {
+      prefetcher.close();
+      prefetcher = null;
+    }
     if (client != null) {
       try {
         TSCloseOperationReq closeReq = new TSCloseOperationReq(sessionId);
@@ -227,12 +235,33 @@ public class IoTDBRpcDataSet {
     }
   }
 
-  public boolean fetchResults() throws StatementExecutionException, IoTDBConnectionException {
-    rowsIndex = 0;
+  /**
+   * Keeps up to {@code batchNum} following batches fetched in the background, so that the round
+   * trip of the next batch overlaps with reading the current one. The fetch size in effect at this
+   * call is used for the rest of the query. Non-positive values keep fetching synchronously.
+   *
+   * @param connectionPrefetchers the open prefetchers of the connection, closed with it
+   */
+  public void enablePrefetch(int batchNum, Set<FetchResultsPrefetcher> connectionPrefetchers) {
+    if (batchNum <= 0 || prefetcher != null || client == null || emptyResultSet) {
+      return;
+    }
+    prefetcher =
+        new FetchResultsPrefetcher(
+            client, createFetchResultsReq(), batchNum, connectionPrefetchers);
+  }
+
+  private TSFetchResultsReq createFetchResultsReq() {
     TSFetchResultsReq req = new TSFetchResultsReq(sessionId, sql, fetchSize, queryId, true);
     req.setTimeout(timeout);
+    return req;
+  }
+
+  public boolean fetchResults() throws StatementExecutionException, IoTDBConnectionException {
+    rowsIndex = 0;
     try {
-      TSFetchResultsResp resp = client.fetchResults(req);
+      TSFetchResultsResp resp =
+          prefetcher != null ? prefetcher.take() : client.fetchResults(createFetchResultsReq());
 
       RpcUtils.verifySuccess(resp.getStatus());
       if (!resp.hasResultSet) {
@@ -248,6 +277,62 @@ public class IoTDBRpcDataSet {
     }
   }
 
+  /**
+   * Returns the rows of the current batch that have not been read yet as columns, fetching the next
+   * batch first if the current one is used up, and moves the row cursor past them. A row cached by
+   * {@link #next()} but not consumed yet is the first row of the returned batch.
+   *
+   * @return null if there are no more rows
+   */
+  public ColumnarBatch nextColumnarBatch()
+      throws StatementExecutionException, IoTDBConnectionException {
+    if (hasCachedRecord) {
+      unreadCachedRow();
+    }
+    if (!hasCachedResults() && (emptyResultSet || !fetchResults() || !hasCachedResults())) {
+      try {
+        close();
+        return null;
+      } catch (TException e) {
+        throw new IoTDBConnectionException(
+            "Cannot close dataset, because of network connection: {} ", e);
+      }
+    }
+    ColumnarBatch batch =
+        new ColumnarBatch(tsQueryDataSet, columnTypeDeduplicatedList, columnOrdinalMap, rowsIndex);
+    rowsIndex += batch.getRowCount();
+    tsQueryDataSet.time.position(tsQueryDataSet.time.limit());
+    for (int i = 0; i < tsQueryDataSet.valueList.size(); i++) {
+      tsQueryDataSet.valueList.get(i).position(tsQueryDataSet.valueList.get(i).limit());
+      tsQueryDataSet.bitmapList.get(i).position(tsQueryDataSet.bitmapList.get(i).limit());
+    }
+    hasCachedRecord = false;
+    return batch;
+  }
+
+  /** Moves the buffers back to the start of the row constructed by the last constructOneRow. */
+  private void unreadCachedRow() {
+    rowsIndex--;
+    ByteBuffer timeBuffer = tsQueryDataSet.time;
+    timeBuffer.position(timeBuffer.position() - time.length);
+    for (int i = 0; i < tsQueryDataSet.valueList.size(); i++) {
+      if (!isNull(i, rowsIndex)) {
+        ByteBuffer valueBuffer = tsQueryDataSet.valueList.get(i);
+        int valueLength =
+            columnTypeDeduplicatedList.get(i) == TSDataType.TEXT
+                ? Integer.BYTES + values[i].length
+                : values[i].length;
+        valueBuffer.position(valueBuffer.position() - valueLength);
+      }
+      // the bitmap byte is read by the first row of every 8 rows
+      if (rowsIndex % 8 == 0) {
+        ByteBuffer bitmapBuffer = tsQueryDataSet.bitmapList.get(i);
+        bitmapBuffer.position(bitmapBuffer.position() - 1);
+      }
+    }
+    hasCachedRecord = false;
+  }
+
   public boolean hasCachedResults() {
     return (tsQueryDataSet != null && tsQueryDataSet.time.hasRemaining());
   }
@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.rpc;
+
+import com.github.luben.zstd.Zstd;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+
+/**
+ * The codecs a framed transport can compress its frames with. None of them stores the length of the
+ * uncompressed data, so callers have to carry it themselves and pass it to uncompress.
+ */
+public enum RpcCompressionType {
+  NONE((byte) 0) {
+    @Override
+    public int maxCompressedLength(int len) {
+      return len;
+    }
+
+    @Override
+    public int compress(byte[] input, int inOff, int len, byte[] output, int outOff) {
+      System.arraycopy(input, inOff, output, outOff, len);
+      return len;
+    }
+
+    @Override
+    public void uncompress(
+        byte[] input, int inOff, int len, byte[] output, int outOff, int uncompressedLength) {
+      System.arraycopy(input, inOff, output, outOff, uncompressedLength);
+    }
+  },
+
+  SNAPPY((byte) 1) {
+    @Override
+    public int maxCompressedLength(int len) {
+      return Snappy.maxCompressedLength(len);
+    }
+
+    @Override
+    public int compress(byte[] input, int inOff, int len, byte[] output, int outOff)
+        throws IOException {
+      return Snappy.compress(input, inOff, len, output, outOff);
+    }
+
+    @Override
+    public void uncompress(
+        byte[] input, int inOff, int len, byte[] output, int outOff, int uncompressedLength)
+        throws IOException {
+      Snappy.uncompress(input, inOff, len, output, outOff);
+    }
+  },
+
+  LZ4((byte) 2) {
+    @Override
+    public int maxCompressedLength(int len) {
+      return LZ4Holder.COMPRESSOR.maxCompressedLength(len);
+    }
+
+    @Override
+    public int compress(byte[] input, int inOff, int len, byte[] output, int outOff) {
+      return LZ4Holder.COMPRESSOR.compress(
+          input, inOff, len, output, outOff, output.length - outOff);
+    }
+
+    @Override
+    public void uncompress(
+        byte[] input, int inOff, int len, byte[] output, int outOff, int uncompressedLength)
+        throws IOException {
+      int read =
+          LZ4Holder.DECOMPRESSOR.decompress(input, inOff, output, outOff, uncompressedLength);
+      if (read != len) {
+        throw new IOException(
+            "LZ4 block of " + len + " bytes decompressed from only " + read + " bytes");
+      }
+    }
+  },
+
+  ZSTD((byte) 3) {
+    @Override
+    public int maxCompressedLength(int len) {
+      return (int) Zstd.compressBound(len);
+    }
+
+    @Override
+    public int compress(byte[] input, int inOff, int len, byte[] output, int outOff)
+        throws IOException {
+      long compressedLength =
+          Zstd.compressByteArray(
+              output, outOff, output.length - outOff, input, inOff, len, ZSTD_LEVEL);
+      if (Zstd.isError(compressedLength)) {
+        throw new IOException("ZSTD compression failed: " + Zstd.getErrorName(compressedLength));
+      }
+      return (int) compressedLength;
+    }
+
+    @Override
+    public void uncompress(
+        byte[] input, int inOff, int len, byte[] output, int outOff, int uncompressedLength)
+        throws IOException {
+      long written =
+          Zstd.decompressByteArray(output, outOff, uncompressedLength, input, inOff, len);
+      if (Zstd.isError(written)) {
+        throw new IOException("ZSTD decompression failed: " + Zstd.getErrorName(written));
+      }
+    }
+  };
+
+  // a low level keeps ZSTD close to LZ4 in speed while still compressing noticeably better
+  private static final int ZSTD_LEVEL = 1;
+
+  private final byte type;
+
+  RpcCompressionType(byte type) {
+    this.type = type;
+  }
+
+  public byte serialize() {
+    return type;
+  }
+
+  public static RpcCompressionType deserialize(byte type) {
+    switch (type) {
+      case 0:
+        return NONE;
+      case 1:
+        return SNAPPY;
+      case 2:
+        return LZ4;
+      case 3:
+        return ZSTD;
+      default:
+        throw new IllegalArgumentException("Invalid rpc compression type: " + type);
+    }
+  }
+
+  public abstract int maxCompressedLength(int len);
+
+  /** @return the number of bytes written to output */
+  public abstract int compress(byte[] input, int inOff, int len, byte[] output, int outOff)
+      throws IOException;
+
+  public abstract void uncompress(
+      byte[] input, int inOff, int len, byte[] output, int outOff, int uncompressedLength)
+      throws IOException;
+
+  // created on first use, so that clients which never pick LZ4 do not load it
+  private static class LZ4Holder {
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR =
+        LZ4Factory.fastestInstance().fastDecompressor();
+
+    private LZ4Holder() {}
+  }
+}
@@ -31,6 +31,9 @@ public class RpcStat {
   static final AtomicLong writeCompressedBytes = new AtomicLong();
   static final AtomicLong readBytes = new AtomicLong();
   static final AtomicLong readCompressedBytes = new AtomicLong();
+  // time spent by the rpc threads compressing and uncompressing frames
+  static final AtomicLong compressTimeNanos = new AtomicLong();
+  static final AtomicLong uncompressTimeNanos = new AtomicLong();
 
   public static long getReadBytes() {
     return readBytes.get();
@@ -47,4 +50,24 @@ public class RpcStat {
   public static long getWriteCompressedBytes() {
     return writeCompressedBytes.get();
   }
+
+  public static long getCompressTimeNanos() {
+    return compressTimeNanos.get();
+  }
+
+  public static long getUncompressTimeNanos() {
+    return uncompressTimeNanos.get();
+  }
+
+  /** @return uncompressed bytes divided by the bytes actually read, 1 if nothing is read yet */
+  public static double getReadCompressionRatio() {
+    long compressed = readCompressedBytes.get();
+    return compressed == 0 ? 1 : (double) readBytes.get() / compressed;
+  }
+
+  /** @return uncompressed bytes divided by the bytes actually written, 1 if nothing is written */
+  public static double getWriteCompressionRatio() {
+    long compressed = writeCompressedBytes.get();
+    return compressed == 0 ? 1 : (double) writeBytes.get() / compressed;
+  }
 }
@@ -29,6 +29,9 @@ public class RpcTransportFactory extends TTransportFactory {
 
   // TODO: make it a config
   public static boolean USE_SNAPPY = false;
+  // null means the adaptive compression transport is not used
+  private static RpcCompressionType adaptiveCompressionType = null;
+  private static int compressionThreshold = RpcUtils.DEFAULT_RPC_COMPRESSION_THRESHOLD;
   public static RpcTransportFactory INSTANCE;
 
   private static int thriftDefaultBufferSize = RpcUtils.THRIFT_DEFAULT_BUF_CAPACITY;
@@ -58,6 +61,22 @@ public class RpcTransportFactory extends TTransportFactory {
         new TSocket(TConfigurationConst.defaultTConfiguration, ip, port, timeout));
   }
 
+  /**
+   * Create a transport to ip:port that negotiates the given compression type with the server,
+   * regardless of the transport INSTANCE creates. The server must have enabled adaptive
+   * compression.
+   */
+  public TTransport getAdaptiveCompressionTransport(
+      String ip, int port, int timeout, RpcCompressionType compressionType)
+      throws TTransportException {
+    return new TimeoutChangeableTAdaptiveCompressionFramedTransport(
+        new TSocket(TConfigurationConst.defaultTConfiguration, ip, port, timeout),
+        thriftDefaultBufferSize,
+        thriftMaxFrameSize,
+        compressionType,
+        compressionThreshold);
+  }
+
   public static boolean isUseSnappy() {
     return USE_SNAPPY;
   }
@@ -74,6 +93,41 @@ public class RpcTransportFactory extends TTransportFactory {
     RpcTransportFactory.thriftMaxFrameSize = thriftMaxFrameSize;
   }
 
+  public static RpcCompressionType getAdaptiveCompressionType() {
+    return adaptiveCompressionType;
+  }
+
+  /**
+   * @param compressionType the type this process asks its peers for, NONE to follow what each peer
+   *     asks for, or null to disable the adaptive compression transport
+   */
+  public static void setAdaptiveCompressionType(RpcCompressionType compressionType) {
+    RpcTransportFactory.adaptiveCompressionType = compressionType;
+  }
+
+  public static void setCompressionThreshold(int compressionThreshold) {
+    RpcTransportFactory.compressionThreshold = compressionThreshold;
+  }
+
+  /**
+   * The factory of a server that accepts the adaptive compression transport. It falls back to plain
+   * frames for the clients that do not use it, so it is only meant for the client-facing rpc
+   * service. Other services and internal clients keep using INSTANCE.
+   *
+   * @return INSTANCE if the adaptive compression is disabled or snappy is used
+   */
+  public static RpcTransportFactory getAdaptiveCompressionInstance() {
+    if (USE_SNAPPY || adaptiveCompressionType == null) {
+      return INSTANCE;
+    }
+    return new RpcTransportFactory(
+        new TimeoutChangeableTAdaptiveCompressionFramedTransport.Factory(
+            thriftDefaultBufferSize,
+            thriftMaxFrameSize,
+            adaptiveCompressionType,
+            compressionThreshold));
+  }
+
   public static void reInit() {
     INSTANCE =
         USE_SNAPPY
@@ -54,6 +54,12 @@ public class RpcUtils {
 
   public static final long MIN_SHRINK_INTERVAL = 60_000L;
 
+  /**
+   * Frames smaller than this are not compressed by the adaptive compression transport, as small
+   * metadata calls would cost more CPU than they save on the network.
+   */
+  public static final int DEFAULT_RPC_COMPRESSION_THRESHOLD = 4096;
+
   private RpcUtils() {
     // util class
   }
@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.rpc;
+
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
+import org.apache.thrift.transport.layered.TFramedTransport;
+
+import java.io.IOException;
+
+/**
+ * A framed transport that negotiates its codec with the peer and compresses only the frames that
+ * are large enough to benefit from it.
+ *
+ * <p>Every frame starts with a header byte. The high 4 bits are the type the sender wants to
+ * receive, the low 4 bits the type the payload is compressed with. A compressed payload is preceded
+ * by its uncompressed length as 4 bytes. The first frame of a connection, normally openSession, is
+ * never compressed and tells the peer which type to use from then on. A side that does not prefer
+ * any type itself, usually the server, asks for whatever the peer asked for, so a client choosing
+ * LZ4 gets LZ4 in both directions and a client choosing NONE turns compression off.
+ *
+ * <p>A peer using the plain framed transport is detected by the first frame it sends, which starts
+ * with the version byte of a strict binary (0x80) or compact (0x82) protocol message instead of a
+ * header byte. Such a connection falls back to plain frames in both directions, so a server can
+ * accept both kinds of clients. A client using this transport still needs a server using it.
+ */
+public class TAdaptiveCompressionElasticFramedTransport extends TElasticFramedTransport {
+
+  public static class Factory extends TElasticFramedTransport.Factory {
+
+    protected final RpcCompressionType preferredType;
+    protected final int compressionThreshold;
+
+    public Factory(RpcCompressionType preferredType, int compressionThreshold) {
+      this(
+          RpcUtils.THRIFT_DEFAULT_BUF_CAPACITY,
+          RpcUtils.THRIFT_FRAME_MAX_SIZE,
+          preferredType,
+          compressionThreshold);
+    }
+
+    public Factory(
+        int thriftDefaultBufferSize,
+        int thriftMaxFrameSize,
+        RpcCompressionType preferredType,
+        int compressionThreshold) {
+      super(thriftDefaultBufferSize, thriftMaxFrameSize);
+      this.preferredType = preferredType;
+      this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public TTransport getTransport(TTransport trans) {
+      return new TAdaptiveCompressionElasticFramedTransport(
+          trans, thriftDefaultBufferSize, thriftMaxFrameSize, preferredType, compressionThreshold);
+    }
+  }
+
+  private static final int HEADER_SIZE = 1;
+  private static final int COMPRESSED_HEADER_SIZE = HEADER_SIZE + 4;
+
+  // the first byte of a message of TBinaryProtocol with strictWrite, and of TCompactProtocol
+  private static final byte BINARY_PROTOCOL_VERSION = (byte) 0x80;
+  private static final byte COMPACT_PROTOCOL_ID = (byte) 0x82;
+
+  private final RpcCompressionType preferredType;
+  private final int compressionThreshold;
+  // the type the peer asked for in its last frame, NONE before it has sent any
+  private RpcCompressionType peerPreferredType = RpcCompressionType.NONE;
+  // whether the peer sends plain frames without the header, decided by its first frame
+  private boolean legacyPeer = false;
+  private boolean firstFrameRead = false;
+
+  private final AutoScalingBufferWriteTransport writeCompressBuffer;
+  private final AutoScalingBufferReadTransport readCompressBuffer;
+  private final byte[] headerBuf = new byte[1];
+
+  public TAdaptiveCompressionElasticFramedTransport(
+      TTransport underlying, RpcCompressionType preferredType, int compressionThreshold) {
+    this(
+        underlying,
+        RpcUtils.THRIFT_DEFAULT_BUF_CAPACITY,
+        RpcUtils.THRIFT_FRAME_MAX_SIZE,
+        preferredType,
+        compressionThreshold);
+  }
+
+  public TAdaptiveCompressionElasticFramedTransport(
+      TTransport underlying,
+      int thriftDefaultBufferSize,
+      int thriftMaxFrameSize,
+      RpcCompressionType preferredType,
+      int compressionThreshold) {
+    super(underlying, thriftDefaultBufferSize, thriftMaxFrameSize);
+    this.preferredType = preferredType;
+    this.compressionThreshold = compressionThreshold;
+    writeCompressBuffer = new AutoScalingBufferWriteTransport(thriftDefaultBufferSize);
+    readCompressBuffer = new AutoScalingBufferReadTransport(thriftDefaultBufferSize);
+  }
+
+  /** @return the type this side currently asks the peer to compress its frames with */
+  public RpcCompressionType getRequestedType() {
+    return preferredType != RpcCompressionType.NONE ? preferredType : peerPreferredType;
+  }
+
+  /** @return the type large frames sent by this side are compressed with */
+  public RpcCompressionType getNegotiatedType() {
+    return peerPreferredType;
+  }
+
+  /** @return whether the peer uses the plain framed transport, so no header is sent to it */
+  public boolean isLegacyPeer() {
+    return legacyPeer;
+  }
+
+  @Override
+  protected void readFrame() throws TTransportException {
+    underlying.readAll(i32buf, 0, 4);
+    int size = TFramedTransport.decodeFrameSize(i32buf);
+
+    if (size < HEADER_SIZE) {
+      close();
+      throw new TTransportException(
+          TTransportException.CORRUPTED_DATA, "Read an invalid frame size (" + size + ")!");
+    }
+
+    if (size > thriftMaxFrameSize) {
+      close();
+      throw new TTransportException(
+          TTransportException.CORRUPTED_DATA,
+          "Frame size (" + size + ") larger than protect max size (" + thriftMaxFrameSize + ")!");
+    }
+    readBuffer.fill(underlying, size);
+
+    byte[] frame = readBuffer.getBuffer();
+    if (!firstFrameRead) {
+      firstFrameRead = true;
+      legacyPeer = frame[0] == BINARY_PROTOCOL_VERSION || frame[0] == COMPACT_PROTOCOL_ID;
+    }
+    if (legacyPeer) {
+      // the whole frame is a message
+      RpcStat.readBytes.addAndGet(size);
+      RpcStat.readCompressedBytes.addAndGet(size);
+      return;
+    }
+
+    RpcCompressionType frameType;
+    try {
+      peerPreferredType = RpcCompressionType.deserialize((byte) ((frame[0] >> 4) & 0x0F));
+      frameType = RpcCompressionType.deserialize((byte) (frame[0] & 0x0F));
+    } catch (IllegalArgumentException e) {
+      close();
+      throw new TTransportException(TTransportException.CORRUPTED_DATA, e.getMessage());
+    }
+
+    if (frameType == RpcCompressionType.NONE) {
+      RpcStat.readBytes.addAndGet(size - HEADER_SIZE);
+      RpcStat.readCompressedBytes.addAndGet(size - HEADER_SIZE);
+      readBuffer.consumeBuffer(HEADER_SIZE);
+      return;
+    }
+
+    int uncompressedLength = -1;
+    if (size >= COMPRESSED_HEADER_SIZE) {
+      System.arraycopy(frame, HEADER_SIZE, i32buf, 0, 4);
+      uncompressedLength = TFramedTransport.decodeFrameSize(i32buf);
+    }
+    if (uncompressedLength < 0 || uncompressedLength > thriftMaxFrameSize) {
+      close();
+      throw new TTransportException(
+          TTransportException.CORRUPTED_DATA,
+          "Invalid uncompressed size (" + uncompressedLength + ") of a " + frameType + " frame!");
+    }
+
+    RpcStat.readBytes.addAndGet(uncompressedLength);
+    RpcStat.readCompressedBytes.addAndGet(size - COMPRESSED_HEADER_SIZE);
+    readCompressBuffer.resizeIfNecessary(uncompressedLength);
+    long startTime = System.nanoTime();
+    try {
+      frameType.uncompress(
+          frame,
+          COMPRESSED_HEADER_SIZE,
+          size - COMPRESSED_HEADER_SIZE,
+          readCompressBuffer.getBuffer(),
+          0,
+          uncompressedLength);
+    } catch (IOException e) {
+      throw new TTransportException(e);
+    } finally {
+      RpcStat.uncompressTimeNanos.addAndGet(System.nanoTime() - startTime);
+    }
+    readCompressBuffer.limit(uncompressedLength);
+    readCompressBuffer.position(0);
+    readBuffer.fill(readCompressBuffer, uncompressedLength);
+  }
+
+  @Override
+  public void flush() throws TTransportException {
+    int length = writeBuffer.getPos();
+    if (legacyPeer) {
+      RpcStat.writeBytes.addAndGet(length);
+      RpcStat.writeCompressedBytes.addAndGet(length);
+      // all writes are copied into the write buffer, so this is a plain frame of it
+      super.flush();
+      return;
+    }
+    RpcCompressionType frameType =
+        length >= compressionThreshold ? peerPreferredType : RpcCompressionType.NONE;
+    int compressedLength = 0;
+    if (frameType != RpcCompressionType.NONE) {
+      writeCompressBuffer.resizeIfNecessary(frameType.maxCompressedLength(length));
+      long startTime = System.nanoTime();
+      try {
+        compressedLength =
+            frameType.compress(
+                writeBuffer.getBuffer(), 0, length, writeCompressBuffer.getBuffer(), 0);
+      } catch (IOException e) {
+        throw new TTransportException(e);
+      } finally {
+        RpcStat.compressTimeNanos.addAndGet(System.nanoTime() - startTime);
+      }
+      if (compressedLength >= length) {
+        // incompressible data, e.g. already compressed files, is cheaper to send as it is
+        frameType = RpcCompressionType.NONE;
+      }
+    }
+
+    headerBuf[0] = (byte) (getRequestedType().serialize() << 4 | frameType.serialize());
+    RpcStat.writeBytes.addAndGet(length);
+    if (frameType == RpcCompressionType.NONE) {
+      RpcStat.writeCompressedBytes.addAndGet(length);
+      TFramedTransport.encodeFrameSize(HEADER_SIZE + length, i32buf);
+      underlying.write(i32buf, 0, 4);
+      underlying.write(headerBuf, 0, HEADER_SIZE);
+      underlying.write(writeBuffer.getBuffer(), 0, length);
+    } else {
+      RpcStat.writeCompressedBytes.addAndGet(compressedLength);
+      TFramedTransport.encodeFrameSize(COMPRESSED_HEADER_SIZE + compressedLength, i32buf);
+      underlying.write(i32buf, 0, 4);
+      underlying.write(headerBuf, 0, HEADER_SIZE);
+      TFramedTransport.encodeFrameSize(length, i32buf);
+      underlying.write(i32buf, 0, 4);
+      underlying.write(writeCompressBuffer.getBuffer(), 0, compressedLength);
+    }
+
+    writeBuffer.reset();
+    if (thriftDefaultBufferSize < length) {
+      writeBuffer.resizeIfNecessary(thriftDefaultBufferSize);
+    }
+    underlying.flush();
+  }
+
+  @Override
+  public void write(byte[] buf, int off, int len) {
+    // a frame may be compressed as a whole, so every write has to be copied
+    writeBuffer.write(buf, off, len);
+  }
+}
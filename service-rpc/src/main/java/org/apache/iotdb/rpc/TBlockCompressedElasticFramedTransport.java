@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.rpc;
+
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.layered.TFramedTransport;
+
+import java.io.IOException;
+
+/**
+ * A compressed framed transport for codecs whose blocks do not record their uncompressed length,
+ * such as LZ4 and ZSTD. Every compressed frame starts with the uncompressed length as 4 bytes.
+ */
+public abstract class TBlockCompressedElasticFramedTransport
+    extends TCompressedElasticFramedTransport {
+
+  private final RpcCompressionType compressionType;
+  private final byte[] lengthBuf = new byte[4];
+
+  protected TBlockCompressedElasticFramedTransport(
+      TTransport underlying,
+      int thriftDefaultBufferSize,
+      int thriftMaxFrameSize,
+      RpcCompressionType compressionType) {
+    super(underlying, thriftDefaultBufferSize, thriftMaxFrameSize);
+    this.compressionType = compressionType;
+  }
+
+  @Override
+  protected int uncompressedLength(byte[] buf, int off, int len) throws IOException {
+    if (len < 4) {
+      throw new IOException("Compressed frame of " + len + " bytes has no length header");
+    }
+    System.arraycopy(buf, off, lengthBuf, 0, 4);
+    int uncompressedLength = TFramedTransport.decodeFrameSize(lengthBuf);
+    if (uncompressedLength < 0 || uncompressedLength > thriftMaxFrameSize) {
+      throw new IOException("Invalid uncompressed frame size (" + uncompressedLength + ")");
+    }
+    return uncompressedLength;
+  }
+
+  @Override
+  protected int maxCompressedLength(int len) {
+    return 4 + compressionType.maxCompressedLength(len);
+  }
+
+  @Override
+  protected int compress(byte[] input, int inOff, int len, byte[] output, int outOff)
+      throws IOException {
+    TFramedTransport.encodeFrameSize(len, lengthBuf);
+    System.arraycopy(lengthBuf, 0, output, outOff, 4);
+    return 4 + compressionType.compress(input, inOff, len, output, outOff + 4);
+  }
+
+  @Override
+  protected void uncompress(byte[] input, int inOff, int size, byte[] output, int outOff)
+      throws IOException {
+    compressionType.uncompress(
+        input, inOff + 4, size - 4, output, outOff, uncompressedLength(input, inOff, size));
+  }
+}
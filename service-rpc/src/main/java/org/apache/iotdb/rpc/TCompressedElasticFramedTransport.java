@@ -53,7 +53,9 @@ public abstract class TCompressedElasticFramedTransport extends TElasticFramedTr
       int uncompressedLength = uncompressedLength(readBuffer.getBuffer(), 0, size);
       RpcStat.readBytes.addAndGet(uncompressedLength);
       readCompressBuffer.resizeIfNecessary(uncompressedLength);
+      long startTime = System.nanoTime();
       uncompress(readBuffer.getBuffer(), 0, size, readCompressBuffer.getBuffer(), 0);
+      RpcStat.uncompressTimeNanos.addAndGet(System.nanoTime() - startTime);
       readCompressBuffer.limit(uncompressedLength);
       readCompressBuffer.position(0);
       readBuffer.fill(readCompressBuffer, uncompressedLength);
@@ -69,8 +71,10 @@ public abstract class TCompressedElasticFramedTransport extends TElasticFramedTr
     try {
       int maxCompressedLength = maxCompressedLength(length);
       writeCompressBuffer.resizeIfNecessary(maxCompressedLength);
+      long startTime = System.nanoTime();
       int compressedLength =
           compress(writeBuffer.getBuffer(), 0, length, writeCompressBuffer.getBuffer(), 0);
+      RpcStat.compressTimeNanos.addAndGet(System.nanoTime() - startTime);
       RpcStat.writeCompressedBytes.addAndGet(compressedLength);
       TFramedTransport.encodeFrameSize(compressedLength, i32buf);
       underlying.write(i32buf, 0, 4);
@@ -86,6 +90,12 @@ public abstract class TCompressedElasticFramedTransport extends TElasticFramedTr
     underlying.flush();
   }
 
+  @Override
+  public void write(byte[] buf, int off, int len) {
+    // the whole frame is compressed at once, so every write has to be copied
+    writeBuffer.write(buf, off, len);
+  }
+
   protected abstract int uncompressedLength(byte[] but, int off, int len) throws IOException;
 
   protected abstract int maxCompressedLength(int len);
@@ -24,6 +24,9 @@ import org.apache.thrift.transport.TTransportException;
 import org.apache.thrift.transport.TTransportFactory;
 import org.apache.thrift.transport.layered.TFramedTransport;
 
+import java.util.ArrayList;
+import java.util.List;
+
 // https://github.com/apache/thrift/blob/master/doc/specs/thrift-rpc.md
 public class TElasticFramedTransport extends TTransport {
 
@@ -76,11 +79,22 @@ public class TElasticFramedTransport extends TTransport {
   protected final int thriftDefaultBufferSize;
   protected final int thriftMaxFrameSize;
 
+  /**
+   * Writes of at least this many bytes, such as the time and value buffers of a tablet, are not
+   * copied into the write buffer. The frame refers to them and writes them to the underlying
+   * transport on flush, which is safe as thrift serializes a message and flushes it in one call.
+   */
+  protected static final int REFERENCED_WRITE_THRESHOLD = 16 * 1024;
+
   protected final TTransport underlying;
   protected AutoScalingBufferReadTransport readBuffer;
   protected AutoScalingBufferWriteTransport writeBuffer;
   protected final byte[] i32buf = new byte[4];
 
+  // the large writes of the current frame, in order
+  private final List<ReferencedWrite> referencedWrites = new ArrayList<>();
+  private int referencedBytes = 0;
+
   @Override
   public boolean isOpen() {
     return underlying.isOpen();
@@ -130,9 +144,17 @@ public class TElasticFramedTransport extends TTransport {
   @Override
   public void flush() throws TTransportException {
     int length = writeBuffer.getPos();
-    TFramedTransport.encodeFrameSize(length, i32buf);
+    TFramedTransport.encodeFrameSize(length + referencedBytes, i32buf);
     underlying.write(i32buf, 0, 4);
-    underlying.write(writeBuffer.getBuffer(), 0, length);
+    int copiedPos = 0;
+    for (ReferencedWrite referencedWrite : referencedWrites) {
+      underlying.write(writeBuffer.getBuffer(), copiedPos, referencedWrite.copiedPos - copiedPos);
+      underlying.write(referencedWrite.buf, referencedWrite.off, referencedWrite.len);
+      copiedPos = referencedWrite.copiedPos;
+    }
+    underlying.write(writeBuffer.getBuffer(), copiedPos, length - copiedPos);
+    referencedWrites.clear();
+    referencedBytes = 0;
     writeBuffer.reset();
     if (length > thriftDefaultBufferSize) {
       writeBuffer.resizeIfNecessary(thriftDefaultBufferSize);
@@ -158,6 +180,27 @@ public class TElasticFramedTransport extends TTransport {
 
   @Override
   public void write(byte[] buf, int off, int len) {
-    writeBuffer.write(buf, off, len);
+    if (len >= REFERENCED_WRITE_THRESHOLD) {
+      referencedWrites.add(new ReferencedWrite(writeBuffer.getPos(), buf, off, len));
+      referencedBytes += len;
+    } else {
+      writeBuffer.write(buf, off, len);
+    }
+  }
+
+  private static class ReferencedWrite {
+
+    // how many bytes of the write buffer precede this write in the frame
+    private final int copiedPos;
+    private final byte[] buf;
+    private final int off;
+    private final int len;
+
+    private ReferencedWrite(int copiedPos, byte[] buf, int off, int len) {
+      this.copiedPos = copiedPos;
+      this.buf = buf;
+      this.off = off;
+      this.len = len;
+    }
   }
 }
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.rpc;
+
+import org.apache.thrift.transport.TTransport;
+
+public class TZstdElasticFramedTransport extends TBlockCompressedElasticFramedTransport {
+
+  public static class Factory extends TElasticFramedTransport.Factory {
+
+    public Factory() {
+      this(RpcUtils.THRIFT_DEFAULT_BUF_CAPACITY, RpcUtils.THRIFT_FRAME_MAX_SIZE);
+    }
+
+    public Factory(int thriftDefaultBufferSize) {
+      this(thriftDefaultBufferSize, RpcUtils.THRIFT_FRAME_MAX_SIZE);
+    }
+
+    public Factory(int thriftDefaultBufferSize, int thriftMaxFrameSize) {
+      super(thriftDefaultBufferSize, thriftMaxFrameSize);
+    }
+
+    @Override
+    public TTransport getTransport(TTransport trans) {
+      return new TZstdElasticFramedTransport(trans, thriftDefaultBufferSize, thriftMaxFrameSize);
+    }
+  }
+
+  public TZstdElasticFramedTransport(TTransport underlying) {
+    this(underlying, RpcUtils.THRIFT_DEFAULT_BUF_CAPACITY, RpcUtils.THRIFT_FRAME_MAX_SIZE);
+  }
+
+  public TZstdElasticFramedTransport(
+      TTransport underlying, int thriftDefaultBufferSize, int thriftMaxFrameSize) {
+    super(underlying, thriftDefaultBufferSize, thriftMaxFrameSize, RpcCompressionType.ZSTD);
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.rpc;
+
+import org.apache.iotdb.service.rpc.thrift.TSFetchResultsResp;
+import org.apache.iotdb.service.rpc.thrift.TSIService;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+import org.apache.iotdb.tsfile.utils.Binary;
+
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ColumnarBatchTest {
+
+  private static final int ROW_NUM = 20;
+  private static final String INT_COLUMN = "root.sg.d1.s1";
+  private static final String TEXT_COLUMN = "root.sg.d1.s2";
+
+  @Test
+  public void testWholeBatch() throws Exception {
+    IoTDBRpcDataSet dataSet = createDataSet();
+    ColumnarBatch batch = dataSet.nextColumnarBatch();
+    checkBatch(batch, 0);
+    // the server has no more batches
+    assertNull(dataSet.nextColumnarBatch());
+    assertFalse(dataSet.next());
+  }
+
+  @Test
+  public void testAfterReadRows() throws Exception {
+    for (int readRowNum = 0; readRowNum < ROW_NUM; readRowNum++) {
+      IoTDBRpcDataSet dataSet = createDataSet();
+      for (int i = 0; i < readRowNum; i++) {
+        assertTrue(dataSet.next());
+        assertEquals(isIntNull(i), dataSet.isNull(INT_COLUMN));
+        assertEquals(isTextNull(i), dataSet.isNull(TEXT_COLUMN));
+        // consumed, as SessionDataSet.next() does
+        dataSet.hasCachedRecord = false;
+      }
+      // the bitmaps of the batch start in the middle of a byte unless readRowNum % 8 == 0
+      checkBatch(dataSet.nextColumnarBatch(), readRowNum);
+      assertFalse(dataSet.next());
+    }
+  }
+
+  @Test
+  public void testCachedRow() throws Exception {
+    for (int readRowNum = 1; readRowNum <= ROW_NUM; readRowNum++) {
+      IoTDBRpcDataSet dataSet = createDataSet();
+      for (int i = 0; i < readRowNum - 1; i++) {
+        assertTrue(dataSet.next());
+        dataSet.hasCachedRecord = false;
+      }
+      // read ahead, e.g. by SessionDataSet.hasNext(), but not consumed
+      assertTrue(dataSet.next());
+      assertTrue(dataSet.hasCachedRecord);
+
+      checkBatch(dataSet.nextColumnarBatch(), readRowNum - 1);
+      assertFalse(dataSet.hasCachedRecord);
+      assertFalse(dataSet.next());
+    }
+  }
+
+  @Test
+  public void testRowsAfterBatch() throws Exception {
+    IoTDBRpcDataSet dataSet = createDataSet(firstBatch(), firstBatch());
+    assertTrue(dataSet.next());
+    dataSet.hasCachedRecord = false;
+    checkBatch(dataSet.nextColumnarBatch(), 1);
+
+    // the rows of the next batch are read from its start
+    for (int i = 0; i < ROW_NUM; i++) {
+      assertTrue(dataSet.next());
+      assertEquals(isIntNull(i), dataSet.isNull(INT_COLUMN));
+      assertEquals(isTextNull(i), dataSet.isNull(TEXT_COLUMN));
+      if (!isTextNull(i)) {
+        assertEquals(text(i), dataSet.getString(TEXT_COLUMN));
+      }
+      dataSet.hasCachedRecord = false;
+    }
+    assertFalse(dataSet.next());
+  }
+
+  private static void checkBatch(ColumnarBatch batch, int firstRow) {
+    int rowCount = ROW_NUM - firstRow;
+    assertEquals(rowCount, batch.getRowCount());
+    assertEquals(2, batch.getColumnCount());
+
+    int intColumn = batch.getColumnIndex(INT_COLUMN);
+    int textColumn = batch.getColumnIndex(TEXT_COLUMN);
+    long[] expectedTimes = new long[rowCount];
+    for (int i = 0; i < rowCount; i++) {
+      expectedTimes[i] = time(firstRow + i);
+    }
+    assertArrayEquals(expectedTimes, batch.getTimes());
+
+    int[] ints = batch.getInts(intColumn);
+    Binary[] binaries = batch.getBinaries(textColumn);
+    for (int i = 0; i < rowCount; i++) {
+      int row = firstRow + i;
+      assertEquals(isIntNull(row), batch.isNull(intColumn, i));
+      assertEquals(isIntNull(row) ? 0 : row * 10, ints[i]);
+      assertEquals(isTextNull(row), batch.isNull(textColumn, i));
+      if (isTextNull(row)) {
+        assertNull(binaries[i]);
+      } else {
+        assertEquals(text(row), binaries[i].getStringValue());
+      }
+    }
+  }
+
+  private static long time(int row) {
+    return 100L + row;
+  }
+
+  private static boolean isIntNull(int row) {
+    return row % 3 == 0;
+  }
+
+  private static boolean isTextNull(int row) {
+    return row % 5 == 2;
+  }
+
+  private static String text(int row) {
+    // of different lengths
+    return "v" + row;
+  }
+
+  private static TSQueryDataSet firstBatch() {
+    ByteBuffer time = ByteBuffer.allocate(ROW_NUM * Long.BYTES);
+    ByteBuffer ints = ByteBuffer.allocate(ROW_NUM * Integer.BYTES);
+    ByteBuffer texts = ByteBuffer.allocate(ROW_NUM * 16);
+    byte[] intBitmap = new byte[(ROW_NUM + 7) / 8];
+    byte[] textBitmap = new byte[(ROW_NUM + 7) / 8];
+    for (int i = 0; i < ROW_NUM; i++) {
+      time.putLong(time(i));
+      if (!isIntNull(i)) {
+        ints.putInt(i * 10);
+        intBitmap[i / 8] |= (byte) (IoTDBRpcDataSet.FLAG >>> (i % 8));
+      }
+      if (!isTextNull(i)) {
+        byte[] bytes = text(i).getBytes(StandardCharsets.UTF_8);
+        texts.putInt(bytes.length);
+        texts.put(bytes);
+        textBitmap[i / 8] |= (byte) (IoTDBRpcDataSet.FLAG >>> (i % 8));
+      }
+    }
+    time.flip();
+    ints.flip();
+    texts.flip();
+    return new TSQueryDataSet(
+        time,
+        Arrays.asList(ints, texts),
+        Arrays.asList(ByteBuffer.wrap(intBitmap), ByteBuffer.wrap(textBitmap)));
+  }
+
+  private static IoTDBRpcDataSet createDataSet() {
+    return createDataSet(firstBatch());
+  }
+
+  private static IoTDBRpcDataSet createDataSet(TSQueryDataSet batch) {
+    return createDataSet(batch, null);
+  }
+
+  /** @param nextBatch returned by the first fetch, null if there is no more batch */
+  private static IoTDBRpcDataSet createDataSet(TSQueryDataSet batch, TSQueryDataSet nextBatch) {
+    TSQueryDataSet[] fetched = {nextBatch};
+    TSIService.Iface client =
+        (TSIService.Iface)
+            Proxy.newProxyInstance(
+                ColumnarBatchTest.class.getClassLoader(),
+                new Class[] {TSIService.Iface.class},
+                (proxy, method, args) -> {
+                  switch (method.getName()) {
+                    case "fetchResults":
+                      TSFetchResultsResp resp = new TSFetchResultsResp();
+                      resp.setStatus(RpcUtils.SUCCESS_STATUS);
+                      resp.setIsAlign(true);
+                      resp.setHasResultSet(fetched[0] != null);
+                      if (fetched[0] != null) {
+                        resp.setQueryDataSet(fetched[0]);
+                        fetched[0] = null;
+                      }
+                      return resp;
+                    case "closeOperation":
+                      return RpcUtils.SUCCESS_STATUS;
+                    default:
+                      throw new UnsupportedOperationException(method.getName());
+                  }
+                });
+    return new IoTDBRpcDataSet(
+        "select s1, s2 from root.sg.d1",
+        Arrays.asList(INT_COLUMN, TEXT_COLUMN),
+        Arrays.asList("INT32", "TEXT"),
+        null,
+        false,
+        1,
+        1,
+        client,
+        1,
+        batch,
+        ROW_NUM,
+        0);
+  }
+}
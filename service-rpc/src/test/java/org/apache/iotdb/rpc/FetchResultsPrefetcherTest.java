@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.rpc;
+
+import org.apache.iotdb.service.rpc.thrift.TSFetchResultsReq;
+import org.apache.iotdb.service.rpc.thrift.TSFetchResultsResp;
+import org.apache.iotdb.service.rpc.thrift.TSIService;
+import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
+
+import org.apache.thrift.TException;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FetchResultsPrefetcherTest {
+
+  private final Set<FetchResultsPrefetcher> prefetchers = ConcurrentHashMap.newKeySet();
+  private final AtomicInteger fetchNum = new AtomicInteger();
+
+  @Test
+  public void testOrder() throws TException {
+    // 10 batches and then the end of the result
+    FetchResultsPrefetcher prefetcher =
+        new FetchResultsPrefetcher(
+            client(i -> i < 10 ? batch(i) : end()), new TSFetchResultsReq(), 2, prefetchers);
+    for (int i = 0; i < 10; i++) {
+      TSFetchResultsResp resp = prefetcher.take();
+      assertTrue(resp.isHasResultSet());
+      assertEquals(i, resp.getQueryDataSet().time.getLong(0));
+    }
+    assertFalse(prefetcher.take().isHasResultSet());
+    // no request is sent after the end of the result
+    try {
+      prefetcher.take();
+      fail();
+    } catch (TException e) {
+      assertEquals(11, fetchNum.get());
+    }
+    prefetcher.close();
+    assertTrue(prefetchers.isEmpty());
+  }
+
+  @Test
+  public void testException() throws TException {
+    FetchResultsPrefetcher prefetcher =
+        new FetchResultsPrefetcher(
+            client(
+                i -> {
+                  if (i < 2) {
+                    return batch(i);
+                  }
+                  throw new TException("broken pipe");
+                }),
+            new TSFetchResultsReq(),
+            4,
+            prefetchers);
+    // the batches before the failure are still returned in order
+    assertEquals(0, prefetcher.take().getQueryDataSet().time.getLong(0));
+    assertEquals(1, prefetcher.take().getQueryDataSet().time.getLong(0));
+    try {
+      prefetcher.take();
+      fail();
+    } catch (TException e) {
+      assertEquals("broken pipe", e.getMessage());
+    }
+    assertEquals(3, fetchNum.get());
+    prefetcher.close();
+  }
+
+  @Test
+  public void testRuntimeException() throws TException {
+    FetchResultsPrefetcher prefetcher =
+        new FetchResultsPrefetcher(
+            client(
+                i -> {
+                  throw new IllegalStateException("unexpected");
+                }),
+            new TSFetchResultsReq(),
+            1,
+            prefetchers);
+    try {
+      prefetcher.take();
+      fail();
+    } catch (IllegalStateException e) {
+      assertEquals("unexpected", e.getMessage());
+    }
+    prefetcher.close();
+  }
+
+  @Test
+  public void testErrorStatus() throws TException {
+    FetchResultsPrefetcher prefetcher =
+        new FetchResultsPrefetcher(
+            client(
+                i -> {
+                  TSFetchResultsResp resp = batch(i);
+                  resp.setStatus(RpcUtils.getStatus(TSStatusCode.EXECUTE_STATEMENT_ERROR));
+                  return resp;
+                }),
+            new TSFetchResultsReq(),
+            2,
+            prefetchers);
+    // the failed response is handed over, and nothing is fetched after it
+    assertEquals(
+        TSStatusCode.EXECUTE_STATEMENT_ERROR.getStatusCode(),
+        prefetcher.take().getStatus().getCode());
+    try {
+      prefetcher.take();
+      fail();
+    } catch (TException e) {
+      assertEquals(1, fetchNum.get());
+    }
+    prefetcher.close();
+  }
+
+  @Test
+  public void testCloseWithConnection() throws Exception {
+    // an endless result, which is never read
+    FetchResultsPrefetcher prefetcher =
+        new FetchResultsPrefetcher(client(this::batch), new TSFetchResultsReq(), 1, prefetchers);
+    assertEquals(Collections.singleton(prefetcher), prefetchers);
+    // the queue is full after the second fetch, the third one waits for the queue
+    while (fetchNum.get() < 2) {
+      Thread.sleep(10);
+    }
+
+    FetchResultsPrefetcher.closeAll(prefetchers);
+    assertTrue(prefetchers.isEmpty());
+    // the waiting task notices the close within a poll interval, and stops fetching
+    Thread.sleep(500);
+    int closedFetchNum = fetchNum.get();
+    assertTrue(closedFetchNum <= 3);
+    Thread.sleep(500);
+    assertEquals(closedFetchNum, fetchNum.get());
+  }
+
+  private interface Fetcher {
+
+    TSFetchResultsResp fetch(int index) throws TException;
+  }
+
+  /** @return a client whose i-th fetchResults returns fetcher.fetch(i) */
+  private TSIService.Iface client(Fetcher fetcher) {
+    return (TSIService.Iface)
+        Proxy.newProxyInstance(
+            FetchResultsPrefetcherTest.class.getClassLoader(),
+            new Class[] {TSIService.Iface.class},
+            (proxy, method, args) -> {
+              if (!"fetchResults".equals(method.getName())) {
+                throw new UnsupportedOperationException(method.getName());
+              }
+              return fetcher.fetch(fetchNum.getAndIncrement());
+            });
+  }
+
+  /** @return a batch of one row, whose time is the index */
+  private TSFetchResultsResp batch(int index) {
+    ByteBuffer time = ByteBuffer.allocate(Long.BYTES);
+    time.putLong(0, index);
+    TSFetchResultsResp resp = end();
+    resp.setHasResultSet(true);
+    resp.setQueryDataSet(
+        new TSQueryDataSet(time, Collections.emptyList(), Collections.emptyList()));
+    return resp;
+  }
+
+  private static TSFetchResultsResp end() {
+    TSFetchResultsResp resp = new TSFetchResultsResp();
+    resp.setStatus(RpcUtils.SUCCESS_STATUS);
+    resp.setIsAlign(true);
+    resp.setHasResultSet(false);
+    return resp;
+  }
+}
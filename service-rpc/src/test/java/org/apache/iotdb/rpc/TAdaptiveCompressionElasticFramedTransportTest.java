@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.rpc;
+
+import org.apache.thrift.TConfiguration;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TMessage;
+import org.apache.thrift.protocol.TMessageType;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TAdaptiveCompressionElasticFramedTransportTest {
+
+  private static final int THRESHOLD = 1024;
+
+  private final MemoryTransport toServer = new MemoryTransport();
+  private final MemoryTransport toClient = new MemoryTransport();
+
+  @Test
+  public void testRoundTrip() throws TTransportException {
+    for (RpcCompressionType type : RpcCompressionType.values()) {
+      TAdaptiveCompressionElasticFramedTransport client = clientTransport(type);
+      TAdaptiveCompressionElasticFramedTransport server = serverTransport(RpcCompressionType.NONE);
+
+      // the first frame is never compressed, the server does not know the type yet
+      byte[] request = compressible(4 * THRESHOLD);
+      send(client, request);
+      assertEquals(RpcCompressionType.NONE, toServer.peekFrameType());
+      assertArrayEquals(request, receive(server, request.length));
+      assertEquals(type, server.getNegotiatedType());
+      assertEquals(type, server.getRequestedType());
+      assertFalse(server.isLegacyPeer());
+
+      byte[] response = compressible(8 * THRESHOLD);
+      send(server, response);
+      assertEquals(type, toClient.peekFrameType());
+      assertArrayEquals(response, receive(client, response.length));
+      assertEquals(type, client.getNegotiatedType());
+
+      send(client, request);
+      assertEquals(type, toServer.peekFrameType());
+      assertArrayEquals(request, receive(server, request.length));
+    }
+  }
+
+  @Test
+  public void testBelowThreshold() throws TTransportException {
+    TAdaptiveCompressionElasticFramedTransport client = clientTransport(RpcCompressionType.SNAPPY);
+    TAdaptiveCompressionElasticFramedTransport server = serverTransport(RpcCompressionType.NONE);
+    send(client, compressible(THRESHOLD));
+    receive(server, THRESHOLD);
+
+    byte[] response = compressible(THRESHOLD - 1);
+    send(server, response);
+    assertEquals(RpcCompressionType.NONE, toClient.peekFrameType());
+    // the frame size, the header byte and the payload as it is
+    assertEquals(4 + 1 + response.length, toClient.available());
+    assertArrayEquals(response, receive(client, response.length));
+  }
+
+  @Test
+  public void testIncompressible() throws TTransportException {
+    for (RpcCompressionType type : RpcCompressionType.values()) {
+      TAdaptiveCompressionElasticFramedTransport client = clientTransport(type);
+      TAdaptiveCompressionElasticFramedTransport server = serverTransport(RpcCompressionType.NONE);
+      send(client, compressible(THRESHOLD));
+      receive(server, THRESHOLD);
+
+      byte[] response = new byte[4 * THRESHOLD];
+      new Random(0).nextBytes(response);
+      send(server, response);
+      // random bytes do not shrink, so they are sent as they are
+      assertEquals(RpcCompressionType.NONE, toClient.peekFrameType());
+      assertEquals(4 + 1 + response.length, toClient.available());
+      assertArrayEquals(response, receive(client, response.length));
+    }
+  }
+
+  @Test
+  public void testServerPreferredType() throws TTransportException {
+    TAdaptiveCompressionElasticFramedTransport client = clientTransport(RpcCompressionType.NONE);
+    TAdaptiveCompressionElasticFramedTransport server = serverTransport(RpcCompressionType.LZ4);
+
+    byte[] request = compressible(4 * THRESHOLD);
+    send(client, request);
+    assertArrayEquals(request, receive(server, request.length));
+    // the client asked for uncompressed frames, while the server still asks for LZ4
+    assertEquals(RpcCompressionType.NONE, server.getNegotiatedType());
+    assertEquals(RpcCompressionType.LZ4, server.getRequestedType());
+
+    byte[] response = compressible(4 * THRESHOLD);
+    send(server, response);
+    assertEquals(RpcCompressionType.NONE, toClient.peekFrameType());
+    assertArrayEquals(response, receive(client, response.length));
+    // the client does not prefer any type, so it follows the server from then on
+    assertEquals(RpcCompressionType.LZ4, client.getNegotiatedType());
+    assertEquals(RpcCompressionType.LZ4, client.getRequestedType());
+
+    send(client, request);
+    assertEquals(RpcCompressionType.LZ4, toServer.peekFrameType());
+    assertArrayEquals(request, receive(server, request.length));
+    assertEquals(RpcCompressionType.LZ4, server.getNegotiatedType());
+  }
+
+  @Test
+  public void testLegacyBinaryClient() throws TException {
+    testLegacyClient(TBinaryProtocol::new);
+  }
+
+  @Test
+  public void testLegacyCompactClient() throws TException {
+    testLegacyClient(TCompactProtocol::new);
+  }
+
+  private void testLegacyClient(ProtocolFactory protocolFactory) throws TException {
+    TElasticFramedTransport client = new TElasticFramedTransport(new Channel(toClient, toServer));
+    TAdaptiveCompressionElasticFramedTransport server = serverTransport(RpcCompressionType.LZ4);
+    TProtocol clientProtocol = protocolFactory.getProtocol(client);
+    TProtocol serverProtocol = protocolFactory.getProtocol(server);
+
+    String request = new String(compressible(4 * THRESHOLD));
+    clientProtocol.writeMessageBegin(new TMessage("openSession", TMessageType.CALL, 1));
+    clientProtocol.writeString(request);
+    clientProtocol.writeMessageEnd();
+    client.flush();
+
+    TMessage message = serverProtocol.readMessageBegin();
+    assertEquals("openSession", message.name);
+    assertEquals(request, serverProtocol.readString());
+    serverProtocol.readMessageEnd();
+    assertTrue(server.isLegacyPeer());
+
+    // the response is a plain frame, though it is large enough to be compressed
+    String response = new String(compressible(8 * THRESHOLD));
+    serverProtocol.writeMessageBegin(new TMessage("openSession", TMessageType.REPLY, 1));
+    serverProtocol.writeString(response);
+    serverProtocol.writeMessageEnd();
+    server.flush();
+
+    message = clientProtocol.readMessageBegin();
+    assertEquals(TMessageType.REPLY, message.type);
+    assertEquals(response, clientProtocol.readString());
+    clientProtocol.readMessageEnd();
+  }
+
+  @Test
+  public void testInvalidHeader() throws TTransportException {
+    TElasticFramedTransport client = new TElasticFramedTransport(new Channel(toClient, toServer));
+    TAdaptiveCompressionElasticFramedTransport server = serverTransport(RpcCompressionType.NONE);
+    byte[] request = compressible(THRESHOLD);
+    request[0] = 0x45;
+    send(client, request);
+    try {
+      receive(server, request.length);
+      fail();
+    } catch (TTransportException e) {
+      assertEquals(TTransportException.CORRUPTED_DATA, e.getType());
+    }
+  }
+
+  private TAdaptiveCompressionElasticFramedTransport clientTransport(RpcCompressionType type) {
+    return new TAdaptiveCompressionElasticFramedTransport(
+        new Channel(toClient, toServer), type, THRESHOLD);
+  }
+
+  private TAdaptiveCompressionElasticFramedTransport serverTransport(RpcCompressionType type) {
+    return new TAdaptiveCompressionElasticFramedTransport(
+        new Channel(toServer, toClient), type, THRESHOLD);
+  }
+
+  private static void send(TTransport transport, byte[] data) throws TTransportException {
+    transport.write(data, 0, data.length);
+    transport.flush();
+  }
+
+  private static byte[] receive(TTransport transport, int length) throws TTransportException {
+    byte[] data = new byte[length];
+    transport.readAll(data, 0, length);
+    return data;
+  }
+
+  private static byte[] compressible(int length) {
+    byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) ('a' + i % 7);
+    }
+    return data;
+  }
+
+  private interface ProtocolFactory {
+
+    TProtocol getProtocol(TTransport transport);
+  }
+
+  /** the bytes written by one side and not read by the other yet */
+  private static class MemoryTransport {
+
+    private byte[] buffer = new byte[1024];
+    private int readPos = 0;
+    private int writePos = 0;
+
+    private void write(byte[] buf, int off, int len) {
+      if (writePos + len > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, writePos + len));
+      }
+      System.arraycopy(buf, off, buffer, writePos, len);
+      writePos += len;
+    }
+
+    private int read(byte[] buf, int off, int len) {
+      int got = Math.min(len, writePos - readPos);
+      System.arraycopy(buffer, readPos, buf, off, got);
+      readPos += got;
+      return got;
+    }
+
+    private int available() {
+      return writePos - readPos;
+    }
+
+    /** @return the type the next frame is compressed with, according to its header byte */
+    private RpcCompressionType peekFrameType() {
+      return RpcCompressionType.deserialize((byte) (buffer[readPos + 4] & 0x0F));
+    }
+  }
+
+  /** one side of a connection */
+  private static class Channel extends TTransport {
+
+    private final MemoryTransport in;
+    private final MemoryTransport out;
+
+    private Channel(MemoryTransport in, MemoryTransport out) {
+      this.in = in;
+      this.out = out;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void open() {
+      // nothing to open
+    }
+
+    @Override
+    public void close() {
+      // nothing to close
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws TTransportException {
+      int got = in.read(buf, off, len);
+      if (got == 0 && len > 0) {
+        throw new TTransportException(TTransportException.END_OF_FILE, "No more data");
+      }
+      return got;
+    }
+
+    @Override
+    public void write(byte[] buf, int off, int len) {
+      out.write(buf, off, len);
+    }
+
+    @Override
+    public TConfiguration getConfiguration() {
+      return TConfiguration.DEFAULT;
+    }
+
+    @Override
+    public void updateKnownMessageSize(long size) {
+      // not limited
+    }
+
+    @Override
+    public void checkReadBytesAvailable(long numBytes) {
+      // not limited
+    }
+  }
+}
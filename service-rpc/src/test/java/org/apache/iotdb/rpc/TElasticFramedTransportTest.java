@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.rpc;
+
+import org.apache.thrift.TConfiguration;
+import org.apache.thrift.transport.TMemoryInputTransport;
+import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
+import org.apache.thrift.transport.layered.TFramedTransport;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TElasticFramedTransportTest {
+
+  private static final int LARGE = TElasticFramedTransport.REFERENCED_WRITE_THRESHOLD;
+
+  private final Random random = new Random(0);
+
+  @Test
+  public void testCopiedWrites() throws TTransportException {
+    RecordingTransport underlying = new RecordingTransport();
+    TElasticFramedTransport transport = new TElasticFramedTransport(underlying, 1024, 1 << 20);
+    byte[][] writes = {bytes(10), bytes(LARGE - 1), bytes(3)};
+    for (byte[] write : writes) {
+      transport.write(write, 0, write.length);
+    }
+    transport.flush();
+
+    assertFrame(underlying.toByteArray(), writes);
+    // nothing is big enough to be written in place
+    for (byte[] write : writes) {
+      assertFalse(underlying.writtenInPlace(write));
+    }
+  }
+
+  @Test
+  public void testReferencedWritesInterleaved() throws TTransportException {
+    RecordingTransport underlying = new RecordingTransport();
+    TElasticFramedTransport transport = new TElasticFramedTransport(underlying, 1024, 1 << 20);
+    byte[][] writes = {bytes(10), bytes(LARGE), bytes(5), bytes(2 * LARGE + 7), bytes(3)};
+    for (byte[] write : writes) {
+      transport.write(write, 0, write.length);
+    }
+    transport.flush();
+
+    // the frame size counts both the copied and the referenced bytes, in their original order
+    assertFrame(underlying.toByteArray(), writes);
+    assertTrue(underlying.writtenInPlace(writes[1]));
+    assertTrue(underlying.writtenInPlace(writes[3]));
+    assertFalse(underlying.writtenInPlace(writes[0]));
+  }
+
+  @Test
+  public void testConsecutiveReferencedWrites() throws TTransportException {
+    RecordingTransport underlying = new RecordingTransport();
+    TElasticFramedTransport transport = new TElasticFramedTransport(underlying, 1024, 1 << 20);
+    byte[] large = bytes(3 * LARGE);
+    // a referenced write of a slice of the caller's array
+    transport.write(large, 5, LARGE);
+    transport.write(large, 5 + LARGE, LARGE + 1);
+    transport.flush();
+
+    assertFrame(
+        underlying.toByteArray(), new byte[][] {Arrays.copyOfRange(large, 5, 5 + 2 * LARGE + 1)});
+  }
+
+  @Test
+  public void testFramesAreIndependent() throws TTransportException {
+    RecordingTransport underlying = new RecordingTransport();
+    TElasticFramedTransport transport = new TElasticFramedTransport(underlying, 1024, 1 << 20);
+    byte[] first = bytes(LARGE);
+    transport.write(first, 0, first.length);
+    transport.flush();
+    int firstFrameLength = underlying.toByteArray().length;
+
+    byte[][] writes = {bytes(7), bytes(LARGE + 1)};
+    for (byte[] write : writes) {
+      transport.write(write, 0, write.length);
+    }
+    transport.flush();
+
+    byte[] written = underlying.toByteArray();
+    assertFrame(Arrays.copyOfRange(written, 0, firstFrameLength), new byte[][] {first});
+    // the referenced write of the first frame is not repeated in the second one
+    assertFrame(Arrays.copyOfRange(written, firstFrameLength, written.length), writes);
+  }
+
+  @Test
+  public void testReadBack() throws TTransportException {
+    RecordingTransport underlying = new RecordingTransport();
+    TElasticFramedTransport writer = new TElasticFramedTransport(underlying, 1024, 1 << 20);
+    byte[][] writes = {bytes(4), bytes(LARGE * 2), bytes(100)};
+    for (byte[] write : writes) {
+      writer.write(write, 0, write.length);
+    }
+    writer.flush();
+
+    TElasticFramedTransport reader =
+        new TElasticFramedTransport(
+            new TMemoryInputTransport(underlying.toByteArray()), 1024, 1 << 20);
+    byte[] expected = concat(writes);
+    byte[] actual = new byte[expected.length];
+    reader.readAll(actual, 0, actual.length);
+    assertArrayEquals(expected, actual);
+  }
+
+  private byte[] bytes(int length) {
+    byte[] bytes = new byte[length];
+    random.nextBytes(bytes);
+    return bytes;
+  }
+
+  private static byte[] concat(byte[][] writes) {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    for (byte[] write : writes) {
+      stream.write(write, 0, write.length);
+    }
+    return stream.toByteArray();
+  }
+
+  private static void assertFrame(byte[] frame, byte[][] writes) {
+    byte[] payload = concat(writes);
+    assertEquals(payload.length, TFramedTransport.decodeFrameSize(frame));
+    assertArrayEquals(payload, Arrays.copyOfRange(frame, 4, frame.length));
+  }
+
+  /** Keeps what is written, and which arrays are passed in. */
+  private static class RecordingTransport extends TTransport {
+
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+    private final List<byte[]> writtenArrays = new ArrayList<>();
+
+    private byte[] toByteArray() {
+      return written.toByteArray();
+    }
+
+    private boolean writtenInPlace(byte[] array) {
+      return writtenArrays.stream().anyMatch(writtenArray -> writtenArray == array);
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void open() {
+      // nothing to open
+    }
+
+    @Override
+    public void close() {
+      // nothing to close
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void write(byte[] buf, int off, int len) {
+      writtenArrays.add(buf);
+      written.write(buf, off, len);
+    }
+
+    @Override
+    public TConfiguration getConfiguration() {
+      return TConfiguration.DEFAULT;
+    }
+
+    @Override
+    public void updateKnownMessageSize(long size) {
+      // not limited
+    }
+
+    @Override
+    public void checkReadBytesAvailable(long numBytes) {
+      // not limited
+    }
+  }
+}
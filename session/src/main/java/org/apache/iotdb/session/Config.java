@@ -45,5 +45,11 @@ public class Config {
 
   public static final int DEFAULT_SESSION_POOL_MAX_SIZE = 5;
 
+  public static final int DEFAULT_ASYNC_WRITER_MAX_ROWS_PER_TABLET = 1024;
+  public static final long DEFAULT_ASYNC_WRITER_LINGER_MS = 50;
+  public static final int DEFAULT_ASYNC_WRITER_MAX_TABLETS_PER_REQUEST = 100;
+  public static final int DEFAULT_ASYNC_WRITER_MAX_IN_FLIGHT_REQUESTS =
+      DEFAULT_SESSION_POOL_MAX_SIZE;
+
   public static final Version DEFAULT_VERSION = Version.V_0_13;
 }
@@ -21,6 +21,7 @@ package org.apache.iotdb.session;
 import org.apache.iotdb.rpc.BatchExecutionException;
 import org.apache.iotdb.rpc.IoTDBConnectionException;
 import org.apache.iotdb.rpc.RedirectException;
+import org.apache.iotdb.rpc.RpcCompressionType;
 import org.apache.iotdb.rpc.StatementExecutionException;
 import org.apache.iotdb.service.rpc.thrift.EndPoint;
 import org.apache.iotdb.service.rpc.thrift.TSAppendSchemaTemplateReq;
@@ -107,6 +108,18 @@ public class Session {
   protected String username;
   protected String password;
   protected int fetchSize;
+  /**
+   * Number of batches a query result set fetches ahead in the background. 0 means the next batch is
+   * only fetched when the current one is used up.
+   */
+  protected int prefetchBatchNum = 0;
+  /**
+   * The compression type negotiated with the server on each connection. null means connections are
+   * created by RpcTransportFactory.INSTANCE as before; otherwise the server must have enabled
+   * rpc_adaptive_compression_enable.
+   */
+  protected RpcCompressionType rpcCompressionType = null;
+
   private static final byte TYPE_NULL = -2;
   /**
    * Timeout of query can be set by users. A negative number means using the default configuration
@@ -359,6 +372,23 @@ public class Session {
     return this.fetchSize;
   }
 
+  public void setPrefetchBatchNum(int prefetchBatchNum) {
+    this.prefetchBatchNum = prefetchBatchNum;
+  }
+
+  public int getPrefetchBatchNum() {
+    return this.prefetchBatchNum;
+  }
+
+  /** Takes effect on the connections opened afterwards. */
+  public void setRpcCompressionType(RpcCompressionType rpcCompressionType) {
+    this.rpcCompressionType = rpcCompressionType;
+  }
+
+  public RpcCompressionType getRpcCompressionType() {
+    return this.rpcCompressionType;
+  }
+
   public Version getVersion() {
     return version;
   }
@@ -1619,6 +1649,8 @@ public class Session {
       getSessionConnection(tablet.deviceId).insertTablet(request);
     } catch (RedirectException e) {
       handleRedirection(tablet.deviceId, e.getEndPoint());
+    } finally {
+      SessionUtils.releaseBuffers(request);
     }
   }
 
@@ -1650,6 +1682,8 @@ public class Session {
       getSessionConnection(tablet.deviceId).insertTablet(request);
     } catch (RedirectException e) {
       handleRedirection(tablet.deviceId, e.getEndPoint());
+    } finally {
+      SessionUtils.releaseBuffers(request);
     }
   }
 
@@ -1708,6 +1742,8 @@ public class Session {
         for (Map.Entry<String, EndPoint> deviceEndPointEntry : deviceEndPointMap.entrySet()) {
           handleRedirection(deviceEndPointEntry.getKey(), deviceEndPointEntry.getValue());
         }
+      } finally {
+        SessionUtils.releaseBuffers(request);
       }
     }
   }
@@ -1746,6 +1782,8 @@ public class Session {
         for (Map.Entry<String, EndPoint> deviceEndPointEntry : deviceEndPointMap.entrySet()) {
           handleRedirection(deviceEndPointEntry.getKey(), deviceEndPointEntry.getValue());
         }
+      } finally {
+        SessionUtils.releaseBuffers(request);
       }
     }
   }
@@ -1762,6 +1800,8 @@ public class Session {
     }
 
     insertByGroup(tabletGroup, SessionConnection::insertTablets);
+    // on failure some requests may still be on the wire, so only release after all succeeded
+    tabletGroup.values().forEach(SessionUtils::releaseBuffers);
   }
 
   private TSInsertTabletsReq genTSInsertTabletsReq(
@@ -1813,7 +1853,11 @@ public class Session {
   public void testInsertTablet(Tablet tablet, boolean sorted)
       throws IoTDBConnectionException, StatementExecutionException {
     TSInsertTabletReq request = genTSInsertTabletReq(tablet, sorted, false);
-    defaultSessionConnection.testInsertTablet(request);
+    try {
+      defaultSessionConnection.testInsertTablet(request);
+    } finally {
+      SessionUtils.releaseBuffers(request);
+    }
   }
 
   /**
@@ -1833,7 +1877,11 @@ public class Session {
       throws IoTDBConnectionException, StatementExecutionException {
     TSInsertTabletsReq request =
         genTSInsertTabletsReq(new ArrayList<>(tablets.values()), sorted, false);
-    defaultSessionConnection.testInsertTablets(request);
+    try {
+      defaultSessionConnection.testInsertTablets(request);
+    } finally {
+      SessionUtils.releaseBuffers(request);
+    }
   }
 
   /**
@@ -2516,6 +2564,8 @@ public class Session {
     private String username = Config.DEFAULT_USER;
     private String password = Config.DEFAULT_PASSWORD;
     private int fetchSize = Config.DEFAULT_FETCH_SIZE;
+    private int prefetchBatchNum = 0;
+    private RpcCompressionType rpcCompressionType = null;
     private ZoneId zoneId = null;
     private int thriftDefaultBufferSize = Config.DEFAULT_INITIAL_BUFFER_CAPACITY;
     private int thriftMaxFrameSize = Config.DEFAULT_MAX_FRAME_SIZE;
@@ -2549,6 +2599,16 @@ public class Session {
       return this;
     }
 
+    public Builder prefetchBatchNum(int prefetchBatchNum) {
+      this.prefetchBatchNum = prefetchBatchNum;
+      return this;
+    }
+
+    public Builder rpcCompressionType(RpcCompressionType rpcCompressionType) {
+      this.rpcCompressionType = rpcCompressionType;
+      return this;
+    }
+
     public Builder zoneId(ZoneId zoneId) {
       this.zoneId = zoneId;
       return this;
@@ -2599,20 +2659,26 @@ public class Session {
                 enableCacheLeader,
                 version);
         newSession.setEnableQueryRedirection(true);
+        newSession.setPrefetchBatchNum(prefetchBatchNum);
+        newSession.setRpcCompressionType(rpcCompressionType);
         return newSession;
       }
 
-      return new Session(
-          host,
-          rpcPort,
-          username,
-          password,
-          fetchSize,
-          zoneId,
-          thriftDefaultBufferSize,
-          thriftMaxFrameSize,
-          enableCacheLeader,
-          version);
+      Session newSession =
+          new Session(
+              host,
+              rpcPort,
+              username,
+              password,
+              fetchSize,
+              zoneId,
+              thriftDefaultBufferSize,
+              thriftMaxFrameSize,
+              enableCacheLeader,
+              version);
+      newSession.setPrefetchBatchNum(prefetchBatchNum);
+      newSession.setRpcCompressionType(rpcCompressionType);
+      return newSession;
     }
   }
 }
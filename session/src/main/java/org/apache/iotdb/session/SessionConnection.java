@@ -19,6 +19,7 @@
 
 package org.apache.iotdb.session;
 
+import org.apache.iotdb.rpc.FetchResultsPrefetcher;
 import org.apache.iotdb.rpc.IoTDBConnectionException;
 import org.apache.iotdb.rpc.RedirectException;
 import org.apache.iotdb.rpc.RpcTransportFactory;
@@ -69,6 +70,8 @@ import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SessionConnection {
 
@@ -84,6 +87,8 @@ public class SessionConnection {
   private EndPoint endPoint;
   private List<EndPoint> endPointList = new ArrayList<>();
   private boolean enableRedirect = false;
+  // the result set prefetchers that are not closed yet
+  private final Set<FetchResultsPrefetcher> prefetchers = ConcurrentHashMap.newKeySet();
 
   // TestOnly
   public SessionConnection() {}
@@ -108,10 +113,19 @@ public class SessionConnection {
     RpcTransportFactory.setDefaultBufferCapacity(session.thriftDefaultBufferSize);
     RpcTransportFactory.setThriftMaxFrameSize(session.thriftMaxFrameSize);
     try {
-      transport =
-          RpcTransportFactory.INSTANCE.getTransport(
-              // as there is a try-catch already, we do not need to use TSocket.wrap
-              endPoint.getIp(), endPoint.getPort(), session.connectionTimeoutInMs);
+      if (session.rpcCompressionType == null) {
+        transport =
+            RpcTransportFactory.INSTANCE.getTransport(
+                // as there is a try-catch already, we do not need to use TSocket.wrap
+                endPoint.getIp(), endPoint.getPort(), session.connectionTimeoutInMs);
+      } else {
+        transport =
+            RpcTransportFactory.INSTANCE.getAdaptiveCompressionTransport(
+                endPoint.getIp(),
+                endPoint.getPort(),
+                session.connectionTimeoutInMs,
+                session.rpcCompressionType);
+      }
       transport.open();
     } catch (TTransportException e) {
       throw new IoTDBConnectionException(e);
@@ -175,6 +189,7 @@ public class SessionConnection {
   }
 
   public void close() throws IoTDBConnectionException {
+    FetchResultsPrefetcher.closeAll(prefetchers);
     TSCloseSessionReq req = new TSCloseSessionReq(sessionId);
     try {
       client.closeSession(req);
@@ -354,18 +369,21 @@ public class SessionConnection {
     }
 
     RpcUtils.verifySuccess(execResp.getStatus());
-    return new SessionDataSet(
-        sql,
-        execResp.getColumns(),
-        execResp.getDataTypeList(),
-        execResp.columnNameIndexMap,
-        execResp.getQueryId(),
-        statementId,
-        client,
-        sessionId,
-        execResp.queryDataSet,
-        execResp.isIgnoreTimeStamp(),
-        timeout);
+    SessionDataSet dataSet =
+        new SessionDataSet(
+            sql,
+            execResp.getColumns(),
+            execResp.getDataTypeList(),
+            execResp.columnNameIndexMap,
+            execResp.getQueryId(),
+            statementId,
+            client,
+            sessionId,
+            execResp.queryDataSet,
+            execResp.isIgnoreTimeStamp(),
+            timeout);
+    dataSet.enablePrefetch(session.prefetchBatchNum, prefetchers);
+    return dataSet;
   }
 
   protected void executeNonQueryStatement(String sql)
@@ -415,17 +433,20 @@ public class SessionConnection {
     }
 
     RpcUtils.verifySuccess(execResp.getStatus());
-    return new SessionDataSet(
-        "",
-        execResp.getColumns(),
-        execResp.getDataTypeList(),
-        execResp.columnNameIndexMap,
-        execResp.getQueryId(),
-        statementId,
-        client,
-        sessionId,
-        execResp.queryDataSet,
-        execResp.isIgnoreTimeStamp());
+    SessionDataSet dataSet =
+        new SessionDataSet(
+            "",
+            execResp.getColumns(),
+            execResp.getDataTypeList(),
+            execResp.columnNameIndexMap,
+            execResp.getQueryId(),
+            statementId,
+            client,
+            sessionId,
+            execResp.queryDataSet,
+            execResp.isIgnoreTimeStamp());
+    dataSet.enablePrefetch(session.prefetchBatchNum, prefetchers);
+    return dataSet;
   }
 
   protected SessionDataSet executeLastDataQuery(List<String> paths, long time)
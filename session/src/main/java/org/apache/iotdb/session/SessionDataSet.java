@@ -18,6 +18,8 @@
  */
 package org.apache.iotdb.session;
 
+import org.apache.iotdb.rpc.ColumnarBatch;
+import org.apache.iotdb.rpc.FetchResultsPrefetcher;
 import org.apache.iotdb.rpc.IoTDBConnectionException;
 import org.apache.iotdb.rpc.IoTDBRpcDataSet;
 import org.apache.iotdb.rpc.StatementExecutionException;
@@ -36,6 +38,7 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.apache.iotdb.rpc.IoTDBRpcDataSet.START_INDEX;
 
@@ -106,6 +109,15 @@ public class SessionDataSet implements AutoCloseable {
     ioTDBRpcDataSet.fetchSize = fetchSize;
   }
 
+  /**
+   * Keeps up to {@code batchNum} following batches fetched in the background while the current one
+   * is read. Non-positive values keep fetching synchronously. The connection closes the prefetcher
+   * if this data set is not closed before it.
+   */
+  public void enablePrefetch(int batchNum, Set<FetchResultsPrefetcher> connectionPrefetchers) {
+    ioTDBRpcDataSet.enablePrefetch(batchNum, connectionPrefetchers);
+  }
+
   public List<String> getColumnNames() {
     return new ArrayList<>(ioTDBRpcDataSet.columnNameList);
   }
@@ -184,6 +196,18 @@ public class SessionDataSet implements AutoCloseable {
     return constructRowRecordFromValueArray();
   }
 
+  /**
+   * Returns the rows not read yet from the current batch, or from the next one if it is used up, as
+   * typed columns instead of RowRecords. It can be mixed with {@link #next()}, and a row already
+   * read ahead by {@link #hasNext()} is the first row of the returned batch.
+   *
+   * @return null if there are no more rows
+   */
+  public ColumnarBatch nextColumnarBatch()
+      throws StatementExecutionException, IoTDBConnectionException {
+    return ioTDBRpcDataSet.nextColumnarBatch();
+  }
+
   public void closeOperationHandle() throws StatementExecutionException, IoTDBConnectionException {
     try {
       ioTDBRpcDataSet.close();
@@ -0,0 +1,469 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.session.pool;
+
+import org.apache.iotdb.session.Config;
+import org.apache.iotdb.session.util.ThreadUtils;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.write.record.Tablet;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * AsyncSessionWriter accepts single records and writes them in batches without blocking the
+ * producers. Records are buffered per device and measurement list into Tablets, and a Tablet is
+ * sent once it is full or its first record has waited for the linger time. Tablets that are sent
+ * together are packed into insertTablets requests, which run on the connections of a {@link
+ * SessionPool}. With leader caching enabled, the pooled sessions route every Tablet to the node
+ * that owns its device and keep that routing up to date from the redirections of the servers.
+ *
+ * <p>Every insert returns the future of the Tablet the record was put into, which completes when
+ * the request carrying that Tablet succeeds or fails.
+ *
+ * <p>At most maxInFlightRequests requests are on the wire at a time. The producer whose record
+ * fills a Tablet waits for a free slot, which slows the producers down to what the servers take.
+ *
+ * <p>The writer does not own the pool. Records must not be inserted concurrently with {@link
+ * #close()}.
+ */
+public class AsyncSessionWriter implements AutoCloseable {
+
+  private static final Logger logger = LoggerFactory.getLogger(AsyncSessionWriter.class);
+
+  private final SessionPool sessionPool;
+  private final int maxRowsPerTablet;
+  private final long lingerMs;
+  private final int maxTabletsPerRequest;
+  private final int maxInFlightRequests;
+
+  private final Map<BufferKey, TabletBuffer> buffers = new ConcurrentHashMap<>();
+  private final Semaphore inFlightRequests;
+  private final ExecutorService senders;
+  private final ScheduledExecutorService lingerTimer;
+  private volatile boolean closed = false;
+
+  private AsyncSessionWriter(
+      SessionPool sessionPool,
+      int maxRowsPerTablet,
+      long lingerMs,
+      int maxTabletsPerRequest,
+      int maxInFlightRequests) {
+    this.sessionPool = sessionPool;
+    this.maxRowsPerTablet = maxRowsPerTablet;
+    this.lingerMs = lingerMs;
+    this.maxTabletsPerRequest = maxTabletsPerRequest;
+    this.maxInFlightRequests = maxInFlightRequests;
+    this.inFlightRequests = new Semaphore(maxInFlightRequests);
+    this.senders =
+        Executors.newFixedThreadPool(
+            maxInFlightRequests, ThreadUtils.createThreadFactory("AsyncSessionWriter-Send", true));
+    this.lingerTimer =
+        Executors.newSingleThreadScheduledExecutor(
+            ThreadUtils.createThreadFactory("AsyncSessionWriter-Linger", true));
+    lingerTimer.scheduleWithFixedDelay(
+        this::flushLingeringTablets, lingerMs, lingerMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Buffers a record of a non-aligned device.
+   *
+   * @return the future of the request that writes the record
+   */
+  public CompletableFuture<Void> insertRecord(
+      String deviceId,
+      long time,
+      List<String> measurements,
+      List<TSDataType> types,
+      List<Object> values) {
+    return insert(new BufferKey(deviceId, measurements, types, false), time, values);
+  }
+
+  /**
+   * Buffers a record of an aligned device.
+   *
+   * @return the future of the request that writes the record
+   */
+  public CompletableFuture<Void> insertAlignedRecord(
+      String deviceId,
+      long time,
+      List<String> measurements,
+      List<TSDataType> types,
+      List<Object> values) {
+    return insert(new BufferKey(deviceId, measurements, types, true), time, values);
+  }
+
+  private CompletableFuture<Void> insert(BufferKey key, long time, List<Object> values) {
+    if (closed) {
+      throw new IllegalStateException("AsyncSessionWriter is closed");
+    }
+    if (key.measurements.size() != key.types.size() || key.measurements.size() != values.size()) {
+      throw new IllegalArgumentException(
+          "measurements, types and values should have the same size");
+    }
+    checkValues(key.measurements, key.types, values);
+    CompletableFuture<Void> future;
+    PendingTablet fullTablet = null;
+    while (true) {
+      TabletBuffer buffer = getBuffer(key);
+      synchronized (buffer) {
+        if (buffer.removed) {
+          continue;
+        }
+        future = buffer.append(time, values);
+        if (buffer.tablet.rowSize >= maxRowsPerTablet) {
+          fullTablet = buffer.drain();
+        }
+        break;
+      }
+    }
+    if (fullTablet != null) {
+      send(Collections.singletonList(fullTablet), key.aligned);
+    }
+    return future;
+  }
+
+  /**
+   * Rejects the record before it reaches a Tablet, so that a value of the wrong type does not leave
+   * a half-written row behind.
+   */
+  private static void checkValues(
+      List<String> measurements, List<TSDataType> types, List<Object> values) {
+    for (int i = 0; i < values.size(); i++) {
+      Object value = values.get(i);
+      if (value != null && !isOfType(types.get(i), value)) {
+        throw new IllegalArgumentException(
+            String.format(
+                "The value %s of measurement %s is not of type %s",
+                value, measurements.get(i), types.get(i)));
+      }
+    }
+  }
+
+  private static boolean isOfType(TSDataType type, Object value) {
+    switch (type) {
+      case BOOLEAN:
+        return value instanceof Boolean;
+      case INT32:
+        return value instanceof Integer;
+      case INT64:
+        return value instanceof Long;
+      case FLOAT:
+        return value instanceof Float;
+      case DOUBLE:
+        return value instanceof Double;
+      case TEXT:
+        return value instanceof String || value instanceof Binary;
+      default:
+        return false;
+    }
+  }
+
+  private TabletBuffer getBuffer(BufferKey key) {
+    TabletBuffer buffer = buffers.get(key);
+    if (buffer == null) {
+      // the caller may reuse its lists, so the map keeps copies of them
+      BufferKey keyCopy =
+          new BufferKey(
+              key.deviceId,
+              new ArrayList<>(key.measurements),
+              new ArrayList<>(key.types),
+              key.aligned);
+      buffer = buffers.computeIfAbsent(keyCopy, TabletBuffer::new);
+    }
+    return buffer;
+  }
+
+  /**
+   * Sends all buffered records without waiting for the linger time.
+   *
+   * @return the future that completes when all of them are written
+   */
+  public CompletableFuture<Void> flush() {
+    return CompletableFuture.allOf(flushTablets(buffer -> true).toArray(new CompletableFuture[0]));
+  }
+
+  private void flushLingeringTablets() {
+    try {
+      long now = System.currentTimeMillis();
+      flushTablets(buffer -> buffer.lingerDeadline <= now);
+    } catch (Exception e) {
+      // keep the timer alive, the failure has been reported through the futures
+      logger.warn("Failed to flush lingering tablets", e);
+    }
+  }
+
+  private List<CompletableFuture<Void>> flushTablets(Predicate<TabletBuffer> condition) {
+    List<PendingTablet> nonAlignedTablets = new ArrayList<>();
+    List<PendingTablet> alignedTablets = new ArrayList<>();
+    for (TabletBuffer buffer : buffers.values()) {
+      synchronized (buffer) {
+        if (buffer.tablet == null) {
+          // idle since the last scan, drop it so that the scans only visit active devices
+          buffer.removed = true;
+          buffers.remove(buffer.key);
+        } else if (condition.test(buffer)) {
+          (buffer.key.aligned ? alignedTablets : nonAlignedTablets).add(buffer.drain());
+        }
+      }
+    }
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (PendingTablet tablet : nonAlignedTablets) {
+      futures.add(tablet.future);
+    }
+    for (PendingTablet tablet : alignedTablets) {
+      futures.add(tablet.future);
+    }
+    sendInRequests(nonAlignedTablets, false);
+    sendInRequests(alignedTablets, true);
+    return futures;
+  }
+
+  /**
+   * Packs the tablets into requests of at most maxTabletsPerRequest tablets. The tablets of one
+   * request are keyed by device, so two tablets of a device go to different requests.
+   */
+  private void sendInRequests(List<PendingTablet> tablets, boolean aligned) {
+    List<List<PendingTablet>> requests = new ArrayList<>();
+    // the first request that has no tablet of the device yet
+    Map<String, Integer> deviceToNextRequest = new HashMap<>();
+    for (PendingTablet tablet : tablets) {
+      int requestIndex = deviceToNextRequest.getOrDefault(tablet.tablet.deviceId, 0);
+      while (requestIndex < requests.size()
+          && requests.get(requestIndex).size() >= maxTabletsPerRequest) {
+        requestIndex++;
+      }
+      if (requestIndex == requests.size()) {
+        requests.add(new ArrayList<>());
+      }
+      requests.get(requestIndex).add(tablet);
+      deviceToNextRequest.put(tablet.tablet.deviceId, requestIndex + 1);
+    }
+    for (List<PendingTablet> request : requests) {
+      send(request, aligned);
+    }
+  }
+
+  private void send(List<PendingTablet> request, boolean aligned) {
+    inFlightRequests.acquireUninterruptibly();
+    try {
+      senders.execute(() -> doSend(request, aligned));
+    } catch (RejectedExecutionException e) {
+      inFlightRequests.release();
+      for (PendingTablet tablet : request) {
+        tablet.future.completeExceptionally(e);
+      }
+    }
+  }
+
+  private void doSend(List<PendingTablet> request, boolean aligned) {
+    Map<String, Tablet> tablets = new HashMap<>();
+    for (PendingTablet tablet : request) {
+      tablets.put(tablet.tablet.deviceId, tablet.tablet);
+    }
+    try {
+      if (aligned) {
+        sessionPool.insertAlignedTablets(tablets);
+      } else {
+        sessionPool.insertTablets(tablets);
+      }
+      for (PendingTablet tablet : request) {
+        tablet.future.complete(null);
+      }
+    } catch (Exception e) {
+      logger.warn("Failed to write {} tablets", request.size(), e);
+      for (PendingTablet tablet : request) {
+        tablet.future.completeExceptionally(e);
+      }
+    } finally {
+      inFlightRequests.release();
+    }
+  }
+
+  /** Sends the buffered records and waits for all requests to finish. */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    lingerTimer.shutdownNow();
+    flush();
+    inFlightRequests.acquireUninterruptibly(maxInFlightRequests);
+    inFlightRequests.release(maxInFlightRequests);
+    senders.shutdown();
+  }
+
+  private static class BufferKey {
+
+    private final String deviceId;
+    private final List<String> measurements;
+    private final List<TSDataType> types;
+    private final boolean aligned;
+
+    private BufferKey(
+        String deviceId, List<String> measurements, List<TSDataType> types, boolean aligned) {
+      this.deviceId = deviceId;
+      this.measurements = measurements;
+      this.types = types;
+      this.aligned = aligned;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      BufferKey that = (BufferKey) o;
+      return aligned == that.aligned
+          && deviceId.equals(that.deviceId)
+          && measurements.equals(that.measurements)
+          && types.equals(that.types);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(deviceId, measurements, types, aligned);
+    }
+  }
+
+  /** The Tablet being filled for one device and measurement list, guarded by its own monitor. */
+  private class TabletBuffer {
+
+    private final BufferKey key;
+    private final List<MeasurementSchema> schemas;
+
+    private Tablet tablet;
+    private CompletableFuture<Void> future;
+    private long lingerDeadline;
+    // removed from the map, the inserts have to get a new buffer
+    private boolean removed = false;
+
+    private TabletBuffer(BufferKey key) {
+      this.key = key;
+      this.schemas = new ArrayList<>(key.measurements.size());
+      for (int i = 0; i < key.measurements.size(); i++) {
+        schemas.add(new MeasurementSchema(key.measurements.get(i), key.types.get(i)));
+      }
+    }
+
+    private CompletableFuture<Void> append(long time, List<Object> values) {
+      if (tablet == null) {
+        tablet = new Tablet(key.deviceId, schemas, maxRowsPerTablet);
+        future = new CompletableFuture<>();
+        lingerDeadline = System.currentTimeMillis() + lingerMs;
+      }
+      int row = tablet.rowSize;
+      tablet.addTimestamp(row, time);
+      for (int i = 0; i < values.size(); i++) {
+        tablet.addValue(key.measurements.get(i), row, values.get(i));
+      }
+      // the row becomes visible only once it is complete
+      tablet.rowSize++;
+      return future;
+    }
+
+    private PendingTablet drain() {
+      PendingTablet pendingTablet = new PendingTablet(tablet, future);
+      tablet = null;
+      future = null;
+      return pendingTablet;
+    }
+  }
+
+  private static class PendingTablet {
+
+    private final Tablet tablet;
+    private final CompletableFuture<Void> future;
+
+    private PendingTablet(Tablet tablet, CompletableFuture<Void> future) {
+      this.tablet = tablet;
+      this.future = future;
+    }
+  }
+
+  public static class Builder {
+
+    private final SessionPool sessionPool;
+    private int maxRowsPerTablet = Config.DEFAULT_ASYNC_WRITER_MAX_ROWS_PER_TABLET;
+    private long lingerMs = Config.DEFAULT_ASYNC_WRITER_LINGER_MS;
+    private int maxTabletsPerRequest = Config.DEFAULT_ASYNC_WRITER_MAX_TABLETS_PER_REQUEST;
+    private int maxInFlightRequests = Config.DEFAULT_ASYNC_WRITER_MAX_IN_FLIGHT_REQUESTS;
+
+    public Builder(SessionPool sessionPool) {
+      this.sessionPool = sessionPool;
+    }
+
+    /** Rows of a device buffered before its Tablet is sent. */
+    public Builder maxRowsPerTablet(int maxRowsPerTablet) {
+      this.maxRowsPerTablet = maxRowsPerTablet;
+      return this;
+    }
+
+    /** How long the first record of a Tablet waits for more records before it is sent. */
+    public Builder lingerMs(long lingerMs) {
+      this.lingerMs = lingerMs;
+      return this;
+    }
+
+    public Builder maxTabletsPerRequest(int maxTabletsPerRequest) {
+      this.maxTabletsPerRequest = maxTabletsPerRequest;
+      return this;
+    }
+
+    /** Requests sent at the same time, which should not exceed the size of the pool. */
+    public Builder maxInFlightRequests(int maxInFlightRequests) {
+      this.maxInFlightRequests = maxInFlightRequests;
+      return this;
+    }
+
+    public AsyncSessionWriter build() {
+      if (maxRowsPerTablet <= 0
+          || lingerMs <= 0
+          || maxTabletsPerRequest <= 0
+          || maxInFlightRequests <= 0) {
+        throw new IllegalArgumentException(
+            "The tablet size, linger time and request limits should be positive");
+      }
+      return new AsyncSessionWriter(
+          sessionPool, maxRowsPerTablet, lingerMs, maxTabletsPerRequest, maxInFlightRequests);
+    }
+  }
+}
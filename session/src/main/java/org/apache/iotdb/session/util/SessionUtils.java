@@ -20,6 +20,8 @@ package org.apache.iotdb.session.util;
 
 import org.apache.iotdb.rpc.IoTDBConnectionException;
 import org.apache.iotdb.service.rpc.thrift.EndPoint;
+import org.apache.iotdb.service.rpc.thrift.TSInsertTabletReq;
+import org.apache.iotdb.service.rpc.thrift.TSInsertTabletsReq;
 import org.apache.iotdb.tsfile.common.conf.TSFileConfig;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
@@ -44,18 +46,25 @@ public class SessionUtils {
   private static final Logger logger = LoggerFactory.getLogger(SessionUtils.class);
   private static final byte TYPE_NULL = -2;
 
+  /**
+   * The buffer is taken from {@link TabletBufferPool} and can be handed back by {@link
+   * #releaseBuffers(TSInsertTabletReq)} after the request is sent.
+   */
   public static ByteBuffer getTimeBuffer(Tablet tablet) {
-    ByteBuffer timeBuffer = ByteBuffer.allocate(tablet.getTimeBytesSize());
-    for (int i = 0; i < tablet.rowSize; i++) {
-      timeBuffer.putLong(tablet.timestamps[i]);
-    }
+    ByteBuffer timeBuffer = TabletBufferPool.allocate(tablet.getTimeBytesSize());
+    timeBuffer.asLongBuffer().put(tablet.timestamps, 0, tablet.rowSize);
+    timeBuffer.position(tablet.rowSize * Long.BYTES);
     timeBuffer.flip();
     return timeBuffer;
   }
 
+  /**
+   * The buffer is taken from {@link TabletBufferPool} and can be handed back by {@link
+   * #releaseBuffers(TSInsertTabletReq)} after the request is sent.
+   */
   @SuppressWarnings("squid:S3776") // Suppress high Cognitive Complexity warning
   public static ByteBuffer getValueBuffer(Tablet tablet) {
-    ByteBuffer valueBuffer = ByteBuffer.allocate(tablet.getTotalValueOccupation());
+    ByteBuffer valueBuffer = TabletBufferPool.allocate(tablet.getTotalValueOccupation());
     for (int i = 0; i < tablet.getSchemas().size(); i++) {
       MeasurementSchema schema = tablet.getSchemas().get(i);
       getValueBufferOfDataType(schema.getType(), tablet, i, valueBuffer);
@@ -65,10 +74,7 @@ public class SessionUtils {
         boolean columnHasNull = bitMap != null && !bitMap.isAllUnmarked();
         valueBuffer.put(BytesUtils.boolToByte(columnHasNull));
         if (columnHasNull) {
-          byte[] bytes = bitMap.getByteArray();
-          for (int j = 0; j < tablet.rowSize / Byte.SIZE + 1; j++) {
-            valueBuffer.put(bytes[j]);
-          }
+          valueBuffer.put(bitMap.getByteArray(), 0, tablet.rowSize / Byte.SIZE + 1);
         }
       }
     }
@@ -76,6 +82,22 @@ public class SessionUtils {
     return valueBuffer;
   }
 
+  /** Hands the buffers of a sent request back to {@link TabletBufferPool}. */
+  public static void releaseBuffers(TSInsertTabletReq request) {
+    TabletBufferPool.release(request.timestamps);
+    TabletBufferPool.release(request.values);
+  }
+
+  /** Hands the buffers of a sent request back to {@link TabletBufferPool}. */
+  public static void releaseBuffers(TSInsertTabletsReq request) {
+    if (request.timestampsList != null) {
+      request.timestampsList.forEach(TabletBufferPool::release);
+    }
+    if (request.valuesList != null) {
+      request.valuesList.forEach(TabletBufferPool::release);
+    }
+  }
+
   public static ByteBuffer getValueBuffer(List<TSDataType> types, List<Object> values)
       throws IoTDBConnectionException {
     ByteBuffer buffer = ByteBuffer.allocate(SessionUtils.calculateLength(types, values));
@@ -160,12 +182,23 @@ public class SessionUtils {
     buffer.flip();
   }
 
+  private static boolean hasNull(Tablet tablet, int column) {
+    return tablet.bitMaps != null
+        && tablet.bitMaps[column] != null
+        && !tablet.bitMaps[column].isAllUnmarked();
+  }
+
   private static void getValueBufferOfDataType(
       TSDataType dataType, Tablet tablet, int i, ByteBuffer valueBuffer) {
 
     switch (dataType) {
       case INT32:
         int[] intValues = (int[]) tablet.values[i];
+        if (!hasNull(tablet, i)) {
+          valueBuffer.asIntBuffer().put(intValues, 0, tablet.rowSize);
+          valueBuffer.position(valueBuffer.position() + tablet.rowSize * Integer.BYTES);
+          break;
+        }
         for (int index = 0; index < tablet.rowSize; index++) {
           if (tablet.bitMaps == null
               || tablet.bitMaps[i] == null
@@ -178,6 +211,11 @@ public class SessionUtils {
         break;
       case INT64:
         long[] longValues = (long[]) tablet.values[i];
+        if (!hasNull(tablet, i)) {
+          valueBuffer.asLongBuffer().put(longValues, 0, tablet.rowSize);
+          valueBuffer.position(valueBuffer.position() + tablet.rowSize * Long.BYTES);
+          break;
+        }
         for (int index = 0; index < tablet.rowSize; index++) {
           if (tablet.bitMaps == null
               || tablet.bitMaps[i] == null
@@ -190,6 +228,11 @@ public class SessionUtils {
         break;
       case FLOAT:
         float[] floatValues = (float[]) tablet.values[i];
+        if (!hasNull(tablet, i)) {
+          valueBuffer.asFloatBuffer().put(floatValues, 0, tablet.rowSize);
+          valueBuffer.position(valueBuffer.position() + tablet.rowSize * Float.BYTES);
+          break;
+        }
         for (int index = 0; index < tablet.rowSize; index++) {
           if (tablet.bitMaps == null
               || tablet.bitMaps[i] == null
@@ -202,6 +245,11 @@ public class SessionUtils {
         break;
       case DOUBLE:
         double[] doubleValues = (double[]) tablet.values[i];
+        if (!hasNull(tablet, i)) {
+          valueBuffer.asDoubleBuffer().put(doubleValues, 0, tablet.rowSize);
+          valueBuffer.position(valueBuffer.position() + tablet.rowSize * Double.BYTES);
+          break;
+        }
         for (int index = 0; index < tablet.rowSize; index++) {
           if (tablet.bitMaps == null
               || tablet.bitMaps[i] == null
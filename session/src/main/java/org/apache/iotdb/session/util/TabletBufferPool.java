@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.session.util;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reuses the buffers that Tablets are serialized into. Buffers are bucketed by power-of-two
+ * capacity and the pool keeps at most {@link #MAX_POOLED_BYTES} of them. They are heap buffers,
+ * because thrift writes a binary field through {@link ByteBuffer#array()}.
+ */
+public class TabletBufferPool {
+
+  private static final int MIN_POOLED_CAPACITY_LOG = 10;
+  private static final int MAX_POOLED_CAPACITY_LOG = 26;
+  private static final long MAX_POOLED_BYTES = 64L * 1024 * 1024;
+
+  @SuppressWarnings("unchecked")
+  private static final Queue<ByteBuffer>[] BUCKETS =
+      new Queue[MAX_POOLED_CAPACITY_LOG - MIN_POOLED_CAPACITY_LOG + 1];
+
+  private static final AtomicLong pooledBytes = new AtomicLong();
+
+  static {
+    for (int i = 0; i < BUCKETS.length; i++) {
+      BUCKETS[i] = new ConcurrentLinkedQueue<>();
+    }
+  }
+
+  private TabletBufferPool() {}
+
+  /** @return a buffer with position 0 and limit {@code size}, whose content is undefined */
+  public static ByteBuffer allocate(int size) {
+    int capacityLog = capacityLog(size);
+    if (capacityLog > MAX_POOLED_CAPACITY_LOG) {
+      return ByteBuffer.allocate(size);
+    }
+    ByteBuffer buffer = BUCKETS[capacityLog - MIN_POOLED_CAPACITY_LOG].poll();
+    if (buffer == null) {
+      buffer = ByteBuffer.allocate(1 << capacityLog);
+    } else {
+      pooledBytes.addAndGet(-buffer.capacity());
+    }
+    buffer.clear();
+    buffer.limit(size);
+    return buffer;
+  }
+
+  /** Returns a buffer got from {@link #allocate(int)} once nothing refers to it anymore. */
+  public static void release(ByteBuffer buffer) {
+    if (buffer == null || !buffer.hasArray()) {
+      return;
+    }
+    int capacity = buffer.capacity();
+    int capacityLog = Integer.numberOfTrailingZeros(capacity);
+    if (Integer.bitCount(capacity) != 1
+        || capacityLog < MIN_POOLED_CAPACITY_LOG
+        || capacityLog > MAX_POOLED_CAPACITY_LOG) {
+      return;
+    }
+    if (pooledBytes.addAndGet(capacity) > MAX_POOLED_BYTES) {
+      pooledBytes.addAndGet(-capacity);
+      return;
+    }
+    BUCKETS[capacityLog - MIN_POOLED_CAPACITY_LOG].offer(buffer);
+  }
+
+  private static int capacityLog(int size) {
+    if (size <= 1 << MIN_POOLED_CAPACITY_LOG) {
+      return MIN_POOLED_CAPACITY_LOG;
+    }
+    return Integer.SIZE - Integer.numberOfLeadingZeros(size - 1);
+  }
+}
@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.session.pool;
+
+import org.apache.iotdb.rpc.IoTDBConnectionException;
+import org.apache.iotdb.rpc.StatementExecutionException;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.write.record.Tablet;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncSessionWriterTest {
+
+  private static final long LONG_LINGER_MS = 60_000;
+
+  private static final List<String> MEASUREMENTS = Collections.singletonList("s1");
+  private static final List<TSDataType> TYPES = Collections.singletonList(TSDataType.INT64);
+
+  @Test
+  public void testLingerFlush() throws Exception {
+    RecordingSessionPool pool = new RecordingSessionPool();
+    try (AsyncSessionWriter writer =
+        new AsyncSessionWriter.Builder(pool).maxRowsPerTablet(100).lingerMs(50).build()) {
+      CompletableFuture<Void> future =
+          writer.insertRecord("root.sg.d1", 1, MEASUREMENTS, TYPES, values(1L));
+      // the tablet is far from full, only the linger timer can send it
+      future.get(10, TimeUnit.SECONDS);
+      assertEquals(1, pool.requests.size());
+      Tablet tablet = pool.requests.get(0).get("root.sg.d1");
+      assertEquals(1, tablet.rowSize);
+      assertEquals(1L, ((long[]) tablet.values[0])[0]);
+    }
+  }
+
+  @Test
+  public void testSizeFlush() throws Exception {
+    RecordingSessionPool pool = new RecordingSessionPool();
+    try (AsyncSessionWriter writer =
+        new AsyncSessionWriter.Builder(pool).maxRowsPerTablet(3).lingerMs(LONG_LINGER_MS).build()) {
+      List<CompletableFuture<Void>> futures = new ArrayList<>();
+      for (long i = 0; i < 3; i++) {
+        futures.add(writer.insertRecord("root.sg.d1", i, MEASUREMENTS, TYPES, values(i * 10)));
+      }
+      // the rows of one tablet share its future
+      assertSame(futures.get(0), futures.get(2));
+      futures.get(2).get(10, TimeUnit.SECONDS);
+
+      assertEquals(1, pool.requests.size());
+      Tablet tablet = pool.requests.get(0).get("root.sg.d1");
+      assertEquals(3, tablet.rowSize);
+      for (int i = 0; i < 3; i++) {
+        assertEquals(i, tablet.timestamps[i]);
+        assertEquals(i * 10L, ((long[]) tablet.values[0])[i]);
+      }
+
+      // the next record starts a new tablet
+      CompletableFuture<Void> next =
+          writer.insertRecord("root.sg.d1", 3, MEASUREMENTS, TYPES, values(30L));
+      assertFalse(next.isDone());
+    }
+  }
+
+  @Test
+  public void testTabletsOfOneDeviceInSeparateRequests() throws Exception {
+    RecordingSessionPool pool = new RecordingSessionPool();
+    try (AsyncSessionWriter writer =
+        new AsyncSessionWriter.Builder(pool)
+            .maxRowsPerTablet(100)
+            .lingerMs(LONG_LINGER_MS)
+            .build()) {
+      // two measurement lists of root.sg.d1 are buffered in two tablets
+      writer.insertRecord("root.sg.d1", 1, Collections.singletonList("s1"), TYPES, values(1L));
+      writer.insertRecord("root.sg.d1", 1, Collections.singletonList("s2"), TYPES, values(2L));
+      writer.insertRecord("root.sg.d2", 1, MEASUREMENTS, TYPES, values(3L));
+      writer.flush().get(10, TimeUnit.SECONDS);
+
+      // a request is keyed by device, so it can carry only one tablet of root.sg.d1
+      assertEquals(2, pool.requests.size());
+      int tabletsOfD1 = 0;
+      int tabletsOfD2 = 0;
+      for (Map<String, Tablet> request : pool.requests) {
+        tabletsOfD1 += request.containsKey("root.sg.d1") ? 1 : 0;
+        tabletsOfD2 += request.containsKey("root.sg.d2") ? 1 : 0;
+      }
+      assertEquals(2, tabletsOfD1);
+      assertEquals(1, tabletsOfD2);
+    }
+  }
+
+  @Test
+  public void testMaxTabletsPerRequest() throws Exception {
+    RecordingSessionPool pool = new RecordingSessionPool();
+    try (AsyncSessionWriter writer =
+        new AsyncSessionWriter.Builder(pool)
+            .maxRowsPerTablet(100)
+            .lingerMs(LONG_LINGER_MS)
+            .maxTabletsPerRequest(2)
+            .build()) {
+      for (int i = 0; i < 5; i++) {
+        writer.insertRecord("root.sg.d" + i, 1, MEASUREMENTS, TYPES, values(1L));
+      }
+      writer.flush().get(10, TimeUnit.SECONDS);
+
+      assertEquals(3, pool.requests.size());
+      int tablets = 0;
+      for (Map<String, Tablet> request : pool.requests) {
+        assertTrue(request.size() <= 2);
+        tablets += request.size();
+      }
+      assertEquals(5, tablets);
+    }
+  }
+
+  @Test
+  public void testBackpressure() throws Exception {
+    RecordingSessionPool pool = new RecordingSessionPool();
+    pool.blocked = new CountDownLatch(1);
+    try (AsyncSessionWriter writer =
+        new AsyncSessionWriter.Builder(pool)
+            .maxRowsPerTablet(1)
+            .lingerMs(LONG_LINGER_MS)
+            .maxInFlightRequests(1)
+            .build()) {
+      CompletableFuture<Void> first =
+          writer.insertRecord("root.sg.d1", 1, MEASUREMENTS, TYPES, values(1L));
+      assertTrue(pool.entered.await(10, TimeUnit.SECONDS));
+
+      // the only slot is taken, so the producer that fills the next tablet has to wait
+      CompletableFuture<CompletableFuture<Void>> second =
+          CompletableFuture.supplyAsync(
+              () -> writer.insertRecord("root.sg.d2", 1, MEASUREMENTS, TYPES, values(2L)));
+      Thread.sleep(200);
+      assertFalse(second.isDone());
+      assertFalse(first.isDone());
+
+      pool.blocked.countDown();
+      first.get(10, TimeUnit.SECONDS);
+      second.get(10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS);
+      assertEquals(2, pool.requests.size());
+    }
+  }
+
+  @Test
+  public void testFutureFailsWithRequest() throws Exception {
+    RecordingSessionPool pool = new RecordingSessionPool();
+    pool.failure = new StatementExecutionException("write rejected");
+    try (AsyncSessionWriter writer =
+        new AsyncSessionWriter.Builder(pool)
+            .maxRowsPerTablet(100)
+            .lingerMs(LONG_LINGER_MS)
+            .build()) {
+      CompletableFuture<Void> nonAligned =
+          writer.insertRecord("root.sg.d1", 1, MEASUREMENTS, TYPES, values(1L));
+      CompletableFuture<Void> aligned =
+          writer.insertAlignedRecord("root.sg.d2", 1, MEASUREMENTS, TYPES, values(1L));
+      try {
+        writer.flush().get(10, TimeUnit.SECONDS);
+        fail("the flush should fail with the request");
+      } catch (ExecutionException e) {
+        assertSame(pool.failure, e.getCause());
+      }
+      assertTrue(nonAligned.isCompletedExceptionally());
+      assertTrue(aligned.isCompletedExceptionally());
+      assertEquals(1, pool.alignedRequests);
+    }
+  }
+
+  @Test
+  public void testCloseDrains() throws Exception {
+    RecordingSessionPool pool = new RecordingSessionPool();
+    pool.delayMs = 100;
+    AsyncSessionWriter writer =
+        new AsyncSessionWriter.Builder(pool)
+            .maxRowsPerTablet(2)
+            .lingerMs(LONG_LINGER_MS)
+            .maxInFlightRequests(2)
+            .build();
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (long i = 0; i < 5; i++) {
+      futures.add(writer.insertRecord("root.sg.d" + (i % 2), i, MEASUREMENTS, TYPES, values(i)));
+    }
+    writer.close();
+
+    // close returns only after every buffered and in-flight record is written
+    for (CompletableFuture<Void> future : futures) {
+      assertTrue(future.isDone());
+      assertFalse(future.isCompletedExceptionally());
+    }
+    int rows = 0;
+    for (Map<String, Tablet> request : pool.requests) {
+      for (Tablet tablet : request.values()) {
+        rows += tablet.rowSize;
+      }
+    }
+    assertEquals(5, rows);
+
+    try {
+      writer.insertRecord("root.sg.d1", 5, MEASUREMENTS, TYPES, values(5L));
+      fail("a closed writer should reject records");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testValueOfWrongTypeLeavesNoRow() throws Exception {
+    RecordingSessionPool pool = new RecordingSessionPool();
+    List<String> measurements = Arrays.asList("s1", "s2");
+    List<TSDataType> types = Arrays.asList(TSDataType.INT64, TSDataType.INT32);
+    try (AsyncSessionWriter writer =
+        new AsyncSessionWriter.Builder(pool)
+            .maxRowsPerTablet(100)
+            .lingerMs(LONG_LINGER_MS)
+            .build()) {
+      writer.insertRecord("root.sg.d1", 1, measurements, types, Arrays.asList(1L, 1));
+      try {
+        // the second value is a long for an INT32 measurement
+        writer.insertRecord("root.sg.d1", 2, measurements, types, Arrays.asList(2L, 2L));
+        fail("a value of the wrong type should be rejected");
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+      writer.insertRecord("root.sg.d1", 3, measurements, types, Arrays.asList(3L, null));
+      writer.flush().get(10, TimeUnit.SECONDS);
+
+      Tablet tablet = pool.requests.get(0).get("root.sg.d1");
+      assertEquals(2, tablet.rowSize);
+      assertEquals(1, tablet.timestamps[0]);
+      assertEquals(3, tablet.timestamps[1]);
+      assertEquals(3L, ((long[]) tablet.values[0])[1]);
+      assertTrue(tablet.bitMaps[1].isMarked(1));
+    }
+  }
+
+  private static List<Object> values(Object... values) {
+    return Arrays.asList(values);
+  }
+
+  /** Records the requests instead of sending them, and can delay, block or fail them. */
+  private static class RecordingSessionPool extends SessionPool {
+
+    private final List<Map<String, Tablet>> requests = new CopyOnWriteArrayList<>();
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private volatile CountDownLatch blocked;
+    private volatile long delayMs;
+    private volatile StatementExecutionException failure;
+    private volatile int alignedRequests;
+
+    private RecordingSessionPool() {
+      super("127.0.0.1", 6667, "root", "root", 1);
+    }
+
+    @Override
+    public void insertTablets(Map<String, Tablet> tablets)
+        throws IoTDBConnectionException, StatementExecutionException {
+      record(tablets);
+    }
+
+    @Override
+    public void insertAlignedTablets(Map<String, Tablet> tablets)
+        throws IoTDBConnectionException, StatementExecutionException {
+      alignedRequests++;
+      record(tablets);
+    }
+
+    private void record(Map<String, Tablet> tablets) throws StatementExecutionException {
+      entered.countDown();
+      try {
+        if (blocked != null) {
+          blocked.await();
+        }
+        if (delayMs > 0) {
+          Thread.sleep(delayMs);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      if (failure != null) {
+        throw failure;
+      }
+      requests.add(tablets);
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.session.util;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class TabletBufferPoolTest {
+
+  @Test
+  public void testAllocate() {
+    ByteBuffer small = TabletBufferPool.allocate(10);
+    assertEquals(0, small.position());
+    assertEquals(10, small.limit());
+    assertEquals(1024, small.capacity());
+
+    ByteBuffer exact = TabletBufferPool.allocate(4096);
+    assertEquals(4096, exact.limit());
+    assertEquals(4096, exact.capacity());
+
+    ByteBuffer rounded = TabletBufferPool.allocate(4097);
+    assertEquals(4097, rounded.limit());
+    assertEquals(8192, rounded.capacity());
+  }
+
+  @Test
+  public void testReuse() {
+    ByteBuffer buffer = TabletBufferPool.allocate(3000);
+    buffer.putLong(1L).flip();
+    TabletBufferPool.release(buffer);
+
+    // any size of the same power of two gets the released buffer back, reset to the new size
+    ByteBuffer reused = TabletBufferPool.allocate(2500);
+    assertSame(buffer, reused);
+    assertEquals(0, reused.position());
+    assertEquals(2500, reused.limit());
+
+    // the pool handed it out, so it is not given twice
+    assertNotSame(reused, TabletBufferPool.allocate(2500));
+  }
+
+  @Test
+  public void testForeignBuffersAreNotPooled() {
+    // not a power of two, so not allocated by the pool
+    ByteBuffer odd = ByteBuffer.allocate(3 * 1024 + 1);
+    TabletBufferPool.release(odd);
+    // direct buffers have no array for thrift to write
+    ByteBuffer direct = ByteBuffer.allocateDirect(16 * 1024);
+    TabletBufferPool.release(direct);
+    TabletBufferPool.release(null);
+
+    assertNotSame(odd, TabletBufferPool.allocate(3 * 1024 + 1));
+    assertNotSame(direct, TabletBufferPool.allocate(16 * 1024));
+  }
+
+  @Test
+  public void testLargeBuffersAreNotPooled() {
+    int size = (1 << 26) + 1;
+    ByteBuffer large = TabletBufferPool.allocate(size);
+    // too large for a bucket, so it is sized exactly and never comes back from release
+    assertEquals(size, large.capacity());
+    assertEquals(size, large.limit());
+  }
+}
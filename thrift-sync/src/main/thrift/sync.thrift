@@ -48,4 +48,14 @@ service SyncService{
   SyncStatus syncData(1:binary buff)
   SyncStatus checkDataDigest(1:string md5)
   SyncStatus endSync()
+
+  // The following are used by the parallel transfer. Additional connections join the sync task
+  // started by the main connection, and each file is identified by its storage group and file
+  // info, so that several files can be transferred at the same time.
+  SyncStatus joinSync(1:ConfirmInfo info)
+  // The msg of the result is the number of bytes of the file already received, from which the
+  // sender resumes the transfer.
+  SyncStatus initSyncFile(1:string storageGroupName, 2:string fileInfo)
+  SyncStatus syncFileData(1:string storageGroupName, 2:string fileInfo, 3:i64 offset, 4:binary buff)
+  SyncStatus checkFileDigest(1:string storageGroupName, 2:string fileInfo, 3:string md5)
 }
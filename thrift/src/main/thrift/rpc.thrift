@@ -60,6 +60,8 @@ struct TSTracingInfo{
   9: optional i64 unsequenceChunkPointNum
   10: optional i32 totalPageNum
   11: optional i32 overlappedPageNum
+  12: optional i64 chunkCacheHitNum
+  13: optional i64 chunkCacheMissNum
 }
 
 struct TSExecuteStatementResp {
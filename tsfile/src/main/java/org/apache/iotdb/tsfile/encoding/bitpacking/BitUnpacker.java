@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.encoding.bitpacking;
+
+import org.apache.iotdb.tsfile.utils.BytesUtils;
+
+import java.util.Arrays;
+
+/**
+ * This class is used to decode a block of values with the same bit-width at once. The values are
+ * stored one after another from the highest bit of the first byte, which is the layout written by
+ * {@link IntPacker}, {@link LongPacker} and {@code DeltaBinaryEncoder}.
+ *
+ * <p>Byte-aligned widths are decoded by their own loops. Other widths are decoded by reading the 8
+ * bytes that cover a value into a long and shifting the value out, so that the loop has no per-bit
+ * branch and can be unrolled by the JIT. The last values, whose covering bytes exceed the buffer,
+ * are decoded bit by bit.
+ */
+public class BitUnpacker {
+
+  private BitUnpacker() {}
+
+  /**
+   * decode count Integers of the given bit-width from buf.
+   *
+   * @param buf array where bytes are in, starting from the first value
+   * @param width bit-width of each value, no more than 32
+   * @param values decoded result
+   * @param offset index of the first decoded value in values
+   * @param count number of values to decode
+   */
+  public static void unpackInts(byte[] buf, int width, int[] values, int offset, int count) {
+    switch (width) {
+      case 0:
+        Arrays.fill(values, offset, offset + count, 0);
+        break;
+      case 8:
+        for (int i = 0; i < count; i++) {
+          values[offset + i] = buf[i] & 0xFF;
+        }
+        break;
+      case 16:
+        for (int i = 0; i < count; i++) {
+          values[offset + i] = ((buf[2 * i] & 0xFF) << 8) | (buf[2 * i + 1] & 0xFF);
+        }
+        break;
+      case 32:
+        for (int i = 0; i < count; i++) {
+          values[offset + i] = readInt(buf, 4 * i);
+        }
+        break;
+      default:
+        int fastCount = getFastCount(buf.length, Long.BYTES, width, count);
+        int shift = Long.SIZE - width;
+        long bitPos = 0;
+        for (int i = 0; i < fastCount; i++, bitPos += width) {
+          long window = readLong(buf, (int) (bitPos >>> 3));
+          values[offset + i] = (int) ((window << (bitPos & 7)) >>> shift);
+        }
+        for (int i = fastCount; i < count; i++, bitPos += width) {
+          values[offset + i] = BytesUtils.bytesToInt(buf, (int) bitPos, width);
+        }
+    }
+  }
+
+  /**
+   * decode count Longs of the given bit-width from buf.
+   *
+   * @param buf array where bytes are in, starting from the first value
+   * @param width bit-width of each value, no more than 64
+   * @param values decoded result
+   * @param offset index of the first decoded value in values
+   * @param count number of values to decode
+   */
+  public static void unpackLongs(byte[] buf, int width, long[] values, int offset, int count) {
+    switch (width) {
+      case 0:
+        Arrays.fill(values, offset, offset + count, 0L);
+        break;
+      case 8:
+        for (int i = 0; i < count; i++) {
+          values[offset + i] = buf[i] & 0xFFL;
+        }
+        break;
+      case 16:
+        for (int i = 0; i < count; i++) {
+          values[offset + i] = ((buf[2 * i] & 0xFFL) << 8) | (buf[2 * i + 1] & 0xFFL);
+        }
+        break;
+      case 32:
+        for (int i = 0; i < count; i++) {
+          values[offset + i] = readInt(buf, 4 * i) & 0xFFFFFFFFL;
+        }
+        break;
+      case 64:
+        for (int i = 0; i < count; i++) {
+          values[offset + i] = readLong(buf, 8 * i);
+        }
+        break;
+      default:
+        if (width > 57) {
+          unpackWideLongs(buf, width, values, offset, count);
+          break;
+        }
+        int fastCount = getFastCount(buf.length, Long.BYTES, width, count);
+        int shift = Long.SIZE - width;
+        long bitPos = 0;
+        for (int i = 0; i < fastCount; i++, bitPos += width) {
+          long window = readLong(buf, (int) (bitPos >>> 3));
+          values[offset + i] = (window << (bitPos & 7)) >>> shift;
+        }
+        for (int i = fastCount; i < count; i++, bitPos += width) {
+          values[offset + i] = BytesUtils.bytesToLong(buf, (int) bitPos, width);
+        }
+    }
+  }
+
+  /** a value of more than 57 bits may span 9 bytes, whose last byte supplies its lowest bits */
+  private static void unpackWideLongs(byte[] buf, int width, long[] values, int offset, int count) {
+    int fastCount = getFastCount(buf.length, Long.BYTES + 1, width, count);
+    int shift = Long.SIZE - width;
+    long bitPos = 0;
+    for (int i = 0; i < fastCount; i++, bitPos += width) {
+      int byteIdx = (int) (bitPos >>> 3);
+      int bitOffset = (int) (bitPos & 7);
+      long window = readLong(buf, byteIdx);
+      // the bits taken from the 9th byte, at most 7
+      int extraBits = Math.max(0, bitOffset + width - Long.SIZE);
+      values[offset + i] =
+          ((window << bitOffset) >>> shift) | ((buf[byteIdx + 8] & 0xFF) >>> (8 - extraBits));
+    }
+    for (int i = fastCount; i < count; i++, bitPos += width) {
+      values[offset + i] = BytesUtils.bytesToLong(buf, (int) bitPos, width);
+    }
+  }
+
+  /** @return the number of leading values whose covering windowBytes bytes are all in the buffer */
+  private static int getFastCount(int bufLength, int windowBytes, int width, int count) {
+    if (bufLength < windowBytes) {
+      return 0;
+    }
+    // value i can be read in a window if (i * width) / 8 + windowBytes <= bufLength
+    long fastCount = ((long) (bufLength - windowBytes) * 8) / width + 1;
+    return (int) Math.min(count, fastCount);
+  }
+
+  private static int readInt(byte[] buf, int pos) {
+    return ((buf[pos] & 0xFF) << 24)
+        | ((buf[pos + 1] & 0xFF) << 16)
+        | ((buf[pos + 2] & 0xFF) << 8)
+        | (buf[pos + 3] & 0xFF);
+  }
+
+  private static long readLong(byte[] buf, int pos) {
+    return ((long) readInt(buf, pos) << 32) | (readInt(buf, pos + 4) & 0xFFFFFFFFL);
+  }
+}
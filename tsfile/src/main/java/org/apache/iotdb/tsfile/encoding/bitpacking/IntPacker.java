@@ -144,16 +144,12 @@ public class IntPacker {
    * @param values decoded result.
    */
   public void unpackAllValues(byte[] buf, int length, int[] values) {
-    int idx = 0;
-    int k = 0;
-    while (idx < length) {
-      int[] tv = new int[8];
-      // decode 8 values one time, current result will be saved in the array named 'tv'
-      unpack8Values(buf, idx, tv);
-      System.arraycopy(tv, 0, values, k, 8);
-      idx += width;
-      k += 8;
+    if (width == 0) {
+      return;
     }
+    // decode 8 values for every width bytes
+    int count = (length + width - 1) / width * 8;
+    BitUnpacker.unpackInts(buf, width, values, 0, count);
   }
 
   public void setWidth(int width) {
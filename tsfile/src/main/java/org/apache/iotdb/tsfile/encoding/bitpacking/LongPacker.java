@@ -157,17 +157,12 @@ public class LongPacker {
    * @param values decoded result
    */
   public void unpackAllValues(byte[] buf, int length, long[] values) {
-    int idx = 0;
-    int k = 0;
-    while (idx < length) {
-      long[] tv = new long[8];
-      // decode 8 values one time, current result will be saved in the array named
-      // 'tv'
-      unpack8Values(buf, idx, tv);
-      System.arraycopy(tv, 0, values, k, 8);
-      idx += width;
-      k += 8;
+    if (width == 0) {
+      return;
     }
+    // decode 8 values for every width bytes
+    int count = (length + width - 1) / width * 8;
+    BitUnpacker.unpackLongs(buf, width, values, 0, count);
   }
 
   public void setWidth(int width) {
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.tsfile.encoding.decoder;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+
+import java.nio.ByteBuffer;
+
+import static org.apache.iotdb.tsfile.encoding.encoder.ChimpEncoder.DECIMAL_PLACES_BITS_LENGTH;
+import static org.apache.iotdb.tsfile.encoding.encoder.ChimpEncoder.ENCODING_ENDING_DECIMAL_PLACES;
+import static org.apache.iotdb.tsfile.encoding.encoder.ChimpEncoder.LEADING_ZEROS;
+import static org.apache.iotdb.tsfile.encoding.encoder.ChimpEncoder.LEADING_ZERO_BITS_LENGTH;
+import static org.apache.iotdb.tsfile.encoding.encoder.ChimpEncoder.PREVIOUS_VALUES;
+import static org.apache.iotdb.tsfile.encoding.encoder.ChimpEncoder.PREVIOUS_VALUES_LOG2;
+
+/** Decoder for values encoded by {@link org.apache.iotdb.tsfile.encoding.encoder.ChimpEncoder}. */
+public abstract class ChimpDecoder extends GorillaDecoderV2 {
+
+  private final int valueBits;
+  private final int significantBitsLength;
+
+  private final long[] storedValues = new long[PREVIOUS_VALUES];
+  /** number of values read */
+  private int count;
+
+  private int decimalPlaces;
+  /** the (erased) bits of the last value, which the next value is XORed with */
+  private long storedValue;
+  /** the restored bits of the last value */
+  protected long nextValue;
+
+  protected ChimpDecoder(int valueBits, int significantBitsLength) {
+    super(TSEncoding.CHIMP);
+    this.valueBits = valueBits;
+    this.significantBitsLength = significantBitsLength;
+    reset();
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    count = 0;
+    decimalPlaces = -1;
+    storedValue = 0;
+    nextValue = 0;
+  }
+
+  /** @see org.apache.iotdb.tsfile.encoding.encoder.ChimpEncoder#restore(long, int) */
+  protected abstract long restore(long bits, int decimalPlaces);
+
+  /** @return the bits of the next value */
+  protected long readBits(ByteBuffer in) {
+    if (!firstValueWasRead) {
+      flipByte(in);
+      readNext(in);
+      firstValueWasRead = true;
+    }
+    long returnValue = nextValue;
+    readNext(in);
+    return returnValue;
+  }
+
+  private void readNext(ByteBuffer in) {
+    boolean erased;
+    if (!readBit(in)) {
+      // header '0': erased with the last decimal places
+      erased = true;
+    } else if (!readBit(in)) {
+      // header '10': equal to the previous value
+      return;
+    } else if (!readBit(in)) {
+      // header '110': not erased
+      erased = false;
+    } else {
+      // header '111': erased with new decimal places
+      decimalPlaces = (int) readLong(DECIMAL_PLACES_BITS_LENGTH, in);
+      if (decimalPlaces == ENCODING_ENDING_DECIMAL_PLACES) {
+        hasNext = false;
+        return;
+      }
+      erased = true;
+    }
+
+    decompressValue(in);
+    nextValue = erased ? restore(storedValue, decimalPlaces) : storedValue;
+  }
+
+  private void decompressValue(ByteBuffer in) {
+    if (count == 0) {
+      storedValue = readLong(valueBits, in);
+    } else {
+      int controlBits = (int) readLong(2, in);
+      switch (controlBits) {
+        case 0b00: // case '00': equal to a previous value
+          storedValue = storedValues[(int) readLong(PREVIOUS_VALUES_LOG2, in)];
+          storedLeadingZeros = Integer.MAX_VALUE;
+          break;
+        case 0b01: // case '01': center bits XORed with a previous value
+          int index = (int) readLong(PREVIOUS_VALUES_LOG2, in);
+          int leadingZeros = LEADING_ZEROS[(int) readLong(LEADING_ZERO_BITS_LENGTH, in)];
+          int significantBits = (int) readLong(significantBitsLength, in);
+          long xor = readLong(significantBits, in) << (valueBits - leadingZeros - significantBits);
+          storedValue = storedValues[index] ^ xor;
+          storedLeadingZeros = Integer.MAX_VALUE;
+          break;
+        case 0b11: // case '11': new leading zeros
+          storedLeadingZeros = LEADING_ZEROS[(int) readLong(LEADING_ZERO_BITS_LENGTH, in)];
+          // missing break is intentional, we want to overflow to next one
+        default: // case '10': stored leading zeros
+          storedValue ^= readLong(valueBits - storedLeadingZeros, in);
+          break;
+      }
+    }
+    storedValues[count % PREVIOUS_VALUES] = storedValue;
+    count++;
+  }
+}
@@ -123,6 +123,15 @@ public abstract class Decoder {
         }
       case FREQ:
         return new FreqDecoder();
+      case CHIMP:
+        switch (dataType) {
+          case FLOAT:
+            return new SinglePrecisionChimpDecoder();
+          case DOUBLE:
+            return new DoublePrecisionChimpDecoder();
+          default:
+            throw new TsFileDecodingException(String.format(ERROR_MSG, encoding, dataType));
+        }
       default:
         throw new TsFileDecodingException(String.format(ERROR_MSG, encoding, dataType));
     }
@@ -160,6 +169,41 @@ public abstract class Decoder {
     throw new TsFileDecodingException("Method readBigDecimal is not supported by Decoder");
   }
 
+  /**
+   * read at most length int values into values, decoders that support bulk decoding override it.
+   *
+   * @param buffer ByteBuffer
+   * @param values decoded result
+   * @param offset index of the first decoded value in values
+   * @param length max number of values to read
+   * @return number of values read, which is less than length only if there is no more value
+   */
+  public int readInts(ByteBuffer buffer, int[] values, int offset, int length) throws IOException {
+    int count = 0;
+    while (count < length && hasNext(buffer)) {
+      values[offset + count++] = readInt(buffer);
+    }
+    return count;
+  }
+
+  /**
+   * read at most length long values into values, decoders that support bulk decoding override it.
+   *
+   * @param buffer ByteBuffer
+   * @param values decoded result
+   * @param offset index of the first decoded value in values
+   * @param length max number of values to read
+   * @return number of values read, which is less than length only if there is no more value
+   */
+  public int readLongs(ByteBuffer buffer, long[] values, int offset, int length)
+      throws IOException {
+    int count = 0;
+    while (count < length && hasNext(buffer)) {
+      values[offset + count++] = readLong(buffer);
+    }
+    return count;
+  }
+
   public abstract boolean hasNext(ByteBuffer buffer) throws IOException;
 
   public abstract void reset();
@@ -19,9 +19,9 @@
 
 package org.apache.iotdb.tsfile.encoding.decoder;
 
+import org.apache.iotdb.tsfile.encoding.bitpacking.BitUnpacker;
 import org.apache.iotdb.tsfile.encoding.encoder.DeltaBinaryEncoder;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
-import org.apache.iotdb.tsfile.utils.BytesUtils;
 import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
 
 import java.io.IOException;
@@ -59,8 +59,6 @@ public abstract class DeltaBinaryDecoder extends Decoder {
 
   protected abstract void allocateDataArray();
 
-  protected abstract void readValue(int i);
-
   /**
    * calculate the bytes length containing v bits.
    *
@@ -80,7 +78,6 @@ public abstract class DeltaBinaryDecoder extends Decoder {
 
     private int firstValue;
     private int[] data;
-    private int previous;
     /** minimum value for all difference. */
     private int minDeltaBase;
 
@@ -119,11 +116,12 @@ public abstract class DeltaBinaryDecoder extends Decoder {
       readHeader(buffer);
 
       encodingLength = ceil(packNum * packWidth);
-      deltaBuf = new byte[encodingLength];
-      buffer.get(deltaBuf);
+      if (deltaBuf == null || deltaBuf.length < encodingLength) {
+        deltaBuf = new byte[encodingLength];
+      }
+      buffer.get(deltaBuf, 0, encodingLength);
       allocateDataArray();
 
-      previous = firstValue;
       readIntTotalCount = packNum;
       nextReadIndex = 0;
       readPack();
@@ -131,10 +129,31 @@ public abstract class DeltaBinaryDecoder extends Decoder {
     }
 
     private void readPack() {
+      BitUnpacker.unpackInts(deltaBuf, packWidth, data, 0, packNum);
+      int value = firstValue;
       for (int i = 0; i < packNum; i++) {
-        readValue(i);
-        previous = data[i];
+        value += minDeltaBase + data[i];
+        data[i] = value;
+      }
+    }
+
+    @Override
+    public int readInts(ByteBuffer buffer, int[] values, int offset, int length) {
+      int count = 0;
+      while (count < length) {
+        if (nextReadIndex == readIntTotalCount) {
+          if (!buffer.hasRemaining()) {
+            break;
+          }
+          values[offset + count++] = loadIntBatch(buffer);
+        } else {
+          int batchCount = Math.min(length - count, readIntTotalCount - nextReadIndex);
+          System.arraycopy(data, nextReadIndex, values, offset + count, batchCount);
+          nextReadIndex += batchCount;
+          count += batchCount;
+        }
       }
+      return count;
     }
 
     @Override
@@ -145,13 +164,9 @@ public abstract class DeltaBinaryDecoder extends Decoder {
 
     @Override
     protected void allocateDataArray() {
-      data = new int[packNum];
-    }
-
-    @Override
-    protected void readValue(int i) {
-      int v = BytesUtils.bytesToInt(deltaBuf, packWidth * i, packWidth);
-      data[i] = previous + minDeltaBase + v;
+      if (data == null || data.length < packNum) {
+        data = new int[packNum];
+      }
     }
 
     @Override
@@ -164,7 +179,6 @@ public abstract class DeltaBinaryDecoder extends Decoder {
 
     private long firstValue;
     private long[] data;
-    private long previous;
     /** minimum value for all difference. */
     private long minDeltaBase;
 
@@ -198,11 +212,12 @@ public abstract class DeltaBinaryDecoder extends Decoder {
       readHeader(buffer);
 
       encodingLength = ceil(packNum * packWidth);
-      deltaBuf = new byte[encodingLength];
-      buffer.get(deltaBuf);
+      if (deltaBuf == null || deltaBuf.length < encodingLength) {
+        deltaBuf = new byte[encodingLength];
+      }
+      buffer.get(deltaBuf, 0, encodingLength);
       allocateDataArray();
 
-      previous = firstValue;
       readIntTotalCount = packNum;
       nextReadIndex = 0;
       readPack();
@@ -210,9 +225,11 @@ public abstract class DeltaBinaryDecoder extends Decoder {
     }
 
     private void readPack() {
+      BitUnpacker.unpackLongs(deltaBuf, packWidth, data, 0, packNum);
+      long value = firstValue;
       for (int i = 0; i < packNum; i++) {
-        readValue(i);
-        previous = data[i];
+        value += minDeltaBase + data[i];
+        data[i] = value;
       }
     }
 
@@ -222,6 +239,25 @@ public abstract class DeltaBinaryDecoder extends Decoder {
       return readT(buffer);
     }
 
+    @Override
+    public int readLongs(ByteBuffer buffer, long[] values, int offset, int length) {
+      int count = 0;
+      while (count < length) {
+        if (nextReadIndex == readIntTotalCount) {
+          if (!buffer.hasRemaining()) {
+            break;
+          }
+          values[offset + count++] = loadIntBatch(buffer);
+        } else {
+          int batchCount = Math.min(length - count, readIntTotalCount - nextReadIndex);
+          System.arraycopy(data, nextReadIndex, values, offset + count, batchCount);
+          nextReadIndex += batchCount;
+          count += batchCount;
+        }
+      }
+      return count;
+    }
+
     @Override
     protected void readHeader(ByteBuffer buffer) {
       minDeltaBase = ReadWriteIOUtils.readLong(buffer);
@@ -230,13 +266,9 @@ public abstract class DeltaBinaryDecoder extends Decoder {
 
     @Override
     protected void allocateDataArray() {
-      data = new long[packNum];
-    }
-
-    @Override
-    protected void readValue(int i) {
-      long v = BytesUtils.bytesToLong(deltaBuf, packWidth * i, packWidth);
-      data[i] = previous + minDeltaBase + v;
+      if (data == null || data.length < packNum) {
+        data = new long[packNum];
+      }
     }
 
     @Override
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.tsfile.encoding.decoder;
+
+import org.apache.iotdb.tsfile.encoding.encoder.SinglePrecisionChimpEncoder;
+
+import java.nio.ByteBuffer;
+
+import static org.apache.iotdb.tsfile.common.conf.TSFileConfig.MEANINGFUL_XOR_BITS_LENGTH_32BIT;
+import static org.apache.iotdb.tsfile.common.conf.TSFileConfig.VALUE_BITS_LENGTH_32BIT;
+
+/** Decoder for float values encoded by {@link SinglePrecisionChimpEncoder}. */
+public class SinglePrecisionChimpDecoder extends ChimpDecoder {
+
+  public SinglePrecisionChimpDecoder() {
+    super(VALUE_BITS_LENGTH_32BIT, MEANINGFUL_XOR_BITS_LENGTH_32BIT);
+  }
+
+  @Override
+  public final float readFloat(ByteBuffer in) {
+    return Float.intBitsToFloat((int) readBits(in));
+  }
+
+  @Override
+  protected long restore(long bits, int decimalPlaces) {
+    return SinglePrecisionChimpEncoder.restoreFloat(bits, decimalPlaces);
+  }
+}
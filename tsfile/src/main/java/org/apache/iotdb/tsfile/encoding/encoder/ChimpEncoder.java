@@ -0,0 +1,277 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.tsfile.encoding.encoder;
+
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Encoder for floating-point values, which combines the previous value selection of Chimp128 with
+ * the erasure of trailing bits of Elf.
+ *
+ * <p>Erasure: if a value has at most {@link #MAX_DECIMAL_PLACES} decimal places, the mantissa bits
+ * below its decimal precision are set to zero, as long as rounding the erased value to the decimal
+ * places restores the original value exactly. Each value starts with a header: '0' for an erased
+ * value with the decimal places of the last erased value, '10' for a value equal to the previous
+ * one, which is not written at all, '110' for a value that is not erased, and '111' followed by 4
+ * bits of new decimal places otherwise.
+ *
+ * <p>XOR: the (erased) value is XORed with one of the previous {@link #PREVIOUS_VALUES} values that
+ * shares the lowest bits with it, or with the previous value. The control bits are '00' for an
+ * equal previous value, '01' for a XOR with many trailing zeros, '10' for a XOR with the same
+ * rounded leading zeros as the last one, and '11' for a XOR with new leading zeros.
+ *
+ * <p>The stream is ended by a header with {@link #ENCODING_ENDING_DECIMAL_PLACES}, so every value,
+ * including NaN, can be encoded.
+ */
+public abstract class ChimpEncoder extends GorillaEncoderV2 {
+
+  /** number of previous values that can be referenced, and the bits of their indexes */
+  public static final int PREVIOUS_VALUES = 128;
+
+  public static final int PREVIOUS_VALUES_LOG2 = 7;
+
+  /** a previous value is referenced if the XOR with it has more trailing zeros than this */
+  public static final int THRESHOLD = 6 + PREVIOUS_VALUES_LOG2;
+
+  public static final int DECIMAL_PLACES_BITS_LENGTH = 4;
+
+  public static final int MAX_DECIMAL_PLACES = 14;
+
+  public static final int ENCODING_ENDING_DECIMAL_PLACES = 15;
+
+  public static final int LEADING_ZERO_BITS_LENGTH = 3;
+
+  /** the leading zeros of XOR are rounded down to one of these, which is stored as its index */
+  public static final int[] LEADING_ZEROS = {0, 8, 12, 16, 18, 20, 22, 24};
+
+  private static final double[] POW10 = new double[MAX_DECIMAL_PLACES + 1];
+
+  private static final double LOG2_10 = Math.log(10) / Math.log(2);
+
+  private static final int KEY_MASK = (1 << (THRESHOLD + 1)) - 1;
+
+  private static final int[] LEADING_ROUND = new int[Long.SIZE];
+
+  private static final int[] LEADING_REPRESENTATION = new int[Long.SIZE];
+
+  static {
+    POW10[0] = 1;
+    for (int i = 1; i < POW10.length; i++) {
+      POW10[i] = POW10[i - 1] * 10;
+    }
+    int representation = 0;
+    for (int leadingZeros = 0; leadingZeros < Long.SIZE; leadingZeros++) {
+      if (representation + 1 < LEADING_ZEROS.length
+          && LEADING_ZEROS[representation + 1] <= leadingZeros) {
+        representation++;
+      }
+      LEADING_ROUND[leadingZeros] = LEADING_ZEROS[representation];
+      LEADING_REPRESENTATION[leadingZeros] = representation;
+    }
+  }
+
+  private final int valueBits;
+  private final int mantissaBits;
+  private final int exponentBias;
+  private final int significantBitsLength;
+
+  private final long[] storedValues = new long[PREVIOUS_VALUES];
+  /** the position of the last value whose lowest bits are the index */
+  private final int[] indices = new int[KEY_MASK + 1];
+  /** number of values written */
+  private int count;
+
+  private int lastDecimalPlaces;
+  /** the bits of the previous value before erasure */
+  private long previousValue;
+
+  protected ChimpEncoder(
+      int valueBits, int mantissaBits, int exponentBias, int significantBitsLength) {
+    super(TSEncoding.CHIMP);
+    this.valueBits = valueBits;
+    this.mantissaBits = mantissaBits;
+    this.exponentBias = exponentBias;
+    this.significantBitsLength = significantBitsLength;
+    reset();
+  }
+
+  @Override
+  public final int getOneItemMaxSize() {
+    // the longest header, control bits, leading zeros and the value
+    return (3 + DECIMAL_PLACES_BITS_LENGTH + 2 + LEADING_ZERO_BITS_LENGTH + valueBits) / Byte.SIZE
+        + 1;
+  }
+
+  @Override
+  public void flush(ByteArrayOutputStream out) {
+    // ending stream
+    writeBits(0b111, 3, out);
+    writeBits(ENCODING_ENDING_DECIMAL_PLACES, DECIMAL_PLACES_BITS_LENGTH, out);
+
+    // flip the byte no matter it is empty or not
+    // the empty ending byte is necessary when decoding
+    bitsLeft = 0;
+    flipByte(out);
+
+    // the encoder may be reused, so let us reset it
+    reset();
+  }
+
+  @Override
+  protected void reset() {
+    super.reset();
+    count = 0;
+    lastDecimalPlaces = -1;
+    Arrays.fill(indices, -PREVIOUS_VALUES - 1);
+  }
+
+  /**
+   * Round the value of the given bits to the given decimal places.
+   *
+   * @return the bits of the rounded value
+   */
+  protected abstract long restore(long bits, int decimalPlaces);
+
+  /** @param value the bits of a value, the unused high bits must be zero */
+  protected void encodeBits(long value, ByteArrayOutputStream out) {
+    if (count > 0 && value == previousValue) {
+      // header '10': equal to the previous value
+      writeBits(0b10, 2, out);
+      return;
+    }
+    previousValue = value;
+
+    int decimalPlaces = getDecimalPlaces(value);
+    long erasedValue = value;
+    if (decimalPlaces >= 0) {
+      int erasedBits = getErasableBits(value, decimalPlaces);
+      // the header of an erased value may be longer than the 3 bits of header '110', which should
+      // be paid by the erased bits
+      int headerCost = decimalPlaces == lastDecimalPlaces ? 1 : 3 + DECIMAL_PLACES_BITS_LENGTH;
+      if (erasedBits - Long.numberOfTrailingZeros(value) > headerCost - 3) {
+        erasedValue = value & (-1L << erasedBits);
+      } else {
+        decimalPlaces = -1;
+      }
+    }
+
+    if (decimalPlaces < 0) {
+      writeBits(0b110, 3, out);
+    } else if (decimalPlaces == lastDecimalPlaces) {
+      skipBit(out);
+    } else {
+      writeBits(0b111, 3, out);
+      writeBits(decimalPlaces, DECIMAL_PLACES_BITS_LENGTH, out);
+      lastDecimalPlaces = decimalPlaces;
+    }
+    compressValue(erasedValue, out);
+  }
+
+  /**
+   * @return the decimal places of the last erased value if they restore the value, otherwise the
+   *     least decimal places that restore the value, or -1 if there are too many
+   */
+  private int getDecimalPlaces(long value) {
+    if (lastDecimalPlaces >= 0 && restore(value, lastDecimalPlaces) == value) {
+      return lastDecimalPlaces;
+    }
+    for (int decimalPlaces = 0; decimalPlaces <= MAX_DECIMAL_PLACES; decimalPlaces++) {
+      if (restore(value, decimalPlaces) == value) {
+        return decimalPlaces;
+      }
+    }
+    return -1;
+  }
+
+  /** @return the number of lowest bits that can be erased */
+  private int getErasableBits(long value, int decimalPlaces) {
+    int exponentMask = (1 << (valueBits - 1 - mantissaBits)) - 1;
+    int exponent = (int) ((value >>> mantissaBits) & exponentMask) - exponentBias;
+    // erasing k bits changes the value by less than 2^(exponent - mantissaBits + k), which should
+    // be less than half of 10^(-decimalPlaces)
+    int erasedBits = (int) Math.floor(mantissaBits - exponent - decimalPlaces * LOG2_10 - 1);
+    erasedBits = Math.min(erasedBits, mantissaBits);
+    // the estimation may be off by one because of rounding errors
+    for (int i = 0; i < 2 && erasedBits > 0; i++, erasedBits--) {
+      if (restore(value & (-1L << erasedBits), decimalPlaces) == value) {
+        return erasedBits;
+      }
+    }
+    return 0;
+  }
+
+  private void compressValue(long value, ByteArrayOutputStream out) {
+    int key = (int) value & KEY_MASK;
+    if (count == 0) {
+      writeBits(value, valueBits, out);
+    } else {
+      int previousIndex = (count - 1) % PREVIOUS_VALUES;
+      long xor = storedValues[previousIndex] ^ value;
+      int candidate = indices[key];
+      if (count - candidate <= PREVIOUS_VALUES) {
+        long candidateXor = storedValues[candidate % PREVIOUS_VALUES] ^ value;
+        if (Long.numberOfTrailingZeros(candidateXor) > THRESHOLD) {
+          previousIndex = candidate % PREVIOUS_VALUES;
+          xor = candidateXor;
+        }
+      }
+
+      if (xor == 0) {
+        // case '00': equal to a previous value
+        writeBits(0b00, 2, out);
+        writeBits(previousIndex, PREVIOUS_VALUES_LOG2, out);
+        storedLeadingZeros = Integer.MAX_VALUE;
+      } else {
+        int leadingZeros = LEADING_ROUND[Long.numberOfLeadingZeros(xor) - (Long.SIZE - valueBits)];
+        int trailingZeros = Long.numberOfTrailingZeros(xor);
+        if (trailingZeros > THRESHOLD) {
+          // case '01': store the center bits between leading and trailing zeros
+          int significantBits = valueBits - leadingZeros - trailingZeros;
+          writeBits(0b01, 2, out);
+          writeBits(previousIndex, PREVIOUS_VALUES_LOG2, out);
+          writeBits(LEADING_REPRESENTATION[leadingZeros], LEADING_ZERO_BITS_LENGTH, out);
+          writeBits(significantBits, significantBitsLength, out);
+          writeBits(xor >>> trailingZeros, significantBits, out);
+          storedLeadingZeros = Integer.MAX_VALUE;
+        } else if (leadingZeros == storedLeadingZeros) {
+          // case '10': XOR with the previous value, using the stored leading zeros
+          writeBits(0b10, 2, out);
+          writeBits(xor, valueBits - leadingZeros, out);
+        } else {
+          // case '11': XOR with the previous value, using new leading zeros
+          storedLeadingZeros = leadingZeros;
+          writeBits(0b11, 2, out);
+          writeBits(LEADING_REPRESENTATION[leadingZeros], LEADING_ZERO_BITS_LENGTH, out);
+          writeBits(xor, valueBits - leadingZeros, out);
+        }
+      }
+    }
+    storedValues[count % PREVIOUS_VALUES] = value;
+    indices[key] = count;
+    count++;
+  }
+
+  protected static double getPow10(int decimalPlaces) {
+    return POW10[decimalPlaces];
+  }
+}
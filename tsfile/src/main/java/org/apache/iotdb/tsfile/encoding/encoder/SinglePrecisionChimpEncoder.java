@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.tsfile.encoding.encoder;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.apache.iotdb.tsfile.common.conf.TSFileConfig.MEANINGFUL_XOR_BITS_LENGTH_32BIT;
+import static org.apache.iotdb.tsfile.common.conf.TSFileConfig.VALUE_BITS_LENGTH_32BIT;
+
+/** Encoder for float values using {@link ChimpEncoder}. */
+public class SinglePrecisionChimpEncoder extends ChimpEncoder {
+
+  private static final int MANTISSA_BITS = 23;
+  private static final int EXPONENT_BIAS = 127;
+
+  public SinglePrecisionChimpEncoder() {
+    super(VALUE_BITS_LENGTH_32BIT, MANTISSA_BITS, EXPONENT_BIAS, MEANINGFUL_XOR_BITS_LENGTH_32BIT);
+  }
+
+  @Override
+  public final void encode(float value, ByteArrayOutputStream out) {
+    encodeBits(Float.floatToRawIntBits(value) & 0xFFFFFFFFL, out);
+  }
+
+  @Override
+  protected long restore(long bits, int decimalPlaces) {
+    return restoreFloat(bits, decimalPlaces);
+  }
+
+  /** Round the float of the given bits to the given decimal places, used by the decoder too. */
+  public static long restoreFloat(long bits, int decimalPlaces) {
+    double pow10 = getPow10(decimalPlaces);
+    float value = Float.intBitsToFloat((int) bits);
+    return Float.floatToRawIntBits((float) (Math.round(value * pow10) / pow10)) & 0xFFFFFFFFL;
+  }
+}
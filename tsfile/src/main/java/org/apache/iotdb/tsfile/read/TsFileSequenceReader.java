@@ -464,6 +464,69 @@ public class TsFileSequenceReader implements AutoCloseable {
     return timeseriesMetadataList;
   }
 
+  /**
+   * Find the TimeseriesMetadata of the given measurements of a device. The device is searched in
+   * the metadata index only once, and each leaf node of its measurements is read at most once.
+   *
+   * @param device the device of the measurements
+   * @param measurements the measurements to find
+   * @return the TimeseriesMetadata of the measurements which exist in the file, sorted by their
+   *     measurement ids
+   */
+  public List<TimeseriesMetadata> readTimeseriesMetadata(String device, Set<String> measurements)
+      throws IOException {
+    readFileMetadata();
+    MetadataIndexNode deviceMetadataIndexNode = tsFileMetaData.getMetadataIndex();
+    Pair<MetadataIndexEntry, Long> metadataIndexPair =
+        getMetadataAndEndOffset(deviceMetadataIndexNode, device, true, true);
+    if (metadataIndexPair == null) {
+      return Collections.emptyList();
+    }
+    ByteBuffer buffer = readData(metadataIndexPair.left.getOffset(), metadataIndexPair.right);
+    MetadataIndexNode measurementMetadataIndexNode;
+    try {
+      measurementMetadataIndexNode = MetadataIndexNode.deserializeFrom(buffer);
+    } catch (BufferOverflowException e) {
+      logger.error(METADATA_INDEX_NODE_DESERIALIZE_ERROR, file);
+      throw e;
+    }
+
+    List<String> measurementList = new ArrayList<>(measurements);
+    Collections.sort(measurementList);
+    List<TimeseriesMetadata> timeseriesMetadataList = new ArrayList<>();
+    // the largest measurement id in the leaf nodes read, smaller ones need not be searched
+    String lastMeasurementRead = null;
+    long lastLeafOffset = -1;
+    for (String measurement : measurementList) {
+      if (lastMeasurementRead != null && measurement.compareTo(lastMeasurementRead) <= 0) {
+        continue;
+      }
+      metadataIndexPair =
+          getMetadataAndEndOffset(measurementMetadataIndexNode, measurement, false, false);
+      // the measurement is not in the file, if it is in the gap after the leaf node read last
+      if (metadataIndexPair == null || metadataIndexPair.left.getOffset() == lastLeafOffset) {
+        continue;
+      }
+      lastLeafOffset = metadataIndexPair.left.getOffset();
+      buffer = readData(metadataIndexPair.left.getOffset(), metadataIndexPair.right);
+      while (buffer.hasRemaining()) {
+        TimeseriesMetadata timeseriesMetadata;
+        try {
+          timeseriesMetadata = TimeseriesMetadata.deserializeFrom(buffer, true);
+        } catch (BufferOverflowException e) {
+          logger.error(
+              "Something error happened while deserializing TimeseriesMetadata of file {}", file);
+          throw e;
+        }
+        if (measurements.contains(timeseriesMetadata.getMeasurementId())) {
+          timeseriesMetadataList.add(timeseriesMetadata);
+        }
+        lastMeasurementRead = timeseriesMetadata.getMeasurementId();
+      }
+    }
+    return timeseriesMetadataList;
+  }
+
   /* Get leaf MetadataIndexPair which contains path */
   private Pair<MetadataIndexEntry, Long> getLeafMetadataIndexPair(Path path) throws IOException {
     readFileMetadata();
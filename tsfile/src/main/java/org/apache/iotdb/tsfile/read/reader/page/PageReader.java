@@ -29,6 +29,9 @@ import org.apache.iotdb.tsfile.read.common.TimeRange;
 import org.apache.iotdb.tsfile.read.common.block.TsBlock;
 import org.apache.iotdb.tsfile.read.common.block.TsBlockBuilder;
 import org.apache.iotdb.tsfile.read.common.block.column.ColumnBuilder;
+import org.apache.iotdb.tsfile.read.common.block.column.IntColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.LongColumn;
+import org.apache.iotdb.tsfile.read.common.block.column.TimeColumn;
 import org.apache.iotdb.tsfile.read.common.block.column.TimeColumnBuilder;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.filter.operator.AndFilter;
@@ -38,11 +41,15 @@ import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 public class PageReader implements IPageReader {
 
+  private static final int INITIAL_BATCH_SIZE = 1024;
+
   private PageHeader pageHeader;
 
   protected TSDataType dataType;
@@ -162,83 +169,133 @@ public class PageReader implements IPageReader {
   public TsBlock getAllSatisfiedData(boolean ascending) throws IOException {
     // TODO we still need to consider data type, ascending and descending here
     TsBlockBuilder builder = new TsBlockBuilder(Collections.singletonList(dataType));
+    if (filter != null && !filter.satisfy(getStatistics())) {
+      return builder.build();
+    }
+    long[] timestamps = readAllTimes();
+    int count = timestamps.length;
+    // without filter and deletion, the decoded arrays are used as the columns directly
+    boolean allSatisfied =
+        filter == null && (deleteIntervalList == null || deleteIntervalList.isEmpty());
     TimeColumnBuilder timeBuilder = builder.getTimeColumnBuilder();
     ColumnBuilder valueBuilder = builder.getColumnBuilder(0);
-    if (filter == null || filter.satisfy(getStatistics())) {
-      switch (dataType) {
-        case BOOLEAN:
-          while (timeDecoder.hasNext(timeBuffer)) {
-            long timestamp = timeDecoder.readLong(timeBuffer);
-            boolean aBoolean = valueDecoder.readBoolean(valueBuffer);
-            if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aBoolean))) {
-              timeBuilder.writeLong(timestamp);
-              valueBuilder.writeBoolean(aBoolean);
-              builder.declarePosition();
-            }
+    switch (dataType) {
+      case BOOLEAN:
+        for (long timestamp : timestamps) {
+          boolean aBoolean = valueDecoder.readBoolean(valueBuffer);
+          if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aBoolean))) {
+            timeBuilder.writeLong(timestamp);
+            valueBuilder.writeBoolean(aBoolean);
+            builder.declarePosition();
           }
-          break;
-        case INT32:
-          while (timeDecoder.hasNext(timeBuffer)) {
-            long timestamp = timeDecoder.readLong(timeBuffer);
-            int anInt = valueDecoder.readInt(valueBuffer);
-            if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, anInt))) {
-              timeBuilder.writeLong(timestamp);
-              valueBuilder.writeInt(anInt);
-              builder.declarePosition();
-            }
+        }
+        break;
+      case INT32:
+        int[] anInts = new int[count];
+        readAllValues(anInts);
+        if (allSatisfied) {
+          return new TsBlock(
+              new TimeColumn(count, timestamps), new IntColumn(count, Optional.empty(), anInts));
+        }
+        for (int i = 0; i < count; i++) {
+          long timestamp = timestamps[i];
+          if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, anInts[i]))) {
+            timeBuilder.writeLong(timestamp);
+            valueBuilder.writeInt(anInts[i]);
+            builder.declarePosition();
           }
-          break;
-        case INT64:
-          while (timeDecoder.hasNext(timeBuffer)) {
-            long timestamp = timeDecoder.readLong(timeBuffer);
-            long aLong = valueDecoder.readLong(valueBuffer);
-            if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aLong))) {
-              timeBuilder.writeLong(timestamp);
-              valueBuilder.writeLong(aLong);
-              builder.declarePosition();
-            }
+        }
+        break;
+      case INT64:
+        long[] aLongs = new long[count];
+        readAllValues(aLongs);
+        if (allSatisfied) {
+          return new TsBlock(
+              new TimeColumn(count, timestamps), new LongColumn(count, Optional.empty(), aLongs));
+        }
+        for (int i = 0; i < count; i++) {
+          long timestamp = timestamps[i];
+          if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aLongs[i]))) {
+            timeBuilder.writeLong(timestamp);
+            valueBuilder.writeLong(aLongs[i]);
+            builder.declarePosition();
           }
-          break;
-        case FLOAT:
-          while (timeDecoder.hasNext(timeBuffer)) {
-            long timestamp = timeDecoder.readLong(timeBuffer);
-            float aFloat = valueDecoder.readFloat(valueBuffer);
-            if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aFloat))) {
-              timeBuilder.writeLong(timestamp);
-              valueBuilder.writeFloat(aFloat);
-              builder.declarePosition();
-            }
+        }
+        break;
+      case FLOAT:
+        for (long timestamp : timestamps) {
+          float aFloat = valueDecoder.readFloat(valueBuffer);
+          if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aFloat))) {
+            timeBuilder.writeLong(timestamp);
+            valueBuilder.writeFloat(aFloat);
+            builder.declarePosition();
           }
-          break;
-        case DOUBLE:
-          while (timeDecoder.hasNext(timeBuffer)) {
-            long timestamp = timeDecoder.readLong(timeBuffer);
-            double aDouble = valueDecoder.readDouble(valueBuffer);
-            if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aDouble))) {
-              timeBuilder.writeLong(timestamp);
-              valueBuilder.writeDouble(aDouble);
-              builder.declarePosition();
-            }
+        }
+        break;
+      case DOUBLE:
+        for (long timestamp : timestamps) {
+          double aDouble = valueDecoder.readDouble(valueBuffer);
+          if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aDouble))) {
+            timeBuilder.writeLong(timestamp);
+            valueBuilder.writeDouble(aDouble);
+            builder.declarePosition();
           }
-          break;
-        case TEXT:
-          while (timeDecoder.hasNext(timeBuffer)) {
-            long timestamp = timeDecoder.readLong(timeBuffer);
-            Binary aBinary = valueDecoder.readBinary(valueBuffer);
-            if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aBinary))) {
-              timeBuilder.writeLong(timestamp);
-              valueBuilder.writeBinary(aBinary);
-              builder.declarePosition();
-            }
+        }
+        break;
+      case TEXT:
+        for (long timestamp : timestamps) {
+          Binary aBinary = valueDecoder.readBinary(valueBuffer);
+          if (!isDeleted(timestamp) && (filter == null || filter.satisfy(timestamp, aBinary))) {
+            timeBuilder.writeLong(timestamp);
+            valueBuilder.writeBinary(aBinary);
+            builder.declarePosition();
           }
-          break;
-        default:
-          throw new UnSupportedDataTypeException(String.valueOf(dataType));
-      }
+        }
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
     }
     return builder.build();
   }
 
+  /** decode the whole time column in bulk */
+  private long[] readAllTimes() throws IOException {
+    Statistics statistics = pageHeader == null ? null : pageHeader.getStatistics();
+    long[] timestamps =
+        new long
+            [statistics == null ? INITIAL_BATCH_SIZE : (int) Math.max(1, statistics.getCount())];
+    int count = 0;
+    while (timeDecoder.hasNext(timeBuffer)) {
+      if (count == timestamps.length) {
+        timestamps = Arrays.copyOf(timestamps, count * 2);
+      }
+      count += timeDecoder.readLongs(timeBuffer, timestamps, count, timestamps.length - count);
+    }
+    return count == timestamps.length ? timestamps : Arrays.copyOf(timestamps, count);
+  }
+
+  private void readAllValues(int[] values) throws IOException {
+    int count = 0;
+    while (count < values.length && valueDecoder.hasNext(valueBuffer)) {
+      count += valueDecoder.readInts(valueBuffer, values, count, values.length - count);
+    }
+    if (count < values.length) {
+      throw new IOException(
+          String.format("Page has %d timestamps but only %d values", values.length, count));
+    }
+  }
+
+  private void readAllValues(long[] values) throws IOException {
+    int count = 0;
+    while (count < values.length && valueDecoder.hasNext(valueBuffer)) {
+      count += valueDecoder.readLongs(valueBuffer, values, count, values.length - count);
+    }
+    if (count < values.length) {
+      throw new IOException(
+          String.format("Page has %d timestamps but only %d values", values.length, count));
+    }
+  }
+
   @Override
   public Statistics getStatistics() {
     return pageHeader.getStatistics();
@@ -128,4 +128,28 @@ public class LongPackerTest {
       }
     }
   }
+
+  @Test
+  public void testUnpackAllValuesOfAllWidths() {
+    Random rand = new Random();
+    int groupNum = 100;
+    for (int width = 1; width <= 64; width++) {
+      LongPacker packer = new LongPacker(width);
+      long[] values = new long[groupNum * 8];
+      byte[] buf = new byte[groupNum * width];
+      for (int i = 0; i < groupNum; i++) {
+        for (int j = 0; j < 8; j++) {
+          values[i * 8 + j] = rand.nextLong() >>> (64 - width);
+        }
+        byte[] tb = new byte[width];
+        packer.pack8Values(values, i * 8, tb);
+        System.arraycopy(tb, 0, buf, i * width, width);
+      }
+      long[] res = new long[groupNum * 8];
+      packer.unpackAllValues(buf, buf.length, res);
+      for (int i = 0; i < groupNum * 8; i++) {
+        assertEquals(values[i], res[i]);
+      }
+    }
+  }
 }
@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.encoding.decoder;
+
+import org.apache.iotdb.tsfile.encoding.encoder.DeltaBinaryEncoder;
+import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.encoding.encoder.LongRleEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Bench the decoding throughput of TS_2DIFF and RLE long values for each bit width, reading the
+ * values one by one with readLong and in bulk with readLongs.
+ */
+public class BulkDecodeBenchmark {
+
+  private static int[] bitWidths = {1, 2, 4, 7, 8, 12, 16, 20, 24, 32, 40, 48, 57, 63};
+  private static int numOfValue = 1_000_000;
+  private static int batchSize = 1024;
+  private static int numOfWarmUp = 5;
+  private static int numOfRound = 20;
+
+  public static void main(String[] args) throws IOException {
+    for (int bitWidth : bitWidths) {
+      bench(
+          "TS_2DIFF",
+          bitWidth,
+          DeltaBinaryEncoder.LongDeltaEncoder::new,
+          DeltaBinaryDecoder.LongDeltaDecoder::new,
+          generateDeltaValues(bitWidth));
+    }
+    for (int bitWidth : bitWidths) {
+      bench(
+          "RLE",
+          bitWidth,
+          LongRleEncoder::new,
+          LongRleDecoder::new,
+          generateBitPackedValues(bitWidth));
+    }
+  }
+
+  /** deltas of the values take bitWidth bits, as timestamps of irregular intervals do */
+  private static long[] generateDeltaValues(int bitWidth) {
+    Random random = new Random(0);
+    long[] values = new long[numOfValue];
+    for (int i = 1; i < numOfValue; i++) {
+      values[i] = values[i - 1] + (random.nextLong() >>> (Long.SIZE - bitWidth));
+    }
+    return values;
+  }
+
+  /** random values of bitWidth bits, which are bit-packed rather than run-length encoded */
+  private static long[] generateBitPackedValues(int bitWidth) {
+    Random random = new Random(0);
+    long[] values = new long[numOfValue];
+    for (int i = 0; i < numOfValue; i++) {
+      values[i] = random.nextLong() >>> (Long.SIZE - bitWidth);
+    }
+    return values;
+  }
+
+  private static void bench(
+      String encoding,
+      int bitWidth,
+      Supplier<Encoder> encoderSupplier,
+      Supplier<Decoder> decoderSupplier,
+      long[] values)
+      throws IOException {
+    Encoder encoder = encoderSupplier.get();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (long value : values) {
+      encoder.encode(value, out);
+    }
+    encoder.flush(out);
+    byte[] encoded = out.toByteArray();
+
+    long[] result = new long[batchSize];
+    long checksum = 0;
+    for (int i = 0; i < numOfWarmUp; i++) {
+      checksum += decodeOneByOne(decoderSupplier.get(), encoded);
+      checksum += decodeInBulk(decoderSupplier.get(), encoded, result);
+    }
+    long oneByOneTime = 0;
+    long bulkTime = 0;
+    for (int i = 0; i < numOfRound; i++) {
+      long startTime = System.nanoTime();
+      checksum += decodeOneByOne(decoderSupplier.get(), encoded);
+      oneByOneTime += System.nanoTime() - startTime;
+      startTime = System.nanoTime();
+      checksum += decodeInBulk(decoderSupplier.get(), encoded, result);
+      bulkTime += System.nanoTime() - startTime;
+    }
+    System.out.println(
+        String.format(
+            "%s, bit width: %d, one by one: %.2f M values/s, bulk: %.2f M values/s (checksum %d)",
+            encoding,
+            bitWidth,
+            (double) numOfValue * numOfRound * 1000 / oneByOneTime,
+            (double) numOfValue * numOfRound * 1000 / bulkTime,
+            checksum));
+  }
+
+  private static long decodeOneByOne(Decoder decoder, byte[] encoded) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(encoded);
+    long checksum = 0;
+    while (decoder.hasNext(buffer)) {
+      checksum += decoder.readLong(buffer);
+    }
+    return checksum;
+  }
+
+  private static long decodeInBulk(Decoder decoder, byte[] encoded, long[] result)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(encoded);
+    long checksum = 0;
+    while (decoder.hasNext(buffer)) {
+      int count = decoder.readLongs(buffer, result, 0, batchSize);
+      for (int i = 0; i < count; i++) {
+        checksum += result[i];
+      }
+    }
+    return checksum;
+  }
+}
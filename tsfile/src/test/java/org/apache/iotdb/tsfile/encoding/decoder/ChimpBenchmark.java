@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.tsfile.encoding.decoder;
+
+import org.apache.iotdb.tsfile.encoding.encoder.DoublePrecisionChimpEncoder;
+import org.apache.iotdb.tsfile.encoding.encoder.DoublePrecisionEncoderV2;
+import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.encoding.encoder.SinglePrecisionChimpEncoder;
+import org.apache.iotdb.tsfile.encoding.encoder.SinglePrecisionEncoderV2;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Bench the compression ratio and the decoding throughput of CHIMP against GORILLA on the sensor
+ * series in the test resources, each of which has a fixed number of decimal places: air
+ * temperature, relative humidity, wind speed, battery voltage, GPS latitude and air pressure.
+ */
+public class ChimpBenchmark {
+
+  private static String[] datasets = {
+    "air_temperature",
+    "relative_humidity",
+    "wind_speed",
+    "battery_voltage",
+    "gps_latitude",
+    "air_pressure"
+  };
+  private static int numOfWarmUp = 200;
+  private static int numOfRound = 1000;
+
+  public static void main(String[] args) throws IOException {
+    for (String dataset : datasets) {
+      double[] values = readDataset(dataset);
+      bench(
+          dataset,
+          "DOUBLE",
+          "GORILLA",
+          DoublePrecisionEncoderV2::new,
+          DoublePrecisionDecoderV2::new,
+          values);
+      bench(
+          dataset,
+          "DOUBLE",
+          "CHIMP",
+          DoublePrecisionChimpEncoder::new,
+          DoublePrecisionChimpDecoder::new,
+          values);
+      bench(
+          dataset,
+          "FLOAT",
+          "GORILLA",
+          SinglePrecisionEncoderV2::new,
+          SinglePrecisionDecoderV2::new,
+          values);
+      bench(
+          dataset,
+          "FLOAT",
+          "CHIMP",
+          SinglePrecisionChimpEncoder::new,
+          SinglePrecisionChimpDecoder::new,
+          values);
+    }
+  }
+
+  private static double[] readDataset(String dataset) throws IOException {
+    List<Double> values = new ArrayList<>();
+    try (InputStream inputStream =
+            ChimpBenchmark.class.getClassLoader().getResourceAsStream("chimp/" + dataset + ".csv");
+        BufferedReader reader =
+            new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        values.add(Double.parseDouble(line));
+      }
+    }
+    return values.stream().mapToDouble(Double::doubleValue).toArray();
+  }
+
+  private static void bench(
+      String dataset,
+      String dataType,
+      String encoding,
+      Supplier<Encoder> encoderSupplier,
+      Supplier<Decoder> decoderSupplier,
+      double[] values)
+      throws IOException {
+    boolean isDouble = "DOUBLE".equals(dataType);
+    Encoder encoder = encoderSupplier.get();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (double value : values) {
+      if (isDouble) {
+        encoder.encode(value, out);
+      } else {
+        encoder.encode((float) value, out);
+      }
+    }
+    encoder.flush(out);
+    byte[] encoded = out.toByteArray();
+
+    double checksum = 0;
+    for (int i = 0; i < numOfWarmUp; i++) {
+      checksum += decode(decoderSupplier.get(), encoded, isDouble);
+    }
+    long startTime = System.nanoTime();
+    for (int i = 0; i < numOfRound; i++) {
+      checksum += decode(decoderSupplier.get(), encoded, isDouble);
+    }
+    long decodeTime = System.nanoTime() - startTime;
+    int valueBits = isDouble ? Double.SIZE : Float.SIZE;
+    System.out.println(
+        String.format(
+            "%s, %s, %s: %.2f bits/value, compression ratio %.2f, decode: %.2f M values/s"
+                + " (checksum %.1f)",
+            dataset,
+            dataType,
+            encoding,
+            (double) encoded.length * Byte.SIZE / values.length,
+            (double) values.length * valueBits / Byte.SIZE / encoded.length,
+            (double) values.length * numOfRound * 1000 / decodeTime,
+            checksum));
+  }
+
+  private static double decode(Decoder decoder, byte[] encoded, boolean isDouble)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(encoded);
+    double checksum = 0;
+    while (decoder.hasNext(buffer)) {
+      checksum += isDouble ? decoder.readDouble(buffer) : decoder.readFloat(buffer);
+    }
+    return checksum;
+  }
+}
@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.iotdb.tsfile.encoding.decoder;
+
+import org.apache.iotdb.tsfile.encoding.encoder.DoublePrecisionChimpEncoder;
+import org.apache.iotdb.tsfile.encoding.encoder.DoublePrecisionEncoderV2;
+import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.encoding.encoder.SinglePrecisionChimpEncoder;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChimpDecoderTest {
+
+  private static final double[] SPECIAL_DOUBLES = {
+    0.0,
+    -0.0,
+    Double.NaN,
+    Double.POSITIVE_INFINITY,
+    Double.NEGATIVE_INFINITY,
+    Double.MAX_VALUE,
+    Double.MIN_VALUE,
+    Double.MIN_NORMAL,
+    -Double.MAX_VALUE,
+    1e-20,
+    1e20,
+    0.1,
+    -0.1,
+    123456789.123456789
+  };
+
+  private static final float[] SPECIAL_FLOATS = {
+    0.0f,
+    -0.0f,
+    Float.NaN,
+    Float.POSITIVE_INFINITY,
+    Float.NEGATIVE_INFINITY,
+    Float.MAX_VALUE,
+    Float.MIN_VALUE,
+    Float.MIN_NORMAL,
+    -Float.MAX_VALUE,
+    1e-20f,
+    1e20f,
+    0.1f,
+    -0.1f,
+    12345.6789f
+  };
+
+  @Test
+  public void testDoubleSingleValue() throws IOException {
+    for (double value : SPECIAL_DOUBLES) {
+      List<Double> values = new ArrayList<>();
+      values.add(value);
+      testDouble(values);
+    }
+  }
+
+  @Test
+  public void testFloatSingleValue() throws IOException {
+    for (float value : SPECIAL_FLOATS) {
+      List<Float> values = new ArrayList<>();
+      values.add(value);
+      testFloat(values);
+    }
+  }
+
+  @Test
+  public void testDoubleSpecialValues() throws IOException {
+    List<Double> values = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      for (double value : SPECIAL_DOUBLES) {
+        values.add(value);
+      }
+    }
+    testDouble(values);
+  }
+
+  @Test
+  public void testFloatSpecialValues() throws IOException {
+    List<Float> values = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      for (float value : SPECIAL_FLOATS) {
+        values.add(value);
+      }
+    }
+    testFloat(values);
+  }
+
+  @Test
+  public void testDoubleDecimals() throws IOException {
+    Random random = new Random(0);
+    for (int decimalPlaces = 0; decimalPlaces <= 16; decimalPlaces++) {
+      double pow10 = Math.pow(10, decimalPlaces);
+      List<Double> values = new ArrayList<>();
+      long current = 0;
+      for (int i = 0; i < 2000; i++) {
+        current += random.nextInt(2001) - 1000;
+        values.add(current / pow10);
+      }
+      testDouble(values);
+    }
+  }
+
+  @Test
+  public void testFloatDecimals() throws IOException {
+    Random random = new Random(0);
+    for (int decimalPlaces = 0; decimalPlaces <= 8; decimalPlaces++) {
+      double pow10 = Math.pow(10, decimalPlaces);
+      List<Float> values = new ArrayList<>();
+      long current = 0;
+      for (int i = 0; i < 2000; i++) {
+        current += random.nextInt(2001) - 1000;
+        values.add((float) (current / pow10));
+      }
+      testFloat(values);
+    }
+  }
+
+  @Test
+  public void testDoubleRandomBits() throws IOException {
+    Random random = new Random(0);
+    List<Double> values = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      values.add(Double.longBitsToDouble(random.nextLong()));
+    }
+    testDouble(values);
+  }
+
+  @Test
+  public void testFloatRandomBits() throws IOException {
+    Random random = new Random(0);
+    List<Float> values = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      values.add(Float.intBitsToFloat(random.nextInt()));
+    }
+    testFloat(values);
+  }
+
+  @Test
+  public void testRepeatedValues() throws IOException {
+    Random random = new Random(0);
+    List<Double> doubles = new ArrayList<>();
+    List<Float> floats = new ArrayList<>();
+    // more distinct values than the previous values that can be referenced
+    for (int i = 0; i < 5000; i++) {
+      int value = random.nextInt(200);
+      doubles.add(value * 0.25);
+      floats.add(value * 0.25f);
+    }
+    testDouble(doubles);
+    testFloat(floats);
+  }
+
+  @Test
+  public void testMultipleFlushes() throws IOException {
+    Random random = new Random(0);
+    Encoder encoder = new DoublePrecisionChimpEncoder();
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    List<List<Double>> blocks = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      List<Double> values = new ArrayList<>();
+      for (int j = 0; j < 1000; j++) {
+        values.add(Math.round(random.nextGaussian() * 10000) / 100.0);
+      }
+      for (double value : values) {
+        encoder.encode(value, baos);
+      }
+      encoder.flush(baos);
+      blocks.add(values);
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(baos.toByteArray());
+    Decoder decoder = new DoublePrecisionChimpDecoder();
+    for (List<Double> values : blocks) {
+      for (double value : values) {
+        assertTrue(decoder.hasNext(buffer));
+        assertEquals(
+            Double.doubleToRawLongBits(value),
+            Double.doubleToRawLongBits(decoder.readDouble(buffer)));
+      }
+      assertFalse(decoder.hasNext(buffer));
+      decoder.reset();
+    }
+    assertFalse(buffer.hasRemaining());
+  }
+
+  @Test
+  public void testCompressErasedDecimals() throws IOException {
+    Random random = new Random(0);
+    Encoder encoder = new DoublePrecisionChimpEncoder();
+    Encoder gorillaEncoder = new DoublePrecisionEncoderV2();
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    ByteArrayOutputStream gorillaBaos = new ByteArrayOutputStream();
+    double value = 20;
+    for (int i = 0; i < 10000; i++) {
+      value = Math.round((value + random.nextGaussian() * 0.1) * 100) / 100.0;
+      encoder.encode(value, baos);
+      gorillaEncoder.encode(value, gorillaBaos);
+    }
+    encoder.flush(baos);
+    gorillaEncoder.flush(gorillaBaos);
+    // the erased mantissa bits of values with 2 decimal places are not stored
+    assertTrue(baos.size() < gorillaBaos.size() * 0.6);
+  }
+
+  private void testDouble(List<Double> values) throws IOException {
+    Encoder encoder = new DoublePrecisionChimpEncoder();
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    for (double value : values) {
+      encoder.encode(value, baos);
+    }
+    encoder.flush(baos);
+
+    ByteBuffer buffer = ByteBuffer.wrap(baos.toByteArray());
+    Decoder decoder = new DoublePrecisionChimpDecoder();
+    for (double value : values) {
+      assertTrue(decoder.hasNext(buffer));
+      assertEquals(
+          Double.doubleToRawLongBits(value),
+          Double.doubleToRawLongBits(decoder.readDouble(buffer)));
+    }
+    assertFalse(decoder.hasNext(buffer));
+    assertFalse(buffer.hasRemaining());
+  }
+
+  private void testFloat(List<Float> values) throws IOException {
+    Encoder encoder = new SinglePrecisionChimpEncoder();
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    for (float value : values) {
+      encoder.encode(value, baos);
+    }
+    encoder.flush(baos);
+
+    ByteBuffer buffer = ByteBuffer.wrap(baos.toByteArray());
+    Decoder decoder = new SinglePrecisionChimpDecoder();
+    for (float value : values) {
+      assertTrue(decoder.hasNext(buffer));
+      assertEquals(
+          Float.floatToRawIntBits(value), Float.floatToRawIntBits(decoder.readFloat(buffer)));
+    }
+    assertFalse(decoder.hasNext(buffer));
+    assertFalse(buffer.hasRemaining());
+  }
+}
@@ -188,6 +188,37 @@ public class IntRleDecoderTest {
     }
   }
 
+  @Test
+  public void testBulkReadInts() throws IOException {
+    testBulkRead(rleList, 3);
+    testBulkRead(bpList, 3);
+    testBulkRead(hybridList, 3);
+  }
+
+  private void testBulkRead(List<Integer> list, int repeatCount) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    RleEncoder<Integer> encoder = new IntRleEncoder();
+    for (int i = 0; i < repeatCount; i++) {
+      for (int value : list) {
+        encoder.encode(value, baos);
+      }
+      encoder.flush(baos);
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(baos.toByteArray());
+    RleDecoder decoder = new IntRleDecoder();
+    int[] values = new int[list.size() * repeatCount];
+    int count = 0;
+    // read in batches which cross the rle runs, the bit-packing groups and the patterns
+    while (decoder.hasNext(buffer)) {
+      count += decoder.readInts(buffer, values, count, Math.min(77, values.length - count));
+    }
+    assertEquals(values.length, count);
+    for (int i = 0; i < values.length; i++) {
+      assertEquals((int) list.get(i % list.size()), values[i]);
+    }
+  }
+
   private void testBitPackedReadHeader(int num) throws IOException {
     List<Integer> list = new ArrayList<>();
 
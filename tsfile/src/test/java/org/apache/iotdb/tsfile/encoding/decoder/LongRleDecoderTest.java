@@ -218,4 +218,35 @@ public class LongRleDecoderTest {
       }
     }
   }
+
+  @Test
+  public void testBulkReadLongs() throws IOException {
+    testBulkRead(rleList, 3);
+    testBulkRead(bpList, 3);
+    testBulkRead(hybridList, 3);
+  }
+
+  private void testBulkRead(List<Long> list, int repeatCount) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    RleEncoder<Long> encoder = new LongRleEncoder();
+    for (int i = 0; i < repeatCount; i++) {
+      for (long value : list) {
+        encoder.encode(value, baos);
+      }
+      encoder.flush(baos);
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(baos.toByteArray());
+    RleDecoder decoder = new LongRleDecoder();
+    long[] values = new long[list.size() * repeatCount];
+    int count = 0;
+    // read in batches which cross the rle runs, the bit-packing groups and the patterns
+    while (decoder.hasNext(buffer)) {
+      count += decoder.readLongs(buffer, values, count, Math.min(77, values.length - count));
+    }
+    assertEquals(values.length, count);
+    for (int i = 0; i < values.length; i++) {
+      assertEquals((long) list.get(i % list.size()), values[i]);
+    }
+  }
 }
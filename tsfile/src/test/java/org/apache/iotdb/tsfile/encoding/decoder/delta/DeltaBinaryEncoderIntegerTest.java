@@ -68,6 +68,7 @@ public class DeltaBinaryEncoderIntegerTest {
       data[i] = ran.nextInt((int) Math.pow(2, power));
     }
     shouldReadAndWrite(data, ROW_NUM);
+    shouldReadInBulk(data, ROW_NUM);
   }
 
   @Test
@@ -77,6 +78,7 @@ public class DeltaBinaryEncoderIntegerTest {
       data[i] = ran.nextInt();
     }
     shouldReadAndWrite(data, ROW_NUM);
+    shouldReadInBulk(data, ROW_NUM);
   }
 
   @Test
@@ -107,4 +109,20 @@ public class DeltaBinaryEncoderIntegerTest {
       assertEquals(data[i++], reader.readInt(buffer));
     }
   }
+
+  private void shouldReadInBulk(int[] data, int length) throws IOException {
+    out = new ByteArrayOutputStream();
+    writeData(data, length);
+    buffer = ByteBuffer.wrap(out.toByteArray());
+    int[] values = new int[length + 1];
+    int count = 0;
+    // read in batches which do not align with the packs
+    while (reader.hasNext(buffer)) {
+      count += reader.readInts(buffer, values, count, Math.min(333, values.length - count));
+    }
+    assertEquals(length, count);
+    for (int i = 0; i < length; i++) {
+      assertEquals(data[i], values[i]);
+    }
+  }
 }
@@ -81,6 +81,7 @@ public class DeltaBinaryEncoderLongTest {
       data[i] = ran.nextInt((int) Math.pow(2, power)) * BASIC_FACTOR;
     }
     shouldReadAndWrite(data, ROW_NUM);
+    shouldReadInBulk(data, ROW_NUM);
   }
 
   @Test
@@ -91,6 +92,7 @@ public class DeltaBinaryEncoderLongTest {
       data[i] = ran.nextLong();
     }
     shouldReadAndWrite(data, ROW_NUM);
+    shouldReadInBulk(data, ROW_NUM);
   }
 
   @Test
@@ -198,4 +200,20 @@ public class DeltaBinaryEncoderLongTest {
       assertEquals(data[i++], reader.readLong(buffer));
     }
   }
+
+  private void shouldReadInBulk(long[] data, int length) throws IOException {
+    out = new ByteArrayOutputStream();
+    writeData(data, length);
+    buffer = ByteBuffer.wrap(out.toByteArray());
+    long[] values = new long[length + 1];
+    int count = 0;
+    // read in batches which do not align with the packs
+    while (reader.hasNext(buffer)) {
+      count += reader.readLongs(buffer, values, count, Math.min(333, values.length - count));
+    }
+    assertEquals(length, count);
+    for (int i = 0; i < length; i++) {
+      assertEquals(data[i], values[i]);
+    }
+  }
 }
@@ -91,4 +91,36 @@ public class TimeSeriesMetadataReadTest {
       Assert.assertEquals("s" + i, timeseriesMetadataList.get(i - 5).getMeasurementId());
     }
   }
+
+  @Test
+  public void testReadTimeseriesMetadataOfDevice() throws IOException {
+    try (TsFileSequenceReader reader = new TsFileSequenceReader(FILE_PATH)) {
+      Set<String> set = new HashSet<>();
+      // the measurements are in different leaf nodes
+      set.add("s1");
+      set.add("s2");
+      set.add("s5");
+      set.add("s6");
+      // this file doesn't contain these measurements
+      set.add("s0");
+      set.add("s8");
+      List<TimeseriesMetadata> timeseriesMetadataList = reader.readTimeseriesMetadata("d1", set);
+      Assert.assertEquals(4, timeseriesMetadataList.size());
+      Assert.assertEquals("s1", timeseriesMetadataList.get(0).getMeasurementId());
+      Assert.assertEquals("s2", timeseriesMetadataList.get(1).getMeasurementId());
+      Assert.assertEquals("s5", timeseriesMetadataList.get(2).getMeasurementId());
+      Assert.assertEquals("s6", timeseriesMetadataList.get(3).getMeasurementId());
+      for (TimeseriesMetadata timeseriesMetadata : timeseriesMetadataList) {
+        Assert.assertEquals(
+            reader
+                .readTimeseriesMetadata(
+                    new Path("d1", timeseriesMetadata.getMeasurementId()), false)
+                .getStatistics(),
+            timeseriesMetadata.getStatistics());
+        Assert.assertFalse(timeseriesMetadata.getChunkMetadataList().isEmpty());
+      }
+
+      Assert.assertTrue(reader.readTimeseriesMetadata("d100", set).isEmpty());
+    }
+  }
 }